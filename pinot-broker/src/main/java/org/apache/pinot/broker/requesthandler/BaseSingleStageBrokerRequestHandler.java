@@ -173,6 +173,8 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
   protected final boolean _useMSEToFillEmptyResponseSchema;
   protected final boolean _enableQueryFingerprinting;
   protected final AuthProvider _serverAdminAuthProvider;
+  @Nullable
+  protected final BrokerResultCache _resultCache;
   protected ExecutorService _multistageCompileExecutor;
   protected BlockingQueue<Pair<String, String>> _multistageCompileQueryQueue;
   protected ImplicitHybridTableRouteProvider _implicitHybridTableRouteProvider;
@@ -234,6 +236,7 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
 
     _useMSEToFillEmptyResponseSchema = _config.getProperty(Broker.USE_MSE_TO_FILL_EMPTY_RESPONSE_SCHEMA,
         Broker.DEFAULT_USE_MSE_TO_FILL_EMPTY_RESPONSE_SCHEMA);
+    _resultCache = BrokerResultCache.create(_config);
 
     _implicitHybridTableRouteProvider = new ImplicitHybridTableRouteProvider();
     _logicalTableRouteProvider = new LogicalTableRouteProvider(multiClusterRoutingContext);
@@ -245,6 +248,12 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
         _enableQueryCancellation);
   }
 
+  /// Returns the broker result cache, or `null` if it is not enabled.
+  @Nullable
+  public BrokerResultCache getResultCache() {
+    return _resultCache;
+  }
+
   @Override
   public void start() {
     if (_enableMultistageMigrationMetric) {
@@ -776,6 +785,20 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
       realtimeBrokerRequest.getPinotQuery().setFilterExpression(null);
     }
 
+    // Record the generation of the cached responses of the tables before routing, so that the response is not cached
+    // if the routing changes while the query is running
+    Set<String> resultCacheTableNames = new HashSet<>();
+    long resultCacheGeneration = 0;
+    if (_resultCache != null) {
+      if (offlineTableName != null) {
+        resultCacheTableNames.add(offlineTableName);
+      }
+      if (realtimeTableName != null) {
+        resultCacheTableNames.add(realtimeTableName);
+      }
+      resultCacheGeneration = _resultCache.getGeneration(resultCacheTableNames);
+    }
+
     // Calculate routing table for the query
     // TODO: Modify RoutingManager interface to directly take PinotQuery
     long routingStartTimeNs = System.nanoTime();
@@ -853,6 +876,32 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     // can be expensive.
     QueryThreadContext.checkTerminationAndSampleUsage("Broker request routing");
 
+    // Serve the query from the result cache when it is routed to the same segments as the cached response. This is
+    // done before the timeout and the other broker-managed options are set, so that they are not part of the key.
+    String resultCacheKey = null;
+    Set<String> resultCacheSegments = null;
+    if (_resultCache != null && errorMsgs.isEmpty() && !pinotQuery.isExplain()
+        && !materializedViewContext.isSplitRewrite()
+        && !QueryOptionsUtils.isSkipResultCache(pinotQuery.getQueryOptions())) {
+      Long maxStalenessMs = QueryOptionsUtils.getMaxStalenessMs(pinotQuery.getQueryOptions());
+      // Consuming segments keep ingesting without changing the routed segments, so queries hitting the REALTIME table
+      // are only cached when the staleness bound is explicitly given
+      if (maxStalenessMs != null || realtimeBrokerRequest == null) {
+        resultCacheSegments = BrokerResultCache.getRoutedSegments(routeInfo);
+      }
+      if (resultCacheSegments != null) {
+        resultCacheKey = BrokerResultCache.getQueryKey(offlineBrokerRequest, realtimeBrokerRequest);
+        BrokerResponseNative cachedResponse = _resultCache.get(resultCacheKey, resultCacheSegments,
+            maxStalenessMs != null ? maxStalenessMs : Long.MAX_VALUE);
+        if (cachedResponse != null) {
+          _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_HITS, 1);
+          return getCachedResponse(cachedResponse, requestContext, rawTableName, tableName, userRawTableName,
+              requesterIdentity, sqlNodeAndOptions, workloadName, queryWasLogged);
+        }
+        _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_MISSES, 1);
+      }
+    }
+
     // Set timeout in the requests
     long timeSpentMs = TimeUnit.NANOSECONDS.toMillis(routingEndTimeNs - compilationStartTimeNs);
     // Remaining time in milliseconds for the server query execution
@@ -1086,6 +1135,11 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     // Record per-server stats on the SSE BrokerResponse so downstream consumers can read it.
     brokerResponse.setServerStats(serverStats.getServerStats());
 
+    if (resultCacheKey != null) {
+      _resultCache.put(resultCacheKey, resultCacheSegments, resultCacheTableNames, resultCacheGeneration,
+          brokerResponse);
+    }
+
     // Log query and stats
     _queryLogger.logQueryCompleted(
         new QueryLogger.QueryLogParams(requestContext, tableName, brokerResponse,
@@ -1481,6 +1535,22 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     return selectorType != null ? selectorType : RoutingConfig.DEFAULT_INSTANCE_SELECTOR_TYPE;
   }
 
+  private BrokerResponseNative getCachedResponse(BrokerResponseNative brokerResponse, RequestContext requestContext,
+      String rawTableName, String tableName, String userRawTableName, @Nullable RequesterIdentity requesterIdentity,
+      SqlNodeAndOptions sqlNodeAndOptions, String workloadName, boolean queryWasLogged) {
+    brokerResponse.setTablesQueried(Set.of(userRawTableName));
+    brokerResponse.setClientRequestId(extractClientRequestId(sqlNodeAndOptions));
+    long totalTimeMs = System.currentTimeMillis() - requestContext.getRequestArrivalTimeMillis();
+    brokerResponse.setTimeUsedMs(totalTimeMs);
+    augmentStatistics(requestContext, brokerResponse);
+    _brokerMetrics.addTimedTableValue(rawTableName, BrokerTimer.QUERY_TOTAL_TIME_MS, totalTimeMs,
+        TimeUnit.MILLISECONDS);
+    _brokerMetrics.addTimedValue(BrokerTimer.QUERY_TOTAL_TIME_MS, totalTimeMs, TimeUnit.MILLISECONDS);
+    _queryLogger.logQueryCompleted(new QueryLogger.QueryLogParams(requestContext, tableName, brokerResponse,
+        QueryLogger.QueryLogParams.QueryEngine.SINGLE_STAGE, requesterIdentity, null, workloadName), queryWasLogged);
+    return brokerResponse;
+  }
+
   private BrokerResponseNative getEmptyBrokerOnlyResponse(PinotQuery pinotQuery, PinotQuery serverPinotQuery,
       RequestContext requestContext, String tableName, @Nullable RequesterIdentity requesterIdentity, Schema schema,
       String query, String database, String workloadName, boolean queryWasLogged) {
@@ -0,0 +1,326 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.requesthandler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.ResultTable;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.routing.SegmentsToQuery;
+import org.apache.pinot.core.routing.TableRouteInfo;
+import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Broker;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.spi.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Size bounded cache of the responses of single-stage queries on the broker.
+///
+/// Entries are keyed by the normalized server queries (after the broker side rewrites and the time boundary of hybrid
+/// tables are applied), and remember the set of segments the query was routed to. A cached response is only served
+/// when the query is routed to the same segments again, and it is dropped when the routing of one of its tables
+/// changes (segment assignment change, segment refresh, routing rebuild or removal).
+///
+/// Consuming segments keep ingesting under the same segment set, so queries on a table with a REALTIME part only use
+/// the cache when they specify [QueryOptionKey#MAX_STALENESS_MS], which bounds the age of the response served.
+///
+/// A query records the generation of its tables (see [#getGeneration]) before it is routed, and its response is not
+/// cached if one of the tables was invalidated in the meantime, so that a query routed before a routing change can not
+/// put back a stale response after the invalidation.
+///
+/// Responses are stored in their serialized JSON form, which is also the size accounted for the entry, and each hit
+/// gets its own deserialized copy, with the result values converted back to the types of the columns.
+public class BrokerResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+
+  // Query options that do not change the query response
+  private static final Set<String> IGNORED_QUERY_OPTIONS =
+      Set.of(QueryOptionKey.TIMEOUT_MS, QueryOptionKey.EXTRA_PASSIVE_TIMEOUT_MS, QueryOptionKey.CLIENT_QUERY_ID,
+          QueryOptionKey.QUERY_HASH, QueryOptionKey.WORKLOAD_NAME, QueryOptionKey.APPLICATION_NAME,
+          QueryOptionKey.COLLECT_GC_STATS, QueryOptionKey.MAX_EXECUTION_THREADS, QueryOptionKey.IS_SECONDARY_WORKLOAD,
+          QueryOptionKey.USE_RESULT_CACHE, QueryOptionKey.MAX_STALENESS_MS);
+
+  private final Cache<String, CachedResponse> _cache;
+  // Number of invalidations of each table
+  private final Map<String, AtomicLong> _tableGenerations = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  BrokerResultCache(long maxSizeInBytes) {
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeInBytes)
+        .weigher((String key, CachedResponse value) -> (int) Math.min(2L * key.length() + value.getSizeInBytes(),
+            Integer.MAX_VALUE))
+        .build();
+  }
+
+  /// Returns the cache configured in the broker config, or `null` if it is disabled.
+  @Nullable
+  public static BrokerResultCache create(PinotConfiguration config) {
+    long maxSizeInBytes = config.getProperty(Broker.CONFIG_OF_BROKER_RESULT_CACHE_MAX_SIZE_BYTES,
+        Broker.DEFAULT_BROKER_RESULT_CACHE_MAX_SIZE_BYTES);
+    if (maxSizeInBytes <= 0) {
+      return null;
+    }
+    LOGGER.info("Enabling broker result cache with max size: {} bytes", maxSizeInBytes);
+    return new BrokerResultCache(maxSizeInBytes);
+  }
+
+  /// Returns the normalized key of the query sent to the servers.
+  public static String getQueryKey(@Nullable BrokerRequest offlineBrokerRequest,
+      @Nullable BrokerRequest realtimeBrokerRequest) {
+    StringBuilder stringBuilder = new StringBuilder();
+    if (offlineBrokerRequest != null) {
+      stringBuilder.append(normalize(offlineBrokerRequest.getPinotQuery()));
+    }
+    stringBuilder.append('|');
+    if (realtimeBrokerRequest != null) {
+      stringBuilder.append(normalize(realtimeBrokerRequest.getPinotQuery()));
+    }
+    return stringBuilder.toString();
+  }
+
+  private static String normalize(PinotQuery pinotQuery) {
+    PinotQuery normalizedQuery = pinotQuery.deepCopy();
+    Map<String, String> queryOptions = pinotQuery.getQueryOptions();
+    if (queryOptions != null) {
+      Map<String, String> normalizedQueryOptions = new TreeMap<>();
+      for (Map.Entry<String, String> entry : queryOptions.entrySet()) {
+        if (!IGNORED_QUERY_OPTIONS.contains(entry.getKey())) {
+          normalizedQueryOptions.put(entry.getKey(), entry.getValue());
+        }
+      }
+      normalizedQuery.setQueryOptions(normalizedQueryOptions);
+    }
+    return normalizedQuery.toString();
+  }
+
+  /// Returns the segments the query is routed to, or `null` if the routing tables are not available (e.g. for logical
+  /// tables), in which case the query can not be cached.
+  @Nullable
+  public static Set<String> getRoutedSegments(TableRouteInfo routeInfo) {
+    Set<String> segments = new HashSet<>();
+    if (routeInfo.getOfflineBrokerRequest() != null && !addSegments(routeInfo.getOfflineRoutingTable(), segments)) {
+      return null;
+    }
+    if (routeInfo.getRealtimeBrokerRequest() != null && !addSegments(routeInfo.getRealtimeRoutingTable(), segments)) {
+      return null;
+    }
+    return segments;
+  }
+
+  private static boolean addSegments(@Nullable Map<ServerInstance, SegmentsToQuery> routingTable,
+      Set<String> segments) {
+    if (routingTable == null) {
+      return false;
+    }
+    for (SegmentsToQuery segmentsToQuery : routingTable.values()) {
+      segments.addAll(segmentsToQuery.getSegments());
+      segments.addAll(segmentsToQuery.getOptionalSegments());
+    }
+    return true;
+  }
+
+  /// Returns a copy of the cached response of the query, or `null` if there is no cached response routed to the same
+  /// segments and computed within the last `maxStalenessMs`.
+  @Nullable
+  public BrokerResponseNative get(String queryKey, Set<String> segments, long maxStalenessMs) {
+    CachedResponse cachedResponse = _cache.getIfPresent(queryKey);
+    if (cachedResponse == null || System.currentTimeMillis() - cachedResponse._creationTimeMs > maxStalenessMs
+        || !cachedResponse._segments.equals(segments)) {
+      return null;
+    }
+    try {
+      BrokerResponseNative brokerResponse = JsonUtils.bytesToObject(cachedResponse._bytes, BrokerResponseNative.class);
+      ResultTable resultTable = brokerResponse.getResultTable();
+      if (resultTable != null) {
+        convertValues(resultTable);
+      }
+      brokerResponse.setResultFromCache(true);
+      return brokerResponse;
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while deserializing cached response, dropping it", e);
+      _cache.invalidate(queryKey);
+      return null;
+    }
+  }
+
+  /// JSON deserialization reads integral numbers as the smallest fitting type and arrays as lists. Converts the values
+  /// back to the types of the columns, as in the response of a query that is not served from the cache.
+  private static void convertValues(ResultTable resultTable) {
+    ColumnDataType[] columnDataTypes = resultTable.getDataSchema().getColumnDataTypes();
+    int numColumns = columnDataTypes.length;
+    for (Object[] row : resultTable.getRows()) {
+      for (int i = 0; i < numColumns; i++) {
+        Object value = row[i];
+        if (value != null) {
+          row[i] = convertValue(columnDataTypes[i], value);
+        }
+      }
+    }
+  }
+
+  private static Object convertValue(ColumnDataType columnDataType, Object value) {
+    switch (columnDataType) {
+      case INT:
+        return ((Number) value).intValue();
+      case LONG:
+        return ((Number) value).longValue();
+      case FLOAT:
+        return ((Number) value).floatValue();
+      case DOUBLE:
+        return ((Number) value).doubleValue();
+      case INT_ARRAY: {
+        List<?> values = (List<?>) value;
+        int[] intValues = new int[values.size()];
+        for (int i = 0; i < intValues.length; i++) {
+          intValues[i] = ((Number) values.get(i)).intValue();
+        }
+        return intValues;
+      }
+      case LONG_ARRAY: {
+        List<?> values = (List<?>) value;
+        long[] longValues = new long[values.size()];
+        for (int i = 0; i < longValues.length; i++) {
+          longValues[i] = ((Number) values.get(i)).longValue();
+        }
+        return longValues;
+      }
+      case FLOAT_ARRAY: {
+        List<?> values = (List<?>) value;
+        float[] floatValues = new float[values.size()];
+        for (int i = 0; i < floatValues.length; i++) {
+          floatValues[i] = ((Number) values.get(i)).floatValue();
+        }
+        return floatValues;
+      }
+      case DOUBLE_ARRAY: {
+        List<?> values = (List<?>) value;
+        double[] doubleValues = new double[values.size()];
+        for (int i = 0; i < doubleValues.length; i++) {
+          doubleValues[i] = ((Number) values.get(i)).doubleValue();
+        }
+        return doubleValues;
+      }
+      case BOOLEAN_ARRAY: {
+        List<?> values = (List<?>) value;
+        boolean[] booleanValues = new boolean[values.size()];
+        for (int i = 0; i < booleanValues.length; i++) {
+          booleanValues[i] = (Boolean) values.get(i);
+        }
+        return booleanValues;
+      }
+      // The values of these types are formatted as strings in the response
+      case BIG_DECIMAL_ARRAY:
+      case TIMESTAMP_ARRAY:
+      case STRING_ARRAY:
+      case BYTES_ARRAY:
+      case UUID_ARRAY:
+        return ((List<?>) value).toArray(new String[0]);
+      default:
+        return value;
+    }
+  }
+
+  /// Returns the generation of the given tables, which changes whenever one of them is invalidated. It should be read
+  /// before routing the query, and passed to [#put] with its response and the same tables.
+  public long getGeneration(Set<String> tableNamesWithType) {
+    long generation = 0;
+    for (String tableNameWithType : tableNamesWithType) {
+      generation += _tableGenerations.computeIfAbsent(tableNameWithType, k -> new AtomicLong()).get();
+    }
+    return generation;
+  }
+
+  /// Caches the response of the query. Responses with exceptions or partial results are not cached, neither are the
+  /// responses of queries on tables invalidated since `generation` was read.
+  public void put(String queryKey, Set<String> segments, Set<String> tableNamesWithType, long generation,
+      BrokerResponseNative brokerResponse) {
+    if (brokerResponse.isPartialResult() || !isCurrentGeneration(tableNamesWithType, generation)) {
+      return;
+    }
+    byte[] bytes;
+    try {
+      bytes = JsonUtils.objectToBytes(brokerResponse);
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing response, skipping caching it", e);
+      return;
+    }
+    CachedResponse cachedResponse =
+        new CachedResponse(bytes, segments, tableNamesWithType, System.currentTimeMillis());
+    _cache.put(queryKey, cachedResponse);
+    // The generation is bumped before the entries are dropped in invalidateTable(), so checking it again after the put
+    // guarantees that an invalidation racing with the put either sees the entry or is seen here
+    if (!isCurrentGeneration(tableNamesWithType, generation)) {
+      _cache.asMap().remove(queryKey, cachedResponse);
+    }
+  }
+
+  private boolean isCurrentGeneration(Set<String> tableNamesWithType, long generation) {
+    return getGeneration(tableNamesWithType) == generation;
+  }
+
+  /// Drops the cached responses of the queries on the given table.
+  public void invalidateTable(String tableNameWithType) {
+    _tableGenerations.computeIfAbsent(tableNameWithType, k -> new AtomicLong()).incrementAndGet();
+    _cache.asMap().values().removeIf(cachedResponse -> cachedResponse._tableNamesWithType.contains(tableNameWithType));
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  private static final class CachedResponse {
+    final byte[] _bytes;
+    final Set<String> _segments;
+    final Set<String> _tableNamesWithType;
+    final long _creationTimeMs;
+
+    CachedResponse(byte[] bytes, Set<String> segments, Set<String> tableNamesWithType, long creationTimeMs) {
+      _bytes = bytes;
+      _segments = segments;
+      _tableNamesWithType = tableNamesWithType;
+      _creationTimeMs = creationTimeMs;
+    }
+
+    long getSizeInBytes() {
+      long sizeInBytes = _bytes.length;
+      for (String segment : _segments) {
+        // Rough size of the string and the hash set entry
+        sizeInBytes += 2L * segment.length() + 64;
+      }
+      return sizeInBytes;
+    }
+  }
+}
@@ -149,6 +149,11 @@ public abstract class BaseBrokerRoutingManager implements RoutingManager, Cluste
   private final List<Function<String, SegmentZkMetadataFetchListener>> _extraFetchListenerProviders =
       new CopyOnWriteArrayList<>();
 
+  // Listeners notified with the table name with type whenever the routing of the table changes (routing built, rebuilt
+  // or removed, segment assignment changed, segment refreshed). Used to invalidate broker side caches that depend on
+  // the routed segments.
+  private final List<Consumer<String>> _routingChangeListeners = new CopyOnWriteArrayList<>();
+
   // Global read-write lock for protecting the global data structures such as _enabledServerInstanceMap,
   // _excludedServers, and _routableServerInstanceMap. Write lock must be held if any of these are modified, read lock
   // must be held otherwise
@@ -221,6 +226,23 @@ public abstract class BaseBrokerRoutingManager implements RoutingManager, Cluste
     _extraFetchListenerProviders.add(provider);
   }
 
+  /// Registers a listener that is invoked with the table name with type whenever the routing of the table changes,
+  /// i.e. when the routing is built, rebuilt or removed, the segment assignment (ideal state / external view) changes,
+  /// or a segment is refreshed. The listener is invoked while holding the table level lock, so it must be lightweight.
+  public void addRoutingChangeListener(Consumer<String> listener) {
+    _routingChangeListeners.add(listener);
+  }
+
+  private void notifyRoutingChange(String tableNameWithType) {
+    for (Consumer<String> listener : _routingChangeListeners) {
+      try {
+        listener.accept(tableNameWithType);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying routing change for table: {}", tableNameWithType, e);
+      }
+    }
+  }
+
   private Object getRoutingTableBuildLock(String tableNameWithType) {
     String rawTableName = TableNameBuilder.extractRawTableName(tableNameWithType);
     return _routingTableBuildLocks.computeIfAbsent(rawTableName, k -> new Object());
@@ -381,6 +403,7 @@ public abstract class BaseBrokerRoutingManager implements RoutingManager, Cluste
         LOGGER.error("Caught unexpected exception while updating routing entry on segment assignment change for "
             + "table: {}", tableNameWithType, e);
       }
+      notifyRoutingChange(tableNameWithType);
       return true;
     }
     return false;
@@ -892,6 +915,7 @@ public abstract class BaseBrokerRoutingManager implements RoutingManager, Cluste
       } else {
         LOGGER.info("Rebuilt routing for table: {}", tableNameWithType);
       }
+      notifyRoutingChange(tableNameWithType);
 
       // Check for updates to the IS / EV after adding the routing entry, as it is possible that the
       // processSegmentAssignmentChange() may have run and missed updating this newly added entry. Only update
@@ -972,6 +996,7 @@ public abstract class BaseBrokerRoutingManager implements RoutingManager, Cluste
 
       if (_routingEntryMap.remove(tableNameWithType) != null) {
         LOGGER.info("Removed routing for table: {}", tableNameWithType);
+        notifyRoutingChange(tableNameWithType);
 
         // Remove time boundary manager for the offline part routing if the removed routing is the real-time part of a
         // hybrid table
@@ -1065,6 +1090,7 @@ public abstract class BaseBrokerRoutingManager implements RoutingManager, Cluste
       if (routingEntry != null) {
         routingEntry.refreshSegment(segment);
         LOGGER.info("Refreshed segment: {} for table: {}", segment, tableNameWithType);
+        notifyRoutingChange(tableNameWithType);
       } else {
         LOGGER.warn("Routing does not exist for table: {}, skipping refreshing segment", tableNameWithType);
       }
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.requesthandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.common.response.broker.ResultTable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.routing.SegmentsToQuery;
+import org.apache.pinot.core.routing.TableRouteInfo;
+import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.utils.CommonConstants.Broker;
+import org.apache.pinot.sql.parsers.CalciteSqlCompiler;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class BrokerResultCacheTest {
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final String QUERY = "SELECT COUNT(*) FROM testTable_OFFLINE WHERE a = 1";
+
+  @Test
+  public void testCreate() {
+    assertNull(BrokerResultCache.create(new PinotConfiguration()));
+    assertNotNull(BrokerResultCache.create(
+        new PinotConfiguration(Map.of(Broker.CONFIG_OF_BROKER_RESULT_CACHE_MAX_SIZE_BYTES, "1048576"))));
+  }
+
+  @Test
+  public void testQueryKey() {
+    String key = getQueryKey(QUERY);
+    // Options that do not change the response are ignored
+    assertEquals(getQueryKey("SET timeoutMs = 1000; SET maxStalenessMs = 10; " + QUERY), key);
+    // Literals and other options are part of the key
+    assertNotEquals(getQueryKey("SELECT COUNT(*) FROM testTable_OFFLINE WHERE a = 2"), key);
+    assertNotEquals(getQueryKey("SET enableNullHandling = true; " + QUERY), key);
+    // Same query on the REALTIME side is a different key
+    assertNotEquals(BrokerResultCache.getQueryKey(null, CalciteSqlCompiler.compileToBrokerRequest(QUERY)), key);
+  }
+
+  @Test
+  public void testRoutedSegments() {
+    ServerInstance server1 = new ServerInstance(new InstanceConfig("Server_localhost_1"));
+    ServerInstance server2 = new ServerInstance(new InstanceConfig("Server_localhost_2"));
+    TableRouteInfo routeInfo = mock(TableRouteInfo.class);
+    when(routeInfo.getOfflineBrokerRequest()).thenReturn(CalciteSqlCompiler.compileToBrokerRequest(QUERY));
+    when(routeInfo.getOfflineRoutingTable()).thenReturn(
+        Map.of(server1, new SegmentsToQuery(List.of("seg0", "seg1"), List.of()), server2,
+            new SegmentsToQuery(List.of("seg2"), List.of("seg3"))));
+    assertEquals(BrokerResultCache.getRoutedSegments(routeInfo), Set.of("seg0", "seg1", "seg2", "seg3"));
+
+    // No routing table (e.g. logical table)
+    when(routeInfo.getOfflineRoutingTable()).thenReturn(null);
+    assertNull(BrokerResultCache.getRoutedSegments(routeInfo));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    BrokerResultCache cache = new BrokerResultCache(1024 * 1024);
+    String key = getQueryKey(QUERY);
+    Set<String> segments = Set.of("seg0", "seg1");
+    assertNull(cache.get(key, segments, Long.MAX_VALUE));
+
+    cache.put(key, segments, Set.of(OFFLINE_TABLE_NAME), 0, getResponse(10L));
+    BrokerResponseNative cachedResponse = cache.get(key, segments, Long.MAX_VALUE);
+    assertNotNull(cachedResponse);
+    assertTrue(cachedResponse.isResultFromCache());
+    assertEquals(cachedResponse.getResultTable().getRows().get(0)[0], 10L);
+    assertEquals(cachedResponse.getNumDocsScanned(), 10);
+
+    // Different routed segments
+    assertNull(cache.get(key, Set.of("seg0", "seg1", "seg2"), Long.MAX_VALUE));
+    // Staleness bound
+    assertNull(cache.get(key, segments, -1));
+
+    // Partial results are not cached
+    BrokerResponseNative partialResponse = getResponse(20L);
+    partialResponse.addException(new QueryProcessingException(QueryErrorCode.SERVER_NOT_RESPONDING, "error"));
+    String otherKey = getQueryKey("SELECT COUNT(*) FROM testTable_OFFLINE WHERE a = 2");
+    cache.put(otherKey, segments, Set.of(OFFLINE_TABLE_NAME), 0, partialResponse);
+    assertNull(cache.get(otherKey, segments, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testInvalidateTable() {
+    BrokerResultCache cache = new BrokerResultCache(1024 * 1024);
+    String key = getQueryKey(QUERY);
+    String otherKey = getQueryKey("SELECT COUNT(*) FROM otherTable_OFFLINE");
+    cache.put(key, Set.of("seg0"), Set.of(OFFLINE_TABLE_NAME), 0, getResponse(1L));
+    cache.put(otherKey, Set.of("seg0"), Set.of("otherTable_OFFLINE"), 0, getResponse(2L));
+    assertEquals(cache.size(), 2);
+
+    cache.invalidateTable(OFFLINE_TABLE_NAME);
+    assertNull(cache.get(key, Set.of("seg0"), Long.MAX_VALUE));
+    assertNotNull(cache.get(otherKey, Set.of("seg0"), Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testValueTypes() {
+    BrokerResultCache cache = new BrokerResultCache(1024 * 1024);
+    String key = getQueryKey(QUERY);
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setResultTable(new ResultTable(new DataSchema(new String[]{"int", "long", "float", "double",
+        "longArray", "stringArray"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG,
+        ColumnDataType.FLOAT, ColumnDataType.DOUBLE, ColumnDataType.LONG_ARRAY, ColumnDataType.STRING_ARRAY}),
+        List.<Object[]>of(new Object[]{1, 2L, 3.0f, 4.0, new long[]{5L}, new String[]{"a"}},
+            new Object[]{null, null, null, null, null, null})));
+    cache.put(key, Set.of("seg0"), Set.of(OFFLINE_TABLE_NAME), 0, brokerResponse);
+
+    BrokerResponseNative cachedResponse = cache.get(key, Set.of("seg0"), Long.MAX_VALUE);
+    assertNotNull(cachedResponse);
+    Object[] row = cachedResponse.getResultTable().getRows().get(0);
+    assertEquals(row[0], 1);
+    assertEquals(row[1], 2L);
+    assertEquals(row[2], 3.0f);
+    assertEquals(row[3], 4.0);
+    assertEquals(row[4], new long[]{5L});
+    assertEquals(row[5], new String[]{"a"});
+    assertEquals(cachedResponse.getResultTable().getRows().get(1), new Object[6]);
+  }
+
+  @Test
+  public void testPutAfterInvalidation() {
+    BrokerResultCache cache = new BrokerResultCache(1024 * 1024);
+    String key = getQueryKey(QUERY);
+    Set<String> tableNamesWithType = Set.of(OFFLINE_TABLE_NAME);
+    // Query starts, then the routing of the table changes before its response is put
+    long generation = cache.getGeneration(tableNamesWithType);
+    cache.invalidateTable(OFFLINE_TABLE_NAME);
+    cache.put(key, Set.of("seg0"), tableNamesWithType, generation, getResponse(1L));
+    assertNull(cache.get(key, Set.of("seg0"), Long.MAX_VALUE));
+
+    // Invalidation of another table does not affect the query
+    generation = cache.getGeneration(tableNamesWithType);
+    cache.invalidateTable("otherTable_OFFLINE");
+    cache.put(key, Set.of("seg0"), tableNamesWithType, generation, getResponse(1L));
+    assertNotNull(cache.get(key, Set.of("seg0"), Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testEviction() {
+    // Each entry takes a few KB (serialized response and query key), so only some of them fit
+    BrokerResultCache cache = new BrokerResultCache(64 * 1024);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(getQueryKey("SELECT COUNT(*) FROM testTable_OFFLINE WHERE a = " + i), Set.of("seg0"),
+          Set.of(OFFLINE_TABLE_NAME), 0, getResponse(i));
+    }
+    assertTrue(cache.size() < 1000);
+    assertTrue(cache.size() > 0);
+  }
+
+  private static String getQueryKey(String query) {
+    BrokerRequest brokerRequest = CalciteSqlCompiler.compileToBrokerRequest(query);
+    return BrokerResultCache.getQueryKey(brokerRequest, null);
+  }
+
+  private static BrokerResponseNative getResponse(long count) {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setResultTable(new ResultTable(
+        new DataSchema(new String[]{"count(*)"}, new ColumnDataType[]{ColumnDataType.LONG}),
+        List.<Object[]>of(new Object[]{count})));
+    brokerResponse.setNumRowsResultSet(1);
+    brokerResponse.setNumDocsScanned(count);
+    return brokerResponse;
+  }
+}
@@ -284,6 +284,10 @@ public class BrokerMeter implements AbstractMetrics.Meter {
   public static final BrokerMeter QUERY_CRITICAL_ERROR = create("QUERY_CRITICAL_ERROR", "queries", true);
   public static final BrokerMeter QUERY_NON_CRITICAL_ERROR = create("QUERY_NON_CRITICAL_ERROR", "queries", true);
 
+  // Broker result cache metrics
+  public static final BrokerMeter RESULT_CACHE_HITS = create("RESULT_CACHE_HITS", "queries", false);
+  public static final BrokerMeter RESULT_CACHE_MISSES = create("RESULT_CACHE_MISSES", "queries", false);
+
   private static final Map<QueryErrorCode, BrokerMeter> QUERY_ERROR_CODE_METER_MAP;
 
   // Iterate through all query error codes from QueryErrorCode.getAllValues() and create a metric for each
@@ -90,6 +90,14 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   UPSERT_QUERYABLE_DOC_ID_SNAPSHOT_COUNT("upsertQueryableDocIdSnapshotCount", false),
   UPSERT_PRIMARY_KEYS_IN_SNAPSHOT_COUNT("upsertPrimaryKeysInSnapshotCount", false),
   UPSERT_QUERYABLE_DOCS_IN_SNAPSHOT_COUNT("upsertQueryableDocIdsInSnapshot", false),
+  UPSERT_VIEW_LAG_MS("milliseconds", false,
+      "Time since the last refresh of the upsert view served to queries, for upsert tables in SNAPSHOT consistency "
+          + "mode."),
+  UPSERT_VIEW_EPOCH("epoch", false,
+      "Epoch of the current upsert view, incremented by each refresh, for upsert tables in SNAPSHOT consistency mode."),
+  UPSERT_VIEW_RETIRED_BITMAPS("bitmaps", false,
+      "Number of bitmaps replaced in the upsert view by a refresh and not reclaimed yet, for upsert tables in SNAPSHOT "
+          + "consistency mode."),
   REALTIME_INGESTION_OFFSET_LAG("offsetLag", false,
       "The difference between latest message offset and the last consumed message offset."),
   REALTIME_INGESTION_OOM_PROTECTION_ACTIVE("boolean", true,
@@ -168,7 +176,15 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   THROTTLE_EXECUTOR_QUEUE_SIZE("count", true,
       "Current number of tasks in the throttle executor queue"),
   // Workload config fetch status: 1 = success, 0 = failure
-  WORKLOAD_CONFIG_FETCH_STATUS("status", true);
+  WORKLOAD_CONFIG_FETCH_STATUS("status", true),
+  DECOMPRESSED_CHUNK_CACHE_SIZE_BYTES("bytes", true,
+      "Size of the decompressed chunks held by the decompressed chunk cache"),
+  DECOMPRESSED_CHUNK_CACHE_HIT_RATIO_PERCENT("percentage", true,
+      "Percentage of the decompressed chunk cache lookups served from the cache since the server started"),
+  ADAPTIVE_ON_HEAP_COLUMNS("columns", true,
+      "Number of immutable segment columns currently promoted on heap by the adaptive on-heap promotion"),
+  ADAPTIVE_ON_HEAP_SIZE_BYTES("bytes", true,
+      "Estimated heap size of the immutable segment columns currently promoted on heap");
 
   private final String _gaugeName;
   private final String _unit;
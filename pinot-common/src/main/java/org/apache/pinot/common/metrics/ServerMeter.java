@@ -265,7 +265,24 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   /// Number of MSE queries received by this server.
   /// This metric is incremented once per query, even if the server is acting as a leaf, intermediate, or both.
   MSE_QUERIES("queries", true,
-      "Number of MSE queries received by this server");
+      "Number of MSE queries received by this server"),
+
+  /// Number of segments whose result was served from the segment result cache.
+  SEGMENT_RESULT_CACHE_HITS("segments", true),
+  /// Number of cacheable segments whose result was not in the segment result cache and had to be computed.
+  SEGMENT_RESULT_CACHE_MISSES("segments", true),
+  /// Number of raw forward index chunks copied from the decompressed chunk cache instead of being decompressed.
+  DECOMPRESSED_CHUNK_CACHE_HITS("chunks", true),
+  /// Number of raw forward index chunks looked up in the decompressed chunk cache and decompressed.
+  DECOMPRESSED_CHUNK_CACHE_MISSES("chunks", true),
+  /// Number of immutable segment columns promoted on heap because they became hot.
+  ADAPTIVE_ON_HEAP_PROMOTIONS("columns", true),
+  /// Number of immutable segment columns demoted back to their memory mapped indexes because they went cold.
+  ADAPTIVE_ON_HEAP_DEMOTIONS("columns", true),
+  /// Number of bytes of index files read ahead of the query execution by the async index prefetcher.
+  INDEX_PREFETCH_BYTES("bytes", true),
+  /// Number of index prefetch batches dropped because the prefetch queue was full.
+  INDEX_PREFETCH_DROPPED_BATCHES("batches", true);
 
   private final String _meterName;
   private final String _unit;
@@ -56,7 +56,7 @@ import org.apache.pinot.spi.utils.JsonUtils;
     "explainPlanNumEmptyFilterSegments", "explainPlanNumMatchAllFilterSegments", "traceInfo", "tablesQueried",
     "offlineThreadMemAllocatedBytes", "realtimeThreadMemAllocatedBytes", "offlineResponseSerMemAllocatedBytes",
     "realtimeResponseSerMemAllocatedBytes", "offlineTotalMemAllocatedBytes", "realtimeTotalMemAllocatedBytes",
-    "pools", "rlsFiltersApplied", "groupsTrimmed", "materializedViewQueried", "serverStats"
+    "pools", "rlsFiltersApplied", "groupsTrimmed", "materializedViewQueried", "serverStats", "resultFromCache"
 })
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class BrokerResponseNative implements BrokerResponse {
@@ -127,6 +127,8 @@ public class BrokerResponseNative implements BrokerResponse {
   @Nullable
   private String _serverStats;
 
+  private boolean _resultFromCache = false;
+
   public BrokerResponseNative() {
   }
 
@@ -660,4 +662,17 @@ public class BrokerResponseNative implements BrokerResponse {
   public String getServerStats() {
     return _serverStats;
   }
+
+  /// Set when the response was served from the broker result cache instead of querying the servers. The execution
+  /// stats of a cached response are the ones of the query that computed it.
+  @JsonProperty("resultFromCache")
+  public void setResultFromCache(boolean resultFromCache) {
+    _resultFromCache = resultFromCache;
+  }
+
+  @JsonProperty("resultFromCache")
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  public boolean isResultFromCache() {
+    return _resultFromCache;
+  }
 }
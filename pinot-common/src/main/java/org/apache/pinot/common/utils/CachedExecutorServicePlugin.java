@@ -32,7 +32,7 @@ import org.apache.pinot.spi.executor.ExecutorServiceProvider;
 /// If that is not the case, this executor may create a large number of threads that will be competing for CPU
 /// resources, which may lead to performance degradation and even system instability. In that case
 /// [FixedExecutorServicePlugin] could be used, but it may need changes to the code to avoid deadlocks.
-/// Deployments using Java 21 or above could consider using a virtual thread executor service plugin.
+/// Deployments using Java 21 or above could consider using the `virtual` executor service plugin.
 ///
 /// @see org.apache.pinot.spi.executor.ExecutorServiceUtils
 @AutoService(ExecutorServicePlugin.class)
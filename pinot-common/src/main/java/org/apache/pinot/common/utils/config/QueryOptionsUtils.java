@@ -139,6 +139,12 @@ public class QueryOptionsUtils {
     return checkedParseLongPositive(QueryOptionKey.MAX_QUERY_RESPONSE_SIZE_BYTES, responseSize);
   }
 
+  @Nullable
+  public static Long getMaxStalenessMs(Map<String, String> queryOptions) {
+    String maxStalenessMs = queryOptions.get(QueryOptionKey.MAX_STALENESS_MS);
+    return checkedParseLong(QueryOptionKey.MAX_STALENESS_MS, maxStalenessMs, 0);
+  }
+
   public static boolean isAndScanReorderingEnabled(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.AND_SCAN_REORDERING));
   }
@@ -184,6 +190,14 @@ public class QueryOptionsUtils {
     return "false".equalsIgnoreCase(queryOptions.get(QueryOptionKey.USE_STAR_TREE));
   }
 
+  public static boolean isSkipResultCache(Map<String, String> queryOptions) {
+    return "false".equalsIgnoreCase(queryOptions.get(QueryOptionKey.USE_RESULT_CACHE));
+  }
+
+  public static boolean isSkipSegmentResultCache(Map<String, String> queryOptions) {
+    return "false".equalsIgnoreCase(queryOptions.get(QueryOptionKey.USE_SEGMENT_RESULT_CACHE));
+  }
+
   /// When true, use index-based distinct operators when applicable:
   /// [org.apache.pinot.core.operator.query.JsonIndexDistinctOperator] for JSON columns and
   /// [org.apache.pinot.core.operator.query.InvertedIndexDistinctOperator] for dictionary + inverted index
@@ -397,6 +411,11 @@ public class QueryOptionsUtils {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SERVER_RETURN_FINAL_RESULT_KEY_UNPARTITIONED));
   }
 
+  public static boolean isUseColumnarBlocks(Map<String, String> queryOptions) {
+    // Disabled by default
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.USE_COLUMNAR_BLOCKS));
+  }
+
   public static boolean isFilteredAggregationsSkipEmptyGroups(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.FILTERED_AGGREGATIONS_SKIP_EMPTY_GROUPS));
   }
@@ -474,6 +493,24 @@ public class QueryOptionsUtils {
     return checkedParseIntPositive(QueryOptionKey.MAX_ROWS_IN_JOIN, maxRowsInJoin);
   }
 
+  @Nullable
+  public static Long getJoinSpillThresholdBytes(Map<String, String> queryOptions) {
+    String joinSpillThresholdBytes = queryOptions.get(QueryOptionKey.JOIN_SPILL_THRESHOLD_BYTES);
+    return checkedParseLongPositive(QueryOptionKey.JOIN_SPILL_THRESHOLD_BYTES, joinSpillThresholdBytes);
+  }
+
+  @Nullable
+  public static Long getSortSpillThresholdBytes(Map<String, String> queryOptions) {
+    String sortSpillThresholdBytes = queryOptions.get(QueryOptionKey.SORT_SPILL_THRESHOLD_BYTES);
+    return checkedParseLongPositive(QueryOptionKey.SORT_SPILL_THRESHOLD_BYTES, sortSpillThresholdBytes);
+  }
+
+  @Nullable
+  public static Long getGroupBySpillThresholdBytes(Map<String, String> queryOptions) {
+    String groupBySpillThresholdBytes = queryOptions.get(QueryOptionKey.GROUP_BY_SPILL_THRESHOLD_BYTES);
+    return checkedParseLongPositive(QueryOptionKey.GROUP_BY_SPILL_THRESHOLD_BYTES, groupBySpillThresholdBytes);
+  }
+
   @Nullable
   public static Integer getMaxRowsInDistinct(Map<String, String> queryOptions) {
     String maxRowsInDistinct = queryOptions.get(QueryOptionKey.MAX_ROWS_IN_DISTINCT);
@@ -544,6 +581,11 @@ public class QueryOptionsUtils {
     return option != null ? Boolean.parseBoolean(option) : defaultValue;
   }
 
+  public static boolean isEnableJoinRuntimeFilter(Map<String, String> queryOptions, boolean defaultValue) {
+    String option = queryOptions.get(QueryOptionKey.ENABLE_JOIN_RUNTIME_FILTER);
+    return option != null ? Boolean.parseBoolean(option) : defaultValue;
+  }
+
   /// Reads the `streamStats` query option that opts a single query into the `SubmitWithStream`
   /// dispatch path. See [QueryOptionKey#STREAM_STATS].
   public static boolean isStreamStats(Map<String, String> queryOptions, boolean defaultValue) {
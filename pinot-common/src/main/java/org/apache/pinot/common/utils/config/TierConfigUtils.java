@@ -133,6 +133,29 @@ public final class TierConfigUtils {
     return dataDir;
   }
 
+  /// Returns the backend property of the given tier, looked up in the tier configs of the table first and then in the
+  /// instance tier configs, same as the data dir of the tier.
+  @Nullable
+  public static String getBackendPropertyForTier(TableConfig tableConfig, String tierName,
+      Map<String, Map<String, String>> instanceTierConfigs, String propertyName) {
+    List<TierConfig> tierCfgs = tableConfig.getTierConfigsList();
+    if (CollectionUtils.isNotEmpty(tierCfgs)) {
+      for (TierConfig tierCfg : tierCfgs) {
+        if (tierName.equals(tierCfg.getName())) {
+          Map<String, String> backendProps = tierCfg.getTierBackendProperties();
+          String value = backendProps != null ? backendProps.get(propertyName) : null;
+          if (StringUtils.isNotEmpty(value)) {
+            return value;
+          }
+          break;
+        }
+      }
+    }
+    // All instance config names are lower cased while being passed down here.
+    Map<String, String> instanceCfgs = instanceTierConfigs != null ? instanceTierConfigs.get(tierName) : null;
+    return instanceCfgs != null ? instanceCfgs.get(propertyName.toLowerCase()) : null;
+  }
+
   /// Gets sorted list of tiers for given storage type from provided list of TierConfig
   public static List<Tier> getSortedTiersForStorageType(List<TierConfig> tierConfigList, String storageType) {
     return getSortedTiersForStorageType(tierConfigList, storageType, null);
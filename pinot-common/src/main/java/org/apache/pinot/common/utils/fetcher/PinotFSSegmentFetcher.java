@@ -18,41 +18,146 @@
  */
 package org.apache.pinot.common.utils.fetcher;
 
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.utils.TarCompressionUtils;
+import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.filesystem.PinotFS;
 import org.apache.pinot.spi.filesystem.PinotFSFactory;
+import org.apache.pinot.spi.utils.DataSizeUtils;
 import org.apache.pinot.spi.utils.retry.AttemptsExceededException;
 import org.apache.pinot.spi.utils.retry.RetriableOperationException;
 import org.apache.pinot.spi.utils.retry.RetryPolicies;
 
 
+/// Segment fetcher based on [PinotFS].
+///
+/// When `parallel.download.num.parts` is set to more than 1 and the [PinotFS] supports ranged reads (see
+/// [PinotFS#supportsRangeReads()]), large segments are downloaded with up to that many concurrent ranged reads of at
+/// least `parallel.download.min.part.size` each, instead of a single stream which is often throughput limited by the
+/// remote store.
 public class PinotFSSegmentFetcher extends BaseSegmentFetcher {
+  public static final String PARALLEL_DOWNLOAD_NUM_PARTS_CONFIG_KEY = "parallel.download.num.parts";
+  public static final String PARALLEL_DOWNLOAD_MIN_PART_SIZE_CONFIG_KEY = "parallel.download.min.part.size";
+  public static final int DEFAULT_PARALLEL_DOWNLOAD_NUM_PARTS = 1;
+  public static final String DEFAULT_PARALLEL_DOWNLOAD_MIN_PART_SIZE = "64M";
+
+  private int _parallelDownloadNumParts;
+  private long _parallelDownloadMinPartSize;
+  private ExecutorService _parallelDownloadExecutor;
+
+  @Override
+  protected void doInit(PinotConfiguration config) {
+    _parallelDownloadNumParts =
+        config.getProperty(PARALLEL_DOWNLOAD_NUM_PARTS_CONFIG_KEY, DEFAULT_PARALLEL_DOWNLOAD_NUM_PARTS);
+    _parallelDownloadMinPartSize = DataSizeUtils.toBytes(
+        config.getProperty(PARALLEL_DOWNLOAD_MIN_PART_SIZE_CONFIG_KEY, DEFAULT_PARALLEL_DOWNLOAD_MIN_PART_SIZE));
+    Preconditions.checkArgument(_parallelDownloadMinPartSize > 0, "Invalid parallel download min part size: %s",
+        _parallelDownloadMinPartSize);
+    if (_parallelDownloadNumParts > 1 && _parallelDownloadExecutor == null) {
+      // The number of concurrent downloads is already bounded by the segment download throttlers
+      _parallelDownloadExecutor = Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder().setNameFormat("segment-download-part-%d").setDaemon(true).build());
+    }
+    _logger.info("Initialized with parallelDownloadNumParts: {}, parallelDownloadMinPartSize: {}",
+        _parallelDownloadNumParts, _parallelDownloadMinPartSize);
+  }
 
   @Override
   protected void fetchSegmentToLocalWithoutRetry(URI uri, File dest)
       throws Exception {
-    if (uri.getScheme() == null) {
-      PinotFSFactory.create(PinotFSFactory.LOCAL_PINOT_FS_SCHEME).copyToLocalFile(uri, dest);
-    } else {
-      PinotFSFactory.create(uri.getScheme()).copyToLocalFile(uri, dest);
+    PinotFS pinotFS = getPinotFS(uri);
+    if (_parallelDownloadNumParts > 1 && pinotFS.supportsRangeReads()) {
+      long length = pinotFS.length(uri);
+      int numParts = (int) Math.min(_parallelDownloadNumParts, length / _parallelDownloadMinPartSize);
+      if (numParts > 1) {
+        fetchInParallel(pinotFS, uri, dest, length, numParts);
+        return;
+      }
     }
+    pinotFS.copyToLocalFile(uri, dest);
+  }
+
+  /// Downloads the file with one ranged read per part, each writing its part of the destination file in place.
+  private void fetchInParallel(PinotFS pinotFS, URI uri, File dest, long length, int numParts)
+      throws Exception {
+    FileUtils.forceMkdirParent(dest);
+    long partSize = (length + numParts - 1) / numParts;
+    try (FileChannel fileChannel = FileChannel.open(dest.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      List<Future<?>> futures = new ArrayList<>(numParts - 1);
+      try {
+        for (int i = 1; i < numParts; i++) {
+          long offset = i * partSize;
+          long partLength = Math.min(partSize, length - offset);
+          futures.add(_parallelDownloadExecutor.submit(() -> {
+            copyRange(pinotFS, uri, fileChannel, offset, partLength);
+            return null;
+          }));
+        }
+        // Download the first part in the current thread
+        copyRange(pinotFS, uri, fileChannel, 0, partSize);
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+          }
+        }
+      } finally {
+        // Stop the remaining parts on failure
+        for (Future<?> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+    _logger.debug("Fetched segment from: {} to: {} in {} parts", uri, dest, numParts);
+  }
+
+  private static void copyRange(PinotFS pinotFS, URI uri, FileChannel fileChannel, long offset, long length)
+      throws IOException {
+    try (InputStream inputStream = pinotFS.openRange(uri, offset, length);
+        ReadableByteChannel channel = Channels.newChannel(inputStream)) {
+      long numBytesCopied = 0;
+      while (numBytesCopied < length) {
+        long numBytesRead = fileChannel.transferFrom(channel, offset + numBytesCopied, length - numBytesCopied);
+        if (numBytesRead <= 0) {
+          throw new EOFException(
+              "Range: [" + offset + "," + (offset + length) + ") of: " + uri + " ended after: " + numBytesCopied
+                  + " bytes");
+        }
+        numBytesCopied += numBytesRead;
+      }
+    }
+  }
+
+  private static PinotFS getPinotFS(URI uri) {
+    return PinotFSFactory.create(uri.getScheme() != null ? uri.getScheme() : PinotFSFactory.LOCAL_PINOT_FS_SCHEME);
   }
 
   @Override
   public File fetchUntarSegmentToLocalStreamed(URI uri, File dest, long rateLimit, AtomicInteger attempts)
       throws Exception {
-    PinotFS pinotFS;
-    if (uri.getScheme() == null) {
-      pinotFS = PinotFSFactory.create(PinotFSFactory.LOCAL_PINOT_FS_SCHEME);
-    } else {
-      pinotFS = PinotFSFactory.create(uri.getScheme());
-    }
+    PinotFS pinotFS = getPinotFS(uri);
     AtomicReference<File> untarredFileRef = new AtomicReference<>();
 
     try {
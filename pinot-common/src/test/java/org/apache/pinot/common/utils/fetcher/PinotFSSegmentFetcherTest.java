@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.utils.TarCompressionUtils;
@@ -224,4 +225,31 @@ public class PinotFSSegmentFetcherTest {
     String actualContent = FileUtils.readFileToString(largeIndexFile, Charset.defaultCharset());
     assertEquals(actualContent, largeContent.toString());
   }
+
+  @Test
+  public void testFetchSegmentToLocalInParallel()
+      throws Exception {
+    PinotConfiguration fetcherConfig = new PinotConfiguration();
+    fetcherConfig.setProperty(PinotFSSegmentFetcher.PARALLEL_DOWNLOAD_NUM_PARTS_CONFIG_KEY, 4);
+    fetcherConfig.setProperty(PinotFSSegmentFetcher.PARALLEL_DOWNLOAD_MIN_PART_SIZE_CONFIG_KEY, "1K");
+    PinotFSSegmentFetcher segmentFetcher = new PinotFSSegmentFetcher();
+    segmentFetcher.init(fetcherConfig);
+
+    // Sizes with a single part, with fewer parts than configured, and with uneven parts
+    Random random = new Random();
+    for (int size : new int[]{1000, 2500, 10_001}) {
+      byte[] content = new byte[size];
+      random.nextBytes(content);
+      File srcFile = new File(TAR_DIR, "src_" + size);
+      FileUtils.writeByteArrayToFile(srcFile, content);
+      File destFile = new File(DOWNLOAD_DIR, "dest_" + size);
+      segmentFetcher.fetchSegmentToLocal(srcFile.toURI(), destFile);
+      assertEquals(FileUtils.readFileToByteArray(destFile), content);
+
+      // Existing destination file is overwritten
+      FileUtils.writeByteArrayToFile(destFile, new byte[2 * size]);
+      segmentFetcher.fetchSegmentToLocal(srcFile.toURI(), destFile);
+      assertEquals(FileUtils.readFileToByteArray(destFile), content);
+    }
+  }
 }
@@ -226,11 +226,8 @@ public class PerQueryCPUMemAccountantFactory implements ThreadAccountantFactory
         if (threadContext != null) {
           QueryExecutionContext executionContext = threadContext.getExecutionContext();
           String queryId = executionContext.getCid();
-          long cpuTimeNs = threadTracker.getCpuTimeNs();
-          long allocatedBytes = threadTracker.getAllocatedBytes();
-          queryTrackers.compute(queryId,
-              (k, v) -> v == null ? new QueryResourceTrackerImpl(executionContext, cpuTimeNs, allocatedBytes)
-                  : v.merge(cpuTimeNs, allocatedBytes));
+          queryTrackers.computeIfAbsent(queryId, k -> new QueryResourceTrackerImpl(executionContext, 0, 0))
+              .merge(threadTracker);
         }
       }
 
@@ -571,6 +568,7 @@ public class PerQueryCPUMemAccountantFactory implements ThreadAccountantFactory
               .filter(queryTracker -> queryTracker.getExecutionContext().getTerminateException() == null)
               .max(Comparator.comparing(QueryResourceTrackerImpl::getAllocatedBytes))
               .orElse(null);
+          QueryResourceAggregator.warnUnmeasuredQueries(_queryResourceUsages);
           if (maxUsageQueryTracker != null) {
             QueryExecutionContext executionContext = maxUsageQueryTracker.getExecutionContext();
             String queryId = executionContext.getCid();
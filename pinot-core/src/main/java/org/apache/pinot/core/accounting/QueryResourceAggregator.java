@@ -194,11 +194,8 @@ public class QueryResourceAggregator implements ResourceAggregator {
     if (_queryResourceUsages == null) {
       return;
     }
-    long cpuTimeNs = threadTracker.getCpuTimeNs();
-    long allocatedBytes = threadTracker.getAllocatedBytes();
-    _queryResourceUsages.compute(queryId,
-        (k, v) -> v == null ? new QueryResourceTrackerImpl(executionContext, cpuTimeNs, allocatedBytes)
-            : v.merge(cpuTimeNs, allocatedBytes));
+    _queryResourceUsages.computeIfAbsent(queryId, k -> new QueryResourceTrackerImpl(executionContext, 0, 0))
+        .merge(threadTracker);
   }
 
   @Override
@@ -399,6 +396,7 @@ public class QueryResourceAggregator implements ResourceAggregator {
           .filter(tracker -> tracker.getExecutionContext().getTerminateException() == null)
           .max(Comparator.comparing(QueryResourceTrackerImpl::getAllocatedBytes))
           .orElse(null);
+      warnUnmeasuredQueries(_queryResourceUsages);
       if (maxUsageQueryTracker != null) {
         QueryExecutionContext executionContext = maxUsageQueryTracker.getExecutionContext();
         String queryId = executionContext.getCid();
@@ -460,6 +458,17 @@ public class QueryResourceAggregator implements ResourceAggregator {
     }
   }
 
+  /// Warns about the queries running on threads whose resource usage can not be measured, which can not be picked by
+  /// their actual usage.
+  static void warnUnmeasuredQueries(Map<String, QueryResourceTrackerImpl> queryResourceUsages) {
+    long numUnmeasuredQueries =
+        queryResourceUsages.values().stream().filter(tracker -> tracker.getNumUnmeasuredThreads() > 0).count();
+    if (numUnmeasuredQueries > 0) {
+      LOGGER.warn("{} queries are running on threads whose resource usage can not be measured (e.g. virtual threads), "
+          + "their usage is under-counted when picking the query to kill", numUnmeasuredQueries);
+    }
+  }
+
   private void logQueryResourceUsage(Map<String, QueryResourceTrackerImpl> queryResourceUsages) {
     LOGGER.debug("Query resource usage: {} for the previous kill", queryResourceUsages);
   }
@@ -516,11 +525,8 @@ public class QueryResourceAggregator implements ResourceAggregator {
       if (threadContext != null) {
         QueryExecutionContext executionContext = threadContext.getExecutionContext();
         String queryId = executionContext.getCid();
-        long cpuTimeNs = threadTracker.getCpuTimeNs();
-        long allocatedBytes = threadTracker.getAllocatedBytes();
-        queryTrackers.compute(queryId,
-            (k, v) -> v == null ? new QueryResourceTrackerImpl(executionContext, cpuTimeNs, allocatedBytes)
-                : v.merge(cpuTimeNs, allocatedBytes));
+        queryTrackers.computeIfAbsent(queryId, k -> new QueryResourceTrackerImpl(executionContext, 0, 0))
+            .merge(threadTracker);
       }
     }
 
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.accounting;
 
 import org.apache.pinot.spi.accounting.QueryResourceTracker;
+import org.apache.pinot.spi.accounting.ThreadResourceTracker;
 import org.apache.pinot.spi.query.QueryExecutionContext;
 
 
@@ -26,6 +27,9 @@ public class QueryResourceTrackerImpl implements QueryResourceTracker {
   private final QueryExecutionContext _executionContext;
   private long _cpuTimeNs;
   private long _allocatedBytes;
+  // Number of threads of the query whose resource usage can not be measured (e.g. virtual threads), and is therefore
+  // not included in the usage above
+  private int _numUnmeasuredThreads;
 
   public QueryResourceTrackerImpl(QueryExecutionContext executionContext, long cpuTimeNs, long allocatedBytes) {
     _executionContext = executionContext;
@@ -48,6 +52,18 @@ public class QueryResourceTrackerImpl implements QueryResourceTracker {
     return _allocatedBytes;
   }
 
+  public int getNumUnmeasuredThreads() {
+    return _numUnmeasuredThreads;
+  }
+
+  /// Adds the usage sampled by the given thread tracker.
+  public QueryResourceTrackerImpl merge(ThreadResourceTracker threadTracker) {
+    if (!threadTracker.isCpuTimeAvailable() || !threadTracker.isAllocatedBytesAvailable()) {
+      _numUnmeasuredThreads++;
+    }
+    return merge(threadTracker.getCpuTimeNs(), threadTracker.getAllocatedBytes());
+  }
+
   public QueryResourceTrackerImpl merge(long cpuTimeNs, long allocatedBytes) {
     _cpuTimeNs += cpuTimeNs;
     _allocatedBytes += allocatedBytes;
@@ -35,6 +35,8 @@ public class ThreadResourceTrackerImpl implements ThreadResourceTracker {
   // Current sample of thread CPU time/memory usage
   private volatile long _cpuTimeNs;
   private volatile long _allocatedBytes;
+  private volatile boolean _cpuTimeAvailable = true;
+  private volatile boolean _allocatedBytesAvailable = true;
 
   @Nullable
   @Override
@@ -52,6 +54,16 @@ public class ThreadResourceTrackerImpl implements ThreadResourceTracker {
     return _allocatedBytes;
   }
 
+  @Override
+  public boolean isCpuTimeAvailable() {
+    return _cpuTimeAvailable;
+  }
+
+  @Override
+  public boolean isAllocatedBytesAvailable() {
+    return _allocatedBytesAvailable;
+  }
+
   public void setThreadContext(QueryThreadContext threadContext) {
     _currentThreadContext.set(threadContext);
     _threadResourceSnapshot.reset();
@@ -59,15 +71,19 @@ public class ThreadResourceTrackerImpl implements ThreadResourceTracker {
 
   public void updateCpuSnapshot() {
     _cpuTimeNs = _threadResourceSnapshot.getCpuTimeNs();
+    _cpuTimeAvailable = _threadResourceSnapshot.isCpuTimeAvailable();
   }
 
   public void updateMemorySnapshot() {
     _allocatedBytes = _threadResourceSnapshot.getAllocatedBytes();
+    _allocatedBytesAvailable = _threadResourceSnapshot.isAllocatedBytesAvailable();
   }
 
   public void clear() {
     _currentThreadContext.set(null);
     _cpuTimeNs = 0;
     _allocatedBytes = 0;
+    _cpuTimeAvailable = true;
+    _allocatedBytesAvailable = true;
   }
 }
@@ -28,6 +28,7 @@ import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 import java.util.function.ToIntFunction;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.CustomObject;
@@ -252,6 +253,127 @@ public class DataBlockBuilder {
     return buildColumnarBlock(numRows, dataSchema, getReverseDictionary(dictionary), fixedSize, varBufferBuilder);
   }
 
+  /// Builds a [ColumnarDataBlock] from columns that are already encoded with their stored type, without boxing the
+  /// values:
+  /// - `INT`, `LONG`, `FLOAT` and `DOUBLE` columns are `int[]`, `long[]`, `float[]` and `double[]`.
+  /// - `STRING` columns are `int[]` of ids into `stringDictionary`, which must contain distinct strings.
+  /// - Other columns are `Object[]` with the same values [#buildFromColumns(List, DataSchema)] expects.
+  ///
+  /// The value of a null cell (as marked in `nullBitmaps`, where a `null` bitmap means no null value) is ignored and
+  /// the null placeholder of the column is written instead. Arrays can be longer than `numRows`.
+  public static ColumnarDataBlock buildFromColumnArrays(int numRows, Object[] columns, RoaringBitmap[] nullBitmaps,
+      String[] stringDictionary, DataSchema dataSchema)
+      throws IOException {
+    int numColumns = dataSchema.size();
+    Preconditions.checkArgument(columns.length == numColumns && nullBitmaps.length == numColumns,
+        "Expected %s columns, got: %s", numColumns, columns.length);
+    int fixedBytesPerRow = calculateBytesPerRow(dataSchema);
+    int nullFixedBytes = numColumns * Integer.BYTES * 2;
+    ByteBuffer fixedSize = ByteBuffer.allocate(fixedBytesPerRow * numRows + nullFixedBytes);
+    CompoundDataBuffer.Builder varBufferBuilder = new CompoundDataBuffer.Builder(ByteOrder.BIG_ENDIAN, true);
+    RoaringBitmap[] blockNullBitmaps = new RoaringBitmap[numColumns];
+    // Only created when strings have to be added to the dictionary: null placeholders and string arrays
+    Object2IntOpenHashMap<String> dictionary = null;
+
+    try (PagedPinotOutputStream varSize = new PagedPinotOutputStream(
+        PagedPinotOutputStream.HeapPageAllocator.createSmall())) {
+      for (int colId = 0; colId < numColumns; colId++) {
+        ColumnDataType columnDataType = dataSchema.getColumnDataType(colId);
+        RoaringBitmap nullBitmap = nullBitmaps[colId];
+        int startPosition = fixedSize.position();
+        switch (columnDataType.getStoredType()) {
+          case INT: {
+            fixedSize.asIntBuffer().put((int[]) columns[colId], 0, numRows);
+            fixedSize.position(startPosition + numRows * Integer.BYTES);
+            if (nullBitmap != null) {
+              int nullPlaceholder = (int) columnDataType.getNullPlaceholder();
+              nullBitmap.forEach(
+                  (IntConsumer) rowId -> fixedSize.putInt(startPosition + rowId * Integer.BYTES, nullPlaceholder));
+            }
+            break;
+          }
+          case LONG: {
+            fixedSize.asLongBuffer().put((long[]) columns[colId], 0, numRows);
+            fixedSize.position(startPosition + numRows * Long.BYTES);
+            if (nullBitmap != null) {
+              long nullPlaceholder = (long) columnDataType.getNullPlaceholder();
+              nullBitmap.forEach(
+                  (IntConsumer) rowId -> fixedSize.putLong(startPosition + rowId * Long.BYTES, nullPlaceholder));
+            }
+            break;
+          }
+          case FLOAT: {
+            fixedSize.asFloatBuffer().put((float[]) columns[colId], 0, numRows);
+            fixedSize.position(startPosition + numRows * Float.BYTES);
+            if (nullBitmap != null) {
+              float nullPlaceholder = (float) columnDataType.getNullPlaceholder();
+              nullBitmap.forEach(
+                  (IntConsumer) rowId -> fixedSize.putFloat(startPosition + rowId * Float.BYTES, nullPlaceholder));
+            }
+            break;
+          }
+          case DOUBLE: {
+            fixedSize.asDoubleBuffer().put((double[]) columns[colId], 0, numRows);
+            fixedSize.position(startPosition + numRows * Double.BYTES);
+            if (nullBitmap != null) {
+              double nullPlaceholder = (double) columnDataType.getNullPlaceholder();
+              nullBitmap.forEach(
+                  (IntConsumer) rowId -> fixedSize.putDouble(startPosition + rowId * Double.BYTES, nullPlaceholder));
+            }
+            break;
+          }
+          case STRING: {
+            fixedSize.asIntBuffer().put((int[]) columns[colId], 0, numRows);
+            fixedSize.position(startPosition + numRows * Integer.BYTES);
+            if (nullBitmap != null) {
+              if (dictionary == null) {
+                dictionary = toDictionaryMap(stringDictionary);
+              }
+              String nullString = (String) columnDataType.getNullPlaceholder();
+              if (!dictionary.containsKey(nullString)) {
+                dictionary.put(nullString, dictionary.size());
+              }
+              int nullPlaceholder = dictionary.getInt(nullString);
+              nullBitmap.forEach(
+                  (IntConsumer) rowId -> fixedSize.putInt(startPosition + rowId * Integer.BYTES, nullPlaceholder));
+            }
+            break;
+          }
+          default: {
+            if (dictionary == null) {
+              dictionary = toDictionaryMap(stringDictionary);
+            }
+            Object[][] objectColumns = new Object[numColumns][];
+            objectColumns[colId] = numRows == ((Object[]) columns[colId]).length ? (Object[]) columns[colId]
+                : Arrays.copyOf((Object[]) columns[colId], numRows);
+            RoaringBitmap objectNullBitmap = new RoaringBitmap();
+            serializeColumnData(Arrays.asList(objectColumns), dataSchema, colId, fixedSize, varSize, objectNullBitmap,
+                dictionary, null);
+            if (nullBitmap != null) {
+              objectNullBitmap.or(nullBitmap);
+            }
+            nullBitmap = objectNullBitmap;
+            break;
+          }
+        }
+        blockNullBitmaps[colId] = nullBitmap;
+      }
+      varBufferBuilder.addPagedOutputStream(varSize);
+    }
+    // Write null bitmaps after writing data.
+    setNullRowIds(blockNullBitmaps, fixedSize, varBufferBuilder);
+    return buildColumnarBlock(numRows, dataSchema,
+        dictionary != null ? getReverseDictionary(dictionary) : stringDictionary, fixedSize, varBufferBuilder);
+  }
+
+  private static Object2IntOpenHashMap<String> toDictionaryMap(String[] stringDictionary) {
+    Object2IntOpenHashMap<String> dictionary = new Object2IntOpenHashMap<>(stringDictionary.length);
+    for (int dictId = 0; dictId < stringDictionary.length; dictId++) {
+      dictionary.put(stringDictionary[dictId], dictId);
+    }
+    return dictionary;
+  }
+
   private static void serializeColumnData(List<Object[]> columns, DataSchema dataSchema, int colId,
       ByteBuffer fixedSize, PagedPinotOutputStream varSize, RoaringBitmap nullBitmap,
       Object2IntOpenHashMap<String> dictionary, @Nullable AggregationFunction aggFunction)
@@ -69,6 +69,7 @@ import org.apache.pinot.common.utils.config.TierConfigUtils;
 import org.apache.pinot.common.utils.fetcher.SegmentFetcherFactory;
 import org.apache.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
 import org.apache.pinot.core.data.manager.realtime.RealtimeSegmentDataManager;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.util.PeerServerSegmentFinder;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
 import org.apache.pinot.segment.local.data.manager.StaleSegment;
@@ -1249,6 +1250,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
       oldSegmentDataManager = _segmentDataManagerMap.put(segmentName, segmentDataManager);
     }
     _recentlyDeletedSegments.invalidate(segmentName);
+    invalidateSegmentResultCache(segmentName);
     // Fire the post-registration lifecycle hook now that the segment is swapped into the serving set
     fireOnSegmentAdded(segmentName, segmentDataManager);
     return oldSegmentDataManager;
@@ -1291,8 +1293,19 @@ public abstract class BaseTableDataManager implements TableDataManager {
   @Nullable
   public SegmentDataManager unregisterSegment(String segmentName) {
     _recentlyDeletedSegments.put(segmentName, segmentName);
+    SegmentDataManager segmentDataManager;
     synchronized (_segmentDataManagerMap) {
-      return _segmentDataManagerMap.remove(segmentName);
+      segmentDataManager = _segmentDataManagerMap.remove(segmentName);
+    }
+    invalidateSegmentResultCache(segmentName);
+    return segmentDataManager;
+  }
+
+  /// Drops the cached query results of the segment, which are stale once the segment is replaced, reloaded or removed.
+  private void invalidateSegmentResultCache(String segmentName) {
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
+    if (segmentResultCache != null) {
+      segmentResultCache.invalidateSegment(_tableNameWithType, segmentName);
     }
   }
 
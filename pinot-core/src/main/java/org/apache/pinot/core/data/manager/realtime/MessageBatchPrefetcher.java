@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.creator.TransformPipeline;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.MessageBatch;
+import org.apache.pinot.spi.stream.PartitionGroupConsumer;
+import org.apache.pinot.spi.stream.StreamDataDecoder;
+import org.apache.pinot.spi.stream.StreamDataDecoderResult;
+import org.apache.pinot.spi.stream.StreamPartitionMsgOffset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Pipelines the consumption of a stream partition: while the consuming thread indexes a message batch, the next
+/// message batch is fetched, decoded and transformed on a worker pool shared by all the consuming partitions of the
+/// server.
+///
+/// There is at most one batch in flight per partition, and the decoder, the transform pipeline and the stream consumer
+/// are never used concurrently: a batch is prepared either on the consuming thread before the next one is prefetched,
+/// or on the worker thread, and the consuming thread waits for the in-flight batch before using any of them again.
+///
+/// A prefetched batch is only used when it starts at the offset the consuming thread continues from, so it is dropped
+/// when the consumption stops in the middle of a batch (e.g. reaching the row limit), and the offset ordering is
+/// preserved.
+class MessageBatchPrefetcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MessageBatchPrefetcher.class);
+
+  // There is at most one task per consuming partition, so the pool does not need to be bounded
+  private static final ExecutorService EXECUTOR_SERVICE = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setNameFormat("stream-prefetch-%d").setDaemon(true).build());
+
+  private final StreamDataDecoder _streamDataDecoder;
+  private final TransformPipeline _transformPipeline;
+
+  private StreamPartitionMsgOffset _prefetchOffset;
+  private Future<PreparedMessageBatch> _prefetchFuture;
+
+  MessageBatchPrefetcher(StreamDataDecoder streamDataDecoder, TransformPipeline transformPipeline) {
+    _streamDataDecoder = streamDataDecoder;
+    _transformPipeline = transformPipeline;
+  }
+
+  /// Starts fetching, decoding and transforming the message batch at the given offset on the worker pool. The
+  /// previously prefetched batch must have been taken or discarded.
+  void prefetch(PartitionGroupConsumer partitionGroupConsumer, StreamPartitionMsgOffset startOffset, int timeoutMs) {
+    assert _prefetchFuture == null;
+    _prefetchOffset = startOffset;
+    _prefetchFuture =
+        EXECUTOR_SERVICE.submit(() -> prepare(partitionGroupConsumer.fetchMessages(startOffset, timeoutMs)));
+  }
+
+  /// Returns the prefetched batch if it starts at the given offset, or `null` if there is no such batch. Waits for the
+  /// in-flight batch if needed, and throws the exception encountered when fetching it.
+  @Nullable
+  PreparedMessageBatch take(StreamPartitionMsgOffset startOffset)
+      throws Exception {
+    Future<PreparedMessageBatch> prefetchFuture = _prefetchFuture;
+    if (prefetchFuture == null) {
+      return null;
+    }
+    StreamPartitionMsgOffset prefetchOffset = _prefetchOffset;
+    _prefetchFuture = null;
+    _prefetchOffset = null;
+    if (prefetchOffset.compareTo(startOffset) != 0) {
+      waitQuietly(prefetchFuture);
+      return null;
+    }
+    try {
+      return prefetchFuture.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw (Error) cause;
+    }
+  }
+
+  /// Waits for the in-flight batch if any, and drops it. This must be called before checkpointing or closing the
+  /// stream consumer.
+  void discard() {
+    Future<PreparedMessageBatch> prefetchFuture = _prefetchFuture;
+    if (prefetchFuture != null) {
+      _prefetchFuture = null;
+      _prefetchOffset = null;
+      waitQuietly(prefetchFuture);
+    }
+  }
+
+  private static void waitQuietly(Future<?> future) {
+    // NOTE: The task is bounded by the fetch timeout, so wait for it uninterruptibly to ensure the stream consumer is
+    //       no longer used when returning
+    try {
+      Uninterruptibles.getUninterruptibly(future);
+    } catch (Exception e) {
+      LOGGER.debug("Dropping failed prefetched message batch", e);
+    }
+  }
+
+  /// Decodes and transforms all the messages of the given batch.
+  PreparedMessageBatch prepare(MessageBatch<?> messageBatch) {
+    int messageCount = messageBatch.getMessageCount();
+    StreamDataDecoderResult[] decodedRows = new StreamDataDecoderResult[messageCount];
+    TransformPipeline.Result[] transformResults = new TransformPipeline.Result[messageCount];
+    Exception[] transformExceptions = new Exception[messageCount];
+    for (int i = 0; i < messageCount; i++) {
+      StreamDataDecoderResult decodedRow =
+          _streamDataDecoder.decode(messageBatch.getStreamMessage(i), new GenericRow());
+      decodedRows[i] = decodedRow;
+      if (decodedRow.getException() == null) {
+        try {
+          transformResults[i] = _transformPipeline.processRow(decodedRow.getResult());
+        } catch (Exception e) {
+          transformExceptions[i] = e;
+        }
+      }
+    }
+    return new PreparedMessageBatch(messageBatch, decodedRows, transformResults, transformExceptions);
+  }
+
+  /// Message batch with all the messages decoded and transformed.
+  static class PreparedMessageBatch {
+    private final MessageBatch<?> _messageBatch;
+    private final StreamDataDecoderResult[] _decodedRows;
+    private final TransformPipeline.Result[] _transformResults;
+    private final Exception[] _transformExceptions;
+
+    private PreparedMessageBatch(MessageBatch<?> messageBatch, StreamDataDecoderResult[] decodedRows,
+        TransformPipeline.Result[] transformResults, Exception[] transformExceptions) {
+      _messageBatch = messageBatch;
+      _decodedRows = decodedRows;
+      _transformResults = transformResults;
+      _transformExceptions = transformExceptions;
+    }
+
+    MessageBatch<?> getMessageBatch() {
+      return _messageBatch;
+    }
+
+    StreamDataDecoderResult getDecodedRow(int index) {
+      return _decodedRows[index];
+    }
+
+    /// Returns the transform result of the successfully decoded message, or throws the exception encountered when
+    /// transforming it.
+    TransformPipeline.Result getTransformResult(int index)
+        throws Exception {
+      Exception transformException = _transformExceptions[index];
+      if (transformException != null) {
+        throw transformException;
+      }
+      return _transformResults[index];
+    }
+  }
+}
@@ -39,6 +39,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.function.BooleanSupplier;
+import java.util.function.ObjIntConsumer;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -55,6 +56,7 @@ import org.apache.pinot.common.utils.TarCompressionUtils;
 import org.apache.pinot.core.data.manager.BaseTableDataManager;
 import org.apache.pinot.core.data.manager.SegmentOperationsTaskContext;
 import org.apache.pinot.core.data.manager.SegmentOperationsTaskType;
+import org.apache.pinot.core.data.manager.realtime.MessageBatchPrefetcher.PreparedMessageBatch;
 import org.apache.pinot.core.data.manager.realtime.RealtimeConsumptionRateManager.ConsumptionRateLimiter;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
 import org.apache.pinot.segment.local.dedup.DedupContext;
@@ -349,6 +351,15 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
   private final CompletionMode _segmentCompletionMode;
   private final List<String> _filteredMessageOffsets = new ArrayList<>();
   private final boolean _trackFilteredMessageOffsets;
+  // When batch indexing is enabled, the transformed rows of a message batch are indexed together, and the rows not
+  // indexed yet are kept here along with the metadata of their messages
+  private final boolean _batchIndexingEnabled;
+  private final List<GenericRow> _pendingRows = new ArrayList<>();
+  private final List<StreamMessageMetadata> _pendingRowsMetadata = new ArrayList<>();
+  // Fetches, decodes and transforms the next message batch while the current one is being indexed when pipelined
+  // consumption is enabled
+  @Nullable
+  private final MessageBatchPrefetcher _messageBatchPrefetcher;
   private final ParallelSegmentConsumptionPolicy _parallelSegmentConsumptionPolicy;
 
   private volatile boolean _stopReasonPrinted = false;
@@ -504,8 +515,16 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
       // Consume for the next readTime ms, or we get to final offset, whichever happens earlier,
       // Update _currentOffset upon return from this method
       MessageBatch messageBatch;
+      PreparedMessageBatch preparedMessageBatch = null;
       try {
-        messageBatch = _partitionGroupConsumer.fetchMessages(_currentOffset, _streamConfig.getFetchTimeoutMillis());
+        if (_messageBatchPrefetcher != null) {
+          preparedMessageBatch = _messageBatchPrefetcher.take(_currentOffset);
+        }
+        if (preparedMessageBatch != null) {
+          messageBatch = preparedMessageBatch.getMessageBatch();
+        } else {
+          messageBatch = _partitionGroupConsumer.fetchMessages(_currentOffset, _streamConfig.getFetchTimeoutMillis());
+        }
         //track realtime rows fetched on a table level. This included valid + invalid rows
         _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_ROWS_FETCHED,
             messageBatch.getUnfilteredMessageCount());
@@ -540,7 +559,18 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
 
       reportDataLoss(messageBatch);
 
-      boolean endCriteriaReached = processStreamEvents(messageBatch, idlePipeSleepTimeMillis);
+      if (_messageBatchPrefetcher != null) {
+        // Prepare the batch before prefetching the next one so that the decoder and the transform pipeline are not
+        // used concurrently
+        if (preparedMessageBatch == null) {
+          preparedMessageBatch = _messageBatchPrefetcher.prepare(messageBatch);
+        }
+        if (messageBatch.getMessageCount() > 0 && !messageBatch.isEndOfPartitionGroup() && !_shouldStop) {
+          _messageBatchPrefetcher.prefetch(_partitionGroupConsumer, messageBatch.getOffsetOfNextBatch(),
+              _streamConfig.getFetchTimeoutMillis());
+        }
+      }
+      boolean endCriteriaReached = processStreamEvents(messageBatch, preparedMessageBatch, idlePipeSleepTimeMillis);
 
       if (_currentOffset.compareTo(lastUpdatedOffset) != 0) {
         _idleTimer.markEventConsumed();
@@ -599,10 +629,13 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
   }
 
   /// @param messageBatch batch of messages to process
+  /// @param preparedMessageBatch the same batch of messages already decoded and transformed, or `null` if they should
+  ///                             be decoded and transformed while processing them
   /// @param idlePipeSleepTimeMillis wait time in case no messages were read
   /// @return returns `true` if the process loop ended before processing the batch, `false`
   /// otherwise
-  private boolean processStreamEvents(MessageBatch messageBatch, long idlePipeSleepTimeMillis) {
+  private boolean processStreamEvents(MessageBatch messageBatch, @Nullable PreparedMessageBatch preparedMessageBatch,
+      long idlePipeSleepTimeMillis) {
     int messageCount = messageBatch.getMessageCount();
     _partitionRateLimiter.throttle(messageBatch);
     _serverRateLimiter.throttle(messageBatch);
@@ -620,6 +653,13 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     boolean prematureExit = false;
 
     for (int index = 0; index < messageCount; index++) {
+      if (!_pendingRows.isEmpty() && _numRowsIndexed + _pendingRows.size() >= _segmentMaxRowCount) {
+        // Index the pending rows before checking the end criteria so that the row limit is accurately enforced
+        int numPendingRows = _pendingRows.size();
+        int numRowsErrored = _numRowsErrored;
+        canTakeMore = indexPendingRows();
+        indexedMessageCount += numPendingRows - (_numRowsErrored - numRowsErrored);
+      }
       prematureExit = _shouldStop || endCriteriaReached();
       if (prematureExit) {
         if (_segmentLogger.isDebugEnabled()) {
@@ -651,7 +691,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
 
       // Decode message
       StreamMessage<?> streamMessage = messageBatch.getStreamMessage(index);
-      StreamDataDecoderResult decodedRow = _streamDataDecoder.decode(streamMessage);
+      StreamDataDecoderResult decodedRow = preparedMessageBatch != null ? preparedMessageBatch.getDecodedRow(index)
+          : _streamDataDecoder.decode(streamMessage);
       StreamMessageMetadata metadata = streamMessage.getMetadata();
       StreamPartitionMsgOffset offset = metadata.getOffset();
       StreamPartitionMsgOffset nextOffset = metadata.getNextOffset();
@@ -659,6 +700,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
       if (decodedRow.getException() != null) {
         String errorMessage = "Stopping consumption due to decode error at offset: " + offset;
         if (_stopOnDecodeError) {
+          // Index the rows of the previous messages as they are consumed
+          indexPendingRows();
           _segmentLogger.error(errorMessage, decodedRow.getException());
           _realtimeTableDataManager.addSegmentError(_segmentNameStr,
                   new SegmentErrorInfo(now(), errorMessage, decodedRow.getException()));
@@ -680,7 +723,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
       } else {
         TransformPipeline.Result result = null;
         try {
-          result = _transformPipeline.processRow(decodedRow.getResult());
+          result = preparedMessageBatch != null ? preparedMessageBatch.getTransformResult(index)
+              : _transformPipeline.processRow(decodedRow.getResult());
         } catch (Exception e) {
           _numRowsErrored++;
           _numBytesDropped += rowSizeInBytes;
@@ -709,31 +753,41 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
                     result.getSanitizedRowCount(), realtimeRowsSanitizedMeter);
           }
           List<GenericRow> transformedRows = result.getTransformedRows();
-          for (GenericRow transformedRow : transformedRows) {
-            try {
-              canTakeMore = _realtimeSegment.index(transformedRow, metadata);
-              indexedMessageCount++;
-              _lastRowMetadata = metadata;
-              _lastConsumedTimestampMs = System.currentTimeMillis();
-              realtimeRowsConsumedMeter =
-                  _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_ROWS_CONSUMED, 1,
-                      realtimeRowsConsumedMeter);
-              _serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
-
-              int recordSerializedValueLength = _lastRowMetadata.getRecordSerializedSize();
-              if (recordSerializedValueLength > 0) {
-                realtimeBytesIngestedMeter =
-                    _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_BYTES_CONSUMED,
-                        recordSerializedValueLength, realtimeBytesIngestedMeter);
-                _serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_BYTES_CONSUMED, recordSerializedValueLength);
+          if (_batchIndexingEnabled) {
+            // Rows are indexed together when reaching the row limit or the end of the message batch
+            for (GenericRow transformedRow : transformedRows) {
+              _pendingRows.add(transformedRow);
+              _pendingRowsMetadata.add(metadata);
+            }
+          } else {
+            for (GenericRow transformedRow : transformedRows) {
+              try {
+                canTakeMore = _realtimeSegment.index(transformedRow, metadata);
+                indexedMessageCount++;
+                _lastRowMetadata = metadata;
+                _lastConsumedTimestampMs = System.currentTimeMillis();
+                realtimeRowsConsumedMeter =
+                    _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_ROWS_CONSUMED, 1,
+                        realtimeRowsConsumedMeter);
+                _serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
+
+                int recordSerializedValueLength = _lastRowMetadata.getRecordSerializedSize();
+                if (recordSerializedValueLength > 0) {
+                  realtimeBytesIngestedMeter =
+                      _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_BYTES_CONSUMED,
+                          recordSerializedValueLength, realtimeBytesIngestedMeter);
+                  _serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_BYTES_CONSUMED,
+                      recordSerializedValueLength);
+                }
+              } catch (Exception e) {
+                _numRowsErrored++;
+                _numBytesDropped += rowSizeInBytes;
+                String errorMessage =
+                    "Caught exception while indexing the record at offset: " + offset + " , row: " + transformedRow;
+                _segmentLogger.error(errorMessage, e);
+                _realtimeTableDataManager.addSegmentError(_segmentNameStr,
+                    new SegmentErrorInfo(now(), errorMessage, e));
               }
-            } catch (Exception e) {
-              _numRowsErrored++;
-              _numBytesDropped += rowSizeInBytes;
-              String errorMessage =
-                  "Caught exception while indexing the record at offset: " + offset + " , row: " + transformedRow;
-              _segmentLogger.error(errorMessage, e);
-              _realtimeTableDataManager.addSegmentError(_segmentNameStr, new SegmentErrorInfo(now(), errorMessage, e));
             }
           }
         }
@@ -743,6 +797,13 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
       _numRowsConsumed++;
       streamMessageCount++;
     }
+    if (!_pendingRows.isEmpty()) {
+      int numPendingRows = _pendingRows.size();
+      int numRowsErrored = _numRowsErrored;
+      indexPendingRows();
+      indexedMessageCount += numPendingRows - (_numRowsErrored - numRowsErrored);
+      _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
+    }
 
     updateCurrentDocumentCountMetrics();
     if (messageBatch.getUnfilteredMessageCount() > 0) {
@@ -772,6 +833,72 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     return prematureExit;
   }
 
+  /// Indexes the pending rows of the current message batch, and returns whether the segment can take more rows. The
+  /// rows failing to be indexed are handled the same way as when indexing the rows one by one. If indexing the batch
+  /// fails as a whole, the rows are indexed one by one so that the rows of the consumed messages are not lost.
+  private boolean indexPendingRows() {
+    int numRows = _pendingRows.size();
+    if (numRows == 0) {
+      return true;
+    }
+    boolean[] rowErrored = new boolean[numRows];
+    ObjIntConsumer<Exception> errorHandler = (e, rowId) -> {
+      rowErrored[rowId] = true;
+      StreamMessageMetadata metadata = _pendingRowsMetadata.get(rowId);
+      _numRowsErrored++;
+      _numBytesDropped += metadata.getRecordSerializedSize();
+      String errorMessage =
+          "Caught exception while indexing the record at offset: " + metadata.getOffset() + " , row: "
+              + _pendingRows.get(rowId);
+      _segmentLogger.error(errorMessage, e);
+      _realtimeTableDataManager.addSegmentError(_segmentNameStr, new SegmentErrorInfo(now(), errorMessage, e));
+    };
+    boolean canTakeMore;
+    try {
+      try {
+        canTakeMore = _realtimeSegment.index(_pendingRows, _pendingRowsMetadata.get(numRows - 1), errorHandler);
+      } catch (Exception e) {
+        // None of the rows is indexed when the batch fails as a whole
+        _segmentLogger.warn("Caught exception while indexing a batch of {} rows, indexing them one by one", numRows,
+            e);
+        canTakeMore = true;
+        for (int i = 0; i < numRows; i++) {
+          try {
+            canTakeMore = _realtimeSegment.index(_pendingRows.get(i), _pendingRowsMetadata.get(i));
+          } catch (Exception rowException) {
+            errorHandler.accept(rowException, i);
+          }
+        }
+      }
+      int numRowsIndexed = 0;
+      long numBytesIngested = 0;
+      for (int i = 0; i < numRows; i++) {
+        if (!rowErrored[i]) {
+          numRowsIndexed++;
+          _lastRowMetadata = _pendingRowsMetadata.get(i);
+          int recordSerializedValueLength = _lastRowMetadata.getRecordSerializedSize();
+          if (recordSerializedValueLength > 0) {
+            numBytesIngested += recordSerializedValueLength;
+          }
+        }
+      }
+      if (numRowsIndexed > 0) {
+        _lastConsumedTimestampMs = System.currentTimeMillis();
+        _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_ROWS_CONSUMED, numRowsIndexed);
+        _serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, numRowsIndexed);
+      }
+      if (numBytesIngested > 0) {
+        _serverMetrics.addMeteredTableValue(_clientId, ServerMeter.REALTIME_BYTES_CONSUMED, numBytesIngested);
+        _serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_BYTES_CONSUMED, numBytesIngested);
+      }
+    } finally {
+      _pendingRows.clear();
+      _pendingRowsMetadata.clear();
+    }
+    _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
+    return canTakeMore;
+  }
+
   @VisibleForTesting
   boolean canAddMore() {
     return _realtimeSegment.canAddMore();
@@ -950,6 +1077,7 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
             }
             case COMMIT: {
               _state = State.COMMITTING;
+              discardPrefetchedMessageBatch();
               _currentOffset = _partitionGroupConsumer.checkpoint(_currentOffset);
               // Lock the segment to avoid multiple threads touching the same segment.
               Lock segmentLock = _realtimeTableDataManager.getSegmentLock(_segmentNameStr);
@@ -1444,6 +1572,7 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
   }
 
   private void closePartitionGroupConsumer() {
+    discardPrefetchedMessageBatch();
     try {
       _partitionGroupConsumer.close();
     } catch (Exception e) {
@@ -1451,6 +1580,14 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     }
   }
 
+  /// Waits for the in-flight prefetched message batch if any, after which the stream consumer can be checkpointed or
+  /// closed.
+  private void discardPrefetchedMessageBatch() {
+    if (_messageBatchPrefetcher != null) {
+      _messageBatchPrefetcher.discard();
+    }
+  }
+
   private void closePartitionMetadataProvider() {
     if (_partitionMetadataProvider != null) {
       try {
@@ -1831,6 +1968,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     IngestionConfig ingestionConfig = tableConfig.getIngestionConfig();
     _trackFilteredMessageOffsets = ingestionConfig != null && ingestionConfig.getStreamIngestionConfig() != null
         && ingestionConfig.getStreamIngestionConfig().isTrackFilteredMessageOffsets();
+    _batchIndexingEnabled = ingestionConfig != null && ingestionConfig.getStreamIngestionConfig() != null
+        && ingestionConfig.getStreamIngestionConfig().isBatchIndexingEnabled();
     _parallelSegmentConsumptionPolicy = getParallelConsumptionPolicy();
 
     String timeColumnName = tableConfig.getValidationConfig().getTimeColumnName();
@@ -1959,6 +2098,9 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
           new SegmentErrorInfo(now(), "Failed to initialize the TransformPipeline", e));
       throw e;
     }
+    _messageBatchPrefetcher = ingestionConfig != null && ingestionConfig.getStreamIngestionConfig() != null
+        && ingestionConfig.getStreamIngestionConfig().isPipelinedConsumptionEnabled()
+        ? new MessageBatchPrefetcher(_streamDataDecoder, _transformPipeline) : null;
 
     try {
       _startOffset = _partitionGroupConsumptionStatus.getStartOffset();
@@ -2163,6 +2305,7 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
   /// Assumes there is a valid instance of [PartitionGroupConsumer]
   private void recreateStreamConsumer(String reason) {
     _segmentLogger.info("Recreating stream consumer for topic partition {}, reason: {}", _clientId, reason);
+    discardPrefetchedMessageBatch();
     _currentOffset = _partitionGroupConsumer.checkpoint(_currentOffset);
     closePartitionGroupConsumer();
     try {
@@ -138,7 +138,6 @@ public class InstanceResponseOperator extends BaseOperator<InstanceResponseBlock
 
   protected BaseResultsBlock getCombinedResults() {
     try {
-      prefetchAll();
       // Combine operator should never throw exception
       return _combineOperator.nextBlock();
     } finally {
@@ -146,12 +145,6 @@ public class InstanceResponseOperator extends BaseOperator<InstanceResponseBlock
     }
   }
 
-  public void prefetchAll() {
-    for (int i = 0; i < _fetchContextSize; i++) {
-      _segmentContexts.get(i).getIndexSegment().prefetch(_fetchContexts.get(i));
-    }
-  }
-
   public void releaseAll() {
     for (int i = 0; i < _fetchContextSize; i++) {
       _segmentContexts.get(i).getIndexSegment().release(_fetchContexts.get(i));
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.query.QueryThreadContext;
+
+
+/// Wrapper around the segment-level operator which serves the segment results from the [SegmentResultCache].
+/// Similar to [AcquireReleaseColumnsSegmentOperator], it expects the PlanNode of the segment instead of the Operator:
+/// on a cache hit the results are restored from the cache without planning the segment, on a miss the plan is run and
+/// the results are stored into the cache.
+@SuppressWarnings("unchecked")
+public class SegmentResultCacheOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_RESULT_CACHE";
+
+  private final PlanNode _planNode;
+  private final IndexSegment _indexSegment;
+  private final QueryContext _queryContext;
+  private final SegmentResultCache _segmentResultCache;
+  private final String _crc;
+  private final String _queryKey;
+
+  private Operator<BaseResultsBlock> _childOperator;
+  private ExecutionStatistics _cachedExecutionStatistics;
+
+  public SegmentResultCacheOperator(PlanNode planNode, IndexSegment indexSegment, QueryContext queryContext,
+      SegmentResultCache segmentResultCache, String crc, String queryKey) {
+    _planNode = planNode;
+    _indexSegment = indexSegment;
+    _queryContext = queryContext;
+    _segmentResultCache = segmentResultCache;
+    _crc = crc;
+    _queryKey = queryKey;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    String tableNameWithType = _queryContext.getTableName();
+    String segmentName = _indexSegment.getSegmentName();
+    SegmentResultCache.CachedResult cachedResult =
+        _segmentResultCache.get(tableNameWithType, segmentName, _crc, _queryKey);
+    if (cachedResult != null) {
+      ServerMetrics.get().addMeteredGlobalValue(ServerMeter.SEGMENT_RESULT_CACHE_HITS, 1);
+      // Nothing is scanned on a cache hit, so only report the total docs of the segment
+      _cachedExecutionStatistics =
+          new ExecutionStatistics(0, 0, 0, cachedResult.getExecutionStatistics().getNumTotalDocs());
+      return cachedResult.toResultsBlock(_queryContext);
+    }
+    ServerMetrics.get().addMeteredGlobalValue(ServerMeter.SEGMENT_RESULT_CACHE_MISSES, 1);
+    _childOperator = (Operator<BaseResultsBlock>) _planNode.run();
+    BaseResultsBlock resultsBlock = _childOperator.nextBlock();
+    if (resultsBlock instanceof GroupByResultsBlock) {
+      resultsBlock = detachGroupByResult((GroupByResultsBlock) resultsBlock);
+    }
+    _segmentResultCache.put(tableNameWithType, segmentName, _crc, _queryKey, resultsBlock,
+        _childOperator.getExecutionStatistics());
+    return resultsBlock;
+  }
+
+  /// Converts the group-by result backed by the group key generator of the segment into intermediate records so that
+  /// it can be cached. Results blocks that already carry intermediate records are returned as is.
+  private GroupByResultsBlock detachGroupByResult(GroupByResultsBlock resultsBlock) {
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    if (aggregationGroupByResult == null) {
+      return resultsBlock;
+    }
+    int numColumns = resultsBlock.getDataSchema().size();
+    int numKeyColumns = _queryContext.getNumGroupByKeyColumns();
+    int numAggregationFunctions = numColumns - numKeyColumns;
+    List<IntermediateRecord> intermediateRecords = new ArrayList<>(aggregationGroupByResult.getNumGroups());
+    try {
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      int numGroups = 0;
+      while (groupKeyIterator.hasNext()) {
+        QueryThreadContext.checkTerminationAndSampleUsagePeriodically(numGroups++, EXPLAIN_NAME);
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        Object[] keys = groupKey._keys;
+        Object[] values = Arrays.copyOf(keys, numColumns);
+        int groupId = groupKey._groupId;
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          values[numKeyColumns + i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
+        }
+        intermediateRecords.add(IntermediateRecord.withoutOrderByValues(new Key(keys), new Record(values)));
+      }
+    } finally {
+      // Release the resources used by the group key generator
+      aggregationGroupByResult.closeGroupKeyGenerator();
+    }
+    GroupByResultsBlock detachedResultsBlock =
+        new GroupByResultsBlock(resultsBlock.getDataSchema(), intermediateRecords, _queryContext);
+    detachedResultsBlock.setGroupsTrimmed(resultsBlock.isGroupsTrimmed());
+    detachedResultsBlock.setNumGroupsLimitReached(resultsBlock.isNumGroupsLimitReached());
+    detachedResultsBlock.setNumGroupsWarningLimitReached(resultsBlock.isNumGroupsWarningLimitReached());
+    detachedResultsBlock.setNumResizes(resultsBlock.getNumResizes());
+    detachedResultsBlock.setResizeTimeMs(resultsBlock.getResizeTimeMs());
+    return detachedResultsBlock;
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return _childOperator != null ? List.of(_childOperator) : List.of();
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    if (_childOperator != null) {
+      return _childOperator.getExecutionStatistics();
+    }
+    return _cachedExecutionStatistics != null ? _cachedExecutionStatistics : new ExecutionStatistics(0, 0, 0, 0);
+  }
+}
@@ -21,18 +21,39 @@ package org.apache.pinot.core.operator.filter;
 import com.google.common.base.CaseFormat;
 import com.google.common.base.Preconditions;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.ExplainAttributeBuilder;
+import org.apache.pinot.core.operator.docidsets.AndDocIdSet;
+import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
+import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
 import org.apache.pinot.core.operator.docidsets.MVScanDocIdSet;
+import org.apache.pinot.core.operator.docidsets.OrDocIdSet;
 import org.apache.pinot.core.operator.docidsets.SVScanDocIdSet;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.traits.DoubleRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.DoubleValue;
+import org.apache.pinot.core.operator.filter.predicate.traits.FloatRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.FloatValue;
+import org.apache.pinot.core.operator.filter.predicate.traits.IntRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.IntValue;
+import org.apache.pinot.core.operator.filter.predicate.traits.LongRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.LongValue;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapIndexReader;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
+/// Filter operator that scans the forward index of the column to evaluate the predicate.
+///
+/// For single-value columns with a zone map index (see [ZoneMapIndexReader]), EQ and RANGE predicates on raw values
+/// only scan the zones whose value range overlaps the predicate. Zones that cannot match are skipped, and zones whose
+/// value range is fully within the predicate are matched as doc id ranges without being scanned.
 public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
   private static final String EXPLAIN_NAME = "FILTER_FULL_SCAN";
 
@@ -58,6 +79,10 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
   protected BlockDocIdSet getNextBlockWithoutNullHandling() {
     DataSourceMetadata dataSourceMetadata = _dataSource.getDataSourceMetadata();
     if (dataSourceMetadata.isSingleValue()) {
+      BlockDocIdSet zoneMapBasedDocIdSet = getZoneMapBasedDocIdSet();
+      if (zoneMapBasedDocIdSet != null) {
+        return zoneMapBasedDocIdSet;
+      }
       return new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _batchSize,
           _queryContext.getQueryOptions());
     } else {
@@ -65,6 +90,128 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
     }
   }
 
+  /// Returns the doc id set pruned with the zone map index, or `null` if the zone map index cannot be applied or does
+  /// not prune any zone.
+  @Nullable
+  private BlockDocIdSet getZoneMapBasedDocIdSet() {
+    // NOTE: Dictionary based predicate evaluators can also implement the range traits, but with dictionary id bounds
+    if (_predicateEvaluator.isDictionaryBased()) {
+      return null;
+    }
+    ZoneMapIndexReader zoneMap = _dataSource.getIndex(StandardIndexes.zoneMap());
+    if (zoneMap == null || (long) zoneMap.getNumZones() * zoneMap.getNumDocsPerZone() < _numDocs) {
+      return null;
+    }
+    if (_predicateEvaluator instanceof IntRange) {
+      IntRange intRange = (IntRange) _predicateEvaluator;
+      return getZoneMapBasedDocIdSet(zoneMap, intRange.getInclusiveLowerBound(), intRange.getInclusiveUpperBound());
+    }
+    if (_predicateEvaluator instanceof IntValue) {
+      int value = ((IntValue) _predicateEvaluator).getInt();
+      return getZoneMapBasedDocIdSet(zoneMap, value, value);
+    }
+    if (_predicateEvaluator instanceof LongRange) {
+      LongRange longRange = (LongRange) _predicateEvaluator;
+      return getZoneMapBasedDocIdSet(zoneMap, longRange.getInclusiveLowerBound(), longRange.getInclusiveUpperBound());
+    }
+    if (_predicateEvaluator instanceof LongValue) {
+      long value = ((LongValue) _predicateEvaluator).getLong();
+      return getZoneMapBasedDocIdSet(zoneMap, value, value);
+    }
+    if (_predicateEvaluator instanceof FloatRange) {
+      FloatRange floatRange = (FloatRange) _predicateEvaluator;
+      return getZoneMapBasedDocIdSet(zoneMap, (double) floatRange.getInclusiveLowerBound(),
+          floatRange.getInclusiveUpperBound());
+    }
+    if (_predicateEvaluator instanceof FloatValue) {
+      double value = ((FloatValue) _predicateEvaluator).getFloat();
+      return getZoneMapBasedDocIdSet(zoneMap, value, value);
+    }
+    if (_predicateEvaluator instanceof DoubleRange) {
+      DoubleRange doubleRange = (DoubleRange) _predicateEvaluator;
+      return getZoneMapBasedDocIdSet(zoneMap, doubleRange.getInclusiveLowerBound(),
+          doubleRange.getInclusiveUpperBound());
+    }
+    if (_predicateEvaluator instanceof DoubleValue) {
+      double value = ((DoubleValue) _predicateEvaluator).getDouble();
+      return getZoneMapBasedDocIdSet(zoneMap, value, value);
+    }
+    return null;
+  }
+
+  @Nullable
+  private BlockDocIdSet getZoneMapBasedDocIdSet(ZoneMapIndexReader zoneMap, long lowerBound, long upperBound) {
+    int numZones = zoneMap.getNumZones();
+    int numDocsPerZone = zoneMap.getNumDocsPerZone();
+    MutableRoaringBitmap fullyMatchedDocIds = new MutableRoaringBitmap();
+    MutableRoaringBitmap partiallyMatchedDocIds = new MutableRoaringBitmap();
+    for (int zoneId = 0; zoneId < numZones; zoneId++) {
+      long minValue = zoneMap.getLongMinValue(zoneId);
+      long maxValue = zoneMap.getLongMaxValue(zoneId);
+      if (maxValue < lowerBound || minValue > upperBound) {
+        continue;
+      }
+      long startDocId = (long) zoneId * numDocsPerZone;
+      long endDocId = Math.min(startDocId + numDocsPerZone, _numDocs);
+      if (minValue >= lowerBound && maxValue <= upperBound) {
+        fullyMatchedDocIds.add(startDocId, endDocId);
+      } else {
+        partiallyMatchedDocIds.add(startDocId, endDocId);
+      }
+    }
+    return getZoneMapBasedDocIdSet(fullyMatchedDocIds, partiallyMatchedDocIds);
+  }
+
+  @Nullable
+  private BlockDocIdSet getZoneMapBasedDocIdSet(ZoneMapIndexReader zoneMap, double lowerBound, double upperBound) {
+    int numZones = zoneMap.getNumZones();
+    int numDocsPerZone = zoneMap.getNumDocsPerZone();
+    MutableRoaringBitmap fullyMatchedDocIds = new MutableRoaringBitmap();
+    MutableRoaringBitmap partiallyMatchedDocIds = new MutableRoaringBitmap();
+    for (int zoneId = 0; zoneId < numZones; zoneId++) {
+      // NOTE: Zones with NaN have NaN min and max values, which fail all the comparisons and are always scanned
+      double minValue = zoneMap.getDoubleMinValue(zoneId);
+      double maxValue = zoneMap.getDoubleMaxValue(zoneId);
+      if (maxValue < lowerBound || minValue > upperBound) {
+        continue;
+      }
+      long startDocId = (long) zoneId * numDocsPerZone;
+      long endDocId = Math.min(startDocId + numDocsPerZone, _numDocs);
+      if (minValue >= lowerBound && maxValue <= upperBound) {
+        fullyMatchedDocIds.add(startDocId, endDocId);
+      } else {
+        partiallyMatchedDocIds.add(startDocId, endDocId);
+      }
+    }
+    return getZoneMapBasedDocIdSet(fullyMatchedDocIds, partiallyMatchedDocIds);
+  }
+
+  @Nullable
+  private BlockDocIdSet getZoneMapBasedDocIdSet(MutableRoaringBitmap fullyMatchedDocIds,
+      MutableRoaringBitmap partiallyMatchedDocIds) {
+    int numPartiallyMatchedDocs = partiallyMatchedDocIds.getCardinality();
+    if (numPartiallyMatchedDocs == _numDocs) {
+      // Nothing is pruned, fall back to the full scan
+      return null;
+    }
+    BlockDocIdSet fullyMatchedDocIdSet =
+        fullyMatchedDocIds.isEmpty() ? null : new BitmapDocIdSet(fullyMatchedDocIds, _numDocs);
+    BlockDocIdSet partiallyMatchedDocIdSet = null;
+    if (numPartiallyMatchedDocs > 0) {
+      // Only the docs within the partially matched zones are scanned
+      partiallyMatchedDocIdSet = new AndDocIdSet(List.of(new BitmapDocIdSet(partiallyMatchedDocIds, _numDocs),
+          new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _batchSize, _queryContext.getQueryOptions())),
+          _queryContext.getQueryOptions());
+    }
+    if (partiallyMatchedDocIdSet == null) {
+      return fullyMatchedDocIdSet != null ? fullyMatchedDocIdSet : EmptyDocIdSet.getInstance();
+    }
+    if (fullyMatchedDocIdSet == null) {
+      return partiallyMatchedDocIdSet;
+    }
+    return new OrDocIdSet(List.of(fullyMatchedDocIdSet, partiallyMatchedDocIdSet), _numDocs);
+  }
+
 
   @Override
   public List<Operator> getChildOperators() {
@@ -26,6 +26,7 @@ import org.apache.pinot.core.operator.filter.predicate.traits.DoubleValue;
 import org.apache.pinot.core.operator.filter.predicate.traits.FloatValue;
 import org.apache.pinot.core.operator.filter.predicate.traits.IntValue;
 import org.apache.pinot.core.operator.filter.predicate.traits.LongValue;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.index.reader.Dictionary;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.utils.BooleanUtils;
@@ -123,6 +124,9 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterEquals(limit, docIds, values, _matchingDictId);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -196,6 +200,9 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterEquals(limit, docIds, values, _matchingValue);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -244,6 +251,9 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterEquals(limit, docIds, values, _matchingValue);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
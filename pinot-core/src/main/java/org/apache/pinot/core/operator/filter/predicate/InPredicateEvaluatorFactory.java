@@ -38,6 +38,7 @@ import org.apache.pinot.common.request.context.predicate.InPredicate;
 import org.apache.pinot.common.request.context.predicate.Predicate;
 import org.apache.pinot.common.utils.HashUtil;
 import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.index.reader.Dictionary;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.utils.ByteArray;
@@ -196,6 +197,9 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (VectorizedKernels.isEnabled() && _matchingDictIdSet.size() <= VectorizedKernels.MAX_IN_VALUES) {
+        return VectorizedKernels.filterIn(limit, docIds, values, getMatchingDictIds());
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -239,10 +243,15 @@ public class InPredicateEvaluatorFactory {
 
   private static final class IntRawValueBasedInPredicateEvaluator extends InRawPredicateEvaluator {
     final IntSet _matchingValues;
+    // Matching values as an array when there are few enough of them for VectorizedKernels
+    @Nullable
+    final int[] _smallMatchingValues;
 
     IntRawValueBasedInPredicateEvaluator(InPredicate inPredicate, IntSet matchingValues) {
       super(inPredicate);
       _matchingValues = matchingValues;
+      _smallMatchingValues =
+          matchingValues.size() <= VectorizedKernels.MAX_IN_VALUES ? matchingValues.toIntArray() : null;
     }
 
     @Override
@@ -262,6 +271,9 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (_smallMatchingValues != null && VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterIn(limit, docIds, values, _smallMatchingValues);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -281,10 +293,15 @@ public class InPredicateEvaluatorFactory {
 
   private static final class LongRawValueBasedInPredicateEvaluator extends InRawPredicateEvaluator {
     final LongSet _matchingValues;
+    // Matching values as an array when there are few enough of them for VectorizedKernels
+    @Nullable
+    final long[] _smallMatchingValues;
 
     LongRawValueBasedInPredicateEvaluator(InPredicate inPredicate, LongSet matchingValues) {
       super(inPredicate);
       _matchingValues = matchingValues;
+      _smallMatchingValues =
+          matchingValues.size() <= VectorizedKernels.MAX_IN_VALUES ? matchingValues.toLongArray() : null;
     }
 
     @Override
@@ -304,6 +321,9 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
+      if (_smallMatchingValues != null && VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterIn(limit, docIds, values, _smallMatchingValues);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
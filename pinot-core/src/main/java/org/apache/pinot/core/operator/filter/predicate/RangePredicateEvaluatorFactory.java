@@ -28,6 +28,7 @@ import org.apache.pinot.core.operator.filter.predicate.traits.DoubleRange;
 import org.apache.pinot.core.operator.filter.predicate.traits.FloatRange;
 import org.apache.pinot.core.operator.filter.predicate.traits.IntRange;
 import org.apache.pinot.core.operator.filter.predicate.traits.LongRange;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.index.reader.Dictionary;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.utils.BooleanUtils;
@@ -228,6 +229,9 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] dictIds) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterRange(limit, docIds, dictIds, _startDictId, _endDictId - 1);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -406,6 +410,9 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -467,6 +474,9 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -528,6 +538,9 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -589,6 +602,9 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
+      if (VectorizedKernels.isEnabled()) {
+        return VectorizedKernels.filterRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
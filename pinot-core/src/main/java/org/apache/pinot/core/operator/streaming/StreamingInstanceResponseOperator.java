@@ -63,7 +63,6 @@ public class StreamingInstanceResponseOperator extends InstanceResponseOperator
   @Override
   protected InstanceResponseBlock getNextBlock() {
     try {
-      prefetchAll();
       if (_streamingCombineOperator != null) {
         _streamingCombineOperator.start();
         long totalRowsStreamed = 0;
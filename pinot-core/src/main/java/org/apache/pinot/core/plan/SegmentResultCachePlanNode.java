@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import org.apache.pinot.core.operator.SegmentResultCacheOperator;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/// Wrapper of the segment-level plan node which serves the segment results from the [SegmentResultCache].
+/// Similar to [AcquireReleaseColumnsSegmentPlanNode], the child plan node is not run here but passed to the
+/// [SegmentResultCacheOperator], which only runs it when the results are not cached. This skips both the planning and
+/// the execution of the segment on a cache hit.
+public class SegmentResultCachePlanNode implements PlanNode {
+  private final PlanNode _childPlanNode;
+  private final IndexSegment _indexSegment;
+  private final QueryContext _queryContext;
+  private final SegmentResultCache _segmentResultCache;
+  private final String _crc;
+  private final String _queryKey;
+
+  public SegmentResultCachePlanNode(PlanNode childPlanNode, IndexSegment indexSegment, QueryContext queryContext,
+      SegmentResultCache segmentResultCache, String crc, String queryKey) {
+    _childPlanNode = childPlanNode;
+    _indexSegment = indexSegment;
+    _queryContext = queryContext;
+    _segmentResultCache = segmentResultCache;
+    _crc = crc;
+    _queryKey = queryKey;
+  }
+
+  @Override
+  public SegmentResultCacheOperator run() {
+    return new SegmentResultCacheOperator(_childPlanNode, _indexSegment, _queryContext, _segmentResultCache, _crc,
+        _queryKey);
+  }
+}
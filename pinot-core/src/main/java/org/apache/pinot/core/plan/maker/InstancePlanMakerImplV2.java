@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -41,16 +42,19 @@ import org.apache.pinot.core.plan.GroupByPlanNode;
 import org.apache.pinot.core.plan.InstanceResponsePlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.plan.StreamingInstanceResponsePlanNode;
 import org.apache.pinot.core.plan.StreamingSelectionPlanNode;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.query.executor.ResultsBlockStreamer;
 import org.apache.pinot.core.query.prefetch.FetchPlanner;
 import org.apache.pinot.core.query.prefetch.FetchPlannerRegistry;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
 import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.ImmutableSegment;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.SegmentContext;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -205,6 +209,12 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
       ExecutorService executorService) {
     applyQueryOptions(queryContext);
 
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
+    String queryKey = null;
+    if (segmentResultCache != null && !QueryOptionsUtils.isSkipSegmentResultCache(queryContext.getQueryOptions())) {
+      queryKey = SegmentResultCache.getQueryKey(queryContext);
+    }
+
     int numSegments = segmentContexts.size();
     List<PlanNode> planNodes = new ArrayList<>(numSegments);
     List<FetchContext> fetchContexts;
@@ -214,14 +224,16 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         FetchContext fetchContext =
             _fetchPlanner.planFetchForProcessing(segmentContext.getIndexSegment(), queryContext);
         fetchContexts.add(fetchContext);
-        planNodes.add(
-            new AcquireReleaseColumnsSegmentPlanNode(makeSegmentPlanNode(segmentContext, queryContext), segmentContext,
-                fetchContext));
+        // Issue the prefetch right away so that the indexes are read while the other segments are planned
+        segmentContext.getIndexSegment().prefetch(fetchContext);
+        planNodes.add(new AcquireReleaseColumnsSegmentPlanNode(
+            makeCachedSegmentPlanNode(segmentContext, queryContext, segmentResultCache, queryKey), segmentContext,
+            fetchContext));
       }
     } else {
       fetchContexts = List.of();
       for (SegmentContext segmentContext : segmentContexts) {
-        planNodes.add(makeSegmentPlanNode(segmentContext, queryContext));
+        planNodes.add(makeCachedSegmentPlanNode(segmentContext, queryContext, segmentResultCache, queryKey));
       }
     }
 
@@ -230,6 +242,28 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         new InstanceResponsePlanNode(combinePlanNode, segmentContexts, fetchContexts, queryContext));
   }
 
+  /// Wraps the segment plan node with a [SegmentResultCachePlanNode] when the segment results can be cached, i.e. the
+  /// query is cacheable (non-null `queryKey`) and the segment is an immutable segment whose queryable documents can
+  /// not change while it is loaded.
+  private PlanNode makeCachedSegmentPlanNode(SegmentContext segmentContext, QueryContext queryContext,
+      @Nullable SegmentResultCache segmentResultCache, @Nullable String queryKey) {
+    PlanNode planNode = makeSegmentPlanNode(segmentContext, queryContext);
+    if (queryKey == null) {
+      return planNode;
+    }
+    IndexSegment indexSegment = segmentContext.getIndexSegment();
+    if (!(indexSegment instanceof ImmutableSegment) || indexSegment.getValidDocIds() != null
+        || indexSegment.getQueryableDocIds() != null || indexSegment.hasDeletedDocIds()
+        || segmentContext.getDocIdsSnapshot() != null) {
+      return planNode;
+    }
+    String crc = indexSegment.getSegmentMetadata().getCrc();
+    if (crc == null) {
+      return planNode;
+    }
+    return new SegmentResultCachePlanNode(planNode, indexSegment, queryContext, segmentResultCache, crc, queryKey);
+  }
+
   @VisibleForTesting
   void applyQueryOptions(QueryContext queryContext) {
     Map<String, String> queryOptions = queryContext.getQueryOptions();
@@ -374,6 +408,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         FetchContext fetchContext =
             _fetchPlanner.planFetchForProcessing(segmentContext.getIndexSegment(), queryContext);
         fetchContexts.add(fetchContext);
+        segmentContext.getIndexSegment().prefetch(fetchContext);
         planNodes.add(
             new AcquireReleaseColumnsSegmentPlanNode(makeStreamingSegmentPlanNode(segmentContext, queryContext),
                 segmentContext, fetchContext));
@@ -28,6 +28,7 @@ import org.apache.pinot.core.query.aggregation.AggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.DoubleAggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.apache.pinot.segment.spi.index.startree.AggregationFunctionColumnPair;
 import org.roaringbitmap.RoaringBitmap;
@@ -88,9 +89,14 @@ public class CountAggregationFunction extends NullableSingleInputAggregationFunc
     } else if (blockValSetMap.containsKey(STAR_TREE_COUNT_STAR_EXPRESSION)) {
       // Star-tree pre-aggregated values
       long[] valueArray = blockValSetMap.get(STAR_TREE_COUNT_STAR_EXPRESSION).getLongValuesSV();
-      long count = 0;
-      for (int i = 0; i < length; i++) {
-        count += valueArray[i];
+      long count;
+      if (VectorizedKernels.isEnabled()) {
+        count = VectorizedKernels.sum(valueArray, 0, length);
+      } else {
+        count = 0;
+        for (int i = 0; i < length; i++) {
+          count += valueArray[i];
+        }
       }
       aggregationResultHolder.setValue(aggregationResultHolder.getDoubleResult() + count);
     } else {
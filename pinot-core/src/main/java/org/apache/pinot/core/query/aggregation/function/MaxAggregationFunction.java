@@ -31,6 +31,7 @@ import org.apache.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.apache.pinot.spi.exception.BadQueryRequestException;
 
@@ -85,9 +86,14 @@ public class MaxAggregationFunction extends NullableSingleInputAggregationFuncti
         int[] values = blockValSet.getIntValuesSV();
 
         Integer max = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
-          int innerMax = values[from];
-          for (int i = from; i < to; i++) {
-            innerMax = Math.max(innerMax, values[i]);
+          int innerMax;
+          if (VectorizedKernels.isEnabled()) {
+            innerMax = VectorizedKernels.max(values, from, to);
+          } else {
+            innerMax = values[from];
+            for (int i = from; i < to; i++) {
+              innerMax = Math.max(innerMax, values[i]);
+            }
           }
           return acum == null ? innerMax : Math.max(acum, innerMax);
         });
@@ -99,9 +105,14 @@ public class MaxAggregationFunction extends NullableSingleInputAggregationFuncti
         long[] values = blockValSet.getLongValuesSV();
 
         Long max = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
-          long innerMax = values[from];
-          for (int i = from; i < to; i++) {
-            innerMax = Math.max(innerMax, values[i]);
+          long innerMax;
+          if (VectorizedKernels.isEnabled()) {
+            innerMax = VectorizedKernels.max(values, from, to);
+          } else {
+            innerMax = values[from];
+            for (int i = from; i < to; i++) {
+              innerMax = Math.max(innerMax, values[i]);
+            }
           }
           return acum == null ? innerMax : Math.max(acum, innerMax);
         });
@@ -127,9 +138,14 @@ public class MaxAggregationFunction extends NullableSingleInputAggregationFuncti
         double[] values = blockValSet.getDoubleValuesSV();
 
         Double max = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
-          double innerMax = values[from];
-          for (int i = from; i < to; i++) {
-            innerMax = Math.max(innerMax, values[i]);
+          double innerMax;
+          if (VectorizedKernels.isEnabled()) {
+            innerMax = VectorizedKernels.max(values, from, to);
+          } else {
+            innerMax = values[from];
+            for (int i = from; i < to; i++) {
+              innerMax = Math.max(innerMax, values[i]);
+            }
           }
           return acum == null ? innerMax : Math.max(acum, innerMax);
         });
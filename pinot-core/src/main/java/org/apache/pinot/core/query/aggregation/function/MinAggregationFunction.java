@@ -31,6 +31,7 @@ import org.apache.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.apache.pinot.spi.exception.BadQueryRequestException;
 
@@ -85,9 +86,14 @@ public class MinAggregationFunction extends NullableSingleInputAggregationFuncti
         int[] values = blockValSet.getIntValuesSV();
 
         Integer min = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
-          int innerMin = values[from];
-          for (int i = from; i < to; i++) {
-            innerMin = Math.min(innerMin, values[i]);
+          int innerMin;
+          if (VectorizedKernels.isEnabled()) {
+            innerMin = VectorizedKernels.min(values, from, to);
+          } else {
+            innerMin = values[from];
+            for (int i = from; i < to; i++) {
+              innerMin = Math.min(innerMin, values[i]);
+            }
           }
           return acum == null ? innerMin : Math.min(acum, innerMin);
         });
@@ -99,9 +105,14 @@ public class MinAggregationFunction extends NullableSingleInputAggregationFuncti
         long[] values = blockValSet.getLongValuesSV();
 
         Long min = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
-          long innerMin = values[from];
-          for (int i = from; i < to; i++) {
-            innerMin = Math.min(innerMin, values[i]);
+          long innerMin;
+          if (VectorizedKernels.isEnabled()) {
+            innerMin = VectorizedKernels.min(values, from, to);
+          } else {
+            innerMin = values[from];
+            for (int i = from; i < to; i++) {
+              innerMin = Math.min(innerMin, values[i]);
+            }
           }
           return acum == null ? innerMin : Math.min(acum, innerMin);
         });
@@ -127,9 +138,14 @@ public class MinAggregationFunction extends NullableSingleInputAggregationFuncti
         double[] values = blockValSet.getDoubleValuesSV();
 
         Double min = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
-          double innerMin = values[from];
-          for (int i = from; i < to; i++) {
-            innerMin = Math.min(innerMin, values[i]);
+          double innerMin;
+          if (VectorizedKernels.isEnabled()) {
+            innerMin = VectorizedKernels.min(values, from, to);
+          } else {
+            innerMin = values[from];
+            for (int i = from; i < to; i++) {
+              innerMin = Math.min(innerMin, values[i]);
+            }
           }
           return acum == null ? innerMin : Math.min(acum, innerMin);
         });
@@ -31,6 +31,7 @@ import org.apache.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.apache.pinot.spi.exception.BadQueryRequestException;
 
@@ -87,8 +88,12 @@ public class SumAggregationFunction extends NullableSingleInputAggregationFuncti
 
         sum = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
           double innerSum = 0;
-          for (int i = from; i < to; i++) {
-            innerSum += values[i];
+          if (VectorizedKernels.isEnabled()) {
+            innerSum = VectorizedKernels.sum(values, from, to);
+          } else {
+            for (int i = from; i < to; i++) {
+              innerSum += values[i];
+            }
           }
           return acum == null ? innerSum : acum + innerSum;
         });
@@ -100,8 +105,12 @@ public class SumAggregationFunction extends NullableSingleInputAggregationFuncti
 
         sum = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
           double innerSum = 0;
-          for (int i = from; i < to; i++) {
-            innerSum += values[i];
+          if (VectorizedKernels.isEnabled()) {
+            innerSum = VectorizedKernels.sumAsDouble(values, from, to);
+          } else {
+            for (int i = from; i < to; i++) {
+              innerSum += values[i];
+            }
           }
           return acum == null ? innerSum : acum + innerSum;
         });
@@ -126,8 +135,12 @@ public class SumAggregationFunction extends NullableSingleInputAggregationFuncti
 
         sum = foldNotNull(length, blockValSet, null, (acum, from, to) -> {
           double innerSum = 0;
-          for (int i = from; i < to; i++) {
-            innerSum += values[i];
+          if (VectorizedKernels.isEnabled()) {
+            innerSum = VectorizedKernels.sum(values, from, to);
+          } else {
+            for (int i = from; i < to; i++) {
+              innerSum += values[i];
+            }
           }
           return acum == null ? innerSum : acum + innerSum;
         });
@@ -0,0 +1,357 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.CustomObject;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction.SerializedIntermediateResult;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Size bounded cache of the segment level results of aggregation and group-by queries on immutable segments.
+///
+/// Entries are keyed by the segment (table name, segment name and CRC) and a normalized form of the query. The query
+/// key is built from the [QueryContext] rather than the literal-stripped query fingerprint because the cached results
+/// depend on the literals. Options that do not affect the segment results (timeouts, ids, workload etc.) are left out
+/// of the key so that the same query issued again hits the cache.
+///
+/// The cached values are detached from the segment and the query: intermediate results of type `OBJECT` are kept in
+/// their serialized form and deserialized for each hit, so that the combine operators, which merge the results in
+/// place, never modify a cached value. Replacing, reloading or removing a segment invalidates its entries, and a new
+/// CRC never matches an old entry.
+///
+/// Only segments whose results can not change while loaded can be cached: consuming segments and segments of
+/// upsert/dedup tables (which have valid doc ids) are skipped by
+/// [org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2].
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+
+  // Query options that do not change the segment level results
+  private static final Set<String> IGNORED_QUERY_OPTIONS =
+      Set.of(QueryOptionKey.TIMEOUT_MS, QueryOptionKey.EXTRA_PASSIVE_TIMEOUT_MS, QueryOptionKey.CLIENT_QUERY_ID,
+          QueryOptionKey.QUERY_HASH, QueryOptionKey.WORKLOAD_NAME, QueryOptionKey.APPLICATION_NAME,
+          QueryOptionKey.COLLECT_GC_STATS, QueryOptionKey.MAX_EXECUTION_THREADS, QueryOptionKey.IS_SECONDARY_WORKLOAD,
+          QueryOptionKey.USE_SEGMENT_RESULT_CACHE);
+  // Rough size of an object header plus a reference, used to estimate the size of the entries
+  private static final int OBJECT_OVERHEAD_BYTES = 16;
+
+  private static volatile SegmentResultCache _instance;
+
+  private final Cache<CacheKey, CachedResult> _cache;
+
+  @VisibleForTesting
+  SegmentResultCache(long maxSizeInBytes) {
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeInBytes)
+        .weigher((CacheKey key, CachedResult value) -> (int) Math.min(key.getSizeInBytes() + value._sizeInBytes,
+            Integer.MAX_VALUE))
+        .build();
+  }
+
+  /// Creates the cache from the query executor config (with the [Server#QUERY_EXECUTOR_CONFIG_PREFIX] trimmed), or
+  /// disables it when the configured size is not positive.
+  public static void init(PinotConfiguration queryExecutorConfig) {
+    long maxSizeInBytes = queryExecutorConfig.getProperty(Server.SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES,
+        Server.DEFAULT_QUERY_EXECUTOR_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES);
+    if (maxSizeInBytes > 0) {
+      LOGGER.info("Enabling segment result cache with max size: {} bytes", maxSizeInBytes);
+      _instance = new SegmentResultCache(maxSizeInBytes);
+    } else {
+      _instance = null;
+    }
+  }
+
+  /// Returns the cache, or `null` if it is disabled.
+  @Nullable
+  public static SegmentResultCache getInstance() {
+    return _instance;
+  }
+
+  @VisibleForTesting
+  static void setInstance(@Nullable SegmentResultCache instance) {
+    _instance = instance;
+  }
+
+  /// Returns the normalized key of the query, or `null` if the segment results of the query can not be cached.
+  @Nullable
+  public static String getQueryKey(QueryContext queryContext) {
+    if (queryContext.isExplain() || queryContext.getSubquery() != null || !QueryContextUtils.isAggregationQuery(
+        queryContext)) {
+      return null;
+    }
+    // Segment results of safe trim queries are sorted and consumed by dedicated combine operators
+    if (queryContext.getGroupByExpressions() != null && queryContext.shouldSortAggregateUnderSafeTrim()) {
+      return null;
+    }
+    Map<String, String> queryOptions = new TreeMap<>();
+    for (Map.Entry<String, String> entry : queryContext.getQueryOptions().entrySet()) {
+      if (!IGNORED_QUERY_OPTIONS.contains(entry.getKey())) {
+        queryOptions.put(entry.getKey(), entry.getValue());
+      }
+    }
+    StringBuilder stringBuilder = new StringBuilder().append(queryContext.getTableName())
+        .append('|').append(queryContext.getSelectExpressions())
+        .append('|').append(queryContext.getFilter())
+        .append('|').append(queryContext.getGroupByExpressions());
+    List<int[]> groupingSets = queryContext.getGroupingSets();
+    if (groupingSets != null) {
+      for (int[] groupingSet : groupingSets) {
+        stringBuilder.append(Arrays.toString(groupingSet));
+      }
+    }
+    return stringBuilder.append('|').append(queryContext.getHavingFilter())
+        .append('|').append(queryContext.getOrderByExpressions())
+        .append('|').append(queryContext.getLimit())
+        .append('|').append(queryContext.getOffset())
+        .append('|').append(queryContext.getExpressionOverrideHints())
+        .append('|').append(queryOptions)
+        .toString();
+  }
+
+  /// Returns the cached results of the segment, or `null` if they are not cached.
+  @Nullable
+  public CachedResult get(String tableNameWithType, String segmentName, String crc, String queryKey) {
+    return _cache.getIfPresent(new CacheKey(tableNameWithType, segmentName, crc, queryKey));
+  }
+
+  /// Caches the results of the given segment level results block. Only error free aggregation and group-by results
+  /// blocks (with their group-by results converted to intermediate records) are cached, others are ignored.
+  public void put(String tableNameWithType, String segmentName, String crc, String queryKey,
+      BaseResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+    List<?> errorMessages = resultsBlock.getErrorMessages();
+    if (errorMessages != null && !errorMessages.isEmpty()) {
+      return;
+    }
+    CachedResult cachedResult;
+    if (resultsBlock instanceof AggregationResultsBlock) {
+      cachedResult = CachedResult.of((AggregationResultsBlock) resultsBlock, executionStatistics);
+    } else if (resultsBlock instanceof GroupByResultsBlock
+        && ((GroupByResultsBlock) resultsBlock).getIntermediateRecords() != null) {
+      cachedResult = CachedResult.of((GroupByResultsBlock) resultsBlock, executionStatistics);
+    } else {
+      return;
+    }
+    _cache.put(new CacheKey(tableNameWithType, segmentName, crc, queryKey), cachedResult);
+  }
+
+  /// Removes all the cached results of the given segment.
+  public void invalidateSegment(String tableNameWithType, String segmentName) {
+    _cache.asMap().keySet().removeIf(
+        key -> key._segmentName.equals(segmentName) && key._tableNameWithType.equals(tableNameWithType));
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  private static final class CacheKey {
+    final String _tableNameWithType;
+    final String _segmentName;
+    final String _crc;
+    final String _queryKey;
+    final int _hashCode;
+
+    CacheKey(String tableNameWithType, String segmentName, String crc, String queryKey) {
+      _tableNameWithType = tableNameWithType;
+      _segmentName = segmentName;
+      _crc = crc;
+      _queryKey = queryKey;
+      _hashCode = Objects.hash(tableNameWithType, segmentName, crc, queryKey);
+    }
+
+    long getSizeInBytes() {
+      return OBJECT_OVERHEAD_BYTES * 5 + 2L * (_tableNameWithType.length() + _segmentName.length() + _crc.length()
+          + _queryKey.length());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return _hashCode == that._hashCode && _segmentName.equals(that._segmentName) && _crc.equals(that._crc)
+          && _tableNameWithType.equals(that._tableNameWithType) && _queryKey.equals(that._queryKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  /// Detached copy of a segment level results block. Values of `OBJECT` columns are stored as
+  /// [SerializedIntermediateResult], other values are immutable and stored as is.
+  public static final class CachedResult {
+    final ExecutionStatistics _executionStatistics;
+    // Set for aggregation results
+    final Object[] _aggregationResults;
+    // Set for group-by results
+    final DataSchema _dataSchema;
+    final List<Object[]> _rows;
+    final boolean _groupsTrimmed;
+    final boolean _numGroupsLimitReached;
+    final boolean _numGroupsWarningLimitReached;
+    final long _sizeInBytes;
+
+    CachedResult(ExecutionStatistics executionStatistics, @Nullable Object[] aggregationResults,
+        @Nullable DataSchema dataSchema, @Nullable List<Object[]> rows, boolean groupsTrimmed,
+        boolean numGroupsLimitReached, boolean numGroupsWarningLimitReached, long sizeInBytes) {
+      _executionStatistics = executionStatistics;
+      _aggregationResults = aggregationResults;
+      _dataSchema = dataSchema;
+      _rows = rows;
+      _groupsTrimmed = groupsTrimmed;
+      _numGroupsLimitReached = numGroupsLimitReached;
+      _numGroupsWarningLimitReached = numGroupsWarningLimitReached;
+      _sizeInBytes = sizeInBytes;
+    }
+
+    static CachedResult of(AggregationResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+      AggregationFunction[] aggregationFunctions = resultsBlock.getAggregationFunctions();
+      List<Object> results = resultsBlock.getResults();
+      int numResults = results.size();
+      Object[] aggregationResults = new Object[numResults];
+      long sizeInBytes = OBJECT_OVERHEAD_BYTES * (numResults + 4L);
+      for (int i = 0; i < numResults; i++) {
+        Object value = detach(aggregationFunctions[i], results.get(i));
+        aggregationResults[i] = value;
+        sizeInBytes += getSizeInBytes(value);
+      }
+      return new CachedResult(executionStatistics, aggregationResults, null, null, false, false, false, sizeInBytes);
+    }
+
+    static CachedResult of(GroupByResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+      QueryContext queryContext = resultsBlock.getQueryContext();
+      AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+      int numKeyColumns = queryContext.getNumGroupByKeyColumns();
+      DataSchema dataSchema = resultsBlock.getDataSchema();
+      int numColumns = dataSchema.size();
+      List<IntermediateRecord> intermediateRecords = resultsBlock.getIntermediateRecords();
+      List<Object[]> rows = new ArrayList<>(intermediateRecords.size());
+      long sizeInBytes = OBJECT_OVERHEAD_BYTES * (intermediateRecords.size() + 4L);
+      for (IntermediateRecord intermediateRecord : intermediateRecords) {
+        Object[] values = intermediateRecord._record.getValues();
+        Object[] row = new Object[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+          Object value = i < numKeyColumns ? values[i] : detach(aggregationFunctions[i - numKeyColumns], values[i]);
+          row[i] = value;
+          sizeInBytes += getSizeInBytes(value);
+        }
+        rows.add(row);
+      }
+      return new CachedResult(executionStatistics, null, dataSchema, rows, resultsBlock.isGroupsTrimmed(),
+          resultsBlock.isNumGroupsLimitReached(), resultsBlock.isNumGroupsWarningLimitReached(), sizeInBytes);
+    }
+
+    /// Returns the execution statistics recorded when the results were computed.
+    public ExecutionStatistics getExecutionStatistics() {
+      return _executionStatistics;
+    }
+
+    /// Returns a new results block for the given query, which can be modified by the caller.
+    public BaseResultsBlock toResultsBlock(QueryContext queryContext) {
+      AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+      if (_aggregationResults != null) {
+        int numResults = _aggregationResults.length;
+        List<Object> results = new ArrayList<>(numResults);
+        for (int i = 0; i < numResults; i++) {
+          results.add(attach(aggregationFunctions[i], _aggregationResults[i]));
+        }
+        return new AggregationResultsBlock(aggregationFunctions, results, queryContext);
+      }
+      int numKeyColumns = queryContext.getNumGroupByKeyColumns();
+      int numColumns = _dataSchema.size();
+      List<IntermediateRecord> intermediateRecords = new ArrayList<>(_rows.size());
+      for (Object[] row : _rows) {
+        Object[] values = new Object[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+          values[i] = i < numKeyColumns ? row[i] : attach(aggregationFunctions[i - numKeyColumns], row[i]);
+        }
+        intermediateRecords.add(
+            IntermediateRecord.withoutOrderByValues(new Key(Arrays.copyOf(values, numKeyColumns)), new Record(values)));
+      }
+      GroupByResultsBlock resultsBlock = new GroupByResultsBlock(_dataSchema, intermediateRecords, queryContext);
+      resultsBlock.setGroupsTrimmed(_groupsTrimmed);
+      resultsBlock.setNumGroupsLimitReached(_numGroupsLimitReached);
+      resultsBlock.setNumGroupsWarningLimitReached(_numGroupsWarningLimitReached);
+      return resultsBlock;
+    }
+
+    @Nullable
+    private static Object detach(AggregationFunction aggregationFunction, @Nullable Object intermediateResult) {
+      if (intermediateResult == null
+          || aggregationFunction.getIntermediateResultColumnType().getStoredType() != ColumnDataType.OBJECT) {
+        return intermediateResult;
+      }
+      return aggregationFunction.serializeIntermediateResult(intermediateResult);
+    }
+
+    @Nullable
+    private static Object attach(AggregationFunction aggregationFunction, @Nullable Object value) {
+      if (value instanceof SerializedIntermediateResult) {
+        SerializedIntermediateResult serialized = (SerializedIntermediateResult) value;
+        return aggregationFunction.deserializeIntermediateResult(
+            new CustomObject(serialized.getType(), ByteBuffer.wrap(serialized.getBytes())));
+      }
+      return value;
+    }
+
+    private static long getSizeInBytes(@Nullable Object value) {
+      if (value instanceof SerializedIntermediateResult) {
+        return OBJECT_OVERHEAD_BYTES * 2 + ((SerializedIntermediateResult) value).getBytes().length;
+      }
+      if (value instanceof String) {
+        return OBJECT_OVERHEAD_BYTES * 2 + 2L * ((String) value).length();
+      }
+      return OBJECT_OVERHEAD_BYTES * 2;
+    }
+  }
+}
@@ -58,6 +58,7 @@ import org.apache.pinot.core.plan.ExplainInfo;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.maker.PlanMaker;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.query.config.SegmentPrunerConfig;
 import org.apache.pinot.core.query.killing.QueryKillingManager;
 import org.apache.pinot.core.query.killing.QueryKillingStrategy;
@@ -68,9 +69,13 @@ import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.TimerContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
 import org.apache.pinot.core.query.utils.idset.IdSet;
+import org.apache.pinot.core.util.VectorizedKernels;
 import org.apache.pinot.core.util.trace.TraceContext;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
 import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.segment.index.column.AdaptiveOnHeapColumnManager;
+import org.apache.pinot.segment.local.segment.index.readers.forward.DecompressedChunkCache;
+import org.apache.pinot.segment.local.segment.store.AsyncIndexPrefetcher;
 import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.SegmentContext;
@@ -126,8 +131,13 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     _planMaker.init(config);
     _defaultTimeoutMs = config.getProperty(Server.TIMEOUT, Server.DEFAULT_QUERY_EXECUTOR_TIMEOUT_MS);
     _enablePrefetch = Boolean.parseBoolean(config.getProperty(ENABLE_PREFETCH));
-    LOGGER.info("Initialized query executor with defaultTimeoutMs: {}, enablePrefetch: {}", _defaultTimeoutMs,
-        _enablePrefetch);
+    VectorizedKernels.init(config);
+    SegmentResultCache.init(config);
+    DecompressedChunkCache.init(config);
+    AdaptiveOnHeapColumnManager.init(config);
+    AsyncIndexPrefetcher.init(config);
+    LOGGER.info("Initialized query executor with defaultTimeoutMs: {}, enablePrefetch: {}, vectorizedKernels: {}",
+        _defaultTimeoutMs, _enablePrefetch, VectorizedKernels.isEnabled());
   }
 
   @Override
@@ -416,8 +426,6 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     InstanceResponseOperator responseOperator = (InstanceResponseOperator) queryPlan.getPlanNode().run();
 
     try {
-      responseOperator.prefetchAll();
-
       List<? extends Operator> childOperators = queryPlan.getPlanNode().run().getChildOperators();
       assert childOperators.size() == 1;
       Operator root = childOperators.get(0);
@@ -673,8 +681,6 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     InstanceResponseBlock instanceResponse;
     InstanceResponseOperator responseOperator = (InstanceResponseOperator) queryPlan.getPlanNode().run();
     try {
-      responseOperator.prefetchAll();
-
       ExplainInfo explainInfo = responseOperator.getExplainInfo();
       ExplainV2ResultBlock block = new ExplainV2ResultBlock(queryContext, explainInfo);
 
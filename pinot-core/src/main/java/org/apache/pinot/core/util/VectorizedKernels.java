@@ -0,0 +1,346 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.util;
+
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+
+
+/// Data-parallel kernels for the hot loops of scan based filtering and numeric aggregation.
+///
+/// The kernels are written so that the JIT can compile them without data dependent branches:
+/// - Filter kernels evaluate the predicate as an arithmetic `0`/`1` and always write the candidate doc id, advancing
+///   the output cursor by the predicate result (branch-free selection). Scan performance no longer depends on the
+///   selectivity of the predicate, which avoids the branch mispredictions of the scalar loop around 50% selectivity.
+/// - Range checks on integral values use a single unsigned comparison (`value - lower <= upper - lower`).
+/// - Aggregation kernels use several independent accumulators so that consecutive iterations do not depend on each
+///   other, which allows the JIT to unroll and vectorize the loop (SuperWord) instead of waiting on a single
+///   accumulator.
+///
+/// The kernels are only used when enabled through [Server#CONFIG_OF_QUERY_EXECUTOR_VECTORIZED_KERNELS_ENABLED], callers
+/// keep their scalar loop as fallback. Note that summing floating point values with several accumulators changes the
+/// order of the additions, so the result may differ from the scalar loop in the last bits.
+public class VectorizedKernels {
+  /// IN predicates with up to this many values are evaluated by comparing against all the values instead of a hash
+  /// set lookup.
+  public static final int MAX_IN_VALUES = 8;
+
+  private static boolean _enabled = Server.DEFAULT_QUERY_EXECUTOR_VECTORIZED_KERNELS_ENABLED;
+
+  private VectorizedKernels() {
+  }
+
+  /// Reads the kernel mode from the query executor config (with the [Server#QUERY_EXECUTOR_CONFIG_PREFIX] trimmed).
+  public static void init(PinotConfiguration queryExecutorConfig) {
+    setEnabled(queryExecutorConfig.getProperty(Server.VECTORIZED_KERNELS_ENABLED,
+        Server.DEFAULT_QUERY_EXECUTOR_VECTORIZED_KERNELS_ENABLED));
+  }
+
+  public static boolean isEnabled() {
+    return _enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    _enabled = enabled;
+  }
+
+  /// Keeps the doc ids whose value is within `[lower, upper]`, returns the number of matching doc ids which are
+  /// compacted at the beginning of `docIds`. Works for both dictionary ids and raw int values.
+  public static int filterRange(int limit, int[] docIds, int[] values, int lower, int upper) {
+    if (lower > upper) {
+      return 0;
+    }
+    int span = upper - lower;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += Integer.compareUnsigned(values[i] - lower, span) <= 0 ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int filterRange(int limit, int[] docIds, long[] values, long lower, long upper) {
+    if (lower > upper) {
+      return 0;
+    }
+    long span = upper - lower;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += Long.compareUnsigned(values[i] - lower, span) <= 0 ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int filterRange(int limit, int[] docIds, float[] values, float lower, float upper) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      float value = values[i];
+      docIds[matches] = docIds[i];
+      matches += (value >= lower & value <= upper) ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int filterRange(int limit, int[] docIds, double[] values, double lower, double upper) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      double value = values[i];
+      docIds[matches] = docIds[i];
+      matches += (value >= lower & value <= upper) ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int filterEquals(int limit, int[] docIds, int[] values, int target) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += values[i] == target ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int filterEquals(int limit, int[] docIds, long[] values, long target) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += values[i] == target ? 1 : 0;
+    }
+    return matches;
+  }
+
+  /// Keeps the doc ids whose value is one of the given values. Only meant for small IN lists (see [#MAX_IN_VALUES]).
+  public static int filterIn(int limit, int[] docIds, int[] values, int[] targets) {
+    int numTargets = targets.length;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      int value = values[i];
+      int match = 0;
+      for (int j = 0; j < numTargets; j++) {
+        match |= value == targets[j] ? 1 : 0;
+      }
+      docIds[matches] = docIds[i];
+      matches += match;
+    }
+    return matches;
+  }
+
+  public static int filterIn(int limit, int[] docIds, long[] values, long[] targets) {
+    int numTargets = targets.length;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      long value = values[i];
+      int match = 0;
+      for (int j = 0; j < numTargets; j++) {
+        match |= value == targets[j] ? 1 : 0;
+      }
+      docIds[matches] = docIds[i];
+      matches += match;
+    }
+    return matches;
+  }
+
+  /// Returns the exact sum of the values in `[from, to)`.
+  public static long sum(int[] values, int from, int to) {
+    long sum0 = 0;
+    long sum1 = 0;
+    long sum2 = 0;
+    long sum3 = 0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      sum0 += values[i];
+      sum1 += values[i + 1];
+      sum2 += values[i + 2];
+      sum3 += values[i + 3];
+    }
+    for (; i < to; i++) {
+      sum0 += values[i];
+    }
+    return sum0 + sum1 + sum2 + sum3;
+  }
+
+  /// Returns the sum of the values in `[from, to)`, which can overflow.
+  public static long sum(long[] values, int from, int to) {
+    long sum0 = 0;
+    long sum1 = 0;
+    long sum2 = 0;
+    long sum3 = 0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      sum0 += values[i];
+      sum1 += values[i + 1];
+      sum2 += values[i + 2];
+      sum3 += values[i + 3];
+    }
+    for (; i < to; i++) {
+      sum0 += values[i];
+    }
+    return sum0 + sum1 + sum2 + sum3;
+  }
+
+  /// Returns the sum of the values in `[from, to)` as a double, without overflowing.
+  public static double sumAsDouble(long[] values, int from, int to) {
+    double sum0 = 0;
+    double sum1 = 0;
+    double sum2 = 0;
+    double sum3 = 0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      sum0 += values[i];
+      sum1 += values[i + 1];
+      sum2 += values[i + 2];
+      sum3 += values[i + 3];
+    }
+    for (; i < to; i++) {
+      sum0 += values[i];
+    }
+    return (sum0 + sum1) + (sum2 + sum3);
+  }
+
+  public static double sum(double[] values, int from, int to) {
+    double sum0 = 0;
+    double sum1 = 0;
+    double sum2 = 0;
+    double sum3 = 0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      sum0 += values[i];
+      sum1 += values[i + 1];
+      sum2 += values[i + 2];
+      sum3 += values[i + 3];
+    }
+    for (; i < to; i++) {
+      sum0 += values[i];
+    }
+    return (sum0 + sum1) + (sum2 + sum3);
+  }
+
+  /// Returns the min of the values in `[from, to)`, the range must not be empty.
+  public static int min(int[] values, int from, int to) {
+    int min0 = values[from];
+    int min1 = min0;
+    int min2 = min0;
+    int min3 = min0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      min0 = Math.min(min0, values[i]);
+      min1 = Math.min(min1, values[i + 1]);
+      min2 = Math.min(min2, values[i + 2]);
+      min3 = Math.min(min3, values[i + 3]);
+    }
+    for (; i < to; i++) {
+      min0 = Math.min(min0, values[i]);
+    }
+    return Math.min(Math.min(min0, min1), Math.min(min2, min3));
+  }
+
+  public static long min(long[] values, int from, int to) {
+    long min0 = values[from];
+    long min1 = min0;
+    long min2 = min0;
+    long min3 = min0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      min0 = Math.min(min0, values[i]);
+      min1 = Math.min(min1, values[i + 1]);
+      min2 = Math.min(min2, values[i + 2]);
+      min3 = Math.min(min3, values[i + 3]);
+    }
+    for (; i < to; i++) {
+      min0 = Math.min(min0, values[i]);
+    }
+    return Math.min(Math.min(min0, min1), Math.min(min2, min3));
+  }
+
+  /// Same semantics as [Math#min(double, double)] folded over the values: `NaN` wins over any other value.
+  public static double min(double[] values, int from, int to) {
+    double min0 = values[from];
+    double min1 = min0;
+    double min2 = min0;
+    double min3 = min0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      min0 = Math.min(min0, values[i]);
+      min1 = Math.min(min1, values[i + 1]);
+      min2 = Math.min(min2, values[i + 2]);
+      min3 = Math.min(min3, values[i + 3]);
+    }
+    for (; i < to; i++) {
+      min0 = Math.min(min0, values[i]);
+    }
+    return Math.min(Math.min(min0, min1), Math.min(min2, min3));
+  }
+
+  /// Returns the max of the values in `[from, to)`, the range must not be empty.
+  public static int max(int[] values, int from, int to) {
+    int max0 = values[from];
+    int max1 = max0;
+    int max2 = max0;
+    int max3 = max0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      max0 = Math.max(max0, values[i]);
+      max1 = Math.max(max1, values[i + 1]);
+      max2 = Math.max(max2, values[i + 2]);
+      max3 = Math.max(max3, values[i + 3]);
+    }
+    for (; i < to; i++) {
+      max0 = Math.max(max0, values[i]);
+    }
+    return Math.max(Math.max(max0, max1), Math.max(max2, max3));
+  }
+
+  public static long max(long[] values, int from, int to) {
+    long max0 = values[from];
+    long max1 = max0;
+    long max2 = max0;
+    long max3 = max0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      max0 = Math.max(max0, values[i]);
+      max1 = Math.max(max1, values[i + 1]);
+      max2 = Math.max(max2, values[i + 2]);
+      max3 = Math.max(max3, values[i + 3]);
+    }
+    for (; i < to; i++) {
+      max0 = Math.max(max0, values[i]);
+    }
+    return Math.max(Math.max(max0, max1), Math.max(max2, max3));
+  }
+
+  /// Same semantics as [Math#max(double, double)] folded over the values: `NaN` wins over any other value.
+  public static double max(double[] values, int from, int to) {
+    double max0 = values[from];
+    double max1 = max0;
+    double max2 = max0;
+    double max3 = max0;
+    int i = from;
+    for (; i + 3 < to; i += 4) {
+      max0 = Math.max(max0, values[i]);
+      max1 = Math.max(max1, values[i + 1]);
+      max2 = Math.max(max2, values[i + 2]);
+      max3 = Math.max(max3, values[i + 3]);
+    }
+    for (; i < to; i++) {
+      max0 = Math.max(max0, values[i]);
+    }
+    return Math.max(Math.max(max0, max1), Math.max(max2, max3));
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.util;
+
+import com.google.auto.service.AutoService;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.spi.executor.ExecutorServicePlugin;
+import org.apache.pinot.spi.executor.ExecutorServiceProvider;
+import org.apache.pinot.spi.utils.CommonConstants;
+
+
+/// This is the plugin for the virtual thread executor service.
+///
+/// The provider included in this plugin creates executors that start a new virtual thread per task. Tasks that block
+/// (e.g. multi-stage opchains waiting on their receiving mailboxes) only park their virtual thread, and the carrier
+/// platform threads are reused by other tasks, so a large number of blocked tasks does not pin a large number of OS
+/// threads.
+///
+/// Instead of sizing a pool, the number of tasks running concurrently can be capped with the
+/// `<prefix>.maxConcurrency` property (defaults to [CommonConstants#CONFIG_OF_EXECUTORS_VIRTUAL_MAX_CONCURRENCY],
+/// unbounded by default). Tasks over the cap wait on a semaphore in their own virtual thread, so submission never
+/// blocks. Similar to [org.apache.pinot.common.utils.FixedExecutorServicePlugin], the cap must be large enough for
+/// tasks that wait on each other (e.g. the opchains of the same query), otherwise they may deadlock.
+///
+/// NOTE: The JVM may not report the per-thread CPU time and allocated bytes of virtual threads, in which case the
+/// query accountant flags the resource usage of the tasks running on this executor as unavailable
+/// (see [org.apache.pinot.spi.accounting.ThreadResourceTracker#isAllocatedBytesAvailable()]), and can not use it to
+/// pick the queries to kill.
+///
+/// @see org.apache.pinot.spi.executor.ExecutorServiceUtils
+@AutoService(ExecutorServicePlugin.class)
+public class VirtualThreadExecutorServicePlugin implements ExecutorServicePlugin {
+  @Override
+  public String id() {
+    return "virtual";
+  }
+
+  @Override
+  public ExecutorServiceProvider provider() {
+    return (conf, confPrefix, baseName) -> {
+      int defaultMaxConcurrency = Integer.parseInt(
+          conf.getProperty(CommonConstants.CONFIG_OF_EXECUTORS_VIRTUAL_MAX_CONCURRENCY,
+              CommonConstants.DEFAULT_EXECUTORS_VIRTUAL_MAX_CONCURRENCY));
+      int maxConcurrency = conf.getProperty(confPrefix + ".maxConcurrency", defaultMaxConcurrency);
+      ExecutorService executorService =
+          Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(baseName + "-", 0).factory());
+      return maxConcurrency > 0 ? new ConcurrencyLimitedExecutorService(executorService, maxConcurrency)
+          : executorService;
+    };
+  }
+
+  /// Executor service that runs at most `maxConcurrency` tasks concurrently on the underlying executor. The permit is
+  /// acquired by the task itself, so that the tasks waiting for a permit do not block the submitting thread.
+  static class ConcurrencyLimitedExecutorService extends AbstractExecutorService {
+    private final ExecutorService _executorService;
+    private final Semaphore _semaphore;
+
+    ConcurrencyLimitedExecutorService(ExecutorService executorService, int maxConcurrency) {
+      _executorService = executorService;
+      _semaphore = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      _executorService.execute(() -> {
+        // NOTE: Acquire the permit uninterruptibly so that the task always runs (and completes its future) once
+        //       submitted. An interrupted task keeps its interrupted flag, and is expected to terminate quickly.
+        _semaphore.acquireUninterruptibly();
+        try {
+          command.run();
+        } finally {
+          _semaphore.release();
+        }
+      });
+    }
+
+    int getNumAvailablePermits() {
+      return _semaphore.availablePermits();
+    }
+
+    @Override
+    public void shutdown() {
+      _executorService.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return _executorService.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return _executorService.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return _executorService.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+      return _executorService.awaitTermination(timeout, unit);
+    }
+  }
+}
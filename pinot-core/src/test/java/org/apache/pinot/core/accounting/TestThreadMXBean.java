@@ -77,6 +77,33 @@ public class TestThreadMXBean {
     Assert.assertTrue(ThreadResourceUsageProvider.getCurrentThreadAllocatedBytes() > 0);
   }
 
+  /// The JVM might not measure virtual threads, in which case the usage is reported as unavailable instead of 0
+  @Test
+  public void testVirtualThreadResourceUsageAvailability()
+      throws Exception {
+    long[] usage = new long[2];
+    ThreadResourceTrackerImpl threadTracker = new ThreadResourceTrackerImpl();
+    Thread thread = Thread.ofVirtual().start(() -> {
+      usage[0] = ThreadResourceUsageProvider.getCurrentThreadCpuTime();
+      usage[1] = ThreadResourceUsageProvider.getCurrentThreadAllocatedBytes();
+      threadTracker.setThreadContext(null);
+      threadTracker.updateCpuSnapshot();
+      threadTracker.updateMemorySnapshot();
+    });
+    thread.join();
+    Assert.assertEquals(threadTracker.isCpuTimeAvailable(), usage[0] >= 0);
+    Assert.assertEquals(threadTracker.isAllocatedBytesAvailable(), usage[1] >= 0);
+    Assert.assertTrue(threadTracker.getCpuTimeNs() >= 0);
+    Assert.assertTrue(threadTracker.getAllocatedBytes() >= 0);
+
+    // Only the threads whose usage is unavailable are counted as unmeasured
+    int numUnmeasuredThreads = usage[0] >= 0 && usage[1] >= 0 ? 0 : 1;
+    QueryResourceTrackerImpl queryTracker = new QueryResourceTrackerImpl(null, 0, 0).merge(threadTracker);
+    Assert.assertEquals(queryTracker.getNumUnmeasuredThreads(), numUnmeasuredThreads);
+    queryTracker.merge(new ThreadResourceTrackerImpl());
+    Assert.assertEquals(queryTracker.getNumUnmeasuredThreads(), numUnmeasuredThreads);
+  }
+
   /// simple memory allocation
   @Test
   public void testThreadMXBeanSimpleMemAllocTracking() {
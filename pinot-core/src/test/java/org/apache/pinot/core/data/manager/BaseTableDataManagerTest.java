@@ -42,6 +42,11 @@ import org.apache.pinot.common.utils.fetcher.BaseSegmentFetcher;
 import org.apache.pinot.common.utils.fetcher.SegmentFetcherFactory;
 import org.apache.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
 import org.apache.pinot.core.data.manager.offline.OfflineTableDataManager;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
 import org.apache.pinot.segment.local.indexsegment.immutable.EmptyIndexSegment;
 import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
@@ -418,6 +423,60 @@ public class BaseTableDataManagerTest {
     assertEquals(segmentMetadata.getIndexDir(), tierDataDir);
   }
 
+  @Test
+  public void testSegmentResultCacheInvalidation()
+      throws Exception {
+    SegmentResultCache.init(new PinotConfiguration(
+        Map.of(CommonConstants.Server.SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES, Long.toString(1024 * 1024))));
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
+    assertNotNull(segmentResultCache);
+    try {
+      SegmentZKMetadata zkMetadata = createRawSegment(SegmentVersion.v3, 5);
+      SegmentMetadata localMetadata = mock(SegmentMetadata.class);
+      when(localMetadata.getCrc()).thenReturn("0");
+
+      BaseTableDataManager tableDataManager = spy(createTableManager());
+      tableDataManager.registerSegment(SEGMENT_NAME, createImmutableSegmentDataManager(SEGMENT_NAME, localMetadata));
+      seedZKMetadata(tableDataManager, SEGMENT_NAME, zkMetadata);
+      doAnswer(invocation -> new IndexLoadingConfig()).when(tableDataManager).fetchIndexLoadingConfig();
+
+      // Reloading the segment drops its cached results
+      putSegmentResult(segmentResultCache, SEGMENT_NAME);
+      putSegmentResult(segmentResultCache, "otherSegment");
+      tableDataManager.reloadSegment(SEGMENT_NAME, false, null);
+      assertNull(getSegmentResult(segmentResultCache, SEGMENT_NAME));
+      assertNotNull(getSegmentResult(segmentResultCache, "otherSegment"));
+
+      // Removing the segment drops its cached results
+      putSegmentResult(segmentResultCache, SEGMENT_NAME);
+      tableDataManager.unregisterSegment(SEGMENT_NAME);
+      assertNull(getSegmentResult(segmentResultCache, SEGMENT_NAME));
+
+      // Replacing the segment because of a CRC mismatch drops its cached results
+      putSegmentResult(segmentResultCache, SEGMENT_NAME);
+      tableDataManager = createTableManager();
+      tableDataManager.replaceSegmentIfCrcMismatch(createImmutableSegmentDataManager(SEGMENT_NAME, 0), zkMetadata,
+          new IndexLoadingConfig());
+      assertNull(getSegmentResult(segmentResultCache, SEGMENT_NAME));
+      assertNotNull(getSegmentResult(segmentResultCache, "otherSegment"));
+    } finally {
+      SegmentResultCache.init(new PinotConfiguration());
+    }
+  }
+
+  private static void putSegmentResult(SegmentResultCache segmentResultCache, String segmentName) {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable");
+    segmentResultCache.put(OFFLINE_TABLE_NAME, segmentName, "0", SegmentResultCache.getQueryKey(queryContext),
+        new AggregationResultsBlock(queryContext.getAggregationFunctions(), List.of(5L), queryContext),
+        new ExecutionStatistics(5, 0, 0, 5));
+  }
+
+  private static SegmentResultCache.CachedResult getSegmentResult(SegmentResultCache segmentResultCache,
+      String segmentName) {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable");
+    return segmentResultCache.get(OFFLINE_TABLE_NAME, segmentName, "0", SegmentResultCache.getQueryKey(queryContext));
+  }
+
   @Test
   public void testReplaceSegmentNoop()
       throws Exception {
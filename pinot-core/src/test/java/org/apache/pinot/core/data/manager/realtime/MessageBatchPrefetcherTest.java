@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import java.util.concurrent.TimeoutException;
+import org.apache.pinot.core.data.manager.realtime.MessageBatchPrefetcher.PreparedMessageBatch;
+import org.apache.pinot.segment.local.segment.creator.TransformPipeline;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.LongMsgOffset;
+import org.apache.pinot.spi.stream.MessageBatch;
+import org.apache.pinot.spi.stream.PartitionGroupConsumer;
+import org.apache.pinot.spi.stream.StreamDataDecoder;
+import org.apache.pinot.spi.stream.StreamDataDecoderResult;
+import org.apache.pinot.spi.stream.StreamMessage;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.expectThrows;
+
+
+public class MessageBatchPrefetcherTest {
+  private static final int NUM_MESSAGES = 10;
+
+  @Test
+  public void testPrefetch()
+      throws Exception {
+    MessageBatchPrefetcher prefetcher = createPrefetcher();
+    MessageBatch messageBatch = createMessageBatch();
+    PartitionGroupConsumer consumer = mock(PartitionGroupConsumer.class);
+    when(consumer.fetchMessages(eq(new LongMsgOffset(0)), anyInt())).thenReturn(messageBatch);
+
+    // Nothing prefetched
+    assertNull(prefetcher.take(new LongMsgOffset(0)));
+
+    prefetcher.prefetch(consumer, new LongMsgOffset(0), 1000);
+    PreparedMessageBatch preparedMessageBatch = prefetcher.take(new LongMsgOffset(0));
+    assertSame(preparedMessageBatch.getMessageBatch(), messageBatch);
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      GenericRow decodedRow = preparedMessageBatch.getDecodedRow(i).getResult();
+      assertEquals(decodedRow.getValue("value"), i);
+      // Each message is decoded into its own row
+      if (i > 0) {
+        assertNotSame(decodedRow, preparedMessageBatch.getDecodedRow(i - 1).getResult());
+      }
+      assertEquals(preparedMessageBatch.getTransformResult(i).getTransformedRows().get(0).getValue("value"), i);
+    }
+    assertNull(prefetcher.take(new LongMsgOffset(0)));
+  }
+
+  @Test
+  public void testOffsetMismatch()
+      throws Exception {
+    MessageBatchPrefetcher prefetcher = createPrefetcher();
+    PartitionGroupConsumer consumer = mock(PartitionGroupConsumer.class);
+    when(consumer.fetchMessages(any(), anyInt())).thenReturn(createMessageBatch());
+
+    // The consumption stopped in the middle of the previous batch, so the prefetched batch is dropped
+    prefetcher.prefetch(consumer, new LongMsgOffset(10), 1000);
+    assertNull(prefetcher.take(new LongMsgOffset(5)));
+
+    prefetcher.prefetch(consumer, new LongMsgOffset(10), 1000);
+    prefetcher.discard();
+    assertNull(prefetcher.take(new LongMsgOffset(10)));
+  }
+
+  @Test
+  public void testFetchException()
+      throws Exception {
+    MessageBatchPrefetcher prefetcher = createPrefetcher();
+    PartitionGroupConsumer consumer = mock(PartitionGroupConsumer.class);
+    when(consumer.fetchMessages(any(), anyInt())).thenThrow(new TimeoutException());
+
+    prefetcher.prefetch(consumer, new LongMsgOffset(0), 1000);
+    expectThrows(TimeoutException.class, () -> prefetcher.take(new LongMsgOffset(0)));
+  }
+
+  private static MessageBatchPrefetcher createPrefetcher() {
+    StreamDataDecoder decoder = new StreamDataDecoder() {
+      @Override
+      public StreamDataDecoderResult decode(StreamMessage message) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public StreamDataDecoderResult decode(StreamMessage message, GenericRow destination) {
+        destination.putValue("value", message.getValue());
+        return new StreamDataDecoderResult(destination, null);
+      }
+    };
+    return new MessageBatchPrefetcher(decoder, TransformPipeline.getPassThroughPipeline("testTable_REALTIME"));
+  }
+
+  private static MessageBatch createMessageBatch() {
+    MessageBatch messageBatch = mock(MessageBatch.class);
+    when(messageBatch.getMessageCount()).thenReturn(NUM_MESSAGES);
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      StreamMessage streamMessage = mock(StreamMessage.class);
+      when(streamMessage.getValue()).thenReturn(i);
+      when(messageBatch.getStreamMessage(i)).thenReturn(streamMessage);
+    }
+    return messageBatch;
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.util.List;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultCachePlanNode;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentResultCacheOperatorTest {
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String CRC = "12345";
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCacheHitDoesNotReportScannedEntries() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable");
+    String queryKey = SegmentResultCache.getQueryKey(queryContext);
+    SegmentResultCache segmentResultCache = new SegmentResultCache(1024 * 1024);
+    IndexSegment indexSegment = mock(IndexSegment.class);
+    when(indexSegment.getSegmentName()).thenReturn(SEGMENT_NAME);
+
+    Operator<AggregationResultsBlock> childOperator = mock(Operator.class);
+    when(childOperator.nextBlock()).thenReturn(
+        new AggregationResultsBlock(queryContext.getAggregationFunctions(), List.of(10L), queryContext));
+    when(childOperator.getExecutionStatistics()).thenReturn(new ExecutionStatistics(10, 20, 30, 100));
+    PlanNode childPlanNode = mock(PlanNode.class);
+    doReturn(childOperator).when(childPlanNode).run();
+    SegmentResultCachePlanNode planNode =
+        new SegmentResultCachePlanNode(childPlanNode, indexSegment, queryContext, segmentResultCache, CRC, queryKey);
+
+    // Cache miss: the segment plan is run and its execution statistics are reported
+    SegmentResultCacheOperator operator = planNode.run();
+    AggregationResultsBlock resultsBlock = (AggregationResultsBlock) operator.nextBlock();
+    assertEquals(resultsBlock.getResults(), List.of(10L));
+    ExecutionStatistics executionStatistics = operator.getExecutionStatistics();
+    assertEquals(executionStatistics.getNumDocsScanned(), 10);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 20);
+    assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 30);
+    assertEquals(executionStatistics.getNumTotalDocs(), 100);
+    assertEquals(operator.getChildOperators().size(), 1);
+
+    // Cache hit: the segment plan is not run and nothing is reported as scanned
+    operator = planNode.run();
+    resultsBlock = (AggregationResultsBlock) operator.nextBlock();
+    assertEquals(resultsBlock.getResults(), List.of(10L));
+    executionStatistics = operator.getExecutionStatistics();
+    assertEquals(executionStatistics.getNumDocsScanned(), 0);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 0);
+    assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 0);
+    assertEquals(executionStatistics.getNumTotalDocs(), 100);
+    assertTrue(operator.getChildOperators().isEmpty());
+    verify(childPlanNode, times(1)).run();
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.predicate.EqPredicate;
+import org.apache.pinot.common.request.context.predicate.NotEqPredicate;
+import org.apache.pinot.common.request.context.predicate.RangePredicate;
+import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.common.BlockDocIdSet;
+import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
+import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
+import org.apache.pinot.core.operator.docidsets.SVScanDocIdSet;
+import org.apache.pinot.core.operator.filter.predicate.EqualsPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.NotEqualsPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.Constants;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapIndexReader;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class ScanBasedFilterOperatorTest {
+  private static final int NUM_DOCS = 1000;
+  private static final int NUM_DOCS_PER_ZONE = 100;
+  private static final ExpressionContext COLUMN = ExpressionContext.forIdentifier("col");
+
+  @Test
+  public void testZoneMapPruning() {
+    // Value of each doc is its doc id, so zone i has values [100 * i, 100 * i + 99]
+    DataSource dataSource = mockDataSource(true);
+
+    // Zone 1 and 4 are partially matched, zone 2 and 3 are fully matched
+    PredicateEvaluator rangeEvaluator = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new RangePredicate(COLUMN, true, "150", true, "449", DataType.INT), DataType.INT);
+    BlockDocIdSet docIdSet = getDocIdSet(rangeEvaluator, dataSource);
+    assertEquals(getDocIds(docIdSet), range(150, 450));
+    // Only the docs in the partially matched zones are scanned
+    assertTrue(docIdSet.getNumEntriesScannedInFilter() <= 2 * NUM_DOCS_PER_ZONE);
+
+    // Fully matched zones only
+    rangeEvaluator = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new RangePredicate(COLUMN, true, "200", false, "400", DataType.INT), DataType.INT);
+    docIdSet = getDocIdSet(rangeEvaluator, dataSource);
+    assertTrue(docIdSet instanceof BitmapDocIdSet);
+    assertEquals(getDocIds(docIdSet), range(200, 400));
+
+    // No matching zone
+    rangeEvaluator = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new RangePredicate(COLUMN, false, "5000", true, RangePredicate.UNBOUNDED, DataType.INT), DataType.INT);
+    assertTrue(getDocIdSet(rangeEvaluator, dataSource) instanceof EmptyDocIdSet);
+
+    // EQ predicate
+    PredicateEvaluator eqEvaluator =
+        EqualsPredicateEvaluatorFactory.newRawValueBasedEvaluator(new EqPredicate(COLUMN, "250"), DataType.INT);
+    docIdSet = getDocIdSet(eqEvaluator, dataSource);
+    assertEquals(getDocIds(docIdSet), List.of(250));
+    assertTrue(docIdSet.getNumEntriesScannedInFilter() <= NUM_DOCS_PER_ZONE);
+
+    // Predicate not supported by zone map
+    PredicateEvaluator notEqEvaluator = NotEqualsPredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new NotEqPredicate(COLUMN, "250"), DataType.INT);
+    docIdSet = getDocIdSet(notEqEvaluator, dataSource);
+    assertTrue(docIdSet instanceof SVScanDocIdSet);
+    assertEquals(getDocIds(docIdSet).size(), NUM_DOCS - 1);
+  }
+
+  @Test
+  public void testWithoutZoneMap() {
+    DataSource dataSource = mockDataSource(false);
+    PredicateEvaluator rangeEvaluator = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new RangePredicate(COLUMN, true, "150", true, "449", DataType.INT), DataType.INT);
+    BlockDocIdSet docIdSet = getDocIdSet(rangeEvaluator, dataSource);
+    assertTrue(docIdSet instanceof SVScanDocIdSet);
+    assertEquals(getDocIds(docIdSet), range(150, 450));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static DataSource mockDataSource(boolean withZoneMap) {
+    ForwardIndexReader forwardIndexReader = mock(ForwardIndexReader.class);
+    when(forwardIndexReader.isDictionaryEncoded()).thenReturn(false);
+    when(forwardIndexReader.isSingleValue()).thenReturn(true);
+    when(forwardIndexReader.getStoredType()).thenReturn(DataType.INT);
+    when(forwardIndexReader.getInt(anyInt(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+    doAnswer(invocation -> {
+      int[] docIds = invocation.getArgument(0);
+      int length = invocation.getArgument(1);
+      int[] values = invocation.getArgument(2);
+      System.arraycopy(docIds, 0, values, 0, length);
+      return null;
+    }).when(forwardIndexReader).readValuesSV(any(int[].class), anyInt(), any(int[].class), any());
+
+    DataSourceMetadata dataSourceMetadata = mock(DataSourceMetadata.class);
+    when(dataSourceMetadata.isSingleValue()).thenReturn(true);
+    when(dataSourceMetadata.getCardinality()).thenReturn(-1);
+
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getDataSourceMetadata()).thenReturn(dataSourceMetadata);
+    when(dataSource.getForwardIndex()).thenReturn(forwardIndexReader);
+    if (withZoneMap) {
+      ZoneMapIndexReader zoneMap = mock(ZoneMapIndexReader.class);
+      when(zoneMap.getNumDocsPerZone()).thenReturn(NUM_DOCS_PER_ZONE);
+      when(zoneMap.getNumZones()).thenReturn(NUM_DOCS / NUM_DOCS_PER_ZONE);
+      when(zoneMap.getLongMinValue(anyInt())).thenAnswer(
+          invocation -> (long) invocation.<Integer>getArgument(0) * NUM_DOCS_PER_ZONE);
+      when(zoneMap.getLongMaxValue(anyInt())).thenAnswer(
+          invocation -> (long) invocation.<Integer>getArgument(0) * NUM_DOCS_PER_ZONE + NUM_DOCS_PER_ZONE - 1);
+      when(dataSource.getIndex(StandardIndexes.zoneMap())).thenReturn(zoneMap);
+    }
+    return dataSource;
+  }
+
+  private static BlockDocIdSet getDocIdSet(PredicateEvaluator predicateEvaluator, DataSource dataSource) {
+    QueryContext queryContext = mock(QueryContext.class);
+    return new ScanBasedFilterOperator(queryContext, predicateEvaluator, dataSource, NUM_DOCS).nextBlock()
+        .getBlockDocIdSet();
+  }
+
+  private static List<Integer> getDocIds(BlockDocIdSet docIdSet) {
+    List<Integer> docIds = new ArrayList<>();
+    BlockDocIdIterator iterator = docIdSet.iterator();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    return docIds;
+  }
+
+  private static List<Integer> range(int startDocId, int endDocId) {
+    List<Integer> docIds = new ArrayList<>();
+    for (int i = startDocId; i < endDocId; i++) {
+      docIds.add(i);
+    }
+    return docIds;
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentResultCacheTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String CRC = "12345";
+
+  @Test
+  public void testInit() {
+    SegmentResultCache.init(new PinotConfiguration());
+    assertNull(SegmentResultCache.getInstance());
+    SegmentResultCache.init(new PinotConfiguration(
+        Map.of(Server.SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES, Long.toString(1024 * 1024))));
+    assertNotNull(SegmentResultCache.getInstance());
+    SegmentResultCache.setInstance(null);
+  }
+
+  @Test
+  public void testQueryKey() {
+    String key = SegmentResultCache.getQueryKey(
+        QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable WHERE a = 1"));
+    assertNotNull(key);
+    // Options that do not affect the segment results are ignored
+    assertEquals(SegmentResultCache.getQueryKey(QueryContextConverterUtils.getQueryContext(
+        "SET " + QueryOptionKey.TIMEOUT_MS + " = 1000; SELECT COUNT(*) FROM testTable WHERE a = 1")), key);
+    // Literals and other options are part of the key
+    assertNotEquals(SegmentResultCache.getQueryKey(
+        QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable WHERE a = 2")), key);
+    assertNotEquals(SegmentResultCache.getQueryKey(QueryContextConverterUtils.getQueryContext(
+        "SET " + QueryOptionKey.ENABLE_NULL_HANDLING + " = true; SELECT COUNT(*) FROM testTable WHERE a = 1")), key);
+    // Selection and explain queries are not cached
+    assertNull(SegmentResultCache.getQueryKey(
+        QueryContextConverterUtils.getQueryContext("SELECT a FROM testTable WHERE a = 1")));
+    assertNull(SegmentResultCache.getQueryKey(
+        QueryContextConverterUtils.getQueryContext("EXPLAIN PLAN FOR SELECT COUNT(*) FROM testTable")));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testAggregationResults() {
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT COUNT(*), DISTINCTCOUNT(a) FROM testTable");
+    String queryKey = SegmentResultCache.getQueryKey(queryContext);
+    assertNotNull(queryKey);
+    SegmentResultCache cache = new SegmentResultCache(1024 * 1024);
+    assertNull(cache.get(TABLE_NAME, SEGMENT_NAME, CRC, queryKey));
+
+    List<Object> results = new ArrayList<>(List.of(10L, new IntOpenHashSet(new int[]{1, 2, 3})));
+    ExecutionStatistics executionStatistics = new ExecutionStatistics(10, 20, 30, 100);
+    cache.put(TABLE_NAME, SEGMENT_NAME, CRC, queryKey,
+        new AggregationResultsBlock(queryContext.getAggregationFunctions(), results, queryContext),
+        executionStatistics);
+
+    SegmentResultCache.CachedResult cachedResult = cache.get(TABLE_NAME, SEGMENT_NAME, CRC, queryKey);
+    assertNotNull(cachedResult);
+    assertEquals(cachedResult.getExecutionStatistics().getNumDocsScanned(), 10);
+    assertEquals(cachedResult.getExecutionStatistics().getNumEntriesScannedPostFilter(), 30);
+    AggregationResultsBlock restored = (AggregationResultsBlock) cachedResult.toResultsBlock(queryContext);
+    assertEquals(restored.getResults(), results);
+    // Restored intermediate results are new objects, so merging into them does not modify the cache
+    Set<Integer> set = (Set<Integer>) restored.getResults().get(1);
+    assertNotSame(set, results.get(1));
+    set.add(4);
+    restored = (AggregationResultsBlock) cachedResult.toResultsBlock(queryContext);
+    assertEquals(restored.getResults().get(1), new IntOpenHashSet(new int[]{1, 2, 3}));
+
+    // Another CRC does not match the entry
+    assertNull(cache.get(TABLE_NAME, SEGMENT_NAME, "67890", queryKey));
+  }
+
+  @Test
+  public void testGroupByResults() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT b, COUNT(*), DISTINCTCOUNT(a) FROM testTable GROUP BY b");
+    String queryKey = SegmentResultCache.getQueryKey(queryContext);
+    assertNotNull(queryKey);
+    SegmentResultCache cache = new SegmentResultCache(1024 * 1024);
+
+    DataSchema dataSchema = new DataSchema(new String[]{"b", "count(*)", "distinctcount(a)"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.LONG, ColumnDataType.OBJECT});
+    List<IntermediateRecord> intermediateRecords = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Object[] values = new Object[]{"key" + i, (long) i, new IntOpenHashSet(new int[]{i, i + 1})};
+      intermediateRecords.add(
+          IntermediateRecord.withoutOrderByValues(new Key(new Object[]{"key" + i}), new Record(values)));
+    }
+    GroupByResultsBlock resultsBlock = new GroupByResultsBlock(dataSchema, intermediateRecords, queryContext);
+    resultsBlock.setNumGroupsLimitReached(true);
+    cache.put(TABLE_NAME, SEGMENT_NAME, CRC, queryKey, resultsBlock, new ExecutionStatistics(3, 0, 6, 3));
+
+    SegmentResultCache.CachedResult cachedResult = cache.get(TABLE_NAME, SEGMENT_NAME, CRC, queryKey);
+    assertNotNull(cachedResult);
+    GroupByResultsBlock restored = (GroupByResultsBlock) cachedResult.toResultsBlock(queryContext);
+    assertTrue(restored.isNumGroupsLimitReached());
+    assertFalse(restored.isGroupsTrimmed());
+    List<IntermediateRecord> restoredRecords = restored.getIntermediateRecords();
+    assertEquals(restoredRecords.size(), 3);
+    for (int i = 0; i < 3; i++) {
+      IntermediateRecord restoredRecord = restoredRecords.get(i);
+      assertEquals(restoredRecord._key, intermediateRecords.get(i)._key);
+      assertEquals(restoredRecord._record.getValues(), intermediateRecords.get(i)._record.getValues());
+    }
+  }
+
+  @Test
+  public void testInvalidateSegment() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable");
+    String queryKey = SegmentResultCache.getQueryKey(queryContext);
+    SegmentResultCache cache = new SegmentResultCache(1024 * 1024);
+    for (String segmentName : List.of(SEGMENT_NAME, "otherSegment")) {
+      cache.put(TABLE_NAME, segmentName, CRC, queryKey,
+          new AggregationResultsBlock(queryContext.getAggregationFunctions(), List.of(1L), queryContext),
+          new ExecutionStatistics(1, 0, 0, 1));
+    }
+    assertEquals(cache.size(), 2);
+    cache.invalidateSegment(TABLE_NAME, SEGMENT_NAME);
+    assertNull(cache.get(TABLE_NAME, SEGMENT_NAME, CRC, queryKey));
+    assertNotNull(cache.get(TABLE_NAME, "otherSegment", CRC, queryKey));
+  }
+}
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.predicate.InPredicate;
+import org.apache.pinot.common.request.context.predicate.RangePredicate;
+import org.apache.pinot.core.operator.filter.predicate.InPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/// Compares the results of [VectorizedKernels] with the equivalent scalar loops on random data.
+public class VectorizedKernelsTest {
+  private static final int NUM_VALUES = 1000;
+  private static final Random RANDOM = new Random();
+
+  @AfterMethod
+  public void tearDown() {
+    VectorizedKernels.setEnabled(false);
+  }
+
+  @Test
+  public void testFilterRange() {
+    int[] intValues = new int[NUM_VALUES];
+    long[] longValues = new long[NUM_VALUES];
+    double[] doubleValues = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      int value = RANDOM.nextInt(200) - 100;
+      intValues[i] = value;
+      longValues[i] = value;
+      doubleValues[i] = value;
+    }
+    doubleValues[0] = Double.NaN;
+    int[][] bounds = {{-10, 10}, {-100, 100}, {50, 50}, {10, -10}, {Integer.MIN_VALUE, 0}, {0, Integer.MAX_VALUE}};
+    for (int[] bound : bounds) {
+      int lower = bound[0];
+      int upper = bound[1];
+      int[] expected = scalarFilter(i -> intValues[i] >= lower && intValues[i] <= upper);
+      assertFilterResult(docIds -> VectorizedKernels.filterRange(NUM_VALUES, docIds, intValues, lower, upper),
+          expected);
+      assertFilterResult(docIds -> VectorizedKernels.filterRange(NUM_VALUES, docIds, longValues, lower, upper),
+          expected);
+      int[] expectedDouble = scalarFilter(i -> doubleValues[i] >= lower && doubleValues[i] <= upper);
+      assertFilterResult(docIds -> VectorizedKernels.filterRange(NUM_VALUES, docIds, doubleValues, lower, upper),
+          expectedDouble);
+    }
+    // Extreme long bounds where the span overflows a signed long
+    int[] all = scalarFilter(i -> true);
+    assertFilterResult(
+        docIds -> VectorizedKernels.filterRange(NUM_VALUES, docIds, longValues, Long.MIN_VALUE, Long.MAX_VALUE), all);
+  }
+
+  @Test
+  public void testFilterEqualsAndIn() {
+    int[] intValues = new int[NUM_VALUES];
+    long[] longValues = new long[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      int value = RANDOM.nextInt(20);
+      intValues[i] = value;
+      longValues[i] = value;
+    }
+    int[] expected = scalarFilter(i -> intValues[i] == 7);
+    assertFilterResult(docIds -> VectorizedKernels.filterEquals(NUM_VALUES, docIds, intValues, 7), expected);
+    assertFilterResult(docIds -> VectorizedKernels.filterEquals(NUM_VALUES, docIds, longValues, 7L), expected);
+
+    expected = scalarFilter(i -> intValues[i] == 3 || intValues[i] == 11 || intValues[i] == 19);
+    assertFilterResult(docIds -> VectorizedKernels.filterIn(NUM_VALUES, docIds, intValues, new int[]{3, 11, 19}),
+        expected);
+    assertFilterResult(docIds -> VectorizedKernels.filterIn(NUM_VALUES, docIds, longValues, new long[]{3, 11, 19}),
+        expected);
+  }
+
+  @Test
+  public void testAggregations() {
+    int[] intValues = new int[NUM_VALUES];
+    long[] longValues = new long[NUM_VALUES];
+    double[] doubleValues = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      intValues[i] = RANDOM.nextInt();
+      longValues[i] = RANDOM.nextLong() >> 16;
+      doubleValues[i] = RANDOM.nextInt(1000) / 8.0;
+    }
+    // Cover both the unrolled loop and the tail
+    for (int to : new int[]{1, 3, 4, 7, NUM_VALUES}) {
+      int from = to > 4 ? 2 : 0;
+      long intSum = 0;
+      long longSum = 0;
+      double doubleSum = 0;
+      int intMin = Integer.MAX_VALUE;
+      int intMax = Integer.MIN_VALUE;
+      long longMin = Long.MAX_VALUE;
+      long longMax = Long.MIN_VALUE;
+      double doubleMin = Double.POSITIVE_INFINITY;
+      double doubleMax = Double.NEGATIVE_INFINITY;
+      for (int i = from; i < to; i++) {
+        intSum += intValues[i];
+        longSum += longValues[i];
+        doubleSum += doubleValues[i];
+        intMin = Math.min(intMin, intValues[i]);
+        intMax = Math.max(intMax, intValues[i]);
+        longMin = Math.min(longMin, longValues[i]);
+        longMax = Math.max(longMax, longValues[i]);
+        doubleMin = Math.min(doubleMin, doubleValues[i]);
+        doubleMax = Math.max(doubleMax, doubleValues[i]);
+      }
+      assertEquals(VectorizedKernels.sum(intValues, from, to), intSum);
+      assertEquals(VectorizedKernels.sum(longValues, from, to), longSum);
+      assertEquals(VectorizedKernels.sumAsDouble(longValues, from, to), (double) longSum, Math.abs(longSum) * 1e-12);
+      // Multiples of 1/8 below 2^53 are summed exactly in any order
+      assertEquals(VectorizedKernels.sum(doubleValues, from, to), doubleSum);
+      assertEquals(VectorizedKernels.min(intValues, from, to), intMin);
+      assertEquals(VectorizedKernels.max(intValues, from, to), intMax);
+      assertEquals(VectorizedKernels.min(longValues, from, to), longMin);
+      assertEquals(VectorizedKernels.max(longValues, from, to), longMax);
+      assertEquals(VectorizedKernels.min(doubleValues, from, to), doubleMin);
+      assertEquals(VectorizedKernels.max(doubleValues, from, to), doubleMax);
+    }
+    doubleValues[5] = Double.NaN;
+    assertTrue(Double.isNaN(VectorizedKernels.min(doubleValues, 0, NUM_VALUES)));
+    assertTrue(Double.isNaN(VectorizedKernels.max(doubleValues, 0, NUM_VALUES)));
+  }
+
+  @Test
+  public void testPredicateEvaluatorsMatchScalarMode() {
+    int[] values = new int[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = RANDOM.nextInt(100);
+    }
+    ExpressionContext lhs = ExpressionContext.forIdentifier("col");
+    PredicateEvaluator range = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new RangePredicate(lhs, false, "20", true, "60", DataType.INT), DataType.INT);
+    PredicateEvaluator in = InPredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new InPredicate(lhs, List.of("1", "5", "42")), DataType.INT);
+    for (PredicateEvaluator evaluator : List.of(range, in)) {
+      int[] scalarDocIds = docIds();
+      int numScalarMatches = evaluator.applySV(NUM_VALUES, scalarDocIds, values);
+      VectorizedKernels.setEnabled(true);
+      int[] vectorizedDocIds = docIds();
+      int numVectorizedMatches = evaluator.applySV(NUM_VALUES, vectorizedDocIds, values);
+      VectorizedKernels.setEnabled(false);
+      assertEquals(Arrays.copyOf(vectorizedDocIds, numVectorizedMatches),
+          Arrays.copyOf(scalarDocIds, numScalarMatches));
+    }
+  }
+
+  private static int[] docIds() {
+    int[] docIds = new int[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      docIds[i] = i;
+    }
+    return docIds;
+  }
+
+  private static int[] scalarFilter(IntPredicate predicate) {
+    int[] docIds = new int[NUM_VALUES];
+    int numMatches = 0;
+    for (int i = 0; i < NUM_VALUES; i++) {
+      if (predicate.test(i)) {
+        docIds[numMatches++] = i;
+      }
+    }
+    return Arrays.copyOf(docIds, numMatches);
+  }
+
+  private static void assertFilterResult(ToIntFunction<int[]> kernel, int[] expectedDocIds) {
+    int[] docIds = docIds();
+    int numMatches = kernel.applyAsInt(docIds);
+    assertEquals(Arrays.copyOf(docIds, numMatches), expectedDocIds);
+  }
+}
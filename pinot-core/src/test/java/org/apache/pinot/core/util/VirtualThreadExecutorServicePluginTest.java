@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.executor.ExecutorServiceUtils;
+import org.apache.pinot.spi.query.QueryExecutionContext;
+import org.apache.pinot.spi.query.QueryThreadContext;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class VirtualThreadExecutorServicePluginTest {
+  private static final String CONF_PREFIX = "pinot.test.executor";
+
+  @Test
+  public void testVirtualThreads()
+      throws Exception {
+    ExecutorService executorService =
+        ExecutorServiceUtils.create(new PinotConfiguration(), CONF_PREFIX, "test", "virtual");
+    assertFalse(executorService instanceof VirtualThreadExecutorServicePlugin.ConcurrencyLimitedExecutorService);
+    try {
+      Future<Boolean> isVirtual = executorService.submit(() -> Thread.currentThread().isVirtual());
+      assertTrue(isVirtual.get());
+      Future<String> threadName = executorService.submit(() -> Thread.currentThread().getName());
+      assertTrue(threadName.get().startsWith("test-"));
+    } finally {
+      ExecutorServiceUtils.close(executorService);
+    }
+  }
+
+  @Test
+  public void testMaxConcurrency()
+      throws Exception {
+    int maxConcurrency = 4;
+    ExecutorService executorService = ExecutorServiceUtils.create(
+        new PinotConfiguration(Map.of(CONF_PREFIX + ".maxConcurrency", Integer.toString(maxConcurrency))),
+        CONF_PREFIX, "test", "virtual");
+    assertTrue(executorService instanceof VirtualThreadExecutorServicePlugin.ConcurrencyLimitedExecutorService);
+    try {
+      AtomicInteger numRunningTasks = new AtomicInteger();
+      AtomicInteger maxRunningTasks = new AtomicInteger();
+      CountDownLatch blockLatch = new CountDownLatch(1);
+      int numTasks = 100;
+      List<Future<?>> futures = new ArrayList<>(numTasks);
+      for (int i = 0; i < numTasks; i++) {
+        futures.add(executorService.submit(() -> {
+          maxRunningTasks.accumulateAndGet(numRunningTasks.incrementAndGet(), Math::max);
+          try {
+            blockLatch.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          numRunningTasks.decrementAndGet();
+        }));
+      }
+      // Submission does not block, and only maxConcurrency tasks can run before the latch is released
+      long deadlineMs = System.currentTimeMillis() + 10_000L;
+      while (numRunningTasks.get() < maxConcurrency && System.currentTimeMillis() < deadlineMs) {
+        Thread.sleep(10);
+      }
+      assertEquals(numRunningTasks.get(), maxConcurrency);
+      blockLatch.countDown();
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+      assertEquals(maxRunningTasks.get(), maxConcurrency);
+      assertEquals(((VirtualThreadExecutorServicePlugin.ConcurrencyLimitedExecutorService) executorService)
+          .getNumAvailablePermits(), maxConcurrency);
+    } finally {
+      ExecutorServiceUtils.close(executorService);
+    }
+  }
+
+  @Test
+  public void testQueryThreadContextPropagation()
+      throws Exception {
+    ExecutorService executorService = QueryThreadContext.contextAwareExecutorService(
+        ExecutorServiceUtils.create(new PinotConfiguration(), CONF_PREFIX, "test", "virtual"));
+    try (QueryThreadContext ignored = QueryThreadContext.openForSseTest()) {
+      QueryExecutionContext executionContext = QueryThreadContext.get().getExecutionContext();
+      Future<QueryExecutionContext> future =
+          executorService.submit(() -> QueryThreadContext.get().getExecutionContext());
+      assertSame(future.get(), executionContext);
+    } finally {
+      ExecutorServiceUtils.close(executorService);
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.pinot.plugin.inputformat.avro.AvroRecordExtractor;
+import org.apache.pinot.plugin.inputformat.avro.SimpleAvroMessageDecoder;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/// Benchmark for [SimpleAvroMessageDecoder] on wide records where only a few fields are ingested:
+/// - `fullRecordSelectedFields`: decodes the full record with the writer schema, then extracts the selected fields
+///   (the decoder behavior before schema projection)
+/// - `projectedSelectedFields`: decodes with the projected reader schema, skipping the other fields
+/// - `fullRecordAllFields`: decodes and extracts all the fields, as a reference
+///
+/// Records are flat with a mix of string, long and double fields, one third each, and the selected fields are evenly
+/// spread over the record.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@State(Scope.Benchmark)
+public class BenchmarkAvroMessageDecoder {
+  private static final int NUM_MESSAGES = 1000;
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder()
+        .include(BenchmarkAvroMessageDecoder.class.getSimpleName())
+        .shouldDoGC(true);
+    new Runner(opt.build()).run();
+  }
+
+  @Param({"300"})
+  private int _numFields;
+
+  @Param({"15"})
+  private int _numSelectedFields;
+
+  private List<byte[]> _payloads;
+  private int _currentIndex = 0;
+
+  private GenericDatumReader<GenericData.Record> _fullDatumReader;
+  private AvroRecordExtractor _selectedFieldsExtractor;
+  private BinaryDecoder _binaryDecoder;
+  private GenericData.Record _fullRecord;
+
+  private SimpleAvroMessageDecoder _selectedFieldsDecoder;
+  private SimpleAvroMessageDecoder _allFieldsDecoder;
+  private GenericRow _row;
+
+  @Setup(Level.Trial)
+  public void setUp()
+      throws Exception {
+    SchemaBuilder.FieldAssembler<Schema> fieldAssembler = SchemaBuilder.record("WideRecord").fields();
+    for (int i = 0; i < _numFields; i++) {
+      switch (i % 3) {
+        case 0:
+          fieldAssembler = fieldAssembler.requiredString("field" + i);
+          break;
+        case 1:
+          fieldAssembler = fieldAssembler.requiredLong("field" + i);
+          break;
+        default:
+          fieldAssembler = fieldAssembler.requiredDouble("field" + i);
+          break;
+      }
+    }
+    Schema avroSchema = fieldAssembler.endRecord();
+
+    Random random = new Random(42);
+    _payloads = new ArrayList<>(NUM_MESSAGES);
+    GenericDatumWriter<GenericData.Record> datumWriter = new GenericDatumWriter<>(avroSchema);
+    BinaryEncoder encoder = null;
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      GenericData.Record record = new GenericData.Record(avroSchema);
+      for (int j = 0; j < _numFields; j++) {
+        switch (j % 3) {
+          case 0:
+            record.put(j, randomString(random, 10 + random.nextInt(20)));
+            break;
+          case 1:
+            record.put(j, random.nextLong());
+            break;
+          default:
+            record.put(j, random.nextDouble());
+            break;
+        }
+      }
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      encoder = EncoderFactory.get().binaryEncoder(outputStream, encoder);
+      datumWriter.write(record, encoder);
+      encoder.flush();
+      _payloads.add(outputStream.toByteArray());
+    }
+
+    Set<String> selectedFields = new HashSet<>();
+    int step = Math.max(_numFields / _numSelectedFields, 1);
+    for (int i = 0; i < _numFields && selectedFields.size() < _numSelectedFields; i += step) {
+      selectedFields.add("field" + i);
+    }
+
+    _fullDatumReader = new GenericDatumReader<>(avroSchema);
+    _selectedFieldsExtractor = new AvroRecordExtractor();
+    _selectedFieldsExtractor.init(selectedFields, null);
+
+    Map<String, String> props = Map.of("schema", avroSchema.toString());
+    _selectedFieldsDecoder = new SimpleAvroMessageDecoder();
+    _selectedFieldsDecoder.init(props, selectedFields, "benchmark");
+    _allFieldsDecoder = new SimpleAvroMessageDecoder();
+    _allFieldsDecoder.init(props, Set.of(), "benchmark");
+    _row = new GenericRow();
+  }
+
+  private static String randomString(Random random, int length) {
+    StringBuilder stringBuilder = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      stringBuilder.append((char) ('a' + random.nextInt(26)));
+    }
+    return stringBuilder.toString();
+  }
+
+  private byte[] getNextPayload() {
+    byte[] payload = _payloads.get(_currentIndex);
+    _currentIndex = (_currentIndex + 1) % NUM_MESSAGES;
+    return payload;
+  }
+
+  @Benchmark
+  public GenericRow fullRecordSelectedFields()
+      throws IOException {
+    _row.clear();
+    byte[] payload = getNextPayload();
+    _binaryDecoder = DecoderFactory.get().binaryDecoder(payload, 0, payload.length, _binaryDecoder);
+    _fullRecord = _fullDatumReader.read(_fullRecord, _binaryDecoder);
+    return _selectedFieldsExtractor.extract(_fullRecord, _row);
+  }
+
+  @Benchmark
+  public GenericRow projectedSelectedFields() {
+    _row.clear();
+    return _selectedFieldsDecoder.decode(getNextPayload(), _row);
+  }
+
+  @Benchmark
+  public GenericRow fullRecordAllFields() {
+    _row.clear();
+    return _allFieldsDecoder.decode(getNextPayload(), _row);
+  }
+}
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -76,11 +77,13 @@ public class BenchmarkJsonParsing {
   }
 
   // Simulates different JSON payload sizes
-  @Param({"small", "medium", "large", "nested"})
+  @Param({"small", "medium", "large", "nested", "wide"})
   private String _payloadType;
 
   // Number of JSON messages to pre-generate for the benchmark
   private static final int NUM_MESSAGES = 1000;
+  // Number of top-level fields of the "wide" payload
+  private static final int NUM_WIDE_FIELDS = 300;
 
   private List<byte[]> _jsonPayloads;
   private int _currentIndex = 0;
@@ -215,6 +218,30 @@ public class BenchmarkJsonParsing {
             random.nextDouble() * 500 + 50
         );
 
+      case "wide":
+        // Wide flat payload: ~6KB with 300 string, long and double fields, of which only a few are ingested
+        StringBuilder wide = new StringBuilder();
+        wide.append('{');
+        for (int j = 0; j < NUM_WIDE_FIELDS; j++) {
+          if (j > 0) {
+            wide.append(',');
+          }
+          wide.append("\"field").append(j).append("\":");
+          switch (j % 3) {
+            case 0:
+              wide.append('"').append(randomString(random, 5 + random.nextInt(10))).append('"');
+              break;
+            case 1:
+              wide.append(random.nextInt(1_000_000));
+              break;
+            default:
+              wide.append(random.nextInt(100_000) / 100.0);
+              break;
+          }
+        }
+        wide.append('}');
+        return wide.toString();
+
       default:
         return "{\"id\":" + index + "}";
     }
@@ -300,6 +327,13 @@ public class BenchmarkJsonParsing {
         return Set.of("eventId", "timestamp");
       case "nested":
         return Set.of("order");
+      case "wide":
+        // 15 of the 300 fields, evenly spread over the payload
+        Set<String> fields = new HashSet<>();
+        for (int i = 0; i < NUM_WIDE_FIELDS; i += NUM_WIDE_FIELDS / 15) {
+          fields.add("field" + i);
+        }
+        return fields;
       default:
         return Set.of("id");
     }
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.executor.ExecutorServiceUtils;
+import org.apache.pinot.spi.query.QueryThreadContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/// Compares the executor service plugins used to run multi-stage opchains (see `pinot.server.query.executor
+/// .multistage.executor.type`) with many concurrent, mailbox-bound queries.
+///
+/// Each benchmark invocation runs one query made of `_numWorkers` sending opchains, which do some CPU work and wait
+/// for (simulated) upstream data before sending each block to a bounded mailbox, and one receiving opchain which is
+/// blocked on the mailbox until all the blocks are received. The benchmark threads model the concurrent queries, and
+/// the sample time mode reports both the throughput and the tail latency of the queries.
+///
+/// The `fixed` executor is not included because blocked receiving opchains can take all its threads and deadlock.
+@Fork(1)
+@BenchmarkMode(Mode.SampleTime)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(BenchmarkMseOpChainExecutors.NUM_CONCURRENT_QUERIES)
+@State(Scope.Benchmark)
+public class BenchmarkMseOpChainExecutors {
+  static final int NUM_CONCURRENT_QUERIES = 256;
+  private static final String CONF_PREFIX = "pinot.perf.opchain.executor";
+  private static final Object BLOCK = new Object();
+
+  // "virtual-capped" runs on virtual threads with the concurrency capped to 2 opchains per concurrent query, which
+  // leaves room for the sending opchains when every query has its receiving opchain running
+  @Param({"cached", "virtual", "virtual-capped"})
+  private String _executorType;
+
+  @Param({"8"})
+  private int _numWorkers;
+
+  @Param({"16"})
+  private int _numBlocksPerWorker;
+
+  // Simulated wait for upstream data before sending each block
+  @Param({"1"})
+  private long _upstreamWaitMs;
+
+  // CPU work to produce each block, in Blackhole.consumeCPU() tokens
+  @Param({"10000"})
+  private long _cpuTokensPerBlock;
+
+  private ExecutorService _executorService;
+
+  public static void main(String[] args)
+      throws RunnerException {
+    Options opt = new OptionsBuilder().include(BenchmarkMseOpChainExecutors.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    PinotConfiguration conf;
+    String type;
+    if (_executorType.equals("virtual-capped")) {
+      type = "virtual";
+      conf = new PinotConfiguration(
+          Map.of(CONF_PREFIX + ".maxConcurrency", Integer.toString(2 * NUM_CONCURRENT_QUERIES)));
+    } else {
+      type = _executorType;
+      conf = new PinotConfiguration();
+    }
+    // Same wrapping as QueryRunner so that the QueryThreadContext propagation overhead is included
+    _executorService =
+        QueryThreadContext.contextAwareExecutorService(ExecutorServiceUtils.create(conf, CONF_PREFIX, "opchain", type));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ExecutorServiceUtils.close(_executorService);
+  }
+
+  @Benchmark
+  public int runQuery()
+      throws Exception {
+    try (QueryThreadContext ignored = QueryThreadContext.openForMseTest()) {
+      int numBlocks = _numWorkers * _numBlocksPerWorker;
+      BlockingQueue<Object> mailbox = new ArrayBlockingQueue<>(_numWorkers);
+      // Submit the receiving opchain first, as the broker dispatches the upper stages before the leaf stages
+      Future<Integer> receiver = _executorService.submit(() -> {
+        int numReceived = 0;
+        while (numReceived < numBlocks) {
+          mailbox.take();
+          numReceived++;
+        }
+        return numReceived;
+      });
+      for (int i = 0; i < _numWorkers; i++) {
+        _executorService.submit(() -> {
+          for (int j = 0; j < _numBlocksPerWorker; j++) {
+            Thread.sleep(_upstreamWaitMs);
+            Blackhole.consumeCPU(_cpuTokensPerBlock);
+            mailbox.put(BLOCK);
+          }
+          return null;
+        });
+      }
+      return receiver.get();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
+import org.apache.pinot.segment.local.upsert.OffHeapPrimaryKeyIndex;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/// Compares the upsert primary key to record location map of
+/// [org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager] (`concurrentMap`) with the
+/// [OffHeapPrimaryKeyIndex] (`offHeap`), for loading all the keys of a partition and looking them up.
+///
+/// The keys are hashed with MURMUR3 upfront so that only the map operations are measured. The memory footprint of the
+/// loaded keys (heap usage delta for `concurrentMap`, off-heap buffers for `offHeap`) is printed during the setup. The
+/// heap usage delta does not include the hashed key objects (allocated upfront), which are also retained by the map.
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx4G"})
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BenchmarkUpsertPrimaryKeyIndex {
+  // Same layout as the record location of the concurrent map metadata manager
+  private static final class RecordLocation {
+    final Object _segment;
+    final int _docId;
+    final Comparable<?> _comparisonValue;
+
+    RecordLocation(Object segment, int docId, Comparable<?> comparisonValue) {
+      _segment = segment;
+      _docId = docId;
+      _comparisonValue = comparisonValue;
+    }
+  }
+
+  private static final Object SEGMENT = new Object();
+
+  @Param({"concurrentMap", "offHeap"})
+  private String _indexType;
+
+  @Param({"1000000", "10000000"})
+  private int _numKeys;
+
+  private ByteArray[] _keys;
+  private ConcurrentHashMap<Object, RecordLocation> _concurrentMap;
+  private DirectMemoryManager _memoryManager;
+  private OffHeapPrimaryKeyIndex _offHeapIndex;
+
+  public static void main(String[] args)
+      throws RunnerException {
+    Options opt = new OptionsBuilder().include(BenchmarkUpsertPrimaryKeyIndex.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _keys = new ByteArray[_numKeys];
+    for (int i = 0; i < _numKeys; i++) {
+      _keys[i] = (ByteArray) HashUtils.hashPrimaryKey(new PrimaryKey(new Object[]{"key_" + i}), HashFunction.MURMUR3);
+    }
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    long heapUsedBefore = runtime.totalMemory() - runtime.freeMemory();
+    if (_indexType.equals("concurrentMap")) {
+      _concurrentMap = new ConcurrentHashMap<>();
+      loadConcurrentMap(_concurrentMap);
+    } else {
+      _memoryManager = new DirectMemoryManager("BenchmarkUpsertPrimaryKeyIndex");
+      _offHeapIndex = new OffHeapPrimaryKeyIndex(_memoryManager, "lookup", 8, 4096);
+      loadOffHeapIndex(_offHeapIndex);
+    }
+    System.gc();
+    long heapUsedBytes = runtime.totalMemory() - runtime.freeMemory() - heapUsedBefore;
+    long offHeapUsedBytes = _offHeapIndex != null ? _offHeapIndex.getSizeInBytes() : 0;
+    System.out.printf("%n%s with %d keys: heap delta %d bytes, off-heap %d bytes%n", _indexType, _numKeys,
+        heapUsedBytes, offHeapUsedBytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+      throws IOException {
+    if (_offHeapIndex != null) {
+      _offHeapIndex.close();
+      _memoryManager.close();
+    }
+  }
+
+  @Benchmark
+  public long load()
+      throws IOException {
+    if (_indexType.equals("concurrentMap")) {
+      ConcurrentHashMap<Object, RecordLocation> map = new ConcurrentHashMap<>();
+      loadConcurrentMap(map);
+      return map.size();
+    }
+    try (DirectMemoryManager memoryManager = new DirectMemoryManager("BenchmarkUpsertPrimaryKeyIndex");
+        OffHeapPrimaryKeyIndex index = new OffHeapPrimaryKeyIndex(memoryManager, "load", 8, 4096)) {
+      loadOffHeapIndex(index);
+      return index.size();
+    }
+  }
+
+  @Benchmark
+  public long lookup() {
+    long sum = 0;
+    if (_indexType.equals("concurrentMap")) {
+      for (ByteArray key : _keys) {
+        sum += _concurrentMap.get(key)._docId;
+      }
+    } else {
+      for (ByteArray key : _keys) {
+        byte[] keyHash = key.getBytes();
+        long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+        long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+        OffHeapPrimaryKeyIndex.Shard shard = _offHeapIndex.getShard(k0, k1);
+        synchronized (shard) {
+          sum += OffHeapPrimaryKeyIndex.getDocId(shard.getLocation(shard.find(k0, k1)));
+        }
+      }
+    }
+    return sum;
+  }
+
+  private void loadConcurrentMap(ConcurrentHashMap<Object, RecordLocation> map) {
+    for (int i = 0; i < _numKeys; i++) {
+      // Same boxed comparison value as a LONG comparison column
+      map.put(_keys[i], new RecordLocation(SEGMENT, i, (long) i));
+    }
+  }
+
+  private void loadOffHeapIndex(OffHeapPrimaryKeyIndex index) {
+    for (int i = 0; i < _numKeys; i++) {
+      byte[] keyHash = _keys[i].getBytes();
+      long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+      long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+      OffHeapPrimaryKeyIndex.Shard shard = index.getShard(k0, k1);
+      synchronized (shard) {
+        shard.put(k0, k1, OffHeapPrimaryKeyIndex.getLocation(1, i), i);
+      }
+    }
+  }
+}
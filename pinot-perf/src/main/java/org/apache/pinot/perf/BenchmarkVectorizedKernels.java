@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.predicate.EqPredicate;
+import org.apache.pinot.common.request.context.predicate.InPredicate;
+import org.apache.pinot.common.request.context.predicate.RangePredicate;
+import org.apache.pinot.core.common.BlockValSet;
+import org.apache.pinot.core.common.SyntheticBlockValSets;
+import org.apache.pinot.core.operator.filter.predicate.EqualsPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.InPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.core.plan.DocIdSetPlanNode;
+import org.apache.pinot.core.query.aggregation.AggregationResultHolder;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.MaxAggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.MinAggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.SumAggregationFunction;
+import org.apache.pinot.core.util.VectorizedKernels;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/// Compares the scalar loops with [VectorizedKernels] for the batch predicate evaluation of a block of values (as done
+/// by the scan based doc id iterators) and for the SUM/MIN/MAX aggregation of a block.
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BenchmarkVectorizedKernels {
+  private static final int NUM_DOCS = DocIdSetPlanNode.MAX_DOC_PER_CALL;
+  private static final int MAX_VALUE = 1_000_000;
+  private static final ExpressionContext EXPR = ExpressionContext.forIdentifier("col");
+
+  @Param({"false", "true"})
+  private boolean _vectorized;
+
+  // Fraction of the values matching the range predicate
+  @Param({"0.1", "0.5", "0.9"})
+  private double _selectivity;
+
+  private int[] _intValues;
+  private long[] _longValues;
+  private double[] _doubleValues;
+  private int[] _docIds;
+  private PredicateEvaluator _intRange;
+  private PredicateEvaluator _longRange;
+  private PredicateEvaluator _doubleRange;
+  private PredicateEvaluator _intEq;
+  private PredicateEvaluator _intIn;
+  private Map<ExpressionContext, BlockValSet> _longBlockValSetMap;
+  private Map<ExpressionContext, BlockValSet> _doubleBlockValSetMap;
+  private AggregationFunction<?, ?> _sum;
+  private AggregationFunction<?, ?> _min;
+  private AggregationFunction<?, ?> _max;
+  private AggregationResultHolder _resultHolder;
+
+  public static void main(String[] args)
+      throws RunnerException {
+    Options opt = new OptionsBuilder().include(BenchmarkVectorizedKernels.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    VectorizedKernels.setEnabled(_vectorized);
+    Random random = new Random(42);
+    _intValues = new int[NUM_DOCS];
+    _longValues = new long[NUM_DOCS];
+    _doubleValues = new double[NUM_DOCS];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      int value = random.nextInt(MAX_VALUE);
+      _intValues[i] = value;
+      _longValues[i] = value;
+      _doubleValues[i] = value;
+    }
+    _docIds = new int[NUM_DOCS];
+
+    String upperBound = Integer.toString((int) (MAX_VALUE * _selectivity));
+    RangePredicate rangePredicate = new RangePredicate(EXPR, true, "0", false, upperBound, DataType.INT);
+    _intRange = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate, DataType.INT);
+    _longRange = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate, DataType.LONG);
+    _doubleRange = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate, DataType.DOUBLE);
+    _intEq = EqualsPredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new EqPredicate(EXPR, Integer.toString(_intValues[0])), DataType.INT);
+    _intIn = InPredicateEvaluatorFactory.newRawValueBasedEvaluator(new InPredicate(EXPR,
+        List.of(Integer.toString(_intValues[0]), Integer.toString(_intValues[1]), Integer.toString(_intValues[2]),
+            Integer.toString(_intValues[3]))), DataType.INT);
+
+    _longBlockValSetMap = Map.of(EXPR, SyntheticBlockValSets.Long.create(null, _longValues));
+    _doubleBlockValSetMap = Map.of(EXPR, SyntheticBlockValSets.Double.create(null, _doubleValues));
+    _sum = new SumAggregationFunction(List.of(EXPR), false);
+    _min = new MinAggregationFunction(List.of(EXPR), false);
+    _max = new MaxAggregationFunction(List.of(EXPR), false);
+    _resultHolder = _sum.createAggregationResultHolder();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    VectorizedKernels.setEnabled(false);
+  }
+
+  private int[] resetDocIds() {
+    for (int i = 0; i < NUM_DOCS; i++) {
+      _docIds[i] = i;
+    }
+    return _docIds;
+  }
+
+  @Benchmark
+  public int intRange() {
+    return _intRange.applySV(NUM_DOCS, resetDocIds(), _intValues);
+  }
+
+  @Benchmark
+  public int longRange() {
+    return _longRange.applySV(NUM_DOCS, resetDocIds(), _longValues);
+  }
+
+  @Benchmark
+  public int doubleRange() {
+    return _doubleRange.applySV(NUM_DOCS, resetDocIds(), _doubleValues);
+  }
+
+  @Benchmark
+  public int intEq() {
+    return _intEq.applySV(NUM_DOCS, resetDocIds(), _intValues);
+  }
+
+  @Benchmark
+  public int intIn() {
+    return _intIn.applySV(NUM_DOCS, resetDocIds(), _intValues);
+  }
+
+  @Benchmark
+  public double longSum() {
+    _resultHolder.setValue(0.0);
+    _sum.aggregate(NUM_DOCS, _resultHolder, _longBlockValSetMap);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  public double doubleSum() {
+    _resultHolder.setValue(0.0);
+    _sum.aggregate(NUM_DOCS, _resultHolder, _doubleBlockValSetMap);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  public double doubleMin() {
+    _resultHolder.setValue(Double.POSITIVE_INFINITY);
+    _min.aggregate(NUM_DOCS, _resultHolder, _doubleBlockValSetMap);
+    return _resultHolder.getDoubleResult();
+  }
+
+  @Benchmark
+  public double longMax() {
+    _resultHolder.setValue(Double.NEGATIVE_INFINITY);
+    _max.aggregate(NUM_DOCS, _resultHolder, _longBlockValSetMap);
+    return _resultHolder.getDoubleResult();
+  }
+}
@@ -33,8 +33,10 @@ import com.azure.storage.file.datalake.DataLakeFileClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClient;
 import com.azure.storage.file.datalake.DataLakeServiceClient;
 import com.azure.storage.file.datalake.DataLakeServiceClientBuilder;
+import com.azure.storage.file.datalake.models.DataLakeFileInputStreamOptions;
 import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
 import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.FileRange;
 import com.azure.storage.file.datalake.models.ListPathsOptions;
 import com.azure.storage.file.datalake.models.PathHttpHeaders;
 import com.azure.storage.file.datalake.models.PathItem;
@@ -667,6 +669,31 @@ public class ADLSGen2PinotFS extends BasePinotFS {
     }
   }
 
+  /// Reads the range with ranged reads, so that only the requested bytes are transferred.
+  @Override
+  public InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range: offset: %s, length: %s", offset, length);
+    if (length == 0) {
+      return InputStream.nullInputStream();
+    }
+    try {
+      return _fileSystemClient.getFileClient(AzurePinotFSUtil.convertUriToAzureStylePath(uri))
+          .openInputStream(new DataLakeFileInputStreamOptions().setRange(new FileRange(offset, length)))
+          .getInputStream();
+    } catch (DataLakeStorageException e) {
+      if (e.getStatusCode() == NOT_FOUND_STATUS_CODE) {
+        throw new FileNotFoundException("File not found: " + uri);
+      }
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public boolean supportsRangeReads() {
+    return true;
+  }
+
   private boolean copySrcToDst(URI srcUri, URI dstUri)
       throws IOException {
     try {
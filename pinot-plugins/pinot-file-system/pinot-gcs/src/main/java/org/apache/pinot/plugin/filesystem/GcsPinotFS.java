@@ -22,6 +22,7 @@ import com.google.api.gax.paging.Page;
 import com.google.api.gax.rpc.FixedHeaderProvider;
 import com.google.auth.Credentials;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
@@ -59,6 +60,7 @@ import org.apache.pinot.spi.filesystem.FileMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 
@@ -390,6 +392,30 @@ public class GcsPinotFS extends BasePinotFS {
     }
   }
 
+  /// Reads the range with a limited blob reader, so that only the requested bytes are transferred.
+  @Override
+  public InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    checkArgument(offset >= 0 && length >= 0, "Invalid range: offset: %s, length: %s", offset, length);
+    try {
+      Blob blob = getBlob(new GcsUri(uri));
+      if (blob == null) {
+        throw new FileNotFoundException("File '" + uri + "' does not exist");
+      }
+      ReadChannel readChannel = blob.reader();
+      readChannel.seek(offset);
+      readChannel.limit(offset + length);
+      return Channels.newInputStream(readChannel);
+    } catch (StorageException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public boolean supportsRangeReads() {
+    return true;
+  }
+
   private Bucket getBucket(GcsUri gcsUri) {
     return _storage.get(gcsUri.getBucketName());
   }
@@ -19,6 +19,7 @@
 
 package org.apache.pinot.plugin.filesystem;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -28,7 +29,9 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileUtil;
@@ -286,6 +289,26 @@ public class HadoopPinotFS extends BasePinotFS {
     return _hadoopFS.open(path);
   }
 
+  /// Seeks to the offset instead of reading the skipped bytes, so that only the blocks of the range are read.
+  @Override
+  public InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range: offset: %s, length: %s", offset, length);
+    FSDataInputStream inputStream = _hadoopFS.open(new Path(uri));
+    try {
+      inputStream.seek(offset);
+      return BoundedInputStream.builder().setInputStream(inputStream).setMaxCount(length).get();
+    } catch (IOException | RuntimeException e) {
+      inputStream.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean supportsRangeReads() {
+    return true;
+  }
+
   private void authenticate(Configuration hadoopConf, PinotConfiguration configs) {
     String principal = configs.getProperty(PRINCIPAL);
     String keytab = configs.getProperty(KEYTAB);
@@ -1049,6 +1049,25 @@ public class S3PinotFS extends BasePinotFS {
     }
   }
 
+  /// Reads the range with a ranged GET, so that only the requested bytes are transferred.
+  @Override
+  public InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range: offset: %s, length: %s", offset, length);
+    if (length == 0) {
+      return InputStream.nullInputStream();
+    }
+    String path = sanitizePath(uri.getPath());
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder().bucket(uri.getHost()).key(path)
+        .range("bytes=" + offset + "-" + (offset + length - 1)).build();
+    return retryWithS3CredentialRefresh(() -> _s3Client.getObject(getObjectRequest));
+  }
+
+  @Override
+  public boolean supportsRangeReads() {
+    return true;
+  }
+
   @Override
   public void close()
       throws IOException {
@@ -22,8 +22,10 @@ import com.google.common.base.Preconditions;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nullable;
@@ -139,6 +141,33 @@ public class AvroUtils {
     }
   }
 
+  /// Returns the reader schema projecting the given top-level fields out of the writer record schema, or the writer
+  /// schema itself when all of its fields are projected.
+  ///
+  /// Reading with a [GenericDatumReader] created with the writer schema and this reader schema only materializes the
+  /// projected fields, and skips the encoded bytes of the other fields (e.g. strings are not decoded). The projected
+  /// fields keep their writer schema, so the values read are the same as with the full writer schema. Fields that are
+  /// not in the writer schema are ignored.
+  public static org.apache.avro.Schema getProjectedSchema(org.apache.avro.Schema writerSchema, Set<String> fields) {
+    Preconditions.checkArgument(writerSchema.getType() == org.apache.avro.Schema.Type.RECORD,
+        "Avro schema must be a record, got: %s", writerSchema.getType());
+    List<Field> writerFields = writerSchema.getFields();
+    List<Field> projectedFields = new ArrayList<>();
+    for (Field field : writerFields) {
+      if (fields.contains(field.name())) {
+        projectedFields.add(new Field(field, field.schema()));
+      }
+    }
+    if (projectedFields.size() == writerFields.size()) {
+      return writerSchema;
+    }
+    org.apache.avro.Schema projectedSchema =
+        org.apache.avro.Schema.createRecord(writerSchema.getName(), writerSchema.getDoc(), writerSchema.getNamespace(),
+            writerSchema.isError(), projectedFields);
+    projectedSchema.addAllProps(writerSchema);
+    return projectedSchema;
+  }
+
   /// Builds an Avro schema from a Pinot schema, one non-nullable field per [FieldSpec] in schema order.
   ///
   /// Field types come from [AvroSchemaUtil#toAvroSchema(FieldSpec)], which maps the **original (logical)** Pinot data
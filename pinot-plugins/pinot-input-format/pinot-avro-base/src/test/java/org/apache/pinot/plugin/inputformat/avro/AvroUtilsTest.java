@@ -20,7 +20,9 @@ package org.apache.pinot.plugin.inputformat.avro;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.apache.avro.LogicalType;
@@ -36,6 +38,7 @@ import org.testng.collections.Lists;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 
 public class AvroUtilsTest {
@@ -270,4 +273,24 @@ public class AvroUtilsTest {
     assertEquals(fieldSchema.getElementType().getType(), org.apache.avro.Schema.Type.STRING);
     assertEquals(fieldSchema.getElementType().getLogicalType().getName(), "uuid");
   }
+
+  @Test
+  public void testGetProjectedSchema()
+      throws IOException {
+    org.apache.avro.Schema avroSchema =
+        new org.apache.avro.Schema.Parser().parse(ClassLoader.getSystemResourceAsStream(AVRO_SCHEMA));
+    org.apache.avro.Schema projectedSchema = AvroUtils.getProjectedSchema(avroSchema, Set.of("m1", "d1", "missing"));
+    assertEquals(projectedSchema.getFullName(), avroSchema.getFullName());
+    assertEquals(projectedSchema.getFields().size(), 2);
+    // Projected fields keep the writer order and schema
+    assertEquals(projectedSchema.getFields().get(0).name(), "d1");
+    assertEquals(projectedSchema.getFields().get(1).name(), "m1");
+    assertEquals(projectedSchema.getField("m1").schema(), avroSchema.getField("m1").schema());
+    assertNull(projectedSchema.getField("d2"));
+
+    // All fields projected
+    Set<String> allFields = new HashSet<>();
+    avroSchema.getFields().forEach(field -> allFields.add(field.name()));
+    assertSame(AvroUtils.getProjectedSchema(avroSchema, allFields), avroSchema);
+  }
 }
@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -51,6 +52,10 @@ import org.slf4j.LoggerFactory;
 
 
 /// An implementation of StreamMessageDecoder to read avro from a Kafka stream
+///
+/// With the default record extractor, only the fields to read are materialized and the other fields of the message are
+/// skipped (see [AvroUtils#getProjectedSchema]).
+///
 /// NOTE: Do not use schema in the implementation, as schema will be removed from the params
 @NotThreadSafe
 public class KafkaAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
@@ -71,6 +76,10 @@ public class KafkaAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
 
   private DecoderFactory _decoderFactory;
   private RecordExtractor<GenericData.Record> _avroRecordExtractor;
+  // Fields to project out of the writer schemas, or null to read all the fields
+  private Set<String> _fieldsToProject;
+  // Datum readers keyed by writer schema, which are the shared instances from the schema caches
+  private final Map<Schema, DatumReader<Record>> _datumReaders = new IdentityHashMap<>();
 
   private static final int MAGIC_BYTE_LENGTH = 1;
   private static final int SCHEMA_HASH_LENGTH = 16;
@@ -123,6 +132,12 @@ public class KafkaAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
     }
     _avroRecordExtractor = PluginManager.get().createInstance(recordExtractorClass);
     _avroRecordExtractor.init(fieldsToRead, config);
+    // Same as SimpleAvroMessageDecoder, only project the fields to read for the exact default extractor class so that a
+    // configured extractor or subclass can still read any field
+    if (fieldsToRead != null && !fieldsToRead.isEmpty()
+        && _avroRecordExtractor.getClass() == AvroRecordExtractor.class) {
+      _fieldsToProject = fieldsToRead;
+    }
     _decoderFactory = new DecoderFactory();
     _hashToSchemaMap = new HashToSchemaMap();
   }
@@ -172,7 +187,7 @@ public class KafkaAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
         }
       }
     }
-    DatumReader<Record> reader = new GenericDatumReader<>(schema);
+    DatumReader<Record> reader = _datumReaders.computeIfAbsent(schema, this::createDatumReader);
     try {
       GenericData.Record avroRecord = reader.read(null,
           _decoderFactory.binaryDecoder(payload, HEADER_LENGTH + offset, length - HEADER_LENGTH, null));
@@ -184,6 +199,13 @@ public class KafkaAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
     }
   }
 
+  private DatumReader<Record> createDatumReader(@Nullable Schema writerSchema) {
+    if (_fieldsToProject != null && writerSchema != null && writerSchema.getType() == Schema.Type.RECORD) {
+      return new GenericDatumReader<>(writerSchema, AvroUtils.getProjectedSchema(writerSchema, _fieldsToProject));
+    }
+    return new GenericDatumReader<>(writerSchema);
+  }
+
   private String hex(byte[] bytes) {
     StringBuilder builder = new StringBuilder(2 * bytes.length);
     for (byte aByte : bytes) {
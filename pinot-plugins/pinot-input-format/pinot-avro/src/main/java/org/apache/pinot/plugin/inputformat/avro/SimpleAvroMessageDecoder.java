@@ -35,6 +35,10 @@ import org.apache.pinot.spi.stream.StreamMessageDecoder;
 
 
 /// An implementation of StreamMessageDecoder to read simple avro records from stream
+///
+/// With the default record extractor, only the fields to read are materialized and the other fields of the message are
+/// skipped (see [AvroUtils#getProjectedSchema]).
+///
 /// NOTE: Do not use schema in the implementation, as schema will be removed from the params
 @NotThreadSafe
 public class SimpleAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
@@ -53,7 +57,6 @@ public class SimpleAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
       throws Exception {
     Preconditions.checkState(props.containsKey(SCHEMA), "Avro schema must be provided");
     _avroSchema = new org.apache.avro.Schema.Parser().parse(props.get(SCHEMA));
-    _datumReader = new GenericDatumReader<>(_avroSchema);
 
     // Optional: Strip leading header bytes before decoding (e.g., magic byte + schema id)
     String leadingBytes = props.get(LEADING_BYTES_TO_STRIP);
@@ -80,6 +83,16 @@ public class SimpleAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
     }
     _avroRecordExtractor = PluginManager.get().createInstance(recordExtractorClass);
     _avroRecordExtractor.init(fieldsToRead, config);
+
+    // The default extractor only reads the fields to read, so the other fields can be skipped while decoding instead
+    // of being materialized into the Avro record. Require the exact default class so that a configured extractor or
+    // subclass can still read any field.
+    if (fieldsToRead != null && !fieldsToRead.isEmpty()
+        && _avroRecordExtractor.getClass() == AvroRecordExtractor.class) {
+      _datumReader = new GenericDatumReader<>(_avroSchema, AvroUtils.getProjectedSchema(_avroSchema, fieldsToRead));
+    } else {
+      _datumReader = new GenericDatumReader<>(_avroSchema);
+    }
   }
 
   /// {@inheritDoc}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.plugin.inputformat.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class KafkaAvroMessageDecoderTest {
+  private static final File SCHEMA_FILE =
+      new File(FileUtils.getTempDirectory(), "KafkaAvroMessageDecoderTest-" + System.currentTimeMillis() + ".avsc");
+
+  private byte[] _payload;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    Schema schema = Schema.createRecord("TestRecord", null, null, false, List.of(
+        new Schema.Field("id", Schema.create(Schema.Type.INT)),
+        new Schema.Field("name", Schema.create(Schema.Type.STRING)),
+        new Schema.Field("description", Schema.create(Schema.Type.STRING))));
+    FileUtils.writeStringToFile(SCHEMA_FILE, schema.toString(), StandardCharsets.UTF_8);
+
+    GenericData.Record record = new GenericData.Record(schema);
+    record.put("id", 42);
+    record.put("name", "alice");
+    record.put("description", "skipped");
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    // Magic byte followed by the 16 bytes schema hash
+    outputStream.write(new byte[17]);
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+    new GenericDatumWriter<GenericData.Record>(schema).write(record, encoder);
+    encoder.flush();
+    _payload = outputStream.toByteArray();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(SCHEMA_FILE);
+  }
+
+  @Test
+  public void testDecodeProjectedFields()
+      throws Exception {
+    KafkaAvroMessageDecoder decoder = new KafkaAvroMessageDecoder() {
+      @Override
+      protected URL makeRandomUrl(String reference)
+          throws MalformedURLException {
+        // Serve every schema lookup from the local schema file
+        return SCHEMA_FILE.toURI().toURL();
+      }
+    };
+    decoder.init(Map.of("schema.registry.rest.url", "unused"), Set.of("name", "missing"), "testTopic");
+    GenericRow row = new GenericRow();
+    // Decode twice to cover the cached datum reader
+    for (int i = 0; i < 2; i++) {
+      row.clear();
+      decoder.decode(_payload, row);
+      Assert.assertEquals(row.getFieldToValueMap(), Map.of("name", "alice"));
+    }
+  }
+}
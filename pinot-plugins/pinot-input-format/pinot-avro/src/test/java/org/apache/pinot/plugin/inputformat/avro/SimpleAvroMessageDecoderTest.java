@@ -133,4 +133,18 @@ public class SimpleAvroMessageDecoderTest {
     Assert.assertEquals(row.getValue("id"), 42);
     Assert.assertEquals(row.getValue("name"), "alice");
   }
+
+  @Test
+  public void testDecodeProjectedFields()
+      throws Exception {
+    SimpleAvroMessageDecoder decoder = new SimpleAvroMessageDecoder();
+    decoder.init(baseProps(), Set.of("name", "missing"), "topic");
+    GenericRow row = new GenericRow();
+    // Decode twice to cover the reused Avro record
+    for (int i = 0; i < 2; i++) {
+      row.clear();
+      decoder.decode(_encodedRecord, row);
+      Assert.assertEquals(row.getFieldToValueMap(), Map.of("name", "alice"));
+    }
+  }
 }
@@ -19,15 +19,18 @@
 package org.apache.pinot.plugin.inputformat.avro.confluent;
 
 import com.google.common.base.Preconditions;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
 import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
 import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
 import io.confluent.kafka.schemaregistry.client.rest.RestService;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData.Record;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.SslConfigs;
@@ -36,6 +39,7 @@ import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.security.ssl.DefaultSslEngineFactory;
 import org.apache.pinot.plugin.inputformat.avro.AvroRecordExtractor;
 import org.apache.pinot.plugin.inputformat.avro.AvroRecordExtractorConfig;
+import org.apache.pinot.plugin.inputformat.avro.AvroUtils;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.data.readers.RecordExtractor;
 import org.apache.pinot.spi.plugin.PluginManager;
@@ -48,14 +52,25 @@ import static com.google.common.base.Preconditions.checkState;
 
 /// Decodes avro messages with confluent schema registry.
 /// First byte is MAGIC = 0, second 4 bytes are the schema id, the remainder is the value.
+///
+/// Only the fields to read are materialized and the other fields of the message are skipped (see
+/// [AvroUtils#getProjectedSchema]).
+///
 /// NOTE: Do not use schema in the implementation, as schema will be removed from the params
 public class KafkaConfluentSchemaRegistryAvroMessageDecoder implements StreamMessageDecoder<byte[]> {
   private static final Logger LOGGER = LoggerFactory.getLogger(KafkaConfluentSchemaRegistryAvroMessageDecoder.class);
   private static final String SCHEMA_REGISTRY_REST_URL = "schema.registry.rest.url";
   private static final String SCHEMA_REGISTRY_OPTS_PREFIX = "schema.registry.";
+  private static final byte MAGIC_BYTE = 0;
+  private static final int HEADER_LENGTH = 5;
+  private SchemaRegistryClient _schemaRegistryClient;
   private KafkaAvroDeserializer _deserializer;
   private RecordExtractor<Record> _avroRecordExtractor;
   private String _topicName;
+  // Fields to project out of the writer schemas, or null to read all the fields
+  private Set<String> _fieldsToProject;
+  // Reader schemas keyed by writer schema id
+  private final Map<Integer, Schema> _readerSchemas = new HashMap<>();
 
   public RestService createRestService(String schemaRegistryUrl, Map<String, String> configs) {
     RestService restService = new RestService(schemaRegistryUrl);
@@ -92,23 +107,27 @@ public class KafkaConfluentSchemaRegistryAvroMessageDecoder implements StreamMes
       throws Exception {
     checkState(props.containsKey(SCHEMA_REGISTRY_REST_URL), "Missing required property '%s'", SCHEMA_REGISTRY_REST_URL);
     String schemaRegistryUrl = props.get(SCHEMA_REGISTRY_REST_URL);
-    SchemaRegistryClient schemaRegistryClient =
-        new CachedSchemaRegistryClient(createRestService(schemaRegistryUrl, props), 1000, props);
+    _schemaRegistryClient = new CachedSchemaRegistryClient(createRestService(schemaRegistryUrl, props), 1000, props);
 
-    _deserializer = new KafkaAvroDeserializer(schemaRegistryClient);
+    _deserializer = new KafkaAvroDeserializer(_schemaRegistryClient);
     Preconditions.checkNotNull(topicName, "Topic must be provided");
     _topicName = topicName;
     AvroRecordExtractorConfig config = new AvroRecordExtractorConfig();
     config.init(props);
     _avroRecordExtractor = PluginManager.get().createInstance(AvroRecordExtractor.class.getName());
     _avroRecordExtractor.init(fieldsToRead, config);
+    if (fieldsToRead != null && !fieldsToRead.isEmpty()) {
+      _fieldsToProject = fieldsToRead;
+    }
   }
 
   @Nullable
   @Override
   public GenericRow decode(byte[] payload, GenericRow destination) {
     try {
-      Record avroRecord = (Record) _deserializer.deserialize(_topicName, payload);
+      Schema readerSchema = getReaderSchema(payload);
+      Record avroRecord = readerSchema != null ? (Record) _deserializer.deserialize(_topicName, payload, readerSchema)
+          : (Record) _deserializer.deserialize(_topicName, payload);
       return _avroRecordExtractor.extract(avroRecord, destination);
     } catch (RuntimeException e) {
       ignoreOrRethrowException(e);
@@ -125,6 +144,31 @@ public class KafkaConfluentSchemaRegistryAvroMessageDecoder implements StreamMes
     return decode(payload, destination);
   }
 
+  /// Returns the reader schema projecting the fields to read out of the writer schema of the message, or `null` to read
+  /// the message with its writer schema. Messages without the magic byte are left to the deserializer to reject.
+  @Nullable
+  private Schema getReaderSchema(byte[] payload) {
+    if (_fieldsToProject == null || payload == null || payload.length < HEADER_LENGTH || payload[0] != MAGIC_BYTE) {
+      return null;
+    }
+    int schemaId = ByteBuffer.wrap(payload, 1, Integer.BYTES).getInt();
+    Schema readerSchema = _readerSchemas.get(schemaId);
+    if (readerSchema == null && !_readerSchemas.containsKey(schemaId)) {
+      ParsedSchema writerSchema;
+      try {
+        writerSchema = _schemaRegistryClient.getSchemaById(schemaId);
+      } catch (Exception e) {
+        throw new SerializationException("Error retrieving Avro schema for id " + schemaId, e);
+      }
+      Object rawSchema = writerSchema.rawSchema();
+      if (rawSchema instanceof Schema && ((Schema) rawSchema).getType() == Schema.Type.RECORD) {
+        readerSchema = AvroUtils.getProjectedSchema((Schema) rawSchema, _fieldsToProject);
+      }
+      _readerSchemas.put(schemaId, readerSchema);
+    }
+    return readerSchema;
+  }
+
   /// This method handles specific serialisation exceptions. If the exception cannot be ignored the method
   /// re-throws the exception.
   ///
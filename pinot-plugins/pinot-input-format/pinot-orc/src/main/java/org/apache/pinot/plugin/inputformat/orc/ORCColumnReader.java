@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.plugin.inputformat.orc;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.Reader;
+import org.apache.orc.StripeInformation;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.TypeUtils;
+import org.apache.pinot.spi.data.readers.BaseBatchedColumnReader;
+import org.apache.pinot.spi.utils.PinotDataType;
+
+
+/// [org.apache.pinot.spi.data.readers.ColumnReader] over one top-level field of an ORC file, decoding one stripe at
+/// a time. Only the streams of the field are read from each stripe.
+///
+/// Integral and floating point fields are copied from the ORC column vectors into primitive buffers without boxing.
+/// Other fields are converted by [ORCRecordExtractor], so every column produces the same values as the row-major
+/// [ORCRecordReader].
+///
+/// This class is not thread-safe, but different column readers of the same [ORCColumnReaderFactory] can be read
+/// concurrently.
+@SuppressWarnings("serial")
+public class ORCColumnReader extends BaseBatchedColumnReader {
+  private final transient Reader _orcReader;
+  private final transient StripeInformation[] _stripes;
+  private final transient TypeDescription _fieldType;
+  private final int _fieldIndex;
+  private final int _numFields;
+  // Field ids to read (the root struct and the field, including its children)
+  private final boolean[] _include;
+
+  ORCColumnReader(Reader orcReader, StripeInformation[] stripes, long[] stripeNumRows, int fieldIndex) {
+    this(orcReader, stripes, stripeNumRows, fieldIndex, orcReader.getSchema().getChildren().get(fieldIndex));
+  }
+
+  private ORCColumnReader(Reader orcReader, StripeInformation[] stripes, long[] stripeNumRows, int fieldIndex,
+      TypeDescription fieldType) {
+    super(orcReader.getSchema().getFieldNames().get(fieldIndex), getValueType(fieldType), stripeNumRows);
+    _orcReader = orcReader;
+    _stripes = stripes;
+    _fieldType = fieldType;
+    _fieldIndex = fieldIndex;
+    TypeDescription schema = orcReader.getSchema();
+    _numFields = schema.getChildren().size();
+    _include = new boolean[schema.getMaximumId() + 1];
+    _include[schema.getId()] = true;
+    for (int id = fieldType.getId(); id <= fieldType.getMaximumId(); id++) {
+      _include[id] = true;
+    }
+  }
+
+  /// Returns the type of the values served by the typed accessors, or `null` if the field is served as objects.
+  @Nullable
+  private static PinotDataType getValueType(TypeDescription fieldType) {
+    switch (fieldType.getCategory()) {
+      case BYTE:
+      case SHORT:
+      case INT:
+        return PinotDataType.INT;
+      case LONG:
+        return PinotDataType.LONG;
+      case FLOAT:
+        return PinotDataType.FLOAT;
+      case DOUBLE:
+        return PinotDataType.DOUBLE;
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  protected void readBatch(int batchId, int numDocs)
+      throws IOException {
+    StripeInformation stripe = _stripes[batchId];
+    Reader.Options options =
+        new Reader.Options().include(_include).range(stripe.getOffset(), stripe.getLength());
+    // Only allocate the column vector of the field. The vectors of the other fields are left null, and are skipped by
+    // the ORC reader as their fields are not included.
+    VectorizedRowBatch rowBatch = new VectorizedRowBatch(_numFields);
+    rowBatch.cols[_fieldIndex] =
+        TypeUtils.createColumn(_fieldType, TypeDescription.RowBatchVersion.ORIGINAL, rowBatch.getMaxSize());
+    org.apache.orc.RecordReader recordReader;
+    // The file reader is shared by the column readers of the factory, which may be read concurrently
+    synchronized (_orcReader) {
+      recordReader = _orcReader.rows(options);
+    }
+    try {
+      int docId = 0;
+      while (docId < numDocs && recordReader.nextBatch(rowBatch)) {
+        ColumnVector columnVector = rowBatch.cols[_fieldIndex];
+        int numRows = Math.min(rowBatch.size, numDocs - docId);
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          readValue(columnVector, rowId, docId++);
+        }
+      }
+    } finally {
+      recordReader.close();
+    }
+  }
+
+  private void readValue(ColumnVector columnVector, int rowId, int docId) {
+    int valueRowId = columnVector.isRepeating ? 0 : rowId;
+    if (!columnVector.noNulls && columnVector.isNull[valueRowId]) {
+      _nulls[docId] = true;
+      return;
+    }
+    if (_valueType == null) {
+      _values[docId] = ORCRecordExtractor.extractValue(_columnName, columnVector, _fieldType, valueRowId);
+      return;
+    }
+    switch (_valueType) {
+      case INT:
+        _intValues[docId] = (int) ((LongColumnVector) columnVector).vector[valueRowId];
+        break;
+      case LONG:
+        _longValues[docId] = ((LongColumnVector) columnVector).vector[valueRowId];
+        break;
+      case FLOAT:
+        _floatValues[docId] = (float) ((DoubleColumnVector) columnVector).vector[valueRowId];
+        break;
+      case DOUBLE:
+        _doubleValues[docId] = ((DoubleColumnVector) columnVector).vector[valueRowId];
+        break;
+      default:
+        throw new IllegalStateException("Unsupported value type: " + _valueType);
+    }
+  }
+
+  @Override
+  public void close() {
+    // The ORC file reader is shared by all the column readers, and closed by the factory
+  }
+}
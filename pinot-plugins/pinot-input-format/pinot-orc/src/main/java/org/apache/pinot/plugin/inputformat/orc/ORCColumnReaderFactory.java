@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.plugin.inputformat.orc;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.StripeInformation;
+import org.apache.orc.TypeDescription;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.ColumnReader;
+import org.apache.pinot.spi.data.readers.ColumnReaderFactory;
+import org.apache.pinot.spi.data.readers.RecordReaderUtils;
+
+
+/// [ColumnReaderFactory] backed by an ORC file on disk, for the columnar segment build.
+///
+/// Each top-level field of the ORC schema is read by an [ORCColumnReader], which decodes the field of one stripe at a
+/// time, so that only the columns of the segment are read from the file, and at most one stripe of each column is
+/// resident. The factory opens and owns the ORC [Reader] shared by the column readers, and closes it on [#close].
+///
+/// [#getAvailableColumns()] reports the top-level fields of the ORC schema. [#getColumnReader(String)] returns `null`
+/// for a target-schema column that is not present in the file; supplying the default values of such columns is the
+/// columnar build driver's responsibility.
+///
+/// This class is not thread-safe. `@SuppressWarnings("serial")`: [ColumnReaderFactory] is [java.io.Serializable] by
+/// SPI contract, but this factory holds a non-serializable file reader and is never serialized.
+@SuppressWarnings("serial")
+public class ORCColumnReaderFactory implements ColumnReaderFactory {
+  private static final String EXTENSION = "orc";
+
+  private final File _dataFile;
+
+  private transient Reader _orcReader;
+  private transient Map<String, ColumnReader> _columnReaders;
+  private transient Set<String> _availableColumnNames;
+  private transient boolean _initialized;
+
+  /// Construct a factory reading from the given ORC file.
+  ///
+  /// @param dataFile Path to the ORC file (optionally gzipped) to read
+  public ORCColumnReaderFactory(File dataFile) {
+    _dataFile = dataFile;
+  }
+
+  @Override
+  public void init(Schema targetSchema)
+      throws IOException {
+    init(targetSchema, null, Map.of());
+  }
+
+  @Override
+  public void init(Schema targetSchema, Set<String> colsToRead)
+      throws IOException {
+    init(targetSchema, colsToRead, Map.of());
+  }
+
+  /// Initialise the factory. `colsToRead == null` or an empty set both mean "read all non-virtual columns from
+  /// `targetSchema` that the ORC file actually contains"; pass a non-empty set to restrict to a subset.
+  @Override
+  public void init(Schema targetSchema, @Nullable Set<String> colsToRead, Map<String, String> configs)
+      throws IOException {
+    if (_orcReader != null) {
+      close();
+    }
+    try {
+      Configuration configuration = new Configuration();
+      File orcFile = RecordReaderUtils.unpackIfRequired(_dataFile, EXTENSION);
+      _orcReader = OrcFile.createReader(new Path(orcFile.getAbsolutePath()),
+          OrcFile.readerOptions(configuration).filesystem(FileSystem.getLocal(configuration)));
+      TypeDescription orcSchema = _orcReader.getSchema();
+      Preconditions.checkState(orcSchema.getCategory() == TypeDescription.Category.STRUCT,
+          "ORC schema must be of type: STRUCT");
+
+      List<StripeInformation> stripes = _orcReader.getStripes();
+      int numStripes = stripes.size();
+      long[] stripeNumRows = new long[numStripes];
+      for (int i = 0; i < numStripes; i++) {
+        stripeNumRows[i] = stripes.get(i).getNumberOfRows();
+      }
+      StripeInformation[] stripeArray = stripes.toArray(new StripeInformation[0]);
+
+      List<String> orcFields = orcSchema.getFieldNames();
+      _availableColumnNames = Collections.unmodifiableSet(new LinkedHashSet<>(orcFields));
+      Set<String> wantedColumns = computeWantedColumns(targetSchema, colsToRead);
+      Map<String, ColumnReader> columnReaders = new LinkedHashMap<>();
+      int numOrcFields = orcFields.size();
+      for (int i = 0; i < numOrcFields; i++) {
+        String name = orcFields.get(i);
+        if (wantedColumns.isEmpty() || wantedColumns.contains(name)) {
+          columnReaders.put(name, new ORCColumnReader(_orcReader, stripeArray, stripeNumRows, i));
+        }
+      }
+      _columnReaders = columnReaders;
+      _initialized = true;
+    } catch (RuntimeException | IOException e) {
+      // Callers typically do not close a factory whose init() failed, so release the file reader here
+      try {
+        close();
+      } catch (IOException closeFailure) {
+        e.addSuppressed(closeFailure);
+      }
+      throw e;
+    }
+  }
+
+  private static Set<String> computeWantedColumns(Schema targetSchema, @Nullable Set<String> colsToRead) {
+    if (colsToRead != null && !colsToRead.isEmpty()) {
+      return colsToRead;
+    }
+    Set<String> targetColumns = new HashSet<>();
+    for (FieldSpec fieldSpec : targetSchema.getAllFieldSpecs()) {
+      if (!fieldSpec.isVirtualColumn()) {
+        targetColumns.add(fieldSpec.getName());
+      }
+    }
+    return targetColumns;
+  }
+
+  @Override
+  public boolean supportsConcurrentColumnReads() {
+    // Each column reader opens its own ORC record reader for every stripe
+    return true;
+  }
+
+  @Override
+  public Set<String> getAvailableColumns() {
+    requireInitialized();
+    return _availableColumnNames;
+  }
+
+  @Override
+  @Nullable
+  public ColumnReader getColumnReader(String columnName) {
+    requireInitialized();
+    return _columnReaders.get(columnName);
+  }
+
+  @Override
+  public Map<String, ColumnReader> getAllColumnReaders() {
+    requireInitialized();
+    return Collections.unmodifiableMap(_columnReaders);
+  }
+
+  private void requireInitialized() {
+    if (!_initialized) {
+      throw new IllegalStateException("ORCColumnReaderFactory must be initialized before use");
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _columnReaders = null;
+    _availableColumnNames = null;
+    _initialized = false;
+    if (_orcReader != null) {
+      try {
+        _orcReader.close();
+      } finally {
+        _orcReader = null;
+      }
+    }
+  }
+}
@@ -124,7 +124,7 @@ public class ORCRecordExtractor extends BaseRecordExtractor<ORCRecordExtractor.R
   /// Extracts the value at `rowId` from `columnVector`, dispatching by `fieldType.getCategory()`. Recurses
   /// into [#extractValue] for nested complex types and falls through to [#extractSingleValue] for primitives.
   @Nullable
-  private static Object extractValue(String field, ColumnVector columnVector, TypeDescription fieldType, int rowId) {
+  static Object extractValue(String field, ColumnVector columnVector, TypeDescription fieldType, int rowId) {
     if (columnVector.isRepeating) {
       rowId = 0;
     }
@@ -20,6 +20,8 @@ package org.apache.pinot.plugin.inputformat.orc;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
@@ -30,10 +32,19 @@ import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.orc.OrcFile;
 import org.apache.orc.TypeDescription;
 import org.apache.orc.Writer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.AbstractRecordReaderTest;
+import org.apache.pinot.spi.data.readers.ColumnReader;
+import org.apache.pinot.spi.data.readers.ColumnReaderFactory;
 import org.apache.pinot.spi.data.readers.RecordReader;
+import org.apache.pinot.spi.utils.PinotDataType;
+import org.testng.annotations.Test;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 
 public class ORCRecordReaderTest extends AbstractRecordReaderTest {
@@ -143,6 +154,70 @@ public class ORCRecordReaderTest extends AbstractRecordReaderTest {
     writer.close();
   }
 
+  @Override
+  protected ColumnReaderFactory createColumnReaderFactory(File file) {
+    return new ORCColumnReaderFactory(file);
+  }
+
+  @Test
+  public void testColumnReaderAcrossStripes()
+      throws Exception {
+    File dataFile = new File(_tempDir, "stripes.orc");
+    TypeDescription schema = TypeDescription.fromString("struct<string_col:string,int_col:int,long_col:bigint>");
+    int numStripes = 3;
+    int numRowsPerStripe = 100;
+    try (Writer writer = OrcFile.createWriter(new Path(dataFile.getAbsolutePath()),
+        OrcFile.writerOptions(new Configuration()).setSchema(schema))) {
+      VectorizedRowBatch rowBatch = schema.createRowBatch();
+      BytesColumnVector stringVector = (BytesColumnVector) rowBatch.cols[0];
+      LongColumnVector intVector = (LongColumnVector) rowBatch.cols[1];
+      LongColumnVector longVector = (LongColumnVector) rowBatch.cols[2];
+      for (int stripeId = 0; stripeId < numStripes; stripeId++) {
+        for (int i = 0; i < numRowsPerStripe; i++) {
+          int docId = stripeId * numRowsPerStripe + i;
+          int rowId = rowBatch.size++;
+          stringVector.setVal(rowId, Integer.toString(docId).getBytes(UTF_8));
+          if (docId % 7 == 0) {
+            intVector.noNulls = false;
+            intVector.isNull[rowId] = true;
+          } else {
+            intVector.vector[rowId] = docId;
+          }
+          longVector.vector[rowId] = docId * 10L;
+        }
+        writer.addRowBatch(rowBatch);
+        rowBatch.reset();
+        // Flush the stripe
+        writer.writeIntermediateFooter();
+      }
+    }
+
+    Schema pinotSchema = new Schema.SchemaBuilder().addSingleValueDimension("int_col", DataType.INT)
+        .addSingleValueDimension("long_col", DataType.LONG).build();
+    try (ORCColumnReaderFactory factory = new ORCColumnReaderFactory(dataFile)) {
+      factory.init(pinotSchema);
+      assertEquals(factory.getAllColumnReaders().keySet(), Set.of("int_col", "long_col"));
+      ColumnReader intColumnReader = factory.getColumnReader("int_col");
+      ColumnReader longColumnReader = factory.getColumnReader("long_col");
+      int numDocs = numStripes * numRowsPerStripe;
+      assertEquals(intColumnReader.getTotalDocs(), numDocs);
+      assertEquals(intColumnReader.getValueType(), PinotDataType.INT);
+      assertEquals(longColumnReader.getValueType(), PinotDataType.LONG);
+      // Read the stripes backwards to cover random access across stripes
+      for (int docId = numDocs - 1; docId >= 0; docId--) {
+        if (docId % 7 == 0) {
+          assertTrue(intColumnReader.isNull(docId));
+        } else {
+          assertFalse(intColumnReader.isNull(docId));
+          assertEquals(intColumnReader.getInt(docId), docId);
+        }
+        assertEquals(longColumnReader.getLong(docId), docId * 10L);
+      }
+    } finally {
+      FileUtils.deleteQuietly(dataFile);
+    }
+  }
+
   @Override
   protected String getDataFileName() {
     return "data.orc";
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.plugin.inputformat.parquet;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.pinot.spi.data.readers.BaseBatchedColumnReader;
+import org.apache.pinot.spi.utils.PinotDataType;
+
+
+/// [org.apache.pinot.spi.data.readers.ColumnReader] over one top-level column of a Parquet file, decoding one row
+/// group at a time. Only the column chunk of the column is read from each row group.
+///
+/// Non-repeated primitive columns with a plain numeric, string, bytes or binary decimal type are decoded directly from
+/// the column chunk pages, numeric values into primitive buffers without boxing. Other columns (e.g. LIST, MAP,
+/// struct, temporal types) are assembled with the projected record reader and converted by
+/// [ParquetNativeRecordExtractor], so every column produces the same values as the row-major
+/// [ParquetNativeRecordReader].
+///
+/// This class is not thread-safe, and shares the file reader with the other column readers of the
+/// [ParquetColumnReaderFactory].
+@SuppressWarnings("serial")
+public class ParquetColumnReader extends BaseBatchedColumnReader {
+  private final transient ParquetFileReader _fileReader;
+  private final transient ParquetNativeRecordExtractor _recordExtractor;
+  private final transient MessageType _projection;
+  private final transient Type _fieldType;
+  // Whether the column is decoded directly from the column chunk instead of being assembled as records
+  private final boolean _readColumnChunk;
+
+  ParquetColumnReader(ParquetFileReader fileReader, ParquetNativeRecordExtractor recordExtractor, MessageType schema,
+      String columnName, long[] rowGroupNumRows) {
+    this(fileReader, recordExtractor, schema.getName(), schema.getType(columnName), rowGroupNumRows);
+  }
+
+  private ParquetColumnReader(ParquetFileReader fileReader, ParquetNativeRecordExtractor recordExtractor,
+      String schemaName, Type fieldType, long[] rowGroupNumRows) {
+    super(fieldType.getName(), getValueType(fieldType), rowGroupNumRows);
+    _fileReader = fileReader;
+    _recordExtractor = recordExtractor;
+    _projection = new MessageType(schemaName, fieldType);
+    _fieldType = fieldType;
+    _readColumnChunk = fieldType.isPrimitive() && !fieldType.isRepetition(Type.Repetition.REPEATED) && (
+        _valueType != null || getValueType(fieldType) == null && isBinary(fieldType.asPrimitiveType()));
+  }
+
+  /// Returns the type of the values which can be read from the column chunk directly and served by the typed
+  /// accessors, or `null` if the column is served as objects.
+  @Nullable
+  private static PinotDataType getValueType(Type fieldType) {
+    if (!fieldType.isPrimitive() || fieldType.isRepetition(Type.Repetition.REPEATED)) {
+      return null;
+    }
+    LogicalTypeAnnotation logicalTypeAnnotation = fieldType.getLogicalTypeAnnotation();
+    boolean isPlain = logicalTypeAnnotation == null
+        || logicalTypeAnnotation instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation;
+    switch (fieldType.asPrimitiveType().getPrimitiveTypeName()) {
+      case INT32:
+        return isPlain ? PinotDataType.INT : null;
+      case INT64:
+        return isPlain ? PinotDataType.LONG : null;
+      case FLOAT:
+        return PinotDataType.FLOAT;
+      case DOUBLE:
+        return PinotDataType.DOUBLE;
+      case BINARY:
+      case FIXED_LEN_BYTE_ARRAY:
+        if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation
+            || logicalTypeAnnotation instanceof LogicalTypeAnnotation.EnumLogicalTypeAnnotation) {
+          return PinotDataType.STRING;
+        }
+        if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) {
+          return PinotDataType.BIG_DECIMAL;
+        }
+        return logicalTypeAnnotation == null ? PinotDataType.BYTES : null;
+      default:
+        return null;
+    }
+  }
+
+  private static boolean isBinary(PrimitiveType primitiveType) {
+    PrimitiveType.PrimitiveTypeName primitiveTypeName = primitiveType.getPrimitiveTypeName();
+    return primitiveTypeName == PrimitiveType.PrimitiveTypeName.BINARY
+        || primitiveTypeName == PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+  }
+
+  @Override
+  protected void readBatch(int batchId, int numDocs)
+      throws IOException {
+    _fileReader.setRequestedSchema(_projection);
+    PageReadStore rowGroup = _fileReader.readRowGroup(batchId);
+    if (_readColumnChunk) {
+      readColumnChunk(rowGroup, numDocs);
+    } else {
+      readRecords(rowGroup, numDocs);
+    }
+  }
+
+  private void readColumnChunk(PageReadStore rowGroup, int numDocs) {
+    ColumnDescriptor columnDescriptor = _projection.getColumns().get(0);
+    ColumnReadStoreImpl columnReadStore =
+        new ColumnReadStoreImpl(rowGroup, new GroupRecordConverter(_projection).getRootConverter(), _projection,
+            _fileReader.getFooter().getFileMetaData().getCreatedBy());
+    org.apache.parquet.column.ColumnReader columnReader = columnReadStore.getColumnReader(columnDescriptor);
+    int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+    PrimitiveType.PrimitiveTypeName primitiveTypeName = columnDescriptor.getPrimitiveType().getPrimitiveTypeName();
+    LogicalTypeAnnotation logicalTypeAnnotation = _fieldType.getLogicalTypeAnnotation();
+    for (int i = 0; i < numDocs; i++) {
+      if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+        _nulls[i] = true;
+      } else {
+        switch (primitiveTypeName) {
+          case INT32:
+            _intValues[i] = columnReader.getInteger();
+            break;
+          case INT64:
+            _longValues[i] = columnReader.getLong();
+            break;
+          case FLOAT:
+            _floatValues[i] = columnReader.getFloat();
+            break;
+          case DOUBLE:
+            _doubleValues[i] = columnReader.getDouble();
+            break;
+          default:
+            _values[i] = ParquetNativeRecordExtractor.extractBinaryValue(columnReader.getBinary(),
+                logicalTypeAnnotation);
+            break;
+        }
+      }
+      columnReader.consume();
+    }
+  }
+
+  private void readRecords(PageReadStore rowGroup, int numDocs) {
+    RecordReader<Group> recordReader =
+        new ColumnIOFactory().getColumnIO(_projection).getRecordReader(rowGroup, new GroupRecordConverter(_projection));
+    for (int i = 0; i < numDocs; i++) {
+      Object value = _recordExtractor.extractValue(recordReader.read(), 0);
+      if (value != null) {
+        _values[i] = value;
+      } else {
+        _nulls[i] = true;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    // The file reader is shared by all the column readers, and closed by the factory
+  }
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.plugin.inputformat.parquet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.ColumnReader;
+import org.apache.pinot.spi.data.readers.ColumnReaderFactory;
+import org.apache.pinot.spi.data.readers.RecordReaderUtils;
+
+
+/// [ColumnReaderFactory] backed by a Parquet file on disk, for the columnar segment build.
+///
+/// Each top-level field of the Parquet schema is read by a [ParquetColumnReader], which decodes the column chunk of
+/// one row group at a time, so that only the columns of the segment are read from the file, and at most one row group
+/// of each column is resident. The factory opens and owns the [ParquetFileReader] shared by the column readers, and
+/// closes it on [#close].
+///
+/// [#getAvailableColumns()] reports the top-level fields of the Parquet schema. [#getColumnReader(String)] returns
+/// `null` for a target-schema column that is not present in the file; supplying the default values of such columns
+/// is the columnar build driver's responsibility.
+///
+/// This class is not thread-safe. `@SuppressWarnings("serial")`: [ColumnReaderFactory] is [java.io.Serializable] by
+/// SPI contract, but this factory holds a non-serializable file reader and is never serialized.
+@SuppressWarnings("serial")
+public class ParquetColumnReaderFactory implements ColumnReaderFactory {
+  private static final String EXTENSION = "parquet";
+
+  /// Config key (mirrors [ParquetNativeRecordExtractorConfig#EXTRACT_RAW_TIME_VALUES] on the row-major path): when
+  /// `true`, temporal columns surface raw epoch values rather than canonical JDK types.
+  public static final String CONFIG_EXTRACT_RAW_TIME_VALUES =
+      ParquetNativeRecordExtractorConfig.EXTRACT_RAW_TIME_VALUES;
+
+  private final File _dataFile;
+
+  private transient ParquetFileReader _fileReader;
+  private transient Map<String, ColumnReader> _columnReaders;
+  private transient Set<String> _availableColumnNames;
+  private transient boolean _initialized;
+
+  /// Construct a factory reading from the given Parquet file.
+  ///
+  /// @param dataFile Path to the Parquet file (optionally gzipped) to read
+  public ParquetColumnReaderFactory(File dataFile) {
+    _dataFile = dataFile;
+  }
+
+  @Override
+  public void init(Schema targetSchema)
+      throws IOException {
+    init(targetSchema, null, Map.of());
+  }
+
+  @Override
+  public void init(Schema targetSchema, Set<String> colsToRead)
+      throws IOException {
+    init(targetSchema, colsToRead, Map.of());
+  }
+
+  /// Initialise the factory. `colsToRead == null` or an empty set both mean "read all non-virtual columns from
+  /// `targetSchema` that the Parquet file actually contains"; pass a non-empty set to restrict to a subset.
+  @Override
+  public void init(Schema targetSchema, @Nullable Set<String> colsToRead, Map<String, String> configs)
+      throws IOException {
+    if (_fileReader != null) {
+      close();
+    }
+    try {
+      File parquetFile = RecordReaderUtils.unpackIfRequired(_dataFile, EXTENSION);
+      ParquetReadOptions readOptions =
+          ParquetReadOptions.builder().withMetadataFilter(ParquetMetadataConverter.NO_FILTER).build();
+      _fileReader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(parquetFile.getAbsolutePath()),
+          ParquetUtils.getParquetHadoopConfiguration()), readOptions);
+
+      ParquetNativeRecordExtractorConfig extractorConfig = new ParquetNativeRecordExtractorConfig();
+      extractorConfig.setExtractRawTimeValues(
+          configs != null && Boolean.parseBoolean(configs.get(CONFIG_EXTRACT_RAW_TIME_VALUES)));
+      ParquetNativeRecordExtractor recordExtractor = new ParquetNativeRecordExtractor();
+      recordExtractor.init(null, extractorConfig);
+
+      List<BlockMetaData> rowGroups = _fileReader.getFooter().getBlocks();
+      long[] rowGroupNumRows = new long[rowGroups.size()];
+      for (int i = 0; i < rowGroupNumRows.length; i++) {
+        rowGroupNumRows[i] = rowGroups.get(i).getRowCount();
+      }
+
+      MessageType schema = _fileReader.getFooter().getFileMetaData().getSchema();
+      Set<String> availableColumnNames = new LinkedHashSet<>();
+      for (Type field : schema.getFields()) {
+        availableColumnNames.add(field.getName());
+      }
+      _availableColumnNames = Collections.unmodifiableSet(availableColumnNames);
+      Set<String> wantedColumns = computeWantedColumns(targetSchema, colsToRead);
+      Map<String, ColumnReader> columnReaders = new LinkedHashMap<>();
+      for (String name : availableColumnNames) {
+        if (wantedColumns.isEmpty() || wantedColumns.contains(name)) {
+          columnReaders.put(name,
+              new ParquetColumnReader(_fileReader, recordExtractor, schema, name, rowGroupNumRows));
+        }
+      }
+      _columnReaders = columnReaders;
+      _initialized = true;
+    } catch (RuntimeException | IOException e) {
+      // Callers typically do not close a factory whose init() failed, so release the file reader here
+      try {
+        close();
+      } catch (IOException closeFailure) {
+        e.addSuppressed(closeFailure);
+      }
+      throw e;
+    }
+  }
+
+  private static Set<String> computeWantedColumns(Schema targetSchema, @Nullable Set<String> colsToRead) {
+    if (colsToRead != null && !colsToRead.isEmpty()) {
+      return colsToRead;
+    }
+    Set<String> targetColumns = new HashSet<>();
+    for (FieldSpec fieldSpec : targetSchema.getAllFieldSpecs()) {
+      if (!fieldSpec.isVirtualColumn()) {
+        targetColumns.add(fieldSpec.getName());
+      }
+    }
+    return targetColumns;
+  }
+
+  @Override
+  public Set<String> getAvailableColumns() {
+    requireInitialized();
+    return _availableColumnNames;
+  }
+
+  @Override
+  @Nullable
+  public ColumnReader getColumnReader(String columnName) {
+    requireInitialized();
+    return _columnReaders.get(columnName);
+  }
+
+  @Override
+  public Map<String, ColumnReader> getAllColumnReaders() {
+    requireInitialized();
+    return Collections.unmodifiableMap(_columnReaders);
+  }
+
+  private void requireInitialized() {
+    if (!_initialized) {
+      throw new IllegalStateException("ParquetColumnReaderFactory must be initialized before use");
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _columnReaders = null;
+    _availableColumnNames = null;
+    _initialized = false;
+    if (_fileReader != null) {
+      try {
+        _fileReader.close();
+      } finally {
+        _fileReader = null;
+      }
+    }
+  }
+}
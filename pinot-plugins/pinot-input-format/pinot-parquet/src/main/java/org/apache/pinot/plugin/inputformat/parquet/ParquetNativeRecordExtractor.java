@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.parquet.example.data.Group;
+import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.GroupType;
 import org.apache.parquet.schema.LogicalTypeAnnotation;
 import org.apache.parquet.schema.PrimitiveType;
@@ -97,7 +98,7 @@ public class ParquetNativeRecordExtractor extends BaseRecordExtractor<Group> {
   }
 
   @Nullable
-  private Object extractValue(Group from, int fieldIndex) {
+  Object extractValue(Group from, int fieldIndex) {
     int numValues = from.getFieldRepetitionCount(fieldIndex);
     Type fieldType = from.getType().getType(fieldIndex);
     // REPEATED fields are always multi-valued — even when 0 or 1 occurrences are present, the contract is
@@ -183,22 +184,7 @@ public class ParquetNativeRecordExtractor extends BaseRecordExtractor<Group> {
           return from.getDouble(fieldIndex, index);
         case BINARY:
         case FIXED_LEN_BYTE_ARRAY:
-          if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation
-              || logicalTypeAnnotation instanceof LogicalTypeAnnotation.EnumLogicalTypeAnnotation) {
-            return from.getValueToString(fieldIndex, index);
-          }
-          byte[] binaryBytes = from.getBinary(fieldIndex, index).getBytes();
-          if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) {
-            return new BigDecimal(new BigInteger(binaryBytes),
-                ((LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) logicalTypeAnnotation).getScale());
-          }
-          if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.UUIDLogicalTypeAnnotation) {
-            // `FIXED_LEN_BYTE_ARRAY(16) + UUID` → [UUID] (always converted; the downstream type
-            // transformer adapts to the Pinot column's storage type). UUID wire bytes are big-endian
-            // per RFC 4122.
-            return UuidUtils.toUUID(binaryBytes);
-          }
-          return binaryBytes;
+          return extractBinaryValue(from.getBinary(fieldIndex, index), logicalTypeAnnotation);
         default:
           throw new IllegalArgumentException(
               String.format("Unsupported field type: %s, primitive type: %s, logical type: %s", fieldType,
@@ -215,6 +201,26 @@ public class ParquetNativeRecordExtractor extends BaseRecordExtractor<Group> {
     return extractStruct(group);
   }
 
+  /// Converts a `BINARY` / `FIXED_LEN_BYTE_ARRAY` value based on its logical type.
+  static Object extractBinaryValue(Binary binary, @Nullable LogicalTypeAnnotation logicalTypeAnnotation) {
+    if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation
+        || logicalTypeAnnotation instanceof LogicalTypeAnnotation.EnumLogicalTypeAnnotation) {
+      return binary.toStringUsingUTF8();
+    }
+    byte[] binaryBytes = binary.getBytes();
+    if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) {
+      return new BigDecimal(new BigInteger(binaryBytes),
+          ((LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) logicalTypeAnnotation).getScale());
+    }
+    if (logicalTypeAnnotation instanceof LogicalTypeAnnotation.UUIDLogicalTypeAnnotation) {
+      // `FIXED_LEN_BYTE_ARRAY(16) + UUID` → [UUID] (always converted; the downstream type
+      // transformer adapts to the Pinot column's storage type). UUID wire bytes are big-endian
+      // per RFC 4122.
+      return UuidUtils.toUUID(binaryBytes);
+    }
+    return binaryBytes;
+  }
+
   private Object[] extractList(Group group) {
     // Group is annotated with LIST. Per the Parquet LogicalTypes spec it always has exactly one child, the
     // repeated wrapper. The wrapper's schema (not the row data) decides which encoding we are reading, so we
@@ -23,14 +23,28 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetWriter;
 import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.io.OutputFile;
 import org.apache.pinot.plugin.inputformat.avro.AvroUtils;
 import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.readers.AbstractRecordReaderTest;
+import org.apache.pinot.spi.data.readers.ColumnReader;
+import org.apache.pinot.spi.data.readers.ColumnReaderFactory;
 import org.apache.pinot.spi.data.readers.RecordReader;
+import org.apache.pinot.spi.utils.PinotDataType;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 
 public class ParquetNativeRecordReaderTest extends AbstractRecordReaderTest {
@@ -63,6 +77,59 @@ public class ParquetNativeRecordReaderTest extends AbstractRecordReaderTest {
     }
   }
 
+  @Override
+  protected ColumnReaderFactory createColumnReaderFactory(File file) {
+    return new ParquetColumnReaderFactory(file);
+  }
+
+  @Test
+  public void testColumnReaderAcrossRowGroups()
+      throws Exception {
+    File dataFile = new File(_tempDir, "rowGroups.parquet");
+    Schema schema = SchemaBuilder.record("test").fields()
+        .optionalInt("int_col")
+        .requiredString("string_col")
+        .endRecord();
+    int numDocs = 10_000;
+    // Small row groups so that the column spans multiple row groups
+    OutputFile outputFile =
+        HadoopOutputFile.fromPath(new Path(dataFile.getAbsolutePath()), ParquetUtils.getParquetHadoopConfiguration());
+    try (ParquetWriter<GenericRecord> writer = AvroParquetWriter.<GenericRecord>builder(outputFile).withSchema(schema)
+        .withConf(ParquetUtils.getParquetHadoopConfiguration()).withRowGroupSize(4096L).build()) {
+      for (int docId = 0; docId < numDocs; docId++) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("int_col", docId % 7 == 0 ? null : docId);
+        record.put("string_col", Integer.toString(docId));
+        writer.write(record);
+      }
+    }
+
+    org.apache.pinot.spi.data.Schema pinotSchema =
+        new org.apache.pinot.spi.data.Schema.SchemaBuilder().addSingleValueDimension("int_col", DataType.INT)
+            .addSingleValueDimension("string_col", DataType.STRING).build();
+    try (ParquetColumnReaderFactory factory = new ParquetColumnReaderFactory(dataFile)) {
+      factory.init(pinotSchema);
+      ColumnReader intColumnReader = factory.getColumnReader("int_col");
+      ColumnReader stringColumnReader = factory.getColumnReader("string_col");
+      assertEquals(intColumnReader.getTotalDocs(), numDocs);
+      // Optional and string columns are decoded from the column chunks
+      assertEquals(intColumnReader.getValueType(), PinotDataType.INT);
+      assertEquals(stringColumnReader.getValueType(), PinotDataType.STRING);
+      // Read the row groups backwards to cover random access across row groups
+      for (int docId = numDocs - 1; docId >= 0; docId--) {
+        if (docId % 7 == 0) {
+          assertTrue(intColumnReader.isNull(docId));
+        } else {
+          assertFalse(intColumnReader.isNull(docId));
+          assertEquals(intColumnReader.getInt(docId), docId);
+        }
+        assertEquals(stringColumnReader.getString(docId), Integer.toString(docId));
+      }
+    } finally {
+      FileUtils.deleteQuietly(dataFile);
+    }
+  }
+
   @Override
   protected String getDataFileName() {
     return "data.parquet";
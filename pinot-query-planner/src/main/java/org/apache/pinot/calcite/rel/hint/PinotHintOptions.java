@@ -64,6 +64,10 @@ public class PinotHintOptions {
 
     public static final String MAX_INITIAL_RESULT_HOLDER_CAPACITY = "max_initial_result_holder_capacity";
     public static final String MSE_MAX_INITIAL_RESULT_HOLDER_CAPACITY = "mse_max_initial_result_holder_capacity";
+
+    /// Estimated heap size in bytes of the groups after which they are spilled to disk and re-aggregated partition by
+    /// partition.
+    public static final String GROUP_BY_SPILL_THRESHOLD_BYTES = "group_by_spill_threshold_bytes";
   }
 
   public static class WindowHintOptions {
@@ -132,6 +136,10 @@ public class PinotHintOptions {
     ///   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
     public static final String JOIN_OVERFLOW_MODE = "join_overflow_mode";
 
+    /// Estimated heap size in bytes of the hash join build side after which both join inputs are spilled to disk
+    /// and joined partition by partition.
+    public static final String JOIN_SPILL_THRESHOLD_BYTES = "join_spill_threshold_bytes";
+
     /// Indicates that the join operator(s) within a certain selection scope are colocated
     public static final String IS_COLOCATED_BY_JOIN_KEYS = "is_colocated_by_join_keys";
 
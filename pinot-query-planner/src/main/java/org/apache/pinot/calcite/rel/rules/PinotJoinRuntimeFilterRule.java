@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelDistributions;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Exchange;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.logical.PinotLogicalExchange;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
+
+
+/// Pushes the build side join keys of a hash join down to the probe side leaf stage as a runtime filter.
+///
+/// The hash join builds its hash table from the right input and probes it with the left input. For INNER and RIGHT
+/// joins, the left rows without a matching key are dropped by the join anyway, so they can be filtered out in the leaf
+/// stage already. This rule reuses the dynamic broadcast mechanism of [PinotJoinToDynamicBroadcastRule] for that: the
+/// left input is replaced with a SEMI join against a PIPELINE_BREAKER exchange of the right input join keys, which the
+/// leaf stage turns into an `IN` (and `BETWEEN`) filter on the probe side join key before scanning the segments.
+///
+///                  ...                                            ...
+///                   |                                              |
+///             [ Inner Join ]                                 [ Inner Join ]
+///             /            \                                 /            \
+///        [xChange]      [xChange]                       [xChange]      [xChange]
+///           /                \                             /                \
+///    [Proj/Filter]      [Proj/Filter]               [ Semi Join ]       [Proj/Filter]
+///          |                  |                     /           \            |
+///    [Table Scan ]      [Table Scan ]      [Proj/Filter]  [Pipeline Breaker] [Table Scan ]
+///                                                |               |
+///                                          [Table Scan ]     [ Project ]
+///                                                                |
+///                                                          [Proj/Filter]
+///                                                                |
+///                                                          [Table Scan ]
+///
+/// The right input is read twice (once for the keys and once for the join), so this rule only applies when both inputs
+/// are leaf stages made of a table scan with optional project and filter, joined on a single key without non-equi
+/// conditions, and no other join strategy than hash is requested.
+public class PinotJoinRuntimeFilterRule extends RelOptRule {
+  public static final PinotJoinRuntimeFilterRule INSTANCE =
+      new PinotJoinRuntimeFilterRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotJoinRuntimeFilterRule(RelBuilderFactory factory) {
+    super(operand(Join.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    Join join = call.rel(0);
+
+    // Only apply to hash joins
+    String joinStrategy = PinotHintOptions.JoinHintOptions.getJoinStrategyHint(join);
+    if (joinStrategy != null && !joinStrategy.equals(PinotHintOptions.JoinHintOptions.HASH_JOIN_STRATEGY)) {
+      return false;
+    }
+
+    // Only apply to joins that drop the unmatched left rows, on a single equi key
+    JoinRelType joinType = join.getJoinType();
+    if (joinType != JoinRelType.INNER && joinType != JoinRelType.RIGHT) {
+      return false;
+    }
+    JoinInfo joinInfo = join.analyzeCondition();
+    if (!joinInfo.nonEquiConditions.isEmpty() || joinInfo.leftKeys.size() != 1) {
+      return false;
+    }
+
+    RelNode left = PinotRuleUtils.unboxRel(join.getLeft());
+    RelNode right = PinotRuleUtils.unboxRel(join.getRight());
+    return left instanceof Exchange && right instanceof Exchange && isLeafScan(left.getInput(0)) && isLeafScan(
+        right.getInput(0));
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Join join = call.rel(0);
+    Exchange left = (Exchange) PinotRuleUtils.unboxRel(join.getLeft());
+    Exchange right = (Exchange) PinotRuleUtils.unboxRel(join.getRight());
+    JoinInfo joinInfo = join.analyzeCondition();
+    int leftKey = joinInfo.leftKeys.get(0);
+    int rightKey = joinInfo.rightKeys.get(0);
+
+    RelNode leftInput = left.getInput();
+    RelBuilder relBuilder = call.builder();
+    RelNode rightKeys = relBuilder.push(right.getInput()).project(relBuilder.field(rightKey)).build();
+    PinotLogicalExchange pipelineBreaker;
+    // Same distribution as PinotJoinToDynamicBroadcastRule
+    boolean colocatedByJoinKeys = Boolean.TRUE.equals(PinotHintOptions.JoinHintOptions.isColocatedByJoinKeys(join));
+    if (colocatedByJoinKeys) {
+      pipelineBreaker =
+          PinotLogicalExchange.create(rightKeys, RelDistributions.SINGLETON, PinotRelExchangeType.PIPELINE_BREAKER,
+              true);
+    } else {
+      pipelineBreaker = PinotLogicalExchange.create(rightKeys, RelDistributions.BROADCAST_DISTRIBUTED,
+          PinotRelExchangeType.PIPELINE_BREAKER, false);
+    }
+
+    RexBuilder rexBuilder = join.getCluster().getRexBuilder();
+    RexNode semiJoinCondition = rexBuilder.makeCall(SqlStdOperatorTable.EQUALS,
+        rexBuilder.makeInputRef(leftInput.getRowType().getFieldList().get(leftKey).getType(), leftKey),
+        rexBuilder.makeInputRef(rightKeys.getRowType().getFieldList().get(0).getType(),
+            leftInput.getRowType().getFieldCount()));
+    Join semiJoin =
+        join.copy(join.getTraitSet(), semiJoinCondition, leftInput, pipelineBreaker, JoinRelType.SEMI, false);
+    Exchange newLeft = left.copy(left.getTraitSet(), semiJoin, left.getDistribution());
+
+    call.transformTo(join.copy(join.getTraitSet(), join.getCondition(), newLeft, right, join.getJoinType(),
+        join.isSemiJoinDone()));
+  }
+
+  /// Returns whether the given node is a table scan with optional project and filter on top of it. Once the rule has
+  /// been applied, the left input is a join and no longer matches, which prevents applying the rule again.
+  private static boolean isLeafScan(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      return true;
+    }
+    if (relNode instanceof Project || relNode instanceof Filter) {
+      return isLeafScan(relNode.getInput(0));
+    }
+    return false;
+  }
+}
@@ -279,7 +279,8 @@ public class PinotQueryRuleSets {
       PinotWindowExchangeNodeInsertRule.INSTANCE,
       PinotSetOpExchangeNodeInsertRule.INSTANCE,
 
-      // apply dynamic broadcast rule after exchange is inserted
+      // apply runtime filter and dynamic broadcast rules after exchange is inserted
+      PinotJoinRuntimeFilterRule.INSTANCE,
       PinotJoinToDynamicBroadcastRule.INSTANCE,
 
       // remove exchanges when there's duplicates
@@ -58,6 +58,7 @@ import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.pinot.calcite.rel.rules.ImmutablePinotSortExchangeCopyRule;
 import org.apache.pinot.calcite.rel.rules.PinotImplicitTableHintRule;
+import org.apache.pinot.calcite.rel.rules.PinotJoinRuntimeFilterRule;
 import org.apache.pinot.calcite.rel.rules.PinotJoinToDynamicBroadcastRule;
 import org.apache.pinot.calcite.rel.rules.PinotRelDistributionTraitRule;
 import org.apache.pinot.calcite.rel.rules.PinotRuleUtils;
@@ -210,8 +211,10 @@ public class QueryEnvironment {
         _envConfig.defaultSortExchangeCopyLimit());
     boolean usePhysicalOptimizer = QueryOptionsUtils.isUsePhysicalOptimizer(options,
         _envConfig.defaultUsePhysicalOptimizer());
+    boolean enableJoinRuntimeFilter = QueryOptionsUtils.isEnableJoinRuntimeFilter(options,
+        _envConfig.defaultEnableJoinRuntimeFilter());
     HepProgram traitProgram = getTraitProgram(
-        workerManager, _envConfig, usePhysicalOptimizer, useRuleSet, sortExchangeCopyLimit);
+        workerManager, _envConfig, usePhysicalOptimizer, useRuleSet, sortExchangeCopyLimit, enableJoinRuntimeFilter);
     SqlExplainFormat format = SqlExplainFormat.DOT;
     if (sqlNodeAndOptions.getSqlNode().getKind().equals(SqlKind.EXPLAIN)) {
       SqlExplain explain = (SqlExplain) sqlNodeAndOptions.getSqlNode();
@@ -634,7 +637,8 @@ public class QueryEnvironment {
   }
 
   private static HepProgram getTraitProgram(@Nullable WorkerManager workerManager, Config config,
-      boolean usePhysicalOptimizer, Set<String> useRuleSet, int sortExchangeCopyLimit) {
+      boolean usePhysicalOptimizer, Set<String> useRuleSet, int sortExchangeCopyLimit,
+      boolean enableJoinRuntimeFilter) {
     HepProgramBuilder hepProgramBuilder = new HepProgramBuilder();
     PinotRuleSet ruleSet = config.getRuleSet();
 
@@ -657,7 +661,7 @@ public class QueryEnvironment {
         postLogical.replaceAll(r -> r instanceof PinotSortExchangeCopyRule ? overridden : r);
       }
       for (RelOptRule relOptRule : postLogical) {
-        if (isEligibleQueryPostRule(relOptRule, config)) {
+        if (isEligibleQueryPostRule(relOptRule, config, enableJoinRuntimeFilter)) {
           hepProgramBuilder.addRuleInstance(relOptRule);
         }
       }
@@ -666,7 +670,7 @@ public class QueryEnvironment {
       // CommonConstants.Broker.PlannerRuleNames#JOIN_TO_ENRICHED_JOIN.
     } else {
       for (RelOptRule relOptRule : ruleSet.rulesFor(Phase.POST_LOGICAL_PHYSICAL_OPT)) {
-        if (isEligibleQueryPostRule(relOptRule, config)) {
+        if (isEligibleQueryPostRule(relOptRule, config, enableJoinRuntimeFilter)) {
           hepProgramBuilder.addRuleInstance(relOptRule);
         }
       }
@@ -683,10 +687,14 @@ public class QueryEnvironment {
   }
 
   // This method is used to filter out post rules that are not eligible to run based on the config.
-  private static boolean isEligibleQueryPostRule(RelOptRule relOptRule, Config config) {
+  private static boolean isEligibleQueryPostRule(RelOptRule relOptRule, Config config,
+      boolean enableJoinRuntimeFilter) {
     if (relOptRule instanceof PinotJoinToDynamicBroadcastRule && !config.defaultEnableDynamicFilteringSemiJoin()) {
       return false;
     }
+    if (relOptRule instanceof PinotJoinRuntimeFilterRule && !enableJoinRuntimeFilter) {
+      return false;
+    }
     return true;
   }
 
@@ -798,6 +806,15 @@ public class QueryEnvironment {
       return CommonConstants.Broker.DEFAULT_ENABLE_DYNAMIC_FILTERING_SEMI_JOIN;
     }
 
+    /// Whether to apply [PinotJoinRuntimeFilterRule] to eligible hash joins by default.
+    ///
+    /// This default value can be always overridden at query level by the query option
+    /// [CommonConstants.Broker.Request.QueryOptionKey#ENABLE_JOIN_RUNTIME_FILTER].
+    @Value.Default
+    default boolean defaultEnableJoinRuntimeFilter() {
+      return CommonConstants.Broker.DEFAULT_ENABLE_JOIN_RUNTIME_FILTER;
+    }
+
     /// Whether to use physical optimizer by default.
     ///
     /// This is treated as the default value for the broker and it is expected to be obtained from a Pinot
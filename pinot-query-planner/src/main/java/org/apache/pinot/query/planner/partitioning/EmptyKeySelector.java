@@ -52,6 +52,11 @@ public class EmptyKeySelector implements KeySelector<Integer> {
     return 0;
   }
 
+  @Override
+  public int[] getKeyIds() {
+    return new int[0];
+  }
+
   @Override
   public String hashAlgorithm() {
     return _hashFunction;
@@ -36,6 +36,17 @@ public interface KeySelector<T> {
   /// Computes the hash of the given row.
   int computeHash(Object[] input);
 
+  /// Returns the ids of the key columns, or `null` if the key is not made of plain columns.
+  ///
+  /// When not `null`, [#computeHash(Object[])] must be equivalent to summing, over the key columns, the hash of each
+  /// non-null value (its [Object#hashCode()], or the [HashFunctionSelector.SvHasher] of the
+  /// [hash algorithm][#hashAlgorithm()] for murmur hashes) and then clearing the sign bit. This allows callers to
+  /// compute the hash without building the row.
+  @Nullable
+  default int[] getKeyIds() {
+    return null;
+  }
+
   /// Returns the hash algorithm used to compute the hash.
   default String hashAlgorithm() {
     return DEFAULT_HASH_ALGORITHM;
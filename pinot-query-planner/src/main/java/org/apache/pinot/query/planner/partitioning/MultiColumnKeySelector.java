@@ -68,6 +68,11 @@ public class MultiColumnKeySelector implements KeySelector<Key> {
     return _hasher.hash(input, _keyIds);
   }
 
+  @Override
+  public int[] getKeyIds() {
+    return _keyIds;
+  }
+
   @Override
   public String hashAlgorithm() {
     return _hashFunction;
@@ -48,6 +48,11 @@ public class SingleColumnKeySelector implements KeySelector<Object> {
     return _hasher.hash(key);
   }
 
+  @Override
+  public int[] getKeyIds() {
+    return new int[]{_keyId};
+  }
+
   @Override
   public String hashAlgorithm() {
     return _hashFunction;
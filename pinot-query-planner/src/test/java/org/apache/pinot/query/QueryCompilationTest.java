@@ -1540,4 +1540,26 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
         "usePlannerRules=JoinToEnrichedJoin must be a no-op, got:\n" + explain);
     assertTrue(explain.contains("LogicalJoin"), "expected an ordinary LogicalJoin, got:\n" + explain);
   }
+
+  @Test
+  public void testJoinRuntimeFilter() {
+    String query = "EXPLAIN PLAN FOR SELECT a.col1, b.col2 FROM a JOIN b ON a.col1 = b.col1 WHERE b.col3 > 0";
+    String explain = _queryEnvironment.explainQuery(query, RANDOM_REQUEST_ID_GEN.nextLong());
+    assertFalse(explain.contains("PIPELINE_BREAKER"), "runtime filter must be disabled by default, got:\n" + explain);
+
+    // The build side join keys are sent to the probe side leaf stage through a pipeline breaker SEMI join
+    String runtimeFilterQuery = "SET enableJoinRuntimeFilter=true; " + query;
+    explain = _queryEnvironment.explainQuery(runtimeFilterQuery, RANDOM_REQUEST_ID_GEN.nextLong());
+    assertTrue(explain.contains("joinType=[inner]"), "expected the inner join to be kept, got:\n" + explain);
+    assertTrue(explain.contains("joinType=[semi]"), "expected a runtime filter semi join, got:\n" + explain);
+    assertTrue(explain.contains("PinotLogicalExchange(distribution=[broadcast], relExchangeType=[PIPELINE_BREAKER])"),
+        "expected a pipeline breaker for the build side keys, got:\n" + explain);
+    assertNotNull(_queryEnvironment.planQuery(runtimeFilterQuery));
+
+    // Unmatched probe side rows are kept by a LEFT join, so they cannot be filtered out
+    String leftJoinQuery = "SET enableJoinRuntimeFilter=true; "
+        + "EXPLAIN PLAN FOR SELECT a.col1, b.col2 FROM a LEFT JOIN b ON a.col1 = b.col1";
+    explain = _queryEnvironment.explainQuery(leftJoinQuery, RANDOM_REQUEST_ID_GEN.nextLong());
+    assertFalse(explain.contains("PIPELINE_BREAKER"), "runtime filter must not apply to LEFT join, got:\n" + explain);
+  }
 }
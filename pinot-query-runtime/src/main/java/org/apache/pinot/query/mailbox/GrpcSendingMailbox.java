@@ -43,6 +43,7 @@ import org.apache.pinot.common.proto.PinotMailboxGrpc;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
 import org.apache.pinot.query.mailbox.channel.ChannelUtils;
 import org.apache.pinot.query.mailbox.channel.MailboxStatusObserver;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
@@ -536,6 +537,15 @@ public class GrpcSendingMailbox implements SendingMailbox {
       return block.asSerialized().getDataBlock();
     }
 
+    @Override
+    public DataBlock visit(ColumnarHeapDataBlock block, List<DataBuffer> serializedStats) {
+      // this is already guaranteed by the SendingMailbox.send(MseBlock.Data) signature, but just to be sure...
+      if (serializedStats != null && !serializedStats.isEmpty()) {
+        throw new UnsupportedOperationException("Cannot serialize stats with ColumnarHeapDataBlock");
+      }
+      return block.asSerialized().getDataBlock();
+    }
+
     @Override
     public DataBlock visit(SerializedDataBlock block, List<DataBuffer> serializedStats) {
       // this is already guaranteed by the SendingMailbox.send(MseBlock.Data) signature, but just to be sure...
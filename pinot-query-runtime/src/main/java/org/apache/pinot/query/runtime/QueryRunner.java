@@ -57,6 +57,7 @@ import org.apache.pinot.query.runtime.executor.OpChainSchedulerService;
 import org.apache.pinot.query.runtime.operator.LeafOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.spill.SpillManager;
 import org.apache.pinot.query.runtime.plan.OpChainConverterDispatcher;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.query.runtime.plan.pipeline.PipelineBreakerExecutor;
@@ -124,6 +125,12 @@ public class QueryRunner {
   @Nullable
   private JoinOverFlowMode _joinOverflowMode;
   @Nullable
+  private Long _joinSpillThresholdBytes;
+  @Nullable
+  private Long _sortSpillThresholdBytes;
+  @Nullable
+  private Long _groupBySpillThresholdBytes;
+  @Nullable
   private Integer _maxRowsInWindow;
   @Nullable
   private WindowOverFlowMode _windowOverflowMode;
@@ -182,6 +189,17 @@ public class QueryRunner {
     String joinOverflowModeStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_JOIN_OVERFLOW_MODE);
     _joinOverflowMode = joinOverflowModeStr != null ? JoinOverFlowMode.valueOf(joinOverflowModeStr) : null;
 
+    String joinSpillThresholdBytesStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_JOIN_SPILL_THRESHOLD_BYTES);
+    _joinSpillThresholdBytes = joinSpillThresholdBytesStr != null ? Long.parseLong(joinSpillThresholdBytesStr) : null;
+
+    String sortSpillThresholdBytesStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_SORT_SPILL_THRESHOLD_BYTES);
+    _sortSpillThresholdBytes = sortSpillThresholdBytesStr != null ? Long.parseLong(sortSpillThresholdBytesStr) : null;
+    String groupBySpillThresholdBytesStr =
+        serverConf.getProperty(MultiStageQueryRunner.KEY_OF_GROUP_BY_SPILL_THRESHOLD_BYTES);
+    _groupBySpillThresholdBytes =
+        groupBySpillThresholdBytesStr != null ? Long.parseLong(groupBySpillThresholdBytesStr) : null;
+    SpillManager.init(serverConf);
+
     String maxRowsInWindowStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_WINDOW);
     _maxRowsInWindow = maxRowsInWindowStr != null ? Integer.parseInt(maxRowsInWindowStr) : null;
 
@@ -530,6 +548,30 @@ public class QueryRunner {
       opChainMetadata.put(QueryOptionKey.JOIN_OVERFLOW_MODE, joinOverflowMode.name());
     }
 
+    Long joinSpillThresholdBytes = QueryOptionsUtils.getJoinSpillThresholdBytes(opChainMetadata);
+    if (joinSpillThresholdBytes == null) {
+      joinSpillThresholdBytes = _joinSpillThresholdBytes;
+    }
+    if (joinSpillThresholdBytes != null) {
+      opChainMetadata.put(QueryOptionKey.JOIN_SPILL_THRESHOLD_BYTES, Long.toString(joinSpillThresholdBytes));
+    }
+
+    Long sortSpillThresholdBytes = QueryOptionsUtils.getSortSpillThresholdBytes(opChainMetadata);
+    if (sortSpillThresholdBytes == null) {
+      sortSpillThresholdBytes = _sortSpillThresholdBytes;
+    }
+    if (sortSpillThresholdBytes != null) {
+      opChainMetadata.put(QueryOptionKey.SORT_SPILL_THRESHOLD_BYTES, Long.toString(sortSpillThresholdBytes));
+    }
+
+    Long groupBySpillThresholdBytes = QueryOptionsUtils.getGroupBySpillThresholdBytes(opChainMetadata);
+    if (groupBySpillThresholdBytes == null) {
+      groupBySpillThresholdBytes = _groupBySpillThresholdBytes;
+    }
+    if (groupBySpillThresholdBytes != null) {
+      opChainMetadata.put(QueryOptionKey.GROUP_BY_SPILL_THRESHOLD_BYTES, Long.toString(groupBySpillThresholdBytes));
+    }
+
     Integer maxRowsInWindow = QueryOptionsUtils.getMaxRowsInWindow(opChainMetadata);
     if (maxRowsInWindow == null) {
       maxRowsInWindow = _maxRowsInWindow;
@@ -40,6 +40,7 @@ public interface BlockSplitter {
   ///  Split a block into multiple block so that each block size is within maxBlockSize. Currently,
   ///
   /// - For row data block, we split for row type dataBlock.
+  /// - For columnar heap block, we split by slicing the column arrays.
   /// - For columnar data block, exceptions are thrown.
   /// - For metadata block, split is not supported.
   ///
@@ -78,6 +79,27 @@ public interface BlockSplitter {
       return blockChunks.iterator();
     }
 
+    @Override
+    public Iterator<MseBlock.Data> visit(ColumnarHeapDataBlock block, Integer maxBlockSize) {
+      // Same estimation as for row heap blocks, but chunks are created by slicing the column arrays.
+      DataSchema dataSchema = block.getDataSchema();
+      int estimatedRowSizeInBytes = Math.max(1, dataSchema.getColumnNames().length * MEDIAN_COLUMN_SIZE_BYTES);
+      int numRowsPerChunk = maxBlockSize / estimatedRowSizeInBytes;
+      Preconditions.checkState(numRowsPerChunk > 0, "row size too large for query engine to handle, abort!");
+
+      int numRows = block.getNumRows();
+      int numChunks = (numRows + numRowsPerChunk - 1) / numRowsPerChunk;
+      if (numChunks <= 1) {
+        return Iterators.singletonIterator(block);
+      }
+      List<MseBlock.Data> blockChunks = new ArrayList<>(numChunks);
+      for (int fromIndex = 0; fromIndex < numRows; fromIndex += numRowsPerChunk) {
+        int toIndex = Math.min(fromIndex + numRowsPerChunk, numRows);
+        blockChunks.add(block.slice(fromIndex, toIndex));
+      }
+      return blockChunks.iterator();
+    }
+
     @Override
     public Iterator<MseBlock.Data> visit(SerializedDataBlock block, Integer maxBlockSize
     ) {
@@ -0,0 +1,441 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.blocks;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.BlockValSet;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.utils.ArrayCopyUtils;
+import org.apache.pinot.spi.utils.BigDecimalUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.CommonConstants.NullValuePlaceHolder;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/// A [BlockValSet] implementation backed by a column of a [ColumnarHeapDataBlock].
+///
+/// When the requested type matches the stored type of the column, the column array is returned as is, so aggregation
+/// functions can read the values without any copy.
+///
+/// TODO: Support MV
+public class ColumnarHeapBlockValSet implements BlockValSet {
+  private final DataType _dataType;
+  private final DataType _storedType;
+  private final ColumnarHeapDataBlock _block;
+  private final int _colId;
+  private final int _numRows;
+  private final RoaringBitmap _nullBitmap;
+
+  public ColumnarHeapBlockValSet(ColumnDataType columnDataType, ColumnarHeapDataBlock block, int colId) {
+    _dataType = columnDataType.toDataType();
+    _storedType = _dataType.getStoredType();
+    _block = block;
+    _colId = colId;
+    _numRows = block.getNumRows();
+    if (_dataType == DataType.UNKNOWN && _numRows > 0) {
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      nullBitmap.add(0L, _numRows);
+      _nullBitmap = nullBitmap;
+    } else {
+      _nullBitmap = block.getNullBitmap(colId);
+    }
+  }
+
+  @Nullable
+  @Override
+  public RoaringBitmap getNullBitmap() {
+    return _nullBitmap;
+  }
+
+  @Override
+  public DataType getValueType() {
+    return _dataType;
+  }
+
+  @Override
+  public boolean isSingleValue() {
+    return true;
+  }
+
+  @Nullable
+  @Override
+  public Dictionary getDictionary() {
+    return null;
+  }
+
+  /// Columnar heap value sets never carry a segment dictionary; the dict-id read methods below always throw.
+  @Override
+  public boolean isDictionaryEncoded() {
+    return false;
+  }
+
+  @Override
+  public int[] getDictionaryIdsSV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[] getIntValuesSV() {
+    if (_numRows == 0 || _dataType == DataType.UNKNOWN) {
+      return new int[_numRows];
+    }
+    switch (_storedType) {
+      case INT:
+        return _block.getIntColumn(_colId);
+      case LONG: {
+        int[] values = new int[_numRows];
+        ArrayCopyUtils.copy(_block.getLongColumn(_colId), values, _numRows);
+        return values;
+      }
+      case FLOAT: {
+        int[] values = new int[_numRows];
+        ArrayCopyUtils.copy(_block.getFloatColumn(_colId), values, _numRows);
+        return values;
+      }
+      case DOUBLE: {
+        int[] values = new int[_numRows];
+        ArrayCopyUtils.copy(_block.getDoubleColumn(_colId), values, _numRows);
+        return values;
+      }
+      case BIG_DECIMAL: {
+        int[] values = new int[_numRows];
+        ArrayCopyUtils.copy(getBigDecimalValuesSV(), values, _numRows);
+        return values;
+      }
+      case STRING: {
+        int[] values = new int[_numRows];
+        ArrayCopyUtils.copy(getNumericStringValues(), values, _numRows);
+        return values;
+      }
+      default:
+        throw new IllegalStateException("Cannot read int values from data type: " + _dataType);
+    }
+  }
+
+  @Override
+  public long[] getLongValuesSV() {
+    if (_numRows == 0 || _dataType == DataType.UNKNOWN) {
+      return new long[_numRows];
+    }
+    switch (_storedType) {
+      case INT: {
+        long[] values = new long[_numRows];
+        ArrayCopyUtils.copy(_block.getIntColumn(_colId), values, _numRows);
+        return values;
+      }
+      case LONG:
+        return _block.getLongColumn(_colId);
+      case FLOAT: {
+        long[] values = new long[_numRows];
+        ArrayCopyUtils.copy(_block.getFloatColumn(_colId), values, _numRows);
+        return values;
+      }
+      case DOUBLE: {
+        long[] values = new long[_numRows];
+        ArrayCopyUtils.copy(_block.getDoubleColumn(_colId), values, _numRows);
+        return values;
+      }
+      case BIG_DECIMAL: {
+        long[] values = new long[_numRows];
+        ArrayCopyUtils.copy(getBigDecimalValuesSV(), values, _numRows);
+        return values;
+      }
+      case STRING: {
+        long[] values = new long[_numRows];
+        ArrayCopyUtils.copy(getNumericStringValues(), values, _numRows);
+        return values;
+      }
+      default:
+        throw new IllegalStateException("Cannot read long values from data type: " + _dataType);
+    }
+  }
+
+  @Override
+  public float[] getFloatValuesSV() {
+    if (_numRows == 0 || _dataType == DataType.UNKNOWN) {
+      return new float[_numRows];
+    }
+    switch (_storedType) {
+      case INT: {
+        float[] values = new float[_numRows];
+        ArrayCopyUtils.copy(_block.getIntColumn(_colId), values, _numRows);
+        return values;
+      }
+      case LONG: {
+        float[] values = new float[_numRows];
+        ArrayCopyUtils.copy(_block.getLongColumn(_colId), values, _numRows);
+        return values;
+      }
+      case FLOAT:
+        return _block.getFloatColumn(_colId);
+      case DOUBLE: {
+        float[] values = new float[_numRows];
+        ArrayCopyUtils.copy(_block.getDoubleColumn(_colId), values, _numRows);
+        return values;
+      }
+      case BIG_DECIMAL: {
+        float[] values = new float[_numRows];
+        ArrayCopyUtils.copy(getBigDecimalValuesSV(), values, _numRows);
+        return values;
+      }
+      case STRING: {
+        float[] values = new float[_numRows];
+        ArrayCopyUtils.copy(getNumericStringValues(), values, _numRows);
+        return values;
+      }
+      default:
+        throw new IllegalStateException("Cannot read float values from data type: " + _dataType);
+    }
+  }
+
+  @Override
+  public double[] getDoubleValuesSV() {
+    if (_numRows == 0 || _dataType == DataType.UNKNOWN) {
+      return new double[_numRows];
+    }
+    switch (_storedType) {
+      case INT: {
+        double[] values = new double[_numRows];
+        ArrayCopyUtils.copy(_block.getIntColumn(_colId), values, _numRows);
+        return values;
+      }
+      case LONG: {
+        double[] values = new double[_numRows];
+        ArrayCopyUtils.copy(_block.getLongColumn(_colId), values, _numRows);
+        return values;
+      }
+      case FLOAT: {
+        double[] values = new double[_numRows];
+        ArrayCopyUtils.copy(_block.getFloatColumn(_colId), values, _numRows);
+        return values;
+      }
+      case DOUBLE:
+        return _block.getDoubleColumn(_colId);
+      case BIG_DECIMAL: {
+        double[] values = new double[_numRows];
+        ArrayCopyUtils.copy(getBigDecimalValuesSV(), values, _numRows);
+        return values;
+      }
+      case STRING: {
+        double[] values = new double[_numRows];
+        ArrayCopyUtils.copy(getNumericStringValues(), values, _numRows);
+        return values;
+      }
+      default:
+        throw new IllegalStateException("Cannot read double values from data type: " + _dataType);
+    }
+  }
+
+  @Override
+  public BigDecimal[] getBigDecimalValuesSV() {
+    BigDecimal[] values = new BigDecimal[_numRows];
+    if (_numRows == 0) {
+      return values;
+    }
+    if (_dataType == DataType.UNKNOWN) {
+      Arrays.fill(values, NullValuePlaceHolder.BIG_DECIMAL);
+      return values;
+    }
+    switch (_storedType) {
+      case INT:
+        ArrayCopyUtils.copy(_block.getIntColumn(_colId), values, _numRows);
+        break;
+      case LONG:
+        ArrayCopyUtils.copy(_block.getLongColumn(_colId), values, _numRows);
+        break;
+      case FLOAT:
+        ArrayCopyUtils.copy(_block.getFloatColumn(_colId), values, _numRows);
+        break;
+      case DOUBLE:
+        ArrayCopyUtils.copy(_block.getDoubleColumn(_colId), values, _numRows);
+        break;
+      case BIG_DECIMAL: {
+        Object[] column = _block.getObjectColumn(_colId);
+        for (int i = 0; i < _numRows; i++) {
+          Object value = column[i];
+          values[i] = value != null ? (BigDecimal) value : NullValuePlaceHolder.BIG_DECIMAL;
+        }
+        break;
+      }
+      case STRING:
+        ArrayCopyUtils.copy(getNumericStringValues(), values, _numRows);
+        break;
+      case BYTES: {
+        Object[] column = _block.getObjectColumn(_colId);
+        for (int i = 0; i < _numRows; i++) {
+          Object value = column[i];
+          values[i] = value != null ? BigDecimalUtils.deserialize((ByteArray) value) : NullValuePlaceHolder.BIG_DECIMAL;
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("Cannot read BigDecimal values from data type: " + _dataType);
+    }
+    return values;
+  }
+
+  @Override
+  public String[] getStringValuesSV() {
+    String[] values = new String[_numRows];
+    if (_numRows == 0) {
+      return values;
+    }
+    if (_dataType == DataType.UNKNOWN) {
+      Arrays.fill(values, NullValuePlaceHolder.STRING);
+      return values;
+    }
+    switch (_storedType) {
+      case INT:
+        if (_dataType == DataType.BOOLEAN) {
+          ArrayCopyUtils.copyFromBoolean(_block.getIntColumn(_colId), values, _numRows);
+        } else {
+          ArrayCopyUtils.copy(_block.getIntColumn(_colId), values, _numRows);
+        }
+        break;
+      case LONG:
+        if (_dataType == DataType.TIMESTAMP) {
+          ArrayCopyUtils.copyFromTimestamp(_block.getLongColumn(_colId), values, _numRows);
+        } else {
+          ArrayCopyUtils.copy(_block.getLongColumn(_colId), values, _numRows);
+        }
+        break;
+      case FLOAT:
+        ArrayCopyUtils.copy(_block.getFloatColumn(_colId), values, _numRows);
+        break;
+      case DOUBLE:
+        ArrayCopyUtils.copy(_block.getDoubleColumn(_colId), values, _numRows);
+        break;
+      case STRING: {
+        int[] dictIds = _block.getIntColumn(_colId);
+        String[] dictionary = _block.getStringDictionary();
+        if (_nullBitmap == null) {
+          for (int i = 0; i < _numRows; i++) {
+            values[i] = dictionary[dictIds[i]];
+          }
+        } else {
+          for (int i = 0; i < _numRows; i++) {
+            values[i] = !_nullBitmap.contains(i) ? dictionary[dictIds[i]] : NullValuePlaceHolder.STRING;
+          }
+        }
+        break;
+      }
+      default: {
+        Object[] column = _block.getObjectColumn(_colId);
+        for (int i = 0; i < _numRows; i++) {
+          Object value = column[i];
+          values[i] = value != null ? value.toString() : NullValuePlaceHolder.STRING;
+        }
+        break;
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public byte[][] getBytesValuesSV() {
+    byte[][] values = new byte[_numRows][];
+    if (_numRows == 0) {
+      return values;
+    }
+    if (_dataType == DataType.UNKNOWN) {
+      Arrays.fill(values, NullValuePlaceHolder.BYTES);
+      return values;
+    }
+    switch (_storedType) {
+      case BIG_DECIMAL:
+        ArrayCopyUtils.copy(getBigDecimalValuesSV(), values, _numRows);
+        break;
+      case STRING:
+        ArrayCopyUtils.copy(getStringValuesSV(), values, _numRows);
+        break;
+      case BYTES: {
+        Object[] column = _block.getObjectColumn(_colId);
+        for (int i = 0; i < _numRows; i++) {
+          Object value = column[i];
+          values[i] = value != null ? ((ByteArray) value).getBytes() : NullValuePlaceHolder.BYTES;
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("Cannot read bytes values from data type: " + _dataType);
+    }
+    return values;
+  }
+
+  /// Returns the values of a `STRING` column to be parsed as numbers, where null values are replaced by `"0"` so that
+  /// they can be parsed as well.
+  private String[] getNumericStringValues() {
+    String[] values = new String[_numRows];
+    int[] dictIds = _block.getIntColumn(_colId);
+    String[] dictionary = _block.getStringDictionary();
+    for (int i = 0; i < _numRows; i++) {
+      values[i] = _nullBitmap == null || !_nullBitmap.contains(i) ? dictionary[dictIds[i]] : "0";
+    }
+    return values;
+  }
+
+  @Override
+  public int[][] getDictionaryIdsMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[][] getIntValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public long[][] getLongValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public float[][] getFloatValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public double[][] getDoubleValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public BigDecimal[][] getBigDecimalValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String[][] getStringValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public byte[][][] getBytesValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[] getNumMVEntries() {
+    throw new UnsupportedOperationException();
+  }
+}
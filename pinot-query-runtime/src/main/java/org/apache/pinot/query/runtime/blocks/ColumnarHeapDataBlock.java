@@ -0,0 +1,626 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.blocks;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/// A block that contains data in columnar heap format.
+///
+/// Each column is stored as a primitive array whose type depends on the stored type of the column:
+/// - `INT` (and `BOOLEAN`) columns are stored as `int[]`.
+/// - `LONG` (and `TIMESTAMP`) columns are stored as `long[]`.
+/// - `FLOAT` columns are stored as `float[]`.
+/// - `DOUBLE` columns are stored as `double[]`.
+/// - `STRING` (and `JSON`) columns are dictionary encoded and stored as `int[]` of ids into a block level
+///   [string dictionary][#getStringDictionary()], the same way [DataBlock] encodes them on the wire.
+/// - Any other column is stored as an `Object[]` containing the same values a [RowHeapDataBlock] would contain.
+///
+/// Nulls are tracked in one [RoaringBitmap] per column, which is `null` when the column has no null values. The value
+/// stored in the array for a null cell is unspecified, so callers must always check the null bitmap first.
+///
+/// Compared to [RowHeapDataBlock], this format avoids allocating one array per row and one boxed object per cell, which
+/// is the main source of young-gen garbage in intermediate stages. Compared to [SerializedDataBlock], values can be
+/// accessed in bulk without decoding the fixed size buffer cell by cell.
+///
+/// Columns of type `OBJECT` (intermediate aggregation results) are not supported, as they can only be serialized
+/// with the aggregation functions that created them. Use [#isSupported(DataSchema)] before creating a block.
+///
+/// Arrays returned by this class must be considered immutable and are always exactly [#getNumRows()] long.
+public class ColumnarHeapDataBlock implements MseBlock.Data {
+  private final DataSchema _dataSchema;
+  private final int _numRows;
+  private final Object[] _columns;
+  private final RoaringBitmap[] _nullBitmaps;
+  private final String[] _stringDictionary;
+
+  private ColumnarHeapDataBlock(DataSchema dataSchema, int numRows, Object[] columns, RoaringBitmap[] nullBitmaps,
+      String[] stringDictionary) {
+    _dataSchema = dataSchema;
+    _numRows = numRows;
+    _columns = columns;
+    _nullBitmaps = nullBitmaps;
+    _stringDictionary = stringDictionary;
+  }
+
+  /// Returns whether blocks with the given schema can be stored in columnar heap format.
+  public static boolean isSupported(DataSchema dataSchema) {
+    for (ColumnDataType storedType : dataSchema.getStoredColumnDataTypes()) {
+      if (storedType == ColumnDataType.OBJECT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /// Creates a new block from the given rows.
+  /// @throws IllegalArgumentException if the schema is not [supported][#isSupported(DataSchema)].
+  public static ColumnarHeapDataBlock fromRows(List<Object[]> rows, DataSchema dataSchema) {
+    ColumnDataType[] storedTypes = getStoredTypes(dataSchema);
+    int numRows = rows.size();
+    int numColumns = storedTypes.length;
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    Object2IntOpenHashMap<String> dictionary = new Object2IntOpenHashMap<>();
+    for (int colId = 0; colId < numColumns; colId++) {
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      int finalColId = colId;
+      columns[colId] =
+          encodeColumn(storedTypes[colId], numRows, rowId -> rows.get(rowId)[finalColId], nullBitmap, dictionary);
+      nullBitmaps[colId] = nullBitmap.isEmpty() ? null : nullBitmap;
+    }
+    return new ColumnarHeapDataBlock(dataSchema, numRows, columns, nullBitmaps, toStringDictionary(dictionary));
+  }
+
+  /// Creates a new block from the given columns, where each column is an array of boxed values in the same format a
+  /// [RowHeapDataBlock] would use for its cells.
+  /// @throws IllegalArgumentException if the schema is not [supported][#isSupported(DataSchema)].
+  public static ColumnarHeapDataBlock fromBoxedColumns(Object[][] boxedColumns, int numRows, DataSchema dataSchema) {
+    ColumnDataType[] storedTypes = getStoredTypes(dataSchema);
+    int numColumns = storedTypes.length;
+    Preconditions.checkArgument(boxedColumns.length == numColumns, "Expected %s columns, got: %s", numColumns,
+        boxedColumns.length);
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    Object2IntOpenHashMap<String> dictionary = new Object2IntOpenHashMap<>();
+    for (int colId = 0; colId < numColumns; colId++) {
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      Object[] boxedColumn = boxedColumns[colId];
+      columns[colId] = encodeColumn(storedTypes[colId], numRows, rowId -> boxedColumn[rowId], nullBitmap, dictionary);
+      nullBitmaps[colId] = nullBitmap.isEmpty() ? null : nullBitmap;
+    }
+    return new ColumnarHeapDataBlock(dataSchema, numRows, columns, nullBitmaps, toStringDictionary(dictionary));
+  }
+
+  /// Creates a new block from the given [DataBlock], which can be either row or columnar encoded.
+  ///
+  /// Numeric columns are decoded in bulk and string columns reuse the string dictionary of the data block, so no
+  /// string is decoded.
+  /// @throws IllegalArgumentException if the schema is not [supported][#isSupported(DataSchema)].
+  public static ColumnarHeapDataBlock fromDataBlock(DataBlock dataBlock) {
+    DataSchema dataSchema = dataBlock.getDataSchema();
+    ColumnDataType[] storedTypes = getStoredTypes(dataSchema);
+    int numRows = dataBlock.getNumberOfRows();
+    int numColumns = storedTypes.length;
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      RoaringBitmap nullBitmap = dataBlock.getNullRowIds(colId);
+      if (nullBitmap != null && nullBitmap.isEmpty()) {
+        nullBitmap = null;
+      }
+      ColumnDataType storedType = storedTypes[colId];
+      switch (storedType) {
+        case INT:
+          columns[colId] =
+              DataBlockExtractUtils.extractIntColumn(storedType.toDataType(), dataBlock, colId, nullBitmap);
+          break;
+        case LONG:
+          columns[colId] =
+              DataBlockExtractUtils.extractLongColumn(storedType.toDataType(), dataBlock, colId, nullBitmap);
+          break;
+        case FLOAT:
+          columns[colId] =
+              DataBlockExtractUtils.extractFloatColumn(storedType.toDataType(), dataBlock, colId, nullBitmap);
+          break;
+        case DOUBLE:
+          columns[colId] =
+              DataBlockExtractUtils.extractDoubleColumn(storedType.toDataType(), dataBlock, colId, nullBitmap);
+          break;
+        case STRING: {
+          // String cells are stored as ids into the string dictionary of the data block
+          int[] dictIds = new int[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            dictIds[rowId] = dataBlock.getInt(rowId, colId);
+          }
+          columns[colId] = dictIds;
+          break;
+        }
+        case UNKNOWN: {
+          nullBitmap = new RoaringBitmap();
+          nullBitmap.add(0L, numRows);
+          columns[colId] = new Object[numRows];
+          break;
+        }
+        default:
+          columns[colId] = DataBlockExtractUtils.extractKey(dataBlock, colId);
+          break;
+      }
+      nullBitmaps[colId] = nullBitmap;
+    }
+    String[] stringDictionary = dataBlock.getStringDictionary();
+    return new ColumnarHeapDataBlock(dataSchema, numRows, columns, nullBitmaps,
+        stringDictionary != null ? stringDictionary : new String[0]);
+  }
+
+  private static ColumnDataType[] getStoredTypes(DataSchema dataSchema) {
+    Preconditions.checkArgument(isSupported(dataSchema), "Columnar heap blocks do not support schema: %s",
+        dataSchema);
+    return dataSchema.getStoredColumnDataTypes();
+  }
+
+  /// Reads the value of a cell, using the same representation [RowHeapDataBlock] would use.
+  public interface CellReader {
+    @Nullable
+    Object read(int rowId);
+  }
+
+  private static Object encodeColumn(ColumnDataType storedType, int numRows, CellReader reader,
+      RoaringBitmap nullBitmap, @Nullable Object2IntOpenHashMap<String> dictionary) {
+    switch (storedType) {
+      case INT: {
+        int[] values = new int[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          Object value = reader.read(rowId);
+          if (value == null) {
+            nullBitmap.add(rowId);
+          } else {
+            values[rowId] = ((Number) value).intValue();
+          }
+        }
+        return values;
+      }
+      case LONG: {
+        long[] values = new long[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          Object value = reader.read(rowId);
+          if (value == null) {
+            nullBitmap.add(rowId);
+          } else {
+            values[rowId] = ((Number) value).longValue();
+          }
+        }
+        return values;
+      }
+      case FLOAT: {
+        float[] values = new float[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          Object value = reader.read(rowId);
+          if (value == null) {
+            nullBitmap.add(rowId);
+          } else {
+            values[rowId] = ((Number) value).floatValue();
+          }
+        }
+        return values;
+      }
+      case DOUBLE: {
+        double[] values = new double[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          Object value = reader.read(rowId);
+          if (value == null) {
+            nullBitmap.add(rowId);
+          } else {
+            values[rowId] = ((Number) value).doubleValue();
+          }
+        }
+        return values;
+      }
+      case STRING: {
+        ToIntFunction<String> dictIdSupplier = k -> dictionary.size();
+        int[] dictIds = new int[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          Object value = reader.read(rowId);
+          if (value == null) {
+            nullBitmap.add(rowId);
+            dictIds[rowId] = -1;
+          } else {
+            dictIds[rowId] = dictionary.computeIfAbsent((String) value, dictIdSupplier);
+          }
+        }
+        return dictIds;
+      }
+      default: {
+        Object[] values = new Object[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          Object value = reader.read(rowId);
+          if (value == null) {
+            nullBitmap.add(rowId);
+          } else {
+            values[rowId] = value;
+          }
+        }
+        return values;
+      }
+    }
+  }
+
+  private static String[] toStringDictionary(Object2IntOpenHashMap<String> dictionary) {
+    String[] stringDictionary = new String[dictionary.size()];
+    for (Object2IntMap.Entry<String> entry : dictionary.object2IntEntrySet()) {
+      stringDictionary[entry.getIntValue()] = entry.getKey();
+    }
+    return stringDictionary;
+  }
+
+  @Override
+  public int getNumRows() {
+    return _numRows;
+  }
+
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  /// Returns the raw array that stores the given column. See the class level documentation for the array type used
+  /// for each stored type.
+  public Object getColumn(int colId) {
+    return _columns[colId];
+  }
+
+  /// Returns the values of an `INT` column or the dictionary ids of a `STRING` column.
+  public int[] getIntColumn(int colId) {
+    return (int[]) _columns[colId];
+  }
+
+  /// Returns the values of a `LONG` column.
+  public long[] getLongColumn(int colId) {
+    return (long[]) _columns[colId];
+  }
+
+  /// Returns the values of a `FLOAT` column.
+  public float[] getFloatColumn(int colId) {
+    return (float[]) _columns[colId];
+  }
+
+  /// Returns the values of a `DOUBLE` column.
+  public double[] getDoubleColumn(int colId) {
+    return (double[]) _columns[colId];
+  }
+
+  /// Returns the values of a column that is not stored as a primitive array.
+  public Object[] getObjectColumn(int colId) {
+    return (Object[]) _columns[colId];
+  }
+
+  /// Returns the dictionary used to encode all `STRING` columns in this block.
+  public String[] getStringDictionary() {
+    return _stringDictionary;
+  }
+
+  /// Returns the row ids whose value is null for the given column or `null` if the column has no null values.
+  @Nullable
+  public RoaringBitmap getNullBitmap(int colId) {
+    return _nullBitmaps[colId];
+  }
+
+  /// Returns whether the value of a cell is null.
+  public boolean isNull(int rowId, int colId) {
+    RoaringBitmap nullBitmap = _nullBitmaps[colId];
+    return nullBitmap != null && nullBitmap.contains(rowId);
+  }
+
+  /// Returns the value of a cell using the same representation [RowHeapDataBlock] would use.
+  @Nullable
+  public Object getValue(int rowId, int colId) {
+    RoaringBitmap nullBitmap = _nullBitmaps[colId];
+    if (nullBitmap != null && nullBitmap.contains(rowId)) {
+      return null;
+    }
+    Object column = _columns[colId];
+    switch (_dataSchema.getColumnDataType(colId).getStoredType()) {
+      case INT:
+        return ((int[]) column)[rowId];
+      case LONG:
+        return ((long[]) column)[rowId];
+      case FLOAT:
+        return ((float[]) column)[rowId];
+      case DOUBLE:
+        return ((double[]) column)[rowId];
+      case STRING:
+        return _stringDictionary[((int[]) column)[rowId]];
+      default:
+        return ((Object[]) column)[rowId];
+    }
+  }
+
+  /// Copies the values of the given row into the given array, which must be at least as long as the number of
+  /// columns. This is the cheapest way to evaluate row based expressions over this block, as the same array can be
+  /// reused for all rows as long as the caller does not keep a reference to it.
+  public Object[] getRow(int rowId, Object[] reuse) {
+    int numColumns = _columns.length;
+    for (int colId = 0; colId < numColumns; colId++) {
+      reuse[colId] = getValue(rowId, colId);
+    }
+    return reuse;
+  }
+
+  /// Returns a new block that only contains the given rows, in the given order.
+  /// @param rowIds the ids of the rows to keep. Only the first `numRowIds` entries are read.
+  public ColumnarHeapDataBlock select(int[] rowIds, int numRowIds) {
+    int numColumns = _columns.length;
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      Object column = _columns[colId];
+      if (column instanceof int[]) {
+        int[] src = (int[]) column;
+        int[] dest = new int[numRowIds];
+        for (int i = 0; i < numRowIds; i++) {
+          dest[i] = src[rowIds[i]];
+        }
+        columns[colId] = dest;
+      } else if (column instanceof long[]) {
+        long[] src = (long[]) column;
+        long[] dest = new long[numRowIds];
+        for (int i = 0; i < numRowIds; i++) {
+          dest[i] = src[rowIds[i]];
+        }
+        columns[colId] = dest;
+      } else if (column instanceof float[]) {
+        float[] src = (float[]) column;
+        float[] dest = new float[numRowIds];
+        for (int i = 0; i < numRowIds; i++) {
+          dest[i] = src[rowIds[i]];
+        }
+        columns[colId] = dest;
+      } else if (column instanceof double[]) {
+        double[] src = (double[]) column;
+        double[] dest = new double[numRowIds];
+        for (int i = 0; i < numRowIds; i++) {
+          dest[i] = src[rowIds[i]];
+        }
+        columns[colId] = dest;
+      } else {
+        Object[] src = (Object[]) column;
+        Object[] dest = new Object[numRowIds];
+        for (int i = 0; i < numRowIds; i++) {
+          dest[i] = src[rowIds[i]];
+        }
+        columns[colId] = dest;
+      }
+      RoaringBitmap nullBitmap = _nullBitmaps[colId];
+      if (nullBitmap != null) {
+        RoaringBitmap selectedNullBitmap = new RoaringBitmap();
+        for (int i = 0; i < numRowIds; i++) {
+          if (nullBitmap.contains(rowIds[i])) {
+            selectedNullBitmap.add(i);
+          }
+        }
+        nullBitmaps[colId] = selectedNullBitmap.isEmpty() ? null : selectedNullBitmap;
+      }
+    }
+    return new ColumnarHeapDataBlock(_dataSchema, numRowIds, columns, nullBitmaps, _stringDictionary);
+  }
+
+  /// Returns a new block that contains the rows in the range `[fromRowId, toRowId)`.
+  public ColumnarHeapDataBlock slice(int fromRowId, int toRowId) {
+    Preconditions.checkArgument(0 <= fromRowId && fromRowId <= toRowId && toRowId <= _numRows,
+        "Invalid range [%s, %s) for block with %s rows", fromRowId, toRowId, _numRows);
+    int numColumns = _columns.length;
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      Object column = _columns[colId];
+      if (column instanceof int[]) {
+        columns[colId] = Arrays.copyOfRange((int[]) column, fromRowId, toRowId);
+      } else if (column instanceof long[]) {
+        columns[colId] = Arrays.copyOfRange((long[]) column, fromRowId, toRowId);
+      } else if (column instanceof float[]) {
+        columns[colId] = Arrays.copyOfRange((float[]) column, fromRowId, toRowId);
+      } else if (column instanceof double[]) {
+        columns[colId] = Arrays.copyOfRange((double[]) column, fromRowId, toRowId);
+      } else {
+        columns[colId] = Arrays.copyOfRange((Object[]) column, fromRowId, toRowId);
+      }
+      RoaringBitmap nullBitmap = _nullBitmaps[colId];
+      if (nullBitmap != null) {
+        RoaringBitmap slicedNullBitmap = RoaringBitmap.addOffset(
+            RoaringBitmap.and(nullBitmap, RoaringBitmap.bitmapOfRange(fromRowId, toRowId)), -fromRowId);
+        nullBitmaps[colId] = slicedNullBitmap.isEmpty() ? null : slicedNullBitmap;
+      }
+    }
+    return new ColumnarHeapDataBlock(_dataSchema, toRowId - fromRowId, columns, nullBitmaps, _stringDictionary);
+  }
+
+  /// Returns a new block that contains the given columns of this block, in the given order.
+  /// This is a zero-copy operation, as the column arrays are shared with this block.
+  /// @param colIds the ids of the columns to keep.
+  /// @param dataSchema the schema of the new block. Each column must have the same stored type as the projected one.
+  public ColumnarHeapDataBlock project(int[] colIds, DataSchema dataSchema) {
+    int numColumns = colIds.length;
+    Preconditions.checkArgument(dataSchema.size() == numColumns, "Expected %s columns in schema, got: %s",
+        numColumns, dataSchema.size());
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int i = 0; i < numColumns; i++) {
+      int colId = colIds[i];
+      Preconditions.checkArgument(dataSchema.getColumnDataType(i).getStoredType()
+              == _dataSchema.getColumnDataType(colId).getStoredType(),
+          "Stored type mismatch for column: %s", dataSchema.getColumnName(i));
+      columns[i] = _columns[colId];
+      nullBitmaps[i] = _nullBitmaps[colId];
+    }
+    return new ColumnarHeapDataBlock(dataSchema, _numRows, columns, nullBitmaps, _stringDictionary);
+  }
+
+  /// Returns a new block with the same rows where each column is either shared with this block or computed from the
+  /// rows of this block. Computed string columns extend the string dictionary of this block, so shared string columns
+  /// keep their dictionary ids.
+  /// @param sharedColIds for each column of the new block, the id of the column of this block to share, which must have
+  ///                     the same stored type, or a negative value if the column is computed.
+  /// @param cellReaders for each computed column of the new block, the reader that computes the value of each row.
+  /// @param dataSchema the schema of the new block.
+  public ColumnarHeapDataBlock transform(int[] sharedColIds, CellReader[] cellReaders, DataSchema dataSchema) {
+    ColumnDataType[] storedTypes = getStoredTypes(dataSchema);
+    int numColumns = storedTypes.length;
+    Preconditions.checkArgument(sharedColIds.length == numColumns && cellReaders.length == numColumns,
+        "Expected %s columns, got: %s", numColumns, sharedColIds.length);
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    Object2IntOpenHashMap<String> dictionary = null;
+    for (int i = 0; i < numColumns; i++) {
+      int colId = sharedColIds[i];
+      if (colId >= 0) {
+        Preconditions.checkArgument(storedTypes[i] == _dataSchema.getColumnDataType(colId).getStoredType(),
+            "Stored type mismatch for column: %s", dataSchema.getColumnName(i));
+        columns[i] = _columns[colId];
+        nullBitmaps[i] = _nullBitmaps[colId];
+      } else {
+        if (storedTypes[i] == ColumnDataType.STRING && dictionary == null) {
+          dictionary = new Object2IntOpenHashMap<>(_stringDictionary.length);
+          for (int dictId = 0; dictId < _stringDictionary.length; dictId++) {
+            dictionary.put(_stringDictionary[dictId], dictId);
+          }
+        }
+        RoaringBitmap nullBitmap = new RoaringBitmap();
+        // The dictionary is only accessed for string columns
+        columns[i] = encodeColumn(storedTypes[i], _numRows, cellReaders[i], nullBitmap, dictionary);
+        nullBitmaps[i] = nullBitmap.isEmpty() ? null : nullBitmap;
+      }
+    }
+    return new ColumnarHeapDataBlock(dataSchema, _numRows, columns, nullBitmaps,
+        dictionary != null ? toStringDictionary(dictionary) : _stringDictionary);
+  }
+
+  /// Converts the block into rows.
+  /// This is a CPU and memory intensive operation that should only be used by operators that cannot work with
+  /// columns.
+  @Override
+  public RowHeapDataBlock asRowHeap() {
+    int numColumns = _columns.length;
+    List<Object[]> rows = new ArrayList<>(_numRows);
+    for (int rowId = 0; rowId < _numRows; rowId++) {
+      rows.add(getRow(rowId, new Object[numColumns]));
+    }
+    return new RowHeapDataBlock(rows, _dataSchema);
+  }
+
+  /// Serializes the block as a [org.apache.pinot.common.datablock.ColumnarDataBlock].
+  ///
+  /// Primitive columns and string dictionary ids are written in bulk, so no cell is boxed. As blocks created with
+  /// [#select(int[], int)] or [#slice(int, int)] share the string dictionary of the original block, the dictionary is
+  /// first compacted to the strings actually referenced by this block.
+  @Override
+  public SerializedDataBlock asSerialized() {
+    Object[] columns = _columns;
+    String[] stringDictionary = _stringDictionary;
+    ColumnDataType[] storedTypes = _dataSchema.getStoredColumnDataTypes();
+    int numColumns = storedTypes.length;
+    int[] newDictIds = null;
+    int newDictionarySize = 0;
+    for (int colId = 0; colId < numColumns; colId++) {
+      if (storedTypes[colId] != ColumnDataType.STRING) {
+        continue;
+      }
+      if (newDictIds == null) {
+        newDictIds = new int[_stringDictionary.length];
+        Arrays.fill(newDictIds, -1);
+        columns = _columns.clone();
+      }
+      int[] dictIds = (int[]) _columns[colId];
+      int[] remappedDictIds = new int[_numRows];
+      RoaringBitmap nullBitmap = _nullBitmaps[colId];
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        if (nullBitmap != null && nullBitmap.contains(rowId)) {
+          // The value of null cells is replaced with the null placeholder on serialization
+          continue;
+        }
+        int dictId = dictIds[rowId];
+        int newDictId = newDictIds[dictId];
+        if (newDictId < 0) {
+          newDictId = newDictionarySize++;
+          newDictIds[dictId] = newDictId;
+        }
+        remappedDictIds[rowId] = newDictId;
+      }
+      columns[colId] = remappedDictIds;
+    }
+    if (newDictIds != null && newDictionarySize < _stringDictionary.length) {
+      stringDictionary = new String[newDictionarySize];
+      for (int dictId = 0; dictId < newDictIds.length; dictId++) {
+        int newDictId = newDictIds[dictId];
+        if (newDictId >= 0) {
+          stringDictionary[newDictId] = _stringDictionary[dictId];
+        }
+      }
+    } else if (newDictIds != null) {
+      // Every string is referenced, so the original ids can be kept
+      columns = _columns;
+    }
+    try {
+      return new SerializedDataBlock(
+          DataBlockBuilder.buildFromColumnArrays(_numRows, columns, _nullBitmaps, stringDictionary, _dataSchema));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /// Returns this same object.
+  @Override
+  public ColumnarHeapDataBlock asColumnarHeap() {
+    return this;
+  }
+
+  @Override
+  public boolean isRowHeap() {
+    return false;
+  }
+
+  @Override
+  public boolean isColumnarHeap() {
+    return true;
+  }
+
+  @Override
+  public <R, A> R accept(Data.Visitor<R, A> visitor, A arg) {
+    return visitor.visit(this, arg);
+  }
+
+  @Override
+  public String toString() {
+    return "{\"type\": \"columnarHeap\", \"numRows\": " + getNumRows() + "}";
+  }
+}
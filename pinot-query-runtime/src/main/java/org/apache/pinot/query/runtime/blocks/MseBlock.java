@@ -77,8 +77,8 @@ public interface MseBlock extends Block {
   <R, A> R accept(Visitor<R, A> visitor, A arg);
 
   /// A block that contains data.
-  /// These blocks can store data as [rows on heap][RowHeapDataBlock] or as
-  /// [DataBlocks][SerializedDataBlock].
+  /// These blocks can store data as [rows on heap][RowHeapDataBlock], as [columns on heap][ColumnarHeapDataBlock] or
+  /// as [DataBlocks][SerializedDataBlock].
   interface Data extends MseBlock {
     /// Returns the number of rows in the block.
     int getNumRows();
@@ -95,12 +95,21 @@ public interface MseBlock extends Block {
     /// if the block is a [RowHeapDataBlock].
     /// @throws java.io.UncheckedIOException if the block cannot be serialized.
     SerializedDataBlock asSerialized();
+    /// Returns the data in the block as a [ColumnarHeapDataBlock].
+    /// This is a no-op if the block is already a [ColumnarHeapDataBlock] but is a CPU and memory intensive operation
+    /// otherwise, although converting a [SerializedDataBlock] is usually cheaper than converting it into rows.
+    /// @throws IllegalArgumentException if the schema is not [supported][ColumnarHeapDataBlock#isSupported].
+    ColumnarHeapDataBlock asColumnarHeap();
 
     /// Returns whether the block is a [RowHeapDataBlock].
     boolean isRowHeap();
+    /// Returns whether the block is a [ColumnarHeapDataBlock].
+    default boolean isColumnarHeap() {
+      return false;
+    }
     /// Returns whether the block is a [SerializedDataBlock].
     default boolean isSerialized() {
-      return !isRowHeap();
+      return !isRowHeap() && !isColumnarHeap();
     }
 
     @Override
@@ -130,6 +139,7 @@ public interface MseBlock extends Block {
     /// @param <A> The argument type of the visitor. Use [Void] if the visitor does not take any arguments.
     interface Visitor<R, A> {
       R visit(RowHeapDataBlock block, A arg);
+      R visit(ColumnarHeapDataBlock block, A arg);
       R visit(SerializedDataBlock block, A arg);
     }
   }
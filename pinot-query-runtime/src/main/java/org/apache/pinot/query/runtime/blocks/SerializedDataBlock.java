@@ -29,7 +29,7 @@ import org.apache.pinot.core.util.DataBlockExtractUtils;
 /// This class is a subclass of [MseBlock.Data] and is used to store data in serialized format.
 /// This is the most efficient way to store data, but it is also the hardest to work with.
 /// As the day this comment was written, this class is only used when we need to shuffle data through the network.
-/// In all other cases, we use [RowHeapDataBlock].
+/// In all other cases, we use [RowHeapDataBlock] or [ColumnarHeapDataBlock].
 public class SerializedDataBlock implements MseBlock.Data {
   private final DataBlock _dataBlock;
 
@@ -69,6 +69,11 @@ public class SerializedDataBlock implements MseBlock.Data {
     return this;
   }
 
+  @Override
+  public ColumnarHeapDataBlock asColumnarHeap() {
+    return ColumnarHeapDataBlock.fromDataBlock(_dataBlock);
+  }
+
   @Override
   public boolean isRowHeap() {
     return false;
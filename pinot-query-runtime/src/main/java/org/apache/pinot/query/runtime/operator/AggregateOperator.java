@@ -48,6 +48,8 @@ import org.apache.pinot.query.parser.CalciteRexExpressionParser;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.AggregateNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapBlockValSet;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
@@ -213,6 +215,15 @@ public class AggregateOperator extends MultiStageOperator {
     return mseBlock;
   }
 
+  @Override
+  public void close() {
+    if (_groupByExecutor != null) {
+      // Deletes the spill files when the result is not computed (e.g. on error)
+      _groupByExecutor.close();
+    }
+    super.close();
+  }
+
   private MseBlock produceAggregatedBlock() {
     if (_aggregationExecutor != null) {
       return new RowHeapDataBlock(_aggregationExecutor.getResult(), _resultSchema, _aggFunctions);
@@ -227,6 +238,9 @@ public class AggregateOperator extends MultiStageOperator {
 
       // Record stat before we check for limit so we can propagate to query response
       _statMap.merge(StatKey.NUM_GROUPS, _groupByExecutor.getNumGroups());
+      _statMap.merge(StatKey.SPILLED_PARTITIONS, _groupByExecutor.getNumSpilledPartitions());
+      _statMap.merge(StatKey.SPILLED_GROUPS, _groupByExecutor.getNumSpilledGroups());
+      _statMap.merge(StatKey.SPILLED_BYTES, _groupByExecutor.getSpilledBytes());
 
       if (rows.isEmpty()) {
         return _eosBlock;
@@ -353,6 +367,17 @@ public class AggregateOperator extends MultiStageOperator {
           matchedBitmap.add(rowId);
         }
       }
+    } else if (block.isColumnarHeap()) {
+      ColumnarHeapDataBlock columnarBlock = block.asColumnarHeap();
+      int[] filterValues = columnarBlock.getIntColumn(filterArgId);
+      RoaringBitmap nullBitmap = columnarBlock.getNullBitmap(filterArgId);
+      int numRows = columnarBlock.getNumRows();
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        // Treat NULL filter values as non-matching (SQL WHERE clause semantics).
+        if (filterValues[rowId] == 1 && (nullBitmap == null || !nullBitmap.contains(rowId))) {
+          matchedBitmap.add(rowId);
+        }
+      }
     } else {
       DataBlock dataBlock = block.asSerialized().getDataBlock();
       int numRows = dataBlock.getNumberOfRows();
@@ -385,6 +410,16 @@ public class AggregateOperator extends MultiStageOperator {
               new RowBasedBlockValSet(dataSchema.getColumnDataType(colId), rows, colId, true));
         }
       }
+    } else if (block.isColumnarHeap()) {
+      ColumnarHeapDataBlock columnarBlock = block.asColumnarHeap();
+      for (ExpressionContext expression : expressions) {
+        String identifier = expression.getIdentifier();
+        if (identifier != null) {
+          int colId = fromIdentifierToColId(identifier);
+          blockValSetMap.put(expression,
+              new ColumnarHeapBlockValSet(dataSchema.getColumnDataType(colId), columnarBlock, colId));
+        }
+      }
     } else {
       DataBlock dataBlock = block.asSerialized().getDataBlock();
       for (ExpressionContext expression : expressions) {
@@ -419,6 +454,17 @@ public class AggregateOperator extends MultiStageOperator {
                   matchedBitmap, true));
         }
       }
+    } else if (block.isColumnarHeap()) {
+      // Select the matched rows once and share the filtered columns between all the expressions.
+      ColumnarHeapDataBlock filteredBlock = block.asColumnarHeap().select(matchedBitmap.toArray(), numMatchedRows);
+      for (ExpressionContext expression : expressions) {
+        String identifier = expression.getIdentifier();
+        if (identifier != null) {
+          int colId = fromIdentifierToColId(identifier);
+          blockValSetMap.put(expression,
+              new ColumnarHeapBlockValSet(dataSchema.getColumnDataType(colId), filteredBlock, colId));
+        }
+      }
     } else {
       DataBlock dataBlock = block.asSerialized().getDataBlock();
       for (ExpressionContext expression : expressions) {
@@ -447,6 +493,13 @@ public class AggregateOperator extends MultiStageOperator {
         values[rowId] = rows.get(rowId)[colId];
       }
       return values;
+    } else if (block.isColumnarHeap()) {
+      Object[] values = new Object[numRows];
+      ColumnarHeapDataBlock columnarBlock = block.asColumnarHeap();
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        values[rowId] = columnarBlock.getValue(rowId, colId);
+      }
+      return values;
     } else {
       return DataBlockExtractUtils.extractAggResult(block.asSerialized().getDataBlock(), colId, aggFunction);
     }
@@ -477,7 +530,13 @@ public class AggregateOperator extends MultiStageOperator {
     /// Allocated memory in bytes for this operator or its children in the same stage.
     ALLOCATED_MEMORY_BYTES(StatMap.Type.LONG),
     /// Time spent on GC while this operator or its children in the same stage were running.
-    GC_TIME_MS(StatMap.Type.LONG);
+    GC_TIME_MS(StatMap.Type.LONG),
+    /// Number of partitions the groups were spilled to, or 0 when nothing was spilled.
+    SPILLED_PARTITIONS(StatMap.Type.INT),
+    /// Number of groups written to disk. A group spilled multiple times is counted each time.
+    SPILLED_GROUPS(StatMap.Type.LONG),
+    /// Number of bytes written to disk.
+    SPILLED_BYTES(StatMap.Type.LONG);
 
     private final StatMap.Type _type;
 
@@ -204,26 +204,26 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     int numRows = 0;
     MseBlock rightBlock = _rightInput.nextBlock();
     while (rightBlock.isData()) {
-      List<Object[]> rows = ((MseBlock.Data) rightBlock).asRowHeap().getRows();
-      // Row based overflow check.
-      if (rows.size() + numRows > _maxRowsInJoin) {
+      MseBlock.Data dataBlock = (MseBlock.Data) rightBlock;
+      int numRowsToAdd = dataBlock.getNumRows();
+      // Row based overflow check. Operators that can spill the right table to disk bound its memory usage themselves.
+      if (!isRightTableSpillEnabled() && numRowsToAdd + numRows > _maxRowsInJoin) {
         if (_joinOverflowMode == JoinOverFlowMode.THROW) {
           // Record stat before we throw so it propagates to query response
-          _statMap.merge(StatKey.MAX_ROWS_IN_JOIN, numRows + rows.size());
+          _statMap.merge(StatKey.MAX_ROWS_IN_JOIN, numRows + numRowsToAdd);
           throwForJoinRowLimitExceeded(
               "Cannot build in memory hash table for join operator, reached number of rows limit: " + _maxRowsInJoin);
         } else {
           // Just fill up the buffer.
-          int remainingRows = _maxRowsInJoin - numRows;
-          rows = rows.subList(0, remainingRows);
+          numRowsToAdd = _maxRowsInJoin - numRows;
           _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
           // setting only the rightTableOperator to be early terminated and awaits EOS block next.
           _rightInput.earlyTerminate();
         }
       }
 
-      addRowsToRightTable(rows);
-      numRows += rows.size();
+      addBlockToRightTable(dataBlock, numRowsToAdd);
+      numRows += numRowsToAdd;
       checkTerminationAndSampleUsage();
       rightBlock = _rightInput.nextBlock();
     }
@@ -241,6 +241,19 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     LOGGER.trace("Finished building right table for join operator");
   }
 
+  /// Returns `true` when the right table can be spilled to disk once it grows too large, in which case the
+  /// [#_maxRowsInJoin] limit is not applied while building the right table.
+  protected boolean isRightTableSpillEnabled() {
+    return false;
+  }
+
+  /// Adds the first `numRows` rows of the given block to the right table. By default the block is converted into rows,
+  /// operators that can consume other block formats directly override this method.
+  protected void addBlockToRightTable(MseBlock.Data block, int numRows) {
+    List<Object[]> rows = block.asRowHeap().getRows();
+    addRowsToRightTable(numRows < rows.size() ? rows.subList(0, numRows) : rows);
+  }
+
   protected abstract void addRowsToRightTable(List<Object[]> rows);
 
   protected abstract void finishBuildingRightTable();
@@ -270,14 +283,23 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
           return leftBlock;
         }
       }
-      List<Object[]> rows = buildJoinedRows((MseBlock.Data) leftBlock);
+      MseBlock.Data joinedBlock = buildJoinedBlock((MseBlock.Data) leftBlock);
       checkTerminationAndSampleUsage();
-      if (!rows.isEmpty()) {
-        return new RowHeapDataBlock(rows, _resultSchema);
+      if (joinedBlock != null) {
+        return joinedBlock;
       }
     }
   }
 
+  /// Joins the given left block with the right table, returning `null` when no row is produced. By default the rows
+  /// built by [#buildJoinedRows(MseBlock.Data)] are returned, operators that can consume other block formats directly
+  /// override this method.
+  @Nullable
+  protected MseBlock.Data buildJoinedBlock(MseBlock.Data leftBlock) {
+    List<Object[]> rows = buildJoinedRows(leftBlock);
+    return rows.isEmpty() ? null : new RowHeapDataBlock(rows, _resultSchema);
+  }
+
   protected abstract List<Object[]> buildJoinedRows(MseBlock.Data leftBlock);
 
   protected abstract List<Object[]> buildNonMatchRightRows();
@@ -398,7 +420,11 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     /// Allocated memory in bytes for this operator or its children in the same stage.
     ALLOCATED_MEMORY_BYTES(StatMap.Type.LONG),
     /// Time spent on GC while this operator or its children in the same stage were running.
-    GC_TIME_MS(StatMap.Type.LONG);
+    GC_TIME_MS(StatMap.Type.LONG),
+    /// Number of bytes written to spill files when the right table did not fit in the memory budget.
+    SPILLED_BYTES(StatMap.Type.LONG),
+    /// Number of partitions both join inputs were split into when the right table was spilled.
+    SPILLED_PARTITIONS(StatMap.Type.INT);
 
     private final StatMap.Type _type;
 
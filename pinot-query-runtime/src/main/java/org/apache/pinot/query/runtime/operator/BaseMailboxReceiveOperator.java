@@ -246,7 +246,11 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
     /// Allocated memory in bytes for this operator or its children in the same stage.
     ALLOCATED_MEMORY_BYTES(StatMap.Type.LONG),
     /// Time spent on GC while this operator or its children in the same stage were running.
-    GC_TIME_MS(StatMap.Type.LONG);
+    GC_TIME_MS(StatMap.Type.LONG),
+    /// Number of sorted runs spilled to disk by the sorted mailbox receive operator.
+    SPILLED_RUNS(StatMap.Type.INT),
+    /// Number of bytes written to disk by the sorted mailbox receive operator.
+    SPILLED_BYTES(StatMap.Type.LONG);
 
     private final StatMap.Type _type;
 
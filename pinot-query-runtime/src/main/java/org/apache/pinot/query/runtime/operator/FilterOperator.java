@@ -21,10 +21,13 @@ package org.apache.pinot.query.runtime.operator;
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.planner.plannode.FilterNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
@@ -56,6 +59,7 @@ public class FilterOperator extends MultiStageOperator {
   private final MultiStageOperator _input;
   private final TransformOperand _filterOperand;
   private final DataSchema _dataSchema;
+  private final boolean _useColumnarBlocks;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
   public FilterOperator(OpChainExecutionContext context, MultiStageOperator input, FilterNode node) {
@@ -65,6 +69,8 @@ public class FilterOperator extends MultiStageOperator {
     _filterOperand = TransformOperandFactory.getTransformOperand(node.getCondition(), _dataSchema);
     Preconditions.checkState(_filterOperand.getResultType() == ColumnDataType.BOOLEAN,
         "Filter operand must return BOOLEAN, got: %s", _filterOperand.getResultType());
+    _useColumnarBlocks = QueryOptionsUtils.isUseColumnarBlocks(context.getOpChainMetadata())
+        && ColumnarHeapDataBlock.isSupported(_dataSchema);
   }
 
   @Override
@@ -105,6 +111,13 @@ public class FilterOperator extends MultiStageOperator {
         return block;
       }
       MseBlock.Data dataBlock = (MseBlock.Data) block;
+      if (_useColumnarBlocks || dataBlock.isColumnarHeap()) {
+        ColumnarHeapDataBlock filteredBlock = filterColumnar(dataBlock.asColumnarHeap());
+        if (filteredBlock != null) {
+          return filteredBlock;
+        }
+        continue;
+      }
       List<Object[]> rows = new ArrayList<>();
       for (Object[] row : dataBlock.asRowHeap().getRows()) {
         Object filterResult = _filterOperand.apply(row);
@@ -118,6 +131,26 @@ public class FilterOperator extends MultiStageOperator {
     }
   }
 
+  /// Filters a columnar block without materializing its rows. The filter reads its operands straight from the input
+  /// columns and the output block is created by selecting the matching row ids from the input columns.
+  /// @return the filtered block or `null` if no row matches.
+  @Nullable
+  private ColumnarHeapDataBlock filterColumnar(ColumnarHeapDataBlock block) {
+    int numRows = block.getNumRows();
+    int[] matchedRowIds = new int[numRows];
+    int numMatchedRows = 0;
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      Object filterResult = _filterOperand.apply(block, rowId);
+      if (BooleanUtils.isTrueInternalValue(filterResult)) {
+        matchedRowIds[numMatchedRows++] = rowId;
+      }
+    }
+    if (numMatchedRows == 0) {
+      return null;
+    }
+    return numMatchedRows == numRows ? block : block.select(matchedRowIds, numMatchedRows);
+  }
+
   @Override
   public StatMap<StatKey> copyStatMaps() {
     return new StatMap<>(_statMap);
@@ -19,42 +19,75 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions.JoinHintOptions;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.planner.partitioning.KeySelectorFactory;
 import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
+import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.operator.join.DoubleLookupTable;
 import org.apache.pinot.query.runtime.operator.join.FloatLookupTable;
 import org.apache.pinot.query.runtime.operator.join.IntLookupTable;
 import org.apache.pinot.query.runtime.operator.join.LongLookupTable;
 import org.apache.pinot.query.runtime.operator.join.LookupTable;
 import org.apache.pinot.query.runtime.operator.join.ObjectLookupTable;
+import org.apache.pinot.query.runtime.operator.spill.RowSizeEstimator;
+import org.apache.pinot.query.runtime.operator.spill.SpillFile;
+import org.apache.pinot.query.runtime.operator.spill.SpillManager;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.exception.QueryErrorCode;
 
 
 /// This `HashJoinOperator` join algorithm with join keys. Right table is materialized into a hash table.
-// TODO: Support memory size based resource limit.
+///
+/// When a spill threshold is configured (see [JoinHintOptions#JOIN_SPILL_THRESHOLD_BYTES]) and the estimated size of
+/// the right table crosses it, the operator switches to a grace hash join: the right rows are hash partitioned by join
+/// key into local [SpillFile]s, then the whole left input is partitioned the same way, and finally each partition is
+/// joined in memory one at a time. Rows with null join keys never match, so they are not spilled and are handled as
+/// in the in-memory join.
+///
+/// The number of partitions is configured with [SpillManager#getNumSpillPartitions()]. A partition whose right rows
+/// still exceed the spill threshold is re-partitioned (both sides, with a different hash) before being joined, up to
+/// [SpillManager#getMaxSpillRecursionDepth()] times. Partitions with a single join key can not be split further, so
+/// they are always joined in memory.
+///
+/// Columnar input blocks (see [ColumnarHeapDataBlock]) are consumed without converting them into rows first: join
+/// keys are read straight from the key columns on both sides. SEMI and ANTI joins select the matching row ids of the
+/// left block, other joins only materialize the left rows that are emitted. Right rows are still materialized because
+/// the right table stores rows, and spilled rows are always processed as rows.
 @SuppressWarnings("unchecked")
 public class HashJoinOperator extends BaseJoinOperator {
   private static final String EXPLAIN_NAME = "HASH_JOIN";
   private static final String ADD_ROWS_TO_RIGHT_TABLE_SCOPE = "HashJoinOperator#addRowsToRightTable";
   private static final String BUILD_JOINED_ROWS_SCOPE = "HashJoinOperator#buildJoinedRows";
   private static final String BUILD_NON_MATCH_RIGHT_ROWS_SCOPE = "HashJoinOperator#buildNonMatchRightRows";
+  private static final String SPILL_SCOPE = "HashJoinOperator#spill";
 
   // Placeholder for BitSet in _matchedRightRows when all keys are unique in the right table.
   protected static final BitSet BIT_SET_PLACEHOLDER = new BitSet(0);
 
   protected final KeySelector<?> _leftKeySelector;
   protected final KeySelector<?> _rightKeySelector;
+  /// Ids of the key columns, used to read the join keys of columnar blocks.
+  private final int[] _leftKeyIds;
+  private final int[] _rightKeyIds;
   @Nullable
   protected LookupTable _rightTable;
   // Track matched right rows for right join and full join to output non-matched right rows.
@@ -66,6 +99,38 @@ public class HashJoinOperator extends BaseJoinOperator {
   @Nullable
   private List<Object[]> _nullKeyRightRows;
 
+  // Below are used to spill both inputs to disk when the right table does not fit in memory.
+  private final List<Integer> _leftKeys;
+  private final DataSchema _leftSchema;
+  /// Schema of the right input, required to spill the right rows. `null` when it cannot be resolved, in which case
+  /// spilling is disabled.
+  @Nullable
+  private final DataSchema _rightSchema;
+  /// Estimated right table size in bytes that triggers spilling, or `0` when spilling is disabled.
+  private final long _spillThresholdBytes;
+  private final int _numSpillPartitions;
+  private final int _maxSpillRecursionDepth;
+  private long _estimatedRightTableBytes;
+  /// Non-null once the right table has been spilled. Files are moved to [#_spillPartitions] once the left input is
+  /// spilled as well.
+  @Nullable
+  private SpillFile[] _rightSpillFiles;
+  @Nullable
+  private SpillFile[] _leftSpillFiles;
+  /// EOS of the left input, set once the left input has been fully partitioned into [#_leftSpillFiles].
+  @Nullable
+  private MseBlock.Eos _leftEos;
+  /// Spilled partitions left to join. Re-partitioned partitions are replaced by their sub-partitions at the head.
+  private final ArrayDeque<SpillPartition> _spillPartitions = new ArrayDeque<>();
+  /// Partition being joined (or re-partitioned). Its files are closed (and deleted) once it is consumed.
+  @Nullable
+  private SpillPartition _currentSpillPartition;
+  @Nullable
+  private SpillFile.Reader _leftSpillReader;
+  /// Rows to emit before joining the spilled partitions, e.g. the left rows with null join keys.
+  @Nullable
+  private List<Object[]> _pendingRows;
+
   public HashJoinOperator(OpChainExecutionContext context, MultiStageOperator leftInput, DataSchema leftSchema,
       MultiStageOperator rightInput, JoinNode node) {
     super(context, leftInput, leftSchema, rightInput, node);
@@ -73,10 +138,18 @@ public class HashJoinOperator extends BaseJoinOperator {
     Preconditions.checkState(!leftKeys.isEmpty(), "Hash join operator requires join keys");
     _leftKeySelector = KeySelectorFactory.getKeySelector(leftKeys);
     _rightKeySelector = KeySelectorFactory.getKeySelector(node.getRightKeys());
+    _leftKeyIds = toKeyIds(leftKeys);
+    _rightKeyIds = toKeyIds(node.getRightKeys());
     _rightTable = createLookupTable(leftKeys, leftSchema);
     _matchedRightRows = needUnmatchedRightRows() ? new HashMap<>() : null;
     // Initialize _nullKeyRightRows for both RIGHT and FULL JOINs
     _nullKeyRightRows = needUnmatchedRightRows() ? new ArrayList<>() : null;
+    _leftKeys = leftKeys;
+    _leftSchema = leftSchema;
+    _rightSchema = getRightSchema(node, leftSchema);
+    _spillThresholdBytes = getSpillThresholdBytes(context.getOpChainMetadata(), node.getNodeHint());
+    _numSpillPartitions = SpillManager.getNumSpillPartitions();
+    _maxSpillRecursionDepth = SpillManager.getMaxSpillRecursionDepth();
   }
 
   /// Constructor that takes the schema for NonEquiEvaluator as an argument
@@ -87,8 +160,71 @@ public class HashJoinOperator extends BaseJoinOperator {
     Preconditions.checkState(!leftKeys.isEmpty(), "Hash join operator requires join keys");
     _leftKeySelector = KeySelectorFactory.getKeySelector(leftKeys);
     _rightKeySelector = KeySelectorFactory.getKeySelector(node.getRightKeys());
+    _leftKeyIds = toKeyIds(leftKeys);
+    _rightKeyIds = toKeyIds(node.getRightKeys());
     _rightTable = createLookupTable(leftKeys, leftSchema);
     _matchedRightRows = needUnmatchedRightRows() ? new HashMap<>() : null;
+    _leftKeys = leftKeys;
+    _leftSchema = leftSchema;
+    _rightSchema = getRightSchema(node, leftSchema);
+    _spillThresholdBytes = getSpillThresholdBytes(context.getOpChainMetadata(), node.getNodeHint());
+    _numSpillPartitions = SpillManager.getNumSpillPartitions();
+    _maxSpillRecursionDepth = SpillManager.getMaxSpillRecursionDepth();
+  }
+
+  private static long getSpillThresholdBytes(Map<String, String> opChainMetadata,
+      @Nullable PlanNode.NodeHint nodeHint) {
+    if (nodeHint != null) {
+      Map<String, String> joinOptions = nodeHint.getHintOptions().get(PinotHintOptions.JOIN_HINT_OPTIONS);
+      if (joinOptions != null) {
+        String spillThresholdBytesStr = joinOptions.get(JoinHintOptions.JOIN_SPILL_THRESHOLD_BYTES);
+        if (spillThresholdBytesStr != null) {
+          return Long.parseLong(spillThresholdBytesStr);
+        }
+      }
+    }
+    Long spillThresholdBytes = QueryOptionsUtils.getJoinSpillThresholdBytes(opChainMetadata);
+    return spillThresholdBytes != null ? spillThresholdBytes : 0;
+  }
+
+  @Nullable
+  private static DataSchema getRightSchema(JoinNode node, DataSchema leftSchema) {
+    List<PlanNode> inputs = node.getInputs();
+    if (inputs.size() == 2) {
+      return inputs.get(1).getDataSchema();
+    }
+    // Fall back to the right columns of the joined rows, which are not available for SEMI and ANTI joins
+    DataSchema resultSchema = node.getDataSchema();
+    int numLeftColumns = leftSchema.size();
+    int numResultColumns = resultSchema.size();
+    if (numResultColumns <= numLeftColumns) {
+      return null;
+    }
+    return new DataSchema(Arrays.copyOfRange(resultSchema.getColumnNames(), numLeftColumns, numResultColumns),
+        Arrays.copyOfRange(resultSchema.getColumnDataTypes(), numLeftColumns, numResultColumns));
+  }
+
+  private static int[] toKeyIds(List<Integer> keys) {
+    return keys.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /// Returns the join key of a row of a columnar block, reading the key columns directly. Returns the same key as the
+  /// [KeySelector] over the row, except that multi-column keys with a null value are returned as `null`, as they
+  /// never match either.
+  @Nullable
+  private static Object getKey(ColumnarHeapDataBlock block, int rowId, int[] keyIds) {
+    if (keyIds.length == 1) {
+      return block.getValue(rowId, keyIds[0]);
+    }
+    Object[] values = new Object[keyIds.length];
+    for (int i = 0; i < keyIds.length; i++) {
+      Object value = block.getValue(rowId, keyIds[i]);
+      if (value == null) {
+        return null;
+      }
+      values[i] = value;
+    }
+    return new Key(values);
   }
 
   private static LookupTable createLookupTable(List<Integer> joinKeys, DataSchema schema) {
@@ -114,21 +250,193 @@ public class HashJoinOperator extends BaseJoinOperator {
     return EXPLAIN_NAME;
   }
 
+  @Override
+  protected boolean isRightTableSpillEnabled() {
+    return _spillThresholdBytes > 0 && _rightSchema != null;
+  }
+
   @Override
   protected void addRowsToRightTable(List<Object[]> rows) {
+    if (_rightSpillFiles != null) {
+      spillRightRows(rows);
+      return;
+    }
+    boolean spillEnabled = isRightTableSpillEnabled();
+    for (Object[] row : rows) {
+      addRowToRightTable(_rightKeySelector.getKey(row), row, spillEnabled);
+    }
+    if (spillEnabled && _estimatedRightTableBytes > _spillThresholdBytes) {
+      spillRightTable();
+    }
+  }
+
+  /// Adds a columnar block reading the join keys from the key columns. The rows are only materialized to be stored in
+  /// the right table, so rows with null keys are not materialized unless they have to be emitted.
+  @Override
+  protected void addBlockToRightTable(MseBlock.Data block, int numRows) {
+    if (!block.isColumnarHeap() || _rightSpillFiles != null) {
+      super.addBlockToRightTable(block, numRows);
+      return;
+    }
+    ColumnarHeapDataBlock columnarBlock = block.asColumnarHeap();
+    int numColumns = columnarBlock.getDataSchema().size();
+    boolean spillEnabled = isRightTableSpillEnabled();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      Object key = getKey(columnarBlock, rowId, _rightKeyIds);
+      if (key == null && _nullKeyRightRows == null) {
+        continue;
+      }
+      addRowToRightTable(key, columnarBlock.getRow(rowId, new Object[numColumns]), spillEnabled);
+    }
+    if (spillEnabled && _estimatedRightTableBytes > _spillThresholdBytes) {
+      spillRightTable();
+    }
+  }
+
+  private void addRowToRightTable(@Nullable Object key, Object[] row, boolean spillEnabled) {
     assert _rightTable != null : "Right table should not be null when adding rows";
+    // Skip rows with null join keys - they should not participate in equi-joins per SQL standard
+    if (isNullKey(key)) {
+      // For RIGHT and FULL JOIN, we need to preserve null key rows for the final output
+      if (_nullKeyRightRows != null) {
+        _nullKeyRightRows.add(row);
+      }
+      return;
+    }
+    checkTerminationAndSampleUsagePeriodically(_rightTable.size(), ADD_ROWS_TO_RIGHT_TABLE_SCOPE);
+    _rightTable.addRow(key, row);
+    if (spillEnabled) {
+      _estimatedRightTableBytes += RowSizeEstimator.estimateRowSize(row);
+    }
+  }
+
+  /// Moves the rows already added to the right table into spill files. All the following right rows are spilled
+  /// directly, and the join is performed partition by partition once the left input is spilled as well.
+  private void spillRightTable() {
+    assert _rightTable != null && _rightSchema != null;
+    logger().info("Spilling right table of join operator with {} keys and estimated size of {} bytes to disk",
+        _rightTable.size(), _estimatedRightTableBytes);
+    _rightSpillFiles = createSpillFiles("join-right-", _rightSchema);
+    _statMap.merge(StatKey.SPILLED_PARTITIONS, _numSpillPartitions);
+    try {
+      for (Map.Entry<Object, Object> entry : _rightTable.entrySet()) {
+        SpillFile spillFile = _rightSpillFiles[getSpillPartition(entry.getKey(), 0)];
+        Object value = entry.getValue();
+        if (value instanceof Object[]) {
+          spillFile.addRow((Object[]) value);
+        } else {
+          spillFile.addRows((List<Object[]>) value);
+        }
+        checkTerminationAndSampleUsagePeriodically((int) spillFile.getNumRows(), SPILL_SCOPE);
+      }
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to spill right table of join operator", e);
+    }
+    _rightTable = null;
+    _matchedRightRows = null;
+    _estimatedRightTableBytes = 0;
+  }
+
+  private void spillRightRows(List<Object[]> rows) {
+    assert _rightSpillFiles != null;
+    try {
+      for (Object[] row : rows) {
+        Object key = _rightKeySelector.getKey(row);
+        if (isNullKey(key)) {
+          if (_nullKeyRightRows != null) {
+            _nullKeyRightRows.add(row);
+          }
+          continue;
+        }
+        SpillFile spillFile = _rightSpillFiles[getSpillPartition(key, 0)];
+        spillFile.addRow(row);
+        checkTerminationAndSampleUsagePeriodically((int) spillFile.getNumRows(), SPILL_SCOPE);
+      }
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to spill right rows of join operator", e);
+    }
+  }
+
+  /// Left rows with null join keys never match, so they are not spilled. The ones that need to be emitted (for LEFT,
+  /// FULL and ANTI joins) are added to `nullKeyRows` instead.
+  private void spillLeftRows(List<Object[]> rows, List<Object[]> nullKeyRows)
+      throws IOException {
+    assert _leftSpillFiles != null;
     for (Object[] row : rows) {
-      Object key = _rightKeySelector.getKey(row);
-      // Skip rows with null join keys - they should not participate in equi-joins per SQL standard
+      Object key = _leftKeySelector.getKey(row);
       if (isNullKey(key)) {
-        // For RIGHT and FULL JOIN, we need to preserve null key rows for the final output
-        if (_nullKeyRightRows != null) {
-          _nullKeyRightRows.add(row);
+        if (_joinType == JoinRelType.ANTI) {
+          nullKeyRows.add(row);
+        } else if (needUnmatchedLeftRows()) {
+          nullKeyRows.add(joinRow(row, null));
         }
         continue;
       }
-      checkTerminationAndSampleUsagePeriodically(_rightTable.size(), ADD_ROWS_TO_RIGHT_TABLE_SCOPE);
-      _rightTable.addRow(key, row);
+      SpillFile spillFile = _leftSpillFiles[getSpillPartition(key, 0)];
+      spillFile.addRow(row);
+      checkTerminationAndSampleUsagePeriodically((int) spillFile.getNumRows(), SPILL_SCOPE);
+    }
+  }
+
+  /// Partitions keys with a different hash function than the one used to exchange the rows between workers, otherwise
+  /// all the keys received by a worker could end up in the same partition. The keys of a re-partitioned partition all
+  /// share the same partition at the previous depths, so they are rehashed with the depth.
+  private int getSpillPartition(Object key, int depth) {
+    int hash = HashCommon.mix(key.hashCode());
+    if (depth > 0) {
+      hash = HashCommon.murmurHash3(hash + depth);
+    }
+    return (hash & Integer.MAX_VALUE) % _numSpillPartitions;
+  }
+
+  private SpillFile[] createSpillFiles(String prefix, DataSchema dataSchema) {
+    SpillFile[] spillFiles = new SpillFile[_numSpillPartitions];
+    try {
+      for (int i = 0; i < _numSpillPartitions; i++) {
+        spillFiles[i] = SpillManager.createSpillFile(prefix, dataSchema);
+      }
+    } catch (IOException e) {
+      closeSpillFiles(spillFiles);
+      throw QueryErrorCode.INTERNAL.asException("Failed to create spill files for join operator", e);
+    }
+    return spillFiles;
+  }
+
+  private static void closeSpillFiles(@Nullable SpillFile[] spillFiles) {
+    if (spillFiles == null) {
+      return;
+    }
+    for (int i = 0; i < spillFiles.length; i++) {
+      SpillFile spillFile = spillFiles[i];
+      if (spillFile != null) {
+        try {
+          spillFile.close();
+        } catch (IOException e) {
+          LOGGER.warn("Failed to close spill file: {}", spillFile, e);
+        }
+        spillFiles[i] = null;
+      }
+    }
+  }
+
+  private void closeSpillFiles() {
+    if (_leftSpillReader != null) {
+      try {
+        _leftSpillReader.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close spill file reader", e);
+      }
+      _leftSpillReader = null;
+    }
+    closeSpillFiles(_rightSpillFiles);
+    closeSpillFiles(_leftSpillFiles);
+    if (_currentSpillPartition != null) {
+      _currentSpillPartition.close();
+      _currentSpillPartition = null;
+    }
+    SpillPartition spillPartition;
+    while ((spillPartition = _spillPartitions.poll()) != null) {
+      spillPartition.close();
     }
   }
 
@@ -152,6 +460,14 @@ public class HashJoinOperator extends BaseJoinOperator {
 
   @Override
   protected void finishBuildingRightTable() {
+    if (_rightSpillFiles != null) {
+      try {
+        finishSpillFiles(_rightSpillFiles);
+      } catch (IOException e) {
+        throw QueryErrorCode.INTERNAL.asException("Failed to spill right rows of join operator", e);
+      }
+      return;
+    }
     assert _rightTable != null : "Right table should not be null when finishing building";
     _rightTable.finish();
   }
@@ -161,6 +477,222 @@ public class HashJoinOperator extends BaseJoinOperator {
     _rightTable = null;
     _matchedRightRows = null;
     _nullKeyRightRows = null;
+    closeSpillFiles();
+  }
+
+  @Override
+  public void close() {
+    closeSpillFiles();
+    super.close();
+  }
+
+  @Override
+  protected void earlyTerminateLeftInput() {
+    if (_leftEos != null) {
+      // The left input has already been consumed while spilling it
+      _eos = _leftEos;
+    } else {
+      super.earlyTerminateLeftInput();
+    }
+  }
+
+  @Override
+  protected MseBlock buildJoinedDataBlock() {
+    if (_rightSpillFiles == null) {
+      return super.buildJoinedDataBlock();
+    }
+    try {
+      return buildJoinedDataBlockFromSpillFiles();
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to read or write spill files of join operator", e);
+    }
+  }
+
+  private MseBlock buildJoinedDataBlockFromSpillFiles()
+      throws IOException {
+    assert _rightSpillFiles != null;
+    if (_leftEos == null) {
+      MseBlock.Eos eosBlock = spillLeftInput();
+      if (eosBlock.isError()) {
+        return eosBlock;
+      }
+      _leftEos = eosBlock;
+      if (_pendingRows != null) {
+        List<Object[]> rows = _pendingRows;
+        _pendingRows = null;
+        return new RowHeapDataBlock(rows, _resultSchema);
+      }
+    }
+    while (true) {
+      if (_eos != null) {
+        return _eos;
+      }
+      if (_leftSpillReader == null) {
+        if (_spillPartitions.isEmpty()) {
+          closeSpillFiles();
+          if (_nullKeyRightRows != null && !_nullKeyRightRows.isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(_nullKeyRightRows.size());
+            addNullKeyRightRows(rows);
+            _eos = _leftEos;
+            return new RowHeapDataBlock(rows, _resultSchema);
+          }
+          return _leftEos;
+        }
+        loadNextSpillPartition();
+      }
+      assert _leftSpillReader != null;
+      List<Object[]> leftRows = _leftSpillReader.nextRows();
+      if (leftRows == null) {
+        finishSpillPartition();
+        if (needUnmatchedRightRows()) {
+          List<Object[]> rows = new ArrayList<>();
+          addNonMatchRightRows(rows);
+          if (!rows.isEmpty()) {
+            return new RowHeapDataBlock(rows, _resultSchema);
+          }
+        }
+        continue;
+      }
+      List<Object[]> rows = buildJoinedRows(new RowHeapDataBlock(leftRows, _leftSchema));
+      checkTerminationAndSampleUsage();
+      if (!rows.isEmpty()) {
+        return new RowHeapDataBlock(rows, _resultSchema);
+      }
+    }
+  }
+
+  /// Consumes the whole left input, partitioning it into [#_leftSpillFiles]. The rows with null join keys that need
+  /// to be emitted are kept in [#_pendingRows].
+  private MseBlock.Eos spillLeftInput()
+      throws IOException {
+    _leftSpillFiles = createSpillFiles("join-left-", _leftSchema);
+    List<Object[]> nullKeyRows = new ArrayList<>();
+    MseBlock leftBlock = _leftInput.nextBlock();
+    while (leftBlock.isData()) {
+      spillLeftRows(((MseBlock.Data) leftBlock).asRowHeap().getRows(), nullKeyRows);
+      checkTerminationAndSampleUsage();
+      leftBlock = _leftInput.nextBlock();
+    }
+    finishSpillFiles(_leftSpillFiles);
+    assert _rightSpillFiles != null;
+    for (int i = 0; i < _numSpillPartitions; i++) {
+      _spillPartitions.add(new SpillPartition(_rightSpillFiles[i], _leftSpillFiles[i], 0));
+      _rightSpillFiles[i] = null;
+      _leftSpillFiles[i] = null;
+    }
+    if (!nullKeyRows.isEmpty()) {
+      _pendingRows = nullKeyRows;
+    }
+    return (MseBlock.Eos) leftBlock;
+  }
+
+  private void finishSpillFiles(SpillFile[] spillFiles)
+      throws IOException {
+    long spilledBytes = 0;
+    for (SpillFile spillFile : spillFiles) {
+      spillFile.finish();
+      spilledBytes += spillFile.getSizeInBytes();
+    }
+    _statMap.merge(StatKey.SPILLED_BYTES, spilledBytes);
+  }
+
+  /// Polls the next spilled partition, re-partitioning it while its right rows do not fit in memory, then builds the
+  /// in-memory right table and opens the reader over the matching left rows.
+  private void loadNextSpillPartition()
+      throws IOException {
+    while (true) {
+      SpillPartition spillPartition = _spillPartitions.poll();
+      assert spillPartition != null;
+      _currentSpillPartition = spillPartition;
+      LookupTable rightTable = loadRightTable(spillPartition);
+      if (rightTable != null) {
+        _rightTable = rightTable;
+        _matchedRightRows = needUnmatchedRightRows() ? new HashMap<>() : null;
+        _leftSpillReader = spillPartition._leftSpillFile.openReader();
+        return;
+      }
+      repartition(spillPartition);
+      _currentSpillPartition = null;
+    }
+  }
+
+  /// Builds the in-memory right table of the given partition, or returns `null` when it should be re-partitioned
+  /// instead, i.e. when its estimated size exceeds the spill threshold, it has more than one key and the maximum
+  /// recursion depth is not reached yet.
+  @Nullable
+  private LookupTable loadRightTable(SpillPartition spillPartition)
+      throws IOException {
+    LookupTable rightTable = createLookupTable(_leftKeys, _leftSchema);
+    long estimatedBytes = 0;
+    try (SpillFile.Reader reader = spillPartition._rightSpillFile.openReader()) {
+      List<Object[]> rows;
+      while ((rows = reader.nextRows()) != null) {
+        for (Object[] row : rows) {
+          checkTerminationAndSampleUsagePeriodically(rightTable.size(), ADD_ROWS_TO_RIGHT_TABLE_SCOPE);
+          rightTable.addRow(_rightKeySelector.getKey(row), row);
+          estimatedBytes += RowSizeEstimator.estimateRowSize(row);
+        }
+        if (estimatedBytes > _spillThresholdBytes && rightTable.size() > 1
+            && spillPartition._depth < _maxSpillRecursionDepth) {
+          return null;
+        }
+      }
+    }
+    if (estimatedBytes > _spillThresholdBytes) {
+      logger().warn("Joining spilled partition at depth {} with {} keys and estimated size of {} bytes in memory",
+          spillPartition._depth, rightTable.size(), estimatedBytes);
+    }
+    rightTable.finish();
+    return rightTable;
+  }
+
+  /// Splits both sides of the given partition into sub-partitions one level deeper, which are joined next.
+  private void repartition(SpillPartition spillPartition)
+      throws IOException {
+    assert _rightSchema != null;
+    int depth = spillPartition._depth + 1;
+    logger().info("Re-partitioning spilled partition of join operator with {} right rows at depth {}",
+        spillPartition._rightSpillFile.getNumRows(), depth);
+    SpillFile[] rightSpillFiles = createSpillFiles("join-right-", _rightSchema);
+    SpillFile[] leftSpillFiles = null;
+    try {
+      leftSpillFiles = createSpillFiles("join-left-", _leftSchema);
+      repartition(spillPartition._rightSpillFile, rightSpillFiles, _rightKeySelector, depth);
+      repartition(spillPartition._leftSpillFile, leftSpillFiles, _leftKeySelector, depth);
+    } catch (IOException | RuntimeException e) {
+      closeSpillFiles(rightSpillFiles);
+      closeSpillFiles(leftSpillFiles);
+      throw e;
+    }
+    spillPartition.close();
+    _statMap.merge(StatKey.SPILLED_PARTITIONS, _numSpillPartitions);
+    for (int i = _numSpillPartitions - 1; i >= 0; i--) {
+      _spillPartitions.addFirst(new SpillPartition(rightSpillFiles[i], leftSpillFiles[i], depth));
+    }
+  }
+
+  private void repartition(SpillFile spillFile, SpillFile[] spillFiles, KeySelector<?> keySelector, int depth)
+      throws IOException {
+    try (SpillFile.Reader reader = spillFile.openReader()) {
+      List<Object[]> rows;
+      while ((rows = reader.nextRows()) != null) {
+        for (Object[] row : rows) {
+          SpillFile partitionSpillFile = spillFiles[getSpillPartition(keySelector.getKey(row), depth)];
+          partitionSpillFile.addRow(row);
+          checkTerminationAndSampleUsagePeriodically((int) partitionSpillFile.getNumRows(), SPILL_SCOPE);
+        }
+      }
+    }
+    finishSpillFiles(spillFiles);
+  }
+
+  private void finishSpillPartition()
+      throws IOException {
+    assert _currentSpillPartition != null && _leftSpillReader != null;
+    _leftSpillReader.close();
+    _leftSpillReader = null;
+    _currentSpillPartition.close();
+    _currentSpillPartition = null;
   }
 
   @Override
@@ -171,42 +703,87 @@ public class HashJoinOperator extends BaseJoinOperator {
         return buildJoinedDataBlockSemi(leftBlock);
       case ANTI:
         return buildJoinedDataBlockAnti(leftBlock);
-      default: { // INNER, LEFT, RIGHT, FULL
-        if (_rightTable.isKeysUnique()) {
-          return buildJoinedDataBlockUniqueKeys(leftBlock);
-        } else {
-          return buildJoinedDataBlockDuplicateKeys(leftBlock);
-        }
+      default: // INNER, LEFT, RIGHT, FULL
+        return buildJoinedRows(new RowHeapLeftRows(leftBlock.asRowHeap().getRows(), _leftKeySelector));
+    }
+  }
+
+  /// Joins a columnar left block reading the join keys from the key columns. SEMI and ANTI joins return a selection
+  /// of the left block, other joins only materialize the left rows that are emitted.
+  @Nullable
+  @Override
+  protected MseBlock.Data buildJoinedBlock(MseBlock.Data leftBlock) {
+    if (!leftBlock.isColumnarHeap()) {
+      return super.buildJoinedBlock(leftBlock);
+    }
+    assert _rightTable != null : "Right table should not be null when building joined rows";
+    ColumnarHeapDataBlock block = leftBlock.asColumnarHeap();
+    if (_joinType == JoinRelType.SEMI || _joinType == JoinRelType.ANTI) {
+      return buildJoinedBlockSemiOrAnti(block);
+    }
+    List<Object[]> rows = buildJoinedRows(new ColumnarLeftRows(block, _leftKeyIds, _leftColumnSize));
+    return rows.isEmpty() ? null : new RowHeapDataBlock(rows, _resultSchema);
+  }
+
+  @Nullable
+  private ColumnarHeapDataBlock buildJoinedBlockSemiOrAnti(ColumnarHeapDataBlock block) {
+    assert _rightTable != null : "Right table should not be null when building joined rows";
+    boolean keepMatchedRows = _joinType == JoinRelType.SEMI;
+    int numRows = block.getNumRows();
+    int[] rowIds = new int[numRows];
+    int numSelectedRows = 0;
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      if (_rightTable.containsKey(getKey(block, rowId, _leftKeyIds)) == keepMatchedRows) {
+        checkTerminationAndSampleUsagePeriodically(numSelectedRows, BUILD_JOINED_ROWS_SCOPE);
+        rowIds[numSelectedRows++] = rowId;
       }
     }
+    if (numSelectedRows == 0) {
+      return null;
+    }
+    ColumnarHeapDataBlock selectedBlock = numSelectedRows == numRows ? block : block.select(rowIds, numSelectedRows);
+    // Same columns as the left block, only the schema is replaced
+    int[] colIds = new int[_leftColumnSize];
+    Arrays.setAll(colIds, i -> i);
+    return selectedBlock.project(colIds, _resultSchema);
+  }
+
+  private List<Object[]> buildJoinedRows(LeftRows leftRows) {
+    assert _rightTable != null : "Right table should not be null when building joined rows";
+    if (_rightTable.isKeysUnique()) {
+      return buildJoinedDataBlockUniqueKeys(leftRows);
+    } else {
+      return buildJoinedDataBlockDuplicateKeys(leftRows);
+    }
   }
 
-  private boolean handleNullKey(Object key, Object[] leftRow, List<Object[]> rows) {
+  private boolean handleNullKey(Object key, LeftRows leftRows, int rowId, List<Object[]> rows) {
     if (isNullKey(key)) {
       // For INNER joins, don't add anything when key is null
       if (_joinType == JoinRelType.LEFT || _joinType == JoinRelType.FULL) {
-        handleUnmatchedLeftRow(leftRow, rows);
+        handleUnmatchedLeftRow(leftRows, rowId, rows);
       }
       return true;
     }
     return false;
   }
 
-  private List<Object[]> buildJoinedDataBlockUniqueKeys(MseBlock.Data leftBlock) {
+  private List<Object[]> buildJoinedDataBlockUniqueKeys(LeftRows leftRows) {
     assert _rightTable != null : "Right table should not be null when building joined rows";
-    List<Object[]> leftRows = leftBlock.asRowHeap().getRows();
-    ArrayList<Object[]> rows = new ArrayList<>(leftRows.size());
+    int numLeftRows = leftRows.size();
+    ArrayList<Object[]> rows = new ArrayList<>(numLeftRows);
 
-    for (Object[] leftRow : leftRows) {
-      Object key = _leftKeySelector.getKey(leftRow);
+    for (int rowId = 0; rowId < numLeftRows; rowId++) {
+      Object key = leftRows.getKey(rowId);
       // Skip rows with null join keys - they should not participate in equi-joins per SQL standard
-      if (handleNullKey(key, leftRow, rows)) {
+      if (handleNullKey(key, leftRows, rowId, rows)) {
         continue;
       }
       Object[] rightRow = (Object[]) _rightTable.lookup(key);
       if (rightRow == null) {
-        handleUnmatchedLeftRow(leftRow, rows);
+        handleUnmatchedLeftRow(leftRows, rowId, rows);
       } else {
+        Object[] leftRow = leftRows.getRow(rowId);
         List<Object> resultRowView = joinRowView(leftRow, rightRow);
         if (matchNonEquiConditions(resultRowView)) {
           if (isMaxRowsLimitReached(rows.size())) {
@@ -227,21 +804,22 @@ public class HashJoinOperator extends BaseJoinOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockDuplicateKeys(MseBlock.Data leftBlock) {
+  private List<Object[]> buildJoinedDataBlockDuplicateKeys(LeftRows leftRows) {
     assert _rightTable != null : "Right table should not be null when building joined rows";
-    List<Object[]> leftRows = leftBlock.asRowHeap().getRows();
-    List<Object[]> rows = new ArrayList<>(leftRows.size());
+    int numLeftRows = leftRows.size();
+    List<Object[]> rows = new ArrayList<>(numLeftRows);
 
-    for (Object[] leftRow : leftRows) {
-      Object key = _leftKeySelector.getKey(leftRow);
+    for (int rowId = 0; rowId < numLeftRows; rowId++) {
+      Object key = leftRows.getKey(rowId);
       // Skip rows with null join keys - they should not participate in equi-joins per SQL standard
-      if (handleNullKey(key, leftRow, rows)) {
+      if (handleNullKey(key, leftRows, rowId, rows)) {
         continue;
       }
       List<Object[]> rightRows = (List<Object[]>) _rightTable.lookup(key);
       if (rightRows == null) {
-        handleUnmatchedLeftRow(leftRow, rows);
+        handleUnmatchedLeftRow(leftRows, rowId, rows);
       } else {
+        Object[] leftRow = leftRows.getRow(rowId);
         boolean maxRowsLimitReached = false;
         boolean hasMatchForLeftRow = false;
         int numRightRows = rightRows.size();
@@ -272,6 +850,12 @@ public class HashJoinOperator extends BaseJoinOperator {
     return rows;
   }
 
+  private void handleUnmatchedLeftRow(LeftRows leftRows, int rowId, List<Object[]> rows) {
+    if (needUnmatchedLeftRows()) {
+      handleUnmatchedLeftRow(leftRows.getRow(rowId), rows);
+    }
+  }
+
   private void handleUnmatchedLeftRow(Object[] leftRow, List<Object[]> rows) {
     if (needUnmatchedLeftRows()) {
       if (isMaxRowsLimitReached(rows.size())) {
@@ -316,9 +900,15 @@ public class HashJoinOperator extends BaseJoinOperator {
 
   @Override
   protected List<Object[]> buildNonMatchRightRows() {
+    List<Object[]> rows = new ArrayList<>();
+    addNonMatchRightRows(rows);
+    addNullKeyRightRows(rows);
+    return rows;
+  }
+
+  private void addNonMatchRightRows(List<Object[]> rows) {
     assert _rightTable != null : "Right table should not be null when building non-matched right rows";
     assert _matchedRightRows != null : "Matched right rows should not be null when building non-matched right rows";
-    List<Object[]> rows = new ArrayList<>();
     if (_rightTable.isKeysUnique()) {
       for (Map.Entry<Object, Object> entry : _rightTable.entrySet()) {
         Object[] rightRow = (Object[]) entry.getValue();
@@ -346,13 +936,98 @@ public class HashJoinOperator extends BaseJoinOperator {
         }
       }
     }
-    // Add unmatched null key rows from right side for RIGHT and FULL JOIN
+  }
+
+  /// Adds unmatched null key rows from right side for RIGHT and FULL JOIN.
+  private void addNullKeyRightRows(List<Object[]> rows) {
     if (_nullKeyRightRows != null) {
       for (Object[] nullKeyRow : _nullKeyRightRows) {
         checkTerminationAndSampleUsagePeriodically(rows.size(), BUILD_NON_MATCH_RIGHT_ROWS_SCOPE);
         rows.add(joinRow(null, nullKeyRow));
       }
     }
-    return rows;
+  }
+
+  /// The join keys and rows of a left block. Rows are only requested when they are emitted or compared with the
+  /// right rows, so that columnar blocks do not materialize the other rows.
+  private interface LeftRows {
+    int size();
+
+    @Nullable
+    Object getKey(int rowId);
+
+    Object[] getRow(int rowId);
+  }
+
+  private static class RowHeapLeftRows implements LeftRows {
+    final List<Object[]> _rows;
+    final KeySelector<?> _keySelector;
+
+    RowHeapLeftRows(List<Object[]> rows, KeySelector<?> keySelector) {
+      _rows = rows;
+      _keySelector = keySelector;
+    }
+
+    @Override
+    public int size() {
+      return _rows.size();
+    }
+
+    @Nullable
+    @Override
+    public Object getKey(int rowId) {
+      return _keySelector.getKey(_rows.get(rowId));
+    }
+
+    @Override
+    public Object[] getRow(int rowId) {
+      return _rows.get(rowId);
+    }
+  }
+
+  private static class ColumnarLeftRows implements LeftRows {
+    final ColumnarHeapDataBlock _block;
+    final int[] _keyIds;
+    final int _numColumns;
+
+    ColumnarLeftRows(ColumnarHeapDataBlock block, int[] keyIds, int numColumns) {
+      _block = block;
+      _keyIds = keyIds;
+      _numColumns = numColumns;
+    }
+
+    @Override
+    public int size() {
+      return _block.getNumRows();
+    }
+
+    @Nullable
+    @Override
+    public Object getKey(int rowId) {
+      return HashJoinOperator.getKey(_block, rowId, _keyIds);
+    }
+
+    @Override
+    public Object[] getRow(int rowId) {
+      return _block.getRow(rowId, new Object[_numColumns]);
+    }
+  }
+
+  /// The right and left rows of the same partition of join keys.
+  private static class SpillPartition {
+    final SpillFile _rightSpillFile;
+    final SpillFile _leftSpillFile;
+    /// How many times the rows were re-partitioned, `0` for the partitions of the inputs.
+    final int _depth;
+
+    SpillPartition(SpillFile rightSpillFile, SpillFile leftSpillFile, int depth) {
+      _rightSpillFile = rightSpillFile;
+      _leftSpillFile = leftSpillFile;
+      _depth = depth;
+    }
+
+    void close() {
+      closeSpillFiles(new SpillFile[]{_rightSpillFile, _leftSpillFile});
+    }
   }
 }
@@ -18,12 +18,16 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.PriorityQueue;
 import javax.annotation.Nullable;
 import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
@@ -40,18 +44,38 @@ import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import org.apache.pinot.core.util.DataBlockExtractUtils;
 import org.apache.pinot.query.planner.plannode.AggregateNode.AggType;
 import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGenerator;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGeneratorFactory;
+import org.apache.pinot.query.runtime.operator.spill.RowSizeEstimator;
+import org.apache.pinot.query.runtime.operator.spill.SpillFile;
+import org.apache.pinot.query.runtime.operator.spill.SpillManager;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+import org.apache.pinot.spi.exception.QueryErrorCode;
 import org.apache.pinot.spi.utils.CommonConstants.Server;
 import org.roaringbitmap.PeekableIntIterator;
 import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /// Class that executes the keyed group by aggregations for the multistage AggregateOperator.
+///
+/// When a spill threshold is configured (see [QueryOptionsUtils#getGroupBySpillThresholdBytes]), the groups are no
+/// longer capped by the groups limit. Instead, once the estimated size of the groups held in memory crosses the
+/// threshold (or the number of groups reaches the groups limit), all the groups are hash-partitioned by key and written
+/// to disk as serialized intermediate results, and aggregation starts over with empty result holders. When the results
+/// are requested, each partition is read back and re-aggregated on its own, so only the groups of one partition are
+/// held in memory at a time and the results are exact.
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class MultistageGroupByExecutor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultistageGroupByExecutor.class);
+  /// Number of groups sampled to estimate the heap size of a group.
+  private static final int NUM_SAMPLED_GROUPS = 16;
+  /// Estimated heap size of the hash table entry and result holder slots of a group, on top of its values.
+  private static final int GROUP_OVERHEAD_BYTES = 32;
+
   private final int[] _groupKeyIds;
   private final AggregationFunction[] _aggFunctions;
   private final int[] _filterArgIds;
@@ -63,14 +87,29 @@ public class MultistageGroupByExecutor {
   private final int _numGroupsLimit;
   private final int _numGroupsWarningLimit;
   private final boolean _filteredAggregationsSkipEmptyGroups;
+  private final int _maxInitialResultHolderCapacity;
 
   // Group By Result holders for each mode
-  private final GroupByResultHolder[] _aggregateResultHolders;
-  private final List<Object[]> _mergeResultHolder;
+  private GroupByResultHolder[] _aggregateResultHolders;
+  private List<Object[]> _mergeResultHolder;
 
   // Mapping from the row-key to a zero based integer index. This is used when we invoke the v1 aggregation functions
   // because they use the zero based integer indexes to store results.
-  private final GroupIdGenerator _groupIdGenerator;
+  private GroupIdGenerator _groupIdGenerator;
+
+  // Below are used when spilling is enabled, i.e. when _spillThresholdBytes is positive.
+  private final long _spillThresholdBytes;
+  private final int _numSpillPartitions;
+  private long _estimatedBytesPerGroup;
+  @Nullable
+  private DataSchema _spillSchema;
+  @Nullable
+  private SpillFile[] _spillFiles;
+  private boolean _spilled;
+  private int _numSpilledPartitions;
+  private long _numSpilledGroups;
+  private long _spilledBytes;
+  private int _numMergedGroups;
 
   public MultistageGroupByExecutor(int[] groupKeyIds, AggregationFunction[] aggFunctions, int[] filterArgIds,
       int maxFilterArgId, AggType aggType, boolean leafReturnFinalResult, DataSchema resultSchema,
@@ -83,31 +122,56 @@ public class MultistageGroupByExecutor {
     _leafReturnFinalResult = leafReturnFinalResult;
     _resultSchema = resultSchema;
 
-    int maxInitialResultHolderCapacity = getResolvedMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
+    _maxInitialResultHolderCapacity = getResolvedMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
 
     _numGroupsLimit = getNumGroupsLimit(opChainMetadata, nodeHint);
     _numGroupsWarningLimit = getNumGroupsWarningLimit(opChainMetadata);
+    _spillThresholdBytes = getSpillThresholdBytes(opChainMetadata, nodeHint);
+    _numSpillPartitions = SpillManager.getNumSpillPartitions();
 
     // By default, we compute all groups for SQL compliant results. However, we allow overriding this behavior via
     // query option for improved performance.
     _filteredAggregationsSkipEmptyGroups = QueryOptionsUtils.isFilteredAggregationsSkipEmptyGroups(opChainMetadata);
 
-    int numFunctions = aggFunctions.length;
-    if (!aggType.isInputIntermediateFormat()) {
+    initGroups();
+  }
+
+  /// Creates empty result holders and group id generator. When spilling is enabled, the groups are spilled before
+  /// reaching the groups limit, so the limit is not applied to the in-memory groups.
+  private void initGroups() {
+    int numGroupsLimit = _spillThresholdBytes > 0 ? Integer.MAX_VALUE : _numGroupsLimit;
+    int numFunctions = _aggFunctions.length;
+    if (!_aggType.isInputIntermediateFormat()) {
       _aggregateResultHolders = new GroupByResultHolder[numFunctions];
       for (int i = 0; i < numFunctions; i++) {
         _aggregateResultHolders[i] =
-            _aggFunctions[i].createGroupByResultHolder(maxInitialResultHolderCapacity, _numGroupsLimit);
+            _aggFunctions[i].createGroupByResultHolder(_maxInitialResultHolderCapacity, numGroupsLimit);
       }
       _mergeResultHolder = null;
     } else {
-      _mergeResultHolder = new ArrayList<>(maxInitialResultHolderCapacity);
+      _mergeResultHolder = new ArrayList<>(_maxInitialResultHolderCapacity);
       _aggregateResultHolders = null;
     }
 
     _groupIdGenerator =
-        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), groupKeyIds.length,
-            _numGroupsLimit, maxInitialResultHolderCapacity);
+        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), _groupKeyIds.length,
+            numGroupsLimit, _maxInitialResultHolderCapacity);
+  }
+
+  private static long getSpillThresholdBytes(Map<String, String> opChainMetadata,
+      @Nullable PlanNode.NodeHint nodeHint) {
+    if (nodeHint != null) {
+      Map<String, String> aggregateOptions = nodeHint.getHintOptions().get(PinotHintOptions.AGGREGATE_HINT_OPTIONS);
+      if (aggregateOptions != null) {
+        String spillThresholdBytesStr =
+            aggregateOptions.get(PinotHintOptions.AggregateOptions.GROUP_BY_SPILL_THRESHOLD_BYTES);
+        if (spillThresholdBytesStr != null) {
+          return Long.parseLong(spillThresholdBytesStr);
+        }
+      }
+    }
+    Long spillThresholdBytes = QueryOptionsUtils.getGroupBySpillThresholdBytes(opChainMetadata);
+    return spillThresholdBytes != null ? spillThresholdBytes : 0;
   }
 
   private int getNumGroupsLimit(Map<String, String> opChainMetadata, @Nullable PlanNode.NodeHint nodeHint) {
@@ -184,10 +248,16 @@ public class MultistageGroupByExecutor {
     } else {
       processMerge(block);
     }
+    if (_spillThresholdBytes > 0) {
+      spillIfNeeded();
+    }
   }
 
   /// Get aggregation result limited to first `maxRows` rows, ordered with `comparator`.
   public List<Object[]> getResult(Comparator<Object[]> comparator, int maxRows) {
+    if (_spilled) {
+      return getSpilledResult(comparator, maxRows);
+    }
     int numGroups = Math.min(_groupIdGenerator.getNumGroups(), maxRows);
     if (numGroups == 0) {
       return List.of();
@@ -232,6 +302,9 @@ public class MultistageGroupByExecutor {
 
   /// Get aggregation result limited to `maxRows` rows.
   public List<Object[]> getResult(int maxRows) {
+    if (_spilled) {
+      return getSpilledResult(null, maxRows);
+    }
     int numGroups = Math.min(_groupIdGenerator.getNumGroups(), maxRows);
     if (numGroups == 0) {
       return List.of();
@@ -293,7 +366,7 @@ public class MultistageGroupByExecutor {
   }
 
   public int getNumGroups() {
-    return _groupIdGenerator.getNumGroups();
+    return _spilled ? _numMergedGroups : _groupIdGenerator.getNumGroups();
   }
 
   public int getRowsProcessed() {
@@ -301,7 +374,301 @@ public class MultistageGroupByExecutor {
   }
 
   public boolean isNumGroupsLimitReached() {
-    return _groupIdGenerator.getNumGroups() == _numGroupsLimit;
+    // Groups are spilled instead of being dropped when spilling is enabled
+    return _spillThresholdBytes <= 0 && _groupIdGenerator.getNumGroups() == _numGroupsLimit;
+  }
+
+  /// Returns the number of spill partitions written, or 0 if the groups were never spilled.
+  public int getNumSpilledPartitions() {
+    return _numSpilledPartitions;
+  }
+
+  /// Returns the number of groups written to disk. The same group can be written multiple times.
+  public long getNumSpilledGroups() {
+    return _numSpilledGroups;
+  }
+
+  /// Returns the number of bytes written to disk. Only accurate after the result is computed.
+  public long getSpilledBytes() {
+    return _spilledBytes;
+  }
+
+  /// Deletes the spill files if any. Must be called when the executor is discarded before computing the result.
+  public void close() {
+    closeSpillFiles();
+  }
+
+  private void spillIfNeeded() {
+    int numGroups = _groupIdGenerator.getNumGroups();
+    if (numGroups == 0) {
+      return;
+    }
+    if (_estimatedBytesPerGroup == 0) {
+      _estimatedBytesPerGroup = estimateBytesPerGroup();
+    }
+    if (numGroups >= _numGroupsLimit || numGroups * _estimatedBytesPerGroup > _spillThresholdBytes) {
+      spillGroups();
+    }
+  }
+
+  /// Estimates the heap size of a group from the size of its key and results, sampled over the first groups.
+  private long estimateBytesPerGroup() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    long totalBytes = 0;
+    int numSampledGroups = 0;
+    while (numSampledGroups < NUM_SAMPLED_GROUPS && groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] row = groupKey._row;
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = getSpillValue(i, groupKey._groupId);
+      }
+      totalBytes += RowSizeEstimator.estimateRowSize(row);
+      numSampledGroups++;
+    }
+    return totalBytes / Math.max(numSampledGroups, 1) + GROUP_OVERHEAD_BYTES;
+  }
+
+  /// Writes all the in-memory groups to the spill partitions, and resets the in-memory groups.
+  private void spillGroups() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    int numGroups = _groupIdGenerator.getNumGroups();
+    if (_spillFiles == null) {
+      _spillSchema = getSpillSchema();
+      _spillFiles = new SpillFile[_numSpillPartitions];
+    }
+    assert _spillSchema != null;
+    LOGGER.debug("Spilling {} groups with estimated size of {} bytes", numGroups, numGroups * _estimatedBytesPerGroup);
+    ColumnDataType[] spillStoredTypes = _spillSchema.getStoredColumnDataTypes();
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    try {
+      while (groupKeyIterator.hasNext()) {
+        GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+        Object[] row = groupKey._row;
+        for (int i = 0; i < numFunctions; i++) {
+          row[numKeys + i] = getSpillValue(i, groupKey._groupId);
+        }
+        TypeUtils.convertRow(row, spillStoredTypes);
+        int partitionId = getSpillPartition(row, numKeys);
+        SpillFile spillFile = _spillFiles[partitionId];
+        if (spillFile == null) {
+          spillFile = SpillManager.createSpillFile("groupby-", _spillSchema, _aggFunctions);
+          _spillFiles[partitionId] = spillFile;
+          _numSpilledPartitions++;
+        }
+        spillFile.addRow(row);
+      }
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to spill groups of aggregate operator", e);
+    }
+    _spilled = true;
+    _numSpilledGroups += numGroups;
+    _estimatedBytesPerGroup = 0;
+    initGroups();
+  }
+
+  /// Returns the value stored for the given function and group, i.e. the intermediate result, or the final result when
+  /// merging final results returned by the leaf stage.
+  private Object getSpillValue(int functionId, int groupId) {
+    if (_aggType.isInputIntermediateFormat()) {
+      return _mergeResultHolder.get(groupId)[functionId];
+    } else {
+      return _aggFunctions[functionId].extractGroupByResult(_aggregateResultHolders[functionId], groupId);
+    }
+  }
+
+  /// Spilled rows contain the group keys followed by the values returned by [#getSpillValue].
+  private DataSchema getSpillSchema() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    int numColumns = numKeys + numFunctions;
+    String[] columnNames = Arrays.copyOf(_resultSchema.getColumnNames(), numColumns);
+    ColumnDataType[] columnDataTypes = Arrays.copyOf(_resultSchema.getColumnDataTypes(), numColumns);
+    boolean storesFinalResult = _aggType.isInputIntermediateFormat() && _leafReturnFinalResult;
+    for (int i = 0; i < numFunctions; i++) {
+      AggregationFunction aggFunction = _aggFunctions[i];
+      columnDataTypes[numKeys + i] = storesFinalResult ? aggFunction.getFinalResultColumnType()
+          : aggFunction.getIntermediateResultColumnType();
+    }
+    return new DataSchema(columnNames, columnDataTypes);
+  }
+
+  private int getSpillPartition(Object[] row, int numKeys) {
+    int hashCode = 1;
+    for (int i = 0; i < numKeys; i++) {
+      Object key = row[i];
+      // Multi-value keys are stored as arrays, which do not override hashCode()
+      int keyHashCode =
+          key != null && key.getClass().isArray() ? Arrays.deepHashCode(new Object[]{key}) : Objects.hashCode(key);
+      hashCode = 31 * hashCode + keyHashCode;
+    }
+    return (HashCommon.mix(hashCode) & Integer.MAX_VALUE) % _numSpillPartitions;
+  }
+
+  /// Spills the remaining in-memory groups so that every group is in exactly one partition, then re-aggregates the
+  /// partitions one at a time and keeps the first `maxRows` rows (ordered with `comparator` when provided).
+  private List<Object[]> getSpilledResult(@Nullable Comparator<Object[]> comparator, int maxRows) {
+    assert _spillFiles != null;
+    if (_groupIdGenerator.getNumGroups() > 0) {
+      spillGroups();
+    }
+    PriorityQueue<Object[]> sortedRows = comparator != null ? new PriorityQueue<>(comparator) : null;
+    List<Object[]> rows = new ArrayList<>();
+    int numGroups = 0;
+    try {
+      for (SpillFile spillFile : _spillFiles) {
+        if (spillFile != null) {
+          spillFile.finish();
+          _spilledBytes += spillFile.getSizeInBytes();
+        }
+      }
+      for (int i = 0; i < _numSpillPartitions; i++) {
+        SpillFile spillFile = _spillFiles[i];
+        if (spillFile == null) {
+          continue;
+        }
+        List<Object[]> partitionRows = mergeSpillPartition(spillFile);
+        spillFile.close();
+        _spillFiles[i] = null;
+        for (Object[] row : partitionRows) {
+          numGroups++;
+          if (sortedRows == null) {
+            if (rows.size() < maxRows) {
+              rows.add(row);
+            } else {
+              // There are more groups than requested, no need to read the remaining partitions
+              _rowsProcessed = numGroups;
+              _numMergedGroups = numGroups;
+              return rows;
+            }
+          } else if (sortedRows.size() < maxRows) {
+            sortedRows.add(row);
+          } else if (comparator.compare(sortedRows.peek(), row) < 0) {
+            sortedRows.poll();
+            sortedRows.offer(row);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to read spilled groups of aggregate operator", e);
+    } finally {
+      closeSpillFiles();
+    }
+    _numMergedGroups = numGroups;
+    if (sortedRows == null) {
+      return rows;
+    }
+    _rowsProcessed = numGroups;
+    int resultSize = sortedRows.size();
+    for (int i = 0; i < resultSize; i++) {
+      rows.add(sortedRows.poll());
+    }
+    // reverse priority queue order because comparators are reversed
+    Collections.reverse(rows);
+    return rows;
+  }
+
+  /// Reads back a spill partition, merges the values of the same group and returns the result rows of the partition.
+  private List<Object[]> mergeSpillPartition(SpillFile spillFile)
+      throws IOException {
+    assert _spillSchema != null;
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    int[] spillKeyIds = new int[numKeys];
+    for (int i = 0; i < numKeys; i++) {
+      spillKeyIds[i] = i;
+    }
+    GroupIdGenerator groupIdGenerator =
+        GroupIdGeneratorFactory.getGroupIdGenerator(_spillSchema.getStoredColumnDataTypes(), numKeys,
+            Integer.MAX_VALUE, _maxInitialResultHolderCapacity);
+    List<Object[]> mergedResults = new ArrayList<>();
+    try (SpillFile.Reader reader = spillFile.openReader()) {
+      DataBlock dataBlock;
+      while ((dataBlock = reader.nextDataBlock()) != null) {
+        Object[] keys = numKeys == 1 ? DataBlockExtractUtils.extractKey(dataBlock, 0)
+            : DataBlockExtractUtils.extractKeys(dataBlock, spillKeyIds);
+        Object[][] values = new Object[numFunctions][];
+        for (int i = 0; i < numFunctions; i++) {
+          values[i] = DataBlockExtractUtils.extractAggResult(dataBlock, numKeys + i, _aggFunctions[i]);
+        }
+        int numRows = keys.length;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          int groupId = groupIdGenerator.getGroupId(keys[rowId]);
+          Object[] mergedValues;
+          if (mergedResults.size() == groupId) {
+            mergedValues = new Object[numFunctions];
+            mergedResults.add(mergedValues);
+          } else {
+            mergedValues = mergedResults.get(groupId);
+          }
+          for (int i = 0; i < numFunctions; i++) {
+            mergedValues[i] = mergeSpillValue(i, mergedValues[i], values[i][rowId]);
+          }
+        }
+      }
+    }
+
+    List<Object[]> rows = new ArrayList<>(mergedResults.size());
+    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator = groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    while (groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] row = groupKey._row;
+      Object[] mergedValues = mergedResults.get(groupKey._groupId);
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = getSpilledResultValue(i, mergedValues[i]);
+      }
+      TypeUtils.convertRow(row, resultStoredTypes);
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private Object mergeSpillValue(int functionId, @Nullable Object value1, @Nullable Object value2) {
+    AggregationFunction aggFunction = _aggFunctions[functionId];
+    if (_aggType.isInputIntermediateFormat() && _leafReturnFinalResult) {
+      return AggregationFunctionUtils.mergeFinalResult(aggFunction, (Comparable) value1, (Comparable) value2);
+    } else {
+      return AggregationFunctionUtils.merge(aggFunction, value1, value2);
+    }
+  }
+
+  /// Same as [#getResultValue] but for the merged value of a spilled group.
+  private Object getSpilledResultValue(int functionId, @Nullable Object mergedValue) {
+    AggregationFunction aggFunction = _aggFunctions[functionId];
+    switch (_aggType) {
+      case LEAF:
+        return _leafReturnFinalResult ? aggFunction.extractFinalResult(mergedValue) : mergedValue;
+      case INTERMEDIATE:
+        return mergedValue;
+      case FINAL:
+        return _leafReturnFinalResult ? mergedValue : aggFunction.extractFinalResult(mergedValue);
+      case DIRECT:
+        return aggFunction.extractFinalResult(mergedValue);
+      default:
+        throw new IllegalStateException("Unsupported aggType: " + _aggType);
+    }
+  }
+
+  private void closeSpillFiles() {
+    if (_spillFiles == null) {
+      return;
+    }
+    for (int i = 0; i < _numSpillPartitions; i++) {
+      SpillFile spillFile = _spillFiles[i];
+      if (spillFile != null) {
+        try {
+          spillFile.close();
+        } catch (IOException e) {
+          LOGGER.warn("Failed to close spill file: {}", spillFile, e);
+        }
+        _spillFiles[i] = null;
+      }
+    }
   }
 
   private void processAggregate(MseBlock.Data block) {
@@ -418,9 +785,13 @@ public class MultistageGroupByExecutor {
   /// Creates the group by key for each row. Converts the key into a 0-index based int value that can be used by
   /// GroupByAggregationResultHolders used in v1 aggregations.
   private int[] generateGroupByKeys(MseBlock.Data block) {
-    return block.isRowHeap()
-        ? generateGroupByKeys(block.asRowHeap().getRows())
-        : generateGroupByKeys(block.asSerialized().getDataBlock());
+    if (block.isRowHeap()) {
+      return generateGroupByKeys(block.asRowHeap().getRows());
+    }
+    if (block.isColumnarHeap()) {
+      return generateGroupByKeys(block.asColumnarHeap());
+    }
+    return generateGroupByKeys(block.asSerialized().getDataBlock());
   }
 
   private int[] generateGroupByKeys(List<Object[]> rows) {
@@ -445,6 +816,27 @@ public class MultistageGroupByExecutor {
     return intKeys;
   }
 
+  private int[] generateGroupByKeys(ColumnarHeapDataBlock block) {
+    int numRows = block.getNumRows();
+    int[] intKeys = new int[numRows];
+    int numKeys = _groupKeyIds.length;
+    if (numKeys == 1) {
+      int groupKeyId = _groupKeyIds[0];
+      for (int i = 0; i < numRows; i++) {
+        intKeys[i] = _groupIdGenerator.getGroupId(block.getValue(i, groupKeyId));
+      }
+    } else {
+      Object[] key = new Object[numKeys];
+      for (int i = 0; i < numRows; i++) {
+        for (int j = 0; j < numKeys; j++) {
+          key[j] = block.getValue(i, _groupKeyIds[j]);
+        }
+        intKeys[i] = _groupIdGenerator.getGroupId(key);
+      }
+    }
+    return intKeys;
+  }
+
   private int[] generateGroupByKeys(DataBlock dataBlock) {
     Object[] keys;
     if (_groupKeyIds.length == 1) {
@@ -463,9 +855,13 @@ public class MultistageGroupByExecutor {
   /// Creates the group by key for each row. Converts the key into a 0-index based int value that can be used by
   /// GroupByAggregationResultHolders used in v1 aggregations.
   private int[] generateGroupByKeys(MseBlock.Data block, int numMatchedRows, RoaringBitmap matchedBitmap) {
-    return block.isRowHeap()
-        ? generateGroupByKeys(block.asRowHeap().getRows(), numMatchedRows, matchedBitmap)
-        : generateGroupByKeys(block.asSerialized().getDataBlock(), numMatchedRows, matchedBitmap);
+    if (block.isRowHeap()) {
+      return generateGroupByKeys(block.asRowHeap().getRows(), numMatchedRows, matchedBitmap);
+    }
+    if (block.isColumnarHeap()) {
+      return generateGroupByKeys(block.asColumnarHeap(), numMatchedRows, matchedBitmap);
+    }
+    return generateGroupByKeys(block.asSerialized().getDataBlock(), numMatchedRows, matchedBitmap);
   }
 
   private int[] generateGroupByKeys(List<Object[]> rows, int numMatchedRows, RoaringBitmap matchedBitmap) {
@@ -491,6 +887,28 @@ public class MultistageGroupByExecutor {
     return intKeys;
   }
 
+  private int[] generateGroupByKeys(ColumnarHeapDataBlock block, int numMatchedRows, RoaringBitmap matchedBitmap) {
+    int[] intKeys = new int[numMatchedRows];
+    int numKeys = _groupKeyIds.length;
+    PeekableIntIterator iterator = matchedBitmap.getIntIterator();
+    if (numKeys == 1) {
+      int groupKeyId = _groupKeyIds[0];
+      for (int i = 0; i < numMatchedRows; i++) {
+        intKeys[i] = _groupIdGenerator.getGroupId(block.getValue(iterator.next(), groupKeyId));
+      }
+    } else {
+      Object[] key = new Object[numKeys];
+      for (int i = 0; i < numMatchedRows; i++) {
+        int rowId = iterator.next();
+        for (int j = 0; j < numKeys; j++) {
+          key[j] = block.getValue(rowId, _groupKeyIds[j]);
+        }
+        intKeys[i] = _groupIdGenerator.getGroupId(key);
+      }
+    }
+    return intKeys;
+  }
+
   private int[] generateGroupByKeys(DataBlock dataBlock, int numMatchedRows, RoaringBitmap matchedBitmap) {
     Object[] keys;
     if (_groupKeyIds.length == 1) {
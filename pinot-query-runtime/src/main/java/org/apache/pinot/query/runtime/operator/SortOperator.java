@@ -20,27 +20,43 @@ package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.PriorityQueue;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.query.planner.plannode.SortNode;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
+import org.apache.pinot.query.runtime.operator.spill.ExternalSorter;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.exception.QueryErrorCode;
 import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/// Sorts the input rows and applies the offset and limit.
+///
+/// By default, the rows to keep are held in a bounded [PriorityQueue]. When a spill threshold is configured (see
+/// [CommonConstants.Broker.Request.QueryOptionKey#SORT_SPILL_THRESHOLD_BYTES]):
+/// - If the number of rows to keep is too large for the priority queue to bound the memory usage (e.g. ORDER BY
+///   without LIMIT), an [ExternalSorter] is used instead: the rows are spilled to disk as sorted runs, which are k-way
+///   merged and streamed downstream block by block.
+/// - If the input is already sorted by a [SortedMailboxReceiveOperator] (which spills with the same threshold), the
+///   input blocks are streamed downstream after applying the offset and limit instead of being buffered.
 public class SortOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "SORT";
   private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
+  /// Max number of rows in each block produced by the external merge sort.
+  private static final int MERGED_BLOCK_SIZE = 10_000;
 
   private final MultiStageOperator _input;
   private final DataSchema _dataSchema;
@@ -50,6 +66,14 @@ public class SortOperator extends MultiStageOperator {
   private final ArrayList<Object[]> _rows;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
+  // Used to sort the rows that might not fit in memory, null when the external sort is disabled
+  @Nullable
+  private final ExternalSorter _externalSorter;
+  // Whether the sorted input is streamed instead of being buffered
+  private final boolean _streamSortedInput;
+  // Number of rows read from the sorted input or from the external sorter, including the ones skipped by the offset
+  private int _numSortedRows;
+
   private boolean _hasConstructedSortedBlock;
   private MseBlock.Eos _eosBlock;
 
@@ -73,15 +97,27 @@ public class SortOperator extends MultiStageOperator {
     // - There is no collation
     // - Input is already sorted
     List<RelFieldCollation> collations = node.getCollations();
+    Long spillThresholdBytes = QueryOptionsUtils.getSortSpillThresholdBytes(context.getOpChainMetadata());
     if (collations.isEmpty() || input instanceof SortedMailboxReceiveOperator) {
       _priorityQueue = null;
-      _rows = new ArrayList<>(Math.min(defaultHolderCapacity, _numRowsToKeep));
+      _externalSorter = null;
+      _streamSortedInput = !collations.isEmpty() && spillThresholdBytes != null;
+      _rows = _streamSortedInput ? null : new ArrayList<>(Math.min(defaultHolderCapacity, _numRowsToKeep));
+    } else if (spillThresholdBytes != null && _numRowsToKeep > defaultHolderCapacity) {
+      // The priority queue is not bounded enough (e.g. ORDER BY without LIMIT), sort the rows externally
+      _priorityQueue = null;
+      _rows = null;
+      _externalSorter = new ExternalSorter("sort-", _dataSchema, new SortUtils.SortComparator(collations, false),
+          spillThresholdBytes, _numRowsToKeep);
+      _streamSortedInput = false;
     } else {
       // Use the opposite direction as specified by the collation directions since we need the PriorityQueue to decide
       // which elements to keep and which to remove based on the limits.
       _priorityQueue = new PriorityQueue<>(Math.min(defaultHolderCapacity, _numRowsToKeep),
           new SortUtils.SortComparator(collations, true));
       _rows = null;
+      _externalSorter = null;
+      _streamSortedInput = false;
     }
   }
 
@@ -119,19 +155,34 @@ public class SortOperator extends MultiStageOperator {
 
   @Override
   protected MseBlock getNextBlock() {
+    if (_streamSortedInput) {
+      return produceStreamedBlock();
+    }
     if (_hasConstructedSortedBlock) {
       assert _eosBlock != null;
       return _eosBlock;
     }
-    _eosBlock = consumeInputBlocks();
-    // returning upstream error block if finalBlock contains error.
-    _statMap.merge(StatKey.REQUIRE_SORT, _priorityQueue != null);
-    if (_eosBlock.isError()) {
-      return _eosBlock;
+    if (_eosBlock == null) {
+      _eosBlock = consumeInputBlocks();
+      // returning upstream error block if finalBlock contains error.
+      _statMap.merge(StatKey.REQUIRE_SORT, _priorityQueue != null || _externalSorter != null);
+      if (_eosBlock.isError()) {
+        closeExternalSorter();
+        return _eosBlock;
+      }
+    }
+    if (_externalSorter != null) {
+      return produceExternallySortedBlock();
     }
     return produceSortedBlock();
   }
 
+  @Override
+  public void close() {
+    closeExternalSorter();
+    super.close();
+  }
+
   @Override
   public StatMap<StatKey> copyStatMaps() {
     return new StatMap<>(_statMap);
@@ -164,7 +215,14 @@ public class SortOperator extends MultiStageOperator {
     MseBlock block = _input.nextBlock();
     while (block.isData()) {
       List<Object[]> container = ((MseBlock.Data) block).asRowHeap().getRows();
-      if (_priorityQueue == null) {
+      if (_externalSorter != null) {
+        try {
+          _externalSorter.addRows(container);
+        } catch (IOException e) {
+          throw QueryErrorCode.INTERNAL.asException("Failed to spill sorted run of sort operator", e);
+        }
+        checkTerminationAndSampleUsage();
+      } else if (_priorityQueue == null) {
         // TODO: when push-down properly, we shouldn't get more than _numRowsToKeep
         int numRows = _rows.size();
         if (numRows < _numRowsToKeep) {
@@ -172,13 +230,7 @@ public class SortOperator extends MultiStageOperator {
             _rows.addAll(container);
           } else {
             _rows.addAll(container.subList(0, _numRowsToKeep - numRows));
-            if (LOGGER.isDebugEnabled()) {
-              // this operatorId is an old name. It is being kept to avoid breaking changes on the log message.
-              String operatorId =
-                  Joiner.on("_").join(getClass().getSimpleName(), _context.getStageId(), _context.getServer());
-              LOGGER.debug("Early terminate at SortOperator - operatorId={}, opChainId={}", operatorId,
-                  _context.getId());
-            }
+            logEarlyTermination();
             // setting operator to be early terminated and awaits EOS block next.
             earlyTerminate();
           }
@@ -194,6 +246,70 @@ public class SortOperator extends MultiStageOperator {
     return (MseBlock.Eos) block;
   }
 
+  private void logEarlyTermination() {
+    if (LOGGER.isDebugEnabled()) {
+      // this operatorId is an old name. It is being kept to avoid breaking changes on the log message.
+      String operatorId = Joiner.on("_").join(getClass().getSimpleName(), _context.getStageId(), _context.getServer());
+      LOGGER.debug("Early terminate at SortOperator - operatorId={}, opChainId={}", operatorId, _context.getId());
+    }
+  }
+
+  /// Returns the next block of the sorted input after applying the offset and limit, or the EOS block of the input.
+  private MseBlock produceStreamedBlock() {
+    MseBlock block = _input.nextBlock();
+    while (block.isData()) {
+      List<Object[]> rows = ((MseBlock.Data) block).asRowHeap().getRows();
+      int numRows = rows.size();
+      int fromIndex = Math.max(_offset - _numSortedRows, 0);
+      int toIndex = Math.min(numRows, _numRowsToKeep - _numSortedRows);
+      if (_numSortedRows < _numRowsToKeep && _numSortedRows + numRows >= _numRowsToKeep) {
+        logEarlyTermination();
+        earlyTerminate();
+      }
+      _numSortedRows += numRows;
+      if (fromIndex < toIndex) {
+        return new RowHeapDataBlock(fromIndex == 0 && toIndex == numRows ? rows : rows.subList(fromIndex, toIndex),
+            _dataSchema);
+      }
+      block = _input.nextBlock();
+    }
+    return block;
+  }
+
+  /// Returns the next block of externally sorted rows after applying the offset, or the EOS block once all the rows
+  /// are returned.
+  private MseBlock produceExternallySortedBlock() {
+    assert _externalSorter != null;
+    try {
+      if (_numSortedRows == 0) {
+        _externalSorter.finish();
+        _statMap.merge(StatKey.SPILLED_RUNS, _externalSorter.getNumSpilledRuns());
+        _statMap.merge(StatKey.SPILLED_BYTES, _externalSorter.getSpilledBytes());
+      }
+      List<Object[]> rows;
+      while ((rows = _externalSorter.nextRows(MERGED_BLOCK_SIZE)) != null) {
+        checkTerminationAndSampleUsage();
+        int numRows = rows.size();
+        int fromIndex = Math.max(_offset - _numSortedRows, 0);
+        _numSortedRows += numRows;
+        if (fromIndex < numRows) {
+          return new RowHeapDataBlock(fromIndex == 0 ? rows : rows.subList(fromIndex, numRows), _dataSchema);
+        }
+      }
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to merge sorted runs of sort operator", e);
+    }
+    _hasConstructedSortedBlock = true;
+    closeExternalSorter();
+    return _eosBlock;
+  }
+
+  private void closeExternalSorter() {
+    if (_externalSorter != null) {
+      _externalSorter.close();
+    }
+  }
+
   public enum StatKey implements StatMap.Key {
     EXECUTION_TIME_MS(StatMap.Type.LONG) {
       @Override
@@ -210,7 +326,11 @@ public class SortOperator extends MultiStageOperator {
     /// Allocated memory in bytes for this operator or its children in the same stage.
     ALLOCATED_MEMORY_BYTES(StatMap.Type.LONG),
     /// Time spent on GC while this operator or its children in the same stage were running.
-    GC_TIME_MS(StatMap.Type.LONG);
+    GC_TIME_MS(StatMap.Type.LONG),
+    /// Number of sorted runs spilled to disk by the external merge sort.
+    SPILLED_RUNS(StatMap.Type.INT),
+    /// Number of bytes written to disk by the external merge sort.
+    SPILLED_BYTES(StatMap.Type.LONG);
 
     private final StatMap.Type _type;
 
@@ -19,16 +19,22 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
+import org.apache.pinot.query.runtime.operator.spill.ExternalSorter;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,25 +43,34 @@ import org.slf4j.LoggerFactory;
 /// [org.apache.pinot.query.mailbox.ReceivingMailbox] and serve it out from the [#nextBlock()] API in a
 /// sorted manner.
 ///
-///  TODO: Once sorting on the `MailboxSendOperator` is available, modify this to use a k-way merge instead of
-///        resorting via the PriorityQueue.
+/// When a spill threshold is configured (see [QueryOptionKey#SORT_SPILL_THRESHOLD_BYTES]), the received rows are
+/// sorted with an [ExternalSorter], which spills them to disk as sorted runs once they cross the threshold, and the
+/// sorted rows are served block by block. Otherwise all the received rows are sorted in memory and served as a single
+/// block.
 public class SortedMailboxReceiveOperator extends BaseMailboxReceiveOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(SortedMailboxReceiveOperator.class);
 
   private static final String EXPLAIN_NAME = "SORTED_MAILBOX_RECEIVE";
+  /// Max number of rows in each block served from the external sorter.
+  private static final int SORTED_BLOCK_SIZE = 10_000;
 
   private final DataSchema _dataSchema;
   private final List<RelFieldCollation> _collations;
   private final List<Object[]> _rows = new ArrayList<>();
+  // Used to sort the received rows when spilling is enabled
+  @Nullable
+  private final ExternalSorter _externalSorter;
 
   private MseBlock _eosBlock;
 
-  // TODO: Support merge sort when sender side sort is supported.
   public SortedMailboxReceiveOperator(OpChainExecutionContext context, MailboxReceiveNode node) {
     super(context, node);
     Preconditions.checkState(!CollectionUtils.isEmpty(node.getCollations()), "Field collations must be set");
     _dataSchema = node.getDataSchema();
     _collations = node.getCollations();
+    Long spillThresholdBytes = QueryOptionsUtils.getSortSpillThresholdBytes(context.getOpChainMetadata());
+    _externalSorter = spillThresholdBytes != null ? new ExternalSorter("sorted-receive-", _dataSchema,
+        new SortUtils.SortComparator(_collations, false), spillThresholdBytes, Integer.MAX_VALUE) : null;
   }
 
   @Override
@@ -71,42 +86,83 @@ public class SortedMailboxReceiveOperator extends BaseMailboxReceiveOperator {
   @Override
   protected MseBlock getNextBlock() {
     if (_eosBlock != null) {
-      return _eosBlock;
+      return _externalSorter != null && !_eosBlock.isError() ? produceExternallySortedBlock() : _eosBlock;
     }
     // Collect all the rows from the mailbox and sort them
     while (true) {
       MseBlock block = _multiConsumer.readMseBlockBlocking();
       if (block.isData()) {
-        _rows.addAll(((MseBlock.Data) block).asRowHeap().getRows());
+        List<Object[]> rows = ((MseBlock.Data) block).asRowHeap().getRows();
+        if (_externalSorter != null) {
+          try {
+            _externalSorter.addRows(rows);
+          } catch (IOException e) {
+            throw QueryErrorCode.INTERNAL.asException("Failed to spill sorted run of sorted mailbox receive", e);
+          }
+          checkTerminationAndSampleUsage();
+        } else {
+          _rows.addAll(rows);
+        }
         continue;
       }
       MseBlock.Eos eosBlock = (MseBlock.Eos) block;
       onEos();
       _eosBlock = eosBlock;
       if (eosBlock.isError()) {
+        closeExternalSorter();
         return eosBlock;
-      } else {
-        if (!_rows.isEmpty()) {
-          // TODO: This might not be efficient because we are sorting all the received rows. We should use a k-way merge
-          //       when sender side is sorted.
-          _rows.sort(new SortUtils.SortComparator(_collations, false));
-          return new RowHeapDataBlock(_rows, _dataSchema);
-        } else {
-          return block;
+      }
+      if (_externalSorter != null) {
+        try {
+          _externalSorter.finish();
+        } catch (IOException e) {
+          throw QueryErrorCode.INTERNAL.asException("Failed to read sorted runs of sorted mailbox receive", e);
         }
+        _statMap.merge(StatKey.SPILLED_RUNS, _externalSorter.getNumSpilledRuns());
+        _statMap.merge(StatKey.SPILLED_BYTES, _externalSorter.getSpilledBytes());
+        return produceExternallySortedBlock();
+      }
+      _rows.sort(new SortUtils.SortComparator(_collations, false));
+      if (!_rows.isEmpty()) {
+        return new RowHeapDataBlock(_rows, _dataSchema);
+      } else {
+        return block;
       }
     }
   }
 
+  private MseBlock produceExternallySortedBlock() {
+    assert _externalSorter != null;
+    List<Object[]> rows;
+    try {
+      rows = _externalSorter.nextRows(SORTED_BLOCK_SIZE);
+    } catch (IOException e) {
+      throw QueryErrorCode.INTERNAL.asException("Failed to merge sorted runs of sorted mailbox receive", e);
+    }
+    if (rows == null) {
+      closeExternalSorter();
+      return _eosBlock;
+    }
+    return new RowHeapDataBlock(rows, _dataSchema);
+  }
+
+  private void closeExternalSorter() {
+    if (_externalSorter != null) {
+      _externalSorter.close();
+    }
+  }
+
   @Override
   public void close() {
     super.close();
     _rows.clear();
+    closeExternalSorter();
   }
 
   @Override
   public void cancel(Throwable t) {
     super.cancel(t);
     _rows.clear();
+    closeExternalSorter();
   }
 }
@@ -19,13 +19,17 @@
 package org.apache.pinot.query.runtime.operator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
+import org.apache.pinot.query.runtime.operator.operands.ReferenceOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
@@ -50,6 +54,14 @@ public class TransformOperator extends MultiStageOperator {
   private final int _resultColumnSize;
   // TODO: Check type matching between resultSchema and the actual result.
   private final DataSchema _resultSchema;
+  /// Whether input and output blocks can be processed in columnar format.
+  private final boolean _columnarSupported;
+  private final boolean _useColumnarBlocks;
+  /// For each projection, the input column id when the projection is an input reference with the same stored type
+  /// (so the column can be shared with the input block), or -1 when the projection must be computed.
+  private final int[] _sharedColIds;
+  /// Whether all the projections are shared input columns.
+  private final boolean _allColumnsShared;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
   public TransformOperator(OpChainExecutionContext context, MultiStageOperator input, DataSchema inputSchema,
@@ -63,6 +75,29 @@ public class TransformOperator extends MultiStageOperator {
       _transformOperandsList.add(TransformOperandFactory.getTransformOperand(rexExpression, inputSchema));
     }
     _resultSchema = node.getDataSchema();
+    _columnarSupported = ColumnarHeapDataBlock.isSupported(inputSchema)
+        && ColumnarHeapDataBlock.isSupported(_resultSchema);
+    _useColumnarBlocks = _columnarSupported && QueryOptionsUtils.isUseColumnarBlocks(context.getOpChainMetadata());
+    _sharedColIds = getSharedColIds(_transformOperandsList, inputSchema, _resultSchema);
+    _allColumnsShared = Arrays.stream(_sharedColIds).allMatch(colId -> colId >= 0);
+  }
+
+  private static int[] getSharedColIds(List<TransformOperand> transformOperands, DataSchema inputSchema,
+      DataSchema resultSchema) {
+    int numOperands = transformOperands.size();
+    int[] colIds = new int[numOperands];
+    for (int i = 0; i < numOperands; i++) {
+      TransformOperand operand = transformOperands.get(i);
+      colIds[i] = -1;
+      if (operand instanceof ReferenceOperand) {
+        int colId = ((ReferenceOperand) operand).getIndex();
+        if (inputSchema.getColumnDataType(colId).getStoredType()
+            == resultSchema.getColumnDataType(i).getStoredType()) {
+          colIds[i] = colId;
+        }
+      }
+    }
+    return colIds;
   }
 
   @Override
@@ -100,6 +135,9 @@ public class TransformOperator extends MultiStageOperator {
       return block;
     }
     MseBlock.Data dataBlock = (MseBlock.Data) block;
+    if (_columnarSupported && (_useColumnarBlocks || dataBlock.isColumnarHeap())) {
+      return transformColumnar(dataBlock.asColumnarHeap());
+    }
     List<Object[]> container = dataBlock.asRowHeap().getRows();
     List<Object[]> resultRows = new ArrayList<>(container.size());
     for (Object[] row : container) {
@@ -112,6 +150,22 @@ public class TransformOperator extends MultiStageOperator {
     return new RowHeapDataBlock(resultRows, _resultSchema);
   }
 
+  /// Transforms a columnar block. Projections that are input references share the column with the input block. The
+  /// other projections are evaluated column by column, reading the operands straight from the input columns.
+  private ColumnarHeapDataBlock transformColumnar(ColumnarHeapDataBlock block) {
+    if (_allColumnsShared) {
+      return block.project(_sharedColIds, _resultSchema);
+    }
+    ColumnarHeapDataBlock.CellReader[] cellReaders = new ColumnarHeapDataBlock.CellReader[_resultColumnSize];
+    for (int i = 0; i < _resultColumnSize; i++) {
+      if (_sharedColIds[i] < 0) {
+        TransformOperand operand = _transformOperandsList.get(i);
+        cellReaders[i] = rowId -> operand.apply(block, rowId);
+      }
+    }
+    return block.transform(_sharedColIds, cellReaders, _resultSchema);
+  }
+
   @Override
   public StatMap<StatKey> copyStatMaps() {
     return new StatMap<>(_statMap);
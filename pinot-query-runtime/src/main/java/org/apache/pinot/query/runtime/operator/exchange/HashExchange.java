@@ -22,14 +22,18 @@ import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.query.mailbox.SendingMailbox;
 import org.apache.pinot.query.planner.partitioning.EmptyKeySelector;
+import org.apache.pinot.query.planner.partitioning.HashFunctionSelector;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.runtime.blocks.BlockSplitter;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.spi.query.QueryThreadContext;
+import org.roaringbitmap.RoaringBitmap;
 
 
 /// Distributes blocks based on the hash of a key, selected by the specified
@@ -60,6 +64,11 @@ class HashExchange extends BlockExchange {
       return;
     }
 
+    if (block.isColumnarHeap()) {
+      routeColumnar(destinations, block.asColumnarHeap());
+      return;
+    }
+
     List<Object[]>[] mailboxIdToRowsMap = new List[numMailboxes];
     for (int i = 0; i < numMailboxes; i++) {
       mailboxIdToRowsMap[i] = new ArrayList<>();
@@ -80,4 +89,141 @@ class HashExchange extends BlockExchange {
       }
     }
   }
+
+  /// Partitions a columnar block without materializing its rows. Keys are hashed straight from the key columns and
+  /// each destination receives the selection of its row ids.
+  private void routeColumnar(List<SendingMailbox> destinations, ColumnarHeapDataBlock block) {
+    int numMailboxes = destinations.size();
+    int numRows = block.getNumRows();
+    int[] mailboxIds = computeHashes(block);
+    int[] numRowsPerMailbox = new int[numMailboxes];
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      QueryThreadContext.checkTerminationAndSampleUsagePeriodically(rowId, ROUTE_SCOPE);
+      int mailboxId = mailboxIds[rowId] % numMailboxes;
+      mailboxIds[rowId] = mailboxId;
+      numRowsPerMailbox[mailboxId]++;
+    }
+    int[][] mailboxIdToRowIds = new int[numMailboxes][];
+    for (int i = 0; i < numMailboxes; i++) {
+      mailboxIdToRowIds[i] = new int[numRowsPerMailbox[i]];
+    }
+    int[] offsets = new int[numMailboxes];
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      int mailboxId = mailboxIds[rowId];
+      mailboxIdToRowIds[mailboxId][offsets[mailboxId]++] = rowId;
+    }
+    for (int i = 0; i < numMailboxes; i++) {
+      int numMailboxRows = numRowsPerMailbox[i];
+      if (numMailboxRows == numRows) {
+        sendBlock(destinations.get(i), block);
+      } else if (numMailboxRows > 0) {
+        sendBlock(destinations.get(i), block.select(mailboxIdToRowIds[i], numMailboxRows));
+      }
+    }
+  }
+
+  /// Computes the same hash [KeySelector#computeHash(Object[])] returns for each row of the block. When the key
+  /// selector exposes its [key columns][KeySelector#getKeyIds()], the hashes are accumulated column by column from
+  /// the column arrays, otherwise each row is copied into a reused array.
+  @VisibleForTesting
+  int[] computeHashes(ColumnarHeapDataBlock block) {
+    int numRows = block.getNumRows();
+    int[] hashes = new int[numRows];
+    int[] keyIds = _keySelector.getKeyIds();
+    if (keyIds == null) {
+      Object[] row = new Object[block.getDataSchema().size()];
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        hashes[rowId] = _keySelector.computeHash(block.getRow(rowId, row));
+      }
+      return hashes;
+    }
+    String hashAlgorithm = _keySelector.hashAlgorithm();
+    boolean murmur = HashFunctionSelector.MURMUR2.equals(hashAlgorithm)
+        || HashFunctionSelector.MURMUR3.equals(hashAlgorithm);
+    for (int keyId : keyIds) {
+      RoaringBitmap nullBitmap = block.getNullBitmap(keyId);
+      if (murmur) {
+        // Murmur hashes the string representation of the value, so there is no primitive shortcut
+        HashFunctionSelector.SvHasher hasher = HashFunctionSelector.getSvHasher(hashAlgorithm);
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          hashes[rowId] += hasher.hash(block.getValue(rowId, keyId));
+        }
+        continue;
+      }
+      switch (block.getDataSchema().getColumnDataType(keyId).getStoredType()) {
+        case INT: {
+          int[] values = block.getIntColumn(keyId);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            hashes[rowId] += Integer.hashCode(values[rowId]);
+          }
+          break;
+        }
+        case LONG: {
+          long[] values = block.getLongColumn(keyId);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            hashes[rowId] += Long.hashCode(values[rowId]);
+          }
+          break;
+        }
+        case FLOAT: {
+          float[] values = block.getFloatColumn(keyId);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            hashes[rowId] += Float.hashCode(values[rowId]);
+          }
+          break;
+        }
+        case DOUBLE: {
+          double[] values = block.getDoubleColumn(keyId);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            hashes[rowId] += Double.hashCode(values[rowId]);
+          }
+          break;
+        }
+        case STRING: {
+          // Strings cache their hash code, so each dictionary entry is only hashed once
+          String[] dictionary = block.getStringDictionary();
+          int[] dictIds = block.getIntColumn(keyId);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            if (nullBitmap == null || !nullBitmap.contains(rowId)) {
+              hashes[rowId] += dictionary[dictIds[rowId]].hashCode();
+            }
+          }
+          // Null rows are already skipped
+          continue;
+        }
+        default: {
+          Object[] values = block.getObjectColumn(keyId);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = values[rowId];
+            if (value != null) {
+              hashes[rowId] += value.hashCode();
+            }
+          }
+          // Null cells are stored as null
+          continue;
+        }
+      }
+      if (nullBitmap != null) {
+        // Null values do not contribute to the hash, so revert the contribution of the placeholder values
+        Object column = block.getColumn(keyId);
+        nullBitmap.forEach((IntConsumer) rowId -> hashes[rowId] -= primitiveHashCode(column, rowId));
+      }
+    }
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      hashes[rowId] &= Integer.MAX_VALUE;
+    }
+    return hashes;
+  }
+
+  private static int primitiveHashCode(Object column, int rowId) {
+    if (column instanceof int[]) {
+      return Integer.hashCode(((int[]) column)[rowId]);
+    } else if (column instanceof long[]) {
+      return Long.hashCode(((long[]) column)[rowId]);
+    } else if (column instanceof float[]) {
+      return Float.hashCode(((float[]) column)[rowId]);
+    } else {
+      return Double.hashCode(((double[]) column)[rowId]);
+    }
+  }
 }
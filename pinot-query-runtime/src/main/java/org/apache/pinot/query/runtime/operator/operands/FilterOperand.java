@@ -27,6 +27,7 @@ import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 
 
 /// NOTE: All BOOLEAN values are represented as 0 (FALSE) and 1 (TRUE) internally.
@@ -41,6 +42,10 @@ public abstract class FilterOperand implements TransformOperand {
   @Override
   public abstract Integer apply(List<Object> row);
 
+  @Nullable
+  @Override
+  public abstract Integer apply(ColumnarHeapDataBlock block, int rowId);
+
   public static class And extends FilterOperand {
     List<TransformOperand> _childOperands;
 
@@ -65,6 +70,21 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return hasNull ? null : 1;
     }
+
+    @Nullable
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      boolean hasNull = false;
+      for (TransformOperand child : _childOperands) {
+        Object result = child.apply(block, rowId);
+        if (result == null) {
+          hasNull = true;
+        } else if ((int) result == 0) {
+          return 0;
+        }
+      }
+      return hasNull ? null : 1;
+    }
   }
 
   public static class Or extends FilterOperand {
@@ -91,6 +111,21 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return hasNull ? null : 0;
     }
+
+    @Nullable
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      boolean hasNull = false;
+      for (TransformOperand child : _childOperands) {
+        Object result = child.apply(block, rowId);
+        if (result == null) {
+          hasNull = true;
+        } else if ((int) result == 1) {
+          return 1;
+        }
+      }
+      return hasNull ? null : 0;
+    }
   }
 
   public static class Not extends FilterOperand {
@@ -106,6 +141,13 @@ public abstract class FilterOperand implements TransformOperand {
       Object result = _childOperand.apply(row);
       return result != null ? 1 - (int) result : null;
     }
+
+    @Nullable
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      Object result = _childOperand.apply(block, rowId);
+      return result != null ? 1 - (int) result : null;
+    }
   }
 
   public static class In extends FilterOperand {
@@ -138,6 +180,25 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return _isNotIn ? 1 : 0;
     }
+
+    @Nullable
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      Object firstResult = _childOperands.get(0).apply(block, rowId);
+      if (firstResult == null) {
+        return null;
+      }
+      for (int i = 1; i < _childOperands.size(); i++) {
+        Object result = _childOperands.get(i).apply(block, rowId);
+        if (result == null) {
+          return null;
+        }
+        if (firstResult.equals(result)) {
+          return _isNotIn ? 0 : 1;
+        }
+      }
+      return _isNotIn ? 1 : 0;
+    }
   }
 
   public static class IsTrue extends FilterOperand {
@@ -152,6 +213,12 @@ public abstract class FilterOperand implements TransformOperand {
       Object result = _childOperand.apply(row);
       return result != null ? (Integer) result : 0;
     }
+
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      Object result = _childOperand.apply(block, rowId);
+      return result != null ? (Integer) result : 0;
+    }
   }
 
   public static class IsNotTrue extends FilterOperand {
@@ -166,6 +233,12 @@ public abstract class FilterOperand implements TransformOperand {
       Object result = _childOperand.apply(row);
       return result != null ? 1 - (int) result : 1;
     }
+
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      Object result = _childOperand.apply(block, rowId);
+      return result != null ? 1 - (int) result : 1;
+    }
   }
 
   public static class Predicate extends FilterOperand {
@@ -177,6 +250,13 @@ public abstract class FilterOperand implements TransformOperand {
     private final IntPredicate _comparisonResultPredicate;
     private final boolean _requireCasting;
     private final ColumnDataType _commonCastType;
+    // Set when the predicate compares a numeric column with a numeric literal, in which case columnar blocks are
+    // compared on the primitive values without boxing
+    private final int _lhsColId;
+    @Nullable
+    private final ColumnDataType _primitiveCompareType;
+    @Nullable
+    private final Number _rhsLiteral;
 
     /// Predicate constructor also resolve data type,
     /// since we don't have an exhausted list of filter function signatures. we rely on type casting.
@@ -205,6 +285,24 @@ public abstract class FilterOperand implements TransformOperand {
               String.format("Cannot compare incompatible type: %s and: %s", lhsType, rhsType));
         }
       }
+
+      ColumnDataType compareType = _requireCasting ? _commonCastType : lhsType.getStoredType();
+      if (_lhs instanceof ReferenceOperand && _rhs instanceof LiteralOperand
+          && ((LiteralOperand) _rhs).getValue() instanceof Number && isPrimitiveType(lhsType.getStoredType())
+          && isPrimitiveType(compareType)) {
+        _lhsColId = ((ReferenceOperand) _lhs).getIndex();
+        _primitiveCompareType = compareType;
+        _rhsLiteral = (Number) ((LiteralOperand) _rhs).getValue();
+      } else {
+        _lhsColId = -1;
+        _primitiveCompareType = null;
+        _rhsLiteral = null;
+      }
+    }
+
+    private static boolean isPrimitiveType(ColumnDataType storedType) {
+      return storedType == ColumnDataType.INT || storedType == ColumnDataType.LONG
+          || storedType == ColumnDataType.FLOAT || storedType == ColumnDataType.DOUBLE;
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -226,6 +324,70 @@ public abstract class FilterOperand implements TransformOperand {
       return _comparisonResultPredicate.test(v1.compareTo(v2)) ? 1 : 0;
     }
 
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Nullable
+    @Override
+    public Integer apply(ColumnarHeapDataBlock block, int rowId) {
+      if (_primitiveCompareType != null) {
+        if (block.isNull(rowId, _lhsColId)) {
+          return null;
+        }
+        return _comparisonResultPredicate.test(comparePrimitive(block.getColumn(_lhsColId), rowId)) ? 1 : 0;
+      }
+      Comparable v1 = (Comparable) _lhs.apply(block, rowId);
+      if (v1 == null) {
+        return null;
+      }
+      Comparable v2 = (Comparable) _rhs.apply(block, rowId);
+      if (v2 == null) {
+        return null;
+      }
+      if (_requireCasting) {
+        v1 = cast(v1, _commonCastType);
+        v2 = cast(v2, _commonCastType);
+      }
+      return _comparisonResultPredicate.test(v1.compareTo(v2)) ? 1 : 0;
+    }
+
+    /// Compares the value of the left hand side column with the literal, both converted to the common type the same
+    /// way [#cast(Object, ColumnDataType)] would convert them.
+    private int comparePrimitive(Object column, int rowId) {
+      switch (_primitiveCompareType) {
+        case INT:
+          return Integer.compare(((int[]) column)[rowId], _rhsLiteral.intValue());
+        case LONG: {
+          long longValue = column instanceof int[] ? ((int[]) column)[rowId] : ((long[]) column)[rowId];
+          return Long.compare(longValue, _rhsLiteral.longValue());
+        }
+        case FLOAT: {
+          float floatValue;
+          if (column instanceof int[]) {
+            floatValue = ((int[]) column)[rowId];
+          } else if (column instanceof long[]) {
+            floatValue = ((long[]) column)[rowId];
+          } else {
+            floatValue = ((float[]) column)[rowId];
+          }
+          return Float.compare(floatValue, _rhsLiteral.floatValue());
+        }
+        case DOUBLE: {
+          double doubleValue;
+          if (column instanceof int[]) {
+            doubleValue = ((int[]) column)[rowId];
+          } else if (column instanceof long[]) {
+            doubleValue = ((long[]) column)[rowId];
+          } else if (column instanceof float[]) {
+            doubleValue = ((float[]) column)[rowId];
+          } else {
+            doubleValue = ((double[]) column)[rowId];
+          }
+          return Double.compare(doubleValue, _rhsLiteral.doubleValue());
+        }
+        default:
+          throw new IllegalStateException("Unsupported compare type: " + _primitiveCompareType);
+      }
+    }
+
     private static Comparable<?> cast(Object value, ColumnDataType type) {
       switch (type) {
         case INT:
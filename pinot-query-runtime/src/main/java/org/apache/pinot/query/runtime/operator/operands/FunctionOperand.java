@@ -30,6 +30,7 @@ import org.apache.pinot.common.function.QueryFunctionInvoker;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
 import org.apache.pinot.spi.utils.PinotDataType;
 
@@ -121,6 +122,23 @@ public class FunctionOperand implements TransformOperand {
       Object value = operand.apply(row);
       _reusableOperandHolder[i] = value != null ? operand.getResultType().toExternal(value) : null;
     }
+    return invoke();
+  }
+
+  @Nullable
+  @Override
+  public Object apply(ColumnarHeapDataBlock block, int rowId) {
+    for (int i = 0; i < _operands.size(); i++) {
+      TransformOperand operand = _operands.get(i);
+      Object value = operand.apply(block, rowId);
+      _reusableOperandHolder[i] = value != null ? operand.getResultType().toExternal(value) : null;
+    }
+    return invoke();
+  }
+
+  /// Invokes the function over the operand values previously set into the reusable operand holder.
+  @Nullable
+  private Object invoke() {
     Object result;
     if (_functionInvoker.getMethod().isVarArgs()) {
       result = _functionInvoker.invoke(new Object[]{_reusableOperandHolder});
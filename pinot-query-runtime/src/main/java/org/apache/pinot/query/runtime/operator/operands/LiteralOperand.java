@@ -21,6 +21,7 @@ package org.apache.pinot.query.runtime.operator.operands;
 import java.util.List;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 
 
 public class LiteralOperand implements TransformOperand {
@@ -37,8 +38,18 @@ public class LiteralOperand implements TransformOperand {
     return _resultType;
   }
 
+  /// Returns the value of the literal.
+  public Object getValue() {
+    return _value;
+  }
+
   @Override
   public Object apply(List<Object> row) {
     return _value;
   }
+
+  @Override
+  public Object apply(ColumnarHeapDataBlock block, int rowId) {
+    return _value;
+  }
 }
@@ -22,6 +22,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 
 
 public class ReferenceOperand implements TransformOperand {
@@ -33,6 +34,11 @@ public class ReferenceOperand implements TransformOperand {
     _resultType = dataSchema.getColumnDataType(index);
   }
 
+  /// Returns the index of the referenced column in the input row.
+  public int getIndex() {
+    return _index;
+  }
+
   @Override
   public ColumnDataType getResultType() {
     return _resultType;
@@ -43,4 +49,10 @@ public class ReferenceOperand implements TransformOperand {
   public Object apply(List<Object> row) {
     return row.get(_index);
   }
+
+  @Nullable
+  @Override
+  public Object apply(ColumnarHeapDataBlock block, int rowId) {
+    return block.getValue(rowId, _index);
+  }
 }
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 
 
 public interface TransformOperand {
@@ -34,4 +35,9 @@ public interface TransformOperand {
 
   @Nullable
   Object apply(List<Object> row);
+
+  /// Evaluates the operand over the given row of a columnar block, reading the referenced cells straight from the
+  /// column arrays instead of copying the row first. Returns the same value [#apply(List)] would return for the row.
+  @Nullable
+  Object apply(ColumnarHeapDataBlock block, int rowId);
 }
@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.query.runtime.operator.utils.SortedRunsMerger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// External merge sort of rows that might not fit in memory.
+///
+/// Rows are buffered until their estimated size crosses the spill threshold, then the buffer is sorted and written to
+/// a [SpillFile] as a sorted run. Once all the rows are added, the sorted rows are read back chunk by chunk through
+/// [#nextRows]: when nothing was spilled the buffer is sorted in memory, otherwise the spilled runs and the rows
+/// still buffered are k-way merged with a [SortedRunsMerger], which only keeps one block per run in memory.
+///
+/// Only the first `maxNumRows` sorted rows are ever returned, so each run is truncated to that many rows before
+/// being spilled. Instances are not thread safe, and must be closed to delete the spill files.
+public class ExternalSorter implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExternalSorter.class);
+
+  private final String _spillFilePrefix;
+  private final DataSchema _dataSchema;
+  private final Comparator<Object[]> _comparator;
+  private final long _spillThresholdBytes;
+  private final int _maxNumRows;
+  private final ArrayList<Object[]> _rows = new ArrayList<>();
+  private final List<SpillFile> _sortedRuns = new ArrayList<>();
+  private long _estimatedBufferedBytes;
+  private long _spilledBytes;
+
+  private boolean _finished;
+  @Nullable
+  private SortedRunsMerger _merger;
+  private int _numReturnedRows;
+
+  public ExternalSorter(String spillFilePrefix, DataSchema dataSchema, Comparator<Object[]> comparator,
+      long spillThresholdBytes, int maxNumRows) {
+    Preconditions.checkArgument(spillThresholdBytes > 0, "Invalid spill threshold: %s", spillThresholdBytes);
+    _spillFilePrefix = spillFilePrefix;
+    _dataSchema = dataSchema;
+    _comparator = comparator;
+    _spillThresholdBytes = spillThresholdBytes;
+    _maxNumRows = maxNumRows;
+  }
+
+  /// Adds unsorted rows, and spills the buffered rows as a sorted run when their estimated size crosses the threshold.
+  public void addRows(List<Object[]> rows)
+      throws IOException {
+    Preconditions.checkState(!_finished, "Cannot add rows after the sorter is finished");
+    for (Object[] row : rows) {
+      _rows.add(row);
+      _estimatedBufferedBytes += RowSizeEstimator.estimateRowSize(row);
+    }
+    if (_estimatedBufferedBytes > _spillThresholdBytes) {
+      spillSortedRun();
+    }
+  }
+
+  /// Finishes adding rows, after which the sorted rows can be read with [#nextRows].
+  public void finish()
+      throws IOException {
+    if (_finished) {
+      return;
+    }
+    _finished = true;
+    _rows.sort(_comparator);
+    if (_sortedRuns.isEmpty()) {
+      return;
+    }
+    List<SortedRunsMerger.Run> runs = new ArrayList<>(_sortedRuns.size() + 1);
+    try {
+      for (SpillFile spillFile : _sortedRuns) {
+        runs.add(spillFile.openReader());
+      }
+      if (!_rows.isEmpty()) {
+        // Keep the last run in memory
+        runs.add(SortedRunsMerger.inMemoryRun(_rows));
+      }
+      _merger = new SortedRunsMerger(runs, _comparator);
+    } catch (IOException e) {
+      for (SortedRunsMerger.Run run : runs) {
+        try {
+          run.close();
+        } catch (IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+      }
+      throw e;
+    }
+  }
+
+  /// Returns the next chunk of at most `maxNumRowsInChunk` sorted rows, or `null` when all the rows (up to the max
+  /// number of rows) are returned. Must be called after [#finish].
+  @Nullable
+  public List<Object[]> nextRows(int maxNumRowsInChunk)
+      throws IOException {
+    Preconditions.checkState(_finished, "Sorter must be finished before reading the sorted rows");
+    int numRowsInChunk = Math.min(maxNumRowsInChunk, _maxNumRows - _numReturnedRows);
+    if (_merger == null) {
+      numRowsInChunk = Math.min(numRowsInChunk, _rows.size() - _numReturnedRows);
+      if (numRowsInChunk <= 0) {
+        return null;
+      }
+      List<Object[]> rows = _rows.subList(_numReturnedRows, _numReturnedRows + numRowsInChunk);
+      _numReturnedRows += numRowsInChunk;
+      return rows;
+    }
+    List<Object[]> rows = new ArrayList<>(Math.max(numRowsInChunk, 0));
+    while (rows.size() < numRowsInChunk) {
+      Object[] row = _merger.next();
+      if (row == null) {
+        break;
+      }
+      rows.add(row);
+    }
+    if (rows.isEmpty()) {
+      return null;
+    }
+    _numReturnedRows += rows.size();
+    return rows;
+  }
+
+  public int getNumSpilledRuns() {
+    return _sortedRuns.size();
+  }
+
+  public long getSpilledBytes() {
+    return _spilledBytes;
+  }
+
+  private void spillSortedRun()
+      throws IOException {
+    _rows.sort(_comparator);
+    int numRows = Math.min(_rows.size(), _maxNumRows);
+    LOGGER.debug("Spilling sorted run of {} rows with estimated size of {} bytes", numRows, _estimatedBufferedBytes);
+    SpillFile spillFile = SpillManager.createSpillFile(_spillFilePrefix, _dataSchema);
+    _sortedRuns.add(spillFile);
+    spillFile.addRows(_rows.subList(0, numRows));
+    spillFile.finish();
+    _spilledBytes += spillFile.getSizeInBytes();
+    _rows.clear();
+    _estimatedBufferedBytes = 0;
+  }
+
+  /// Deletes the spill files and drops the buffered rows.
+  @Override
+  public void close() {
+    if (_merger != null) {
+      try {
+        _merger.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close sorted runs merger", e);
+      }
+      _merger = null;
+    }
+    for (SpillFile spillFile : _sortedRuns) {
+      try {
+        spillFile.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close spill file: {}", spillFile, e);
+      }
+    }
+    _sortedRuns.clear();
+    _rows.clear();
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import java.math.BigDecimal;
+
+
+/// Cheap estimation of the heap footprint of boxed rows, used by operators to decide when to spill.
+///
+/// The estimation assumes a 64-bit JVM with compressed oops and ignores sharing between rows (e.g. interned strings),
+/// so it is an upper bound rather than an exact measure. It only needs to be in the right order of magnitude.
+public class RowSizeEstimator {
+  private static final int OBJECT_HEADER_BYTES = 16;
+  private static final int REFERENCE_BYTES = 4;
+  private static final int BOXED_NUMBER_BYTES = 24;
+  private static final int STRING_OVERHEAD_BYTES = 40;
+  private static final int ARRAY_HEADER_BYTES = 16;
+  private static final int UNKNOWN_OBJECT_BYTES = 64;
+
+  private RowSizeEstimator() {
+  }
+
+  public static long estimateRowSize(Object[] row) {
+    long size = ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * row.length;
+    for (Object value : row) {
+      size += estimateValueSize(value);
+    }
+    return size;
+  }
+
+  public static long estimateValueSize(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof Number) {
+      if (value instanceof BigDecimal) {
+        return OBJECT_HEADER_BYTES + BOXED_NUMBER_BYTES + ((BigDecimal) value).unscaledValue().bitLength() / 8;
+      }
+      return BOXED_NUMBER_BYTES;
+    }
+    if (value instanceof String) {
+      // Compact strings store latin-1 characters with one byte each
+      return STRING_OVERHEAD_BYTES + ((String) value).length();
+    }
+    if (value instanceof byte[]) {
+      return ARRAY_HEADER_BYTES + ((byte[]) value).length;
+    }
+    if (value instanceof int[]) {
+      return ARRAY_HEADER_BYTES + (long) Integer.BYTES * ((int[]) value).length;
+    }
+    if (value instanceof long[]) {
+      return ARRAY_HEADER_BYTES + (long) Long.BYTES * ((long[]) value).length;
+    }
+    if (value instanceof float[]) {
+      return ARRAY_HEADER_BYTES + (long) Float.BYTES * ((float[]) value).length;
+    }
+    if (value instanceof double[]) {
+      return ARRAY_HEADER_BYTES + (long) Double.BYTES * ((double[]) value).length;
+    }
+    if (value instanceof String[]) {
+      long size = ARRAY_HEADER_BYTES;
+      for (String element : (String[]) value) {
+        size += REFERENCE_BYTES + estimateValueSize(element);
+      }
+      return size;
+    }
+    return UNKNOWN_OBJECT_BYTES;
+  }
+}
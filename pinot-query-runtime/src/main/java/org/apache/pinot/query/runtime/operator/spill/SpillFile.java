@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.apache.pinot.query.runtime.operator.utils.SortedRunsMerger;
+
+
+/// An append-only temporary file of rows, used by intermediate stage operators to move data that does not fit in
+/// memory to local disk.
+///
+/// Rows are buffered and written as length-prefixed serialized [DataBlock]s of at most [#_maxRowsPerBlock] rows, so
+/// the same serde used to ship blocks between stages is used to spill them. Once all the rows are added, the file can
+/// be read back (any number of times) block by block through [#openReader].
+///
+/// Aggregation intermediate results (`OBJECT` columns) can be spilled when the aggregation functions are provided, in
+/// which case the last columns of the schema must be the aggregation results, the same as for the blocks sent between
+/// stages. Such blocks should be read with [Reader#nextDataBlock].
+///
+/// The file is deleted when this object is closed. Instances are not thread safe.
+public class SpillFile implements Closeable {
+  public static final int DEFAULT_MAX_ROWS_PER_BLOCK = 1024;
+
+  private final File _file;
+  private final DataSchema _dataSchema;
+  @Nullable
+  private final AggregationFunction[] _aggFunctions;
+  private final int _maxRowsPerBlock;
+  private final List<Object[]> _bufferedRows;
+  @Nullable
+  private FileChannel _writeChannel;
+  private long _sizeInBytes;
+  private long _numRows;
+
+  SpillFile(File file, DataSchema dataSchema, @Nullable AggregationFunction[] aggFunctions)
+      throws IOException {
+    this(file, dataSchema, aggFunctions, DEFAULT_MAX_ROWS_PER_BLOCK);
+  }
+
+  SpillFile(File file, DataSchema dataSchema, @Nullable AggregationFunction[] aggFunctions, int maxRowsPerBlock)
+      throws IOException {
+    _file = file;
+    _dataSchema = dataSchema;
+    _aggFunctions = aggFunctions;
+    _maxRowsPerBlock = maxRowsPerBlock;
+    _bufferedRows = new ArrayList<>(maxRowsPerBlock);
+    _writeChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  /// Returns the number of bytes written to disk so far. Buffered rows are not included.
+  public long getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  /// Returns the number of rows added to the file, including the ones still buffered.
+  public long getNumRows() {
+    return _numRows;
+  }
+
+  public void addRow(Object[] row)
+      throws IOException {
+    Preconditions.checkState(_writeChannel != null, "Cannot add rows after the spill file is finished");
+    _bufferedRows.add(row);
+    _numRows++;
+    if (_bufferedRows.size() >= _maxRowsPerBlock) {
+      flush();
+    }
+  }
+
+  public void addRows(List<Object[]> rows)
+      throws IOException {
+    for (Object[] row : rows) {
+      addRow(row);
+    }
+  }
+
+  private void flush()
+      throws IOException {
+    assert _writeChannel != null;
+    if (_bufferedRows.isEmpty()) {
+      return;
+    }
+    DataBlock dataBlock = DataBlockBuilder.buildFromRows(_bufferedRows, _dataSchema, _aggFunctions);
+    _bufferedRows.clear();
+    List<ByteBuffer> buffers = DataBlockUtils.serialize(dataBlock);
+    int blockSize = 0;
+    for (ByteBuffer buffer : buffers) {
+      blockSize += buffer.remaining();
+    }
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(0, blockSize);
+    writeFully(header);
+    for (ByteBuffer buffer : buffers) {
+      writeFully(buffer);
+    }
+    _sizeInBytes += Integer.BYTES + blockSize;
+  }
+
+  private void writeFully(ByteBuffer buffer)
+      throws IOException {
+    assert _writeChannel != null;
+    while (buffer.hasRemaining()) {
+      _writeChannel.write(buffer);
+    }
+  }
+
+  /// Flushes the buffered rows and closes the write side of the file. No more rows can be added afterwards.
+  /// This method is idempotent.
+  public void finish()
+      throws IOException {
+    if (_writeChannel != null) {
+      flush();
+      _writeChannel.close();
+      _writeChannel = null;
+    }
+  }
+
+  /// Finishes the file if needed and opens a new reader positioned at the first block.
+  public Reader openReader()
+      throws IOException {
+    finish();
+    return new Reader(FileChannel.open(_file.toPath(), StandardOpenOption.READ));
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _bufferedRows.clear();
+    try {
+      if (_writeChannel != null) {
+        _writeChannel.close();
+        _writeChannel = null;
+      }
+    } finally {
+      FileUtils.deleteQuietly(_file);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SpillFile{file=" + _file + ", numRows=" + _numRows + ", sizeInBytes=" + _sizeInBytes + '}';
+  }
+
+  /// Sequential reader over the blocks of a finished [SpillFile]. When the rows were added in sorted order, the reader
+  /// can be used as a run of a [SortedRunsMerger].
+  public static class Reader implements SortedRunsMerger.Run {
+    private final FileChannel _channel;
+    private final ByteBuffer _header = ByteBuffer.allocate(Integer.BYTES);
+
+    private Reader(FileChannel channel) {
+      _channel = channel;
+    }
+
+    /// Returns the next block, or `null` when the end of the file is reached.
+    @Nullable
+    public DataBlock nextDataBlock()
+        throws IOException {
+      _header.clear();
+      if (!readFully(_header, true)) {
+        return null;
+      }
+      int blockSize = _header.getInt(0);
+      ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+      readFully(buffer, false);
+      buffer.flip();
+      return DataBlockUtils.deserialize(List.of(buffer));
+    }
+
+    /// Returns the rows of the next block, or `null` when the end of the file is reached. Not supported for files with
+    /// aggregation intermediate results.
+    @Nullable
+    @Override
+    public List<Object[]> nextRows()
+        throws IOException {
+      DataBlock dataBlock = nextDataBlock();
+      return dataBlock != null ? DataBlockExtractUtils.extractRows(dataBlock) : null;
+    }
+
+    /// Reads until the buffer is full. Returns `false` if the end of the file is reached before reading any byte and
+    /// `allowEof` is `true`.
+    private boolean readFully(ByteBuffer buffer, boolean allowEof)
+        throws IOException {
+      while (buffer.hasRemaining()) {
+        if (_channel.read(buffer) < 0) {
+          if (allowEof && buffer.position() == 0) {
+            return false;
+          }
+          throw new EOFException("Unexpected end of spill file");
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void close()
+        throws IOException {
+      _channel.close();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Owns the local directory where intermediate stage operators write [SpillFile]s, and the spill settings shared by
+/// these operators.
+///
+/// The directory is resolved once per server from [MultiStageQueryRunner#KEY_OF_SPILL_DIR]. Operators are expected
+/// to delete the files they create, but stale spill files are also removed on [#init] so that files left behind by a
+/// crashed process do not accumulate.
+///
+/// Operators that hash partition their input when spilling use [#getNumSpillPartitions()] partitions (see
+/// [MultiStageQueryRunner#KEY_OF_NUM_SPILL_PARTITIONS]), and re-partition the partitions that still do not fit in
+/// memory up to [#getMaxSpillRecursionDepth()] times (see [MultiStageQueryRunner#KEY_OF_MAX_SPILL_RECURSION_DEPTH]).
+public class SpillManager {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpillManager.class);
+  private static final String DEFAULT_SPILL_DIR_NAME = "pinot-mse-spill";
+  private static final String SPILL_FILE_SUFFIX = ".spill";
+
+  private static volatile File _spillDir = new File(FileUtils.getTempDirectory(), DEFAULT_SPILL_DIR_NAME);
+  private static volatile int _numSpillPartitions = MultiStageQueryRunner.DEFAULT_NUM_SPILL_PARTITIONS;
+  private static volatile int _maxSpillRecursionDepth = MultiStageQueryRunner.DEFAULT_MAX_SPILL_RECURSION_DEPTH;
+
+  private SpillManager() {
+  }
+
+  public static void init(PinotConfiguration serverConf) {
+    int numSpillPartitions = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_NUM_SPILL_PARTITIONS,
+        MultiStageQueryRunner.DEFAULT_NUM_SPILL_PARTITIONS);
+    Preconditions.checkArgument(numSpillPartitions > 1, "Number of spill partitions must be larger than 1, got: %s",
+        numSpillPartitions);
+    int maxSpillRecursionDepth = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_MAX_SPILL_RECURSION_DEPTH,
+        MultiStageQueryRunner.DEFAULT_MAX_SPILL_RECURSION_DEPTH);
+    Preconditions.checkArgument(maxSpillRecursionDepth >= 0, "Max spill recursion depth must be non-negative, got: %s",
+        maxSpillRecursionDepth);
+    String spillDirStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_SPILL_DIR);
+    File spillDir =
+        spillDirStr != null ? new File(spillDirStr) : new File(FileUtils.getTempDirectory(), DEFAULT_SPILL_DIR_NAME);
+    try {
+      FileUtils.forceMkdir(spillDir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to initialize spill directory: " + spillDir, e);
+    }
+    // Only remove files created by this class, the directory may be shared with other processes
+    File[] staleFiles = spillDir.listFiles((dir, name) -> name.endsWith(SPILL_FILE_SUFFIX));
+    if (staleFiles != null && staleFiles.length > 0) {
+      LOGGER.info("Deleting {} stale spill files from: {}", staleFiles.length, spillDir);
+      for (File staleFile : staleFiles) {
+        FileUtils.deleteQuietly(staleFile);
+      }
+    }
+    LOGGER.info("Using spill directory: {}, num spill partitions: {}, max spill recursion depth: {}", spillDir,
+        numSpillPartitions, maxSpillRecursionDepth);
+    _spillDir = spillDir;
+    _numSpillPartitions = numSpillPartitions;
+    _maxSpillRecursionDepth = maxSpillRecursionDepth;
+  }
+
+  public static File getSpillDir() {
+    return _spillDir;
+  }
+
+  public static int getNumSpillPartitions() {
+    return _numSpillPartitions;
+  }
+
+  public static int getMaxSpillRecursionDepth() {
+    return _maxSpillRecursionDepth;
+  }
+
+  /// Creates a new empty spill file for rows of the given schema. The caller owns the file and must close it.
+  public static SpillFile createSpillFile(String prefix, DataSchema dataSchema)
+      throws IOException {
+    return createSpillFile(prefix, dataSchema, null);
+  }
+
+  /// Creates a new empty spill file for rows of the given schema, where the last columns are the intermediate results
+  /// of the given aggregation functions. The caller owns the file and must close it.
+  public static SpillFile createSpillFile(String prefix, DataSchema dataSchema,
+      @Nullable AggregationFunction[] aggFunctions)
+      throws IOException {
+    File spillDir = _spillDir;
+    FileUtils.forceMkdir(spillDir);
+    return new SpillFile(File.createTempFile(prefix, SPILL_FILE_SUFFIX, spillDir), dataSchema, aggFunctions);
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+
+
+/// K-way merge of sorted runs of rows into a single sorted stream.
+///
+/// Each [Run] is consumed lazily chunk by chunk, so only one chunk per run is kept in memory at a time. This is used
+/// to merge the sorted runs spilled by the
+/// [org.apache.pinot.query.runtime.operator.spill.ExternalSorter].
+/// The merge is stable across runs: on ties, rows from runs added first are returned first.
+public class SortedRunsMerger implements Closeable {
+  private final List<? extends Run> _runs;
+  private final PriorityQueue<RunCursor> _queue;
+
+  public SortedRunsMerger(List<? extends Run> runs, Comparator<Object[]> comparator)
+      throws IOException {
+    _runs = runs;
+    int numRuns = runs.size();
+    _queue = new PriorityQueue<>(Math.max(numRuns, 1), (c1, c2) -> {
+      int result = comparator.compare(c1.current(), c2.current());
+      return result != 0 ? result : Integer.compare(c1._runId, c2._runId);
+    });
+    for (int i = 0; i < numRuns; i++) {
+      RunCursor cursor = new RunCursor(i, runs.get(i));
+      if (cursor.advance()) {
+        _queue.add(cursor);
+      }
+    }
+  }
+
+  /// Returns the next row in sorted order, or `null` when all the runs are exhausted.
+  @Nullable
+  public Object[] next()
+      throws IOException {
+    RunCursor cursor = _queue.poll();
+    if (cursor == null) {
+      return null;
+    }
+    Object[] row = cursor.current();
+    if (cursor.advance()) {
+      _queue.add(cursor);
+    }
+    return row;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _queue.clear();
+    IOException exception = null;
+    for (Run run : _runs) {
+      try {
+        run.close();
+      } catch (IOException e) {
+        if (exception == null) {
+          exception = e;
+        } else {
+          exception.addSuppressed(e);
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  /// Returns a run over rows that are already sorted in memory.
+  public static Run inMemoryRun(List<Object[]> rows) {
+    return new Run() {
+      private boolean _consumed;
+
+      @Nullable
+      @Override
+      public List<Object[]> nextRows() {
+        if (_consumed) {
+          return null;
+        }
+        _consumed = true;
+        return rows;
+      }
+    };
+  }
+
+  /// A sorted run of rows, read in consecutive chunks.
+  public interface Run extends Closeable {
+
+    /// Returns the next chunk of rows of the run, or `null` when the run is exhausted. Chunks might be empty.
+    @Nullable
+    List<Object[]> nextRows()
+        throws IOException;
+
+    @Override
+    default void close()
+        throws IOException {
+    }
+  }
+
+  private static class RunCursor {
+    final int _runId;
+    final Run _run;
+    List<Object[]> _rows = List.of();
+    int _index = -1;
+
+    RunCursor(int runId, Run run) {
+      _runId = runId;
+      _run = run;
+    }
+
+    Object[] current() {
+      return _rows.get(_index);
+    }
+
+    /// Moves to the next row, returns `false` when the run is exhausted.
+    boolean advance()
+        throws IOException {
+      _index++;
+      while (_index >= _rows.size()) {
+        List<Object[]> rows = _run.nextRows();
+        if (rows == null) {
+          return false;
+        }
+        _rows = rows;
+        _index = 0;
+      }
+      return true;
+    }
+  }
+}
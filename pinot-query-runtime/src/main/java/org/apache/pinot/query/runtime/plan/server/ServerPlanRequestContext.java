@@ -23,10 +23,13 @@ import java.util.concurrent.ExecutorService;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.request.PinotQuery;
 import org.apache.pinot.core.query.executor.QueryExecutor;
+import org.apache.pinot.core.query.pruner.SegmentPrunerProvider;
+import org.apache.pinot.core.query.pruner.ValueBasedSegmentPruner;
 import org.apache.pinot.core.query.request.ServerQueryRequest;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.routing.StagePlan;
 import org.apache.pinot.query.runtime.plan.pipeline.PipelineBreakerResult;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
 
 
 /// Context class for converting a [StagePlan] into
@@ -35,6 +38,10 @@ import org.apache.pinot.query.runtime.plan.pipeline.PipelineBreakerResult;
 /// On leaf-stage server node, [PlanNode] are split into [PinotQuery] part and
 ///     [org.apache.pinot.query.runtime.operator.OpChain] part.
 public class ServerPlanRequestContext {
+  private static final String VALUE_PRUNER_IN_PREDICATE_THRESHOLD_KEY =
+      Server.PRUNER + "." + SegmentPrunerProvider.COLUMN_VALUE_SEGMENT_PRUNER_NAME + "."
+          + ValueBasedSegmentPruner.IN_PREDICATE_THRESHOLD;
+
   private final StagePlan _stagePlan;
   private final QueryExecutor _leafQueryExecutor;
   private final ExecutorService _executorService;
@@ -62,6 +69,16 @@ public class ServerPlanRequestContext {
     return _leafQueryExecutor;
   }
 
+  /// Returns the max number of `IN` predicate values the column value segment pruner of the leaf query executor
+  /// checks against the segment metadata, i.e. its configured `inpredicate.threshold`.
+  public int getValuePrunerInPredicateThreshold() {
+    if (_leafQueryExecutor == null) {
+      return Server.DEFAULT_VALUE_PRUNER_IN_PREDICATE_THRESHOLD;
+    }
+    return _leafQueryExecutor.getQueryExecutorConfig()
+        .getProperty(VALUE_PRUNER_IN_PREDICATE_THRESHOLD_KEY, Server.DEFAULT_VALUE_PRUNER_IN_PREDICATE_THRESHOLD);
+  }
+
   public ExecutorService getExecutorService() {
     return _executorService;
   }
@@ -34,6 +34,7 @@ import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.request.Expression;
 import org.apache.pinot.common.request.InstanceRequest;
+import org.apache.pinot.common.request.Literal;
 import org.apache.pinot.common.request.PinotQuery;
 import org.apache.pinot.common.request.QuerySource;
 import org.apache.pinot.common.request.TableSegmentsInfo;
@@ -298,8 +299,15 @@ public class ServerPlanRequestUtils {
   }
 
   /// attach the dynamic filter to the given PinotQuery.
+  ///
+  /// For each join key, the distinct values of the build side are applied as an `IN` filter. When there are more
+  /// values than `inPredicateThreshold` (the configured number of `IN` values the column value segment pruner checks),
+  /// a `BETWEEN` filter on the min and max values is added in front of it so that segments can still be pruned with
+  /// their column min/max values, and range or sorted indexes can be used to skip the documents out of range before
+  /// evaluating the `IN` filter. The range is not added when the build side contains `NaN`, which cannot be expressed
+  /// as a bound.
   static void attachDynamicFilter(PinotQuery pinotQuery, List<Integer> leftKeys, List<Integer> rightKeys,
-      List<Object[]> dataContainer, DataSchema dataSchema) {
+      List<Object[]> dataContainer, DataSchema dataSchema, int inPredicateThreshold) {
     List<Expression> expressions = new ArrayList<>();
     for (int i = 0; i < leftKeys.size(); i++) {
       Expression leftExpr = pinotQuery.getSelectList().get(leftKeys.get(i));
@@ -308,9 +316,19 @@ public class ServerPlanRequestUtils {
         expressions.add(RequestUtils.getLiteralExpression(false));
       } else {
         int rightIdx = rightKeys.get(i);
-        List<Expression> operands = new ArrayList<>(dataContainer.size() + 1);
+        List<Expression> values = computeInOperands(dataContainer, dataSchema, rightIdx);
+        int numValues = values.size();
+        // NaN is sorted last and cannot be used as a bound: nothing is smaller than or equal to NaN, so the range would
+        // filter out every row, while a BETWEEN on the non-NaN bounds would drop the NaN rows matched by the IN filter
+        if (numValues > inPredicateThreshold
+            && dataSchema.getColumnDataType(rightIdx).getStoredType() != DataSchema.ColumnDataType.BYTES
+            && !isNaN(values.get(numValues - 1))) {
+          expressions.add(RequestUtils.getFunctionExpression(FilterKind.BETWEEN.name(), leftExpr.deepCopy(),
+              values.get(0), values.get(numValues - 1)));
+        }
+        List<Expression> operands = new ArrayList<>(numValues + 1);
         operands.add(leftExpr);
-        operands.addAll(computeInOperands(dataContainer, dataSchema, rightIdx));
+        operands.addAll(values);
         expressions.add(RequestUtils.getFunctionExpression(FilterKind.IN.name(), operands));
       }
     }
@@ -325,6 +343,15 @@ public class ServerPlanRequestUtils {
     }
   }
 
+  private static boolean isNaN(Expression expression) {
+    Literal literal = expression.getLiteral();
+    if (literal.isSetFloatValue()) {
+      return Float.isNaN(Float.intBitsToFloat(literal.getFloatValue()));
+    }
+    return literal.isSetDoubleValue() && Double.isNaN(literal.getDoubleValue());
+  }
+
+  /// Returns the sorted distinct values of the given column as literal expressions.
   private static List<Expression> computeInOperands(List<Object[]> dataContainer, DataSchema dataSchema, int colIdx) {
     final DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(colIdx);
     final FieldSpec.DataType storedType = columnDataType.getStoredType().toDataType();
@@ -338,7 +365,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrInt);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrInt[rowIdx]));
+          if (rowIdx == 0 || arrInt[rowIdx] != arrInt[rowIdx - 1]) {
+            expressions.add(RequestUtils.getLiteralExpression(arrInt[rowIdx]));
+          }
         }
         break;
       case LONG:
@@ -348,7 +377,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrLong);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrLong[rowIdx]));
+          if (rowIdx == 0 || arrLong[rowIdx] != arrLong[rowIdx - 1]) {
+            expressions.add(RequestUtils.getLiteralExpression(arrLong[rowIdx]));
+          }
         }
         break;
       case FLOAT:
@@ -358,7 +389,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrFloat);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrFloat[rowIdx]));
+          if (rowIdx == 0 || Float.compare(arrFloat[rowIdx], arrFloat[rowIdx - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrFloat[rowIdx]));
+          }
         }
         break;
       case DOUBLE:
@@ -368,7 +401,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrDouble);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrDouble[rowIdx]));
+          if (rowIdx == 0 || Double.compare(arrDouble[rowIdx], arrDouble[rowIdx - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrDouble[rowIdx]));
+          }
         }
         break;
       case STRING:
@@ -378,7 +413,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrString);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrString[rowIdx]));
+          if (rowIdx == 0 || !arrString[rowIdx].equals(arrString[rowIdx - 1])) {
+            expressions.add(RequestUtils.getLiteralExpression(arrString[rowIdx]));
+          }
         }
         break;
       case BIG_DECIMAL:
@@ -388,7 +425,10 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrBigDecimal);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrBigDecimal[rowIdx]));
+          // Use compareTo() instead of equals() so that values with different scales are de-duplicated
+          if (rowIdx == 0 || arrBigDecimal[rowIdx].compareTo(arrBigDecimal[rowIdx - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrBigDecimal[rowIdx]));
+          }
         }
         break;
       case BYTES:
@@ -398,7 +438,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrBytes);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrBytes[rowIdx].getBytes()));
+          if (rowIdx == 0 || !arrBytes[rowIdx].equals(arrBytes[rowIdx - 1])) {
+            expressions.add(RequestUtils.getLiteralExpression(arrBytes[rowIdx].getBytes()));
+          }
         }
         break;
       default:
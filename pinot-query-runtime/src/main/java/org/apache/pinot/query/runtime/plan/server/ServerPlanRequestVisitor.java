@@ -172,7 +172,7 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
         }
         // TODO: we should keep query stats here as well
         ServerPlanRequestUtils.attachDynamicFilter(context.getPinotQuery(), node.getLeftKeys(), node.getRightKeys(),
-            resultDataContainer, dataSchema);
+            resultDataContainer, dataSchema, context.getValuePrunerInPredicateThreshold());
       }
     } else {
       // For lookup join, visit the right child and set it as the leaf boundary.
@@ -212,7 +212,7 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
         }
         // TODO: we should keep query stats here as well
         ServerPlanRequestUtils.attachDynamicFilter(context.getPinotQuery(), node.getLeftKeys(), node.getRightKeys(),
-            resultDataContainer, dataSchema);
+            resultDataContainer, dataSchema, context.getValuePrunerInPredicateThreshold());
 
         PinotQuery pinotQuery = context.getPinotQuery();
         for (EnrichedJoinNode.FilterProjectRex rex : node.getFilterProjectRexes()) {
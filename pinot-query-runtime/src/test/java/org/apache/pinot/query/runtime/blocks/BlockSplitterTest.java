@@ -89,6 +89,14 @@ public class BlockSplitterTest {
     testSplitRows(rows, serializedBlock, splitRowCount);
   }
 
+  @Test(dataProvider = "splitRowCountProvider")
+  public void testSplitColumnarHeap(int splitRowCount) {
+    DataSchema dataSchema = getDataSchema();
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, TOTAL_ROW_COUNT, 1);
+    ColumnarHeapDataBlock columnarBlock = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    testSplitRows(rows, columnarBlock, splitRowCount);
+  }
+
   @Test
   public void testNonSplittableBlock()
       throws Exception {
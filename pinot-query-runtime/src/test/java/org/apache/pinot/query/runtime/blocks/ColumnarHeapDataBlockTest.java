@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.blocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.common.datablock.DataBlockTestUtils;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class ColumnarHeapDataBlockTest {
+  private static final int NUM_ROWS = 100;
+  private static final List<ColumnDataType> EXCLUDE_DATA_TYPES =
+      List.of(ColumnDataType.OBJECT, ColumnDataType.JSON, ColumnDataType.BYTES, ColumnDataType.BYTES_ARRAY);
+
+  private static DataSchema getDataSchema() {
+    List<ColumnDataType> columnDataTypes = new ArrayList<>();
+    List<String> columnNames = new ArrayList<>();
+    for (ColumnDataType columnDataType : ColumnDataType.values()) {
+      if (!EXCLUDE_DATA_TYPES.contains(columnDataType)) {
+        columnNames.add(columnDataType.name());
+        columnDataTypes.add(columnDataType);
+      }
+    }
+    return new DataSchema(columnNames.toArray(new String[0]), columnDataTypes.toArray(new ColumnDataType[0]));
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue(ColumnarHeapDataBlock.isSupported(getDataSchema()));
+    assertFalse(ColumnarHeapDataBlock.isSupported(
+        new DataSchema(new String[]{"key", "agg"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.OBJECT})));
+  }
+
+  @Test
+  public void testRowsRoundTrip() {
+    DataSchema dataSchema = getDataSchema();
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, NUM_ROWS, 10);
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    assertTrue(block.isColumnarHeap());
+    assertFalse(block.isRowHeap());
+    assertFalse(block.isSerialized());
+    assertSame(block.asColumnarHeap(), block);
+    assertEquals(block.getNumRows(), NUM_ROWS);
+    assertRows(block.asRowHeap().getRows(), rows, dataSchema);
+  }
+
+  @Test
+  public void testDataBlockRoundTrip()
+      throws Exception {
+    DataSchema dataSchema = getDataSchema();
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, NUM_ROWS, 10);
+
+    // From row encoded data block
+    DataBlock rowDataBlock = DataBlockBuilder.buildFromRows(rows, dataSchema);
+    ColumnarHeapDataBlock fromRowDataBlock = new SerializedDataBlock(rowDataBlock).asColumnarHeap();
+    assertRows(fromRowDataBlock.asRowHeap().getRows(), rows, dataSchema);
+
+    // From column encoded data block
+    DataBlock columnarDataBlock =
+        DataBlockBuilder.buildFromColumns(DataBlockTestUtils.convertColumnar(dataSchema, rows), dataSchema);
+    ColumnarHeapDataBlock fromColumnarDataBlock = new SerializedDataBlock(columnarDataBlock).asColumnarHeap();
+    assertRows(fromColumnarDataBlock.asRowHeap().getRows(), rows, dataSchema);
+
+    // Back to data block
+    SerializedDataBlock serialized = ColumnarHeapDataBlock.fromRows(rows, dataSchema).asSerialized();
+    assertEquals(serialized.getDataBlock().getDataBlockType(), DataBlock.Type.COLUMNAR);
+    assertRows(serialized.asRowHeap().getRows(), rows, dataSchema);
+  }
+
+  @Test
+  public void testSelect() {
+    DataSchema dataSchema = getDataSchema();
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, NUM_ROWS, 10);
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    int[] rowIds = new int[]{7, 3, 3, 42, 99, 0};
+    ColumnarHeapDataBlock selected = block.select(rowIds, 5);
+    assertEquals(selected.getNumRows(), 5);
+    List<Object[]> expectedRows = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      expectedRows.add(rows.get(rowIds[i]));
+    }
+    assertRows(selected.asRowHeap().getRows(), expectedRows, dataSchema);
+  }
+
+  @Test
+  public void testSlice() {
+    DataSchema dataSchema = getDataSchema();
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, NUM_ROWS, 10);
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    ColumnarHeapDataBlock sliced = block.slice(10, 35);
+    assertEquals(sliced.getNumRows(), 25);
+    assertRows(sliced.asRowHeap().getRows(), rows.subList(10, 35), dataSchema);
+    assertEquals(block.slice(20, 20).getNumRows(), 0);
+  }
+
+  @Test
+  public void testProject() {
+    DataSchema dataSchema = new DataSchema(new String[]{"i", "s", "d"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.DOUBLE});
+    List<Object[]> rows = List.of(new Object[]{1, "a", 1.5}, new Object[]{null, "b", null},
+        new Object[]{3, null, 3.5});
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    DataSchema projectedSchema = new DataSchema(new String[]{"d", "i2"},
+        new ColumnDataType[]{ColumnDataType.DOUBLE, ColumnDataType.INT});
+    ColumnarHeapDataBlock projected = block.project(new int[]{2, 0}, projectedSchema);
+    assertSame(projected.getDoubleColumn(0), block.getDoubleColumn(2));
+    assertSame(projected.getIntColumn(1), block.getIntColumn(0));
+    assertRows(projected.asRowHeap().getRows(),
+        List.of(new Object[]{1.5, 1}, new Object[]{null, null}, new Object[]{3.5, 3}), projectedSchema);
+  }
+
+  @Test
+  public void testPrimitiveColumnsAndNulls() {
+    DataSchema dataSchema = new DataSchema(new String[]{"i", "l", "s"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.STRING});
+    List<Object[]> rows = List.of(new Object[]{1, 10L, "a"}, new Object[]{null, 20L, "b"},
+        new Object[]{3, null, "a"});
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    assertEquals(block.getIntColumn(0)[0], 1);
+    assertEquals(block.getIntColumn(0)[2], 3);
+    assertEquals(block.getLongColumn(1)[1], 20L);
+    assertTrue(block.getNullBitmap(0).contains(1));
+    assertTrue(block.getNullBitmap(1).contains(2));
+    assertNull(block.getNullBitmap(2));
+    // Strings are dictionary encoded
+    int[] dictIds = block.getIntColumn(2);
+    assertEquals(dictIds[0], dictIds[2]);
+    assertEquals(block.getStringDictionary().length, 2);
+    assertEquals(block.getValue(1, 2), "b");
+    assertNull(block.getValue(1, 0));
+  }
+
+  @Test
+  public void testSerializeSelectionCompactsStringDictionary() {
+    DataSchema dataSchema = new DataSchema(new String[]{"s1", "i", "s2", "sa"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING,
+            ColumnDataType.STRING_ARRAY});
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < NUM_ROWS; i++) {
+      rows.add(new Object[]{"s1_" + i, i, i % 3 == 0 ? null : "s2_" + i % 10, new String[]{"sa_" + i % 2}});
+    }
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    ColumnarHeapDataBlock selected = block.select(new int[]{3, 4, 5, 4}, 4);
+    assertSame(selected.getStringDictionary(), block.getStringDictionary());
+
+    DataBlock dataBlock = selected.asSerialized().getDataBlock();
+    assertEquals(dataBlock.getDataBlockType(), DataBlock.Type.COLUMNAR);
+    // s1_3, s1_4, s1_5, s2_4, s2_5, the null placeholder of row 3 and sa_0, sa_1
+    assertEquals(dataBlock.getStringDictionary().length, 8);
+    assertRows(new SerializedDataBlock(dataBlock).asRowHeap().getRows(),
+        List.of(rows.get(3), rows.get(4), rows.get(5), rows.get(4)), dataSchema);
+  }
+
+  @Test
+  public void testTransform() {
+    DataSchema dataSchema = new DataSchema(new String[]{"i", "s"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+    List<Object[]> rows = List.of(new Object[]{1, "a"}, new Object[]{null, "b"}, new Object[]{3, null});
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    DataSchema transformedSchema = new DataSchema(new String[]{"s", "i2", "s2"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.LONG, ColumnDataType.STRING});
+    ColumnarHeapDataBlock transformed = block.transform(new int[]{1, -1, -1},
+        new ColumnarHeapDataBlock.CellReader[]{
+            null,
+            rowId -> block.isNull(rowId, 0) ? null : 2L * block.getIntColumn(0)[rowId],
+            rowId -> block.isNull(rowId, 1) ? "none" : block.getValue(rowId, 1) + "!"
+        }, transformedSchema);
+    assertSame(transformed.getIntColumn(0), block.getIntColumn(1));
+    assertRows(transformed.asRowHeap().getRows(),
+        List.of(new Object[]{"a", 2L, "a!"}, new Object[]{"b", null, "b!"}, new Object[]{null, 6L, "none"}),
+        transformedSchema);
+    assertRows(transformed.asSerialized().asRowHeap().getRows(), transformed.asRowHeap().getRows(),
+        transformedSchema);
+  }
+
+  private static void assertRows(List<Object[]> actualRows, List<Object[]> expectedRows, DataSchema dataSchema) {
+    assertEquals(actualRows.size(), expectedRows.size());
+    int numColumns = dataSchema.size();
+    for (int rowId = 0; rowId < actualRows.size(); rowId++) {
+      Object[] actualRow = actualRows.get(rowId);
+      Object[] expectedRow = expectedRows.get(rowId);
+      for (int colId = 0; colId < numColumns; colId++) {
+        assertEquals(actualRow[colId], expectedRow[colId],
+            "Mismatch at (" + rowId + "," + colId + ") of type: " + dataSchema.getColumnDataType(colId) + ", row: "
+                + Arrays.toString(actualRow));
+      }
+    }
+  }
+}
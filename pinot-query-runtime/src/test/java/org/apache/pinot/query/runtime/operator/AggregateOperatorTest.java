@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,10 +38,13 @@ import org.apache.pinot.query.routing.VirtualServerAddress;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.SuccessMseBlock;
+import org.apache.pinot.query.runtime.operator.spill.SpillManager;
 import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.exception.QueryErrorCode;
 import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
 import org.apache.pinot.spi.utils.CommonConstants.Server;
 import org.mockito.Mock;
 import org.testng.annotations.AfterMethod;
@@ -393,6 +398,83 @@ public class AggregateOperatorTest {
         "Num groups should equal 1");
   }
 
+  @Test
+  public void shouldSpillGroupsInsteadOfApplyingGroupLimit() {
+    // Given: spill threshold of 1 byte so that groups are spilled after every block
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.NUM_GROUPS_LIMIT, "1")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+
+    _input = new BlockListMultiStageOperator.Builder(inSchema)
+        .addRow(1, 1.0)
+        .addRow(2, 2.0)
+        .finishBlock()
+        .addRow(1, 3.0)
+        .addRow(3, 4.0)
+        .buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint,
+        Map.of(QueryOptionKey.GROUP_BY_SPILL_THRESHOLD_BYTES, "1"));
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>(((MseBlock.Data) operator.nextBlock()).asRowHeap().getRows());
+
+    // Then: all the groups are returned with exact results
+    assertTrue(operator.nextBlock().isSuccess());
+    resultRows.sort(Comparator.comparingInt(row -> (int) row[0]));
+    assertEquals(resultRows.size(), 3);
+    assertEquals(resultRows.get(0), new Object[]{1, 4.0});
+    assertEquals(resultRows.get(1), new Object[]{2, 2.0});
+    assertEquals(resultRows.get(2), new Object[]{3, 4.0});
+    MultiStageQueryStats stats = operator.calculateStats();
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, stats);
+    assertFalse(statMap.getBoolean(AggregateOperator.StatKey.NUM_GROUPS_LIMIT_REACHED));
+    assertEquals(statMap.getLong(AggregateOperator.StatKey.NUM_GROUPS), 3);
+    assertEquals(statMap.getLong(AggregateOperator.StatKey.SPILLED_GROUPS), 4);
+    assertTrue(statMap.getInt(AggregateOperator.StatKey.SPILLED_PARTITIONS) > 0);
+    assertTrue(statMap.getLong(AggregateOperator.StatKey.SPILLED_BYTES) > 0);
+  }
+
+  @Test
+  public void shouldSpillGroupsIntoConfiguredNumberOfPartitions() {
+    // Given: 2 spill partitions for 8 groups
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    BlockListMultiStageOperator.Builder inputBuilder = new BlockListMultiStageOperator.Builder(inSchema);
+    for (int i = 0; i < 8; i++) {
+      inputBuilder.addRow(i, 1.0).addRow(i, 2.0);
+    }
+    _input = inputBuilder.buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    SpillManager.init(new PinotConfiguration(Map.of(MultiStageQueryRunner.KEY_OF_NUM_SPILL_PARTITIONS, "2")));
+    try {
+      AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys,
+          PlanNode.NodeHint.EMPTY, Map.of(QueryOptionKey.GROUP_BY_SPILL_THRESHOLD_BYTES, "1"));
+
+      // When:
+      List<Object[]> resultRows = new ArrayList<>(((MseBlock.Data) operator.nextBlock()).asRowHeap().getRows());
+
+      // Then: the groups are spilled into at most 2 partitions, with exact results
+      assertTrue(operator.nextBlock().isSuccess());
+      resultRows.sort(Comparator.comparingInt(row -> (int) row[0]));
+      assertEquals(resultRows.size(), 8);
+      for (int i = 0; i < 8; i++) {
+        assertEquals(resultRows.get(i), new Object[]{i, 3.0});
+      }
+      StatMap<AggregateOperator.StatKey> statMap =
+          OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, operator.calculateStats());
+      int numSpilledPartitions = statMap.getInt(AggregateOperator.StatKey.SPILLED_PARTITIONS);
+      assertTrue(numSpilledPartitions > 0 && numSpilledPartitions <= 2);
+    } finally {
+      SpillManager.init(new PinotConfiguration());
+    }
+  }
+
   private static RexExpression.FunctionCall getSum(RexExpression arg) {
     return new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.SUM.name(), List.of(arg));
   }
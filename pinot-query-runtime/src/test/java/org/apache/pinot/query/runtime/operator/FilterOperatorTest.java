@@ -25,6 +25,7 @@ import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.FilterNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.SuccessMseBlock;
@@ -218,6 +219,31 @@ public class FilterOperatorTest {
     assertEquals(resultRows.get(0), new Object[]{"starTree"});
   }
 
+  @Test
+  public void shouldFilterColumnarBlock() {
+    DataSchema inputSchema = new DataSchema(new String[]{"int0", "long1", "string2"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.STRING
+    });
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(
+        List.of(new Object[]{1, 10L, "a"}, new Object[]{null, 20L, "b"}, new Object[]{3, null, "c"},
+            new Object[]{5, 5L, "d"}, new Object[]{7, 4L, "e"}), inputSchema);
+    when(_input.nextBlock()).thenReturn(block);
+    // int0 > 2 AND long1 >= 5 AND string2 <> 'x', which compares primitive values for the numeric columns
+    RexExpression.FunctionCall condition = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.AND.name(),
+        List.of(new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN.name(),
+                List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.INT, 2))),
+            new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN_OR_EQUAL.name(),
+                List.of(new RexExpression.InputRef(1), new RexExpression.Literal(ColumnDataType.INT, 5))),
+            new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.NOT_EQUALS.name(),
+                List.of(new RexExpression.InputRef(2), new RexExpression.Literal(ColumnDataType.STRING, "x")))));
+    FilterOperator operator = getOperator(inputSchema, condition);
+    MseBlock.Data result = (MseBlock.Data) operator.nextBlock();
+    assertTrue(result.isColumnarHeap());
+    List<Object[]> resultRows = result.asRowHeap().getRows();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{5, 5L, "d"});
+  }
+
   //@formatter:off
   @Test(
       expectedExceptions = IllegalArgumentException.class,
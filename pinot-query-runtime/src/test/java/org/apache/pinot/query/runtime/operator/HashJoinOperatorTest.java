@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -29,9 +30,13 @@ import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.JoinNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.routing.VirtualServerAddress;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
+import org.apache.pinot.query.runtime.operator.spill.SpillManager;
+import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
@@ -869,6 +874,170 @@ public class HashJoinOperatorTest {
         "Max rows in join should reflect the joined output size, not the right table size");
   }
 
+  @Test
+  public void shouldSpillInnerJoinWhenRightTableExceedsThreshold() {
+    _leftInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addRow(1, "x")
+        .addRow(2, "y")
+        .addRow(4, "z")
+        .buildWithEos();
+    _rightInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addRow(1, "a")
+        .addRow(2, "b")
+        .finishBlock()
+        .addRow(2, "c")
+        .addRow(3, "d")
+        .buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_SPILL_THRESHOLD_BYTES, "1")));
+    HashJoinOperator operator =
+        getOperator(resultSchema, JoinRelType.INNER, List.of(0), List.of(0), List.of(), nodeHint);
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 3);
+    assertTrue(containsRow(resultRows, new Object[]{1, "x", 1, "a"}));
+    assertTrue(containsRow(resultRows, new Object[]{2, "y", 2, "b"}));
+    assertTrue(containsRow(resultRows, new Object[]{2, "y", 2, "c"}));
+    StatMap<HashJoinOperator.StatKey> statMap =
+        OperatorTestUtil.getStatMap(HashJoinOperator.StatKey.class, operator.calculateStats());
+    assertEquals(statMap.getInt(HashJoinOperator.StatKey.SPILLED_PARTITIONS), 16);
+    assertTrue(statMap.getLong(HashJoinOperator.StatKey.SPILLED_BYTES) > 0);
+  }
+
+  @Test
+  public void shouldSpillFullJoinWithNulls() {
+    _leftInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addRow(1, "Aa")
+        .addRow(2, null)
+        .addRow(4, "CC")
+        .buildWithEos();
+    _rightInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addRow(2, "Aa")
+        .addRow(2, null)
+        .addRow(3, "BB")
+        .buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_SPILL_THRESHOLD_BYTES, "1")));
+    HashJoinOperator operator =
+        getOperator(resultSchema, JoinRelType.FULL, List.of(1), List.of(1), List.of(), nodeHint);
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 5);
+    assertTrue(containsRow(resultRows, new Object[]{1, "Aa", 2, "Aa"}));
+    assertTrue(containsRow(resultRows, new Object[]{2, null, null, null}));
+    assertTrue(containsRow(resultRows, new Object[]{4, "CC", null, null}));
+    assertTrue(containsRow(resultRows, new Object[]{null, null, 2, null}));
+    assertTrue(containsRow(resultRows, new Object[]{null, null, 3, "BB"}));
+  }
+
+  @Test
+  public void shouldRepartitionSpilledPartitionsThatDoNotFitInMemory() {
+    BlockListMultiStageOperator.Builder leftBuilder = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA);
+    for (int i = 1; i <= 10; i++) {
+      leftBuilder.addRow(i, "l" + i);
+    }
+    _leftInput = leftBuilder.buildWithEos();
+    BlockListMultiStageOperator.Builder rightBuilder = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA);
+    for (int i = 1; i <= 8; i++) {
+      rightBuilder.addRow(i, "r" + i);
+    }
+    _rightInput = rightBuilder.buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_SPILL_THRESHOLD_BYTES, "1")));
+    // With 2 partitions, some partition gets more than one of the 8 right keys, and is re-partitioned
+    SpillManager.init(new PinotConfiguration(Map.of(MultiStageQueryRunner.KEY_OF_NUM_SPILL_PARTITIONS, "2")));
+    try {
+      HashJoinOperator operator =
+          getOperator(resultSchema, JoinRelType.LEFT, List.of(0), List.of(0), List.of(), nodeHint);
+      List<Object[]> resultRows = getAllRows(operator);
+      assertEquals(resultRows.size(), 10);
+      for (int i = 1; i <= 8; i++) {
+        assertTrue(containsRow(resultRows, new Object[]{i, "l" + i, i, "r" + i}));
+      }
+      assertTrue(containsRow(resultRows, new Object[]{9, "l9", null, null}));
+      assertTrue(containsRow(resultRows, new Object[]{10, "l10", null, null}));
+      StatMap<HashJoinOperator.StatKey> statMap =
+          OperatorTestUtil.getStatMap(HashJoinOperator.StatKey.class, operator.calculateStats());
+      assertTrue(statMap.getInt(HashJoinOperator.StatKey.SPILLED_PARTITIONS) > 2);
+    } finally {
+      SpillManager.init(new PinotConfiguration());
+    }
+  }
+
+  @Test
+  public void shouldHandleSemiAndAntiJoinOnColumnarBlocks() {
+    DataSchema resultSchema = new DataSchema(new String[]{"foo", "bar"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+    for (JoinRelType joinType : List.of(JoinRelType.SEMI, JoinRelType.ANTI)) {
+      _leftInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+          .addBlock(ColumnarHeapDataBlock.fromRows(List.of(new Object[]{1, "Aa"}, new Object[]{2, "BB"},
+              new Object[]{4, "CC"}, new Object[]{null, "DD"}), DEFAULT_CHILD_SCHEMA))
+          .buildWithEos();
+      _rightInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+          .addBlock(ColumnarHeapDataBlock.fromRows(
+              List.of(new Object[]{2, "Aa"}, new Object[]{3, "BB"}, new Object[]{null, "CC"}), DEFAULT_CHILD_SCHEMA))
+          .buildWithEos();
+      HashJoinOperator operator = getOperator(resultSchema, joinType, List.of(0), List.of(0), List.of());
+      MseBlock.Data result = (MseBlock.Data) operator.nextBlock();
+      // Left rows are selected from the columnar block without converting it into rows
+      assertTrue(result.isColumnarHeap());
+      assertEquals(result.getDataSchema(), resultSchema);
+      List<Object[]> resultRows = result.asRowHeap().getRows();
+      if (joinType == JoinRelType.SEMI) {
+        assertEquals(resultRows.size(), 1);
+        assertEquals(resultRows.get(0), new Object[]{2, "BB"});
+      } else {
+        assertEquals(resultRows.size(), 3);
+        assertEquals(resultRows.get(0), new Object[]{1, "Aa"});
+        assertEquals(resultRows.get(1), new Object[]{4, "CC"});
+        assertEquals(resultRows.get(2), new Object[]{null, "DD"});
+      }
+      assertTrue(operator.nextBlock().isSuccess());
+    }
+  }
+
+  @Test
+  public void shouldHandleFullJoinOnColumnarBlocksWithMultipleKeys() {
+    _leftInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addBlock(ColumnarHeapDataBlock.fromRows(
+            List.of(new Object[]{1, "Aa"}, new Object[]{2, "BB"}, new Object[]{null, "CC"}), DEFAULT_CHILD_SCHEMA))
+        .buildWithEos();
+    _rightInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addBlock(ColumnarHeapDataBlock.fromRows(List.of(new Object[]{2, "BB"}, new Object[]{2, "BB"},
+            new Object[]{1, "Xx"}, new Object[]{null, "CC"}), DEFAULT_CHILD_SCHEMA))
+        .buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"foo", "bar", "foo", "bar"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+    HashJoinOperator operator = getOperator(resultSchema, JoinRelType.FULL, List.of(0, 1), List.of(0, 1), List.of());
+    List<Object[]> resultRows1 = ((MseBlock.Data) operator.nextBlock()).asRowHeap().getRows();
+    assertEquals(resultRows1.size(), 4);
+    assertEquals(resultRows1.get(0), new Object[]{1, "Aa", null, null});
+    assertEquals(resultRows1.get(1), new Object[]{2, "BB", 2, "BB"});
+    assertEquals(resultRows1.get(2), new Object[]{2, "BB", 2, "BB"});
+    assertEquals(resultRows1.get(3), new Object[]{null, "CC", null, null});
+    // Non-matched right rows, including the ones with null keys
+    List<Object[]> resultRows2 = ((MseBlock.Data) operator.nextBlock()).asRowHeap().getRows();
+    assertEquals(resultRows2.size(), 2);
+    assertTrue(containsRow(resultRows2, new Object[]{null, null, 1, "Xx"}));
+    assertTrue(containsRow(resultRows2, new Object[]{null, null, null, "CC"}));
+    assertTrue(operator.nextBlock().isSuccess());
+  }
+
+  private static List<Object[]> getAllRows(MultiStageOperator operator) {
+    List<Object[]> rows = new ArrayList<>();
+    MseBlock block = operator.nextBlock();
+    while (block.isData()) {
+      rows.addAll(((MseBlock.Data) block).asRowHeap().getRows());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccess());
+    return rows;
+  }
+
   private HashJoinOperator getOperator(DataSchema leftSchema, DataSchema resultSchema, JoinRelType joinType,
       List<Integer> leftKeys, List<Integer> rightKeys, List<RexExpression> nonEquiConditions,
       PlanNode.NodeHint nodeHint) {
@@ -26,6 +26,7 @@ import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.spi.exception.QueryErrorCode;
@@ -40,6 +41,7 @@ import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 
@@ -206,6 +208,31 @@ public class TransformOperatorTest {
     assertEquals(resultRows2.get(2), new Object[]{1, "str"});
   }
 
+  @Test
+  public void shouldTransformColumnarBlock() {
+    DataSchema inputSchema = new DataSchema(new String[]{"doubleCol", "stringCol"}, new ColumnDataType[]{
+        ColumnDataType.DOUBLE, ColumnDataType.STRING
+    });
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(
+        List.of(new Object[]{1.0, "a"}, new Object[]{2.0, null}, new Object[]{3.0, "c"}), inputSchema);
+    when(_input.nextBlock()).thenReturn(block);
+    DataSchema resultSchema = new DataSchema(new String[]{"stringCol", "plusR", "literal"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.DOUBLE, ColumnDataType.STRING});
+    List<RexExpression> projects = List.of(new RexExpression.InputRef(1),
+        new RexExpression.FunctionCall(ColumnDataType.DOUBLE, SqlKind.PLUS.name(),
+            List.of(new RexExpression.InputRef(0), new RexExpression.InputRef(0))),
+        new RexExpression.Literal(ColumnDataType.STRING, "str"));
+    TransformOperator operator = getOperator(inputSchema, resultSchema, projects);
+    ColumnarHeapDataBlock result = ((MseBlock.Data) operator.nextBlock()).asColumnarHeap();
+    // Input references share the input column, and computed strings extend the string dictionary
+    assertSame(result.getIntColumn(0), block.getIntColumn(1));
+    List<Object[]> resultRows = result.asRowHeap().getRows();
+    assertEquals(resultRows.size(), 3);
+    assertEquals(resultRows.get(0), new Object[]{"a", 2.0, "str"});
+    assertEquals(resultRows.get(1), new Object[]{null, 4.0, "str"});
+    assertEquals(resultRows.get(2), new Object[]{"c", 6.0, "str"});
+  }
+
   private TransformOperator getOperator(DataSchema inputSchema, DataSchema resultSchema, List<RexExpression> projects) {
     return new TransformOperator(OperatorTestUtil.getTracingContext(), _input, inputSchema,
         new ProjectNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(), projects));
@@ -19,13 +19,18 @@
 package org.apache.pinot.query.runtime.operator.exchange;
 
 import com.google.common.collect.Iterators;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.mailbox.SendingMailbox;
+import org.apache.pinot.query.planner.partitioning.HashFunctionSelector;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
+import org.apache.pinot.query.planner.partitioning.MultiColumnKeySelector;
+import org.apache.pinot.query.planner.partitioning.SingleColumnKeySelector;
 import org.apache.pinot.query.runtime.blocks.BlockSplitter;
+import org.apache.pinot.query.runtime.blocks.ColumnarHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.spi.exception.QueryErrorCode;
@@ -116,6 +121,41 @@ public class HashExchangeTest {
     Assert.assertEquals(mailbox2DataBlock.asRowHeap().getRows().get(0), new Object[]{2});
   }
 
+  @Test
+  public void shouldHashColumnarBlocksLikeRows() {
+    DataSchema dataSchema = new DataSchema(new String[]{"int", "long", "float", "double", "string", "bigDecimal"},
+        new DataSchema.ColumnDataType[]{
+            DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.LONG, DataSchema.ColumnDataType.FLOAT,
+            DataSchema.ColumnDataType.DOUBLE, DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.BIG_DECIMAL
+        });
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      if (i % 7 == 0) {
+        rows.add(new Object[]{null, null, null, null, null, null});
+      } else {
+        rows.add(new Object[]{i * 31, i * 1_000_000_007L, i / 3f, i * -1.5, "value" + i % 5, new BigDecimal(i)});
+      }
+    }
+    ColumnarHeapDataBlock block = ColumnarHeapDataBlock.fromRows(rows, dataSchema);
+    List<SendingMailbox> destinations = List.of(_mailbox1, _mailbox2);
+    for (String hashFunction : List.of(KeySelector.DEFAULT_HASH_ALGORITHM, HashFunctionSelector.MURMUR2,
+        HashFunctionSelector.MURMUR3)) {
+      List<KeySelector<?>> keySelectors = new ArrayList<>();
+      for (int keyId = 0; keyId < dataSchema.size(); keyId++) {
+        keySelectors.add(new SingleColumnKeySelector(keyId, hashFunction));
+      }
+      keySelectors.add(new MultiColumnKeySelector(new int[]{0, 1, 2, 3, 4, 5}, hashFunction));
+      keySelectors.add(new MultiColumnKeySelector(new int[]{4, 0}, hashFunction));
+      for (KeySelector<?> keySelector : keySelectors) {
+        int[] hashes = new HashExchange(destinations, keySelector, BlockSplitter.DEFAULT).computeHashes(block);
+        for (int rowId = 0; rowId < rows.size(); rowId++) {
+          Assert.assertEquals(hashes[rowId], keySelector.computeHash(rows.get(rowId)),
+              "Hash mismatch for row: " + rowId + " with hash function: " + hashFunction);
+        }
+      }
+    }
+  }
+
   private static class TestSelector implements KeySelector<Object> {
     private final Iterator<Integer> _hashes;
 
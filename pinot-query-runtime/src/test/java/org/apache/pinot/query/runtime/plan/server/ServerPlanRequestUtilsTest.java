@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.plan.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.request.Expression;
+import org.apache.pinot.common.request.Function;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.common.utils.request.RequestUtils;
+import org.apache.pinot.core.query.executor.QueryExecutor;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.sql.FilterKind;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+
+public class ServerPlanRequestUtilsTest {
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"key"}, new ColumnDataType[]{ColumnDataType.INT});
+  private static final int IN_PREDICATE_THRESHOLD = CommonConstants.Server.DEFAULT_VALUE_PRUNER_IN_PREDICATE_THRESHOLD;
+
+  @Test
+  public void testAttachDynamicFilterDeduplicatesValues() {
+    PinotQuery pinotQuery = getPinotQuery();
+    List<Object[]> rows = List.of(new Object[]{3}, new Object[]{1}, new Object[]{3}, new Object[]{1});
+
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, List.of(0), List.of(0), rows, DATA_SCHEMA,
+        IN_PREDICATE_THRESHOLD);
+
+    Function filter = pinotQuery.getFilterExpression().getFunctionCall();
+    assertEquals(filter.getOperator(), FilterKind.IN.name());
+    assertEquals(filter.getOperands(),
+        List.of(RequestUtils.getIdentifierExpression("col"), RequestUtils.getLiteralExpression(1),
+            RequestUtils.getLiteralExpression(3)));
+  }
+
+  @Test
+  public void testAttachDynamicFilterAddsRangeForLargeInList() {
+    PinotQuery pinotQuery = getPinotQuery();
+    int numValues = IN_PREDICATE_THRESHOLD + 1;
+    List<Object[]> rows = new ArrayList<>(numValues);
+    for (int i = numValues; i > 0; i--) {
+      rows.add(new Object[]{i * 10});
+    }
+
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, List.of(0), List.of(0), rows, DATA_SCHEMA,
+        IN_PREDICATE_THRESHOLD);
+
+    Function filter = pinotQuery.getFilterExpression().getFunctionCall();
+    assertEquals(filter.getOperator(), FilterKind.AND.name());
+    List<Expression> operands = filter.getOperands();
+    assertEquals(operands.size(), 2);
+    Function range = operands.get(0).getFunctionCall();
+    assertEquals(range.getOperator(), FilterKind.BETWEEN.name());
+    assertEquals(range.getOperands(),
+        List.of(RequestUtils.getIdentifierExpression("col"), RequestUtils.getLiteralExpression(10),
+            RequestUtils.getLiteralExpression(numValues * 10)));
+    Function in = operands.get(1).getFunctionCall();
+    assertEquals(in.getOperator(), FilterKind.IN.name());
+    assertEquals(in.getOperandsSize(), numValues + 1);
+  }
+
+  @Test
+  public void testAttachDynamicFilterSkipsRangeWithNaN() {
+    PinotQuery pinotQuery = getPinotQuery();
+    int numValues = IN_PREDICATE_THRESHOLD + 1;
+    List<Object[]> rows = new ArrayList<>(numValues + 1);
+    rows.add(new Object[]{Double.NaN});
+    for (int i = 0; i < numValues; i++) {
+      rows.add(new Object[]{i + 0.5});
+    }
+    DataSchema dataSchema = new DataSchema(new String[]{"key"}, new ColumnDataType[]{ColumnDataType.DOUBLE});
+
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, List.of(0), List.of(0), rows, dataSchema,
+        IN_PREDICATE_THRESHOLD);
+
+    Function filter = pinotQuery.getFilterExpression().getFunctionCall();
+    assertEquals(filter.getOperator(), FilterKind.IN.name());
+    List<Expression> operands = filter.getOperands();
+    assertEquals(operands.size(), numValues + 2);
+    assertEquals(operands.get(1), RequestUtils.getLiteralExpression(0.5));
+    assertEquals(operands.get(numValues + 1), RequestUtils.getLiteralExpression(Double.NaN));
+  }
+
+  @Test
+  public void testAttachDynamicFilterHonorsConfiguredThreshold() {
+    QueryExecutor queryExecutor = mock(QueryExecutor.class);
+    when(queryExecutor.getQueryExecutorConfig()).thenReturn(
+        new PinotConfiguration(Map.of("pruner.columnvaluesegmentpruner.inpredicate.threshold", "2")));
+    ServerPlanRequestContext context = new ServerPlanRequestContext(null, queryExecutor, null, null);
+    int inPredicateThreshold = context.getValuePrunerInPredicateThreshold();
+    assertEquals(inPredicateThreshold, 2);
+    List<Object[]> rows = List.of(new Object[]{3}, new Object[]{1}, new Object[]{2});
+
+    // 3 values exceed the configured threshold, so the range is added even though it is below the default threshold
+    PinotQuery pinotQuery = getPinotQuery();
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, List.of(0), List.of(0), rows, DATA_SCHEMA,
+        inPredicateThreshold);
+    Function filter = pinotQuery.getFilterExpression().getFunctionCall();
+    assertEquals(filter.getOperator(), FilterKind.AND.name());
+    assertEquals(filter.getOperands().get(0).getFunctionCall().getOperator(), FilterKind.BETWEEN.name());
+
+    // Without a leaf query executor, the default threshold applies
+    assertEquals(new ServerPlanRequestContext(null, null, null, null).getValuePrunerInPredicateThreshold(),
+        IN_PREDICATE_THRESHOLD);
+  }
+
+  private static PinotQuery getPinotQuery() {
+    PinotQuery pinotQuery = new PinotQuery();
+    pinotQuery.setSelectList(List.of(RequestUtils.getIdentifierExpression("col")));
+    return pinotQuery;
+  }
+}
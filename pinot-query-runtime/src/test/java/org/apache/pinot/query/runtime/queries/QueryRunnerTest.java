@@ -25,11 +25,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.response.broker.ResultTable;
 import org.apache.pinot.query.QueryEnvironmentTestBase;
 import org.apache.pinot.query.QueryServerEnclosure;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.routing.QueryServerInstance;
+import org.apache.pinot.query.runtime.operator.BaseMailboxReceiveOperator;
+import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.service.dispatch.QueryDispatcher;
 import org.apache.pinot.query.testutils.MockInstanceDataManagerFactory;
 import org.apache.pinot.query.testutils.QueryTestUtils;
@@ -203,6 +206,34 @@ public class QueryRunnerTest extends QueryRunnerTestBase {
     }
   }
 
+  /// Runs an ORDER BY without LIMIT with a tiny sort spill threshold, so that the receiving side of the sorted exchange
+  /// spills every received block as a sorted run and merges the runs back.
+  @Test
+  public void testSortSpillsToDisk()
+      throws Exception {
+    String sql = "SELECT col1, col3 FROM a ORDER BY col3, col1";
+    QueryDispatcher.QueryResult queryResult =
+        queryRunner("SET " + QueryOptionKey.SORT_SPILL_THRESHOLD_BYTES + " = 1; " + sql, false);
+    Assert.assertNull(queryResult.getProcessingException());
+    compareRowEquals(queryResult.getResultTable(), queryH2(sql), true);
+
+    int numSpilledRuns = 0;
+    for (MultiStageQueryStats.StageStats.Closed stageStats : queryResult.getQueryStats()) {
+      if (stageStats == null) {
+        continue;
+      }
+      int[] stageSpilledRuns = new int[1];
+      stageStats.forEach((type, stats) -> {
+        if (stats.getKeyClass() == BaseMailboxReceiveOperator.StatKey.class) {
+          stageSpilledRuns[0] += ((StatMap<BaseMailboxReceiveOperator.StatKey>) stats).getInt(
+              BaseMailboxReceiveOperator.StatKey.SPILLED_RUNS);
+        }
+      });
+      numSpilledRuns += stageSpilledRuns[0];
+    }
+    Assert.assertTrue(numSpilledRuns > 0, "Expected the sorted exchange to spill, got " + numSpilledRuns + " runs");
+  }
+
   @DataProvider(name = "testDataWithSqlToFinalRowCount")
   protected Object[][] provideTestSqlAndRowCount() {
     //@formatter:off
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+
+
+/// Off-heap bloom filter on the key digests of all the [DedupKeyRun]s of a partition, so that a key that is not in any
+/// run (i.e. most of the ingested keys) is rejected with a single probe instead of one probe per run.
+///
+/// Bits can not be removed from a bloom filter, so the bits of the removed runs are kept, which only increases the
+/// false positive rate. The owner is expected to replace the filter with one rebuilt from the remaining runs once too
+/// many entries are removed, and with a larger one once the number of entries exceeds the capacity.
+///
+/// Bits must be set by a single thread at a time, but can be read concurrently.
+class DedupKeyBloomFilter implements Closeable {
+  private final PinotDataBuffer _buffer;
+  private final long _capacity;
+  private final long _numBits;
+  private final int _numHashes;
+  private long _numEntries;
+  private long _numRemovedEntries;
+
+  /// Creates an empty filter with the optimal number of bits and hash functions for the expected false positive rate
+  /// at the given capacity.
+  DedupKeyBloomFilter(long capacity, double fpp) {
+    _capacity = capacity;
+    long numWords = (getNumBits(capacity, fpp) + Long.SIZE - 1) / Long.SIZE;
+    _numBits = numWords * Long.SIZE;
+    _numHashes = getNumHashes(_numBits, capacity);
+    _buffer = PinotDataBuffer.allocateDirect(numWords * Long.BYTES, PinotDataBuffer.NATIVE_ORDER,
+        "DedupKeyBloomFilter");
+    for (long i = 0; i < numWords; i++) {
+      _buffer.putLong(i * Long.BYTES, 0L);
+    }
+  }
+
+  static long getNumBits(long numEntries, double fpp) {
+    return Math.max(Long.SIZE, (long) Math.ceil(-numEntries * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+  }
+
+  static int getNumHashes(long numBits, long numEntries) {
+    return Math.max(1, (int) Math.round((double) numBits / Math.max(numEntries, 1) * Math.log(2)));
+  }
+
+  /// Adds all the keys of the given run.
+  void add(DedupKeyRun keyRun) {
+    int numEntries = keyRun.getNumEntries();
+    for (int i = 0; i < numEntries; i++) {
+      add(keyRun.getDigestHighBits(i), keyRun.getDigestLowBits(i));
+    }
+    _numEntries += numEntries;
+  }
+
+  private void add(long highBits, long lowBits) {
+    // The digest is already uniformly distributed, so derive the bit indexes from its 2 halves (Kirsch-Mitzenmacher)
+    long combinedHash = highBits;
+    for (int i = 0; i < _numHashes; i++) {
+      long bitIndex = (combinedHash & Long.MAX_VALUE) % _numBits;
+      long offset = (bitIndex >>> 6) * Long.BYTES;
+      _buffer.putLong(offset, _buffer.getLong(offset) | (1L << bitIndex));
+      combinedHash += lowBits;
+    }
+  }
+
+  /// Records that a run whose keys were added is removed. Its bits are kept.
+  void remove(DedupKeyRun keyRun) {
+    _numRemovedEntries += keyRun.getNumEntries();
+  }
+
+  boolean mightContain(long highBits, long lowBits) {
+    long combinedHash = highBits;
+    for (int i = 0; i < _numHashes; i++) {
+      long bitIndex = (combinedHash & Long.MAX_VALUE) % _numBits;
+      if ((_buffer.getLong((bitIndex >>> 6) * Long.BYTES) & (1L << bitIndex)) == 0) {
+        return false;
+      }
+      combinedHash += lowBits;
+    }
+    return true;
+  }
+
+  long getCapacity() {
+    return _capacity;
+  }
+
+  /// Returns the number of entries added, including the ones of the removed runs.
+  long getNumEntries() {
+    return _numEntries;
+  }
+
+  long getNumRemovedEntries() {
+    return _numRemovedEntries;
+  }
+
+  long getSizeInBytes() {
+    return _numBits / Byte.SIZE;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _buffer.close();
+  }
+}
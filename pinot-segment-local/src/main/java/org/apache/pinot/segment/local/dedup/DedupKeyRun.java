@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.config.table.HashFunction;
+
+
+/// Immutable, sorted run of the dedup keys of one segment, persisted in a local file and memory-mapped for lookups.
+///
+/// Each key is stored as a 16 bytes digest (see [DiskBackedPartitionDedupMetadataManager#getKeyDigest]) along with its
+/// dedup time, sorted by digest so that a key can be looked up with a binary search. A bloom filter built on the
+/// digests is persisted in the same file, and short-circuits the lookups of the keys not in the run. It is read from
+/// the memory-mapped file, so neither the entries nor the bloom filter are kept on heap.
+///
+/// File layout (big-endian):
+/// - Header: version (int), number of entries (int), number of bloom filter hash functions (int), number of bloom
+///   filter words (int), min dedup time (double), max dedup time (double)
+/// - Bloom filter words (long)
+/// - Entries: digest high bits (long), digest low bits (long), dedup time (double)
+///
+/// The file is named after the segment name and CRC, so that it can be reused for the same segment after a restart.
+class DedupKeyRun implements Closeable {
+  static final String FILE_EXTENSION = ".dedupkeys";
+  private static final String TEMP_FILE_EXTENSION = ".tmp";
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int ENTRY_SIZE = 24;
+
+  private final IndexSegment _segment;
+  private final File _file;
+  private final PinotDataBuffer _buffer;
+  private final int _numEntries;
+  private final double _minDedupTime;
+  private final double _maxDedupTime;
+  private final long _numBloomFilterBits;
+  private final int _numBloomFilterHashes;
+  private final long _entriesOffset;
+
+  private DedupKeyRun(IndexSegment segment, File file)
+      throws IOException {
+    _segment = segment;
+    _file = file;
+    _buffer = PinotDataBuffer.mapReadOnlyBigEndianFile(file);
+    try {
+      int version = _buffer.getInt(0);
+      Preconditions.checkState(version == VERSION, "Unsupported dedup key run version: %s in file: %s", version, file);
+      _numEntries = _buffer.getInt(4);
+      _numBloomFilterHashes = _buffer.getInt(8);
+      int numBloomFilterWords = _buffer.getInt(12);
+      _minDedupTime = _buffer.getDouble(16);
+      _maxDedupTime = _buffer.getDouble(24);
+      _numBloomFilterBits = (long) numBloomFilterWords * Long.SIZE;
+      _entriesOffset = HEADER_SIZE + (long) numBloomFilterWords * Long.BYTES;
+      Preconditions.checkState(_buffer.size() == _entriesOffset + (long) _numEntries * ENTRY_SIZE,
+          "Invalid size: %s of dedup key run file: %s", _buffer.size(), file);
+    } catch (RuntimeException e) {
+      _buffer.close();
+      throw e;
+    }
+  }
+
+  /// Returns the file of the run for the given segment. The file can only be reused when the segment CRC is known.
+  static File getFile(File dir, String segmentName, @Nullable String crc) {
+    return new File(dir, segmentName + "." + (crc != null ? crc : "unknown") + FILE_EXTENSION);
+  }
+
+  /// Loads the run persisted in the given file.
+  static DedupKeyRun load(IndexSegment segment, File file)
+      throws IOException {
+    return new DedupKeyRun(segment, file);
+  }
+
+  /// Builds the run from the records of the segment, persists it in the given file and loads it. When a key appears
+  /// multiple times, the largest dedup time is kept.
+  static DedupKeyRun build(IndexSegment segment, File file, Iterator<DedupRecordInfo> dedupRecordInfoIterator,
+      HashFunction hashFunction, double bloomFilterFpp)
+      throws IOException {
+    LongArrayList highBits = new LongArrayList();
+    LongArrayList lowBits = new LongArrayList();
+    DoubleArrayList dedupTimes = new DoubleArrayList();
+    long[] digest = new long[2];
+    while (dedupRecordInfoIterator.hasNext()) {
+      DedupRecordInfo dedupRecordInfo = dedupRecordInfoIterator.next();
+      DiskBackedPartitionDedupMetadataManager.getKeyDigest(dedupRecordInfo.getPrimaryKey(), hashFunction, digest);
+      highBits.add(digest[0]);
+      lowBits.add(digest[1]);
+      dedupTimes.add(dedupRecordInfo.getDedupTime());
+    }
+    int numRecords = highBits.size();
+    int[] sortedIds = new int[numRecords];
+    for (int i = 0; i < numRecords; i++) {
+      sortedIds[i] = i;
+    }
+    IntArrays.quickSort(sortedIds, (id1, id2) -> {
+      int result = Long.compare(highBits.getLong(id1), highBits.getLong(id2));
+      return result != 0 ? result : Long.compare(lowBits.getLong(id1), lowBits.getLong(id2));
+    });
+
+    // Merge the duplicate keys
+    int numEntries = 0;
+    double minDedupTime = Double.POSITIVE_INFINITY;
+    double maxDedupTime = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < numRecords; i++) {
+      int id = sortedIds[i];
+      double dedupTime = dedupTimes.getDouble(id);
+      minDedupTime = Math.min(minDedupTime, dedupTime);
+      maxDedupTime = Math.max(maxDedupTime, dedupTime);
+      if (numEntries > 0) {
+        int lastId = sortedIds[numEntries - 1];
+        if (highBits.getLong(lastId) == highBits.getLong(id) && lowBits.getLong(lastId) == lowBits.getLong(id)) {
+          if (dedupTime > dedupTimes.getDouble(lastId)) {
+            sortedIds[numEntries - 1] = id;
+          }
+          continue;
+        }
+      }
+      sortedIds[numEntries++] = id;
+    }
+
+    // Size the bloom filter with the optimal number of bits and hash functions for the expected false positive rate
+    long numBits = DedupKeyBloomFilter.getNumBits(numEntries, bloomFilterFpp);
+    int numBloomFilterWords = (int) Math.min((numBits + Long.SIZE - 1) / Long.SIZE, Integer.MAX_VALUE);
+    long numBloomFilterBits = (long) numBloomFilterWords * Long.SIZE;
+    int numBloomFilterHashes = DedupKeyBloomFilter.getNumHashes(numBloomFilterBits, numEntries);
+    long[] bloomFilter = new long[numBloomFilterWords];
+    for (int i = 0; i < numEntries; i++) {
+      int id = sortedIds[i];
+      setBloomFilterBits(bloomFilter, numBloomFilterBits, numBloomFilterHashes, highBits.getLong(id),
+          lowBits.getLong(id));
+    }
+
+    // Write to a temporary file first, so that a partially written run is never loaded after a crash
+    File tempFile = new File(file.getParentFile(), file.getName() + TEMP_FILE_EXTENSION);
+    try (DataOutputStream outputStream = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+      outputStream.writeInt(VERSION);
+      outputStream.writeInt(numEntries);
+      outputStream.writeInt(numBloomFilterHashes);
+      outputStream.writeInt(numBloomFilterWords);
+      outputStream.writeDouble(numEntries > 0 ? minDedupTime : 0);
+      outputStream.writeDouble(numEntries > 0 ? maxDedupTime : 0);
+      for (long word : bloomFilter) {
+        outputStream.writeLong(word);
+      }
+      for (int i = 0; i < numEntries; i++) {
+        int id = sortedIds[i];
+        outputStream.writeLong(highBits.getLong(id));
+        outputStream.writeLong(lowBits.getLong(id));
+        outputStream.writeDouble(dedupTimes.getDouble(id));
+      }
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    return new DedupKeyRun(segment, file);
+  }
+
+  private static void setBloomFilterBits(long[] bloomFilter, long numBits, int numHashes, long highBits,
+      long lowBits) {
+    // The digest is already uniformly distributed, so derive the bit indexes from its 2 halves (Kirsch-Mitzenmacher)
+    long combinedHash = highBits;
+    for (int i = 0; i < numHashes; i++) {
+      long bitIndex = (combinedHash & Long.MAX_VALUE) % numBits;
+      bloomFilter[(int) (bitIndex >>> 6)] |= 1L << bitIndex;
+      combinedHash += lowBits;
+    }
+  }
+
+  private boolean mightContain(long highBits, long lowBits) {
+    long combinedHash = highBits;
+    for (int i = 0; i < _numBloomFilterHashes; i++) {
+      long bitIndex = (combinedHash & Long.MAX_VALUE) % _numBloomFilterBits;
+      if ((_buffer.getLong(HEADER_SIZE + (bitIndex >>> 6) * Long.BYTES) & (1L << bitIndex)) == 0) {
+        return false;
+      }
+      combinedHash += lowBits;
+    }
+    return true;
+  }
+
+  /// Returns the dedup time of the key, or `NaN` if the key is not in the run.
+  double getDedupTime(long highBits, long lowBits) {
+    if (!mightContain(highBits, lowBits)) {
+      return Double.NaN;
+    }
+    int low = 0;
+    int high = _numEntries - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long offset = _entriesOffset + (long) mid * ENTRY_SIZE;
+      int result = Long.compare(_buffer.getLong(offset), highBits);
+      if (result == 0) {
+        result = Long.compare(_buffer.getLong(offset + 8), lowBits);
+      }
+      if (result < 0) {
+        low = mid + 1;
+      } else if (result > 0) {
+        high = mid - 1;
+      } else {
+        return _buffer.getDouble(offset + 16);
+      }
+    }
+    return Double.NaN;
+  }
+
+  /// Returns the high bits of the digest of the entry at the given index, where entries are sorted by digest.
+  long getDigestHighBits(int index) {
+    return _buffer.getLong(_entriesOffset + (long) index * ENTRY_SIZE);
+  }
+
+  /// Returns the low bits of the digest of the entry at the given index, where entries are sorted by digest.
+  long getDigestLowBits(int index) {
+    return _buffer.getLong(_entriesOffset + (long) index * ENTRY_SIZE + 8);
+  }
+
+  IndexSegment getSegment() {
+    return _segment;
+  }
+
+  File getFile() {
+    return _file;
+  }
+
+  int getNumEntries() {
+    return _numEntries;
+  }
+
+  double getMinDedupTime() {
+    return _minDedupTime;
+  }
+
+  double getMaxDedupTime() {
+    return _maxDedupTime;
+  }
+
+  /// Returns the size of the bloom filter, which is read from the memory-mapped file.
+  long getBloomFilterSizeInBytes() {
+    return _numBloomFilterBits / Byte.SIZE;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _buffer.close();
+  }
+}
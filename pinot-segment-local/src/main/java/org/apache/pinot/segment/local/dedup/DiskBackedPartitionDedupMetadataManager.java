@@ -0,0 +1,401 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.pinot.segment.local.upsert.OffHeapPrimaryKeyIndex;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/// Implementation of [PartitionDedupMetadataManager] with bounded heap usage, for the tables with long dedup windows.
+///
+/// The primary keys are kept in 2 tiers:
+/// - Hot tier: the keys ingested through [#checkRecordPresentOrUpdate] (i.e. the keys of the consuming segments) are
+///   kept in an on-heap map, the same way as [ConcurrentMapPartitionDedupMetadataManager]
+/// - Cold tier: the keys of each immutable segment are kept in a [DedupKeyRun], a sorted run of the 128-bit key
+///   digests persisted in a local file and memory-mapped, with a bloom filter to skip the runs not containing a key
+///
+/// A single off-heap [DedupKeyBloomFilter] on the keys of all the runs is probed first, so that a key not in the cold
+/// tier is rejected with one probe regardless of the number of segments, and the runs are only looked up for the keys
+/// passing it. The filter is rebuilt from the runs with twice the number of entries once it is full, and once more
+/// than half of its entries belong to removed runs.
+///
+/// When a consuming segment is committed and replaced with the immutable segment, its keys move from the hot tier to
+/// the run of the immutable segment. The heap usage is then bounded by the consuming segments, while the keys of the
+/// immutable segments and the bloom filters are kept off heap.
+///
+/// The runs are stored under the table index dir, and named after the segment name and CRC. They are kept when the
+/// metadata manager is closed, so that adding or preloading the same segment after a server restart reuses the run
+/// instead of reading the primary keys from the segment again.
+///
+/// Two different keys with the same 128-bit digest (when the hash function produces more than 16 bytes) are treated
+/// as the same key by the cold tier, which is considered negligible.
+///
+/// The false positive rate of the bloom filters can be tuned with the dedup metadata manager config
+/// [#BLOOM_FILTER_FPP_KEY].
+class DiskBackedPartitionDedupMetadataManager extends BasePartitionDedupMetadataManager {
+  public static final String BLOOM_FILTER_FPP_KEY = "bloomFilterFpp";
+  public static final double DEFAULT_BLOOM_FILTER_FPP = 0.01;
+  static final String KEY_RUN_DIR_PREFIX = "dedup.keys.partition.";
+  static final long MIN_BLOOM_FILTER_CAPACITY = 100_000;
+
+  @VisibleForTesting
+  final ConcurrentHashMap<Object, Pair<IndexSegment, Double>> _primaryKeyToSegmentAndTimeMap =
+      new ConcurrentHashMap<>();
+
+  // Key runs by segment name
+  @VisibleForTesting
+  final ConcurrentHashMap<String, DedupKeyRun> _keyRunMap = new ConcurrentHashMap<>();
+
+  // Read lock is held when looking up the key runs, and write lock is held when closing them or the bloom filter
+  private final ReadWriteLock _keyRunLock = new ReentrantReadWriteLock();
+  // Held when adding or removing key runs, so that the bloom filter is updated along with _keyRunMap
+  private final Object _bloomFilterLock = new Object();
+  // Bloom filter on the keys of all the runs, null when there is no run
+  @VisibleForTesting
+  @Nullable
+  volatile DedupKeyBloomFilter _bloomFilter;
+  private final File _keyRunDir;
+  private final double _bloomFilterFpp;
+
+  protected DiskBackedPartitionDedupMetadataManager(String tableNameWithType, int partitionId,
+      DedupContext dedupContext) {
+    super(tableNameWithType, partitionId, dedupContext);
+    Map<String, String> configs = dedupContext.getMetadataManagerConfigs();
+    double bloomFilterFpp = DEFAULT_BLOOM_FILTER_FPP;
+    if (configs != null) {
+      bloomFilterFpp =
+          Double.parseDouble(configs.getOrDefault(BLOOM_FILTER_FPP_KEY, Double.toString(DEFAULT_BLOOM_FILTER_FPP)));
+    }
+    if (bloomFilterFpp <= 0 || bloomFilterFpp >= 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid bloom filter fpp: %s for table: %s, must be in (0, 1)", bloomFilterFpp,
+              tableNameWithType));
+    }
+    _bloomFilterFpp = bloomFilterFpp;
+    _keyRunDir = new File(_tableIndexDir, KEY_RUN_DIR_PREFIX + partitionId);
+    try {
+      FileUtils.forceMkdir(_keyRunDir);
+    } catch (IOException e) {
+      throw new RuntimeException(
+          String.format("Failed to create dedup key run dir: %s for table: %s", _keyRunDir, tableNameWithType), e);
+    }
+  }
+
+  /// Fills the 128-bit digest of the primary key, used as the key in the [DedupKeyRun]s. The hash of the configured
+  /// hash function is used when it has at most 16 bytes, otherwise the MURMUR3 hash of the (hashed) primary key.
+  static void getKeyDigest(PrimaryKey primaryKey, HashFunction hashFunction, long[] digest) {
+    Object hashedKey = HashUtils.hashPrimaryKey(primaryKey, hashFunction);
+    byte[] bytes = hashedKey instanceof ByteArray ? ((ByteArray) hashedKey).getBytes() : primaryKey.asBytes();
+    if (!(hashedKey instanceof ByteArray) || bytes.length > 16) {
+      bytes = HashUtils.hashMurmur3(bytes);
+    }
+    digest[0] = OffHeapPrimaryKeyIndex.getKeyPart(bytes, 0);
+    digest[1] = OffHeapPrimaryKeyIndex.getKeyPart(bytes, 1);
+  }
+
+  @Override
+  protected void doPreloadSegment(ImmutableSegment segment, Iterator<DedupRecordInfo> dedupRecordInfoIterator) {
+    addKeyRun(segment, dedupRecordInfoIterator);
+  }
+
+  @Override
+  protected void doAddOrReplaceSegment(@Nullable IndexSegment oldSegment, IndexSegment newSegment,
+      Iterator<DedupRecordInfo> dedupRecordInfoIteratorOfNewSegment) {
+    addKeyRun(newSegment, dedupRecordInfoIteratorOfNewSegment);
+    if (oldSegment != null && oldSegment != newSegment) {
+      // The keys of the replaced (typically consuming) segment are now in the key run of the new segment
+      removeHotKeys(oldSegment);
+      if (!oldSegment.getSegmentName().equals(newSegment.getSegmentName())) {
+        removeKeyRun(oldSegment);
+      }
+    }
+  }
+
+  private void addKeyRun(IndexSegment segment, Iterator<DedupRecordInfo> dedupRecordInfoIterator) {
+    String segmentName = segment.getSegmentName();
+    String crc = segment.getSegmentMetadata().getCrc();
+    File file = DedupKeyRun.getFile(_keyRunDir, segmentName, crc);
+    DedupKeyRun keyRun = null;
+    if (crc != null && file.exists()) {
+      try {
+        keyRun = DedupKeyRun.load(segment, file);
+        _logger.info("Reused dedup key run for segment: {} with {} keys", segmentName, keyRun.getNumEntries());
+      } catch (Exception e) {
+        _logger.warn("Failed to load dedup key run from file: {}, rebuilding it", file, e);
+      }
+    }
+    if (keyRun == null) {
+      try {
+        keyRun = DedupKeyRun.build(segment, file, dedupRecordInfoIterator, _hashFunction, _bloomFilterFpp);
+      } catch (IOException e) {
+        throw new RuntimeException(
+            String.format("Failed to build dedup key run for segment: %s of table: %s", segmentName,
+                _tableNameWithType), e);
+      }
+    }
+    DedupKeyRun oldKeyRun;
+    synchronized (_bloomFilterLock) {
+      DedupKeyBloomFilter bloomFilter = _bloomFilter;
+      if (bloomFilter != null && bloomFilter.getNumEntries() + keyRun.getNumEntries() <= bloomFilter.getCapacity()) {
+        bloomFilter.add(keyRun);
+      } else {
+        rebuildBloomFilter(keyRun);
+      }
+      oldKeyRun = _keyRunMap.put(segmentName, keyRun);
+      if (oldKeyRun != null) {
+        onKeyRunRemoved(oldKeyRun);
+      }
+    }
+    if (oldKeyRun != null) {
+      closeKeyRun(oldKeyRun, !oldKeyRun.getFile().equals(file));
+    }
+  }
+
+  private void removeKeyRun(IndexSegment segment) {
+    String segmentName = segment.getSegmentName();
+    DedupKeyRun keyRun = _keyRunMap.get(segmentName);
+    // Only remove the run owned by the segment, as a segment with the same name might have been added since
+    if (keyRun != null && keyRun.getSegment() == segment && removeKeyRun(segmentName, keyRun)) {
+      closeKeyRun(keyRun, true);
+    }
+  }
+
+  /// Removes the given run if it is still the run of the segment, and returns whether it is removed.
+  private boolean removeKeyRun(String segmentName, DedupKeyRun keyRun) {
+    synchronized (_bloomFilterLock) {
+      if (!_keyRunMap.remove(segmentName, keyRun)) {
+        return false;
+      }
+      onKeyRunRemoved(keyRun);
+      return true;
+    }
+  }
+
+  /// Must be called with [#_bloomFilterLock] held, after removing the run from [#_keyRunMap].
+  private void onKeyRunRemoved(DedupKeyRun keyRun) {
+    DedupKeyBloomFilter bloomFilter = _bloomFilter;
+    if (bloomFilter == null) {
+      return;
+    }
+    bloomFilter.remove(keyRun);
+    // The bits of the removed runs can not be cleared and only add false positives, so rebuild the filter once they
+    // are the majority
+    if (bloomFilter.getNumRemovedEntries() * 2 > bloomFilter.getNumEntries()) {
+      rebuildBloomFilter(null);
+    }
+  }
+
+  /// Replaces the bloom filter with one built from the keys of the current runs and the given new run, sized for twice
+  /// the number of keys so that it is not rebuilt for every new run. Must be called with [#_bloomFilterLock] held.
+  private void rebuildBloomFilter(@Nullable DedupKeyRun newKeyRun) {
+    DedupKeyBloomFilter bloomFilter = null;
+    if (newKeyRun != null || !_keyRunMap.isEmpty()) {
+      long numEntries = newKeyRun != null ? newKeyRun.getNumEntries() : 0;
+      for (DedupKeyRun keyRun : _keyRunMap.values()) {
+        numEntries += keyRun.getNumEntries();
+      }
+      bloomFilter = new DedupKeyBloomFilter(Math.max(2 * numEntries, MIN_BLOOM_FILTER_CAPACITY), _bloomFilterFpp);
+      for (DedupKeyRun keyRun : _keyRunMap.values()) {
+        bloomFilter.add(keyRun);
+      }
+      if (newKeyRun != null) {
+        bloomFilter.add(newKeyRun);
+      }
+      _logger.info("Rebuilt dedup key bloom filter with {} keys and size of {} bytes", numEntries,
+          bloomFilter.getSizeInBytes());
+    }
+    DedupKeyBloomFilter oldBloomFilter = _bloomFilter;
+    _bloomFilter = bloomFilter;
+    if (oldBloomFilter != null) {
+      closeBloomFilter(oldBloomFilter);
+    }
+  }
+
+  private void closeBloomFilter(DedupKeyBloomFilter bloomFilter) {
+    _keyRunLock.writeLock().lock();
+    try {
+      bloomFilter.close();
+    } catch (IOException e) {
+      _logger.warn("Failed to close dedup key bloom filter", e);
+    } finally {
+      _keyRunLock.writeLock().unlock();
+    }
+  }
+
+  private void removeHotKeys(IndexSegment segment) {
+    _primaryKeyToSegmentAndTimeMap.values().removeIf(segmentAndTime -> segmentAndTime.getLeft() == segment);
+  }
+
+  private void closeKeyRun(DedupKeyRun keyRun, boolean deleteFile) {
+    _keyRunLock.writeLock().lock();
+    try {
+      keyRun.close();
+    } catch (IOException e) {
+      _logger.warn("Failed to close dedup key run for segment: {}", keyRun.getSegment().getSegmentName(), e);
+    } finally {
+      _keyRunLock.writeLock().unlock();
+    }
+    if (deleteFile) {
+      FileUtils.deleteQuietly(keyRun.getFile());
+    }
+  }
+
+  @Override
+  protected void doRemoveSegment(IndexSegment segment, Iterator<DedupRecordInfo> dedupRecordInfoIterator) {
+    // Both tiers are tracked by segment, so there is no need to read the primary keys of the segment
+    removeHotKeys(segment);
+    removeKeyRun(segment);
+  }
+
+  @Override
+  protected void doRemoveExpiredPrimaryKeys() {
+    double smallestTimeToKeep = _largestSeenTime.get() - _metadataTTL;
+    _primaryKeyToSegmentAndTimeMap.entrySet().removeIf(entry -> entry.getValue().getRight() < smallestTimeToKeep);
+    for (Map.Entry<String, DedupKeyRun> entry : _keyRunMap.entrySet()) {
+      DedupKeyRun keyRun = entry.getValue();
+      if (keyRun.getMaxDedupTime() < smallestTimeToKeep && removeKeyRun(entry.getKey(), keyRun)) {
+        closeKeyRun(keyRun, true);
+      }
+    }
+  }
+
+  @Override
+  public boolean checkRecordPresentOrUpdate(DedupRecordInfo dedupRecordInfo, IndexSegment indexSegment) {
+    if (!startOperation()) {
+      _logger.info("Skip adding record to {} because metadata manager is already stopped",
+          indexSegment.getSegmentName());
+      return true;
+    }
+    try {
+      if (_metadataTTL > 0) {
+        _largestSeenTime.getAndUpdate(time -> Math.max(time, dedupRecordInfo.getDedupTime()));
+      }
+      PrimaryKey primaryKey = dedupRecordInfo.getPrimaryKey();
+      AtomicBoolean present = new AtomicBoolean(false);
+      _primaryKeyToSegmentAndTimeMap.compute(HashUtils.hashPrimaryKey(primaryKey, _hashFunction),
+          (key, segmentAndTime) -> {
+            // Stale metadata is treated as not existing when checking for deduplicates. The key runs are only looked
+            // up when the key is not found in the hot tier.
+            boolean presentInHotTier = segmentAndTime != null && !isOutOfMetadataTTL(segmentAndTime.getRight());
+            if (presentInHotTier || isInKeyRuns(primaryKey)) {
+              present.set(true);
+              return segmentAndTime;
+            }
+            return Pair.of(indexSegment, dedupRecordInfo.getDedupTime());
+          });
+      if (!present.get()) {
+        updatePrimaryKeyGauge();
+      }
+      return present.get();
+    } finally {
+      finishOperation();
+    }
+  }
+
+  private boolean isInKeyRuns(PrimaryKey primaryKey) {
+    if (_keyRunMap.isEmpty()) {
+      return false;
+    }
+    long[] digest = new long[2];
+    getKeyDigest(primaryKey, _hashFunction, digest);
+    _keyRunLock.readLock().lock();
+    try {
+      // Most keys are not in any run, and are rejected by the bloom filter on the keys of all the runs
+      DedupKeyBloomFilter bloomFilter = _bloomFilter;
+      if (bloomFilter == null || !bloomFilter.mightContain(digest[0], digest[1])) {
+        return false;
+      }
+      for (DedupKeyRun keyRun : _keyRunMap.values()) {
+        // Skip the runs with all the keys out of TTL before probing them
+        if (isOutOfMetadataTTL(keyRun.getMaxDedupTime())) {
+          continue;
+        }
+        double dedupTime = keyRun.getDedupTime(digest[0], digest[1]);
+        if (!Double.isNaN(dedupTime) && !isOutOfMetadataTTL(dedupTime)) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      _keyRunLock.readLock().unlock();
+    }
+  }
+
+  /// Returns the number of primary keys tracked, where the keys in multiple segments are counted multiple times.
+  @Override
+  public long getNumPrimaryKeys() {
+    long numPrimaryKeys = _primaryKeyToSegmentAndTimeMap.size();
+    for (DedupKeyRun keyRun : _keyRunMap.values()) {
+      numPrimaryKeys += keyRun.getNumEntries();
+    }
+    return numPrimaryKeys;
+  }
+
+  @Override
+  protected void doClose()
+      throws IOException {
+    _primaryKeyToSegmentAndTimeMap.clear();
+    // Keep the runs of the current segments so that they can be reused after restart, and delete the other files,
+    // e.g. the runs of the segments deleted while the server was down or the partially written runs
+    Set<String> fileNamesToKeep = new HashSet<>();
+    synchronized (_bloomFilterLock) {
+      _keyRunLock.writeLock().lock();
+      try {
+        for (DedupKeyRun keyRun : _keyRunMap.values()) {
+          fileNamesToKeep.add(keyRun.getFile().getName());
+          keyRun.close();
+        }
+        _keyRunMap.clear();
+        if (_bloomFilter != null) {
+          _bloomFilter.close();
+          _bloomFilter = null;
+        }
+      } finally {
+        _keyRunLock.writeLock().unlock();
+      }
+    }
+    File[] files = _keyRunDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (!fileNamesToKeep.contains(file.getName())) {
+          FileUtils.deleteQuietly(file);
+        }
+      }
+    }
+  }
+}
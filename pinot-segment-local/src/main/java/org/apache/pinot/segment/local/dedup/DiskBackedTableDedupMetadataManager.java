@@ -0,0 +1,29 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+/// Table dedup metadata manager keeping the primary keys of the immutable segments in local memory-mapped files, see
+/// [DiskBackedPartitionDedupMetadataManager]. It can be enabled by setting the dedup `metadataManagerClass` to this
+/// class.
+public class DiskBackedTableDedupMetadataManager extends BaseTableDedupMetadataManager {
+  @Override
+  protected PartitionDedupMetadataManager createPartitionDedupMetadataManager(Integer partitionId) {
+    return new DiskBackedPartitionDedupMetadataManager(_tableNameWithType, partitionId, _context);
+  }
+}
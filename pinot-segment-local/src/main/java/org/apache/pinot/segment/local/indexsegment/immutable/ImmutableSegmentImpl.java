@@ -34,6 +34,7 @@ import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.segment.local.dedup.PartitionDedupMetadataManager;
 import org.apache.pinot.segment.local.indexsegment.IndexSegmentUtils;
+import org.apache.pinot.segment.local.segment.index.column.PhysicalColumnIndexContainer;
 import org.apache.pinot.segment.local.segment.index.datasource.ImmutableDataSource;
 import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.segment.local.segment.index.map.ImmutableMapDataSource;
@@ -293,6 +294,10 @@ public class ImmutableSegmentImpl implements ImmutableSegment {
   public DataSource getDataSource(String column, Schema schema) {
     DataSource dataSource = getDataSourceNullable(column);
     if (dataSource != null) {
+      // Count the query accesses for the adaptive on-heap promotion
+      if (dataSource.getIndexContainer() instanceof PhysicalColumnIndexContainer) {
+        ((PhysicalColumnIndexContainer) dataSource.getIndexContainer()).recordAccess();
+      }
       return dataSource;
     }
     FieldSpec fieldSpec = schema.getFieldSpecFor(column);
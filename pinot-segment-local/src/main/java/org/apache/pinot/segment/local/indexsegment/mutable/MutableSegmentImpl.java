@@ -24,6 +24,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
 import it.unimi.dsi.fastutil.booleans.BooleanList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.io.Closeable;
@@ -41,6 +42,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
 import javax.annotation.Nullable;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -613,26 +615,9 @@ public class MutableSegmentImpl implements MutableSegment {
   @Override
   public boolean index(GenericRow row, @Nullable StreamMessageMetadata metadata)
       throws IOException {
-    if (_partitionColumn != null) {
-      Object value = row.getValue(_partitionColumn);
-      Preconditions.checkState(value != null, "Failed to find value for partition column: %s", _partitionColumn);
-      IndexContainer indexContainer = _indexContainerMap.get(_partitionColumn);
-      String stringValue = indexContainer._fieldSpec.getDataType().toString(value);
-      int partition = _partitionFunction.getPartition(stringValue);
-      if (partition != _mainPartitionId) {
-        if (_serverMetrics != null) {
-          _serverMetrics.addMeteredTableValue(_realtimeTableName, ServerMeter.REALTIME_PARTITION_MISMATCH, 1);
-        }
-        if (_dropRecordOnPartitionMismatch) {
-          updateIndexedAndIngestionTime(metadata);
-          return true;
-        }
-        if (indexContainer._partitions.add(partition)) {
-          // for every partition other than mainPartitionId, log a warning once
-          _logger.warn("Found new partition: {} from partition column: {}, value: {}", partition, _partitionColumn,
-              stringValue);
-        }
-      }
+    if (shouldDropOnPartitionMismatch(row)) {
+      updateIndexedAndIngestionTime(metadata);
+      return true;
     }
 
     if (isDedupEnabled()) {
@@ -719,6 +704,300 @@ public class MutableSegmentImpl implements MutableSegment {
     return canTakeMore;
   }
 
+  /// Indexes the batch column by column when the rows are independent of each other, i.e. when upsert, dedup, metrics
+  /// aggregation and multi-column text index are not enabled. Each column is indexed for all the rows before moving to
+  /// the next column, which keeps the dictionary and the indexes of the column hot in the cache, and allows bulk
+  /// dictionary inserts and forward index writes. The rows become queryable at once after all the columns are indexed.
+  ///
+  /// Otherwise (or when the batch does not fit into the segment), the rows are indexed one by one, which also keeps
+  /// the order of the upsert/dedup metadata updates.
+  @Override
+  public boolean index(List<GenericRow> rows, @Nullable StreamMessageMetadata metadata,
+      ObjIntConsumer<Exception> errorHandler) {
+    int numRows = rows.size();
+    int startDocId = _numDocsIndexed;
+    if (!canIndexColumnByColumn() || startDocId + numRows > _capacity) {
+      return MutableSegment.super.index(rows, metadata, errorHandler);
+    }
+
+    // Filter out the rows to drop and the invalid rows before indexing any column to avoid partially indexing a row
+    List<GenericRow> rowsToIndex = new ArrayList<>(numRows);
+    IntArrayList rowIds = new IntArrayList(numRows);
+    for (int i = 0; i < numRows; i++) {
+      GenericRow row = rows.get(i);
+      try {
+        if (!shouldDropOnPartitionMismatch(row)) {
+          validateLengthOfMVColumns(row);
+          rowsToIndex.add(row);
+          rowIds.add(i);
+        }
+      } catch (Exception e) {
+        errorHandler.accept(e, i);
+      }
+    }
+
+    int numRowsToIndex = rowsToIndex.size();
+    if (numRowsToIndex > 0) {
+      // Read the values and update the dictionaries of all the columns before writing any index, so that an invalid
+      // value can not leave the batch partially indexed. Dictionary entries are never visible on their own.
+      ColumnBatch[] columnBatches = new ColumnBatch[_indexContainerMap.size()];
+      int columnIndex = 0;
+      try {
+        for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
+          columnBatches[columnIndex++] = prepareColumn(entry.getKey(), entry.getValue(), rowsToIndex);
+        }
+      } catch (Exception e) {
+        _logger.warn("Caught exception while preparing a batch of {} rows, indexing them one by one", numRowsToIndex,
+            e);
+        indexRowByRow(rowsToIndex, rowIds, errorHandler);
+        updateIndexedAndIngestionTime(metadata);
+        return true;
+      }
+      columnIndex = 0;
+      for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
+        indexColumn(entry.getKey(), entry.getValue(), columnBatches[columnIndex++], rowsToIndex, startDocId);
+      }
+      // Update number of documents indexed at last to make the rows queryable
+      _numDocsIndexed = startDocId + numRowsToIndex;
+    }
+    updateIndexedAndIngestionTime(metadata);
+    // The batch fits into the segment, so the segment can take more rows the same way as when indexing the rows one by
+    // one
+    return true;
+  }
+
+  /// Indexes the rows one by one, the same way as [#index(GenericRow, StreamMessageMetadata)] for the tables supporting
+  /// column by column indexing. `rowIds` are the indexes of the rows within the batch passed to the error handler.
+  private void indexRowByRow(List<GenericRow> rows, IntArrayList rowIds, ObjIntConsumer<Exception> errorHandler) {
+    int numRows = rows.size();
+    for (int i = 0; i < numRows; i++) {
+      GenericRow row = rows.get(i);
+      try {
+        updateDictionary(row);
+        addNewRow(_numDocsIndexed, row);
+        _numDocsIndexed++;
+      } catch (Exception e) {
+        errorHandler.accept(e, rowIds.getInt(i));
+      }
+    }
+  }
+
+  private boolean canIndexColumnByColumn() {
+    if (isUpsertEnabled() || isDedupEnabled() || isAggregateMetricsEnabled() || _multiColumnValues != null) {
+      return false;
+    }
+    for (IndexContainer indexContainer : _indexContainerMap.values()) {
+      if (indexContainer._valueAggregator != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /// Reads the value of the column for all the rows and updates the dictionary, the same way as
+  /// [#updateDictionary(GenericRow)] for each row. The values are also converted to what the indexes take so that
+  /// [#indexColumn] does not fail on an invalid value.
+  private ColumnBatch prepareColumn(String column, IndexContainer indexContainer, List<GenericRow> rows) {
+    int numRows = rows.size();
+    FieldSpec fieldSpec = indexContainer._fieldSpec;
+    DataType dataType = fieldSpec.getDataType();
+    boolean singleValue = fieldSpec.isSingleValueField();
+    ColumnBatch columnBatch = new ColumnBatch(numRows);
+    Object[] values = columnBatch._values;
+    for (int i = 0; i < numRows; i++) {
+      Object value = rows.get(i).getValue(column);
+      if (value == null) {
+        columnBatch._hasNullValue = true;
+      } else if (!singleValue) {
+        Preconditions.checkState(value instanceof Object[], "Value of multi-value column: %s is not an array", column);
+      }
+      values[i] = value;
+    }
+
+    MutableDictionary dictionary = indexContainer._dictionary;
+    if (dictionary != null) {
+      if (singleValue) {
+        int[] dictIds = new int[numRows];
+        if (!columnBatch._hasNullValue) {
+          dictionary.index(values, numRows, dictIds);
+        } else {
+          for (int i = 0; i < numRows; i++) {
+            if (values[i] != null) {
+              dictIds[i] = dictionary.index(values[i]);
+            } else {
+              recordIndexingError("DICTIONARY");
+            }
+          }
+        }
+        columnBatch._dictIds = dictIds;
+      } else {
+        int[][] dictIdsMV = new int[numRows][];
+        for (int i = 0; i < numRows; i++) {
+          if (values[i] != null) {
+            dictIdsMV[i] = dictionary.index((Object[]) values[i]);
+          } else {
+            recordIndexingError("DICTIONARY");
+          }
+        }
+        columnBatch._dictIdsMV = dictIdsMV;
+      }
+      updateIndexCapacityThresholdBreached(dictionary, column);
+    } else if (singleValue && dataType != DataType.OPEN_STRUCT) {
+      Comparable[] comparables = new Comparable[numRows];
+      for (int i = 0; i < numRows; i++) {
+        if (values[i] != null) {
+          comparables[i] = toComparableValue(values[i], dataType, column);
+        }
+      }
+      columnBatch._comparables = comparables;
+    }
+    return columnBatch;
+  }
+
+  /// Indexes the prepared values of the column for all the rows, the same way as [#addNewRow(int, GenericRow)] for each
+  /// row. Exceptions thrown by the indexes are recorded as indexing errors as for a single row.
+  private void indexColumn(String column, IndexContainer indexContainer, ColumnBatch columnBatch,
+      List<GenericRow> rows, int startDocId) {
+    int numRows = rows.size();
+    FieldSpec fieldSpec = indexContainer._fieldSpec;
+    DataType dataType = fieldSpec.getDataType();
+    Object[] values = columnBatch._values;
+    boolean hasNullValue = columnBatch._hasNullValue;
+    int[] dictIds = columnBatch._dictIds;
+    int[][] dictIdsMV = columnBatch._dictIdsMV;
+
+    MutableNullValueVector nullValueVector = indexContainer._nullValueVector;
+    if (nullValueVector != null) {
+      for (int i = 0; i < numRows; i++) {
+        // Update the null value vector even if a null value is somehow produced
+        if (rows.get(i).isNullValue(column)) {
+          nullValueVector.setNull(startDocId + i);
+        }
+      }
+    }
+
+    MutableDictionary dictionary = indexContainer._dictionary;
+    if (dictionary != null) {
+      // Update min/max value from dictionary
+      indexContainer._minValue = dictionary.getMinVal();
+      indexContainer._maxValue = dictionary.getMaxVal();
+    }
+
+    if (fieldSpec.isSingleValueField()) {
+      // Route OPEN_STRUCT values to the dedicated mutable index, see addNewRow()
+      if (dataType == DataType.OPEN_STRUCT) {
+        MutableIndex openStructIndex = indexContainer._mutableIndexes.get(StandardIndexes.openStruct());
+        for (int i = 0; i < numRows; i++) {
+          if (values[i] != null) {
+            indexContainer._valuesInfo.updateSVNumValues();
+            if (openStructIndex != null) {
+              try {
+                openStructIndex.add(values[i], -1, startDocId + i);
+              } catch (Exception e) {
+                recordIndexingError(StandardIndexes.openStruct(), e);
+              }
+            }
+          }
+        }
+        return;
+      }
+
+      for (Map.Entry<IndexType, MutableIndex> indexEntry : indexContainer._mutableIndexes.entrySet()) {
+        IndexType indexType = indexEntry.getKey();
+        MutableIndex mutableIndex = indexEntry.getValue();
+        if (dictIds != null && !hasNullValue && indexType == StandardIndexes.forward()) {
+          // Write the dictIds in bulk
+          try {
+            ((MutableForwardIndex) mutableIndex).setDictIds(startDocId, dictIds, numRows);
+            updateIndexCapacityThresholdBreached(mutableIndex, indexType, column);
+          } catch (Exception e) {
+            recordIndexingError(indexType, e);
+          }
+          continue;
+        }
+        for (int i = 0; i < numRows; i++) {
+          if (values[i] != null) {
+            try {
+              mutableIndex.add(values[i], dictIds != null ? dictIds[i] : -1, startDocId + i);
+              updateIndexCapacityThresholdBreached(mutableIndex, indexType, column);
+            } catch (Exception e) {
+              recordIndexingError(indexType, e);
+            }
+          }
+        }
+      }
+
+      Comparable[] comparables = columnBatch._comparables;
+      for (int i = 0; i < numRows; i++) {
+        if (values[i] == null) {
+          continue;
+        }
+        indexContainer._valuesInfo.updateSVNumValues();
+        if (comparables != null) {
+          // Update min/max value from raw value
+          Comparable comparable = comparables[i];
+          if (indexContainer._minValue == null) {
+            indexContainer._minValue = comparable;
+            indexContainer._maxValue = comparable;
+          } else {
+            if (comparable.compareTo(indexContainer._minValue) < 0) {
+              indexContainer._minValue = comparable;
+            }
+            if (comparable.compareTo(indexContainer._maxValue) > 0) {
+              indexContainer._maxValue = comparable;
+            }
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < numRows; i++) {
+        Object value = values[i];
+        if (value == null) {
+          continue;
+        }
+        int docId = startDocId + i;
+        indexContainer._valuesInfo.updateVarByteMVMaxRowLengthInBytes(value, dataType.getStoredType());
+        Object[] multiValues = (Object[]) value;
+        for (Map.Entry<IndexType, MutableIndex> indexEntry : indexContainer._mutableIndexes.entrySet()) {
+          try {
+            MutableIndex mutableIndex = indexEntry.getValue();
+            mutableIndex.add(multiValues, dictIdsMV != null ? dictIdsMV[i] : null, docId);
+            updateIndexCapacityThresholdBreached(mutableIndex, indexEntry.getKey(), column);
+          } catch (Exception e) {
+            recordIndexingError(indexEntry.getKey(), e);
+          }
+        }
+        indexContainer._valuesInfo.updateMVNumValues(multiValues.length);
+      }
+    }
+  }
+
+  /// Checks the partition of the row, and returns `true` if the row should be dropped because of partition mismatch.
+  private boolean shouldDropOnPartitionMismatch(GenericRow row) {
+    if (_partitionColumn == null) {
+      return false;
+    }
+    Object value = row.getValue(_partitionColumn);
+    Preconditions.checkState(value != null, "Failed to find value for partition column: %s", _partitionColumn);
+    IndexContainer indexContainer = _indexContainerMap.get(_partitionColumn);
+    String stringValue = indexContainer._fieldSpec.getDataType().toString(value);
+    int partition = _partitionFunction.getPartition(stringValue);
+    if (partition != _mainPartitionId) {
+      if (_serverMetrics != null) {
+        _serverMetrics.addMeteredTableValue(_realtimeTableName, ServerMeter.REALTIME_PARTITION_MISMATCH, 1);
+      }
+      if (_dropRecordOnPartitionMismatch) {
+        return true;
+      }
+      if (indexContainer._partitions.add(partition)) {
+        // for every partition other than mainPartitionId, log a warning once
+        _logger.warn("Found new partition: {} from partition column: {}, value: {}", partition, _partitionColumn,
+            stringValue);
+      }
+    }
+    return false;
+  }
+
   private void updateIndexedAndIngestionTime(@Nullable StreamMessageMetadata metadata) {
     _lastIndexedTimeMs = System.currentTimeMillis();
     if (metadata != null) {
@@ -1661,6 +1940,20 @@ public class MutableSegmentImpl implements MutableSegment {
     }
   }
 
+  /// Values of a column for a batch of rows, along with their dictionary ids or comparable values, see
+  /// [#prepareColumn].
+  private static final class ColumnBatch {
+    final Object[] _values;
+    boolean _hasNullValue;
+    int[] _dictIds;
+    int[][] _dictIdsMV;
+    Comparable[] _comparables;
+
+    ColumnBatch(int numRows) {
+      _values = new Object[numRows];
+    }
+  }
+
   private class IndexContainer implements Closeable {
     final FieldSpec _fieldSpec;
     final PartitionFunction _partitionFunction;
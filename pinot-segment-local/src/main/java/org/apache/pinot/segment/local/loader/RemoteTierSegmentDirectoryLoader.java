@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.loader;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pinot.common.utils.TarCompressionUtils;
+import org.apache.pinot.common.utils.URIUtils;
+import org.apache.pinot.common.utils.config.TierConfigUtils;
+import org.apache.pinot.segment.local.segment.store.RemoteIndexCache;
+import org.apache.pinot.segment.local.segment.store.RemoteSegmentDirectory;
+import org.apache.pinot.segment.local.segment.store.SegmentLocalFSDirectory;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoader;
+import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoaderContext;
+import org.apache.pinot.segment.spi.loader.SegmentLoader;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.filesystem.PinotFS;
+import org.apache.pinot.spi.filesystem.PinotFSFactory;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.DataSizeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Implementation of [SegmentDirectoryLoader] that keeps the index file of the segments on cold tiers on a remote
+/// [org.apache.pinot.spi.filesystem.PinotFS] (e.g. the deep store) instead of on the server disks.
+///
+/// A tier is remote when its backend properties (in the table tier configs or in the instance tier configs) set
+/// `remoteDataDir`. When loading a segment on such tier, the index file of the segment is uploaded under
+/// `<remoteDataDir>/<tableNameWithType>/<segmentName>/<crc>_<indexMapChecksum>/columns.psf` (unless already uploaded
+/// by another replica) and removed from the server disk, and the segment is served by a [RemoteSegmentDirectory]
+/// reading the indexes on demand through the [RemoteIndexCache] of the tier, sized by `remoteCacheSize` and kept in
+/// `remoteCacheDir` (or in off-heap memory). The cache of a tier is shared by all the tables, and configured by the
+/// first segment loaded on the tier.
+///
+/// Along with the index file, the remaining segment files (metadata, `index_map` and the indexes kept in separate
+/// files) are uploaded as `<remoteDataDir>/<tableNameWithType>/<segmentName>/<crc>.tar.gz`. A server loading the
+/// segment on the tier without a local copy restores these files instead of downloading the whole segment tarball.
+///
+/// Segments on other tiers are loaded from the local disk as with the default loader, after downloading their index
+/// file back if they were previously on a remote tier. The remote index files are shared by the replicas, and are
+/// left to the retention of the remote store when segments are deleted.
+@SegmentLoader(name = "remoteTier")
+public class RemoteTierSegmentDirectoryLoader implements SegmentDirectoryLoader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteTierSegmentDirectoryLoader.class);
+
+  private final Map<String, RemoteIndexCache> _indexCaches = new ConcurrentHashMap<>();
+
+  @Override
+  public SegmentDirectory load(URI indexDir, SegmentDirectoryLoaderContext segmentLoaderContext)
+      throws Exception {
+    File directory = new File(indexDir);
+    String segmentTier = segmentLoaderContext.getSegmentTier();
+    String remoteDataDir = getTierProperty(segmentTier, segmentLoaderContext,
+        CommonConstants.Tier.BACKEND_PROP_REMOTE_DATA_DIR);
+    if (!directory.exists() && (remoteDataDir == null || !restoreSegmentFiles(remoteDataDir, segmentLoaderContext,
+        directory))) {
+      return new SegmentLocalFSDirectory(directory);
+    }
+    SegmentMetadataImpl metadata = new SegmentMetadataImpl(directory);
+    File segmentDirectory = SegmentDirectoryPaths.findSegmentDirectory(directory);
+    SegmentDirectory segmentDirectoryToServe;
+    if (remoteDataDir == null || metadata.getVersion() != SegmentVersion.v3 || metadata.getTotalDocs() == 0) {
+      if (RemoteSegmentDirectory.restoreIndexFile(segmentDirectory)) {
+        LOGGER.info("Restored index file of segment: {} from remote tier for tier: {}", metadata.getName(),
+            segmentTier);
+      }
+      segmentDirectoryToServe = new SegmentLocalFSDirectory(directory, metadata, segmentLoaderContext.getReadMode(),
+          segmentLoaderContext);
+    } else {
+      if (!RemoteSegmentDirectory.isIndexFileRemote(segmentDirectory)) {
+        URI remoteIndexFileUri = getRemoteIndexFileUri(remoteDataDir, segmentLoaderContext, metadata,
+            segmentDirectory);
+        LOGGER.info("Moving index file of segment: {} to: {} for tier: {}", metadata.getName(), remoteIndexFileUri,
+            segmentTier);
+        RemoteSegmentDirectory.offloadIndexFile(segmentDirectory, remoteIndexFileUri);
+        uploadSegmentFiles(remoteDataDir, segmentLoaderContext, metadata, directory);
+      }
+      segmentDirectoryToServe =
+          new RemoteSegmentDirectory(directory, metadata, getIndexCache(segmentTier, segmentLoaderContext));
+    }
+    segmentDirectoryToServe.setTier(segmentTier);
+    return segmentDirectoryToServe;
+  }
+
+  @Override
+  public void delete(SegmentDirectoryLoaderContext segmentLoaderContext)
+      throws Exception {
+    File indexDir = new File(segmentLoaderContext.getTableDataDir(), segmentLoaderContext.getSegmentName());
+    if (indexDir.exists()) {
+      FileUtils.deleteQuietly(indexDir);
+      LOGGER.info("Deleted segment directory {}", indexDir);
+    }
+  }
+
+  @Override
+  public boolean needsTierMigration(String targetTier, String currentTier) {
+    return !StringUtils.equals(targetTier, currentTier);
+  }
+
+  /// The remote index file is identified by the segment CRC and the checksum of the index map, as the indexes can be
+  /// changed on reload without changing the CRC.
+  private static URI getRemoteIndexFileUri(String remoteDataDir, SegmentDirectoryLoaderContext segmentLoaderContext,
+      SegmentMetadataImpl metadata, File segmentDirectory)
+      throws IOException {
+    long indexMapChecksum =
+        FileUtils.checksumCRC32(new File(segmentDirectory, V1Constants.INDEX_MAP_FILE_NAME));
+    return URIUtils.getUri(remoteDataDir, segmentLoaderContext.getTableConfig().getTableName(),
+        URIUtils.encode(metadata.getName()), metadata.getCrc() + "_" + Long.toHexString(indexMapChecksum),
+        V1Constants.INDEX_FILE_NAME);
+  }
+
+  private static URI getSegmentFilesUri(String remoteDataDir, SegmentDirectoryLoaderContext segmentLoaderContext,
+      String segmentName, String crc) {
+    return URIUtils.getUri(remoteDataDir, segmentLoaderContext.getTableConfig().getTableName(),
+        URIUtils.encode(segmentName), crc + TarCompressionUtils.TAR_GZ_FILE_EXTENSION);
+  }
+
+  /// Uploads the segment files left on the local disk once the index file is moved to the remote tier. The tarball
+  /// is small as it does not include the index file, and is shared by the replicas.
+  private static void uploadSegmentFiles(String remoteDataDir, SegmentDirectoryLoaderContext segmentLoaderContext,
+      SegmentMetadataImpl metadata, File indexDir)
+      throws Exception {
+    URI segmentFilesUri =
+        getSegmentFilesUri(remoteDataDir, segmentLoaderContext, metadata.getName(), metadata.getCrc());
+    File tarFile = new File(indexDir.getParentFile(),
+        indexDir.getName() + "." + UUID.randomUUID() + TarCompressionUtils.TAR_GZ_FILE_EXTENSION);
+    try {
+      TarCompressionUtils.createCompressedTarFile(indexDir, tarFile);
+      PinotFS pinotFS = PinotFSFactory.create(segmentFilesUri.getScheme());
+      // Upload to a temporary file first so that a partially uploaded file is never used
+      URI tmpUri = URI.create(segmentFilesUri + "." + UUID.randomUUID() + ".tmp");
+      pinotFS.copyFromLocalFile(tarFile, tmpUri);
+      pinotFS.move(tmpUri, segmentFilesUri, true);
+      LOGGER.info("Uploaded segment files of segment: {} to: {}", metadata.getName(), segmentFilesUri);
+    } finally {
+      FileUtils.deleteQuietly(tarFile);
+    }
+  }
+
+  /// Restores the segment files uploaded by [#uploadSegmentFiles] (by this or another server) for the expected CRC
+  /// of the segment, so that the segment can be served from the remote tier without downloading it. Returns whether
+  /// the segment files are restored. Failures are only logged, and the segment is downloaded instead.
+  private static boolean restoreSegmentFiles(String remoteDataDir, SegmentDirectoryLoaderContext segmentLoaderContext,
+      File indexDir) {
+    String segmentName = segmentLoaderContext.getSegmentName();
+    String crc = segmentLoaderContext.getSegmentCrc();
+    if (segmentName == null || crc == null) {
+      return false;
+    }
+    URI segmentFilesUri = getSegmentFilesUri(remoteDataDir, segmentLoaderContext, segmentName, crc);
+    File tmpDir = new File(indexDir.getParentFile(), indexDir.getName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      PinotFS pinotFS = PinotFSFactory.create(segmentFilesUri.getScheme());
+      if (!pinotFS.exists(segmentFilesUri)) {
+        return false;
+      }
+      try (InputStream inputStream = pinotFS.open(segmentFilesUri)) {
+        TarCompressionUtils.untar(inputStream, tmpDir);
+      }
+      File untarredIndexDir = new File(tmpDir, indexDir.getName());
+      Preconditions.checkState(RemoteSegmentDirectory.isIndexFileRemote(
+              SegmentDirectoryPaths.segmentDirectoryFor(untarredIndexDir, SegmentVersion.v3)),
+          "Segment files: %s do not reference a remote index file", segmentFilesUri);
+      FileUtils.moveDirectory(untarredIndexDir, indexDir);
+      LOGGER.info("Restored segment files of segment: {} from: {}", segmentName, segmentFilesUri);
+      return true;
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while restoring segment files of segment: {} from: {}", segmentName,
+          segmentFilesUri, e);
+      FileUtils.deleteQuietly(indexDir);
+      return false;
+    } finally {
+      FileUtils.deleteQuietly(tmpDir);
+    }
+  }
+
+  private RemoteIndexCache getIndexCache(String segmentTier, SegmentDirectoryLoaderContext segmentLoaderContext) {
+    return _indexCaches.computeIfAbsent(segmentTier, tier -> {
+      String cacheSize =
+          getTierProperty(tier, segmentLoaderContext, CommonConstants.Tier.BACKEND_PROP_REMOTE_CACHE_SIZE);
+      String cacheDir =
+          getTierProperty(tier, segmentLoaderContext, CommonConstants.Tier.BACKEND_PROP_REMOTE_CACHE_DIR);
+      try {
+        return new RemoteIndexCache(
+            DataSizeUtils.toBytes(cacheSize != null ? cacheSize : CommonConstants.Tier.DEFAULT_REMOTE_CACHE_SIZE),
+            cacheDir != null ? new File(cacheDir) : null);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Caught exception while creating remote index cache for tier: " + tier, e);
+      }
+    });
+  }
+
+  @Nullable
+  private static String getTierProperty(@Nullable String segmentTier,
+      SegmentDirectoryLoaderContext segmentLoaderContext, String propertyName) {
+    TableConfig tableConfig = segmentLoaderContext.getTableConfig();
+    if (segmentTier == null || tableConfig == null) {
+      return null;
+    }
+    String value = TierConfigUtils.getBackendPropertyForTier(tableConfig, segmentTier,
+        segmentLoaderContext.getInstanceTierConfigs(), propertyName);
+    return StringUtils.isNotEmpty(value) ? value : null;
+  }
+}
@@ -160,6 +160,11 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
 
   // Number of entries in the dictionary. Max dictId is _numEntries-1.
   private volatile int _numEntries;
+  // Number of entries indexed, which can be ahead of _numEntries when indexing a batch of values. Only accessed by the
+  // writer thread.
+  private int _numIndexedEntries;
+  // Whether the new entries are published to _numEntries at the end of the current batch instead of one by one
+  private boolean _indexingBatch;
 
   private final int _initialRowCount;
   private final PinotDataBufferMemoryManager _memoryManager;
@@ -199,6 +204,7 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
 
   protected void init() {
     _numEntries = 0;
+    _numIndexedEntries = 0;
     _valueToDict = new ValueToDictId(new ArrayList<>(), new ConcurrentHashMap<>());
     if (!_heapFirst || (_maxItemsInOverflowHash == 0)) {
       expand(_initialRowCount, 1);
@@ -210,6 +216,29 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
     return _numEntries;
   }
 
+  /// Indexes the values one by one, but publishes the new entries to the readers (volatile write of the number of
+  /// entries) once for the whole batch. The readers only look up the new dictIds through the docs indexed after the
+  /// batch, so they never need the entries before the end of the batch.
+  @Override
+  public void index(Object[] values, int length, int[] dictIdBuffer) {
+    _indexingBatch = true;
+    try {
+      for (int i = 0; i < length; i++) {
+        dictIdBuffer[i] = index(values[i]);
+      }
+    } finally {
+      _indexingBatch = false;
+      _numEntries = _numIndexedEntries;
+    }
+  }
+
+  private void addEntry(int dictId) {
+    _numIndexedEntries = dictId + 1;
+    if (!_indexingBatch) {
+      _numEntries = _numIndexedEntries;
+    }
+  }
+
   @Override
   public void close()
       throws IOException {
@@ -355,7 +384,7 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
   /// @param serializedValue serialized representation of the value, may be null.
   protected int indexValue(Object value, byte[] serializedValue) {
     final int hashVal = value.hashCode() & Integer.MAX_VALUE;
-    int newValueDictId = _numEntries;
+    int newValueDictId = _numIndexedEntries;
     ValueToDictId valueToDictId = _valueToDict;
 
     for (IntBuffer iBuf : valueToDictId.getIBufList()) {
@@ -366,7 +395,7 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
         if (dictId == NULL_VALUE_INDEX) {
           setValue(newValueDictId, value, serializedValue);
           iBuf.put(i, newValueDictId);
-          _numEntries = newValueDictId + 1;
+          addEntry(newValueDictId);
           return newValueDictId;
         } else if (equalsValueAt(dictId, value, serializedValue)) {
           return dictId;
@@ -387,7 +416,7 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
     if (_maxItemsInOverflowHash > 0) {
       if (overflowMap.size() < _maxItemsInOverflowHash) {
         overflowMap.put(value, newValueDictId);
-        _numEntries = newValueDictId + 1;
+        addEntry(newValueDictId);
         return newValueDictId;
       }
     }
@@ -398,13 +427,13 @@ public abstract class BaseOffHeapMutableDictionary implements MutableDictionary
     for (int i = offsetInBuf; i < offsetInBuf + NUM_COLUMNS; i++) {
       if (buf.get(i) == NULL_VALUE_INDEX) {
         buf.put(i, newValueDictId);
-        _numEntries = newValueDictId + 1;
+        addEntry(newValueDictId);
         return newValueDictId;
       }
     }
     overflowMap = _valueToDict.getOverflowMap();
     overflowMap.put(value, newValueDictId);
-    _numEntries = newValueDictId + 1;
+    addEntry(newValueDictId);
     return newValueDictId;
   }
 
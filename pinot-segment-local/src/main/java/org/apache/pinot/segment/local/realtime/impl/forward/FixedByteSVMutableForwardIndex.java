@@ -184,6 +184,24 @@ public class FixedByteSVMutableForwardIndex implements MutableForwardIndex {
     getWriterForRow(docId).setInt(docId, dictId);
   }
 
+  @Override
+  public void setDictIds(int startDocId, int[] dictIds, int length) {
+    if (length == 0) {
+      return;
+    }
+    // Allocate the buffers once, then write the dictIds chunk by chunk
+    addBufferIfNeeded(startDocId + length - 1);
+    int index = 0;
+    while (index < length) {
+      int docId = startDocId + index;
+      WriterWithOffset writer = getWriterForRow(docId);
+      int endIndex = Math.min(length, writer._startRowId + _numRowsPerChunk - startDocId);
+      for (; index < endIndex; index++) {
+        writer.setInt(startDocId + index, dictIds[index]);
+      }
+    }
+  }
+
   @Override
   public void setInt(int docId, int value) {
     addBufferIfNeeded(docId);
@@ -44,12 +44,24 @@ public class ColumnarSegmentCreationDataSource implements SegmentCreationDataSou
   private static final Logger LOGGER = LoggerFactory.getLogger(ColumnarSegmentCreationDataSource.class);
 
   private final Map<String, ColumnReader> _columnReaders;
+  private final boolean _concurrentColumnReadsSupported;
 
   /// Create a ColumnarSegmentCreationDataSource.
   ///
   /// @param columnReaders Map of column name to ColumnReader instances
   public ColumnarSegmentCreationDataSource(Map<String, ColumnReader> columnReaders) {
+    this(columnReaders, false);
+  }
+
+  /// Create a ColumnarSegmentCreationDataSource.
+  ///
+  /// @param columnReaders Map of column name to ColumnReader instances
+  /// @param concurrentColumnReadsSupported Whether different column readers can be read concurrently (see
+  ///        [org.apache.pinot.spi.data.readers.ColumnReaderFactory#supportsConcurrentColumnReads()])
+  public ColumnarSegmentCreationDataSource(Map<String, ColumnReader> columnReaders,
+      boolean concurrentColumnReadsSupported) {
     _columnReaders = columnReaders;
+    _concurrentColumnReadsSupported = concurrentColumnReadsSupported;
   }
 
   @Override
@@ -73,6 +85,11 @@ public class ColumnarSegmentCreationDataSource implements SegmentCreationDataSou
     return _columnReaders;
   }
 
+  /// Returns whether different column readers can be read concurrently.
+  public boolean isConcurrentColumnReadsSupported() {
+    return _concurrentColumnReadsSupported;
+  }
+
   @Override
   public void close()
       throws IOException {
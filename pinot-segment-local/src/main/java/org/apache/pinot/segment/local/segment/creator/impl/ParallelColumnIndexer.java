@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.ToLongFunction;
+
+
+/// Indexes the columns of a column-major segment build concurrently, after the stats collection pass.
+///
+/// At this point the columns are independent: each one has its own dictionary and index creators, and is read through
+/// its own column reader. They are indexed by a fixed pool of `parallelism` threads created for the build, in the
+/// given order, so the caller should put the slowest columns (e.g. with Lucene text or H3 indexes) first to keep them
+/// out of the tail of the build.
+///
+/// The memory budget bounds the sum of the estimated sizes of the columns being indexed at the same time. A column
+/// larger than the budget is charged the whole budget, i.e. it is indexed alone.
+///
+/// When a column fails, the columns not started yet are skipped, and the failure is thrown once the running columns
+/// are done, so that the caller can safely close the index creators.
+class ParallelColumnIndexer {
+  private static final String THREAD_NAME_FORMAT = "segment-column-indexer-%d";
+  // Granularity of the memory budget permits
+  private static final long PERMIT_SIZE_IN_BYTES = 1024;
+
+  private final int _parallelism;
+  private final long _memoryBudgetBytes;
+
+  /// @param parallelism Max number of columns indexed concurrently
+  /// @param memoryBudgetBytes Max sum of the estimated sizes of the columns indexed concurrently, non-positive for no
+  ///        bound
+  ParallelColumnIndexer(int parallelism, long memoryBudgetBytes) {
+    Preconditions.checkArgument(parallelism > 1, "Parallelism must be larger than 1, got: %s", parallelism);
+    _parallelism = parallelism;
+    _memoryBudgetBytes = memoryBudgetBytes;
+  }
+
+  interface ColumnIndexingTask {
+    void index(String column)
+        throws Exception;
+  }
+
+  /// Indexes the given columns, returning once all of them are indexed.
+  ///
+  /// @param columns Columns to index, in the order they should be started
+  /// @param sizeEstimator Estimated size in bytes of the memory used to index a column
+  /// @param task Indexes one column
+  void indexColumns(List<String> columns, ToLongFunction<String> sizeEstimator, ColumnIndexingTask task)
+      throws Exception {
+    int numColumns = columns.size();
+    if (numColumns == 0) {
+      return;
+    }
+    int maxPermits = _memoryBudgetBytes > 0
+        ? (int) Math.min(Math.max(_memoryBudgetBytes / PERMIT_SIZE_IN_BYTES, 1), Integer.MAX_VALUE) : 0;
+    // Fair, so that a large column waiting for the budget is not starved by the smaller ones
+    Semaphore memoryBudget = maxPermits > 0 ? new Semaphore(maxPermits, true) : null;
+    ExecutorService executorService = Executors.newFixedThreadPool(Math.min(_parallelism, numColumns),
+        new ThreadFactoryBuilder().setNameFormat(THREAD_NAME_FORMAT).setDaemon(true).build());
+    List<Future<?>> futures = new ArrayList<>(numColumns);
+    try {
+      for (String column : columns) {
+        int permits = memoryBudget != null ? getNumPermits(sizeEstimator.applyAsLong(column), maxPermits) : 0;
+        futures.add(executorService.submit(() -> {
+          if (memoryBudget == null) {
+            task.index(column);
+            return null;
+          }
+          memoryBudget.acquire(permits);
+          try {
+            task.index(column);
+          } finally {
+            memoryBudget.release(permits);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception) cause;
+          }
+          throw (Error) cause;
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+      // Wait for the running columns even on failure, as the caller closes the index creators next
+      Uninterruptibles.awaitTerminationUninterruptibly(executorService);
+    }
+  }
+
+  private static int getNumPermits(long sizeInBytes, int maxPermits) {
+    long permits = (sizeInBytes + PERMIT_SIZE_IN_BYTES - 1) / PERMIT_SIZE_IN_BYTES;
+    return (int) Math.min(Math.max(permits, 1), maxPermits);
+  }
+}
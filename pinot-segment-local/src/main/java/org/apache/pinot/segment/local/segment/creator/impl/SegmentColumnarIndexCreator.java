@@ -20,15 +20,21 @@ package org.apache.pinot.segment.local.segment.creator.impl;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.creator.impl.inv.BitmapBasedInvertedIndexCreator;
 import org.apache.pinot.segment.local.segment.creator.impl.nullvalue.NullValueVectorCreator;
 import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.datasource.OpenStructDataSource;
 import org.apache.pinot.segment.spi.index.IndexCreator;
+import org.apache.pinot.segment.spi.index.creator.ForwardIndexCreator;
+import org.apache.pinot.segment.spi.index.mutable.MutableInvertedIndex;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.readers.ColumnReader;
 import org.apache.pinot.spi.data.readers.GenericRow;
@@ -39,6 +45,9 @@ import org.slf4j.LoggerFactory;
 
 
 /// Segment creator which writes data in a columnar form.
+///
+/// The column-major `indexColumn()` methods only touch the creators of the given column, so different columns can be
+/// indexed concurrently (see [ParallelColumnIndexer]).
 // TODO: check resource leaks
 public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentColumnarIndexCreator.class);
@@ -47,9 +56,9 @@ public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
 
   // Column-major build-path accounting, populated only by indexColumn(String, ColumnReader) and summarized
   // once via logColumnMajorBuildPathSummary(). A fresh creator is instantiated per segment build, so these
-  // reset naturally; the row-major path never touches them.
-  private int _columnMajorTypedFastPathColumns;
-  private int _columnMajorObjectPathColumns;
+  // reset naturally; the row-major path never touches them. Atomic because columns can be indexed concurrently.
+  private final AtomicInteger _columnMajorTypedFastPathColumns = new AtomicInteger();
+  private final AtomicInteger _columnMajorObjectPathColumns = new AtomicInteger();
 
   @Override
   public void indexRow(GenericRow row)
@@ -131,11 +140,36 @@ public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
 
     try (PinotSegmentColumnReader colReader = new PinotSegmentColumnReader(segment, columnName)) {
       ColumnIndexCreators colIndexes = _colIndexes.get(columnName);
+      // When both the source forward index and the target column are dictionary encoded, remap the source dictionary
+      // ids instead of reading and looking up the value of every document (see DictIdRemapper)
+      SegmentDictionaryCreator dictionaryCreator = colIndexes.getDictionaryCreator();
+      DictIdRemapper dictIdRemapper = null;
+      MutableInvertedIndex sourceInvertedIndex = null;
+      BitmapBasedInvertedIndexCreator invertedIndexCreator = null;
+      if (fieldSpec.isSingleValueField() && dictionaryCreator != null && colReader.isDictionaryEncoded()) {
+        // When the documents keep their source order, the inverted index bitmaps of a mutable source are copied
+        // instead of being rebuilt document by document. Sorted or compacted documents change the doc ids, so the
+        // inverted index then keeps being built from the remapped dictionary ids.
+        if (sortedDocIds == null && validDocIds == null) {
+          DataSource dataSource = segment.getDataSourceNullable(columnName);
+          if (dataSource != null && dataSource.getInvertedIndex() instanceof MutableInvertedIndex) {
+            for (IndexCreator creator : colIndexes.getIndexCreators()) {
+              if (creator instanceof BitmapBasedInvertedIndexCreator) {
+                sourceInvertedIndex = (MutableInvertedIndex) dataSource.getInvertedIndex();
+                invertedIndexCreator = (BitmapBasedInvertedIndexCreator) creator;
+                break;
+              }
+            }
+          }
+        }
+        dictIdRemapper = new DictIdRemapper(colReader.getDictionary(), dictionaryCreator,
+            colIndexes.getIndexCreators(), invertedIndexCreator);
+      }
       if (sortedDocIds != null) {
         int onDiskDocId = 0;
         for (int docId : sortedDocIds) {
           if (validDocIds == null || validDocIds.contains(docId)) {
-            indexColumnValue(colReader, columnName, fieldSpec, colIndexes, docId, onDiskDocId);
+            indexColumnValue(colReader, dictIdRemapper, columnName, fieldSpec, colIndexes, docId, onDiskDocId);
             onDiskDocId++;
           }
         }
@@ -143,11 +177,14 @@ public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
         int onDiskDocId = 0;
         for (int docId = 0; docId < numDocs; docId++) {
           if (validDocIds == null || validDocIds.contains(docId)) {
-            indexColumnValue(colReader, columnName, fieldSpec, colIndexes, docId, onDiskDocId);
+            indexColumnValue(colReader, dictIdRemapper, columnName, fieldSpec, colIndexes, docId, onDiskDocId);
             onDiskDocId++;
           }
         }
       }
+      if (invertedIndexCreator != null) {
+        dictIdRemapper.copyInvertedIndex(sourceInvertedIndex, invertedIndexCreator, numDocs);
+      }
     }
   }
 
@@ -210,13 +247,13 @@ public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
     if (fieldSpec.isSingleValueField()
         && indexSingleValuePrimitive(columnName, fieldSpec, destDataType, columnReader, dictionaryCreator,
             creatorsByIndex, nullVec, numDocs)) {
-      _columnMajorTypedFastPathColumns++;
+      _columnMajorTypedFastPathColumns.incrementAndGet();
       return;
     }
     // Multi-value columns, non-primitive single-value types, and fast-path primitives whose reader serves a
     // different physical type all fall through to the Object path below (the single source of truth for null
     // and type handling).
-    _columnMajorObjectPathColumns++;
+    _columnMajorObjectPathColumns.incrementAndGet();
 
     Object reuseColumnValueToIndex;
     for (int docId = 0; docId < numDocs; docId++) {
@@ -356,25 +393,29 @@ public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
   void logColumnMajorBuildPathSummary() {
     LOGGER.info("Column-major build path for segment {}: {} column(s) via typed single-value primitive fast path, "
             + "{} column(s) via Object path",
-        getSegmentName(), _columnMajorTypedFastPathColumns, _columnMajorObjectPathColumns);
+        getSegmentName(), _columnMajorTypedFastPathColumns.get(), _columnMajorObjectPathColumns.get());
   }
 
-  private void indexColumnValue(PinotSegmentColumnReader colReader,
+  private void indexColumnValue(PinotSegmentColumnReader colReader, @Nullable DictIdRemapper dictIdRemapper,
       String columnName, FieldSpec fieldSpec,
       ColumnIndexCreators colIndexes, int sourceDocId, int onDiskDocPos)
       throws IOException {
     List<IndexCreator> creatorsByIndex = colIndexes.getIndexCreators();
     NullValueVectorCreator nullVec = colIndexes.getNullValueVectorCreator();
-    SegmentDictionaryCreator dictionaryCreator = colIndexes.getDictionaryCreator();
-    Object columnValueToIndex = colReader.getValue(sourceDocId);
-    if (columnValueToIndex == null) {
-      throw new RuntimeException("Null value for column:" + columnName);
-    }
-
-    if (fieldSpec.isSingleValueField()) {
-      indexSingleValueRow(dictionaryCreator, columnValueToIndex, creatorsByIndex);
+    if (dictIdRemapper != null) {
+      dictIdRemapper.index(colReader.getDictId(sourceDocId));
     } else {
-      indexMultiValueRow(dictionaryCreator, (Object[]) columnValueToIndex, creatorsByIndex);
+      SegmentDictionaryCreator dictionaryCreator = colIndexes.getDictionaryCreator();
+      Object columnValueToIndex = colReader.getValue(sourceDocId);
+      if (columnValueToIndex == null) {
+        throw new RuntimeException("Null value for column:" + columnName);
+      }
+
+      if (fieldSpec.isSingleValueField()) {
+        indexSingleValueRow(dictionaryCreator, columnValueToIndex, creatorsByIndex);
+      } else {
+        indexMultiValueRow(dictionaryCreator, (Object[]) columnValueToIndex, creatorsByIndex);
+      }
     }
 
     if (nullVec != null) {
@@ -401,4 +442,92 @@ public class SegmentColumnarIndexCreator extends BaseSegmentCreator {
       creator.add(values, dictId);
     }
   }
+
+  /// Maps the dictionary ids of a dictionary-encoded source column (e.g. the mutable dictionary of a consuming segment)
+  /// to the dictionary ids of the segment being created.
+  ///
+  /// The target dictionary is built from the sorted values of the source dictionary, so each source dictionary id maps
+  /// to a single target dictionary id. The mapping and the source value are resolved lazily the first time a source
+  /// dictionary id is indexed, then every other document with the same value is indexed with array lookups only,
+  /// without reading the value from the source dictionary or hashing it into the target dictionary. Source dictionary
+  /// ids that are never indexed (e.g. values only present in invalid documents) are never resolved.
+  ///
+  /// Dictionary-encoded forward index creators are written the remapped dictionary ids directly. The inverted index
+  /// creator can be excluded from the per-document indexing, in which case its bitmaps are copied from the source
+  /// inverted index with [#copyInvertedIndex(MutableInvertedIndex, BitmapBasedInvertedIndexCreator, int)].
+  private static class DictIdRemapper {
+    private final Dictionary _sourceDictionary;
+    private final SegmentDictionaryCreator _dictionaryCreator;
+    private final ForwardIndexCreator[] _forwardIndexCreators;
+    private final IndexCreator[] _creators;
+    private final int[] _dictIds;
+    private final Object[] _values;
+
+    DictIdRemapper(Dictionary sourceDictionary, SegmentDictionaryCreator dictionaryCreator, List<IndexCreator> creators,
+        @Nullable IndexCreator excludedCreator) {
+      _sourceDictionary = sourceDictionary;
+      _dictionaryCreator = dictionaryCreator;
+      List<ForwardIndexCreator> forwardIndexCreators = new ArrayList<>();
+      List<IndexCreator> otherCreators = new ArrayList<>();
+      for (IndexCreator creator : creators) {
+        if (creator == excludedCreator) {
+          continue;
+        }
+        if (creator instanceof ForwardIndexCreator && ((ForwardIndexCreator) creator).isDictionaryEncoded()) {
+          forwardIndexCreators.add((ForwardIndexCreator) creator);
+        } else {
+          otherCreators.add(creator);
+        }
+      }
+      _forwardIndexCreators = forwardIndexCreators.toArray(new ForwardIndexCreator[0]);
+      _creators = otherCreators.toArray(new IndexCreator[0]);
+      int numSourceValues = sourceDictionary.length();
+      _dictIds = new int[numSourceValues];
+      _values = new Object[numSourceValues];
+    }
+
+    void index(int sourceDictId)
+        throws IOException {
+      Object value = _values[sourceDictId];
+      int dictId;
+      if (value != null) {
+        dictId = _dictIds[sourceDictId];
+      } else {
+        value = _sourceDictionary.get(sourceDictId);
+        dictId = _dictionaryCreator.resolveSV(value);
+        _values[sourceDictId] = value;
+        _dictIds[sourceDictId] = dictId;
+      }
+      _dictionaryCreator.trackIndexedSV(value, dictId);
+      for (ForwardIndexCreator forwardIndexCreator : _forwardIndexCreators) {
+        forwardIndexCreator.putDictId(dictId);
+      }
+      for (IndexCreator creator : _creators) {
+        creator.add(value, dictId);
+      }
+    }
+
+    /// Adds the bitmap of every source dictionary id to the inverted index creator under the remapped dictionary id.
+    /// Only valid when the first `numDocs` documents are indexed in their source order, without skipping any.
+    void copyInvertedIndex(MutableInvertedIndex sourceInvertedIndex,
+        BitmapBasedInvertedIndexCreator invertedIndexCreator, int numDocs) {
+      int numSourceValues = _dictIds.length;
+      for (int sourceDictId = 0; sourceDictId < numSourceValues; sourceDictId++) {
+        RoaringBitmap docIds = sourceInvertedIndex.getDocIds(sourceDictId).toRoaringBitmap();
+        if (docIds.isEmpty()) {
+          continue;
+        }
+        // Documents added to the source after the indexed ones are not part of the segment being created
+        if (docIds.last() >= numDocs) {
+          docIds.remove(numDocs, (long) docIds.last() + 1);
+          if (docIds.isEmpty()) {
+            continue;
+          }
+        }
+        int dictId = _values[sourceDictId] != null ? _dictIds[sourceDictId]
+            : _dictionaryCreator.resolveSV(_sourceDictionary.get(sourceDictId));
+        invertedIndexCreator.addDocIds(dictId, docIds);
+      }
+    }
+  }
 }
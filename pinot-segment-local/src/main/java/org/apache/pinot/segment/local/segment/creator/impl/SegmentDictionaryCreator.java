@@ -400,6 +400,41 @@ public class SegmentDictionaryCreator implements IndexCreator {
     return indexOfVariableLengthValue(new ByteArray(value));
   }
 
+  /// Get dictionary index for a single value like [#indexOfSV(Object)], but without tracking the uncompressed value
+  /// size. Used to resolve the dictionary id once per distinct value, in which case the caller tracks each indexed
+  /// occurrence with [#trackIndexedSV(Object, int)].
+  public int resolveSV(Object value) {
+    switch (_storedType) {
+      case BIG_DECIMAL:
+      case STRING:
+        return _objectValueToIndexMap.getInt(value);
+      case BYTES:
+        return _objectValueToIndexMap.getInt(new ByteArray((byte[]) value));
+      default:
+        return indexOfSV(value);
+    }
+  }
+
+  /// Tracks the uncompressed size of an indexed single value whose dictionary id was resolved with
+  /// [#resolveSV(Object)].
+  public void trackIndexedSV(Object value, int dictId) {
+    if (!_trackUncompressedValueBytes) {
+      return;
+    }
+    switch (_storedType) {
+      case BIG_DECIMAL:
+      case STRING:
+        trackUncompressedValueSize(value, dictId);
+        break;
+      case BYTES:
+        trackUncompressedValueSize(_serializedValueLengthByDictId != null ? null : new ByteArray((byte[]) value),
+            dictId);
+        break;
+      default:
+        break;
+    }
+  }
+
   public int[] indexOfMV(int[] values) {
     int[] indexes = new int[values.length];
     for (int i = 0; i < values.length; i++) {
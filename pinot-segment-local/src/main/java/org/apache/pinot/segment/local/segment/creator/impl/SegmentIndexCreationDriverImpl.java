@@ -20,6 +20,9 @@ package org.apache.pinot.segment.local.segment.creator.impl;
 
 import com.google.common.base.Preconditions;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -47,6 +50,8 @@ import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
 import org.apache.pinot.segment.spi.creator.SegmentIndexCreationDriver;
 import org.apache.pinot.segment.spi.creator.SegmentPreIndexStatsContainer;
 import org.apache.pinot.segment.spi.creator.StatsCollectorConfig;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
 import org.apache.pinot.spi.config.instance.InstanceType;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -167,7 +172,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     Map<String, ColumnReader> columnReaders = columnReaderFactory.getAllColumnReaders();
 
     // Create columnar data source
-    ColumnarSegmentCreationDataSource columnarDataSource = new ColumnarSegmentCreationDataSource(columnReaders);
+    ColumnarSegmentCreationDataSource columnarDataSource =
+        new ColumnarSegmentCreationDataSource(columnReaders, columnReaderFactory.supportsConcurrentColumnReads());
 
     // Use the existing init method with columnar data source and no transform pipeline
     init(config, columnarDataSource, null);
@@ -376,10 +382,9 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       LOGGER.info("Start building Index by column");
 
       int[] sortedDocIds = getSortedDocIdsFromRecordReader();
-      TreeSet<String> columns = _schema.getPhysicalColumnNames();
-      for (String col : columns) {
-        _indexCreator.indexColumn(col, sortedDocIds, indexSegment, validDocIds);
-      }
+      // Each column is read through its own column reader, so the columns can be indexed concurrently
+      indexColumns(_schema.getPhysicalColumnNames(), true,
+          column -> _indexCreator.indexColumn(column, sortedDocIds, indexSegment, validDocIds));
     } catch (Exception e) {
       _indexCreator.close();
       throw e;
@@ -396,6 +401,46 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     handlePostCreation();
   }
 
+  /// Indexes the given columns after the stats collection pass, one after another, or concurrently when
+  /// [SegmentGeneratorConfig#getSegmentBuildParallelism()] is larger than 1 and the columns can be read concurrently
+  /// (see [ParallelColumnIndexer]).
+  private void indexColumns(Set<String> columns, boolean concurrentColumnReadsSupported,
+      ParallelColumnIndexer.ColumnIndexingTask task)
+      throws Exception {
+    int parallelism = _config.getSegmentBuildParallelism();
+    if (parallelism <= 1 || columns.size() <= 1 || !concurrentColumnReadsSupported) {
+      for (String column : columns) {
+        task.index(column);
+      }
+      return;
+    }
+    // Start the columns with Lucene text or H3 indexes first as they are the slowest to build, then the largest ones
+    List<String> orderedColumns = new ArrayList<>(columns);
+    orderedColumns.sort(Comparator.comparing((String column) -> hasSlowIndex(column))
+        .thenComparingLong(this::estimateIndexingSize).reversed());
+    long memoryBudgetBytes = _config.getSegmentBuildMemoryBudgetBytes();
+    LOGGER.info("Indexing {} columns with parallelism: {}, memory budget: {} bytes", orderedColumns.size(),
+        parallelism, memoryBudgetBytes);
+    new ParallelColumnIndexer(parallelism, memoryBudgetBytes).indexColumns(orderedColumns, this::estimateIndexingSize,
+        task);
+  }
+
+  private boolean hasSlowIndex(String column) {
+    FieldIndexConfigs indexConfigs = _config.getIndexConfigsByColName().get(column);
+    return indexConfigs != null && (indexConfigs.getConfig(StandardIndexes.text()).isEnabled()
+        || indexConfigs.getConfig(StandardIndexes.h3()).isEnabled());
+  }
+
+  /// Returns a rough estimate of the memory used to index the column, which is the raw size of its values.
+  private long estimateIndexingSize(String column) {
+    ColumnStatistics columnStatistics = _columnStatisticsMap.get(column);
+    if (columnStatistics == null) {
+      return 0;
+    }
+    return (long) columnStatistics.getTotalNumberOfEntries() * Math.max(columnStatistics.getLengthOfLongestElement(),
+        Long.BYTES);
+  }
+
   private void handlePostCreation()
       throws Exception {
     // Execute all post-creation operations directly on the index creator
@@ -525,16 +570,16 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
       TreeSet<String> columns = _schema.getPhysicalColumnNames();
       for (String columnName : columns) {
-        LOGGER.debug("Indexing column: {}", columnName);
-        ColumnReader columnReader = columnReaders.get(columnName);
-        if (columnReader == null) {
+        if (!columnReaders.containsKey(columnName)) {
           throw new IllegalStateException("No column reader found for column: " + columnName);
         }
-
-        // Index each column independently using true column-major approach
-        // This is similar to how buildByColumn works but uses ColumnReader instead of IndexSegment
-        _indexCreator.indexColumn(columnName, columnReader);
       }
+      // Index each column independently using true column-major approach
+      // This is similar to how buildByColumn works but uses ColumnReader instead of IndexSegment
+      indexColumns(columns, columnarDataSource.isConcurrentColumnReadsSupported(), columnName -> {
+        LOGGER.debug("Indexing column: {}", columnName);
+        _indexCreator.indexColumn(columnName, columnReaders.get(columnName));
+      });
 
       _totalIndexTimeNs = System.nanoTime() - indexStartTime;
 
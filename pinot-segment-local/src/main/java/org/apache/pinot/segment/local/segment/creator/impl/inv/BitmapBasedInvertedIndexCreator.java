@@ -0,0 +1,34 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl.inv;
+
+import org.apache.pinot.segment.spi.index.creator.DictionaryBasedInvertedIndexCreator;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/// A [DictionaryBasedInvertedIndexCreator] that can also be given the complete bitmap of each dictionary id, e.g. when
+/// the bitmaps are copied from the inverted index of a mutable segment instead of being rebuilt document by document.
+///
+/// The bitmaps can not be mixed with the per-document `add()` methods within the same creator.
+public interface BitmapBasedInvertedIndexCreator extends DictionaryBasedInvertedIndexCreator {
+
+  /// Sets the document ids of the given dictionary id. Each dictionary id can be set at most once, and dictionary ids
+  /// that are never set have no documents.
+  void addDocIds(int dictId, RoaringBitmap docIds);
+}
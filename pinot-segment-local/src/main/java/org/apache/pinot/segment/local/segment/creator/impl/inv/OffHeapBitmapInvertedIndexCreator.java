@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.segment.local.segment.creator.impl.inv;
 
+import com.google.common.base.Preconditions;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import java.io.Closeable;
 import java.io.File;
@@ -26,14 +27,13 @@ import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.segment.spi.V1Constants;
-import org.apache.pinot.segment.spi.index.creator.DictionaryBasedInvertedIndexCreator;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.roaringbitmap.RoaringBitmap;
 import org.roaringbitmap.RoaringBitmapWriter;
 
 
-/// Implementation of [DictionaryBasedInvertedIndexCreator] that uses off-heap memory.
+/// Implementation of [BitmapBasedInvertedIndexCreator] that uses off-heap memory.
 ///
 /// We use 2 passes to create the inverted index.
 ///
@@ -49,7 +49,10 @@ import org.roaringbitmap.RoaringBitmapWriter;
 ///   serialize them into a file.
 ///
 /// Based on the number of values we need to store, we use direct memory or MMap file to allocate the buffer.
-public final class OffHeapBitmapInvertedIndexCreator implements DictionaryBasedInvertedIndexCreator {
+///
+/// When the bitmaps are added with [#addDocIds(int, RoaringBitmap)] instead, both passes are skipped and the bitmaps
+/// are serialized as is.
+public final class OffHeapBitmapInvertedIndexCreator implements BitmapBasedInvertedIndexCreator {
   // Use MMapBuffer if the value buffer size is larger than 2G
   private static final int NUM_VALUES_THRESHOLD_FOR_MMAP_BUFFER = 500_000_000;
 
@@ -80,6 +83,9 @@ public final class OffHeapBitmapInvertedIndexCreator implements DictionaryBasedI
   private PinotDataBuffer _invertedIndexValueBuffer;
   private PinotDataBuffer _invertedIndexLengthBuffer;
 
+  // Only set when the bitmaps are added with addDocIds()
+  private RoaringBitmap[] _docIds;
+
   /// Like calling [#OffHeapBitmapInvertedIndexCreator(File, FieldSpec, int, int, int, String)] with the default
   /// [V1Constants.Indexes#BITMAP_INVERTED_INDEX_FILE_EXTENSION].
   ///
@@ -178,6 +184,16 @@ public final class OffHeapBitmapInvertedIndexCreator implements DictionaryBasedI
     putInt(_forwardIndexLengthBuffer, _nextDocId++, length);
   }
 
+  @Override
+  public void addDocIds(int dictId, RoaringBitmap docIds) {
+    Preconditions.checkState(_nextDocId == 0, "Can not add bitmaps after adding documents");
+    if (_docIds == null) {
+      _docIds = new RoaringBitmap[_cardinality];
+    }
+    Preconditions.checkState(_docIds[dictId] == null, "Bitmap of dictId: %s is already added", dictId);
+    _docIds[dictId] = docIds;
+  }
+
   private void invert()
       throws IOException {
     // Calculate value index for each dictId in the inverted index value buffer
@@ -251,6 +267,15 @@ public final class OffHeapBitmapInvertedIndexCreator implements DictionaryBasedI
 
   public void seal(FileChannel channel)
       throws IOException {
+    if (_docIds != null) {
+      try (BitmapInvertedIndexWriter writer = new BitmapInvertedIndexWriter(channel, _cardinality, false)) {
+        RoaringBitmap emptyBitmap = new RoaringBitmap();
+        for (RoaringBitmap docIds : _docIds) {
+          writer.add(docIds != null ? docIds : emptyBitmap);
+        }
+      }
+      return;
+    }
     invert();
     write(channel);
   }
@@ -18,21 +18,23 @@
  */
 package org.apache.pinot.segment.local.segment.creator.impl.inv;
 
+import com.google.common.base.Preconditions;
 import java.io.File;
 import java.io.IOException;
 import org.apache.pinot.segment.spi.V1Constants;
-import org.apache.pinot.segment.spi.index.creator.DictionaryBasedInvertedIndexCreator;
 import org.roaringbitmap.Container;
 import org.roaringbitmap.RoaringBitmap;
 import org.roaringbitmap.RoaringBitmapWriter;
 
 
-/// Implementation of [DictionaryBasedInvertedIndexCreator] that uses on-heap memory.
+/// Implementation of [BitmapBasedInvertedIndexCreator] that uses on-heap memory.
 @SuppressWarnings("unchecked")
-public final class OnHeapBitmapInvertedIndexCreator implements DictionaryBasedInvertedIndexCreator {
+public final class OnHeapBitmapInvertedIndexCreator implements BitmapBasedInvertedIndexCreator {
   private final File _invertedIndexFile;
   private final RoaringBitmapWriter<RoaringBitmap>[] _bitmapWriters;
   private int _nextDocId;
+  // Only set when the bitmaps are added with addDocIds()
+  private RoaringBitmap[] _docIds;
 
   public OnHeapBitmapInvertedIndexCreator(File indexDir, String columnName, int cardinality) {
     _invertedIndexFile = new File(indexDir, columnName + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
@@ -56,12 +58,29 @@ public final class OnHeapBitmapInvertedIndexCreator implements DictionaryBasedIn
     _nextDocId++;
   }
 
+  @Override
+  public void addDocIds(int dictId, RoaringBitmap docIds) {
+    Preconditions.checkState(_nextDocId == 0, "Can not add bitmaps after adding documents");
+    if (_docIds == null) {
+      _docIds = new RoaringBitmap[_bitmapWriters.length];
+    }
+    Preconditions.checkState(_docIds[dictId] == null, "Bitmap of dictId: %s is already added", dictId);
+    _docIds[dictId] = docIds;
+  }
+
   @Override
   public void seal()
       throws IOException {
     try (BitmapInvertedIndexWriter writer = new BitmapInvertedIndexWriter(_invertedIndexFile, _bitmapWriters.length)) {
-      for (RoaringBitmapWriter<RoaringBitmap> bitmapWriter : _bitmapWriters) {
-        writer.add(bitmapWriter.get());
+      if (_docIds != null) {
+        RoaringBitmap emptyBitmap = new RoaringBitmap();
+        for (RoaringBitmap docIds : _docIds) {
+          writer.add(docIds != null ? docIds : emptyBitmap);
+        }
+      } else {
+        for (RoaringBitmapWriter<RoaringBitmap> bitmapWriter : _bitmapWriters) {
+          writer.add(bitmapWriter.get());
+        }
       }
     }
   }
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl.zonemap;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.index.IndexCreator;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+
+
+/// Creator of the zone map index for single-value INT, LONG, FLOAT and DOUBLE columns.
+///
+/// The index file has the following layout (big-endian):
+/// - Header: version (int), number of docs per zone (int), number of zones (int)
+/// - For each zone: min value and max value (8 bytes each, long for INT/LONG columns and double for FLOAT/DOUBLE
+///   columns)
+public class ZoneMapIndexCreator implements IndexCreator {
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+  private final File _indexFile;
+  private final boolean _isIntegral;
+  private final int _numDocsPerZone;
+  // Min and max value of each zone, where double values are stored as raw long bits
+  private final LongArrayList _minMaxValues;
+
+  private int _numDocsInZone;
+  private long _longMinValue;
+  private long _longMaxValue;
+  private double _doubleMinValue;
+  private double _doubleMaxValue;
+
+  public ZoneMapIndexCreator(File indexDir, String columnName, DataType storedType, int numDocsPerZone,
+      int totalNumDocs) {
+    Preconditions.checkArgument(storedType.isNumeric() && storedType != DataType.BIG_DECIMAL,
+        "Unsupported data type: %s for zone map index on column: %s", storedType, columnName);
+    _indexFile = new File(indexDir, columnName + V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION);
+    _isIntegral = storedType == DataType.INT || storedType == DataType.LONG;
+    _numDocsPerZone = numDocsPerZone;
+    _minMaxValues = new LongArrayList(2 * ((Math.max(totalNumDocs, 0) + numDocsPerZone - 1) / numDocsPerZone));
+  }
+
+  @Override
+  public void add(Object value, int dictId) {
+    Number number = (Number) value;
+    if (_isIntegral) {
+      addLong(number.longValue());
+    } else {
+      addDouble(number.doubleValue());
+    }
+  }
+
+  @Override
+  public void add(Object[] values, @Nullable int[] dictIds) {
+    throw new UnsupportedOperationException("Zone map index is not supported for multi-value columns");
+  }
+
+  @Override
+  public void addInt(int value, int dictId) {
+    addLong(value);
+  }
+
+  @Override
+  public void addLong(long value, int dictId) {
+    addLong(value);
+  }
+
+  @Override
+  public void addFloat(float value, int dictId) {
+    addDouble(value);
+  }
+
+  @Override
+  public void addDouble(double value, int dictId) {
+    addDouble(value);
+  }
+
+  public void addLong(long value) {
+    if (!_isIntegral) {
+      addDouble(value);
+      return;
+    }
+    if (_numDocsInZone == 0) {
+      _longMinValue = value;
+      _longMaxValue = value;
+    } else {
+      _longMinValue = Math.min(_longMinValue, value);
+      _longMaxValue = Math.max(_longMaxValue, value);
+    }
+    if (++_numDocsInZone == _numDocsPerZone) {
+      closeZone();
+    }
+  }
+
+  public void addDouble(double value) {
+    Preconditions.checkState(!_isIntegral, "Cannot add double value to zone map index of integral column");
+    // NOTE: Math.min() and Math.max() return NaN when one of the values is NaN, so that zones with NaN are never
+    //       skipped by the filters
+    if (_numDocsInZone == 0) {
+      _doubleMinValue = value;
+      _doubleMaxValue = value;
+    } else {
+      _doubleMinValue = Math.min(_doubleMinValue, value);
+      _doubleMaxValue = Math.max(_doubleMaxValue, value);
+    }
+    if (++_numDocsInZone == _numDocsPerZone) {
+      closeZone();
+    }
+  }
+
+  private void closeZone() {
+    if (_isIntegral) {
+      _minMaxValues.add(_longMinValue);
+      _minMaxValues.add(_longMaxValue);
+    } else {
+      _minMaxValues.add(Double.doubleToRawLongBits(_doubleMinValue));
+      _minMaxValues.add(Double.doubleToRawLongBits(_doubleMaxValue));
+    }
+    _numDocsInZone = 0;
+  }
+
+  @Override
+  public void seal()
+      throws IOException {
+    if (_numDocsInZone > 0) {
+      closeZone();
+    }
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_indexFile)))) {
+      out.writeInt(VERSION);
+      out.writeInt(_numDocsPerZone);
+      out.writeInt(_minMaxValues.size() / 2);
+      for (int i = 0; i < _minMaxValues.size(); i++) {
+        out.writeLong(_minMaxValues.getLong(i));
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.column;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Server wide manager of the adaptive on-heap promotion of the hot columns of immutable segments.
+///
+/// The columns of the tables enabling it (see `indexingConfig.adaptiveOnHeapEnabled`) are registered when their
+/// segment is loaded, and count how many times the queries access them. At each refresh, the access counts are folded
+/// into an access score decayed by half every interval, and the columns with the highest scores are promoted within
+/// the memory budget: their dictionary is loaded on heap and their dictionary encoded forward index is copied on heap,
+/// so that the queries no longer page in the memory mapped data (see [PhysicalColumnIndexContainer#promote]). The
+/// promoted columns which go cold (score below the threshold) or are displaced by hotter columns are demoted back to
+/// their memory mapped indexes, and their copies are reclaimed by the GC once released by the running queries.
+///
+/// On ties, promoted columns are ranked first so that columns with similar scores do not flap between refreshes.
+public class AdaptiveOnHeapColumnManager {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveOnHeapColumnManager.class);
+
+  private static volatile AdaptiveOnHeapColumnManager _instance;
+
+  private final long _maxSizeInBytes;
+  private final long _minAccessScore;
+  private final Set<PhysicalColumnIndexContainer> _columns = ConcurrentHashMap.newKeySet();
+  private final ServerMetrics _serverMetrics = ServerMetrics.get();
+
+  private ScheduledExecutorService _refreshExecutor;
+  private volatile int _numPromotedColumns;
+  private volatile long _promotedSizeInBytes;
+
+  @VisibleForTesting
+  AdaptiveOnHeapColumnManager(long maxSizeInBytes, long minAccessScore) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid max size: %s for adaptive on-heap columns",
+        maxSizeInBytes);
+    _maxSizeInBytes = maxSizeInBytes;
+    _minAccessScore = minAccessScore;
+  }
+
+  /// Creates the manager from the query executor config (with the [Server#QUERY_EXECUTOR_CONFIG_PREFIX] trimmed) and
+  /// schedules the refreshes, or disables the adaptive on-heap promotion when the configured size is not positive.
+  public static synchronized void init(PinotConfiguration queryExecutorConfig) {
+    if (_instance != null) {
+      _instance.stop();
+    }
+    long maxSizeInBytes = queryExecutorConfig.getProperty(Server.ADAPTIVE_ON_HEAP_MAX_SIZE_BYTES,
+        Server.DEFAULT_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_MAX_SIZE_BYTES);
+    if (maxSizeInBytes > 0) {
+      long refreshIntervalMs = queryExecutorConfig.getProperty(Server.ADAPTIVE_ON_HEAP_REFRESH_INTERVAL_MS,
+          Server.DEFAULT_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_REFRESH_INTERVAL_MS);
+      long minAccessScore = queryExecutorConfig.getProperty(Server.ADAPTIVE_ON_HEAP_MIN_ACCESS_SCORE,
+          Server.DEFAULT_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_MIN_ACCESS_SCORE);
+      LOGGER.info("Enabling adaptive on-heap columns with max size: {} bytes, refresh interval: {}ms, min access "
+          + "score: {}", maxSizeInBytes, refreshIntervalMs, minAccessScore);
+      AdaptiveOnHeapColumnManager instance = new AdaptiveOnHeapColumnManager(maxSizeInBytes, minAccessScore);
+      instance.start(refreshIntervalMs);
+      ServerMetrics serverMetrics = ServerMetrics.get();
+      serverMetrics.setOrUpdateGlobalGauge(ServerGauge.ADAPTIVE_ON_HEAP_COLUMNS,
+          () -> (long) instance.getNumPromotedColumns());
+      serverMetrics.setOrUpdateGlobalGauge(ServerGauge.ADAPTIVE_ON_HEAP_SIZE_BYTES,
+          () -> instance.getPromotedSizeInBytes());
+      _instance = instance;
+    } else {
+      _instance = null;
+    }
+  }
+
+  /// Returns the manager, or `null` if the adaptive on-heap promotion is disabled.
+  @Nullable
+  public static AdaptiveOnHeapColumnManager getInstance() {
+    return _instance;
+  }
+
+  @VisibleForTesting
+  static void setInstance(@Nullable AdaptiveOnHeapColumnManager instance) {
+    _instance = instance;
+  }
+
+  private void start(long refreshIntervalMs) {
+    _refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "adaptive-on-heap-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+    _refreshExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (Throwable t) {
+        LOGGER.error("Caught exception while refreshing adaptive on-heap columns", t);
+      }
+    }, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void stop() {
+    if (_refreshExecutor != null) {
+      _refreshExecutor.shutdownNow();
+    }
+  }
+
+  void register(PhysicalColumnIndexContainer column) {
+    _columns.add(column);
+  }
+
+  void unregister(PhysicalColumnIndexContainer column) {
+    _columns.remove(column);
+  }
+
+  /// Re-ranks the registered columns by their access scores, then demotes the columns which are no longer among the
+  /// hottest ones fitting in the memory budget and promotes the new ones.
+  @VisibleForTesting
+  synchronized void refresh() {
+    List<PhysicalColumnIndexContainer> hotColumns = new ArrayList<>();
+    for (PhysicalColumnIndexContainer column : _columns) {
+      if (column.updateAccessScore() >= _minAccessScore) {
+        hotColumns.add(column);
+      }
+    }
+    hotColumns.sort(Comparator.comparingLong(PhysicalColumnIndexContainer::getAccessScore).reversed()
+        .thenComparing(PhysicalColumnIndexContainer::isPromoted, Comparator.reverseOrder()));
+    Set<PhysicalColumnIndexContainer> selectedColumns = Collections.newSetFromMap(new IdentityHashMap<>());
+    long remainingSizeInBytes = _maxSizeInBytes;
+    for (PhysicalColumnIndexContainer column : hotColumns) {
+      long sizeInBytes = column.getPromotionSizeInBytes();
+      if (sizeInBytes <= remainingSizeInBytes) {
+        selectedColumns.add(column);
+        remainingSizeInBytes -= sizeInBytes;
+      }
+    }
+
+    // Demote first so that the memory of the cold columns can be reclaimed before promoting the hot ones
+    int numDemoted = 0;
+    for (PhysicalColumnIndexContainer column : _columns) {
+      if (!selectedColumns.contains(column) && column.demote()) {
+        numDemoted++;
+      }
+    }
+    int numPromoted = 0;
+    int numPromotedColumns = 0;
+    long promotedSizeInBytes = 0;
+    for (PhysicalColumnIndexContainer column : selectedColumns) {
+      try {
+        if (column.promote()) {
+          numPromoted++;
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while promoting column: {} on heap", column.getColumnName(), e);
+      }
+      if (column.isPromoted()) {
+        numPromotedColumns++;
+        promotedSizeInBytes += column.getPromotionSizeInBytes();
+      }
+    }
+    _numPromotedColumns = numPromotedColumns;
+    _promotedSizeInBytes = promotedSizeInBytes;
+    if (numPromoted > 0 || numDemoted > 0) {
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.ADAPTIVE_ON_HEAP_PROMOTIONS, numPromoted);
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.ADAPTIVE_ON_HEAP_DEMOTIONS, numDemoted);
+      LOGGER.info("Promoted {} and demoted {} columns, {} columns ({} bytes) on heap", numPromoted, numDemoted,
+          numPromotedColumns, promotedSizeInBytes);
+    }
+  }
+
+  /// Returns the number of columns currently promoted on heap, as of the last refresh.
+  public int getNumPromotedColumns() {
+    return _numPromotedColumns;
+  }
+
+  /// Returns the estimated heap size of the columns currently promoted, as of the last refresh.
+  public long getPromotedSizeInBytes() {
+    return _promotedSizeInBytes;
+  }
+}
@@ -21,13 +21,19 @@ package org.apache.pinot.segment.local.segment.index.column;
 import it.unimi.dsi.fastutil.shorts.ShortArrayList;
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.index.dictionary.DictionaryIndexType;
+import org.apache.pinot.segment.local.segment.index.forward.ForwardIndexReaderFactory;
 import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.index.readers.forward.DecompressedChunkCache;
 import org.apache.pinot.segment.local.segment.index.readers.text.MultiColumnLuceneTextIndexReader;
 import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.index.DictionaryIndexConfig;
 import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
 import org.apache.pinot.segment.spi.index.IndexReader;
 import org.apache.pinot.segment.spi.index.IndexReaderConstraintException;
@@ -37,6 +43,10 @@ import org.apache.pinot.segment.spi.index.IndexType;
 import org.apache.pinot.segment.spi.index.StandardIndexes;
 import org.apache.pinot.segment.spi.index.column.ColumnIndexContainer;
 import org.apache.pinot.segment.spi.index.creator.VectorIndexConfig;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.memory.PinotByteBuffer;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.segment.spi.store.SegmentDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +57,10 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
 
   private static final Set<String> FORWARD_INDEX_ONLY_TYPES =
       Set.of(StandardIndexes.FORWARD_ID, StandardIndexes.DICTIONARY_ID, StandardIndexes.NULL_VALUE_VECTOR_ID);
+  private static final DictionaryIndexConfig ON_HEAP_DICTIONARY_CONFIG = new DictionaryIndexConfig(true, null);
+  // Rough heap overhead of each value of an on-heap dictionary of variable length values (object header, array
+  // header and reference)
+  private static final int ON_HEAP_VAR_LENGTH_VALUE_OVERHEAD_BYTES = 40;
 
   private final IndexTypeMap _indexTypeMap;
   @Nullable
@@ -56,6 +70,23 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
   // This reader is closed on segment destroy() and not in this class' close() method.
   private MultiColumnLuceneTextIndexReader _multiColTextReader;
 
+  // Set when the column can be promoted on heap by the AdaptiveOnHeapColumnManager
+  @Nullable
+  private AdaptiveOnHeapColumnManager _onHeapColumnManager;
+  private SegmentDirectory.Reader _segmentReader;
+  private ColumnMetadata _metadata;
+  private LongAdder _numAccesses;
+  private boolean _promoteDictionary;
+  private boolean _promoteForwardIndex;
+  private long _promotionSizeInBytes;
+  // Only accessed by the manager refresh
+  private long _accessScore;
+  // Memory mapped readers replaced by the on-heap ones while the column is promoted
+  private Dictionary _mappedDictionary;
+  private ForwardIndexReader<?> _mappedForwardIndex;
+  private volatile boolean _promoted;
+  private boolean _closed;
+
   public PhysicalColumnIndexContainer(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfig indexLoadingConfig)
       throws IOException {
@@ -71,6 +102,8 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
     ArrayList<IndexReader> readers = new ArrayList<>();
 
     boolean forwardIndexOnly = indexLoadingConfig.isForwardIndexOnly();
+    DecompressedChunkCache chunkCache =
+        indexLoadingConfig.isDecompressedChunkCacheEnabled() ? DecompressedChunkCache.getInstance() : null;
     try {
       for (IndexType<?, ?, ?> indexType : IndexService.getInstance().getAllIndexes()) {
         if (forwardIndexOnly && !FORWARD_INDEX_ONLY_TYPES.contains(indexType.getId())) {
@@ -81,6 +114,9 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
           try {
             IndexReader reader = readerProvider.createIndexReader(segmentReader, fieldIndexConfigs, metadata);
             if (reader != null) {
+              if (chunkCache != null && reader instanceof DecompressedChunkCache.CacheableReader) {
+                ((DecompressedChunkCache.CacheableReader) reader).enableChunkCache(chunkCache);
+              }
               indexTypes.add(indexType);
               readers.add(reader);
             }
@@ -101,6 +137,127 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
     }
 
     _indexTypeMap = IndexTypeMap.get(indexTypes, readers);
+
+    AdaptiveOnHeapColumnManager onHeapColumnManager =
+        indexLoadingConfig.isAdaptiveOnHeapEnabled() ? AdaptiveOnHeapColumnManager.getInstance() : null;
+    if (onHeapColumnManager != null) {
+      initPromotion(segmentReader, metadata, fieldIndexConfigs);
+      if (_promotionSizeInBytes > 0) {
+        _onHeapColumnManager = onHeapColumnManager;
+        _segmentReader = segmentReader;
+        _metadata = metadata;
+        _numAccesses = new LongAdder();
+        onHeapColumnManager.register(this);
+      }
+    }
+  }
+
+  /// Finds the indexes which can be promoted on heap: the dictionary unless already on heap, and the dictionary
+  /// encoded (bit packed) forward index unless sorted. Raw forward indexes are not promoted, as their chunks would
+  /// still be decompressed for each read.
+  private void initPromotion(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
+      FieldIndexConfigs fieldIndexConfigs)
+      throws IOException {
+    String columnName = metadata.getColumnName();
+    DictionaryIndexConfig dictionaryConfig = fieldIndexConfigs.getConfig(StandardIndexes.dictionary());
+    if (getIndex(StandardIndexes.dictionary()) != null && !dictionaryConfig.isOnHeap()) {
+      _promoteDictionary = true;
+      _promotionSizeInBytes += segmentReader.getIndexFor(columnName, StandardIndexes.dictionary()).size();
+      if (!metadata.getDataType().getStoredType().isFixedWidth()) {
+        _promotionSizeInBytes += (long) metadata.getCardinality() * ON_HEAP_VAR_LENGTH_VALUE_OVERHEAD_BYTES;
+      }
+    }
+    ForwardIndexReader<?> forwardIndex = getIndex(StandardIndexes.forward());
+    if (forwardIndex != null && forwardIndex.isDictionaryEncoded() && !metadata.isSorted()) {
+      long forwardIndexSize = segmentReader.getIndexFor(columnName, StandardIndexes.forward()).size();
+      if (forwardIndexSize <= Integer.MAX_VALUE) {
+        _promoteForwardIndex = true;
+        _promotionSizeInBytes += forwardIndexSize;
+      }
+    }
+  }
+
+  /// Records an access to the column by a query, used to rank the columns for the adaptive on-heap promotion.
+  public void recordAccess() {
+    if (_numAccesses != null) {
+      _numAccesses.increment();
+    }
+  }
+
+  String getColumnName() {
+    return _metadata.getColumnName();
+  }
+
+  /// Folds the accesses since the last call into the access score, which is decayed by half, and returns it.
+  long updateAccessScore() {
+    _accessScore = _accessScore / 2 + _numAccesses.sumThenReset();
+    return _accessScore;
+  }
+
+  long getAccessScore() {
+    return _accessScore;
+  }
+
+  /// Returns the estimated heap size of the column when promoted.
+  long getPromotionSizeInBytes() {
+    return _promotionSizeInBytes;
+  }
+
+  boolean isPromoted() {
+    return _promoted;
+  }
+
+  /// Replaces the memory mapped dictionary and forward index with on-heap copies. The queries already holding the
+  /// memory mapped readers keep using them, which is safe as the underlying buffers are owned by the segment.
+  /// Returns `false` if the column is already promoted or closed.
+  synchronized boolean promote()
+      throws IOException {
+    if (_promoted || _closed) {
+      return false;
+    }
+    String columnName = _metadata.getColumnName();
+    // Build both copies before swapping any reader, so that a failure leaves the column unchanged
+    Dictionary onHeapDictionary = null;
+    if (_promoteDictionary) {
+      onHeapDictionary =
+          DictionaryIndexType.read(_segmentReader.getIndexFor(columnName, StandardIndexes.dictionary()), _metadata,
+              ON_HEAP_DICTIONARY_CONFIG);
+    }
+    ForwardIndexReader<?> onHeapForwardIndex = null;
+    if (_promoteForwardIndex) {
+      PinotDataBuffer mappedBuffer = _segmentReader.getIndexFor(columnName, StandardIndexes.forward());
+      PinotDataBuffer onHeapBuffer =
+          PinotByteBuffer.wrap(ByteBuffer.allocate((int) mappedBuffer.size()).order(mappedBuffer.order()));
+      mappedBuffer.copyTo(0, onHeapBuffer, 0, mappedBuffer.size());
+      onHeapForwardIndex = ForwardIndexReaderFactory.getInstance().createIndexReader(onHeapBuffer, _metadata);
+    }
+    if (onHeapDictionary != null) {
+      _mappedDictionary = (Dictionary) _indexTypeMap.replace(StandardIndexes.dictionary(), onHeapDictionary);
+    }
+    if (onHeapForwardIndex != null) {
+      _mappedForwardIndex =
+          (ForwardIndexReader<?>) _indexTypeMap.replace(StandardIndexes.forward(), onHeapForwardIndex);
+    }
+    _promoted = true;
+    return true;
+  }
+
+  /// Restores the memory mapped dictionary and forward index. The on-heap copies are not closed but left to the GC,
+  /// as they might still be used by running queries. Returns `false` if the column is not promoted.
+  synchronized boolean demote() {
+    if (!_promoted) {
+      return false;
+    }
+    if (_mappedDictionary != null) {
+      _indexTypeMap.replace(StandardIndexes.dictionary(), _mappedDictionary);
+      _mappedDictionary = null;
+    }
+    if (_mappedForwardIndex != null) {
+      _indexTypeMap.replace(StandardIndexes.forward(), _mappedForwardIndex);
+      _mappedForwardIndex = null;
+    }
+    _promoted = false;
+    return true;
   }
 
   @Nullable
@@ -118,6 +275,14 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
   @Override
   public void close()
       throws IOException {
+    if (_onHeapColumnManager != null) {
+      _onHeapColumnManager.unregister(this);
+      // Close the memory mapped readers instead of the on-heap ones
+      synchronized (this) {
+        _closed = true;
+        demote();
+      }
+    }
     // TODO (index-spi): Verify that readers can be closed in any order
     _indexTypeMap.close();
 
@@ -189,6 +354,15 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
       return null;
     }
 
+    /// Replaces the reader of an index type present in the map and returns the replaced reader. Concurrent lookups
+    /// get either reader, which are both valid.
+    IndexReader replace(IndexType<?, ?, ?> indexType, IndexReader reader) {
+      int index = IndexService.getInstance().getNumericId(indexType) - _shift;
+      IndexReader replaced = _readers[index];
+      _readers[index] = reader;
+      return replaced;
+    }
+
     @Override
     public void close()
         throws IOException {
@@ -353,6 +353,14 @@ public class IndexLoadingConfig {
     return _tableConfig != null && _tableConfig.getIndexingConfig().isSkipSegmentPreprocess();
   }
 
+  public boolean isDecompressedChunkCacheEnabled() {
+    return _tableConfig != null && _tableConfig.getIndexingConfig().isDecompressedChunkCacheEnabled();
+  }
+
+  public boolean isAdaptiveOnHeapEnabled() {
+    return _tableConfig != null && _tableConfig.getIndexingConfig().isAdaptiveOnHeapEnabled();
+  }
+
   @Nullable
   public FieldIndexConfigs getFieldIndexConfig(String columnName) {
     if (_indexConfigsByColName == null || _dirty) {
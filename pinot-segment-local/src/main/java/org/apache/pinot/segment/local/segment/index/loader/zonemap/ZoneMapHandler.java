@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.loader.zonemap;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.local.segment.index.dictionary.DictionaryIndexType;
+import org.apache.pinot.segment.local.segment.index.loader.BaseIndexHandler;
+import org.apache.pinot.segment.local.segment.index.loader.LoaderUtils;
+import org.apache.pinot.segment.local.segment.index.readers.ZoneMapIndexReaderImpl;
+import org.apache.pinot.segment.local.segment.index.zonemap.ZoneMapIndexType;
+import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.IndexCreationContext;
+import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.index.DictionaryIndexConfig;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigsUtil;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.ZoneMapIndexConfig;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReaderContext;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+public class ZoneMapHandler extends BaseIndexHandler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ZoneMapHandler.class);
+
+  private final Map<String, ZoneMapIndexConfig> _zoneMapConfigs;
+
+  public ZoneMapHandler(SegmentDirectory segmentDirectory, Map<String, FieldIndexConfigs> fieldIndexConfigs,
+      TableConfig tableConfig, Schema schema) {
+    super(segmentDirectory, fieldIndexConfigs, tableConfig, schema);
+    _zoneMapConfigs = FieldIndexConfigsUtil.enableConfigByColumn(StandardIndexes.zoneMap(), fieldIndexConfigs);
+  }
+
+  @Override
+  public boolean needUpdateIndices(SegmentDirectory.Reader segmentReader)
+      throws Exception {
+    String segmentName = _segmentDirectory.getSegmentMetadata().getName();
+    Set<String> columnsToAddZoneMap = new HashSet<>(_zoneMapConfigs.keySet());
+    Set<String> existingColumns = segmentReader.toSegmentDirectory().getColumnsWithIndex(StandardIndexes.zoneMap());
+    // Check if any existing zone map need to be removed or rebuilt due to a zone size change.
+    for (String column : existingColumns) {
+      if (!columnsToAddZoneMap.remove(column)) {
+        LOGGER.info("Need to remove existing zone map from segment: {}, column: {}", segmentName, column);
+        return true;
+      }
+      if (existingNumDocsPerZoneDiffers(segmentReader, column)) {
+        LOGGER.info("Need to rebuild zone map for segment: {}, column: {} due to numDocsPerZone change", segmentName,
+            column);
+        return true;
+      }
+    }
+    // Check if any new zone map need to be added.
+    for (String column : columnsToAddZoneMap) {
+      ColumnMetadata columnMetadata = _segmentDirectory.getSegmentMetadata().getColumnMetadataFor(column);
+      if (shouldCreateZoneMap(columnMetadata)) {
+        LOGGER.info("Need to create new zone map for segment: {}, column: {}", segmentName, column);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void updateIndices(SegmentDirectory.Writer segmentWriter)
+      throws Exception {
+    Set<String> columnsToAddZoneMap = new HashSet<>(_zoneMapConfigs.keySet());
+    // Remove indices not set in table config any more.
+    String segmentName = _segmentDirectory.getSegmentMetadata().getName();
+    Set<String> existingColumns = segmentWriter.toSegmentDirectory().getColumnsWithIndex(StandardIndexes.zoneMap());
+    for (String column : existingColumns) {
+      if (!columnsToAddZoneMap.remove(column)) {
+        LOGGER.info("Removing existing zone map from segment: {}, column: {}", segmentName, column);
+        segmentWriter.removeIndex(column, StandardIndexes.zoneMap());
+        LOGGER.info("Removed existing zone map from segment: {}, column: {}", segmentName, column);
+      } else if (existingNumDocsPerZoneDiffers(segmentWriter, column)) {
+        LOGGER.info("Rebuilding zone map for segment: {}, column: {} due to numDocsPerZone change", segmentName,
+            column);
+        segmentWriter.removeIndex(column, StandardIndexes.zoneMap());
+        columnsToAddZoneMap.add(column);
+      }
+    }
+    for (String column : columnsToAddZoneMap) {
+      ColumnMetadata columnMetadata = _segmentDirectory.getSegmentMetadata().getColumnMetadataFor(column);
+      if (shouldCreateZoneMap(columnMetadata)) {
+        createZoneMapForColumn(segmentWriter, columnMetadata);
+      }
+    }
+  }
+
+  /// Returns `true` if the number of docs per zone of the existing zone map doesn't match the configured one.
+  private boolean existingNumDocsPerZoneDiffers(SegmentDirectory.Reader segmentReader, String column)
+      throws Exception {
+    // The buffer is owned by SegmentDirectory; don't close it here (mmap regions are shared).
+    ZoneMapIndexReaderImpl zoneMapReader =
+        new ZoneMapIndexReaderImpl(segmentReader.getIndexFor(column, StandardIndexes.zoneMap()));
+    return zoneMapReader.getNumDocsPerZone() != _zoneMapConfigs.get(column).getNumDocsPerZone();
+  }
+
+  private boolean shouldCreateZoneMap(ColumnMetadata columnMetadata) {
+    return columnMetadata != null && columnMetadata.isSingleValue() && ZoneMapIndexType.isSupported(
+        columnMetadata.getDataType().getStoredType());
+  }
+
+  private void createZoneMapForColumn(SegmentDirectory.Writer segmentWriter, ColumnMetadata columnMetadata)
+      throws Exception {
+    File indexDir = _segmentDirectory.getSegmentMetadata().getIndexDir();
+    String segmentName = _segmentDirectory.getSegmentMetadata().getName();
+    String columnName = columnMetadata.getColumnName();
+    File zoneMapFileInProgress = new File(indexDir, columnName + ".zonemap.inprogress");
+    File zoneMapFile = new File(indexDir, columnName + V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION);
+
+    if (!zoneMapFileInProgress.exists()) {
+      // Marker file does not exist, which means last run ended normally.
+      // Create a marker file.
+      FileUtils.touch(zoneMapFileInProgress);
+    } else {
+      // Marker file exists, which means last run gets interrupted.
+      // Remove zone map file.
+      FileUtils.deleteQuietly(zoneMapFile);
+    }
+
+    // Create a temporary forward index if it is disabled and does not exist
+    columnMetadata = createForwardIndexIfNeeded(segmentWriter, columnName, true);
+
+    // Create new zone map for the column.
+    ZoneMapIndexConfig zoneMapConfig = _zoneMapConfigs.get(columnName);
+    LOGGER.info("Creating new zone map for segment: {}, column: {} with config: {}", segmentName, columnName,
+        zoneMapConfig);
+    createAndSealZoneMap(indexDir, columnMetadata, zoneMapConfig, segmentWriter);
+
+    // For v3, write the generated zone map file into the single file and remove it.
+    if (_segmentDirectory.getSegmentMetadata().getVersion() == SegmentVersion.v3) {
+      LoaderUtils.writeIndexToV3Format(segmentWriter, columnName, zoneMapFile, StandardIndexes.zoneMap());
+    }
+
+    // Delete the marker file.
+    FileUtils.deleteQuietly(zoneMapFileInProgress);
+    LOGGER.info("Created zone map for segment: {}, column: {}", segmentName, columnName);
+  }
+
+  private void createAndSealZoneMap(File indexDir, ColumnMetadata columnMetadata, ZoneMapIndexConfig zoneMapConfig,
+      SegmentDirectory.Writer segmentWriter)
+      throws Exception {
+    int numDocs = columnMetadata.getTotalDocs();
+    String columnName = columnMetadata.getColumnName();
+    DataType storedType = columnMetadata.getDataType().getStoredType();
+    IndexCreationContext context = new IndexCreationContext.Builder(indexDir, _tableConfig, columnMetadata).build();
+    try (ZoneMapIndexCreator zoneMapCreator = (ZoneMapIndexCreator) StandardIndexes.zoneMap()
+        .createIndexCreator(context, zoneMapConfig);
+        ForwardIndexReader forwardIndexReader = StandardIndexes.forward().getReaderFactory()
+            .createIndexReader(segmentWriter, _fieldIndexConfigs.get(columnName), columnMetadata);
+        ForwardIndexReaderContext readerContext = forwardIndexReader.createContext()) {
+      if (columnMetadata.hasDictionary()) {
+        try (Dictionary dictionary = DictionaryIndexType.read(
+            segmentWriter.getIndexFor(columnName, StandardIndexes.dictionary()), columnMetadata,
+            DictionaryIndexConfig.DEFAULT)) {
+          for (int i = 0; i < numDocs; i++) {
+            int dictId = forwardIndexReader.getDictId(i, readerContext);
+            if (storedType == DataType.INT || storedType == DataType.LONG) {
+              zoneMapCreator.addLong(dictionary.getLongValue(dictId));
+            } else {
+              zoneMapCreator.addDouble(dictionary.getDoubleValue(dictId));
+            }
+          }
+        }
+      } else {
+        switch (storedType) {
+          case INT:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.addLong(forwardIndexReader.getInt(i, readerContext));
+            }
+            break;
+          case LONG:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.addLong(forwardIndexReader.getLong(i, readerContext));
+            }
+            break;
+          case FLOAT:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.addDouble(forwardIndexReader.getFloat(i, readerContext));
+            }
+            break;
+          case DOUBLE:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.addDouble(forwardIndexReader.getDouble(i, readerContext));
+            }
+            break;
+          default:
+            throw new IllegalStateException("Unsupported data type: " + columnMetadata.getDataType() + " for column: "
+                + columnName);
+        }
+      }
+      zoneMapCreator.seal();
+    }
+  }
+}
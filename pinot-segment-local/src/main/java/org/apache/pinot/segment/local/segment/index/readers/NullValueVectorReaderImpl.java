@@ -24,12 +24,14 @@ import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 
 
 public class NullValueVectorReaderImpl implements NullValueVectorReader {
+  private final PinotDataBuffer _dataBuffer;
 
-  // Cached bitmap to avoid re-deserializing from the underlying buffer on every call.
-  private final ImmutableRoaringBitmap _nullBitmap;
+  // Cached bitmap to avoid re-deserializing from the underlying buffer on every call. It is materialized lazily so
+  // that creating the reader does not read the buffer, which might not be local (e.g. on a remote tier).
+  private volatile ImmutableRoaringBitmap _nullBitmap;
 
   public NullValueVectorReaderImpl(PinotDataBuffer dataBuffer) {
-    _nullBitmap = new ImmutableRoaringBitmap(dataBuffer.toDirectByteBuffer(0, (int) dataBuffer.size()));
+    _dataBuffer = dataBuffer;
   }
 
   public boolean isNull(int docId) {
@@ -38,6 +40,12 @@ public class NullValueVectorReaderImpl implements NullValueVectorReader {
 
   @Override
   public ImmutableRoaringBitmap getNullBitmap() {
-    return _nullBitmap;
+    ImmutableRoaringBitmap nullBitmap = _nullBitmap;
+    if (nullBitmap == null) {
+      // Benign race: concurrent callers may each map an equivalent bitmap
+      nullBitmap = new ImmutableRoaringBitmap(_dataBuffer.toDirectByteBuffer(0, (int) _dataBuffer.size()));
+      _nullBitmap = nullBitmap;
+    }
+    return nullBitmap;
   }
 }
@@ -27,6 +27,7 @@ import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
@@ -38,7 +39,8 @@ import org.slf4j.LoggerFactory;
 
 
 /// Base implementation for chunk-based raw (non-dictionary-encoded) forward index reader.
-public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<ChunkReaderContext> {
+public abstract class BaseChunkForwardIndexReader
+    implements ForwardIndexReader<ChunkReaderContext>, DecompressedChunkCache.CacheableReader {
   private static final Logger LOGGER = LoggerFactory.getLogger(BaseChunkForwardIndexReader.class);
 
   protected final PinotDataBuffer _dataBuffer;
@@ -56,6 +58,11 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
   protected final int _dataHeaderStart;
   protected final int _rawDataStart;
 
+  // Set when the decompressed chunk cache is enabled for the table, chunks are keyed by chunk id
+  @Nullable
+  private DecompressedChunkCache _chunkCache;
+  private long _chunkCacheReaderId;
+
   protected BaseChunkForwardIndexReader(PinotDataBuffer dataBuffer, DataType storedType, boolean isSingleValue) {
     _dataBuffer = dataBuffer;
     _storedType = storedType;
@@ -210,8 +217,13 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
     }
 
     ByteBuffer decompressedBuffer = context.getChunkBuffer();
+    if (_chunkCache != null && _chunkCache.get(_chunkCacheReaderId, chunkId, decompressedBuffer)) {
+      context.setChunkId(chunkId);
+      return decompressedBuffer;
+    }
     decompressedBuffer.clear();
 
+    long startTimeNs = _chunkCache != null ? System.nanoTime() : 0;
     try {
       if (_compressionType == ChunkCompressionType.DELTA || _compressionType == ChunkCompressionType.DELTADELTA) {
         // For delta-based compression, pre-size the output using decompressor's length calculation.
@@ -221,6 +233,9 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
         _chunkDecompressor.decompress(compressedBuffer, decompressedBuffer);
       } else {
         _chunkDecompressor.decompress(_dataBuffer.toDirectByteBuffer(chunkPosition, chunkSize), decompressedBuffer);
+        if (_chunkCache != null) {
+          _chunkCache.put(_chunkCacheReaderId, chunkId, decompressedBuffer, System.nanoTime() - startTimeNs);
+        }
       }
     } catch (IOException e) {
       LOGGER.error("Exception caught while decompressing data chunk", e);
@@ -230,6 +245,16 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
     return decompressedBuffer;
   }
 
+  @Override
+  public void enableChunkCache(DecompressedChunkCache chunkCache) {
+    // Delta encoded chunks are decoded into new buffers and are cheap to decode
+    if (_isCompressed && _compressionType != ChunkCompressionType.DELTA
+        && _compressionType != ChunkCompressionType.DELTADELTA) {
+      _chunkCacheReaderId = DecompressedChunkCache.newReaderId();
+      _chunkCache = chunkCache;
+    }
+  }
+
   /// Helper method to get the offset of the chunk in the data.
   /// @param chunkId Id of the chunk for which to return the position.
   /// @return Position (offset) of the chunk in the data.
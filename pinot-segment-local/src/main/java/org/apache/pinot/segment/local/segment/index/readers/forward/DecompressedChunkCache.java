@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers.forward;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Server wide, size bounded cache of the decompressed chunks of the raw forward indexes, so that the chunks read by
+/// many queries (e.g. the recent time range of a dashboard) are decompressed once instead of once per query.
+///
+/// The entries are keyed by the forward index reader and the chunk. A reader gets a new id when the cache is enabled
+/// on it (see [CacheableReader]), which identifies the segment and column, so that the entries of a reloaded or
+/// replaced segment are never read again. They are not removed explicitly but are evicted first by the LRU policy.
+///
+/// Admission is based on the decompression cost: chunks decompressed faster than the configured threshold are not
+/// cached, as decompressing them again is about as cheap as copying them out of the cache, and they would only evict
+/// the expensive ones.
+///
+/// The decompressed chunks are kept in direct buffers, out of the heap. A hit copies the chunk into the buffer of the
+/// reader context, so the cached chunks are never exposed to the readers and are released by the GC once evicted and
+/// no longer being copied.
+public class DecompressedChunkCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DecompressedChunkCache.class);
+  private static final AtomicLong READER_ID_GENERATOR = new AtomicLong();
+
+  private static volatile DecompressedChunkCache _instance;
+
+  private final Cache<ChunkKey, ByteBuffer> _cache;
+  private final long _minDecompressionTimeNs;
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+  private final ServerMetrics _serverMetrics = ServerMetrics.get();
+
+  @VisibleForTesting
+  DecompressedChunkCache(long maxSizeInBytes, long minDecompressionTimeNs) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid max size: %s for decompressed chunk cache",
+        maxSizeInBytes);
+    _minDecompressionTimeNs = minDecompressionTimeNs;
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeInBytes)
+        .weigher((ChunkKey key, ByteBuffer value) -> value.capacity())
+        .removalListener((RemovalListener<ChunkKey, ByteBuffer>) notification -> _sizeInBytes.addAndGet(
+            -notification.getValue().capacity()))
+        .recordStats()
+        .build();
+  }
+
+  /// Creates the cache from the query executor config (with the [Server#QUERY_EXECUTOR_CONFIG_PREFIX] trimmed), or
+  /// disables it when the configured size is not positive.
+  public static void init(PinotConfiguration queryExecutorConfig) {
+    long maxSizeInBytes = queryExecutorConfig.getProperty(Server.DECOMPRESSED_CHUNK_CACHE_MAX_SIZE_BYTES,
+        Server.DEFAULT_QUERY_EXECUTOR_DECOMPRESSED_CHUNK_CACHE_MAX_SIZE_BYTES);
+    if (maxSizeInBytes > 0) {
+      long minDecompressionTimeNs =
+          queryExecutorConfig.getProperty(Server.DECOMPRESSED_CHUNK_CACHE_MIN_DECOMPRESSION_TIME_NS,
+              Server.DEFAULT_QUERY_EXECUTOR_DECOMPRESSED_CHUNK_CACHE_MIN_DECOMPRESSION_TIME_NS);
+      LOGGER.info("Enabling decompressed chunk cache with max size: {} bytes, min decompression time: {}ns",
+          maxSizeInBytes, minDecompressionTimeNs);
+      DecompressedChunkCache instance = new DecompressedChunkCache(maxSizeInBytes, minDecompressionTimeNs);
+      ServerMetrics serverMetrics = ServerMetrics.get();
+      serverMetrics.setOrUpdateGlobalGauge(ServerGauge.DECOMPRESSED_CHUNK_CACHE_SIZE_BYTES,
+          () -> instance.getSizeInBytes());
+      serverMetrics.setOrUpdateGlobalGauge(ServerGauge.DECOMPRESSED_CHUNK_CACHE_HIT_RATIO_PERCENT,
+          () -> (long) (instance.getHitRate() * 100));
+      _instance = instance;
+    } else {
+      _instance = null;
+    }
+  }
+
+  /// Returns the cache, or `null` if it is disabled.
+  @Nullable
+  public static DecompressedChunkCache getInstance() {
+    return _instance;
+  }
+
+  @VisibleForTesting
+  static void setInstance(@Nullable DecompressedChunkCache instance) {
+    _instance = instance;
+  }
+
+  /// Returns a new id to identify the chunks of a forward index reader in the cache.
+  static long newReaderId() {
+    return READER_ID_GENERATOR.incrementAndGet();
+  }
+
+  /// Copies the cached chunk into the given buffer, ready to be read from position 0, and returns `true`, or returns
+  /// `false` without touching the buffer if the chunk is not cached.
+  public boolean get(long readerId, long chunkKey, ByteBuffer destination) {
+    ByteBuffer chunk = _cache.getIfPresent(new ChunkKey(readerId, chunkKey));
+    if (chunk == null) {
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.DECOMPRESSED_CHUNK_CACHE_MISSES, 1);
+      return false;
+    }
+    _serverMetrics.addMeteredGlobalValue(ServerMeter.DECOMPRESSED_CHUNK_CACHE_HITS, 1);
+    destination.clear();
+    destination.put(chunk.duplicate());
+    destination.flip();
+    return true;
+  }
+
+  /// Offers a chunk just decompressed into the given buffer (from position 0 to its limit), which is cached if its
+  /// decompression took long enough. The buffer is copied and left untouched.
+  public void put(long readerId, long chunkKey, ByteBuffer decompressedChunk, long decompressionTimeNs) {
+    if (decompressionTimeNs < _minDecompressionTimeNs) {
+      return;
+    }
+    ByteBuffer source = decompressedChunk.duplicate();
+    source.position(0);
+    ByteBuffer chunk = ByteBuffer.allocateDirect(source.remaining());
+    chunk.put(source);
+    chunk.flip();
+    if (_cache.asMap().putIfAbsent(new ChunkKey(readerId, chunkKey), chunk) == null) {
+      _sizeInBytes.addAndGet(chunk.capacity());
+    }
+  }
+
+  /// Returns the total size of the cached chunks.
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  /// Returns the ratio of the lookups served from the cache since it was created.
+  public double getHitRate() {
+    return _cache.stats().hitRate();
+  }
+
+  @VisibleForTesting
+  long getNumChunks() {
+    return _cache.size();
+  }
+
+  /// Forward index readers which can serve their chunks from the [DecompressedChunkCache].
+  public interface CacheableReader {
+
+    /// Enables the cache for the chunks read by this reader. Must be called before the reader is used by queries.
+    void enableChunkCache(DecompressedChunkCache chunkCache);
+  }
+
+  private static final class ChunkKey {
+    final long _readerId;
+    final long _chunkKey;
+
+    ChunkKey(long readerId, long chunkKey) {
+      _readerId = readerId;
+      _chunkKey = chunkKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ChunkKey)) {
+        return false;
+      }
+      ChunkKey that = (ChunkKey) o;
+      return _readerId == that._readerId && _chunkKey == that._chunkKey;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(_readerId) + Long.hashCode(_chunkKey);
+    }
+  }
+}
@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
 import org.apache.pinot.segment.local.io.writer.impl.VarByteChunkForwardIndexWriterV4;
 import org.apache.pinot.segment.local.utils.ArraySerDeUtils;
@@ -50,7 +51,8 @@ import org.slf4j.LoggerFactory;
 ///
 /// TODO: Consider reading directly from sliced ByteBuffer instead of copying to byte\[\] first
 public class VarByteChunkForwardIndexReaderV4
-    implements ForwardIndexReader<VarByteChunkForwardIndexReaderV4.ReaderContext> {
+    implements ForwardIndexReader<VarByteChunkForwardIndexReaderV4.ReaderContext>,
+    DecompressedChunkCache.CacheableReader {
   private static final Logger LOGGER = LoggerFactory.getLogger(VarByteChunkForwardIndexReaderV4.class);
   private static final int METADATA_ENTRY_SIZE = 8;
 
@@ -64,6 +66,11 @@ public class VarByteChunkForwardIndexReaderV4
   private final boolean _isSingleValue;
   protected final long _chunksStartOffset;
 
+  // Set when the decompressed chunk cache is enabled for the table, chunks are keyed by offset
+  @Nullable
+  protected DecompressedChunkCache _chunkCache;
+  protected long _chunkCacheReaderId;
+
   public VarByteChunkForwardIndexReaderV4(PinotDataBuffer dataBuffer, FieldSpec.DataType storedType,
       boolean isSingleValue) {
     validateIndexVersion(dataBuffer);
@@ -115,7 +122,15 @@ public class VarByteChunkForwardIndexReaderV4
     return _chunkCompressionType == ChunkCompressionType.PASS_THROUGH ? new UncompressedReaderContext(_chunks,
         _metadata, _chunksStartOffset)
         : new CompressedReaderContext(_metadata, _chunks, _chunksStartOffset, _chunkDecompressor, _chunkCompressionType,
-            _targetDecompressedChunkSize);
+            _targetDecompressedChunkSize, _chunkCache, _chunkCacheReaderId);
+  }
+
+  @Override
+  public void enableChunkCache(DecompressedChunkCache chunkCache) {
+    if (_chunkCompressionType != ChunkCompressionType.PASS_THROUGH) {
+      _chunkCacheReaderId = DecompressedChunkCache.newReaderId();
+      _chunkCache = chunkCache;
+    }
   }
 
   @Override
@@ -398,13 +413,19 @@ public class VarByteChunkForwardIndexReaderV4
     protected final ByteBuffer _decompressedBuffer;
     private final ChunkDecompressor _chunkDecompressor;
     private final ChunkCompressionType _chunkCompressionType;
+    @Nullable
+    private final DecompressedChunkCache _chunkCache;
+    private final long _chunkCacheReaderId;
     private boolean _closed;
 
     CompressedReaderContext(PinotDataBuffer metadata, PinotDataBuffer chunks, long chunkStartOffset,
-        ChunkDecompressor chunkDecompressor, ChunkCompressionType chunkCompressionType, int targetChunkSize) {
+        ChunkDecompressor chunkDecompressor, ChunkCompressionType chunkCompressionType, int targetChunkSize,
+        @Nullable DecompressedChunkCache chunkCache, long chunkCacheReaderId) {
       super(metadata, chunks, chunkStartOffset);
       _chunkDecompressor = chunkDecompressor;
       _chunkCompressionType = chunkCompressionType;
+      _chunkCache = chunkCache;
+      _chunkCacheReaderId = chunkCacheReaderId;
       _decompressedBuffer = ByteBuffer.allocateDirect(targetChunkSize).order(ByteOrder.LITTLE_ENDIAN);
     }
 
@@ -412,11 +433,20 @@ public class VarByteChunkForwardIndexReaderV4
     protected byte[] processChunkAndReadFirstValue(int docId, long offset, long limit)
         throws IOException {
       _decompressedBuffer.clear();
-      ByteBuffer compressed = _chunks.toDirectByteBuffer(offset, (int) (limit - offset));
       if (_regularChunk) {
-        decompressChunk(compressed);
+        if (_chunkCache == null) {
+          decompressChunk(_chunks.toDirectByteBuffer(offset, (int) (limit - offset)));
+        } else if (_chunkCache.get(_chunkCacheReaderId, offset, _decompressedBuffer)) {
+          // The cached chunk is already transformed by decompressChunk()
+          _numDocsInCurrentChunk = _decompressedBuffer.getInt(0);
+        } else {
+          long startTimeNs = System.nanoTime();
+          decompressChunk(_chunks.toDirectByteBuffer(offset, (int) (limit - offset)));
+          _chunkCache.put(_chunkCacheReaderId, offset, _decompressedBuffer, System.nanoTime() - startTimeNs);
+        }
         return readSmallUncompressedValue(docId);
       }
+      ByteBuffer compressed = _chunks.toDirectByteBuffer(offset, (int) (limit - offset));
       // huge value, no benefit from buffering, return the whole thing
       return readHugeCompressedValue(compressed, _chunkDecompressor.decompressedLength(compressed));
     }
@@ -20,6 +20,7 @@ package org.apache.pinot.segment.local.segment.index.readers.forward;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 import org.apache.pinot.segment.local.io.writer.impl.VarByteChunkForwardIndexWriterV6;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
@@ -58,7 +59,7 @@ public class VarByteChunkForwardIndexReaderV6 extends VarByteChunkForwardIndexRe
       return new UncompressedReaderContext(_chunks, _metadata, _chunksStartOffset);
     }
     return new V6CompressedReaderContext(_metadata, _chunks, _chunksStartOffset, _chunkDecompressor,
-        _chunkCompressionType, _targetDecompressedChunkSize);
+        _chunkCompressionType, _targetDecompressedChunkSize, _chunkCache, _chunkCacheReaderId);
   }
 
   /// Converts sizes to cumulative offsets in a single forward pass.
@@ -80,8 +81,10 @@ public class VarByteChunkForwardIndexReaderV6 extends VarByteChunkForwardIndexRe
   private static final class V6CompressedReaderContext extends CompressedReaderContext {
 
     V6CompressedReaderContext(PinotDataBuffer metadata, PinotDataBuffer chunks, long chunkStartOffset,
-        ChunkDecompressor chunkDecompressor, ChunkCompressionType chunkCompressionType, int targetChunkSize) {
-      super(metadata, chunks, chunkStartOffset, chunkDecompressor, chunkCompressionType, targetChunkSize);
+        ChunkDecompressor chunkDecompressor, ChunkCompressionType chunkCompressionType, int targetChunkSize,
+        @Nullable DecompressedChunkCache chunkCache, long chunkCacheReaderId) {
+      super(metadata, chunks, chunkStartOffset, chunkDecompressor, chunkCompressionType, targetChunkSize, chunkCache,
+          chunkCacheReaderId);
     }
 
     @Override
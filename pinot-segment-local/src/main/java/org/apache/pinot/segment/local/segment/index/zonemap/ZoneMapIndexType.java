@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.zonemap;
+
+import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.local.segment.index.loader.zonemap.ZoneMapHandler;
+import org.apache.pinot.segment.local.segment.index.readers.ZoneMapIndexReaderImpl;
+import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.IndexCreationContext;
+import org.apache.pinot.segment.spi.index.AbstractIndexType;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.IndexHandler;
+import org.apache.pinot.segment.spi.index.IndexReaderFactory;
+import org.apache.pinot.segment.spi.index.IndexType;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.ZoneMapIndexConfig;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapIndexReader;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+
+
+/// Zone map index, which keeps the min and max value of each zone of consecutive docs of a single-value numeric
+/// column. It is much smaller than the range index (16 bytes per zone), and allows the scan based filters on raw
+/// columns to skip the zones that cannot match, and to match the zones that fully match without scanning them.
+///
+/// It can be enabled with `"indexes": {"zonemap": {"numDocsPerZone": 4096}}` in the field config.
+public class ZoneMapIndexType extends AbstractIndexType<ZoneMapIndexConfig, ZoneMapIndexReader, ZoneMapIndexCreator> {
+  public static final String INDEX_DISPLAY_NAME = "zonemap";
+  private static final List<String> EXTENSIONS = List.of(V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION);
+
+  protected ZoneMapIndexType() {
+    super(StandardIndexes.ZONE_MAP_ID);
+  }
+
+  @Override
+  public Class<ZoneMapIndexConfig> getIndexConfigClass() {
+    return ZoneMapIndexConfig.class;
+  }
+
+  @Override
+  public ZoneMapIndexConfig getDefaultConfig() {
+    return ZoneMapIndexConfig.DISABLED;
+  }
+
+  @Override
+  public void validate(FieldIndexConfigs indexConfigs, FieldSpec fieldSpec, TableConfig tableConfig) {
+    ZoneMapIndexConfig zoneMapIndexConfig = indexConfigs.getConfig(StandardIndexes.zoneMap());
+    if (zoneMapIndexConfig.isEnabled()) {
+      Preconditions.checkState(fieldSpec.isSingleValueField(), "Cannot create zone map index on multi-value column: %s",
+          fieldSpec.getName());
+      Preconditions.checkState(isSupported(fieldSpec.getDataType().getStoredType()),
+          "Cannot create zone map index on column: %s of stored type: %s", fieldSpec.getName(),
+          fieldSpec.getDataType().getStoredType());
+    }
+  }
+
+  /// Returns whether zone map index is supported for the given stored type.
+  public static boolean isSupported(DataType storedType) {
+    return storedType == DataType.INT || storedType == DataType.LONG || storedType == DataType.FLOAT
+        || storedType == DataType.DOUBLE;
+  }
+
+  @Override
+  public String getPrettyName() {
+    return INDEX_DISPLAY_NAME;
+  }
+
+  @Override
+  public ZoneMapIndexCreator createIndexCreator(IndexCreationContext context, ZoneMapIndexConfig indexConfig) {
+    FieldSpec fieldSpec = context.getFieldSpec();
+    return new ZoneMapIndexCreator(context.getIndexDir(), fieldSpec.getName(), fieldSpec.getDataType().getStoredType(),
+        indexConfig.getNumDocsPerZone(), context.getTotalDocs());
+  }
+
+  @Override
+  public IndexHandler createIndexHandler(SegmentDirectory segmentDirectory, Map<String, FieldIndexConfigs> configsByCol,
+      Schema schema, TableConfig tableConfig) {
+    return new ZoneMapHandler(segmentDirectory, configsByCol, tableConfig, schema);
+  }
+
+  @Override
+  public boolean requiresDictionary(FieldSpec fieldSpec, ZoneMapIndexConfig indexConfig) {
+    // Zone maps store the raw values, so the index does not need a dictionary.
+    return false;
+  }
+
+  @Override
+  public boolean shouldInvalidateOnDictionaryChange(FieldSpec fieldSpec, ZoneMapIndexConfig indexConfig) {
+    // The zone map content only depends on the values, not on the dictionary ids.
+    return false;
+  }
+
+  @Override
+  public List<String> getFileExtensions(@Nullable ColumnMetadata columnMetadata) {
+    return EXTENSIONS;
+  }
+
+  @Override
+  protected IndexReaderFactory<ZoneMapIndexReader> createReaderFactory() {
+    return ReaderFactory.INSTANCE;
+  }
+
+  private static class ReaderFactory extends IndexReaderFactory.Default<ZoneMapIndexConfig, ZoneMapIndexReader> {
+    public static final ReaderFactory INSTANCE = new ReaderFactory();
+
+    @Override
+    protected IndexType<ZoneMapIndexConfig, ZoneMapIndexReader, ?> getIndexType() {
+      return StandardIndexes.zoneMap();
+    }
+
+    @Override
+    protected ZoneMapIndexReader createIndexReader(PinotDataBuffer dataBuffer, ColumnMetadata metadata,
+        ZoneMapIndexConfig indexConfig) {
+      return new ZoneMapIndexReaderImpl(dataBuffer);
+    }
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.segment.local.segment.readers;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,17 +36,29 @@ import org.apache.pinot.segment.spi.IndexSegment;
 ///
 /// The LazyRow has an internal state and should not be used concurrently. To reuse the LazyRow, create an instance
 /// using no arg constructor and re-initialise using [LazyRow#init(IndexSegment, int)]
-public class LazyRow {
+///
+/// The column readers are kept open across re-initializations on the same segment, so that consecutive rows read
+/// from the same segment (e.g. previous records of partial-upsert tables mostly living in the consuming segment) reuse
+/// the reader contexts, such as the decompressed chunks of raw forward indexes, instead of creating them per value.
+/// They are closed when the LazyRow is re-initialized on another segment, or when the LazyRow is closed.
+public class LazyRow implements Closeable {
   private final Map<String, Object> _fieldToValueMap = new HashMap<>();
   private final Set<String> _nullValueFields = new HashSet<>();
+  private final Map<String, PinotSegmentColumnReader> _columnReaders = new HashMap<>();
   private IndexSegment _segment;
   private int _docId;
+  // Segment of the open column readers, kept after clear() to reuse the readers for the next row of the same segment
+  private IndexSegment _columnReadersSegment;
 
   public LazyRow() {
   }
 
   public void init(IndexSegment segment, int docId) {
     clear();
+    if (segment != _columnReadersSegment) {
+      closeColumnReaders();
+      _columnReadersSegment = segment;
+    }
     _segment = segment;
     _docId = docId;
   }
@@ -66,18 +79,13 @@ public class LazyRow {
 
     // compute the _fieldToValueMap or _nullValueFields based on the indexed value
     return _fieldToValueMap.computeIfAbsent(fieldName, col -> {
-      Object value = null;
-      try (PinotSegmentColumnReader columnReader = new PinotSegmentColumnReader(_segment, col)) {
-        if (!columnReader.isNull(_docId)) {
-          value = columnReader.getValue(_docId);
-        } else {
-          _nullValueFields.add(fieldName);
-        }
-      } catch (IOException e) {
-        throw new RuntimeException(
-            String.format("Caught exception while closing pinotSegmentColumnReader for fieldName: %s", fieldName), e);
+      PinotSegmentColumnReader columnReader =
+          _columnReaders.computeIfAbsent(col, k -> new PinotSegmentColumnReader(_segment, k));
+      if (columnReader.isNull(_docId)) {
+        _nullValueFields.add(fieldName);
+        return null;
       }
-      return value;
+      return columnReader.getValue(_docId);
     });
   }
 
@@ -97,4 +105,25 @@ public class LazyRow {
     }
     return _segment.getColumnNames();
   }
+
+  /// Closes the column readers kept open for the last segment.
+  @Override
+  public void close() {
+    clear();
+    closeColumnReaders();
+    _columnReadersSegment = null;
+  }
+
+  private void closeColumnReaders() {
+    for (Map.Entry<String, PinotSegmentColumnReader> entry : _columnReaders.entrySet()) {
+      try {
+        entry.getValue().close();
+      } catch (IOException e) {
+        throw new RuntimeException(
+            String.format("Caught exception while closing pinotSegmentColumnReader for fieldName: %s", entry.getKey()),
+            e);
+      }
+    }
+    _columnReaders.clear();
+  }
 }
@@ -90,6 +90,12 @@ public class PinotSegmentColumnReader implements Closeable {
     return _dictionary != null;
   }
 
+  /// Returns whether the forward index stores dictionary ids, in which case [#getDictId(int)] reads them without
+  /// looking up the values in the dictionary.
+  public boolean isDictionaryEncoded() {
+    return _forwardIndexReader.isDictionaryEncoded();
+  }
+
   @Nullable
   public Dictionary getDictionary() {
     return _dictionary;
@@ -91,6 +91,12 @@ public class PinotSegmentColumnReaderFactory implements ColumnReaderFactory {
         targetSchema.getPhysicalColumnNames().size());
   }
 
+  @Override
+  public boolean supportsConcurrentColumnReads() {
+    // Each column reader reads the segment through its own reader contexts
+    return true;
+  }
+
   @Override
   public Set<String> getAvailableColumns() {
     return _indexSegment.getPhysicalColumnNames();
@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.index.IndexType;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Server wide engine reading the index files of the segments ahead of the query execution, behind
+/// `SegmentDirectory.prefetch(FetchContext)`. The prefetch is issued while the plan is being built, so that the pages
+/// of the indexes listed in the fetch plan are being read from disk while the other segments are planned, and are in
+/// the page cache (shared with the memory mapped buffers) by the time the operators access them, instead of being
+/// faulted in one page at a time on the query threads.
+///
+/// The ranges to read are sorted by offset, the ranges close to each other are coalesced, and the result is split into
+/// batches of up to [#MAX_BATCH_SIZE_BYTES], each read by one of the prefetch threads with positional reads. The
+/// prefetch is best effort: the batches submitted when the queue is full are dropped, and the read failures are
+/// ignored, as the queries read the indexes anyway.
+///
+/// The index directories skip the indexes prefetched less than the configured min interval ago, as their pages are
+/// likely still in the page cache, and prefetch them again after that in case the OS evicted them. An index is only
+/// recorded as prefetched once all its batches were queued, so that a dropped batch is retried by the next query.
+public class AsyncIndexPrefetcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncIndexPrefetcher.class);
+
+  // Ranges separated by less than this gap are read as one range, as reading the gap is cheaper than another read
+  @VisibleForTesting
+  static final long MAX_COALESCE_GAP_BYTES = 64 * 1024;
+  @VisibleForTesting
+  static final long MAX_BATCH_SIZE_BYTES = 4 * 1024 * 1024;
+  private static final int READ_BUFFER_SIZE_BYTES = 1024 * 1024;
+  private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE_BYTES));
+
+  private static volatile AsyncIndexPrefetcher _instance;
+
+  private final ThreadPoolExecutor _executor;
+  private final long _minPrefetchIntervalMs;
+  private final ServerMetrics _serverMetrics = ServerMetrics.get();
+
+  @VisibleForTesting
+  AsyncIndexPrefetcher(int numThreads, int maxQueuedBatches, long minPrefetchIntervalMs) {
+    Preconditions.checkArgument(numThreads > 0, "Invalid number of threads: %s for index prefetch", numThreads);
+    Preconditions.checkArgument(maxQueuedBatches > 0, "Invalid max queued batches: %s for index prefetch",
+        maxQueuedBatches);
+    Preconditions.checkArgument(minPrefetchIntervalMs >= 0, "Invalid min interval: %s for index prefetch",
+        minPrefetchIntervalMs);
+    _minPrefetchIntervalMs = minPrefetchIntervalMs;
+    _executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(maxQueuedBatches),
+        new ThreadFactoryBuilder().setNameFormat("index-prefetch-%d").setDaemon(true).build());
+  }
+
+  /// Creates the prefetcher from the query executor config (with the [Server#QUERY_EXECUTOR_CONFIG_PREFIX] trimmed), or
+  /// disables the async prefetch when the configured number of threads is not positive.
+  public static synchronized void init(PinotConfiguration queryExecutorConfig) {
+    if (_instance != null) {
+      _instance.stop();
+    }
+    int numThreads = queryExecutorConfig.getProperty(Server.INDEX_PREFETCH_NUM_THREADS,
+        Server.DEFAULT_QUERY_EXECUTOR_INDEX_PREFETCH_NUM_THREADS);
+    if (numThreads > 0) {
+      int maxQueuedBatches = queryExecutorConfig.getProperty(Server.INDEX_PREFETCH_MAX_QUEUED_BATCHES,
+          Server.DEFAULT_QUERY_EXECUTOR_INDEX_PREFETCH_MAX_QUEUED_BATCHES);
+      long minPrefetchIntervalMs = queryExecutorConfig.getProperty(Server.INDEX_PREFETCH_MIN_INTERVAL_MS,
+          Server.DEFAULT_QUERY_EXECUTOR_INDEX_PREFETCH_MIN_INTERVAL_MS);
+      LOGGER.info("Enabling async index prefetch with {} threads, max queued batches: {}, min interval: {}ms",
+          numThreads, maxQueuedBatches, minPrefetchIntervalMs);
+      _instance = new AsyncIndexPrefetcher(numThreads, maxQueuedBatches, minPrefetchIntervalMs);
+    } else {
+      _instance = null;
+    }
+  }
+
+  /// Returns the prefetcher, or `null` if the async prefetch is disabled.
+  @Nullable
+  public static AsyncIndexPrefetcher getInstance() {
+    return _instance;
+  }
+
+  @VisibleForTesting
+  static void setInstance(@Nullable AsyncIndexPrefetcher instance) {
+    _instance = instance;
+  }
+
+  /// Returns whether an index last prefetched at the given time (`null` if never prefetched) needs to be prefetched
+  /// again, i.e. its pages might have been evicted from the page cache since then.
+  public boolean needsPrefetch(@Nullable Long lastPrefetchTimeMs, long nowMs) {
+    return lastPrefetchTimeMs == null || nowMs - lastPrefetchTimeMs >= _minPrefetchIntervalMs;
+  }
+
+  /// Reads the given ranges of the file in the background. The returned future completes with `false` right away if
+  /// any batch is dropped because the queue is full, or with `true` when all the batches are read, and never completes
+  /// exceptionally.
+  public CompletableFuture<Boolean> prefetch(File file, List<Range> ranges) {
+    List<List<Range>> batches = toBatches(ranges);
+    CompletableFuture<?>[] futures = new CompletableFuture[batches.size()];
+    for (int i = 0; i < futures.length; i++) {
+      List<Range> batch = batches.get(i);
+      CompletableFuture<Boolean> future = runAsync(() -> readBatch(file, batch));
+      if (future.getNow(true) == Boolean.FALSE) {
+        return future;
+      }
+      futures[i] = future;
+    }
+    return CompletableFuture.allOf(futures).thenApply(v -> true);
+  }
+
+  /// Runs the given prefetch task in the background, or drops it if the queue is full. The returned future completes
+  /// with `false` right away if the task is dropped, or with `true` when the task is run, and never completes
+  /// exceptionally.
+  public CompletableFuture<Boolean> runAsync(Runnable task) {
+    try {
+      return CompletableFuture.runAsync(task, _executor).handle((v, t) -> {
+        if (t != null) {
+          LOGGER.debug("Caught exception while prefetching index data", t);
+        }
+        return true;
+      });
+    } catch (RejectedExecutionException e) {
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.INDEX_PREFETCH_DROPPED_BATCHES, 1);
+      return CompletableFuture.completedFuture(false);
+    }
+  }
+
+  /// Returns whether the given index is needed by the fetch.
+  static boolean isRequested(FetchContext fetchContext, IndexKey indexKey) {
+    Map<String, List<IndexType<?, ?, ?>>> columnToIndexList = fetchContext.getColumnToIndexList();
+    if (!columnToIndexList.containsKey(indexKey._name)) {
+      return false;
+    }
+    List<IndexType<?, ?, ?>> indexTypes = columnToIndexList.get(indexKey._name);
+    return indexTypes == null || indexTypes.contains(indexKey._type);
+  }
+
+  /// Sorts the ranges by offset, coalesces the ranges separated by at most [#MAX_COALESCE_GAP_BYTES], and packs the
+  /// result into batches of at most [#MAX_BATCH_SIZE_BYTES] (the ranges larger than that are split).
+  @VisibleForTesting
+  static List<List<Range>> toBatches(List<Range> ranges) {
+    List<Range> sortedRanges = new ArrayList<>(ranges);
+    sortedRanges.sort(Comparator.comparingLong(Range::getOffset));
+    List<Range> coalescedRanges = new ArrayList<>(sortedRanges.size());
+    long start = -1;
+    long end = -1;
+    for (Range range : sortedRanges) {
+      if (range.getSize() <= 0) {
+        continue;
+      }
+      if (start >= 0 && range.getOffset() <= end + MAX_COALESCE_GAP_BYTES) {
+        end = Math.max(end, range.getOffset() + range.getSize());
+      } else {
+        if (start >= 0) {
+          coalescedRanges.add(new Range(start, end - start));
+        }
+        start = range.getOffset();
+        end = start + range.getSize();
+      }
+    }
+    if (start >= 0) {
+      coalescedRanges.add(new Range(start, end - start));
+    }
+
+    List<List<Range>> batches = new ArrayList<>();
+    List<Range> batch = new ArrayList<>();
+    long batchSize = 0;
+    for (Range range : coalescedRanges) {
+      long offset = range.getOffset();
+      long remaining = range.getSize();
+      while (remaining > 0) {
+        if (batchSize == MAX_BATCH_SIZE_BYTES) {
+          batches.add(batch);
+          batch = new ArrayList<>();
+          batchSize = 0;
+        }
+        long size = Math.min(remaining, MAX_BATCH_SIZE_BYTES - batchSize);
+        batch.add(new Range(offset, size));
+        batchSize += size;
+        offset += size;
+        remaining -= size;
+      }
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  private void readBatch(File file, List<Range> batch) {
+    long numBytesRead = 0;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = READ_BUFFER.get();
+      for (Range range : batch) {
+        long position = range.getOffset();
+        long end = position + range.getSize();
+        while (position < end) {
+          buffer.clear();
+          buffer.limit((int) Math.min(buffer.capacity(), end - position));
+          int numBytes = channel.read(buffer, position);
+          if (numBytes < 0) {
+            break;
+          }
+          position += numBytes;
+          numBytesRead += numBytes;
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Caught exception while prefetching index file: {}", file, e);
+    }
+    _serverMetrics.addMeteredGlobalValue(ServerMeter.INDEX_PREFETCH_BYTES, numBytesRead);
+  }
+
+  private void stop() {
+    _executor.shutdownNow();
+  }
+
+  /// Range of bytes of an index file to prefetch.
+  public static class Range {
+    private final long _offset;
+    private final long _size;
+
+    public Range(long offset, long size) {
+      _offset = offset;
+      _size = size;
+    }
+
+    public long getOffset() {
+      return _offset;
+    }
+
+    public long getSize() {
+      return _size;
+    }
+  }
+}
@@ -28,8 +28,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.index.IndexService;
 import org.apache.pinot.segment.spi.index.IndexType;
 import org.apache.pinot.segment.spi.index.StandardIndexes;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
@@ -50,6 +53,8 @@ class FilePerIndexDirectory extends ColumnIndexDirectory {
   private SegmentMetadataImpl _segmentMetadata;
   private final ReadMode _readMode;
   private final Map<IndexKey, PinotDataBuffer> _indexBuffers = new HashMap<>();
+  // Last time each index was prefetched, which stays in the page cache unless evicted by the OS
+  private final Map<IndexKey, Long> _lastPrefetchTimesMs = new ConcurrentHashMap<>();
 
   /// @param segmentDirectory File pointing to segment directory
   /// @param segmentMetadata segment metadata. Metadata must be fully initialized
@@ -94,6 +99,44 @@ class FilePerIndexDirectory extends ColumnIndexDirectory {
     return indexFile.exists();
   }
 
+  /// Prefetches the files of the indexes needed by the fetch and not prefetched recently.
+  @Override
+  public void prefetchBuffer(FetchContext fetchContext) {
+    AsyncIndexPrefetcher prefetcher = AsyncIndexPrefetcher.getInstance();
+    if (prefetcher == null) {
+      return;
+    }
+    long nowMs = System.currentTimeMillis();
+    for (Map.Entry<String, List<IndexType<?, ?, ?>>> entry : fetchContext.getColumnToIndexList().entrySet()) {
+      String column = entry.getKey();
+      if (_segmentMetadata.getColumnMetadataFor(column) == null) {
+        continue;
+      }
+      List<IndexType<?, ?, ?>> indexTypes =
+          entry.getValue() != null ? entry.getValue() : IndexService.getInstance().getAllIndexes();
+      for (IndexType<?, ?, ?> indexType : indexTypes) {
+        IndexKey indexKey = new IndexKey(column, indexType);
+        if (!prefetcher.needsPrefetch(_lastPrefetchTimesMs.get(indexKey), nowMs)) {
+          continue;
+        }
+        // Only record the index once all its files are queued, so that a dropped batch is retried by the next query
+        boolean queued = false;
+        for (File indexFile : getFilesFor(column, indexType)) {
+          if (indexFile.isFile()) {
+            queued = prefetcher.prefetch(indexFile, List.of(new AsyncIndexPrefetcher.Range(0, indexFile.length())))
+                .getNow(true);
+            if (!queued) {
+              break;
+            }
+          }
+        }
+        if (queued) {
+          _lastPrefetchTimesMs.put(indexKey, nowMs);
+        }
+      }
+    }
+  }
+
   @Override
   public void close()
       throws IOException {
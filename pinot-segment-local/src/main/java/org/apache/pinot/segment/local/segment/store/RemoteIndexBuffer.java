@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+
+
+/// Read-only [PinotDataBuffer] over (a part of) an index kept in the remote index file of a segment. The index data is
+/// fetched into the [RemoteIndexCache] on first access, and fetched again on access after it is evicted, so the index
+/// readers can hold this buffer for the lifetime of the segment.
+///
+/// Small reads within the head of a large index (e.g. the header read when the index reader is created) are served
+/// from the head range while the whole index is not cached, so that loading a segment does not fetch its indexes.
+/// Each read holds a reference to the cached data for its duration, and [#toDirectByteBuffer] returns a copy, so
+/// that the cached data can be released as soon as it is evicted.
+/* package-private */
+class RemoteIndexBuffer extends PinotDataBuffer {
+  private final RemoteIndexRange _range;
+  @Nullable
+  private final RemoteIndexRange _headRange;
+  private final long _offset;
+  private final long _size;
+  private final ByteOrder _byteOrder;
+
+  RemoteIndexBuffer(RemoteIndexRange range, @Nullable RemoteIndexRange headRange) {
+    this(range, headRange, 0, range.getDataSize(), ByteOrder.BIG_ENDIAN);
+  }
+
+  private RemoteIndexBuffer(RemoteIndexRange range, @Nullable RemoteIndexRange headRange, long offset, long size,
+      ByteOrder byteOrder) {
+    super(false);
+    _range = range;
+    _headRange = headRange;
+    _offset = offset;
+    _size = size;
+    _byteOrder = byteOrder;
+  }
+
+  /// Returns a reference to the cached data covering the given bytes, which must be released once done reading.
+  private RemoteIndexRange.CachedData acquire(long offset, long length) {
+    if (_headRange != null && _offset + offset + length <= _headRange.getDataSize() && !_range.isCached()) {
+      return _headRange.acquire();
+    }
+    return _range.acquire();
+  }
+
+  @Override
+  public byte getByte(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Byte.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getByte(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public char getChar(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Character.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getChar(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public short getShort(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Short.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getShort(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public int getInt(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Integer.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getInt(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public long getLong(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Long.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getLong(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public float getFloat(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Float.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getFloat(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public double getDouble(long offset) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, Double.BYTES);
+    try {
+      return cachedData.getBuffer(_byteOrder).getDouble(_offset + offset);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public void copyTo(long offset, byte[] buffer, int destOffset, int size) {
+    RemoteIndexRange.CachedData cachedData = acquire(offset, size);
+    try {
+      cachedData.getBuffer(_byteOrder).copyTo(_offset + offset, buffer, destOffset, size);
+    } finally {
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public long size() {
+    return _size;
+  }
+
+  @Override
+  public ByteOrder order() {
+    return _byteOrder;
+  }
+
+  @Override
+  public PinotDataBuffer view(long start, long end, ByteOrder byteOrder) {
+    return new RemoteIndexBuffer(_range, _headRange, _offset + start, end - start, byteOrder);
+  }
+
+  /// Returns a copy of the bytes, as the cached data might be released while the returned buffer is still in use.
+  @Override
+  public ByteBuffer toDirectByteBuffer(long offset, int size, ByteOrder byteOrder) {
+    ByteBuffer copy = ByteBuffer.allocateDirect(size);
+    RemoteIndexRange.CachedData cachedData = acquire(offset, size);
+    try {
+      copy.put(cachedData.getBuffer(byteOrder).toDirectByteBuffer(_offset + offset, size, byteOrder));
+    } finally {
+      cachedData.release();
+    }
+    return copy.flip().order(byteOrder);
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void release() {
+  }
+
+  @Override
+  public void putByte(long offset, byte value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void putChar(long offset, char value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void putShort(long offset, short value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void putInt(long offset, int value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void putLong(long offset, long value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void putFloat(long offset, float value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void putDouble(long offset, double value) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void readFrom(long offset, byte[] buffer, int srcOffset, int size) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void readFrom(long offset, ByteBuffer buffer) {
+    throw unsupportedWrite();
+  }
+
+  @Override
+  public void readFrom(long offset, File file, long srcOffset, long size) {
+    throw unsupportedWrite();
+  }
+
+  private UnsupportedOperationException unsupportedWrite() {
+    return new UnsupportedOperationException("Cannot write to remote index: " + _range);
+  }
+
+  @Override
+  public String toString() {
+    return "RemoteIndexBuffer{range=" + _range + ", offset=" + _offset + ", size=" + _size + "}";
+  }
+}
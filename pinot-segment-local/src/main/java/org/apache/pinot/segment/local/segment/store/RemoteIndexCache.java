@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import com.google.common.base.Preconditions;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Bounded local cache of the index ranges read from the remote index files of the segments on a remote tier, shared
+/// by all the segments of the tier on the server.
+///
+/// Each cached entry is the whole byte range of one index of one column, or the head of it (see [RemoteIndexRange]),
+/// fetched on first access or when warmed by [RemoteSegmentDirectory#prefetch]. The ranges are kept either in
+/// off-heap memory, or in memory-mapped block files under the cache dir (e.g. on a local SSD) when configured. Once
+/// the cached size exceeds the capacity, the least recently used ranges are evicted, except for the ones pinned by
+/// in-flight queries.
+///
+/// Evicted ranges are released explicitly once the reads in progress on them are done, so the actual usage only
+/// exceeds the capacity by the ranges being read at the time of the eviction.
+@ThreadSafe
+public class RemoteIndexCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteIndexCache.class);
+  private static final String BLOCK_FILE_SUFFIX = ".block";
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final long _capacityBytes;
+  private final File _cacheDir;
+
+  // Cached ranges in access order, i.e. the least recently used range first
+  private final LinkedHashMap<RemoteIndexRange, Boolean> _cachedRanges = new LinkedHashMap<>(16, 0.75f, true);
+  private long _sizeInBytes;
+
+  /// @param capacityBytes max size of the cached index ranges
+  /// @param cacheDir directory to keep the cached index ranges in, or null to keep them in off-heap memory
+  public RemoteIndexCache(long capacityBytes, @Nullable File cacheDir)
+      throws IOException {
+    Preconditions.checkArgument(capacityBytes > 0, "Cache capacity must be positive, got: %s", capacityBytes);
+    _capacityBytes = capacityBytes;
+    _cacheDir = cacheDir;
+    if (cacheDir != null) {
+      FileUtils.forceMkdir(cacheDir);
+      // Block files are deleted as soon as they are mapped, so the leftovers are from a crashed server and unusable.
+      // Only remove the block files, the directory might be shared with other files.
+      File[] staleBlockFiles = cacheDir.listFiles((dir, name) -> name.endsWith(BLOCK_FILE_SUFFIX));
+      if (staleBlockFiles != null) {
+        for (File staleBlockFile : staleBlockFiles) {
+          FileUtils.deleteQuietly(staleBlockFile);
+        }
+      }
+    }
+    LOGGER.info("Initialized remote index cache with capacity: {} bytes in: {}", capacityBytes,
+        cacheDir != null ? cacheDir : "off-heap memory");
+  }
+
+  public long getCapacityBytes() {
+    return _capacityBytes;
+  }
+
+  public synchronized long getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  public synchronized int getNumCachedRanges() {
+    return _cachedRanges.size();
+  }
+
+  /// Pins the range so that it is not evicted until unpinned, and marks it as the most recently used one.
+  synchronized void pin(RemoteIndexRange range) {
+    range._numPins++;
+    _cachedRanges.get(range);
+  }
+
+  synchronized void unpin(RemoteIndexRange range) {
+    Preconditions.checkState(range._numPins > 0, "Range: %s is not pinned", range);
+    range._numPins--;
+    evictIfNeeded(null);
+  }
+
+  /// Drops the given ranges from the cache, e.g. when the segment is closed.
+  synchronized void invalidate(Collection<RemoteIndexRange> ranges) {
+    for (RemoteIndexRange range : ranges) {
+      if (_cachedRanges.remove(range) != null) {
+        _sizeInBytes -= range._size;
+      }
+      range.evict();
+    }
+  }
+
+  /// Reads the range from the remote index file into a local buffer, and validates its magic marker. The returned
+  /// buffer includes the magic marker, and is owned by the caller.
+  PinotDataBuffer fetch(RemoteIndexRange range)
+      throws IOException {
+    long startTimeMs = System.currentTimeMillis();
+    String description = "Remote index range: " + range;
+    PinotDataBuffer buffer;
+    try (InputStream inputStream = range._pinotFS.openRange(range._indexFileUri, range._startOffset, range._size)) {
+      buffer = _cacheDir != null ? readToBlockFile(inputStream, range._size, description)
+          : readToMemory(inputStream, range._size, description);
+    }
+    if (buffer.getLong(0) != SingleFileIndexDirectory.MAGIC_MARKER) {
+      buffer.close();
+      throw new IOException("Missing magic marker for range: " + range + ", index file is possibly corrupted");
+    }
+    LOGGER.debug("Fetched range: {} in {}ms", range, System.currentTimeMillis() - startTimeMs);
+    return buffer;
+  }
+
+  /// Tracks the range fetched by [#fetch] as the most recently used one, and evicts other ranges if needed.
+  synchronized void onCached(RemoteIndexRange range) {
+    _cachedRanges.put(range, Boolean.TRUE);
+    _sizeInBytes += range._size;
+    evictIfNeeded(range);
+  }
+
+  /// Evicts the least recently used unpinned ranges until the cached size is within the capacity. The range just
+  /// cached is skipped as it is about to be read.
+  private void evictIfNeeded(@Nullable RemoteIndexRange rangeToKeep) {
+    Iterator<RemoteIndexRange> iterator = _cachedRanges.keySet().iterator();
+    while (_sizeInBytes > _capacityBytes && iterator.hasNext()) {
+      RemoteIndexRange range = iterator.next();
+      if (range._numPins == 0 && range != rangeToKeep) {
+        iterator.remove();
+        _sizeInBytes -= range._size;
+        range.evict();
+        LOGGER.debug("Evicted range: {}", range);
+      }
+    }
+  }
+
+  private static PinotDataBuffer readToMemory(InputStream inputStream, long size, String description)
+      throws IOException {
+    PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(size, ByteOrder.BIG_ENDIAN, description);
+    try {
+      byte[] bytes = new byte[(int) Math.min(size, READ_BUFFER_SIZE)];
+      long position = 0;
+      while (position < size) {
+        int numBytesRead = inputStream.read(bytes, 0, (int) Math.min(bytes.length, size - position));
+        if (numBytesRead < 0) {
+          throw new EOFException("Remote index file ended before reading: " + size + " bytes");
+        }
+        buffer.readFrom(position, bytes, 0, numBytesRead);
+        position += numBytesRead;
+      }
+    } catch (IOException e) {
+      buffer.close();
+      throw e;
+    }
+    return buffer;
+  }
+
+  private PinotDataBuffer readToBlockFile(InputStream inputStream, long size, String description)
+      throws IOException {
+    File blockFile = new File(_cacheDir, UUID.randomUUID() + BLOCK_FILE_SUFFIX);
+    try {
+      try (FileChannel fileChannel = FileChannel.open(blockFile.toPath(), StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE)) {
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+        long position = 0;
+        while (position < size) {
+          long numBytesRead = fileChannel.transferFrom(channel, position, size - position);
+          if (numBytesRead <= 0) {
+            throw new EOFException("Remote index file ended before reading: " + size + " bytes");
+          }
+          position += numBytesRead;
+        }
+      }
+      return PinotDataBuffer.mapFile(blockFile, true, 0, size, ByteOrder.BIG_ENDIAN, description);
+    } finally {
+      // The mapping stays valid after the file is deleted, and the disk space is reclaimed when it is unmapped
+      FileUtils.deleteQuietly(blockFile);
+    }
+  }
+}
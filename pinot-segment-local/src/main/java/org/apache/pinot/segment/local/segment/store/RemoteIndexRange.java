@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.filesystem.PinotFS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// A byte range inside the remote index file of a segment, together with its local copy when it is cached in the
+/// [RemoteIndexCache]. The range is either a whole entry of the `index_map` (i.e. one index of a column), or the head
+/// of such entry, which is enough to serve the header reads done when the index reader is created.
+///
+/// The local copy is reference counted: the cache holds one reference while the range is cached, and each read holds
+/// one for its duration (see [#acquire]). On eviction, the cache drops its reference and the memory (or the mapping of
+/// the block file) is released as soon as the in-flight reads are done.
+/* package-private */
+class RemoteIndexRange {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteIndexRange.class);
+
+  final IndexKey _key;
+  final PinotFS _pinotFS;
+  final URI _indexFileUri;
+  // Offset and size of the range (including the magic marker) in the remote index file
+  final long _startOffset;
+  final long _size;
+  final RemoteIndexCache _cache;
+
+  // Guarded by the cache
+  int _numPins;
+
+  private volatile CachedData _cachedData;
+
+  RemoteIndexRange(IndexKey key, PinotFS pinotFS, URI indexFileUri, long startOffset, long size,
+      RemoteIndexCache cache) {
+    _key = key;
+    _pinotFS = pinotFS;
+    _indexFileUri = indexFileUri;
+    _startOffset = startOffset;
+    _size = size;
+    _cache = cache;
+  }
+
+  /// Returns a reference to the local copy of the range, fetching it from the remote index file if it is not cached.
+  /// The caller must release the reference once done reading.
+  CachedData acquire() {
+    while (true) {
+      CachedData cachedData = _cachedData;
+      if (cachedData == null) {
+        cachedData = load();
+      }
+      if (cachedData.tryAcquire()) {
+        return cachedData;
+      }
+      // Evicted and released concurrently, fetch again
+    }
+  }
+
+  /// Returns the size of the index data (without the magic marker).
+  long getDataSize() {
+    return _size - SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES;
+  }
+
+  boolean isCached() {
+    return _cachedData != null;
+  }
+
+  private synchronized CachedData load() {
+    CachedData cachedData = _cachedData;
+    if (cachedData == null) {
+      PinotDataBuffer buffer;
+      try {
+        buffer = _cache.fetch(this);
+      } catch (IOException e) {
+        throw new UncheckedIOException(
+            "Caught exception while fetching index: " + _key + " from remote index file: " + _indexFileUri, e);
+      }
+      cachedData = new CachedData(this, buffer);
+      _cachedData = cachedData;
+      _cache.onCached(this);
+    }
+    return cachedData;
+  }
+
+  /// Drops the reference held by the cache, called by the cache on eviction.
+  void evict() {
+    CachedData cachedData = _cachedData;
+    if (cachedData != null) {
+      _cachedData = null;
+      cachedData.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return _indexFileUri + "#" + _key + " : [" + _startOffset + "," + (_startOffset + _size) + ")";
+  }
+
+  /// Reference counted local copy of a range. The buffer is closed when the last reference is released.
+  static final class CachedData {
+    private final RemoteIndexRange _range;
+    // Owns the memory, including the magic marker
+    private final PinotDataBuffer _buffer;
+    private final PinotDataBuffer _bigEndian;
+    private final PinotDataBuffer _littleEndian;
+    // Starts with the reference held by the cache
+    private final AtomicInteger _refCount = new AtomicInteger(1);
+
+    CachedData(RemoteIndexRange range, PinotDataBuffer buffer) {
+      _range = range;
+      _buffer = buffer;
+      long size = buffer.size();
+      _bigEndian = buffer.view(SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES, size, ByteOrder.BIG_ENDIAN);
+      _littleEndian = buffer.view(SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES, size, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /// Returns the index data (without the magic marker) in the given byte order. Only valid while the reference is
+    /// held.
+    PinotDataBuffer getBuffer(ByteOrder byteOrder) {
+      return byteOrder == ByteOrder.BIG_ENDIAN ? _bigEndian : _littleEndian;
+    }
+
+    private boolean tryAcquire() {
+      while (true) {
+        int refCount = _refCount.get();
+        if (refCount == 0) {
+          return false;
+        }
+        if (_refCount.compareAndSet(refCount, refCount + 1)) {
+          return true;
+        }
+      }
+    }
+
+    void release() {
+      if (_refCount.decrementAndGet() == 0) {
+        try {
+          _buffer.close();
+        } catch (IOException e) {
+          LOGGER.warn("Caught exception while releasing cached range: {}", _range, e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,460 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.index.IndexType;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.index.multicolumntext.MultiColumnTextIndexConstants;
+import org.apache.pinot.segment.spi.memory.EmptyIndexBuffer;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.filesystem.PinotFS;
+import org.apache.pinot.spi.filesystem.PinotFSFactory;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// [SegmentDirectory] for V3 segments on a remote tier. Only the metadata, the `index_map` and the indexes kept in
+/// separate files (text, vector and star-tree indexes) stay on the server disk, while the index file `columns.psf` is
+/// kept on a remote [PinotFS] (e.g. the deep store), with its URI recorded in the `columns.psf.remote` file.
+///
+/// The indexes are read lazily: each index of a column is fetched from the remote index file when first accessed, and
+/// kept in the shared [RemoteIndexCache] of the tier. The header reads done when creating the index readers on segment
+/// load only fetch the head of the large indexes (see [#HEAD_RANGE_DATA_SIZE]). [#prefetch] fetches the indexes
+/// needed by a query in the background (with the [AsyncIndexPrefetcher] when enabled) while the query is being
+/// planned, and [#acquire] pins them in the cache until [#release] is called for the same fetch.
+///
+/// The directory is read-only: to modify the indexes (e.g. on reload), the segment is first copied back to the local
+/// disk with [#copyTo].
+public class RemoteSegmentDirectory extends SegmentDirectory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteSegmentDirectory.class);
+
+  /// File in the segment directory holding the URI of the remote index file, replacing the local index file
+  public static final String REMOTE_INDEX_FILE_URI_FILE_NAME = V1Constants.INDEX_FILE_NAME + ".remote";
+  /// Size of the head of an index fetched separately to serve the small reads at the start of the index (e.g. the
+  /// header read by the index reader) while the index is not cached. Smaller indexes are always fetched as a whole.
+  static final int HEAD_RANGE_DATA_SIZE = 4096;
+
+  private final File _indexDir;
+  private final File _segmentDirectory;
+  private final URI _remoteIndexFileUri;
+  private final RemoteIndexCache _cache;
+  private final Map<IndexKey, RemoteIndexRange> _ranges = new TreeMap<>();
+  private final Map<String, List<RemoteIndexRange>> _columnRanges = new HashMap<>();
+  private final List<RemoteIndexRange> _headRanges = new ArrayList<>();
+  private final Map<IndexKey, PinotDataBuffer> _buffers = new TreeMap<>();
+  // Ranges pinned in the cache by fetch id, until the fetch is released
+  private final Map<UUID, List<RemoteIndexRange>> _pinnedRanges = new ConcurrentHashMap<>();
+  private final StarTreeIndexReader _starTreeIndexReader;
+  private final boolean _hasMultiColumnTextIndex;
+  private SegmentMetadataImpl _segmentMetadata;
+  private String _tier;
+  private volatile boolean _closed;
+
+  public RemoteSegmentDirectory(File indexDir, SegmentMetadataImpl segmentMetadata, RemoteIndexCache cache)
+      throws IOException, ConfigurationException {
+    Preconditions.checkArgument(segmentMetadata.getVersion() == SegmentVersion.v3,
+        "Remote segment directory only supports V3 segments, got: %s for segment: %s", segmentMetadata.getVersion(),
+        indexDir);
+    _indexDir = indexDir;
+    _segmentDirectory = SegmentDirectoryPaths.segmentDirectoryFor(indexDir, SegmentVersion.v3);
+    _segmentMetadata = segmentMetadata;
+    _cache = cache;
+    Preconditions.checkState(isIndexFileRemote(_segmentDirectory), "Index file of segment: %s is not on remote tier",
+        indexDir);
+    _remoteIndexFileUri = readRemoteIndexFileUri(_segmentDirectory);
+    PinotFS pinotFS = PinotFSFactory.create(_remoteIndexFileUri.getScheme());
+
+    Properties emptyIndexProperties = null;
+    for (IndexEntry entry : SingleFileIndexDirectory.loadIndexMap(_segmentDirectory).values()) {
+      if (entry._size == 0) {
+        // Entries with size 0 represent empty indices like remote forward index
+        if (emptyIndexProperties == null) {
+          emptyIndexProperties = new Properties();
+          if (segmentMetadata.getCustomMap() != null) {
+            emptyIndexProperties.putAll(segmentMetadata.getCustomMap());
+          }
+        }
+        _buffers.put(entry._key,
+            new EmptyIndexBuffer(emptyIndexProperties, segmentMetadata.getName(), segmentMetadata.getTableName()));
+      } else {
+        RemoteIndexRange range =
+            new RemoteIndexRange(entry._key, pinotFS, _remoteIndexFileUri, entry._startOffset, entry._size, cache);
+        _ranges.put(entry._key, range);
+        _columnRanges.computeIfAbsent(entry._key._name, k -> new ArrayList<>()).add(range);
+        RemoteIndexRange headRange = null;
+        long headRangeSize = SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES + HEAD_RANGE_DATA_SIZE;
+        if (entry._size > headRangeSize) {
+          headRange =
+              new RemoteIndexRange(entry._key, pinotFS, _remoteIndexFileUri, entry._startOffset, headRangeSize, cache);
+          _headRanges.add(headRange);
+        }
+        _buffers.put(entry._key, new RemoteIndexBuffer(range, headRange));
+      }
+    }
+
+    // Star-tree and multi-column text indexes are kept in separate files on the local disk
+    _starTreeIndexReader = segmentMetadata.getStarTreeV2MetadataList() != null ? new StarTreeIndexReader(
+        _segmentDirectory, segmentMetadata, ReadMode.mmap) : null;
+    _hasMultiColumnTextIndex = segmentMetadata.getMultiColumnTextMetadata() != null
+        && SegmentDirectoryPaths.findTextIndexIndexFile(_segmentDirectory, MultiColumnTextIndexConstants.INDEX_DIR_NAME)
+        != null;
+    LOGGER.info("Loaded segment: {} with {} indexes in remote index file: {}", indexDir, _ranges.size(),
+        _remoteIndexFileUri);
+  }
+
+  /// Returns whether the index file in the given (V3) segment directory has been moved to a remote tier.
+  public static boolean isIndexFileRemote(File segmentDirectory) {
+    return new File(segmentDirectory, REMOTE_INDEX_FILE_URI_FILE_NAME).exists() && !new File(segmentDirectory,
+        V1Constants.INDEX_FILE_NAME).exists();
+  }
+
+  /// Moves the index file in the given (V3) segment directory to the given remote URI. The upload is skipped when the
+  /// remote index file already exists (e.g. uploaded by another replica), so the URI must identify the content of the
+  /// index file.
+  public static void offloadIndexFile(File segmentDirectory, URI remoteIndexFileUri)
+      throws Exception {
+    File indexFile = new File(segmentDirectory, V1Constants.INDEX_FILE_NAME);
+    Preconditions.checkState(indexFile.exists(), "Missing index file: %s", indexFile);
+    PinotFS pinotFS = PinotFSFactory.create(remoteIndexFileUri.getScheme());
+    if (pinotFS.exists(remoteIndexFileUri) && pinotFS.length(remoteIndexFileUri) == indexFile.length()) {
+      LOGGER.info("Remote index file: {} already exists, skip uploading: {}", remoteIndexFileUri, indexFile);
+    } else {
+      // Upload to a temporary file first so that a partially uploaded file is never used
+      URI tmpUri = URI.create(remoteIndexFileUri + "." + UUID.randomUUID() + ".tmp");
+      pinotFS.copyFromLocalFile(indexFile, tmpUri);
+      pinotFS.move(tmpUri, remoteIndexFileUri, true);
+      LOGGER.info("Uploaded index file: {} to: {}", indexFile, remoteIndexFileUri);
+    }
+    FileUtils.writeStringToFile(new File(segmentDirectory, REMOTE_INDEX_FILE_URI_FILE_NAME),
+        remoteIndexFileUri.toString(), StandardCharsets.UTF_8);
+    FileUtils.delete(indexFile);
+  }
+
+  /// Downloads the remote index file back into the given (V3) segment directory, if it has been moved to a remote
+  /// tier. Returns whether the index file is restored.
+  public static boolean restoreIndexFile(File segmentDirectory)
+      throws Exception {
+    if (!isIndexFileRemote(segmentDirectory)) {
+      return false;
+    }
+    downloadIndexFile(readRemoteIndexFileUri(segmentDirectory), segmentDirectory);
+    return true;
+  }
+
+  private static void downloadIndexFile(URI remoteIndexFileUri, File segmentDirectory)
+      throws Exception {
+    File indexFile = new File(segmentDirectory, V1Constants.INDEX_FILE_NAME);
+    File tmpIndexFile = new File(segmentDirectory, V1Constants.INDEX_FILE_NAME + ".tmp");
+    PinotFSFactory.create(remoteIndexFileUri.getScheme()).copyToLocalFile(remoteIndexFileUri, tmpIndexFile);
+    FileUtils.moveFile(tmpIndexFile, indexFile);
+    FileUtils.deleteQuietly(new File(segmentDirectory, REMOTE_INDEX_FILE_URI_FILE_NAME));
+    LOGGER.info("Downloaded index file: {} from: {}", indexFile, remoteIndexFileUri);
+  }
+
+  private static URI readRemoteIndexFileUri(File segmentDirectory)
+      throws IOException {
+    return URI.create(FileUtils.readFileToString(new File(segmentDirectory, REMOTE_INDEX_FILE_URI_FILE_NAME),
+        StandardCharsets.UTF_8).trim());
+  }
+
+  public URI getRemoteIndexFileUri() {
+    return _remoteIndexFileUri;
+  }
+
+  @Override
+  public URI getIndexDir() {
+    return _indexDir.toURI();
+  }
+
+  @Override
+  public SegmentMetadataImpl getSegmentMetadata() {
+    return _segmentMetadata;
+  }
+
+  @Override
+  public void reloadMetadata()
+      throws Exception {
+    _segmentMetadata = new SegmentMetadataImpl(_indexDir);
+  }
+
+  @Override
+  public Path getPath() {
+    return _segmentDirectory.toPath();
+  }
+
+  /// Returns the size of the segment files on the local disk, which does not include the remote index file.
+  @Override
+  public long getDiskSizeBytes() {
+    return FileUtils.sizeOfDirectory(_segmentDirectory);
+  }
+
+  @Override
+  public Set<String> getColumnsWithIndex(IndexType<?, ?, ?> type) {
+    Set<String> columns = new HashSet<>();
+    if (type == StandardIndexes.text()) {
+      columns.addAll(TextIndexUtils.getColumnsWithTextIndex(_segmentDirectory, _segmentMetadata.getAllColumns()));
+    }
+    if (type == StandardIndexes.vector()) {
+      columns.addAll(VectorIndexUtils.getColumnsWithVectorIndex(_segmentDirectory, _segmentMetadata.getAllColumns()));
+    }
+    for (IndexKey indexKey : _buffers.keySet()) {
+      if (indexKey._type == type) {
+        columns.add(indexKey._name);
+      }
+    }
+    return columns;
+  }
+
+  /// Fetches the indexes needed by the fetch which are not cached yet, in the background when the
+  /// [AsyncIndexPrefetcher] is enabled. The indexes are not pinned, as the prefetch might not be followed by a
+  /// [#release]. Failures are only logged, and the indexes are fetched again when accessed.
+  @Override
+  public void prefetch(FetchContext fetchContext) {
+    List<RemoteIndexRange> ranges = new ArrayList<>();
+    for (RemoteIndexRange range : getRanges(fetchContext)) {
+      if (!range.isCached()) {
+        ranges.add(range);
+      }
+    }
+    if (ranges.isEmpty()) {
+      return;
+    }
+    AsyncIndexPrefetcher prefetcher = AsyncIndexPrefetcher.getInstance();
+    if (prefetcher != null) {
+      prefetcher.runAsync(() -> fetch(ranges));
+    } else {
+      fetch(ranges);
+    }
+  }
+
+  private void fetch(List<RemoteIndexRange> ranges) {
+    try {
+      for (RemoteIndexRange range : ranges) {
+        if (_closed) {
+          return;
+        }
+        range.acquire().release();
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while prefetching indexes of segment: {}", _indexDir, e);
+    }
+  }
+
+  /// Pins the indexes needed by the fetch in the cache, and blocks until they are all fetched.
+  @Override
+  public void acquire(FetchContext fetchContext) {
+    pinAndFetch(fetchContext);
+  }
+
+  @Override
+  public void release(FetchContext fetchContext) {
+    List<RemoteIndexRange> ranges = _pinnedRanges.remove(fetchContext.getFetchId());
+    if (ranges != null) {
+      for (RemoteIndexRange range : ranges) {
+        _cache.unpin(range);
+      }
+    }
+  }
+
+  private void pinAndFetch(FetchContext fetchContext) {
+    List<RemoteIndexRange> ranges = _pinnedRanges.get(fetchContext.getFetchId());
+    if (ranges == null) {
+      ranges = getRanges(fetchContext);
+      if (ranges.isEmpty()) {
+        return;
+      }
+      _pinnedRanges.put(fetchContext.getFetchId(), ranges);
+      for (RemoteIndexRange range : ranges) {
+        _cache.pin(range);
+      }
+    }
+    for (RemoteIndexRange range : ranges) {
+      range.acquire().release();
+    }
+  }
+
+  private List<RemoteIndexRange> getRanges(FetchContext fetchContext) {
+    List<RemoteIndexRange> ranges = new ArrayList<>();
+    for (Map.Entry<String, List<IndexType<?, ?, ?>>> entry : fetchContext.getColumnToIndexList().entrySet()) {
+      String column = entry.getKey();
+      List<IndexType<?, ?, ?>> indexTypes = entry.getValue();
+      if (indexTypes == null) {
+        ranges.addAll(_columnRanges.getOrDefault(column, List.of()));
+      } else {
+        for (IndexType<?, ?, ?> indexType : indexTypes) {
+          RemoteIndexRange range = _ranges.get(new IndexKey(column, indexType));
+          if (range != null) {
+            ranges.add(range);
+          }
+        }
+      }
+    }
+    return ranges;
+  }
+
+  /// Copies the segment to the given local directory, including the index file downloaded from the remote tier.
+  @Override
+  public void copyTo(File dest)
+      throws Exception {
+    if (!_indexDir.equals(dest)) {
+      FileUtils.copyDirectory(_indexDir, dest);
+    }
+    downloadIndexFile(_remoteIndexFileUri, SegmentDirectoryPaths.segmentDirectoryFor(dest, SegmentVersion.v3));
+  }
+
+  @Nullable
+  @Override
+  public String getTier() {
+    return _tier;
+  }
+
+  @Override
+  public void setTier(@Nullable String tier) {
+    _tier = tier;
+  }
+
+  @Override
+  public Reader createReader() {
+    return new Reader();
+  }
+
+  @Override
+  public Writer createWriter() {
+    throw new UnsupportedOperationException(
+        "Cannot modify indexes of segment: " + _indexDir + " on remote tier, copy it to local disk first");
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _closed = true;
+    for (List<RemoteIndexRange> ranges : _pinnedRanges.values()) {
+      for (RemoteIndexRange range : ranges) {
+        _cache.unpin(range);
+      }
+    }
+    _pinnedRanges.clear();
+    _cache.invalidate(_ranges.values());
+    _cache.invalidate(_headRanges);
+    if (_starTreeIndexReader != null) {
+      _starTreeIndexReader.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return _indexDir + " (index file: " + _remoteIndexFileUri + ")";
+  }
+
+  public class Reader extends SegmentDirectory.Reader {
+
+    @Override
+    public PinotDataBuffer getIndexFor(String column, IndexType<?, ?, ?> type) {
+      PinotDataBuffer buffer = _buffers.get(new IndexKey(column, type));
+      if (buffer == null) {
+        throw new RuntimeException(
+            SingleFileIndexDirectory.INDEX_NOT_FOUND_MESSAGE_PREFIX + ": " + column + ", type: " + type + ", segment: "
+                + _indexDir);
+      }
+      return buffer;
+    }
+
+    @Override
+    public boolean hasIndexFor(String column, IndexType<?, ?, ?> type) {
+      if (type == StandardIndexes.text() && TextIndexUtils.hasTextIndex(_segmentDirectory, column)) {
+        return true;
+      }
+      if (type == StandardIndexes.vector() && VectorIndexUtils.hasVectorIndex(_segmentDirectory, column)) {
+        return true;
+      }
+      return _buffers.containsKey(new IndexKey(column, type));
+    }
+
+    @Override
+    public boolean hasStarTreeIndex() {
+      return _starTreeIndexReader != null;
+    }
+
+    @Override
+    public boolean hasMultiColumnTextIndex() {
+      return _hasMultiColumnTextIndex;
+    }
+
+    @Override
+    public SegmentDirectory.Reader getStarTreeIndexReader(int starTreeId) {
+      return new SegmentDirectory.Reader() {
+        @Override
+        public PinotDataBuffer getIndexFor(String column, IndexType<?, ?, ?> type)
+            throws IOException {
+          return _starTreeIndexReader.getBuffer(starTreeId, column, type);
+        }
+
+        @Override
+        public boolean hasIndexFor(String column, IndexType<?, ?, ?> type) {
+          return _starTreeIndexReader.hasIndexFor(starTreeId, column, type);
+        }
+
+        @Override
+        public String toString() {
+          return _starTreeIndexReader.toString() + " for " + starTreeId;
+        }
+
+        @Override
+        public void close() {
+          // Noop as _starTreeIndexReader is owned by the segment directory
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+      return RemoteSegmentDirectory.this.toString();
+    }
+  }
+}
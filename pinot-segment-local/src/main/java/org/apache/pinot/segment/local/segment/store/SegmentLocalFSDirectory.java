@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.index.IndexType;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
@@ -219,6 +220,22 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     return _columnIndexDirectory.getColumnsWithIndex(type);
   }
 
+  /// Reads the indexes needed by the fetch into the page cache in the background, with the [AsyncIndexPrefetcher], so
+  /// that the queries do not page fault on the memory mapped buffers. The prefetch is skipped in heap mode, where the
+  /// indexes are already loaded.
+  @Override
+  public void prefetch(FetchContext fetchContext) {
+    ColumnIndexDirectory columnIndexDirectory = _columnIndexDirectory;
+    if (_readMode != ReadMode.mmap || columnIndexDirectory == null || AsyncIndexPrefetcher.getInstance() == null) {
+      return;
+    }
+    try {
+      columnIndexDirectory.prefetchBuffer(fetchContext);
+    } catch (Exception e) {
+      LOGGER.debug("Caught exception while prefetching indexes of segment: {}", _indexDir, e);
+    }
+  }
+
   public Reader createReader()
       throws IOException {
 
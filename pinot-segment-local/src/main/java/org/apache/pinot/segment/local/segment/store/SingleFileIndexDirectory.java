@@ -36,10 +36,12 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.V1Constants;
 import org.apache.pinot.segment.spi.index.IndexType;
 import org.apache.pinot.segment.spi.index.StandardIndexes;
@@ -76,8 +78,8 @@ import org.slf4j.LoggerFactory;
 class SingleFileIndexDirectory extends ColumnIndexDirectory {
   private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileIndexDirectory.class);
 
-  private static final long MAGIC_MARKER = 0xdeadbeefdeafbeadL;
-  private static final int MAGIC_MARKER_SIZE_BYTES = 8;
+  static final long MAGIC_MARKER = 0xdeadbeefdeafbeadL;
+  static final int MAGIC_MARKER_SIZE_BYTES = 8;
 
   /// Prefix of the [RuntimeException] message thrown when a requested index is absent from the
   /// segment directory. Single source of truth: [FilePerIndexDirectory] reuses it for the same
@@ -101,6 +103,8 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
   private final File _indexFile;
   private final TreeMap<IndexKey, IndexEntry> _columnEntries;
   private final List<PinotDataBuffer> _allocBuffers;
+  // Last time each index was prefetched, which stays in the page cache unless evicted by the OS
+  private final Map<IndexKey, Long> _lastPrefetchTimesMs = new ConcurrentHashMap<>();
 
   // For V3 segment format, the index cleanup consists of two steps: mark and sweep.
   // The removeIndex() method marks an index to be removed; and the index info is
@@ -175,6 +179,32 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
     return _columnEntries.containsKey(key);
   }
 
+  /// Prefetches the ranges of the index file holding the indexes needed by the fetch and not prefetched recently.
+  @Override
+  public void prefetchBuffer(FetchContext fetchContext) {
+    AsyncIndexPrefetcher prefetcher = AsyncIndexPrefetcher.getInstance();
+    if (prefetcher == null) {
+      return;
+    }
+    long nowMs = System.currentTimeMillis();
+    List<IndexKey> indexKeys = new ArrayList<>();
+    List<AsyncIndexPrefetcher.Range> ranges = new ArrayList<>();
+    for (IndexEntry entry : _columnEntries.values()) {
+      // Skip the empty indexes (e.g. remote forward index)
+      if (entry._size > 0 && AsyncIndexPrefetcher.isRequested(fetchContext, entry._key)
+          && prefetcher.needsPrefetch(_lastPrefetchTimesMs.get(entry._key), nowMs)) {
+        indexKeys.add(entry._key);
+        ranges.add(new AsyncIndexPrefetcher.Range(entry._startOffset, entry._size));
+      }
+    }
+    // Only record the indexes once all their batches are queued, so that a dropped batch is retried by the next query
+    if (!ranges.isEmpty() && prefetcher.prefetch(_indexFile, ranges).getNow(true)) {
+      for (IndexKey indexKey : indexKeys) {
+        _lastPrefetchTimesMs.put(indexKey, nowMs);
+      }
+    }
+  }
+
   private PinotDataBuffer checkAndGetIndexBuffer(String column, IndexType<?, ?, ?> type) {
     IndexKey key = new IndexKey(column, type);
     IndexEntry entry = _columnEntries.get(key);
@@ -240,24 +270,31 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
 
   private void loadMap()
       throws ConfigurationException {
-    File mapFile = new File(_segmentDirectory, V1Constants.INDEX_MAP_FILE_NAME);
+    _columnEntries.putAll(loadIndexMap(_segmentDirectory));
+  }
+
+  /// Reads the index entries (without buffers) from the `index_map` file in the given segment directory.
+  static TreeMap<IndexKey, IndexEntry> loadIndexMap(File segmentDirectory)
+      throws ConfigurationException {
+    TreeMap<IndexKey, IndexEntry> columnEntries = new TreeMap<>();
+    File mapFile = new File(segmentDirectory, V1Constants.INDEX_MAP_FILE_NAME);
 
     PropertiesConfiguration mapConfig = CommonsConfigurationUtils.fromFile(mapFile);
 
     for (String key : CommonsConfigurationUtils.getKeys(mapConfig)) {
-      String[] parsedKeys = ColumnIndexUtils.parseIndexMapKeys(key, _segmentDirectory.getPath());
+      String[] parsedKeys = ColumnIndexUtils.parseIndexMapKeys(key, segmentDirectory.getPath());
       IndexKey indexKey;
       try {
         indexKey = IndexKey.fromIndexName(parsedKeys[0], parsedKeys[1]);
       } catch (IllegalArgumentException e) {
         LOGGER.warn("Skipping unknown index type: {} for column: {} in segment: {}", parsedKeys[1], parsedKeys[0],
-            _segmentDirectory);
+            segmentDirectory);
         continue;
       }
-      IndexEntry entry = _columnEntries.get(indexKey);
+      IndexEntry entry = columnEntries.get(indexKey);
       if (entry == null) {
         entry = new IndexEntry(indexKey);
-        _columnEntries.put(indexKey, entry);
+        columnEntries.put(indexKey, entry);
       }
 
       if (parsedKeys[2].equals(ColumnIndexUtils.MAP_KEY_NAME_START_OFFSET)) {
@@ -266,19 +303,20 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
         entry._size = mapConfig.getLong(key);
       } else {
         throw new ConfigurationException(
-            "Invalid map file key: " + key + ", segmentDirectory: " + _segmentDirectory.toString());
+            "Invalid map file key: " + key + ", segmentDirectory: " + segmentDirectory.toString());
       }
     }
 
     // validation
-    for (Map.Entry<IndexKey, IndexEntry> colIndexEntry : _columnEntries.entrySet()) {
+    for (Map.Entry<IndexKey, IndexEntry> colIndexEntry : columnEntries.entrySet()) {
       IndexEntry entry = colIndexEntry.getValue();
       if (entry._size < 0 || entry._startOffset < 0) {
         throw new ConfigurationException(
-            "Invalid map entry for key: " + colIndexEntry.getKey().toString() + ", segment: " + _segmentDirectory
+            "Invalid map entry for key: " + colIndexEntry.getKey().toString() + ", segment: " + segmentDirectory
                 .toString());
       }
     }
+    return columnEntries;
   }
 
   private void mapBufferEntries() throws IOException {
@@ -179,6 +179,14 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
       _newSegmentTrackingTimeMs = trackingTimeMs;
     }
     _serverMetrics = ServerMetrics.get();
+    if (cmode == UpsertConfig.ConsistencyMode.SNAPSHOT) {
+      _serverMetrics.setOrUpdatePartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_VIEW_LAG_MS,
+          _upsertViewManager::getUpsertViewLagMs);
+      _serverMetrics.setOrUpdatePartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_VIEW_EPOCH,
+          _upsertViewManager::getUpsertViewEpoch);
+      _serverMetrics.setOrUpdatePartitionGauge(_tableNameWithType, _partitionId,
+          ServerGauge.UPSERT_VIEW_RETIRED_BITMAPS, _upsertViewManager::getNumRetiredBitmaps);
+    }
     _logger = LoggerFactory.getLogger(tableNameWithType + "-" + partitionId + "-" + getClass().getSimpleName());
     if (isTTLEnabled()) {
       Preconditions.checkState(_comparisonColumns.size() == 1,
@@ -1179,6 +1187,11 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
       }
     }
     doClose();
+    if (_context.getConsistencyMode() == UpsertConfig.ConsistencyMode.SNAPSHOT) {
+      _serverMetrics.removePartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_VIEW_LAG_MS);
+      _serverMetrics.removePartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_VIEW_EPOCH);
+      _serverMetrics.removePartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_VIEW_RETIRED_BITMAPS);
+    }
     // We don't remove the segment from the metadata manager when
     // it's closed. This was done to make table deletion faster. Since we don't remove the segment, we never decrease
     // the primary key count. So, we set the primary key count to 0 here.
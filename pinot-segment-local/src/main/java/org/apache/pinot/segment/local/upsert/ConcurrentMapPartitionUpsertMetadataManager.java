@@ -361,6 +361,11 @@ public class ConcurrentMapPartitionUpsertMetadataManager extends BasePartitionUp
     _previousKeyToRecordLocationMap.clear();
   }
 
+  @Override
+  protected void doClose() {
+    _reusePreviousRow.close();
+  }
+
   @Override
   protected boolean doAddRecord(MutableSegment segment, RecordInfo recordInfo) {
     AtomicBoolean isOutOfOrderRecord = new AtomicBoolean(false);
@@ -482,6 +482,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes
     _previousKeyToRecordLocationMap.clear();
   }
 
+  @Override
+  protected void doClose() {
+    _reusePreviousRow.close();
+  }
+
   @Override
   protected boolean doAddRecord(MutableSegment segment, RecordInfo recordInfo) {
     AtomicBoolean isOutOfOrderRecord = new AtomicBoolean(false);
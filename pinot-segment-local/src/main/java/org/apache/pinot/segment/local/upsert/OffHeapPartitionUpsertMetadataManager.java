@@ -0,0 +1,654 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
+import org.apache.pinot.segment.local.segment.readers.LazyRow;
+import org.apache.pinot.segment.local.segment.readers.PrimaryKeyReader;
+import org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/// Implementation of [PartitionUpsertMetadataManager] that is backed by an [OffHeapPrimaryKeyIndex].
+///
+/// The primary key hashes are stored off-heap along with the packed record locations (segment ordinal and doc id) and
+/// the comparison values, so that the heap usage no longer grows with the number of primary keys. The segments are
+/// referenced through ordinals assigned when they first get a key, and released when they are untracked. Keys still
+/// pointing to a released ordinal (only for the segments skipped on removal because they are out of metadata TTL) are
+/// treated as absent, and are cleaned up when removing the expired primary keys.
+///
+/// Only the tables where the record location fits in the fixed width slots are supported (see [#isSupported]):
+/// - The primary key hash function produces at most 16 bytes (MD5, MURMUR3, XXHASH or XXH128)
+/// - There is a single numeric (INT, LONG, FLOAT or DOUBLE stored type) comparison column
+/// - Deleted keys compaction consistency is not enabled
+///
+/// The behavior is otherwise the same as [ConcurrentMapPartitionUpsertMetadataManager], including snapshot, preload
+/// and the tracking of the previous record locations for the tables that can be inconsistent during consumption.
+///
+/// The index can be tuned with the upsert metadata manager configs [#NUM_SHARDS_KEY] and [#INITIAL_CAPACITY_KEY].
+@SuppressWarnings({"rawtypes", "unchecked"})
+@ThreadSafe
+public class OffHeapPartitionUpsertMetadataManager extends BasePartitionUpsertMetadataManager {
+  public static final String NUM_SHARDS_KEY = "offHeapNumShards";
+  public static final int DEFAULT_NUM_SHARDS = 8;
+  public static final String INITIAL_CAPACITY_KEY = "offHeapInitialCapacity";
+  public static final int DEFAULT_INITIAL_CAPACITY = 4096;
+
+  // Used to initialize a reference to previous row for merging in partial upsert
+  private final LazyRow _reusePreviousRow = new LazyRow();
+  private final Map<String, Object> _reuseMergeResultHolder = new HashMap<>();
+
+  private final boolean _floatingPointComparison;
+  private final PinotDataBufferMemoryManager _memoryManager;
+
+  @VisibleForTesting
+  final OffHeapPrimaryKeyIndex _primaryKeyIndex;
+
+  @VisibleForTesting
+  final ConcurrentHashMap<Object, RecordLocation> _previousKeyToRecordLocationMap = new ConcurrentHashMap<>();
+
+  private final Map<IndexSegment, Integer> _segmentToOrdinalMap = new ConcurrentHashMap<>();
+  private final Map<Integer, IndexSegment> _ordinalToSegmentMap = new ConcurrentHashMap<>();
+  private final AtomicInteger _nextSegmentOrdinal = new AtomicInteger(1);
+
+  public OffHeapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId, UpsertContext context) {
+    super(tableNameWithType, partitionId, context);
+    FieldSpec.DataType comparisonStoredType = getComparisonStoredType(context);
+    if (!isSupported(context, comparisonStoredType)) {
+      throw new IllegalArgumentException(
+          String.format("Off-heap upsert metadata is not supported for table: %s, context: %s", tableNameWithType,
+              context));
+    }
+    _floatingPointComparison =
+        comparisonStoredType == FieldSpec.DataType.FLOAT || comparisonStoredType == FieldSpec.DataType.DOUBLE;
+    Map<String, String> configs = context.getMetadataManagerConfigs();
+    int numShards = DEFAULT_NUM_SHARDS;
+    int initialCapacity = DEFAULT_INITIAL_CAPACITY;
+    if (configs != null) {
+      numShards = Integer.parseInt(configs.getOrDefault(NUM_SHARDS_KEY, Integer.toString(DEFAULT_NUM_SHARDS)));
+      initialCapacity =
+          Integer.parseInt(configs.getOrDefault(INITIAL_CAPACITY_KEY, Integer.toString(DEFAULT_INITIAL_CAPACITY)));
+    }
+    String allocationContext = tableNameWithType + "_" + partitionId + ".upsertPrimaryKeyIndex";
+    _memoryManager = new DirectMemoryManager(allocationContext);
+    _primaryKeyIndex = new OffHeapPrimaryKeyIndex(_memoryManager, allocationContext, numShards, initialCapacity);
+  }
+
+  /// Returns whether the upsert metadata of the table can be kept in an [OffHeapPrimaryKeyIndex].
+  public static boolean isSupported(UpsertContext context) {
+    return isSupported(context, getComparisonStoredType(context));
+  }
+
+  private static boolean isSupported(UpsertContext context, @Nullable FieldSpec.DataType comparisonStoredType) {
+    HashFunction hashFunction = context.getHashFunction();
+    if (hashFunction != HashFunction.MD5 && hashFunction != HashFunction.MURMUR3 && hashFunction != HashFunction.XXHASH
+        && hashFunction != HashFunction.XXH128) {
+      return false;
+    }
+    if (context.isEnableDeletedKeysCompactionConsistency() || comparisonStoredType == null) {
+      return false;
+    }
+    switch (comparisonStoredType) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @Nullable
+  private static FieldSpec.DataType getComparisonStoredType(UpsertContext context) {
+    List<String> comparisonColumns = context.getComparisonColumns();
+    if (comparisonColumns.size() != 1) {
+      return null;
+    }
+    FieldSpec fieldSpec = context.getSchema().getFieldSpecFor(comparisonColumns.get(0));
+    return fieldSpec != null && fieldSpec.isSingleValueField() ? fieldSpec.getDataType().getStoredType() : null;
+  }
+
+  @Override
+  protected long getNumPrimaryKeys() {
+    return _primaryKeyIndex.size();
+  }
+
+  /// Returns the size of the off-heap memory used by the primary key index.
+  public long getPrimaryKeyIndexSizeInBytes() {
+    return _primaryKeyIndex.getSizeInBytes();
+  }
+
+  @Override
+  protected void doAddOrReplaceSegment(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      @Nullable ThreadSafeMutableRoaringBitmap queryableDocIds, Iterator<RecordInfo> recordInfoIterator,
+      @Nullable IndexSegment oldSegment, @Nullable MutableRoaringBitmap validDocIdsForOldSegment) {
+    if (_partialUpsertHandler != null) {
+      recordInfoIterator = resolveComparisonTies(recordInfoIterator, _hashFunction);
+    }
+    String segmentName = segment.getSegmentName();
+    segment.enableUpsert(this, validDocIds, queryableDocIds);
+    int segmentOrdinal = getOrAssignSegmentOrdinal(segment);
+
+    int numKeysInWrongSegment = 0;
+    while (recordInfoIterator.hasNext()) {
+      RecordInfo recordInfo = recordInfoIterator.next();
+      int newDocId = recordInfo.getDocId();
+      Comparable newComparisonValue = recordInfo.getComparisonValue();
+      long newEncodedComparisonValue = encodeComparisonValue(newComparisonValue);
+      long newLocation = OffHeapPrimaryKeyIndex.getLocation(segmentOrdinal, newDocId);
+      ByteArray primaryKey = hashPrimaryKey(recordInfo.getPrimaryKey());
+      byte[] keyHash = primaryKey.getBytes();
+      long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+      long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+      OffHeapPrimaryKeyIndex.Shard shard = _primaryKeyIndex.getShard(k0, k1);
+      synchronized (shard) {
+        int slot = shard.find(k0, k1);
+        IndexSegment currentSegment = slot >= 0 ? getSegment(shard.getLocation(slot)) : null;
+        if (currentSegment == null) {
+          // New primary key
+          addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+          putRecordLocation(shard, slot, k0, k1, newLocation, newEncodedComparisonValue);
+          continue;
+        }
+
+        // Existing primary key
+        int currentDocId = OffHeapPrimaryKeyIndex.getDocId(shard.getLocation(slot));
+        int comparisonResult =
+            compareEncodedComparisonValues(newEncodedComparisonValue, shard.getComparisonValue(slot));
+
+        // The current record is in the same segment
+        // Update the record location when there is a tie to keep the newer record. Note that the record info iterator
+        // will return records with incremental doc ids.
+        if (currentSegment == segment) {
+          if (comparisonResult >= 0) {
+            replaceDocId(segment, validDocIds, queryableDocIds, currentDocId, newDocId, recordInfo);
+            shard.set(slot, newLocation, newEncodedComparisonValue);
+          }
+          continue;
+        }
+
+        // The current record is in an old segment being replaced
+        // See ConcurrentMapPartitionUpsertMetadataManager for more details.
+        if (currentSegment == oldSegment) {
+          if (comparisonResult >= 0) {
+            if (validDocIdsForOldSegment == null && oldSegment.getValidDocIds() != null) {
+              // Update the old segment's bitmap in place if a copy of the bitmap was not provided.
+              replaceDocId(segment, validDocIds, queryableDocIds, oldSegment, currentDocId, newDocId, recordInfo);
+            } else {
+              addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+              if (validDocIdsForOldSegment != null) {
+                validDocIdsForOldSegment.remove(currentDocId);
+              }
+            }
+            removePreviousRecordLocation(primaryKey, currentSegment);
+            shard.set(slot, newLocation, newEncodedComparisonValue);
+          } else {
+            trackPreviousRecordLocation(primaryKey, currentSegment, segment, newDocId, newComparisonValue);
+          }
+          continue;
+        }
+
+        // This should not happen because the previously replaced segment should have all keys removed. We still
+        // handle it here, and also track the number of keys not properly replaced previously.
+        String currentSegmentName = currentSegment.getSegmentName();
+        if (currentSegmentName.equals(segmentName)) {
+          numKeysInWrongSegment++;
+          if (comparisonResult >= 0) {
+            addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+            removePreviousRecordLocation(primaryKey, currentSegment);
+            shard.set(slot, newLocation, newEncodedComparisonValue);
+          } else {
+            trackPreviousRecordLocation(primaryKey, currentSegment, segment, newDocId, newComparisonValue);
+          }
+          continue;
+        }
+
+        // The current record is in a different segment
+        // Update the record location when getting a newer comparison value, or the value is the same as the current
+        // value, but the segment has a larger sequence number (the segment is newer than the current segment).
+        if (comparisonResult > 0 || (comparisonResult == 0 && shouldReplaceOnComparisonTie(segmentName,
+            currentSegmentName, getAuthoritativeUpdateOrCreationTime(segment),
+            getAuthoritativeUpdateOrCreationTime(currentSegment)))) {
+          replaceDocId(segment, validDocIds, queryableDocIds, currentSegment, currentDocId, newDocId, recordInfo);
+          removePreviousRecordLocation(primaryKey, currentSegment);
+          shard.set(slot, newLocation, newEncodedComparisonValue);
+        } else {
+          trackPreviousRecordLocation(primaryKey, currentSegment, segment, newDocId, newComparisonValue);
+        }
+      }
+    }
+    if (numKeysInWrongSegment > 0) {
+      _logger.warn("Found {} primary keys in the wrong segment when adding segment: {}", numKeysInWrongSegment,
+          segmentName);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.UPSERT_KEYS_IN_WRONG_SEGMENT,
+          numKeysInWrongSegment);
+    }
+  }
+
+  @Override
+  protected void addSegmentWithoutUpsert(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      @Nullable ThreadSafeMutableRoaringBitmap queryableDocIds, Iterator<RecordInfo> recordInfoIterator) {
+    segment.enableUpsert(this, validDocIds, queryableDocIds);
+    int segmentOrdinal = getOrAssignSegmentOrdinal(segment);
+    while (recordInfoIterator.hasNext()) {
+      RecordInfo recordInfo = recordInfoIterator.next();
+      int newDocId = recordInfo.getDocId();
+      addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+      byte[] keyHash = hashPrimaryKey(recordInfo.getPrimaryKey()).getBytes();
+      long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+      long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+      OffHeapPrimaryKeyIndex.Shard shard = _primaryKeyIndex.getShard(k0, k1);
+      synchronized (shard) {
+        putRecordLocation(shard, shard.find(k0, k1), k0, k1, OffHeapPrimaryKeyIndex.getLocation(segmentOrdinal,
+            newDocId), encodeComparisonValue(recordInfo.getComparisonValue()));
+      }
+    }
+  }
+
+  @Override
+  protected void removeSegment(IndexSegment segment, Iterator<PrimaryKey> primaryKeyIterator) {
+    Integer segmentOrdinal = _segmentToOrdinalMap.get(segment);
+    if (segmentOrdinal == null) {
+      // No key points to the segment
+      return;
+    }
+    while (primaryKeyIterator.hasNext()) {
+      ByteArray primaryKey = hashPrimaryKey(primaryKeyIterator.next());
+      byte[] keyHash = primaryKey.getBytes();
+      long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+      long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+      OffHeapPrimaryKeyIndex.Shard shard = _primaryKeyIndex.getShard(k0, k1);
+      synchronized (shard) {
+        int slot = shard.find(k0, k1);
+        if (slot >= 0 && OffHeapPrimaryKeyIndex.getSegmentOrdinal(shard.getLocation(slot)) == segmentOrdinal) {
+          removePreviousRecordLocation(primaryKey, segment);
+          shard.remove(slot);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void revertAndRemoveSegment(IndexSegment segment,
+      Iterator<Map.Entry<Integer, PrimaryKey>> primaryKeyIterator) {
+    while (primaryKeyIterator.hasNext()) {
+      Map.Entry<Integer, PrimaryKey> primaryKeyEntry = primaryKeyIterator.next();
+      int docId = primaryKeyEntry.getKey();
+      ByteArray primaryKey = hashPrimaryKey(primaryKeyEntry.getValue());
+      byte[] keyHash = primaryKey.getBytes();
+      long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+      long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+      OffHeapPrimaryKeyIndex.Shard shard = _primaryKeyIndex.getShard(k0, k1);
+      synchronized (shard) {
+        int slot = shard.find(k0, k1);
+        if (slot < 0) {
+          continue;
+        }
+        IndexSegment currentSegment = getSegment(shard.getLocation(slot));
+        if (currentSegment == null) {
+          shard.remove(slot);
+        } else if (currentSegment == segment) {
+          RecordLocation prevLocation = _previousKeyToRecordLocationMap.remove(primaryKey);
+          if (prevLocation == null) {
+            shard.remove(slot);
+            continue;
+          }
+          // Revert to previous segment location
+          IndexSegment prevSegment = prevLocation.getSegment();
+          ThreadSafeMutableRoaringBitmap prevValidDocIds = prevSegment.getValidDocIds();
+          if (prevValidDocIds != null) {
+            try (UpsertUtils.RecordInfoReader recordInfoReader = new UpsertUtils.RecordInfoReader(prevSegment,
+                _primaryKeyColumns, _comparisonColumns, _deleteRecordColumn)) {
+              int prevDocId = prevLocation.getDocId();
+              RecordInfo recordInfo = recordInfoReader.getRecordInfo(prevDocId);
+              replaceDocId(prevSegment, prevValidDocIds, prevSegment.getQueryableDocIds(), segment, docId, prevDocId,
+                  recordInfo);
+              shard.set(slot, OffHeapPrimaryKeyIndex.getLocation(getOrAssignSegmentOrdinal(prevSegment), prevDocId),
+                  encodeComparisonValue(prevLocation.getComparisonValue()));
+            } catch (Exception e) {
+              _logger.error("Failed to revert to previous segment: {}, removing key", prevSegment.getSegmentName(), e);
+              shard.remove(slot);
+            }
+          } else {
+            // Should not happen
+            _logger.error("Failed to find valid doc ids in previous segment: {}, removing key",
+                prevSegment.getSegmentName());
+            shard.remove(slot);
+          }
+        } else if (currentSegment instanceof ImmutableSegmentImpl) {
+          // The consuming segment's key is in a different immutable segment
+          _previousKeyToRecordLocationMap.remove(primaryKey);
+        } else {
+          _logger.warn("Consuming segment: {} has added the primary key for docId: {} from the segment: {}, suggesting"
+                  + " that consumption is occurring concurrently with segment replacement, which is undesirable for "
+                  + "consistency between replicas for the table: {}.", currentSegment.getSegmentName(), docId,
+              segment.getSegmentName(), _tableNameWithType);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void removeSegment(IndexSegment segment, MutableRoaringBitmap validDocIds) {
+    try (PrimaryKeyReader primaryKeyReader = new PrimaryKeyReader(segment, _primaryKeyColumns)) {
+      if (shouldRevertMetadataOnInconsistency(segment)) {
+        revertAndRemoveSegment(segment, UpsertUtils.getRecordIterator(primaryKeyReader, validDocIds));
+      } else {
+        removeSegment(segment, UpsertUtils.getPrimaryKeyIterator(primaryKeyReader, validDocIds));
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(
+          String.format("Caught exception while removing segment: %s, table: %s, message: %s", segment.getSegmentName(),
+              _tableNameWithType, e.getMessage()), e);
+    }
+  }
+
+  @Override
+  public void doRemoveExpiredPrimaryKeys() {
+    AtomicInteger numMetadataTTLKeysRemoved = new AtomicInteger();
+    AtomicInteger numDeletedTTLKeysRemoved = new AtomicInteger();
+    AtomicInteger numTotalKeysMarkForDeletion = new AtomicInteger();
+    AtomicInteger numDeletedKeysWithinTTLWindow = new AtomicInteger();
+    AtomicInteger numReleasedSegmentKeysRemoved = new AtomicInteger();
+    double largestSeenComparisonValue = _largestSeenComparisonValue.get();
+    double metadataTTLKeysThreshold =
+        _metadataTTL > 0 ? largestSeenComparisonValue - _metadataTTL : Double.NEGATIVE_INFINITY;
+    double deletedKeysThreshold =
+        _deletedKeysTTL > 0 ? largestSeenComparisonValue - _deletedKeysTTL : Double.NEGATIVE_INFINITY;
+    _primaryKeyIndex.removeIf((location, encodedComparisonValue) -> {
+      IndexSegment segment = getSegment(location);
+      if (segment == null) {
+        // Key of a segment removed while out of metadata TTL
+        numReleasedSegmentKeysRemoved.getAndIncrement();
+        return true;
+      }
+      double comparisonValue = decodeComparisonValueAsDouble(encodedComparisonValue);
+      if (_metadataTTL > 0 && comparisonValue < metadataTTLKeysThreshold) {
+        numMetadataTTLKeysRemoved.getAndIncrement();
+        return true;
+      }
+      if (_deletedKeysTTL > 0) {
+        ThreadSafeMutableRoaringBitmap currentQueryableDocIds = segment.getQueryableDocIds();
+        int docId = OffHeapPrimaryKeyIndex.getDocId(location);
+        // if key not part of queryable doc id, it means it is deleted
+        if (currentQueryableDocIds != null && !currentQueryableDocIds.contains(docId)) {
+          numTotalKeysMarkForDeletion.getAndIncrement();
+          if (comparisonValue >= deletedKeysThreshold) {
+            // If key is within the TTL window, do not remove it from the primary key index
+            numDeletedKeysWithinTTLWindow.getAndIncrement();
+          } else {
+            // delete key from primary key index
+            removeDocId(segment, docId);
+            numDeletedTTLKeysRemoved.getAndIncrement();
+            return true;
+          }
+        }
+      }
+      return false;
+    });
+
+    // Update metrics
+    updatePrimaryKeyGauge();
+    int numMetadataTTLKeys = numMetadataTTLKeysRemoved.get();
+    if (numMetadataTTLKeys > 0) {
+      _logger.info("Deleted {} primary keys based on metadataTTL", numMetadataTTLKeys);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.METADATA_TTL_PRIMARY_KEYS_REMOVED,
+          numMetadataTTLKeys);
+    }
+    int numDeletedTTLKeys = numDeletedTTLKeysRemoved.get();
+    if (numDeletedTTLKeys > 0) {
+      _logger.info("Deleted {} primary keys based on deletedKeysTTL", numDeletedTTLKeys);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_KEYS_TTL_PRIMARY_KEYS_REMOVED,
+          numDeletedTTLKeys);
+    }
+    int numTotalKeysMarkedForDeletion = numTotalKeysMarkForDeletion.get();
+    if (numTotalKeysMarkedForDeletion > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.TOTAL_KEYS_MARKED_FOR_DELETION,
+          numTotalKeysMarkedForDeletion);
+    }
+    int numDeletedKeysWithinTTLWindowValue = numDeletedKeysWithinTTLWindow.get();
+    if (numDeletedKeysWithinTTLWindowValue > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_KEYS_WITHIN_TTL_WINDOW,
+          numDeletedKeysWithinTTLWindowValue);
+    }
+    int numReleasedSegmentKeys = numReleasedSegmentKeysRemoved.get();
+    if (numReleasedSegmentKeys > 0) {
+      _logger.info("Deleted {} primary keys of removed segments", numReleasedSegmentKeys);
+    }
+  }
+
+  @Override
+  protected int getPrevKeyToRecordLocationSize() {
+    return _previousKeyToRecordLocationMap.size();
+  }
+
+  @Override
+  protected void clearPrevKeyToRecordLocation() {
+    _previousKeyToRecordLocationMap.clear();
+  }
+
+  @Override
+  protected boolean doAddRecord(MutableSegment segment, RecordInfo recordInfo) {
+    boolean isOutOfOrderRecord = false;
+    ThreadSafeMutableRoaringBitmap validDocIds = Objects.requireNonNull(segment.getValidDocIds());
+    ThreadSafeMutableRoaringBitmap queryableDocIds = segment.getQueryableDocIds();
+    int newDocId = recordInfo.getDocId();
+    Comparable newComparisonValue = recordInfo.getComparisonValue();
+    long newEncodedComparisonValue = encodeComparisonValue(newComparisonValue);
+
+    // When TTL is enabled, update largestSeenComparisonValue when adding new record
+    if (isTTLEnabled()) {
+      double comparisonValue = ((Number) newComparisonValue).doubleValue();
+      _largestSeenComparisonValue.getAndUpdate(v -> Math.max(v, comparisonValue));
+    }
+    long newLocation = OffHeapPrimaryKeyIndex.getLocation(getOrAssignSegmentOrdinal(segment), newDocId);
+    ByteArray primaryKey = hashPrimaryKey(recordInfo.getPrimaryKey());
+    byte[] keyHash = primaryKey.getBytes();
+    long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+    long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+    OffHeapPrimaryKeyIndex.Shard shard = _primaryKeyIndex.getShard(k0, k1);
+    synchronized (shard) {
+      int slot = shard.find(k0, k1);
+      IndexSegment currentSegment = slot >= 0 ? getSegment(shard.getLocation(slot)) : null;
+      if (currentSegment != null) {
+        // Existing primary key
+        long currentEncodedComparisonValue = shard.getComparisonValue(slot);
+        // Update the record location when the new comparison value is greater than or equal to the current value.
+        // Update the record location when there is a tie to keep the newer record.
+        if (compareEncodedComparisonValues(newEncodedComparisonValue, currentEncodedComparisonValue) >= 0) {
+          int currentDocId = OffHeapPrimaryKeyIndex.getDocId(shard.getLocation(slot));
+          if (segment == currentSegment) {
+            replaceDocId(segment, validDocIds, queryableDocIds, currentDocId, newDocId, recordInfo);
+          } else {
+            // See ConcurrentMapPartitionUpsertMetadataManager for the tracking of the previous record location
+            if (_context.isTableTypeInconsistentDuringConsumption() && !(currentSegment instanceof MutableSegment)) {
+              _previousKeyToRecordLocationMap.put(primaryKey, new RecordLocation(currentSegment, currentDocId,
+                  decodeComparisonValue(currentEncodedComparisonValue)));
+            }
+            replaceDocId(segment, validDocIds, queryableDocIds, currentSegment, currentDocId, newDocId, recordInfo);
+          }
+          shard.set(slot, newLocation, newEncodedComparisonValue);
+        } else {
+          // Out-of-order record
+          handleOutOfOrderEvent(decodeComparisonValue(currentEncodedComparisonValue), newComparisonValue);
+          isOutOfOrderRecord = true;
+        }
+      } else {
+        // New primary key
+        addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+        putRecordLocation(shard, slot, k0, k1, newLocation, newEncodedComparisonValue);
+      }
+    }
+
+    updatePrimaryKeyGauge();
+    return !isOutOfOrderRecord;
+  }
+
+  @Override
+  protected GenericRow doUpdateRecord(GenericRow record, RecordInfo recordInfo) {
+    assert _partialUpsertHandler != null;
+    byte[] keyHash = hashPrimaryKey(recordInfo.getPrimaryKey()).getBytes();
+    long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+    long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+    OffHeapPrimaryKeyIndex.Shard shard = _primaryKeyIndex.getShard(k0, k1);
+    synchronized (shard) {
+      int slot = shard.find(k0, k1);
+      if (slot < 0) {
+        return record;
+      }
+      long location = shard.getLocation(slot);
+      IndexSegment currentSegment = getSegment(location);
+      // Read the previous record if the following conditions are met:
+      // - New record is not a DELETE record
+      // - New record is not out-of-order
+      // - Previous record is not deleted
+      if (currentSegment != null && !recordInfo.isDeleteRecord()
+          && compareEncodedComparisonValues(encodeComparisonValue(recordInfo.getComparisonValue()),
+          shard.getComparisonValue(slot)) >= 0) {
+        ThreadSafeMutableRoaringBitmap currentQueryableDocIds = currentSegment.getQueryableDocIds();
+        int currentDocId = OffHeapPrimaryKeyIndex.getDocId(location);
+        if (currentQueryableDocIds == null || currentQueryableDocIds.contains(currentDocId)) {
+          try {
+            _reusePreviousRow.init(currentSegment, currentDocId);
+            _partialUpsertHandler.merge(_reusePreviousRow, record, _reuseMergeResultHolder);
+          } finally {
+            _reuseMergeResultHolder.clear();
+            _reusePreviousRow.clear();
+          }
+        }
+      }
+    }
+    return record;
+  }
+
+  @Override
+  protected void untrackSegment(IndexSegment segment) {
+    super.untrackSegment(segment);
+    Integer segmentOrdinal = _segmentToOrdinalMap.remove(segment);
+    if (segmentOrdinal != null) {
+      _ordinalToSegmentMap.remove(segmentOrdinal);
+    }
+  }
+
+  @Override
+  protected void doClose()
+      throws IOException {
+    _logger.info("Releasing {} bytes of off-heap primary key index", _primaryKeyIndex.getSizeInBytes());
+    _primaryKeyIndex.close();
+    _memoryManager.close();
+    _segmentToOrdinalMap.clear();
+    _ordinalToSegmentMap.clear();
+    _reusePreviousRow.close();
+  }
+
+  private ByteArray hashPrimaryKey(PrimaryKey primaryKey) {
+    return (ByteArray) HashUtils.hashPrimaryKey(primaryKey, _hashFunction);
+  }
+
+  /// Assigns a new ordinal to the segment when it first gets a key. Ordinals are never reused, so that the keys left
+  /// behind by a released segment can never point to another segment.
+  private int getOrAssignSegmentOrdinal(IndexSegment segment) {
+    return _segmentToOrdinalMap.computeIfAbsent(segment, k -> {
+      int segmentOrdinal = _nextSegmentOrdinal.getAndIncrement();
+      if (segmentOrdinal <= 0) {
+        throw new IllegalStateException("Ran out of segment ordinals for table: " + _tableNameWithType);
+      }
+      _ordinalToSegmentMap.put(segmentOrdinal, k);
+      return segmentOrdinal;
+    });
+  }
+
+  @VisibleForTesting
+  @Nullable
+  IndexSegment getSegment(long location) {
+    return _ordinalToSegmentMap.get(OffHeapPrimaryKeyIndex.getSegmentOrdinal(location));
+  }
+
+  private static void putRecordLocation(OffHeapPrimaryKeyIndex.Shard shard, int slot, long k0, long k1, long location,
+      long encodedComparisonValue) {
+    if (slot >= 0) {
+      shard.set(slot, location, encodedComparisonValue);
+    } else {
+      shard.put(k0, k1, location, encodedComparisonValue);
+    }
+  }
+
+  private void removePreviousRecordLocation(Object primaryKey, IndexSegment currentSegment) {
+    if (_context.isTableTypeInconsistentDuringConsumption() && currentSegment instanceof MutableSegment) {
+      _previousKeyToRecordLocationMap.remove(primaryKey);
+    }
+  }
+
+  private void trackPreviousRecordLocation(Object primaryKey, IndexSegment currentSegment, IndexSegment segment,
+      int docId, Comparable comparisonValue) {
+    if (_context.isTableTypeInconsistentDuringConsumption() && currentSegment instanceof MutableSegment) {
+      RecordLocation prevRecordLocation = _previousKeyToRecordLocationMap.get(primaryKey);
+      if (prevRecordLocation == null || compareEncodedComparisonValues(encodeComparisonValue(comparisonValue),
+          encodeComparisonValue(prevRecordLocation.getComparisonValue())) >= 0) {
+        _previousKeyToRecordLocationMap.put(primaryKey, new RecordLocation(segment, docId, comparisonValue));
+      }
+    }
+  }
+
+  private long encodeComparisonValue(Comparable comparisonValue) {
+    Number number = (Number) comparisonValue;
+    return _floatingPointComparison ? Double.doubleToLongBits(number.doubleValue()) : number.longValue();
+  }
+
+  private Comparable decodeComparisonValue(long encodedComparisonValue) {
+    return _floatingPointComparison ? Double.valueOf(Double.longBitsToDouble(encodedComparisonValue))
+        : Long.valueOf(encodedComparisonValue);
+  }
+
+  private double decodeComparisonValueAsDouble(long encodedComparisonValue) {
+    return _floatingPointComparison ? Double.longBitsToDouble(encodedComparisonValue) : encodedComparisonValue;
+  }
+
+  private int compareEncodedComparisonValues(long encodedComparisonValue1, long encodedComparisonValue2) {
+    if (_floatingPointComparison) {
+      return Double.compare(Double.longBitsToDouble(encodedComparisonValue1),
+          Double.longBitsToDouble(encodedComparisonValue2));
+    }
+    return Long.compare(encodedComparisonValue1, encodedComparisonValue2);
+  }
+}
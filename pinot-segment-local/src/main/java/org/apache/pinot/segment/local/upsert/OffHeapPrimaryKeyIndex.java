@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+
+
+/// Off-heap hash table from fixed width (up to 16 bytes) primary key hashes to packed record locations, used by
+/// [OffHeapPartitionUpsertMetadataManager] to keep the upsert metadata out of the Java heap.
+///
+/// The table is split into shards, each of them being an open addressing (linear probing) hash table stored in a
+/// [PinotDataBuffer] allocated from the given [PinotDataBufferMemoryManager]. Each slot takes 32 bytes:
+/// - 2 longs for the key hash
+/// - 1 long for the record location, `0` for an empty slot (see [#getLocation])
+/// - 1 long for the comparison value, encoded by the caller
+///
+/// A shard doubles its capacity when it is more than 3/4 full, by allocating a new buffer and rehashing the entries,
+/// and removes entries with backward shift deletion so that no tombstone is left behind.
+///
+/// All the slot level accesses must be done while holding the lock of the shard (synchronize on the [Shard]). A slot
+/// index is only valid until the next [Shard#put] or [Shard#remove] on the same shard.
+@ThreadSafe
+public class OffHeapPrimaryKeyIndex implements Closeable {
+  public static final int SLOT_SIZE = 32;
+  private static final int LOCATION_OFFSET = 16;
+  private static final int COMPARISON_VALUE_OFFSET = 24;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final PinotDataBufferMemoryManager _memoryManager;
+  private final String _allocationContext;
+  private final Shard[] _shards;
+  private final int _shardMask;
+
+  /// @param numShards number of shards, rounded up to a power of 2
+  /// @param initialCapacity initial number of slots of each shard, rounded up to a power of 2
+  public OffHeapPrimaryKeyIndex(PinotDataBufferMemoryManager memoryManager, String allocationContext, int numShards,
+      int initialCapacity) {
+    Preconditions.checkArgument(numShards > 0 && numShards <= 1024, "Invalid number of shards: %s", numShards);
+    Preconditions.checkArgument(initialCapacity > 0 && initialCapacity <= MAX_CAPACITY, "Invalid initial capacity: %s",
+        initialCapacity);
+    _memoryManager = memoryManager;
+    _allocationContext = allocationContext;
+    int roundedNumShards = roundUpToPowerOf2(numShards);
+    int capacity = Math.max(roundUpToPowerOf2(initialCapacity), 2);
+    _shards = new Shard[roundedNumShards];
+    for (int i = 0; i < roundedNumShards; i++) {
+      _shards[i] = new Shard(capacity);
+    }
+    _shardMask = roundedNumShards - 1;
+  }
+
+  /// Returns the `index`-th (0 or 1) long of a key hash of at most 16 bytes, read in big-endian order and padded with
+  /// 0s.
+  public static long getKeyPart(byte[] keyHash, int index) {
+    long value = 0;
+    int start = index << 3;
+    int end = Math.min(start + 8, keyHash.length);
+    for (int i = start; i < start + 8; i++) {
+      value = (value << 8) | (i < end ? keyHash[i] & 0xFF : 0);
+    }
+    return value;
+  }
+
+  /// Returns the record location packed from the segment ordinal (must be positive) and the doc id.
+  public static long getLocation(int segmentOrdinal, int docId) {
+    return ((long) segmentOrdinal << 32) | (docId & 0xFFFFFFFFL);
+  }
+
+  public static int getSegmentOrdinal(long location) {
+    return (int) (location >>> 32);
+  }
+
+  public static int getDocId(long location) {
+    return (int) location;
+  }
+
+  public Shard getShard(long k0, long k1) {
+    return _shards[(int) (hash(k0, k1) >>> 32) & _shardMask];
+  }
+
+  /// Returns the number of keys in the table. Not atomic across shards.
+  public long size() {
+    long size = 0;
+    for (Shard shard : _shards) {
+      synchronized (shard) {
+        size += shard._size;
+      }
+    }
+    return size;
+  }
+
+  /// Returns the size of the off-heap memory currently held by the table.
+  public long getSizeInBytes() {
+    long sizeInBytes = 0;
+    for (Shard shard : _shards) {
+      synchronized (shard) {
+        sizeInBytes += (long) shard._capacity * SLOT_SIZE;
+      }
+    }
+    return sizeInBytes;
+  }
+
+  /// Removes the entries matching the filter from all the shards, and returns the number of entries removed. The
+  /// filter is invoked while holding the shard lock.
+  public int removeIf(EntryFilter filter) {
+    int numRemoved = 0;
+    for (Shard shard : _shards) {
+      synchronized (shard) {
+        numRemoved += shard.removeIf(filter);
+      }
+    }
+    return numRemoved;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    for (Shard shard : _shards) {
+      synchronized (shard) {
+        shard._buffer.close();
+      }
+    }
+  }
+
+  private static long hash(long k0, long k1) {
+    // Murmur3 fmix64, so that key hashes that are not uniformly distributed are still spread across slots and shards
+    long h = k0 ^ Long.rotateLeft(k1, 31);
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static int roundUpToPowerOf2(int value) {
+    return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  @FunctionalInterface
+  public interface EntryFilter {
+    boolean test(long location, long comparisonValue);
+  }
+
+  public final class Shard {
+    private PinotDataBuffer _buffer;
+    private int _capacity;
+    private int _mask;
+    private int _size;
+
+    private Shard(int capacity) {
+      _buffer = allocate(capacity);
+      _capacity = capacity;
+      _mask = capacity - 1;
+    }
+
+    private PinotDataBuffer allocate(int capacity) {
+      PinotDataBuffer buffer;
+      // The memory manager is not thread safe, and it is shared by all the shards
+      synchronized (_memoryManager) {
+        buffer = _memoryManager.allocate((long) capacity * SLOT_SIZE, _allocationContext);
+      }
+      for (int slot = 0; slot < capacity; slot++) {
+        buffer.putLong(offset(slot) + LOCATION_OFFSET, 0L);
+      }
+      return buffer;
+    }
+
+    private long offset(int slot) {
+      return (long) slot * SLOT_SIZE;
+    }
+
+    /// Returns the slot of the key, or `-1` if the key does not exist.
+    public int find(long k0, long k1) {
+      int slot = (int) hash(k0, k1) & _mask;
+      while (true) {
+        long offset = offset(slot);
+        if (_buffer.getLong(offset + LOCATION_OFFSET) == 0L) {
+          return -1;
+        }
+        if (_buffer.getLong(offset) == k0 && _buffer.getLong(offset + 8) == k1) {
+          return slot;
+        }
+        slot = (slot + 1) & _mask;
+      }
+    }
+
+    public long getLocation(int slot) {
+      return _buffer.getLong(offset(slot) + LOCATION_OFFSET);
+    }
+
+    public long getComparisonValue(int slot) {
+      return _buffer.getLong(offset(slot) + COMPARISON_VALUE_OFFSET);
+    }
+
+    public void set(int slot, long location, long comparisonValue) {
+      Preconditions.checkArgument(location != 0L, "Location must be non-zero");
+      long offset = offset(slot);
+      _buffer.putLong(offset + LOCATION_OFFSET, location);
+      _buffer.putLong(offset + COMPARISON_VALUE_OFFSET, comparisonValue);
+    }
+
+    /// Puts a key that does not exist in the shard (checked with [#find]).
+    public void put(long k0, long k1, long location, long comparisonValue) {
+      Preconditions.checkArgument(location != 0L, "Location must be non-zero");
+      if (_size >= _capacity - (_capacity >>> 2)) {
+        resize();
+      }
+      insert(_buffer, _mask, k0, k1, location, comparisonValue);
+      _size++;
+    }
+
+    private void insert(PinotDataBuffer buffer, int mask, long k0, long k1, long location, long comparisonValue) {
+      int slot = (int) hash(k0, k1) & mask;
+      while (buffer.getLong(offset(slot) + LOCATION_OFFSET) != 0L) {
+        slot = (slot + 1) & mask;
+      }
+      long offset = offset(slot);
+      buffer.putLong(offset, k0);
+      buffer.putLong(offset + 8, k1);
+      buffer.putLong(offset + LOCATION_OFFSET, location);
+      buffer.putLong(offset + COMPARISON_VALUE_OFFSET, comparisonValue);
+    }
+
+    private void resize() {
+      Preconditions.checkState(_capacity < MAX_CAPACITY, "Cannot grow shard over %s slots", MAX_CAPACITY);
+      int newCapacity = _capacity << 1;
+      int newMask = newCapacity - 1;
+      PinotDataBuffer newBuffer = allocate(newCapacity);
+      for (int slot = 0; slot < _capacity; slot++) {
+        long offset = offset(slot);
+        long location = _buffer.getLong(offset + LOCATION_OFFSET);
+        if (location != 0L) {
+          insert(newBuffer, newMask, _buffer.getLong(offset), _buffer.getLong(offset + 8), location,
+              _buffer.getLong(offset + COMPARISON_VALUE_OFFSET));
+        }
+      }
+      try {
+        _buffer.close();
+      } catch (IOException e) {
+        throw new RuntimeException("Caught exception while releasing the primary key index buffer", e);
+      }
+      _buffer = newBuffer;
+      _capacity = newCapacity;
+      _mask = newMask;
+    }
+
+    /// Removes the entry in the slot, and shifts back the following entries of the same cluster that can be moved.
+    public void remove(int slot) {
+      int hole = slot;
+      int next = (hole + 1) & _mask;
+      while (true) {
+        long nextOffset = offset(next);
+        if (_buffer.getLong(nextOffset + LOCATION_OFFSET) == 0L) {
+          break;
+        }
+        int home = (int) hash(_buffer.getLong(nextOffset), _buffer.getLong(nextOffset + 8)) & _mask;
+        // Move the entry to the hole if its home slot is not cyclically within (hole, next]
+        if (((next - home) & _mask) >= ((next - hole) & _mask)) {
+          long holeOffset = offset(hole);
+          for (int i = 0; i < SLOT_SIZE; i += 8) {
+            _buffer.putLong(holeOffset + i, _buffer.getLong(nextOffset + i));
+          }
+          hole = next;
+        }
+        next = (next + 1) & _mask;
+      }
+      _buffer.putLong(offset(hole) + LOCATION_OFFSET, 0L);
+      _size--;
+    }
+
+    private int removeIf(EntryFilter filter) {
+      // Start right after an empty slot so that the entries shifted back by the removals are never visited twice
+      int start = 0;
+      while (getLocation(start) != 0L) {
+        start++;
+      }
+      int numRemoved = 0;
+      int numVisited = 0;
+      int slot = (start + 1) & _mask;
+      while (numVisited < _capacity - 1) {
+        long location = getLocation(slot);
+        if (location != 0L && filter.test(location, getComparisonValue(slot))) {
+          // The next entry might be shifted back into this slot, so check the same slot again
+          remove(slot);
+          numRemoved++;
+          continue;
+        }
+        slot = (slot + 1) & _mask;
+        numVisited++;
+      }
+      return numRemoved;
+    }
+
+    public int size() {
+      return _size;
+    }
+  }
+}
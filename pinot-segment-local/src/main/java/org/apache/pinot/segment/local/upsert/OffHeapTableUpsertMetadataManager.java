@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/// Implementation of [TableUpsertMetadataManager] that keeps the primary keys off-heap with
+/// [OffHeapPartitionUpsertMetadataManager].
+///
+/// It can be enabled by setting `metadataManagerClass` in the upsert config of the table (or the server level default
+/// metadata manager class) to this class. Tables not supported by the off-heap primary key index (see
+/// [OffHeapPartitionUpsertMetadataManager#isSupported]) fall back to the [ConcurrentMapPartitionUpsertMetadataManager].
+@ThreadSafe
+public class OffHeapTableUpsertMetadataManager extends ConcurrentMapTableUpsertMetadataManager {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapTableUpsertMetadataManager.class);
+
+  @Override
+  protected BasePartitionUpsertMetadataManager createPartitionManager(int partitionId) {
+    if (OffHeapPartitionUpsertMetadataManager.isSupported(_context)) {
+      return new OffHeapPartitionUpsertMetadataManager(_tableNameWithType, partitionId, _context);
+    }
+    LOGGER.warn("Off-heap upsert metadata is not supported for table: {}, falling back to on-heap metadata",
+        _tableNameWithType);
+    return super.createPartitionManager(partitionId);
+  }
+}
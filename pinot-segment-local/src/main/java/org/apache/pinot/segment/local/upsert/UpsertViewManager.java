@@ -19,12 +19,18 @@
 package org.apache.pinot.segment.local.upsert;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.lang.ref.Cleaner;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
@@ -41,14 +47,29 @@ import org.slf4j.LoggerFactory;
 /// This class is used to provide the specified consistency mode for upsert table by tracking the segments and
 /// synchronizing the accesses to the validDocIds of those tracked segments properly. Two consistency modes are
 /// supported currently:
-/// - SYNC mode, the upsert threads take the WLock when the upsert involves two segments' bitmaps; and the query
-/// threads take the RLock when getting bitmaps for all its selected segments.
+/// - SYNC mode, the upsert threads take the WLock when the upsert involves two segments' bitmaps. The query threads
+/// copy the bitmaps of all their selected segments optimistically, and only take the RLock if an upsert involving two
+/// segments keeps overlapping with the copy.
 /// - SNAPSHOT mode, the query threads don't need to take lock when getting bitmaps for all its selected segments, as
 /// the query threads access a copy of bitmaps that are kept updated by upsert thread periodically. But the query
 /// thread can specify a freshness threshold query option to refresh the bitmap copies if not fresh enough.
+///
+/// In SNAPSHOT mode, each refresh publishes a new immutable [UpsertView] (identified by an increasing epoch) with a
+/// single volatile write. A query reads the current view once and gets the bitmaps of all its segments from it, so it
+/// sees a consistent cut across segments, and across the queryable and valid docIds, without taking any lock. A
+/// refresh only snapshots the segments updated since the previous view and shares the other bitmaps with it. The
+/// bitmaps replaced by a refresh are reclaimed once the last query holding the previous view completes.
+///
+/// The refresh copies the bitmaps without blocking the upsert threads, and only takes the WLock to publish the view if
+/// no bitmap was updated during the copy, so queries asking for a fresher view do not stall the ingestion. The copy is
+/// retried a few times, and is done under the WLock if the bitmaps keep being updated.
 public class UpsertViewManager {
   public static final long DEFAULT_NEW_SEGMENT_TRACKING_TIME_MS = 10000;
   private static final Logger LOGGER = LoggerFactory.getLogger(UpsertViewManager.class);
+  // Number of attempts to copy the bitmaps without lock before falling back to copy them under lock
+  private static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
+  // Tracks the reclamation of the bitmaps retired from the upsert view
+  private static final Cleaner RETIRED_BITMAP_CLEANER = Cleaner.create();
   private final UpsertConfig.ConsistencyMode _consistencyMode;
 
   // NOTE that we can't reuse _trackedSegments map in BasePartitionUpsertMetadataManager, as it doesn't track all
@@ -63,16 +84,22 @@ public class UpsertViewManager {
   // The query threads always get _upsertViewTrackedSegmentsLock then _upsertViewSegmentDocIdsLock to avoid deadlock.
   // And the upsert threads never nest the two locks.
   private final ReadWriteLock _upsertViewLock = new ReentrantReadWriteLock();
-  // When a segment has no delete column, the same MutableRoaringBitmap instance is stored in both maps below
-  // (see doBatchRefreshUpsertView) to avoid cloning it twice; never mutate a bitmap read from either map in place.
-  private volatile Map<IndexSegment, MutableRoaringBitmap> _segmentQueryableDocIdsMap;
-  // Refreshed alongside _segmentQueryableDocIdsMap in the same locked pass, so skipUpsertDelete queries and pruning
-  // can read a consistent cut lock-free instead of taking the write lock per call.
-  private volatile Map<IndexSegment, MutableRoaringBitmap> _segmentValidDocIdsMap;
+  // For SYNC mode, incremented by the upsert threads before and after updating two segments' bitmaps under the WLock,
+  // so that it is odd while the bitmaps are being updated.
+  private final AtomicLong _syncUpdateSequence = new AtomicLong();
+  // For SNAPSHOT mode, incremented by the upsert threads after updating the bitmaps, so that a refresh can tell if the
+  // bitmaps changed while it was copying them.
+  private final AtomicLong _snapshotUpdateVersion = new AtomicLong();
+  // For SNAPSHOT mode, only one thread refreshes the view at a time. The upsert threads never take this lock.
+  private final Lock _upsertViewRefreshLock = new ReentrantLock();
+  // For SNAPSHOT mode, the current view published by the last refresh, or null before the first refresh.
+  private volatile UpsertView _upsertView;
+  // For SNAPSHOT mode, number of bitmaps replaced or dropped by a refresh and not reclaimed yet, i.e. still held by
+  // queries using an older view or not garbage collected yet.
+  private final AtomicLong _numRetiredBitmaps = new AtomicLong();
 
   // For SNAPSHOT mode, track segments that get new updates since last refresh to reduce the overhead of refreshing.
   private final Set<IndexSegment> _updatedSegmentsSinceLastRefresh = ConcurrentHashMap.newKeySet();
-  private volatile long _lastUpsertViewRefreshTimeMs = 0;
   private final long _upsertViewRefreshIntervalMs;
 
   public UpsertViewManager(UpsertConfig.ConsistencyMode consistencyMode, UpsertContext context) {
@@ -86,25 +113,26 @@ public class UpsertViewManager {
     if (_consistencyMode == UpsertConfig.ConsistencyMode.SYNC) {
       _upsertViewLock.writeLock().lock();
       try {
+        _syncUpdateSequence.incrementAndGet();
         UpsertUtils.doRemoveDocId(oldSegment, oldDocId);
         UpsertUtils.doAddDocId(validDocIds, queryableDocIds, newDocId, recordInfo);
         return;
       } finally {
+        _syncUpdateSequence.incrementAndGet();
         _upsertViewLock.writeLock().unlock();
       }
     }
-    // For SNAPSHOT mode, take read lock to sync with the batch refresh.
+    // For SNAPSHOT mode, take read lock to sync with the publishing of the refreshed view.
     _upsertViewLock.readLock().lock();
     try {
       UpsertUtils.doRemoveDocId(oldSegment, oldDocId);
       UpsertUtils.doAddDocId(validDocIds, queryableDocIds, newDocId, recordInfo);
       _updatedSegmentsSinceLastRefresh.add(newSegment);
       _updatedSegmentsSinceLastRefresh.add(oldSegment);
+      _snapshotUpdateVersion.incrementAndGet();
     } finally {
       _upsertViewLock.readLock().unlock();
-      // Batch refresh takes WLock. Do it outside RLock for clarity. The R/W lock ensures that only one thread
-      // can refresh the bitmaps. The other threads that are about to update the bitmaps will be blocked until
-      // refreshing is done.
+      // Batch refresh takes WLock to publish the view. Do it outside RLock for clarity.
       doBatchRefreshUpsertView(_upsertViewRefreshIntervalMs, false);
     }
   }
@@ -115,14 +143,15 @@ public class UpsertViewManager {
       UpsertUtils.doReplaceDocId(validDocIds, queryableDocIds, oldDocId, newDocId, recordInfo);
       return;
     }
-    // For SNAPSHOT mode, take read lock to sync with the batch refresh.
+    // For SNAPSHOT mode, take read lock to sync with the publishing of the refreshed view.
     _upsertViewLock.readLock().lock();
     try {
       UpsertUtils.doReplaceDocId(validDocIds, queryableDocIds, oldDocId, newDocId, recordInfo);
       _updatedSegmentsSinceLastRefresh.add(segment);
+      _snapshotUpdateVersion.incrementAndGet();
     } finally {
       _upsertViewLock.readLock().unlock();
-      // Batch refresh takes WLock. Do it outside RLock for clarity.
+      // Batch refresh takes WLock to publish the view. Do it outside RLock for clarity.
       doBatchRefreshUpsertView(_upsertViewRefreshIntervalMs, false);
     }
   }
@@ -133,14 +162,15 @@ public class UpsertViewManager {
       UpsertUtils.doAddDocId(validDocIds, queryableDocIds, docId, recordInfo);
       return;
     }
-    // For SNAPSHOT mode, take read lock to sync with the batch refresh.
+    // For SNAPSHOT mode, take read lock to sync with the publishing of the refreshed view.
     _upsertViewLock.readLock().lock();
     try {
       UpsertUtils.doAddDocId(validDocIds, queryableDocIds, docId, recordInfo);
       _updatedSegmentsSinceLastRefresh.add(segment);
+      _snapshotUpdateVersion.incrementAndGet();
     } finally {
       _upsertViewLock.readLock().unlock();
-      // Batch refresh takes WLock. Do it outside RLock for clarity.
+      // Batch refresh takes WLock to publish the view. Do it outside RLock for clarity.
       doBatchRefreshUpsertView(_upsertViewRefreshIntervalMs, false);
     }
   }
@@ -150,14 +180,15 @@ public class UpsertViewManager {
       UpsertUtils.doRemoveDocId(segment, docId);
       return;
     }
-    // For SNAPSHOT mode, take read lock to sync with the batch refresh.
+    // For SNAPSHOT mode, take read lock to sync with the publishing of the refreshed view.
     _upsertViewLock.readLock().lock();
     try {
       UpsertUtils.doRemoveDocId(segment, docId);
       _updatedSegmentsSinceLastRefresh.add(segment);
+      _snapshotUpdateVersion.incrementAndGet();
     } finally {
       _upsertViewLock.readLock().unlock();
-      // Batch refresh takes WLock. Do it outside RLock for clarity.
+      // Batch refresh takes WLock to publish the view. Do it outside RLock for clarity.
       doBatchRefreshUpsertView(_upsertViewRefreshIntervalMs, false);
     }
   }
@@ -167,9 +198,23 @@ public class UpsertViewManager {
   public void setSegmentContexts(List<SegmentContext> segmentContexts, Map<String, String> queryOptions) {
     boolean skipUpsertDelete = QueryOptionsUtils.isSkipUpsertDelete(queryOptions);
     if (_consistencyMode == UpsertConfig.ConsistencyMode.SYNC) {
+      // Copy the bitmaps without lock, and use the copies if no upsert involving two segments overlapped with the copy.
+      // Upserts within a single segment don't take the lock anyway.
+      for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+        long sequence = _syncUpdateSequence.get();
+        if ((sequence & 1) != 0) {
+          Thread.onSpinWait();
+          continue;
+        }
+        MutableRoaringBitmap[] snapshots = getDocIdsSnapshots(segmentContexts, skipUpsertDelete);
+        if (_syncUpdateSequence.get() == sequence) {
+          setDocIdsSnapshots(segmentContexts, snapshots);
+          return;
+        }
+      }
       _upsertViewLock.readLock().lock();
       try {
-        setSegmentContexts(segmentContexts, skipUpsertDelete);
+        setDocIdsSnapshots(segmentContexts, getDocIdsSnapshots(segmentContexts, skipUpsertDelete));
         return;
       } finally {
         _upsertViewLock.readLock().unlock();
@@ -179,15 +224,16 @@ public class UpsertViewManager {
     // The locking between query threads and upsert threads can be avoided when using batch refresh.
     // Besides, queries can share the copy of bitmaps, w/o cloning the bitmaps by every single query.
     // If query has specified a need for certain freshness, check the view and refresh it as needed.
-    // When refreshing the copy of map, we need to take the WLock so only one thread is refreshing view.
     long upsertViewFreshnessMs =
         Math.min(QueryOptionsUtils.getUpsertViewFreshnessMs(queryOptions), _upsertViewRefreshIntervalMs);
     if (upsertViewFreshnessMs < 0) {
       upsertViewFreshnessMs = _upsertViewRefreshIntervalMs;
     }
     doBatchRefreshUpsertView(upsertViewFreshnessMs, false);
+    // Read the view once so that all the segments of the query come from the same epoch
+    UpsertView upsertView = _upsertView;
     Map<IndexSegment, MutableRoaringBitmap> currentUpsertView =
-        skipUpsertDelete ? _segmentValidDocIdsMap : _segmentQueryableDocIdsMap;
+        skipUpsertDelete ? upsertView._validDocIdsMap : upsertView._queryableDocIdsMap;
     for (SegmentContext segmentContext : segmentContexts) {
       IndexSegment segment = segmentContext.getIndexSegment();
       MutableRoaringBitmap segmentView = currentUpsertView.get(segment);
@@ -197,89 +243,152 @@ public class UpsertViewManager {
     }
   }
 
-  private void setSegmentContexts(List<SegmentContext> segmentContexts, boolean skipUpsertDelete) {
-    for (SegmentContext segmentContext : segmentContexts) {
-      IndexSegment segment = segmentContext.getIndexSegment();
+  private MutableRoaringBitmap[] getDocIdsSnapshots(List<SegmentContext> segmentContexts, boolean skipUpsertDelete) {
+    int numSegments = segmentContexts.size();
+    MutableRoaringBitmap[] snapshots = new MutableRoaringBitmap[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      IndexSegment segment = segmentContexts.get(i).getIndexSegment();
       if (_trackedSegments.contains(segment)) {
-        segmentContext.setDocIdsSnapshot(skipUpsertDelete
+        snapshots[i] = skipUpsertDelete
             ? UpsertUtils.getValidDocIdsSnapshotFromSegment(segment, true)
-            : UpsertUtils.getQueryableDocIdsSnapshotFromSegment(segment, true));
+            : UpsertUtils.getQueryableDocIdsSnapshotFromSegment(segment, true);
       }
     }
+    return snapshots;
   }
 
-  private boolean skipUpsertViewRefresh(long upsertViewFreshnessMs) {
+  private static void setDocIdsSnapshots(List<SegmentContext> segmentContexts, MutableRoaringBitmap[] snapshots) {
+    int numSegments = segmentContexts.size();
+    for (int i = 0; i < numSegments; i++) {
+      if (snapshots[i] != null) {
+        segmentContexts.get(i).setDocIdsSnapshot(snapshots[i]);
+      }
+    }
+  }
+
+  private static boolean skipUpsertViewRefresh(UpsertView upsertView, long upsertViewFreshnessMs) {
     if (upsertViewFreshnessMs < 0) {
       return true;
     }
-    return _lastUpsertViewRefreshTimeMs + upsertViewFreshnessMs > System.currentTimeMillis();
+    return upsertView._refreshTimeMs + upsertViewFreshnessMs > System.currentTimeMillis();
   }
 
   @VisibleForTesting
   void doBatchRefreshUpsertView(long upsertViewFreshnessMs, boolean forceRefresh) {
-    // Always refresh if either view is still empty. The two maps are swapped in via two separate volatile writes,
-    // not one atomic publish, so a concurrent reader can observe _segmentValidDocIdsMap up to one refresh behind
-    // _segmentQueryableDocIdsMap; this is self-correcting next cycle and no caller combines both maps at once.
-    if (!forceRefresh && skipUpsertViewRefresh(upsertViewFreshnessMs) && _segmentQueryableDocIdsMap != null
-        && _segmentValidDocIdsMap != null) {
+    // Always refresh if the view is still empty.
+    UpsertView upsertView = _upsertView;
+    if (!forceRefresh && upsertView != null && skipUpsertViewRefresh(upsertView, upsertViewFreshnessMs)) {
       return;
     }
-    _upsertViewLock.writeLock().lock();
+    _upsertViewRefreshLock.lock();
     try {
-      // Check again with lock, and always refresh if either view is still empty.
-      Map<IndexSegment, MutableRoaringBitmap> queryableDocIds = _segmentQueryableDocIdsMap;
-      Map<IndexSegment, MutableRoaringBitmap> validDocs = _segmentValidDocIdsMap;
-      if (!forceRefresh && skipUpsertViewRefresh(upsertViewFreshnessMs) && queryableDocIds != null
-          && validDocs != null) {
+      // Check again with lock, and always refresh if the view is still empty.
+      upsertView = _upsertView;
+      if (!forceRefresh && upsertView != null && skipUpsertViewRefresh(upsertView, upsertViewFreshnessMs)) {
         return;
       }
       if (LOGGER.isDebugEnabled()) {
-        if (queryableDocIds == null) {
+        if (upsertView == null) {
           LOGGER.debug("Current upsert view is still null");
         } else {
-          queryableDocIds.forEach(
+          upsertView._queryableDocIdsMap.forEach(
               (segment, bitmap) -> LOGGER.debug("Current upsert view of segment: {}, type: {}, total: {}, valid: {}",
                   segment.getSegmentName(), (segment instanceof ImmutableSegment ? "imm" : "mut"),
                   segment.getSegmentMetadata().getTotalDocs(), bitmap.getCardinality()));
         }
       }
-      Map<IndexSegment, MutableRoaringBitmap> updatedQueryable = new HashMap<>();
-      Map<IndexSegment, MutableRoaringBitmap> updatedValid = new HashMap<>();
-      for (IndexSegment segment : _trackedSegments) {
-        // Update bitmap for segment updated since last refresh or not in the view yet. This also handles segments
-        // that are tracked by _trackedSegments but not by _updatedSegmentsSinceLastRefresh, like those didn't update
-        // any bitmaps as their docs simply lost all the upsert comparisons with the existing docs.
-        if (queryableDocIds == null || queryableDocIds.get(segment) == null
-            || _updatedSegmentsSinceLastRefresh.contains(segment)) {
-          MutableRoaringBitmap validSnapshot = UpsertUtils.getValidDocIdsSnapshotFromSegment(segment, true);
-          updatedValid.put(segment, validSnapshot);
-          // Without delete enabled, queryable docs equal valid docs; reuse the clone instead of cloning twice.
-          updatedQueryable.put(segment, segment.getQueryableDocIds() != null
-              ? UpsertUtils.getQueryableDocIdsSnapshotFromSegment(segment, true) : validSnapshot);
-          if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Update upsert view of segment: {}, type: {}, total: {}, valid: {}, reason: {}",
-                segment.getSegmentName(), (segment instanceof ImmutableSegment ? "imm" : "mut"),
-                segment.getSegmentMetadata().getTotalDocs(), updatedQueryable.get(segment).getCardinality(),
-                queryableDocIds == null || queryableDocIds.get(segment) == null ? "no view yet" : "bitmap updated");
+      // Copy the bitmaps without blocking the upsert threads, and only publish the copy if no bitmap was updated in
+      // the meantime, which is checked under the WLock so that no update is in progress.
+      for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+        long version = _snapshotUpdateVersion.get();
+        UpsertView newUpsertView = buildUpsertView(upsertView);
+        _upsertViewLock.writeLock().lock();
+        try {
+          if (_snapshotUpdateVersion.get() == version) {
+            publishUpsertView(upsertView, newUpsertView);
+            return;
           }
-        } else {
-          updatedQueryable.put(segment, queryableDocIds.get(segment));
-          updatedValid.put(segment, validDocs.get(segment));
+        } finally {
+          _upsertViewLock.writeLock().unlock();
         }
       }
-      // Swap in the new consistent set of bitmaps.
-      if (LOGGER.isDebugEnabled()) {
-        updatedQueryable.forEach(
-            (segment, bitmap) -> LOGGER.debug("Updated upsert view of segment: {}, type: {}, total: {}, valid: {}",
-                segment.getSegmentName(), (segment instanceof ImmutableSegment ? "imm" : "mut"),
-                segment.getSegmentMetadata().getTotalDocs(), bitmap.getCardinality()));
+      LOGGER.debug("Bitmaps kept being updated while refreshing upsert view, refreshing it under lock");
+      _upsertViewLock.writeLock().lock();
+      try {
+        publishUpsertView(upsertView, buildUpsertView(upsertView));
+      } finally {
+        _upsertViewLock.writeLock().unlock();
       }
-      _segmentQueryableDocIdsMap = updatedQueryable;
-      _segmentValidDocIdsMap = updatedValid;
-      _updatedSegmentsSinceLastRefresh.clear();
-      _lastUpsertViewRefreshTimeMs = System.currentTimeMillis();
     } finally {
-      _upsertViewLock.writeLock().unlock();
+      _upsertViewRefreshLock.unlock();
+    }
+  }
+
+  /// Builds the next view from the current one, copying the bitmaps of the segments updated since the last refresh or
+  /// not in the view yet, and sharing the other bitmaps with the current view.
+  private UpsertView buildUpsertView(@Nullable UpsertView upsertView) {
+    Map<IndexSegment, MutableRoaringBitmap> queryableDocIds =
+        upsertView != null ? upsertView._queryableDocIdsMap : null;
+    Map<IndexSegment, MutableRoaringBitmap> validDocs = upsertView != null ? upsertView._validDocIdsMap : null;
+    Map<IndexSegment, MutableRoaringBitmap> updatedQueryable = new HashMap<>();
+    Map<IndexSegment, MutableRoaringBitmap> updatedValid = new HashMap<>();
+    for (IndexSegment segment : _trackedSegments) {
+      // Update bitmap for segment updated since last refresh or not in the view yet. This also handles segments
+      // that are tracked by _trackedSegments but not by _updatedSegmentsSinceLastRefresh, like those didn't update
+      // any bitmaps as their docs simply lost all the upsert comparisons with the existing docs.
+      if (queryableDocIds == null || queryableDocIds.get(segment) == null
+          || _updatedSegmentsSinceLastRefresh.contains(segment)) {
+        MutableRoaringBitmap validSnapshot = UpsertUtils.getValidDocIdsSnapshotFromSegment(segment, true);
+        updatedValid.put(segment, validSnapshot);
+        // Without delete enabled, queryable docs equal valid docs; reuse the clone instead of cloning twice.
+        updatedQueryable.put(segment, segment.getQueryableDocIds() != null
+            ? UpsertUtils.getQueryableDocIdsSnapshotFromSegment(segment, true) : validSnapshot);
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("Update upsert view of segment: {}, type: {}, total: {}, valid: {}, reason: {}",
+              segment.getSegmentName(), (segment instanceof ImmutableSegment ? "imm" : "mut"),
+              segment.getSegmentMetadata().getTotalDocs(), updatedQueryable.get(segment).getCardinality(),
+              queryableDocIds == null || queryableDocIds.get(segment) == null ? "no view yet" : "bitmap updated");
+        }
+      } else {
+        updatedQueryable.put(segment, queryableDocIds.get(segment));
+        updatedValid.put(segment, validDocs.get(segment));
+      }
+    }
+    if (LOGGER.isDebugEnabled()) {
+      updatedQueryable.forEach(
+          (segment, bitmap) -> LOGGER.debug("Updated upsert view of segment: {}, type: {}, total: {}, valid: {}",
+              segment.getSegmentName(), (segment instanceof ImmutableSegment ? "imm" : "mut"),
+              segment.getSegmentMetadata().getTotalDocs(), bitmap.getCardinality()));
+    }
+    long epoch = upsertView != null ? upsertView._epoch + 1 : 0;
+    return new UpsertView(epoch, System.currentTimeMillis(), updatedQueryable, updatedValid);
+  }
+
+  /// Swaps in the new consistent set of bitmaps. Should be called with the WLock so that no bitmap is being updated.
+  private void publishUpsertView(@Nullable UpsertView upsertView, UpsertView newUpsertView) {
+    _upsertView = newUpsertView;
+    _updatedSegmentsSinceLastRefresh.clear();
+    if (upsertView == null) {
+      return;
+    }
+    // Count the bitmaps of the previous view not shared with the new view until they are garbage collected, i.e. after
+    // the last query holding them completes. Without delete enabled, the same bitmap is in both maps.
+    Set<MutableRoaringBitmap> retiredBitmaps = Collections.newSetFromMap(new IdentityHashMap<>());
+    addRetiredBitmaps(upsertView._queryableDocIdsMap, newUpsertView._queryableDocIdsMap, retiredBitmaps);
+    addRetiredBitmaps(upsertView._validDocIdsMap, newUpsertView._validDocIdsMap, retiredBitmaps);
+    for (MutableRoaringBitmap retiredBitmap : retiredBitmaps) {
+      _numRetiredBitmaps.incrementAndGet();
+      RETIRED_BITMAP_CLEANER.register(retiredBitmap, _numRetiredBitmaps::decrementAndGet);
+    }
+  }
+
+  private static void addRetiredBitmaps(Map<IndexSegment, MutableRoaringBitmap> docIdsMap,
+      Map<IndexSegment, MutableRoaringBitmap> newDocIdsMap, Set<MutableRoaringBitmap> retiredBitmaps) {
+    for (Map.Entry<IndexSegment, MutableRoaringBitmap> entry : docIdsMap.entrySet()) {
+      MutableRoaringBitmap bitmap = entry.getValue();
+      if (bitmap != newDocIdsMap.get(entry.getKey())) {
+        retiredBitmaps.add(bitmap);
+      }
     }
   }
 
@@ -322,27 +431,42 @@ public class UpsertViewManager {
 
   @VisibleForTesting
   Map<IndexSegment, MutableRoaringBitmap> getSegmentQueryableDocIdsMap() {
-    return _segmentQueryableDocIdsMap;
+    UpsertView upsertView = _upsertView;
+    return upsertView != null ? upsertView._queryableDocIdsMap : null;
   }
 
   @VisibleForTesting
   Map<IndexSegment, MutableRoaringBitmap> getSegmentValidDocIdsMap() {
-    return _segmentValidDocIdsMap;
+    UpsertView upsertView = _upsertView;
+    return upsertView != null ? upsertView._validDocIdsMap : null;
   }
 
   // Returns the queryable doc-id snapshot for the given segment from the most recent refresh, or
   // null if no refresh has happened yet or the segment is not in the current view.
   @Nullable
   public MutableRoaringBitmap getQueryableDocIdsSnapshot(IndexSegment segment) {
-    Map<IndexSegment, MutableRoaringBitmap> view = _segmentQueryableDocIdsMap;
-    return view == null ? null : view.get(segment);
+    UpsertView upsertView = _upsertView;
+    return upsertView != null ? upsertView._queryableDocIdsMap.get(segment) : null;
   }
 
   // Same as getQueryableDocIdsSnapshot, but from the valid-docs (tombstones included) cache.
   @Nullable
   public MutableRoaringBitmap getValidDocIdsSnapshot(IndexSegment segment) {
-    Map<IndexSegment, MutableRoaringBitmap> view = _segmentValidDocIdsMap;
-    return view == null ? null : view.get(segment);
+    UpsertView upsertView = _upsertView;
+    return upsertView != null ? upsertView._validDocIdsMap.get(segment) : null;
+  }
+
+  /// Returns the epoch of the current upsert view, incremented by each refresh, or -1 before the first refresh.
+  public long getUpsertViewEpoch() {
+    UpsertView upsertView = _upsertView;
+    return upsertView != null ? upsertView._epoch : -1;
+  }
+
+  /// Returns how long ago the current upsert view was refreshed, i.e. the maximum staleness of the bitmaps served to
+  /// the queries not asking for a fresher view, or 0 before the first refresh.
+  public long getUpsertViewLagMs() {
+    UpsertView upsertView = _upsertView;
+    return upsertView != null ? System.currentTimeMillis() - upsertView._refreshTimeMs : 0;
   }
 
   @VisibleForTesting
@@ -350,8 +474,32 @@ public class UpsertViewManager {
     return _updatedSegmentsSinceLastRefresh;
   }
 
+  /// Returns the number of bitmaps retired from the upsert view by the refreshes and not reclaimed yet, i.e. still held
+  /// by queries using an older view or not garbage collected yet.
+  public long getNumRetiredBitmaps() {
+    return _numRetiredBitmaps.get();
+  }
+
   @VisibleForTesting
   Set<IndexSegment> getTrackedSegments() {
     return _trackedSegments;
   }
+
+  /// Consistent view of the queryable and valid docIds of the tracked segments, published by a refresh. The view is
+  /// never modified once published, and when a segment has no delete column the same bitmap instance is stored in both
+  /// maps to avoid cloning it twice, so never mutate a bitmap read from the view in place.
+  private static final class UpsertView {
+    final long _epoch;
+    final long _refreshTimeMs;
+    final Map<IndexSegment, MutableRoaringBitmap> _queryableDocIdsMap;
+    final Map<IndexSegment, MutableRoaringBitmap> _validDocIdsMap;
+
+    UpsertView(long epoch, long refreshTimeMs, Map<IndexSegment, MutableRoaringBitmap> queryableDocIdsMap,
+        Map<IndexSegment, MutableRoaringBitmap> validDocIdsMap) {
+      _epoch = epoch;
+      _refreshTimeMs = refreshTimeMs;
+      _queryableDocIdsMap = queryableDocIdsMap;
+      _validDocIdsMap = validDocIdsMap;
+    }
+  }
 }
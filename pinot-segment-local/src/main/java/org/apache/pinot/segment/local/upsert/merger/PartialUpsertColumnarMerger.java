@@ -70,9 +70,9 @@ public class PartialUpsertColumnarMerger extends BasePartialUpsertMerger {
       PartialUpsertColumnMerger merger = _column2Mergers.getOrDefault(column, _defaultColumnValueMerger);
       if (merger instanceof ForceOverwriteMerger) {
         // Force Overwrite mergers
-        // If the merge strategy is Force Overwrite merger and prevValue is always overwritten by newValue
-        Object prevValue = previousRow.getValue(column);
-        resultHolder.put(column, merger.merge(prevValue, newRow.getValue(column)));
+        // If the merge strategy is Force Overwrite merger and prevValue is always overwritten by newValue, so the
+        // previous value is not read from the segment
+        resultHolder.put(column, newRow.getValue(column));
       } else if (!(merger instanceof OverwriteMerger)) {
         // Non-overwrite mergers
         // (1) If the value of the previous is null value, skip merging and use the new value
@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
+import org.apache.pinot.segment.local.segment.readers.PrimaryKeyReader;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.Schema;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class DiskBackedPartitionDedupMetadataManagerTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(),
+      DiskBackedPartitionDedupMetadataManagerTest.class.getSimpleName());
+  private DedupContext.Builder _dedupContextBuilder;
+
+  @BeforeMethod
+  public void setUpContextBuilder()
+      throws IOException {
+    FileUtils.forceMkdir(TEMP_DIR);
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getTableDataDir()).thenReturn(TEMP_DIR);
+    _dedupContextBuilder = new DedupContext.Builder()
+        .setTableConfig(mock(TableConfig.class))
+        .setSchema(mock(Schema.class))
+        .setTableDataManager(tableDataManager)
+        .setPrimaryKeyColumns(List.of("primaryKeyColumn"));
+  }
+
+  @AfterMethod
+  public void cleanup() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testAddCheckAndRemove()
+      throws IOException {
+    verifyAddCheckAndRemove(HashFunction.NONE);
+    verifyAddCheckAndRemove(HashFunction.MD5);
+    verifyAddCheckAndRemove(HashFunction.XXHASH);
+  }
+
+  private void verifyAddCheckAndRemove(HashFunction hashFunction)
+      throws IOException {
+    _dedupContextBuilder.setHashFunction(hashFunction);
+    DiskBackedPartitionDedupMetadataManager metadataManager =
+        new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.build());
+
+    // Keys 0, 1 and 2 of the immutable segment are in its key run
+    ImmutableSegmentImpl segment1 = mockSegment(1, "1001");
+    String segmentName1 = segment1.getSegmentName();
+    metadataManager.doAddOrReplaceSegment(null, segment1, getDedupRecordInfoIterator(0, 1, 2, 0, 1, 0));
+    assertEquals(metadataManager._keyRunMap.size(), 1);
+    assertEquals(metadataManager._keyRunMap.get(segment1.getSegmentName()).getNumEntries(), 3);
+    assertEquals(metadataManager.getNumPrimaryKeys(), 3);
+
+    // Ingest into the consuming segment
+    String segmentName2 = DedupTestUtils.getSegmentName(2);
+    MutableSegment segment2 = mock(MutableSegment.class);
+    when(segment2.getSegmentName()).thenReturn(segmentName2);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment2));
+    }
+    assertTrue(metadataManager._primaryKeyToSegmentAndTimeMap.isEmpty());
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(3), segment2));
+    assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(3), segment2));
+    assertEquals(metadataManager._primaryKeyToSegmentAndTimeMap.size(), 1);
+    assertEquals(metadataManager.getNumPrimaryKeys(), 4);
+
+    // Commit the consuming segment, and its keys move to the key run of the immutable segment
+    ImmutableSegmentImpl committedSegment2 = mockSegment(2, "1002");
+    when(committedSegment2.getSegmentName()).thenReturn(segmentName2);
+    metadataManager.doAddOrReplaceSegment(segment2, committedSegment2, getDedupRecordInfoIterator(3));
+    assertTrue(metadataManager._primaryKeyToSegmentAndTimeMap.isEmpty());
+    assertEquals(metadataManager._keyRunMap.size(), 2);
+    assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(3), segment2));
+
+    // Removing another segment with the same name does not remove the key run
+    ImmutableSegmentImpl otherSegment1 = mockSegment(1, "1001");
+    when(otherSegment1.getSegmentName()).thenReturn(segmentName1);
+    metadataManager.doRemoveSegment(otherSegment1, getDedupRecordInfoIterator());
+    assertEquals(metadataManager._keyRunMap.size(), 2);
+
+    // Remove the first segment along with its key run file
+    File keyRunFile = metadataManager._keyRunMap.get(segment1.getSegmentName()).getFile();
+    assertTrue(keyRunFile.exists());
+    metadataManager.doRemoveSegment(segment1, getDedupRecordInfoIterator());
+    assertEquals(metadataManager._keyRunMap.size(), 1);
+    assertFalse(keyRunFile.exists());
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(0), segment2));
+
+    metadataManager.stop();
+    metadataManager.close();
+    FileUtils.deleteQuietly(TEMP_DIR);
+    FileUtils.forceMkdir(TEMP_DIR);
+  }
+
+  @Test
+  public void testReuseKeyRunsAfterRestart()
+      throws IOException {
+    _dedupContextBuilder.setHashFunction(HashFunction.MURMUR3);
+    DiskBackedPartitionDedupMetadataManager metadataManager =
+        new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.build());
+    ImmutableSegmentImpl segment1 = mockSegment(1, "1001");
+    String segmentName1 = segment1.getSegmentName();
+    metadataManager.doAddOrReplaceSegment(null, segment1, getDedupRecordInfoIterator(0, 1, 2));
+    File keyRunFile = metadataManager._keyRunMap.get(segment1.getSegmentName()).getFile();
+    // Partially written run left behind by a crash
+    File tempFile = new File(keyRunFile.getParentFile(), "segment.1.dedupkeys.tmp");
+    FileUtils.touch(tempFile);
+    metadataManager.stop();
+    metadataManager.close();
+    assertTrue(keyRunFile.exists());
+    assertFalse(tempFile.exists());
+
+    // The key run is reused without reading the segment
+    metadataManager = new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+        _dedupContextBuilder.build());
+    @SuppressWarnings("unchecked")
+    Iterator<DedupRecordInfo> unusedIterator = mock(Iterator.class);
+    metadataManager.doPreloadSegment(segment1, unusedIterator);
+    assertEquals(metadataManager.getNumPrimaryKeys(), 3);
+    MutableSegment segment2 = mock(MutableSegment.class);
+    assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(2), segment2));
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(3), segment2));
+
+    // The key run is rebuilt when the segment CRC changes
+    ImmutableSegmentImpl refreshedSegment1 = mockSegment(1, "2001");
+    when(refreshedSegment1.getSegmentName()).thenReturn(segmentName1);
+    metadataManager.doAddOrReplaceSegment(segment1, refreshedSegment1, getDedupRecordInfoIterator(5));
+    assertEquals(metadataManager._keyRunMap.size(), 1);
+    assertFalse(keyRunFile.exists());
+    assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(5), segment2));
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(0), segment2));
+
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  @Test
+  public void testRemoveExpiredPrimaryKeys()
+      throws IOException {
+    _dedupContextBuilder.setHashFunction(HashFunction.NONE).setMetadataTTL(3000).setDedupTimeColumn("timeColumn");
+    DiskBackedPartitionDedupMetadataManager metadataManager =
+        new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.build());
+    // Keys 0, 1 and 2 with dedup time 0, 1000 and 2000
+    ImmutableSegmentImpl segment1 = mockSegment(1, "1001");
+    metadataManager.doAddOrReplaceSegment(null, segment1, getDedupRecordInfoIterator(0, 1, 2));
+    // Keys 4 and 5 with dedup time 0 and 1000
+    ImmutableSegmentImpl segment2 = mockSegment(2, "1002");
+    metadataManager.doAddOrReplaceSegment(null, segment2, getDedupRecordInfoIterator(4, 5));
+    MutableSegment segment3 = mock(MutableSegment.class);
+
+    // Key 1 is out of TTL, but not key 2
+    metadataManager._largestSeenTime.set(4500);
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(1), 4500),
+        segment3));
+    assertTrue(metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(2), 4500),
+        segment3));
+
+    // Only the key run of the second segment has all the keys out of TTL
+    metadataManager.doRemoveExpiredPrimaryKeys();
+    assertEquals(metadataManager._keyRunMap.size(), 1);
+    assertTrue(metadataManager._keyRunMap.containsKey(segment1.getSegmentName()));
+    assertEquals(metadataManager._primaryKeyToSegmentAndTimeMap.size(), 1);
+
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  @Test
+  public void testBloomFilterOnAllKeyRuns()
+      throws IOException {
+    _dedupContextBuilder.setHashFunction(HashFunction.MD5);
+    DiskBackedPartitionDedupMetadataManager metadataManager =
+        new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.build());
+    ImmutableSegmentImpl segment1 = mockSegment(1, "1001");
+    metadataManager.doAddOrReplaceSegment(null, segment1, getDedupRecordInfoIterator(0, 1, 2));
+    DedupKeyBloomFilter bloomFilter = metadataManager._bloomFilter;
+    assertNotNull(bloomFilter);
+    assertEquals(bloomFilter.getCapacity(), DiskBackedPartitionDedupMetadataManager.MIN_BLOOM_FILTER_CAPACITY);
+    assertEquals(bloomFilter.getNumEntries(), 3);
+    long[] digest = new long[2];
+    for (int i = 0; i < 3; i++) {
+      DiskBackedPartitionDedupMetadataManager.getKeyDigest(DedupTestUtils.getPrimaryKey(i), HashFunction.MD5, digest);
+      assertTrue(bloomFilter.mightContain(digest[0], digest[1]));
+    }
+
+    // The keys of the new runs are added to the same filter while it has capacity
+    ImmutableSegmentImpl segment2 = mockSegment(2, "1002");
+    metadataManager.doAddOrReplaceSegment(null, segment2, getDedupRecordInfoIterator(4, 5));
+    assertSame(metadataManager._bloomFilter, bloomFilter);
+    assertEquals(bloomFilter.getNumEntries(), 5);
+
+    // The filter is rebuilt once most of its keys belong to removed runs, and dropped along with the last run
+    metadataManager.doRemoveSegment(segment1, getDedupRecordInfoIterator());
+    bloomFilter = metadataManager._bloomFilter;
+    assertNotNull(bloomFilter);
+    assertEquals(bloomFilter.getNumEntries(), 2);
+    assertEquals(bloomFilter.getNumRemovedEntries(), 0);
+    MutableSegment segment3 = mock(MutableSegment.class);
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(0), segment3));
+    assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(4), segment3));
+    metadataManager.doRemoveSegment(segment2, getDedupRecordInfoIterator());
+    assertNull(metadataManager._bloomFilter);
+
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  private static ImmutableSegmentImpl mockSegment(int sequenceNumber, String crc) {
+    ImmutableSegmentImpl segment = DedupTestUtils.mockSegment(sequenceNumber, 0);
+    when(segment.getSegmentMetadata().getCrc()).thenReturn(crc);
+    return segment;
+  }
+
+  private static DedupRecordInfo getDedupRecordInfo(int key) {
+    return new DedupRecordInfo(DedupTestUtils.getPrimaryKey(key), key * 1000);
+  }
+
+  /// Returns the iterator of the given keys, where the i-th key has dedup time i * 1000.
+  private static Iterator<DedupRecordInfo> getDedupRecordInfoIterator(int... keys) {
+    PrimaryKeyReader primaryKeyReader = mock(PrimaryKeyReader.class);
+    PinotSegmentColumnReader dedupTimeColumnReader = mock(PinotSegmentColumnReader.class);
+    for (int i = 0; i < keys.length; i++) {
+      when(primaryKeyReader.getPrimaryKey(i)).thenReturn(DedupTestUtils.getPrimaryKey(keys[i]));
+      when(dedupTimeColumnReader.getValue(i)).thenReturn(i * 1000);
+    }
+    return DedupUtils.getDedupRecordInfoIterator(new DedupUtils.DedupRecordInfoReader(primaryKeyReader,
+        dedupTimeColumnReader), keys.length);
+  }
+}
@@ -21,6 +21,8 @@ package org.apache.pinot.segment.local.indexsegment.mutable;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.io.FileUtils;
@@ -57,6 +59,7 @@ import org.testng.annotations.Test;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 
 @SuppressWarnings({"rawtypes", "unchecked"})
@@ -72,6 +75,7 @@ public class MutableSegmentImplTest {
           CommonConstants.Segment.BuiltInVirtualColumn.ENDTIME,
           CommonConstants.Segment.BuiltInVirtualColumn.CRC);
 
+  private File _avroFile;
   private Schema _schema;
   private MutableSegmentImpl _mutableSegmentImpl;
   private ImmutableSegment _immutableSegment;
@@ -87,6 +91,7 @@ public class MutableSegmentImplTest {
     URL resourceUrl = MutableSegmentImplTest.class.getClassLoader().getResource(AVRO_FILE);
     Assert.assertNotNull(resourceUrl);
     File avroFile = new File(resourceUrl.getFile());
+    _avroFile = avroFile;
 
     SegmentGeneratorConfig config =
         SegmentTestUtils.getSegmentGeneratorConfigWithoutTimeColumn(avroFile, TEMP_DIR, "testTable");
@@ -238,6 +243,98 @@ public class MutableSegmentImplTest {
     }
   }
 
+  @Test
+  public void testBatchIndexing()
+      throws Exception {
+    List<GenericRow> rows = new ArrayList<>();
+    try (RecordReader recordReader = RecordReaderFactory.getRecordReader(FileFormat.AVRO, _avroFile,
+        _schema.getColumnNames(), null)) {
+      while (recordReader.hasNext()) {
+        rows.add(recordReader.next());
+      }
+    }
+    MutableSegmentImpl batchSegment = MutableSegmentImplTestUtils.createMutableSegmentImpl(_schema);
+    try {
+      StreamMessageMetadata metadata = mock(StreamMessageMetadata.class);
+      when(metadata.getRecordIngestionTimeMs()).thenReturn(_lastIngestionTimeMs);
+      int batchSize = 100;
+      for (int i = 0; i < rows.size(); i += batchSize) {
+        Assert.assertTrue(batchSegment.index(rows.subList(i, Math.min(i + batchSize, rows.size())), metadata,
+            (e, rowId) -> Assert.fail("Failed to index row: " + rowId, e)));
+      }
+      int numDocs = _mutableSegmentImpl.getNumDocsIndexed();
+      assertEquals(batchSegment.getNumDocsIndexed(), numDocs);
+
+      // The columns indexed in batch should be the same as the ones indexed row by row
+      for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+        String column = fieldSpec.getName();
+        if (fieldSpec.isVirtualColumn()) {
+          continue;
+        }
+        DataSource actualDataSource = batchSegment.getDataSource(column);
+        DataSource expectedDataSource = _mutableSegmentImpl.getDataSource(column);
+        DataSourceMetadata actualMetadata = actualDataSource.getDataSourceMetadata();
+        DataSourceMetadata expectedMetadata = expectedDataSource.getDataSourceMetadata();
+        assertEquals(actualMetadata.getNumDocs(), numDocs);
+        assertEquals(actualMetadata.getMinValue(), expectedMetadata.getMinValue());
+        assertEquals(actualMetadata.getMaxValue(), expectedMetadata.getMaxValue());
+        assertEquals(actualMetadata.getMaxNumValuesPerMVEntry(), expectedMetadata.getMaxNumValuesPerMVEntry());
+        for (int docId = 0; docId < numDocs; docId++) {
+          assertEquals(batchSegment.getValue(docId, column), _mutableSegmentImpl.getValue(docId, column));
+        }
+      }
+    } finally {
+      batchSegment.destroy();
+    }
+  }
+
+  @Test
+  public void testBatchIndexingWithInvalidValue()
+      throws Exception {
+    int numRows = 10;
+    int invalidRowId = 3;
+    List<GenericRow> rows = new ArrayList<>(numRows);
+    try (RecordReader recordReader = RecordReaderFactory.getRecordReader(FileFormat.AVRO, _avroFile,
+        _schema.getColumnNames(), null)) {
+      for (int i = 0; i < numRows; i++) {
+        rows.add(recordReader.next());
+      }
+    }
+    String invalidColumn = null;
+    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+      if (!fieldSpec.isVirtualColumn() && fieldSpec.isSingleValueField()
+          && fieldSpec.getDataType() == FieldSpec.DataType.INT) {
+        invalidColumn = fieldSpec.getName();
+        break;
+      }
+    }
+    Assert.assertNotNull(invalidColumn);
+    rows.get(invalidRowId).putValue(invalidColumn, "invalid");
+
+    MutableSegmentImpl batchSegment = MutableSegmentImplTestUtils.createMutableSegmentImpl(_schema);
+    try {
+      List<Integer> erroredRowIds = new ArrayList<>();
+      assertTrue(batchSegment.index(rows, null, (e, rowId) -> erroredRowIds.add(rowId)));
+
+      // Only the row with the invalid value is dropped, and the other rows are fully indexed
+      assertEquals(erroredRowIds, List.of(invalidRowId));
+      assertEquals(batchSegment.getNumDocsIndexed(), numRows - 1);
+      for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+        String column = fieldSpec.getName();
+        if (fieldSpec.isVirtualColumn()) {
+          continue;
+        }
+        assertEquals(batchSegment.getDataSource(column).getDataSourceMetadata().getNumDocs(), numRows - 1);
+        for (int docId = 0; docId < numRows - 1; docId++) {
+          int expectedDocId = docId < invalidRowId ? docId : docId + 1;
+          assertEquals(batchSegment.getValue(docId, column), _mutableSegmentImpl.getValue(expectedDocId, column));
+        }
+      }
+    } finally {
+      batchSegment.destroy();
+    }
+  }
+
   @Test
   public void testUpdateIngestionTimestampWithoutIndexing() {
     // Create a fresh mutable segment with no indexed rows
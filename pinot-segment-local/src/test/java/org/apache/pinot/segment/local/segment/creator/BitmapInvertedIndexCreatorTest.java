@@ -33,6 +33,7 @@ import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.spi.data.DimensionFieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -147,6 +148,48 @@ public class BitmapInvertedIndexCreatorTest implements PinotBuffersAfterMethodCh
     Assert.assertTrue(FileUtils.contentEquals(ON_HEAP_INVERTED_INDEX, OFF_HEAP_INVERTED_INDEX));
   }
 
+  @Test
+  public void testAddDocIds()
+      throws IOException {
+    @SuppressWarnings("unchecked")
+    Set<Integer>[] postingLists = new Set[CARDINALITY];
+    RoaringBitmap[] bitmaps = new RoaringBitmap[CARDINALITY];
+
+    // Generate random dictionary ids, leaving the last dictionary id without documents
+    for (int dictId = 0; dictId < CARDINALITY; dictId++) {
+      postingLists[dictId] = new HashSet<>();
+      bitmaps[dictId] = new RoaringBitmap();
+    }
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      int dictId = RANDOM.nextInt(CARDINALITY - 1);
+      postingLists[dictId].add(docId);
+      bitmaps[dictId].add(docId);
+    }
+
+    // Add the bitmaps in a different order than the dictionary ids, skipping the empty ones
+    try (OnHeapBitmapInvertedIndexCreator onHeapCreator = new OnHeapBitmapInvertedIndexCreator(ON_HEAP_INDEX_DIR,
+        COLUMN_NAME, CARDINALITY)) {
+      for (int dictId = CARDINALITY - 1; dictId >= 0; dictId--) {
+        if (!bitmaps[dictId].isEmpty()) {
+          onHeapCreator.addDocIds(dictId, bitmaps[dictId]);
+        }
+      }
+      onHeapCreator.seal();
+    }
+    try (OffHeapBitmapInvertedIndexCreator offHeapCreator = new OffHeapBitmapInvertedIndexCreator(OFF_HEAP_INDEX_DIR,
+        new DimensionFieldSpec(COLUMN_NAME, DataType.INT, true), CARDINALITY, NUM_DOCS, 0)) {
+      for (int dictId = CARDINALITY - 1; dictId >= 0; dictId--) {
+        if (!bitmaps[dictId].isEmpty()) {
+          offHeapCreator.addDocIds(dictId, bitmaps[dictId]);
+        }
+      }
+      offHeapCreator.seal();
+    }
+
+    validate(ON_HEAP_INVERTED_INDEX, postingLists);
+    Assert.assertTrue(FileUtils.contentEquals(ON_HEAP_INVERTED_INDEX, OFF_HEAP_INVERTED_INDEX));
+  }
+
   private void validate(File invertedIndex, Set<Integer>[] postingLists)
       throws IOException {
 
@@ -22,6 +22,7 @@ import java.io.File;
 import java.util.Set;
 import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
 import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.spi.config.table.IndexingConfig;
 import org.apache.pinot.spi.utils.ReadMode;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -49,6 +50,22 @@ public class ColumnarRowMajorEquivalenceTest extends ColumnarSegmentBuildingTest
     validateSegmentsIdentical(rowMajorSegmentDir, columnarSegmentDir);
   }
 
+  @Test
+  public void testParallelColumnarBuilding()
+      throws Exception {
+    File rowMajorSegmentDir = createRowMajorSegment();
+    IndexingConfig indexingConfig = _tableConfig.getIndexingConfig();
+    indexingConfig.setSegmentBuildParallelism(4);
+    indexingConfig.setSegmentBuildMemoryBudgetBytes(1024);
+    try {
+      File columnarSegmentDir = createColumnarSegment(rowMajorSegmentDir);
+      validateSegmentsIdentical(rowMajorSegmentDir, columnarSegmentDir);
+    } finally {
+      indexingConfig.setSegmentBuildParallelism(0);
+      indexingConfig.setSegmentBuildMemoryBudgetBytes(0);
+    }
+  }
+
   @Test
   public void testAllDataTypes()
       throws Exception {
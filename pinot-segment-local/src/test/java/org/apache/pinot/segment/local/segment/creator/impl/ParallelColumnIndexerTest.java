@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+
+public class ParallelColumnIndexerTest {
+  private static final int NUM_COLUMNS = 20;
+
+  @Test
+  public void testIndexColumns()
+      throws Exception {
+    ConcurrencyTracker tracker = new ConcurrencyTracker();
+    Set<String> indexedColumns = ConcurrentHashMap.newKeySet();
+    new ParallelColumnIndexer(4, 0).indexColumns(getColumns(), column -> 0L, column -> {
+      tracker.run();
+      assertTrue(indexedColumns.add(column));
+    });
+    assertEquals(indexedColumns.size(), NUM_COLUMNS);
+    assertTrue(tracker._maxRunning.get() <= 4);
+    assertEquals(tracker._running.get(), 0);
+  }
+
+  @Test
+  public void testMemoryBudget()
+      throws Exception {
+    // 2 columns of 4KB fit in the 10KB budget
+    ConcurrencyTracker smallColumnsTracker = new ConcurrencyTracker();
+    new ParallelColumnIndexer(8, 10 * 1024).indexColumns(getColumns(), column -> 4 * 1024L,
+        column -> smallColumnsTracker.run());
+    assertTrue(smallColumnsTracker._maxRunning.get() <= 2);
+
+    // Columns larger than the budget are indexed alone
+    ConcurrencyTracker largeColumnsTracker = new ConcurrencyTracker();
+    new ParallelColumnIndexer(8, 10 * 1024).indexColumns(getColumns(), column -> 1024 * 1024L,
+        column -> largeColumnsTracker.run());
+    assertEquals(largeColumnsTracker._maxRunning.get(), 1);
+  }
+
+  @Test
+  public void testFailure() {
+    ConcurrencyTracker tracker = new ConcurrencyTracker();
+    IOException failure = new IOException("failed");
+    IOException thrown = expectThrows(IOException.class,
+        () -> new ParallelColumnIndexer(4, 0).indexColumns(getColumns(), column -> 0L, column -> {
+          tracker.run();
+          if (column.equals("col5")) {
+            throw failure;
+          }
+        }));
+    assertSame(thrown, failure);
+    // No column is still being indexed once the failure is thrown
+    assertEquals(tracker._running.get(), 0);
+  }
+
+  private static List<String> getColumns() {
+    List<String> columns = new ArrayList<>(NUM_COLUMNS);
+    for (int i = 0; i < NUM_COLUMNS; i++) {
+      columns.add("col" + i);
+    }
+    return columns;
+  }
+
+  private static class ConcurrencyTracker {
+    final AtomicInteger _running = new AtomicInteger();
+    final AtomicInteger _maxRunning = new AtomicInteger();
+
+    void run()
+        throws InterruptedException {
+      _maxRunning.accumulateAndGet(_running.incrementAndGet(), Math::max);
+      Thread.sleep(10);
+      _running.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.column;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.index.readers.OnHeapIntDictionary;
+import org.apache.pinot.segment.local.segment.index.readers.OnHeapStringDictionary;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReaderContext;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class AdaptiveOnHeapColumnManagerTest {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory(), AdaptiveOnHeapColumnManagerTest.class.getSimpleName());
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String INT_COL = "intColumn";
+  private static final String STR_COL = "stringColumn";
+  private static final int NUM_ROWS = 1000;
+  private static final int CARDINALITY = 100;
+
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+      .addSingleValueDimension(INT_COL, DataType.INT)
+      .addSingleValueDimension(STR_COL, DataType.STRING)
+      .build();
+
+  private TableConfig _tableConfig;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    _tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME).build();
+    _tableConfig.getIndexingConfig().setAdaptiveOnHeapEnabled(true);
+
+    List<GenericRow> records = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      GenericRow record = new GenericRow();
+      record.putValue(INT_COL, i % CARDINALITY);
+      record.putValue(STR_COL, "value_" + i % CARDINALITY);
+      records.add(record);
+    }
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(_tableConfig, SCHEMA);
+    segmentGeneratorConfig.setTableName(RAW_TABLE_NAME);
+    segmentGeneratorConfig.setSegmentName(SEGMENT_NAME);
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getPath());
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    AdaptiveOnHeapColumnManager.setInstance(null);
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testPromoteAndDemote()
+      throws Exception {
+    AdaptiveOnHeapColumnManager manager = new AdaptiveOnHeapColumnManager(Long.MAX_VALUE, 2);
+    AdaptiveOnHeapColumnManager.setInstance(manager);
+    ImmutableSegment segment = loadSegment();
+    try {
+      Dictionary mappedDictionary = segment.getDictionary(INT_COL);
+      ForwardIndexReader<?> mappedForwardIndex = segment.getForwardIndex(INT_COL);
+      Dictionary mappedStringDictionary = segment.getDictionary(STR_COL);
+
+      // Only the accessed column is promoted
+      accessColumn(segment, INT_COL, 10);
+      manager.refresh();
+      assertEquals(manager.getNumPromotedColumns(), 1);
+      assertTrue(manager.getPromotedSizeInBytes() > 0);
+      assertTrue(segment.getDictionary(INT_COL) instanceof OnHeapIntDictionary);
+      assertNotSame(segment.getForwardIndex(INT_COL), mappedForwardIndex);
+      assertSame(segment.getDictionary(STR_COL), mappedStringDictionary);
+      assertValues(segment);
+
+      // Without accesses, the score (10) decays by half at each refresh and the column is demoted below 2
+      manager.refresh();
+      manager.refresh();
+      assertEquals(manager.getNumPromotedColumns(), 1);
+      manager.refresh();
+      assertEquals(manager.getNumPromotedColumns(), 0);
+      assertEquals(manager.getPromotedSizeInBytes(), 0);
+      assertSame(segment.getDictionary(INT_COL), mappedDictionary);
+      assertSame(segment.getForwardIndex(INT_COL), mappedForwardIndex);
+      assertValues(segment);
+    } finally {
+      segment.destroy();
+    }
+  }
+
+  @Test
+  public void testMemoryBudget()
+      throws Exception {
+    AdaptiveOnHeapColumnManager manager = new AdaptiveOnHeapColumnManager(1, 2);
+    AdaptiveOnHeapColumnManager.setInstance(manager);
+    ImmutableSegment segment = loadSegment();
+    try {
+      Dictionary mappedDictionary = segment.getDictionary(INT_COL);
+      accessColumn(segment, INT_COL, 10);
+      manager.refresh();
+      assertEquals(manager.getNumPromotedColumns(), 0);
+      assertSame(segment.getDictionary(INT_COL), mappedDictionary);
+    } finally {
+      segment.destroy();
+    }
+  }
+
+  @Test
+  public void testDestroyPromotedSegment()
+      throws Exception {
+    AdaptiveOnHeapColumnManager manager = new AdaptiveOnHeapColumnManager(Long.MAX_VALUE, 2);
+    AdaptiveOnHeapColumnManager.setInstance(manager);
+    ImmutableSegment segment = loadSegment();
+    accessColumn(segment, STR_COL, 10);
+    manager.refresh();
+    assertEquals(manager.getNumPromotedColumns(), 1);
+    assertTrue(segment.getDictionary(STR_COL) instanceof OnHeapStringDictionary);
+    segment.destroy();
+    // The columns of the destroyed segment are unregistered
+    manager.refresh();
+    assertEquals(manager.getNumPromotedColumns(), 0);
+  }
+
+  private ImmutableSegment loadSegment()
+      throws Exception {
+    return ImmutableSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME), new IndexLoadingConfig(_tableConfig, SCHEMA));
+  }
+
+  private static void accessColumn(ImmutableSegment segment, String column, int numAccesses) {
+    for (int i = 0; i < numAccesses; i++) {
+      segment.getDataSource(column, SCHEMA);
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static void assertValues(ImmutableSegment segment)
+      throws Exception {
+    Dictionary dictionary = segment.getDictionary(INT_COL);
+    ForwardIndexReader forwardIndex = segment.getForwardIndex(INT_COL);
+    try (ForwardIndexReaderContext context = forwardIndex.createContext()) {
+      for (int docId = 0; docId < NUM_ROWS; docId++) {
+        assertEquals(dictionary.getIntValue(forwardIndex.getDictId(docId, context)), docId % CARDINALITY);
+      }
+    }
+  }
+}
@@ -205,6 +205,37 @@ public class SegmentDictionaryCreatorUncompressedValueSizeTest {
     }
   }
 
+  @Test
+  public void testResolvedSvTrackedPerIndexedValue()
+      throws Exception {
+    // Dictionary ids resolved once per distinct value (e.g. remapped from a mutable dictionary) only count the bytes
+    // when the values are indexed
+    byte[] first = {1, 2, 3, 4, 5};
+    byte[] second = {10, 20, 30};
+    ByteArray[] dict = {new ByteArray(first), new ByteArray(second)};
+    Arrays.sort(dict);
+
+    for (boolean withCache : new boolean[]{true, false}) {
+      try (SegmentDictionaryCreator creator = new SegmentDictionaryCreator("col", DataType.BYTES,
+          new File(TEMP_DIR, "bytesSvResolved" + withCache + ".dict"), false, UncompressedValueSizeTracking.ENABLED)) {
+        creator.build(dict);
+        if (!withCache) {
+          clearSerializedLengthCache(creator);
+        }
+        int firstDictId = creator.resolveSV(first);
+        int secondDictId = creator.resolveSV(second);
+        assertEquals(firstDictId, creator.indexOfSV(first));
+        assertEquals(secondDictId, creator.indexOfSV(second));
+        assertEquals(creator.getTotalVariableLengthUncompressedValueSizeInBytes(), 8L);
+
+        creator.trackIndexedSV(first, firstDictId);
+        creator.trackIndexedSV(first, firstDictId);
+        creator.trackIndexedSV(second, secondDictId);
+        assertEquals(creator.getTotalVariableLengthUncompressedValueSizeInBytes(), 21L);
+      }
+    }
+  }
+
   // -----------------------------------------------------------------------
   // STRING MV
   // -----------------------------------------------------------------------
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.loader.zonemap;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.ZoneMapIndexConfig;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.Schema;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class ZoneMapHandlerTest {
+  private static final String COLUMN = "price";
+
+  @Test
+  public void testNeedUpdateWhenNumDocsPerZoneChanges()
+      throws Exception {
+    SegmentDirectory segmentDirectory = mockSegmentDirectory();
+    SegmentDirectory.Reader reader = mockReaderWithNumDocsPerZone(segmentDirectory, 1024);
+    assertTrue(createHandler(segmentDirectory, new ZoneMapIndexConfig(4096)).needUpdateIndices(reader));
+  }
+
+  @Test
+  public void testNoUpdateWhenNumDocsPerZoneUnchanged()
+      throws Exception {
+    SegmentDirectory segmentDirectory = mockSegmentDirectory();
+    SegmentDirectory.Reader reader = mockReaderWithNumDocsPerZone(segmentDirectory, 1024);
+    assertFalse(createHandler(segmentDirectory, new ZoneMapIndexConfig(1024)).needUpdateIndices(reader));
+  }
+
+  @Test
+  public void testNeedUpdateWhenColumnRemovedFromConfig()
+      throws Exception {
+    SegmentDirectory segmentDirectory = mockSegmentDirectory();
+    SegmentDirectory.Reader reader = mockReaderWithNumDocsPerZone(segmentDirectory, 1024);
+    ZoneMapHandler handler =
+        new ZoneMapHandler(segmentDirectory, Map.of(), mock(TableConfig.class), mock(Schema.class));
+    assertTrue(handler.needUpdateIndices(reader));
+  }
+
+  private static ZoneMapHandler createHandler(SegmentDirectory segmentDirectory, ZoneMapIndexConfig zoneMapConfig) {
+    FieldIndexConfigs fieldIndexConfigs =
+        new FieldIndexConfigs.Builder().add(StandardIndexes.zoneMap(), zoneMapConfig).build();
+    return new ZoneMapHandler(segmentDirectory, Map.of(COLUMN, fieldIndexConfigs), mock(TableConfig.class),
+        mock(Schema.class));
+  }
+
+  /// Creates a [SegmentDirectory] mock where the column already has a zone map on disk.
+  private static SegmentDirectory mockSegmentDirectory() {
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    when(segmentMetadata.getName()).thenReturn("testSegment");
+    when(segmentMetadata.getTotalDocs()).thenReturn(1);
+    when(segmentMetadata.getAllColumns()).thenReturn(new TreeSet<>(Set.of(COLUMN)));
+
+    SegmentDirectory segmentDirectory = mock(SegmentDirectory.class);
+    when(segmentDirectory.getSegmentMetadata()).thenReturn(segmentMetadata);
+    when(segmentDirectory.getColumnsWithIndex(StandardIndexes.zoneMap())).thenReturn(Set.of(COLUMN));
+    return segmentDirectory;
+  }
+
+  /// Creates a [SegmentDirectory.Reader] mock whose zone map buffer reports the given number of docs per zone.
+  private static SegmentDirectory.Reader mockReaderWithNumDocsPerZone(SegmentDirectory segmentDirectory,
+      int numDocsPerZone)
+      throws Exception {
+    PinotDataBuffer buffer = mock(PinotDataBuffer.class);
+    when(buffer.getInt(0)).thenReturn(ZoneMapIndexCreator.VERSION);
+    when(buffer.getInt(Integer.BYTES)).thenReturn(numDocsPerZone);
+
+    SegmentDirectory.Reader reader = mock(SegmentDirectory.Reader.class);
+    when(reader.toSegmentDirectory()).thenReturn(segmentDirectory);
+    when(reader.getIndexFor(COLUMN, StandardIndexes.zoneMap())).thenReturn(buffer);
+    return reader;
+  }
+}
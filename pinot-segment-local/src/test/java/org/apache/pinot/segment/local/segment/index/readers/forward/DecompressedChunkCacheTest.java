@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers.forward;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.PinotBuffersAfterClassCheckRule;
+import org.apache.pinot.segment.local.io.writer.impl.FixedByteChunkForwardIndexWriter;
+import org.apache.pinot.segment.local.io.writer.impl.VarByteChunkForwardIndexWriterV4;
+import org.apache.pinot.segment.local.io.writer.impl.VarByteChunkForwardIndexWriterV6;
+import org.apache.pinot.segment.local.io.writer.impl.VarByteChunkWriter;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class DecompressedChunkCacheTest implements PinotBuffersAfterClassCheckRule {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "DecompressedChunkCacheTest");
+  private static final int NUM_DOCS = 1000;
+  private static final int NUM_DOCS_PER_CHUNK = 100;
+  private static final long MAX_SIZE_IN_BYTES = 1024 * 1024;
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(TEMP_DIR);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testFixedByteChunkReader()
+      throws IOException {
+    File file = new File(TEMP_DIR, "fixedByte");
+    try (FixedByteChunkForwardIndexWriter writer = new FixedByteChunkForwardIndexWriter(file,
+        ChunkCompressionType.ZSTANDARD, NUM_DOCS, NUM_DOCS_PER_CHUNK, Integer.BYTES, 3)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        writer.putInt(i);
+      }
+    }
+    DecompressedChunkCache chunkCache = new DecompressedChunkCache(MAX_SIZE_IN_BYTES, 0);
+    try (PinotDataBuffer buffer = PinotDataBuffer.mapReadOnlyBigEndianFile(file);
+        FixedByteChunkSVForwardIndexReader reader = new FixedByteChunkSVForwardIndexReader(buffer, DataType.INT)) {
+      reader.enableChunkCache(chunkCache);
+      // The first context decompresses and caches all the chunks, the second one reads them from the cache
+      for (int i = 0; i < 2; i++) {
+        try (ChunkReaderContext context = reader.createContext()) {
+          for (int docId = 0; docId < NUM_DOCS; docId++) {
+            assertEquals(reader.getInt(docId, context), docId);
+          }
+        }
+      }
+      int numChunks = NUM_DOCS / NUM_DOCS_PER_CHUNK;
+      assertEquals(chunkCache.getNumChunks(), numChunks);
+      assertEquals(chunkCache.getSizeInBytes(), (long) NUM_DOCS * Integer.BYTES);
+      assertEquals(chunkCache.getHitRate(), 0.5);
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @DataProvider
+  public Object[][] varByteVersions() {
+    return new Object[][]{{4}, {6}};
+  }
+
+  @Test(dataProvider = "varByteVersions")
+  public void testVarByteChunkReader(int version)
+      throws IOException {
+    File file = new File(TEMP_DIR, "varByteV" + version);
+    writeStrings(file, version, ChunkCompressionType.LZ4);
+    DecompressedChunkCache chunkCache = new DecompressedChunkCache(MAX_SIZE_IN_BYTES, 0);
+    try (PinotDataBuffer buffer = PinotDataBuffer.mapReadOnlyBigEndianFile(file);
+        VarByteChunkForwardIndexReaderV4 reader = createReader(buffer, version)) {
+      reader.enableChunkCache(chunkCache);
+      try (VarByteChunkForwardIndexReaderV4.ReaderContext context = reader.createContext()) {
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          assertEquals(reader.getString(docId, context), getValue(docId));
+        }
+      }
+      long numChunks = chunkCache.getNumChunks();
+      assertTrue(numChunks > 1);
+      // Read backward with a new context so that every chunk is read from the cache
+      try (VarByteChunkForwardIndexReaderV4.ReaderContext context = reader.createContext()) {
+        for (int docId = NUM_DOCS - 1; docId >= 0; docId--) {
+          assertEquals(reader.getString(docId, context), getValue(docId));
+        }
+      }
+      assertEquals(chunkCache.getNumChunks(), numChunks);
+      assertEquals(chunkCache.getHitRate(), 0.5);
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void testAdmission()
+      throws IOException {
+    File file = new File(TEMP_DIR, "admission");
+    writeStrings(file, 4, ChunkCompressionType.LZ4);
+    // No chunk is slow enough to be admitted
+    DecompressedChunkCache chunkCache = new DecompressedChunkCache(MAX_SIZE_IN_BYTES, Long.MAX_VALUE);
+    try (PinotDataBuffer buffer = PinotDataBuffer.mapReadOnlyBigEndianFile(file);
+        VarByteChunkForwardIndexReaderV4 reader = createReader(buffer, 4);
+        VarByteChunkForwardIndexReaderV4.ReaderContext context = reader.createContext()) {
+      reader.enableChunkCache(chunkCache);
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        assertEquals(reader.getString(docId, context), getValue(docId));
+      }
+      assertEquals(chunkCache.getNumChunks(), 0);
+      assertEquals(chunkCache.getSizeInBytes(), 0);
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void testUncompressedChunksNotCached()
+      throws IOException {
+    File file = new File(TEMP_DIR, "uncompressed");
+    writeStrings(file, 4, ChunkCompressionType.PASS_THROUGH);
+    DecompressedChunkCache chunkCache = new DecompressedChunkCache(MAX_SIZE_IN_BYTES, 0);
+    try (PinotDataBuffer buffer = PinotDataBuffer.mapReadOnlyBigEndianFile(file);
+        VarByteChunkForwardIndexReaderV4 reader = createReader(buffer, 4)) {
+      reader.enableChunkCache(chunkCache);
+      try (VarByteChunkForwardIndexReaderV4.ReaderContext context = reader.createContext()) {
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          assertEquals(reader.getString(docId, context), getValue(docId));
+        }
+      }
+      assertEquals(chunkCache.getNumChunks(), 0);
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  private static void writeStrings(File file, int version, ChunkCompressionType compressionType)
+      throws IOException {
+    try (VarByteChunkWriter writer = version == 6 ? new VarByteChunkForwardIndexWriterV6(file, compressionType, 1024)
+        : new VarByteChunkForwardIndexWriterV4(file, compressionType, 1024)) {
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        writer.putString(getValue(docId));
+      }
+    }
+  }
+
+  private static VarByteChunkForwardIndexReaderV4 createReader(PinotDataBuffer buffer, int version) {
+    return version == 6 ? new VarByteChunkForwardIndexReaderV6(buffer, DataType.STRING, true)
+        : new VarByteChunkForwardIndexReaderV4(buffer, DataType.STRING, true);
+  }
+
+  private static String getValue(int docId) {
+    return "value_" + docId;
+  }
+}
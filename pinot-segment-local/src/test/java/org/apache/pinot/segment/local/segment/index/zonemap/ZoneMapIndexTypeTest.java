@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.zonemap;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.local.segment.index.AbstractSerdeIndexContract;
+import org.apache.pinot.segment.local.segment.index.readers.ZoneMapIndexReaderImpl;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.ZoneMapIndexConfig;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class ZoneMapIndexTypeTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "ZoneMapIndexTypeTest");
+  private static final String COLUMN_NAME = "col";
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(TEMP_DIR);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  public static class ConfTest extends AbstractSerdeIndexContract {
+
+    protected void assertEquals(ZoneMapIndexConfig expected) {
+      Assert.assertEquals(getActualConfig("dimInt", StandardIndexes.zoneMap()), expected);
+    }
+
+    @Test
+    public void defaultDisabled() {
+      assertEquals(ZoneMapIndexConfig.DISABLED);
+    }
+
+    @Test
+    public void newConfEnabled()
+        throws IOException {
+      addFieldIndexConfig("{"
+          + "    \"name\": \"dimInt\",\n"
+          + "    \"indexes\" : {\n"
+          + "      \"zonemap\": {}\n"
+          + "    }"
+          + "}");
+
+      assertEquals(ZoneMapIndexConfig.DEFAULT);
+    }
+
+    @Test
+    public void newConfWithNumDocsPerZone()
+        throws IOException {
+      addFieldIndexConfig("{"
+          + "    \"name\": \"dimInt\",\n"
+          + "    \"indexes\" : {\n"
+          + "      \"zonemap\": {\n"
+          + "        \"numDocsPerZone\": 1024\n"
+          + "      }\n"
+          + "    }"
+          + "}");
+
+      assertEquals(new ZoneMapIndexConfig(1024));
+    }
+  }
+
+  @Test
+  public void testLongValues()
+      throws IOException {
+    int numDocs = 1000;
+    int numDocsPerZone = 128;
+    try (ZoneMapIndexCreator creator = new ZoneMapIndexCreator(TEMP_DIR, COLUMN_NAME, DataType.INT, numDocsPerZone,
+        numDocs)) {
+      for (int i = 0; i < numDocs; i++) {
+        // Values are increasing with some noise within each zone
+        creator.addInt(i * 10 - (i % 3), -1);
+      }
+      creator.seal();
+    }
+    File indexFile = new File(TEMP_DIR, COLUMN_NAME + V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION);
+    try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(indexFile);
+        ZoneMapIndexReaderImpl reader = new ZoneMapIndexReaderImpl(dataBuffer)) {
+      assertEquals(reader.getNumDocsPerZone(), numDocsPerZone);
+      int numZones = (numDocs + numDocsPerZone - 1) / numDocsPerZone;
+      assertEquals(reader.getNumZones(), numZones);
+      for (int zoneId = 0; zoneId < numZones; zoneId++) {
+        long expectedMin = Long.MAX_VALUE;
+        long expectedMax = Long.MIN_VALUE;
+        for (int i = zoneId * numDocsPerZone; i < Math.min((zoneId + 1) * numDocsPerZone, numDocs); i++) {
+          expectedMin = Math.min(expectedMin, i * 10 - (i % 3));
+          expectedMax = Math.max(expectedMax, i * 10 - (i % 3));
+        }
+        assertEquals(reader.getLongMinValue(zoneId), expectedMin);
+        assertEquals(reader.getLongMaxValue(zoneId), expectedMax);
+      }
+    } finally {
+      FileUtils.deleteQuietly(indexFile);
+    }
+  }
+
+  @Test
+  public void testDoubleValues()
+      throws IOException {
+    int numDocsPerZone = 4;
+    try (ZoneMapIndexCreator creator = new ZoneMapIndexCreator(TEMP_DIR, COLUMN_NAME, DataType.DOUBLE, numDocsPerZone,
+        10)) {
+      double[] values = {1.5, -2.0, 3.0, 0.0, 4.0, Double.NaN, 5.0, 6.0, 7.5, -7.5};
+      for (double value : values) {
+        creator.add(value, -1);
+      }
+      creator.seal();
+    }
+    File indexFile = new File(TEMP_DIR, COLUMN_NAME + V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION);
+    try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(indexFile);
+        ZoneMapIndexReaderImpl reader = new ZoneMapIndexReaderImpl(dataBuffer)) {
+      assertEquals(reader.getNumZones(), 3);
+      assertEquals(reader.getDoubleMinValue(0), -2.0);
+      assertEquals(reader.getDoubleMaxValue(0), 3.0);
+      // Zone with NaN
+      assertTrue(Double.isNaN(reader.getDoubleMinValue(1)));
+      assertTrue(Double.isNaN(reader.getDoubleMaxValue(1)));
+      // Last partial zone
+      assertEquals(reader.getDoubleMinValue(2), -7.5);
+      assertEquals(reader.getDoubleMaxValue(2), 7.5);
+    } finally {
+      FileUtils.deleteQuietly(indexFile);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
 import org.apache.pinot.segment.spi.index.reader.Dictionary;
 import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReaderContext;
 import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
 import org.apache.pinot.spi.data.DimensionFieldSpec;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -43,6 +44,8 @@ public class LazyRowTest {
 
   private DataSource _col1Datasource;
   private Dictionary _col2Dictionary;
+  private ForwardIndexReader _col2ForwardIndexReader;
+  private ForwardIndexReaderContext _col2ForwardIndexReaderContext;
 
   @Test
   public void testIsNullField() {
@@ -78,6 +81,34 @@ public class LazyRowTest {
     assertNull(lazyRow.getValue("col1"));
   }
 
+  @Test
+  public void testColumnReadersReusedWithinSegment() {
+    IndexSegment segment = getMockSegment();
+    ForwardIndexReader forwardIndexReader = _col2ForwardIndexReader;
+    ForwardIndexReaderContext forwardIndexReaderContext = _col2ForwardIndexReaderContext;
+    LazyRow lazyRow = new LazyRow();
+    lazyRow.init(segment, 1);
+    assertEquals(lazyRow.getValue("col2"), "val2");
+    lazyRow.clear();
+
+    // Re-initializing on the same segment reuses the open column reader
+    lazyRow.init(segment, 1);
+    assertEquals(lazyRow.getValue("col2"), "val2");
+    verify(_col2Dictionary, times(2)).get(1);
+    verify(forwardIndexReader, times(1)).createContext();
+    verify(forwardIndexReaderContext, never()).close();
+
+    // Re-initializing on another segment closes the column readers of the previous segment
+    IndexSegment otherSegment = getMockSegment();
+    lazyRow.init(otherSegment, 1);
+    verify(forwardIndexReaderContext, times(1)).close();
+    assertEquals(lazyRow.getValue("col2"), "val2");
+    verify(_col2ForwardIndexReader, times(1)).createContext();
+
+    lazyRow.close();
+    verify(_col2ForwardIndexReaderContext, times(1)).close();
+  }
+
   @Test
   public void testGetColumnNames() {
     IndexSegment segment = getMockSegment();
@@ -115,12 +146,14 @@ public class LazyRowTest {
     ForwardIndexReader col1ForwardIndexReader = mock(ForwardIndexReader.class);
     when(col1ForwardIndexReader.isSingleValue()).thenReturn(true);
     when(col1ForwardIndexReader.isDictionaryEncoded()).thenReturn(true);
-    ForwardIndexReader col2ForwardIndexReader = mock(ForwardIndexReader.class);
-    when(col2ForwardIndexReader.isSingleValue()).thenReturn(true);
-    when(col2ForwardIndexReader.isDictionaryEncoded()).thenReturn(true);
+    _col2ForwardIndexReader = mock(ForwardIndexReader.class);
+    when(_col2ForwardIndexReader.isSingleValue()).thenReturn(true);
+    when(_col2ForwardIndexReader.isDictionaryEncoded()).thenReturn(true);
+    _col2ForwardIndexReaderContext = mock(ForwardIndexReaderContext.class);
+    when(_col2ForwardIndexReader.createContext()).thenReturn(_col2ForwardIndexReaderContext);
     when(_col1Datasource.getForwardIndex()).thenReturn(col1ForwardIndexReader);
-    when(col2Datasource.getForwardIndex()).thenReturn(col2ForwardIndexReader);
-    when(col2ForwardIndexReader.getDictId(eq(1), any())).thenReturn(1);
+    when(col2Datasource.getForwardIndex()).thenReturn(_col2ForwardIndexReader);
+    when(_col2ForwardIndexReader.getDictId(eq(1), any())).thenReturn(1);
 
     Dictionary col1Dictionary = mock(Dictionary.class);
     when(_col1Datasource.getDictionary()).thenReturn(col1Dictionary);
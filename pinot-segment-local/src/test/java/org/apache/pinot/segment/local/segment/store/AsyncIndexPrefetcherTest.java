@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class AsyncIndexPrefetcherTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "AsyncIndexPrefetcherTest");
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(TEMP_DIR);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testToBatches() {
+    long gap = AsyncIndexPrefetcher.MAX_COALESCE_GAP_BYTES;
+    long maxBatchSize = AsyncIndexPrefetcher.MAX_BATCH_SIZE_BYTES;
+
+    // Unsorted ranges close to each other are coalesced, and empty ranges are skipped
+    List<List<AsyncIndexPrefetcher.Range>> batches = AsyncIndexPrefetcher.toBatches(
+        List.of(new AsyncIndexPrefetcher.Range(1000 + gap, 100), new AsyncIndexPrefetcher.Range(0, 1000),
+            new AsyncIndexPrefetcher.Range(500, 0)));
+    assertEquals(batches.size(), 1);
+    assertEquals(batches.get(0).size(), 1);
+    assertRange(batches.get(0).get(0), 0, 1100 + gap);
+
+    // Ranges far from each other are kept apart in the same batch
+    batches = AsyncIndexPrefetcher.toBatches(
+        List.of(new AsyncIndexPrefetcher.Range(0, 100), new AsyncIndexPrefetcher.Range(101 + gap, 100)));
+    assertEquals(batches.size(), 1);
+    assertEquals(batches.get(0).size(), 2);
+    assertRange(batches.get(0).get(0), 0, 100);
+    assertRange(batches.get(0).get(1), 101 + gap, 100);
+
+    // Large ranges are split across batches
+    batches = AsyncIndexPrefetcher.toBatches(List.of(new AsyncIndexPrefetcher.Range(10, 2 * maxBatchSize + 1)));
+    assertEquals(batches.size(), 3);
+    assertRange(batches.get(0).get(0), 10, maxBatchSize);
+    assertRange(batches.get(1).get(0), 10 + maxBatchSize, maxBatchSize);
+    assertRange(batches.get(2).get(0), 10 + 2 * maxBatchSize, 1);
+
+    assertTrue(AsyncIndexPrefetcher.toBatches(List.of()).isEmpty());
+  }
+
+  @Test
+  public void testPrefetch()
+      throws Exception {
+    File file = new File(TEMP_DIR, "columns.psf");
+    FileUtils.writeByteArrayToFile(file, new byte[3 * 1024 * 1024]);
+    AsyncIndexPrefetcher prefetcher = new AsyncIndexPrefetcher(2, 16, 0);
+    // Ranges past the end of the file are read up to the end of the file
+    assertTrue(prefetcher.prefetch(file, List.of(new AsyncIndexPrefetcher.Range(0, 1024),
+            new AsyncIndexPrefetcher.Range(1024 * 1024, 8 * 1024 * 1024)))
+        .get(10, TimeUnit.SECONDS));
+    // Failures are ignored
+    assertTrue(prefetcher.prefetch(new File(TEMP_DIR, "missing"), List.of(new AsyncIndexPrefetcher.Range(0, 1024)))
+        .get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testNeedsPrefetch() {
+    AsyncIndexPrefetcher prefetcher = new AsyncIndexPrefetcher(1, 1, 1000);
+    assertTrue(prefetcher.needsPrefetch(null, 5000));
+    assertFalse(prefetcher.needsPrefetch(4500L, 5000));
+    // The pages might have been evicted since the last prefetch
+    assertTrue(prefetcher.needsPrefetch(4000L, 5000));
+  }
+
+  @Test
+  public void testDropBatchesWhenQueueIsFull()
+      throws Exception {
+    AsyncIndexPrefetcher prefetcher = new AsyncIndexPrefetcher(1, 1, 0);
+    CountDownLatch runningLatch = new CountDownLatch(1);
+    CountDownLatch blockLatch = new CountDownLatch(1);
+    CompletableFuture<Boolean> running = prefetcher.runAsync(() -> {
+      runningLatch.countDown();
+      try {
+        blockLatch.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertTrue(runningLatch.await(10, TimeUnit.SECONDS));
+    CompletableFuture<Boolean> queued = prefetcher.runAsync(() -> {
+    });
+    // The queue is full, so the task is dropped and the future is completed right away
+    CompletableFuture<Boolean> dropped = prefetcher.runAsync(() -> {
+    });
+    assertTrue(dropped.isDone());
+    assertFalse(dropped.getNow(true));
+    assertFalse(queued.isDone());
+    // So is a prefetch whose batch does not fit in the queue
+    assertFalse(prefetcher.prefetch(new File(TEMP_DIR, "missing"), List.of(new AsyncIndexPrefetcher.Range(0, 1024)))
+        .getNow(true));
+    blockLatch.countDown();
+    assertTrue(running.get(10, TimeUnit.SECONDS));
+    assertTrue(queued.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testIsRequested() {
+    IndexKey forwardIndexKey = new IndexKey("col", StandardIndexes.forward());
+    IndexKey dictionaryKey = new IndexKey("col", StandardIndexes.dictionary());
+    FetchContext allIndexes = new FetchContext(UUID.randomUUID(), "segment", Set.of("col"));
+    assertTrue(AsyncIndexPrefetcher.isRequested(allIndexes, forwardIndexKey));
+    assertTrue(AsyncIndexPrefetcher.isRequested(allIndexes, dictionaryKey));
+    FetchContext forwardIndexOnly =
+        new FetchContext(UUID.randomUUID(), "segment", Map.of("col", List.of(StandardIndexes.forward())));
+    assertTrue(AsyncIndexPrefetcher.isRequested(forwardIndexOnly, forwardIndexKey));
+    assertFalse(AsyncIndexPrefetcher.isRequested(forwardIndexOnly, dictionaryKey));
+    assertFalse(AsyncIndexPrefetcher.isRequested(forwardIndexOnly, new IndexKey("other", StandardIndexes.forward())));
+  }
+
+  private static void assertRange(AsyncIndexPrefetcher.Range range, long offset, long size) {
+    assertEquals(range.getOffset(), offset);
+    assertEquals(range.getSize(), size);
+  }
+}
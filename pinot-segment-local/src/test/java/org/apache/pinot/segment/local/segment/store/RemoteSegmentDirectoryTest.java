@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.PinotBuffersAfterMethodCheckRule;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.SegmentTestUtils;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.creator.SegmentIndexCreationDriver;
+import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.index.IndexType;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.util.TestUtils;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+
+public class RemoteSegmentDirectoryTest implements PinotBuffersAfterMethodCheckRule {
+  private static final File TEMP_DIR =
+      new File(FileUtils.getTempDirectory(), RemoteSegmentDirectoryTest.class.toString());
+  private static final String AVRO_FILE_PATH = "data" + File.separator + "test_sample_data.avro";
+  private static final File INDEX_DIR = new File(TEMP_DIR, "segment");
+  private static final File SEGMENT_DIR = new File(INDEX_DIR, SegmentVersion.v3.name());
+  private static final File REMOTE_INDEX_FILE = new File(TEMP_DIR, "remote/" + V1Constants.INDEX_FILE_NAME);
+  private static final int NUM_COLUMNS = 3;
+  private static final int INDEX_SIZE = 1024;
+  // Each cached range includes the magic marker in front of the index
+  private static final long RANGE_SIZE = INDEX_SIZE + SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES;
+
+  private SegmentMetadataImpl _segmentMetadata;
+
+  @BeforeMethod
+  public void setUp()
+      throws Exception {
+    TestUtils.ensureDirectoriesExistAndEmpty(TEMP_DIR, SEGMENT_DIR);
+    _segmentMetadata = Mockito.mock(SegmentMetadataImpl.class);
+    when(_segmentMetadata.getVersion()).thenReturn(SegmentVersion.v3);
+    when(_segmentMetadata.getStarTreeV2MetadataList()).thenReturn(null);
+    when(_segmentMetadata.getName()).thenReturn("testSegment");
+    when(_segmentMetadata.getTableName()).thenReturn("testTable");
+    when(_segmentMetadata.getCustomMap()).thenReturn(Map.of());
+    Set<String> columns = new TreeSet<>();
+    for (int i = 0; i < NUM_COLUMNS; i++) {
+      columns.add(getColumn(i));
+    }
+    when(_segmentMetadata.getAllColumns()).thenReturn(columns);
+
+    try (SingleFileIndexDirectory columnDirectory = new SingleFileIndexDirectory(SEGMENT_DIR, _segmentMetadata,
+        ReadMode.mmap)) {
+      for (int i = 0; i < NUM_COLUMNS; i++) {
+        try (PinotDataBuffer buffer = columnDirectory.newBuffer(getColumn(i), StandardIndexes.forward(),
+            INDEX_SIZE)) {
+          for (int j = 0; j < INDEX_SIZE; j++) {
+            buffer.putByte(j, getByte(i, j));
+          }
+        }
+      }
+    }
+    RemoteSegmentDirectory.offloadIndexFile(SEGMENT_DIR, REMOTE_INDEX_FILE.toURI());
+  }
+
+  @AfterMethod
+  public void tearDown()
+      throws IOException {
+    FileUtils.deleteDirectory(TEMP_DIR);
+  }
+
+  @Test
+  public void testReadIndexes()
+      throws Exception {
+    assertTrue(RemoteSegmentDirectory.isIndexFileRemote(SEGMENT_DIR));
+    assertFalse(new File(SEGMENT_DIR, V1Constants.INDEX_FILE_NAME).exists());
+    assertTrue(REMOTE_INDEX_FILE.exists());
+
+    RemoteIndexCache cache = new RemoteIndexCache(NUM_COLUMNS * RANGE_SIZE, null);
+    try (RemoteSegmentDirectory segmentDirectory = new RemoteSegmentDirectory(INDEX_DIR, _segmentMetadata, cache)) {
+      assertEquals(segmentDirectory.getColumnsWithIndex(StandardIndexes.forward()),
+          _segmentMetadata.getAllColumns());
+      assertTrue(segmentDirectory.getColumnsWithIndex(StandardIndexes.dictionary()).isEmpty());
+      // Indexes are fetched lazily
+      assertEquals(cache.getNumCachedRanges(), 0);
+
+      SegmentDirectory.Reader reader = segmentDirectory.createReader();
+      assertTrue(reader.hasIndexFor(getColumn(0), StandardIndexes.forward()));
+      assertFalse(reader.hasIndexFor(getColumn(0), StandardIndexes.dictionary()));
+      verifyIndex(reader, 0);
+      assertEquals(cache.getNumCachedRanges(), 1);
+      assertEquals(cache.getSizeInBytes(), RANGE_SIZE);
+      for (int i = 0; i < NUM_COLUMNS; i++) {
+        verifyIndex(reader, i);
+      }
+      assertEquals(cache.getNumCachedRanges(), NUM_COLUMNS);
+      assertThrows(UnsupportedOperationException.class, segmentDirectory::createWriter);
+    }
+    // Ranges of the closed segment are dropped from the cache
+    assertEquals(cache.getNumCachedRanges(), 0);
+    assertEquals(cache.getSizeInBytes(), 0);
+  }
+
+  @Test
+  public void testEviction()
+      throws Exception {
+    RemoteIndexCache cache = new RemoteIndexCache(2 * RANGE_SIZE, null);
+    try (RemoteSegmentDirectory segmentDirectory = new RemoteSegmentDirectory(INDEX_DIR, _segmentMetadata, cache)) {
+      SegmentDirectory.Reader reader = segmentDirectory.createReader();
+      for (int i = 0; i < NUM_COLUMNS; i++) {
+        verifyIndex(reader, i);
+        assertTrue(cache.getSizeInBytes() <= cache.getCapacityBytes());
+      }
+      assertEquals(cache.getNumCachedRanges(), 2);
+
+      // The least recently used index is evicted, and fetched again on access
+      FileUtils.delete(REMOTE_INDEX_FILE);
+      verifyIndex(reader, 2);
+      assertThrows(UncheckedIOException.class, () -> verifyIndex(reader, 0));
+    }
+  }
+
+  @Test
+  public void testPinnedIndexesNotEvicted()
+      throws Exception {
+    RemoteIndexCache cache = new RemoteIndexCache(2 * RANGE_SIZE, null);
+    try (RemoteSegmentDirectory segmentDirectory = new RemoteSegmentDirectory(INDEX_DIR, _segmentMetadata, cache)) {
+      SegmentDirectory.Reader reader = segmentDirectory.createReader();
+      FetchContext fetchContext = new FetchContext(UUID.randomUUID(), "testSegment",
+          Map.<String, List<IndexType<?, ?, ?>>>of(getColumn(0), List.of(StandardIndexes.forward())));
+      segmentDirectory.acquire(fetchContext);
+      assertEquals(cache.getNumCachedRanges(), 1);
+
+      // Column 1 is evicted instead of the pinned column 0
+      verifyIndex(reader, 1);
+      verifyIndex(reader, 2);
+      assertEquals(cache.getNumCachedRanges(), 2);
+      File backupIndexFile = new File(TEMP_DIR, "backup");
+      FileUtils.moveFile(REMOTE_INDEX_FILE, backupIndexFile);
+      verifyIndex(reader, 0);
+      verifyIndex(reader, 2);
+      assertThrows(UncheckedIOException.class, () -> verifyIndex(reader, 1));
+      FileUtils.moveFile(backupIndexFile, REMOTE_INDEX_FILE);
+
+      // Column 0 can be evicted once released
+      segmentDirectory.release(fetchContext);
+      verifyIndex(reader, 1);
+      assertEquals(cache.getNumCachedRanges(), 2);
+      FileUtils.delete(REMOTE_INDEX_FILE);
+      verifyIndex(reader, 1);
+      assertThrows(UncheckedIOException.class, () -> verifyIndex(reader, 0));
+    }
+  }
+
+  @Test
+  public void testCacheDir()
+      throws Exception {
+    File cacheDir = new File(TEMP_DIR, "cache");
+    RemoteIndexCache cache = new RemoteIndexCache(NUM_COLUMNS * RANGE_SIZE, cacheDir);
+    try (RemoteSegmentDirectory segmentDirectory = new RemoteSegmentDirectory(INDEX_DIR, _segmentMetadata, cache)) {
+      SegmentDirectory.Reader reader = segmentDirectory.createReader();
+      for (int i = 0; i < NUM_COLUMNS; i++) {
+        verifyIndex(reader, i);
+      }
+      assertEquals(cache.getNumCachedRanges(), NUM_COLUMNS);
+      // Block files are deleted once mapped
+      assertEquals(cacheDir.list().length, 0);
+    }
+  }
+
+  @Test
+  public void testCopyToAndRestore()
+      throws Exception {
+    File destDir = new File(TEMP_DIR, "copy");
+    RemoteIndexCache cache = new RemoteIndexCache(NUM_COLUMNS * RANGE_SIZE, null);
+    try (RemoteSegmentDirectory segmentDirectory = new RemoteSegmentDirectory(INDEX_DIR, _segmentMetadata, cache)) {
+      segmentDirectory.copyTo(destDir);
+    }
+    File destSegmentDir = new File(destDir, SegmentVersion.v3.name());
+    assertFalse(RemoteSegmentDirectory.isIndexFileRemote(destSegmentDir));
+    assertFalse(new File(destSegmentDir, RemoteSegmentDirectory.REMOTE_INDEX_FILE_URI_FILE_NAME).exists());
+    verifyLocalIndexes(destSegmentDir);
+
+    // The source segment is left on the remote tier
+    assertTrue(RemoteSegmentDirectory.isIndexFileRemote(SEGMENT_DIR));
+    assertTrue(RemoteSegmentDirectory.restoreIndexFile(SEGMENT_DIR));
+    assertFalse(RemoteSegmentDirectory.isIndexFileRemote(SEGMENT_DIR));
+    assertFalse(RemoteSegmentDirectory.restoreIndexFile(SEGMENT_DIR));
+    verifyLocalIndexes(SEGMENT_DIR);
+  }
+
+  @Test
+  public void testLoadSegment()
+      throws Exception {
+    URL resourceUrl = getClass().getClassLoader().getResource(AVRO_FILE_PATH);
+    assertNotNull(resourceUrl);
+    SegmentGeneratorConfig config = SegmentTestUtils.getSegmentGeneratorConfigWithoutTimeColumn(
+        new File(resourceUrl.toURI()), new File(TEMP_DIR, "local"), "testTable");
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config);
+    driver.build();
+    File localIndexDir = new File(TEMP_DIR, "local/" + driver.getSegmentName());
+    File remoteIndexDir = new File(TEMP_DIR, "remoteTier/" + driver.getSegmentName());
+    FileUtils.copyDirectory(localIndexDir, remoteIndexDir);
+    File remoteSegmentDir = SegmentDirectoryPaths.segmentDirectoryFor(remoteIndexDir, SegmentVersion.v3);
+    File remoteIndexFile = new File(TEMP_DIR, "remoteTierIndex/" + V1Constants.INDEX_FILE_NAME);
+    RemoteSegmentDirectory.offloadIndexFile(remoteSegmentDir, remoteIndexFile.toURI());
+    int numIndexes = SingleFileIndexDirectory.loadIndexMap(remoteSegmentDir).size();
+
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig(config.getTableConfig(), config.getSchema());
+    RemoteIndexCache cache = new RemoteIndexCache(remoteIndexFile.length(), null);
+    ImmutableSegment localSegment = ImmutableSegmentLoader.load(localIndexDir, indexLoadingConfig);
+    ImmutableSegment remoteSegment = ImmutableSegmentLoader.load(
+        new RemoteSegmentDirectory(remoteIndexDir, new SegmentMetadataImpl(remoteIndexDir), cache),
+        indexLoadingConfig);
+    try {
+      // Creating the index readers only fetches the small indexes and the head of the large ones
+      long headRangeSize = SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES
+          + RemoteSegmentDirectory.HEAD_RANGE_DATA_SIZE;
+      assertTrue(cache.getSizeInBytes() <= numIndexes * headRangeSize);
+      assertTrue(cache.getSizeInBytes() < remoteIndexFile.length());
+
+      int numDocs = localSegment.getSegmentMetadata().getTotalDocs();
+      assertEquals(remoteSegment.getSegmentMetadata().getTotalDocs(), numDocs);
+      for (String column : localSegment.getPhysicalColumnNames()) {
+        for (int docId = 0; docId < numDocs; docId++) {
+          assertEquals(remoteSegment.getValue(docId, column), localSegment.getValue(docId, column),
+              "Value mismatch for column: " + column + ", docId: " + docId);
+        }
+      }
+    } finally {
+      localSegment.destroy();
+      remoteSegment.destroy();
+    }
+    // The cached ranges are released with the segment
+    assertEquals(cache.getNumCachedRanges(), 0);
+    assertEquals(cache.getSizeInBytes(), 0);
+  }
+
+  private void verifyLocalIndexes(File segmentDir)
+      throws Exception {
+    try (SingleFileIndexDirectory columnDirectory = new SingleFileIndexDirectory(segmentDir, _segmentMetadata,
+        ReadMode.mmap)) {
+      for (int i = 0; i < NUM_COLUMNS; i++) {
+        try (PinotDataBuffer buffer = columnDirectory.getBuffer(getColumn(i), StandardIndexes.forward())) {
+          verifyBuffer(buffer, i);
+        }
+      }
+    }
+  }
+
+  private static void verifyIndex(SegmentDirectory.Reader reader, int columnId) {
+    try {
+      verifyBuffer(reader.getIndexFor(getColumn(columnId), StandardIndexes.forward()), columnId);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void verifyBuffer(PinotDataBuffer buffer, int columnId) {
+    assertEquals(buffer.size(), INDEX_SIZE);
+    for (int j = 0; j < INDEX_SIZE; j++) {
+      assertEquals(buffer.getByte(j), getByte(columnId, j));
+    }
+  }
+
+  private static String getColumn(int columnId) {
+    return "col" + columnId;
+  }
+
+  private static byte getByte(int columnId, int offset) {
+    return (byte) (columnId * 31 + offset);
+  }
+}
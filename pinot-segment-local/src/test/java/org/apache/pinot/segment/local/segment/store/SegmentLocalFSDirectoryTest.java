@@ -19,9 +19,13 @@
 package org.apache.pinot.segment.local.segment.store;
 
 import java.io.File;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.segment.local.PinotBuffersAfterClassCheckRule;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.index.StandardIndexes;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
@@ -34,6 +38,14 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 
 public class SegmentLocalFSDirectoryTest implements PinotBuffersAfterClassCheckRule {
   // Self-scoped unique dir (was derived from SingleFileIndexDirectoryTest.class) so parallel forks
@@ -121,6 +133,52 @@ public class SegmentLocalFSDirectoryTest implements PinotBuffersAfterClassCheckR
     }
   }
 
+  @Test
+  public void testPrefetch()
+      throws Exception {
+    try (SegmentDirectory.Writer writer = _segmentDirectory.createWriter()) {
+      Assert.assertNotNull(writer);
+      loadData(writer.newIndexFor("prefetchColumn", StandardIndexes.forward(), 1024));
+      loadData(writer.newIndexFor("droppedColumn", StandardIndexes.forward(), 1024));
+      writer.save();
+    }
+    FetchContext prefetchContext = new FetchContext(UUID.randomUUID(), "segment",
+        Map.of("prefetchColumn", List.of(StandardIndexes.forward())));
+    FetchContext droppedContext = new FetchContext(UUID.randomUUID(), "segment",
+        Map.of("droppedColumn", List.of(StandardIndexes.forward())));
+    // The writer unloads the indexes when closed, and the reader loads them again
+    try (SegmentDirectory.Reader reader = _segmentDirectory.createReader()) {
+      Assert.assertNotNull(reader);
+      // The index is skipped while it was prefetched recently
+      AsyncIndexPrefetcher prefetcher = spy(new AsyncIndexPrefetcher(1, 16, 3_600_000L));
+      AsyncIndexPrefetcher.setInstance(prefetcher);
+      _segmentDirectory.prefetch(prefetchContext);
+      _segmentDirectory.prefetch(prefetchContext);
+      verify(prefetcher, times(1)).prefetch(any(File.class), anyList());
+
+      // The index is prefetched again once the min interval elapsed, in case its pages were evicted
+      prefetcher = spy(new AsyncIndexPrefetcher(1, 16, 0));
+      AsyncIndexPrefetcher.setInstance(prefetcher);
+      _segmentDirectory.prefetch(prefetchContext);
+      _segmentDirectory.prefetch(prefetchContext);
+      verify(prefetcher, times(2)).prefetch(any(File.class), anyList());
+
+      // The index is not recorded as prefetched when its batch is dropped
+      prefetcher = spy(new AsyncIndexPrefetcher(1, 16, 3_600_000L));
+      AsyncIndexPrefetcher.setInstance(prefetcher);
+      doReturn(CompletableFuture.completedFuture(false)).when(prefetcher).prefetch(any(File.class), anyList());
+      _segmentDirectory.prefetch(droppedContext);
+      _segmentDirectory.prefetch(droppedContext);
+      verify(prefetcher, times(2)).prefetch(any(File.class), anyList());
+      doCallRealMethod().when(prefetcher).prefetch(any(File.class), anyList());
+      _segmentDirectory.prefetch(droppedContext);
+      _segmentDirectory.prefetch(droppedContext);
+      verify(prefetcher, times(3)).prefetch(any(File.class), anyList());
+    } finally {
+      AsyncIndexPrefetcher.setInstance(null);
+    }
+  }
+
   @Test
   public void testDirectorySize()
       throws Exception {
@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+
+public class OffHeapPartitionUpsertMetadataManagerTest {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String REALTIME_TABLE_NAME = TableNameBuilder.REALTIME.tableNameWithType(RAW_TABLE_NAME);
+  private static final List<String> PRIMARY_KEY_COLUMNS = List.of("pk");
+  private static final List<String> COMPARISON_COLUMNS = List.of("timeCol");
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory(), "OffHeapPartitionUpsertMetadataManagerTest");
+  private static final Schema SCHEMA = new Schema.SchemaBuilder()
+      .setSchemaName(RAW_TABLE_NAME)
+      .addSingleValueDimension(PRIMARY_KEY_COLUMNS.get(0), DataType.INT)
+      .addMetric(COMPARISON_COLUMNS.get(0), DataType.LONG)
+      .setPrimaryKeyColumns(PRIMARY_KEY_COLUMNS)
+      .build();
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(INDEX_DIR);
+    ServerMetrics.register(mock(ServerMetrics.class));
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    FileUtils.forceDelete(INDEX_DIR);
+  }
+
+  private UpsertContext.Builder getContextBuilder(HashFunction hashFunction) {
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getTableDataDir()).thenReturn(INDEX_DIR);
+    return new UpsertContext.Builder()
+        .setTableConfig(mock(TableConfig.class))
+        .setSchema(SCHEMA)
+        .setTableDataManager(tableDataManager)
+        .setPrimaryKeyColumns(PRIMARY_KEY_COLUMNS)
+        .setComparisonColumns(COMPARISON_COLUMNS)
+        .setHashFunction(hashFunction);
+  }
+
+  @Test
+  public void testPrimaryKeyIndex()
+      throws IOException {
+    Random random = new Random();
+    Map<ByteArray, long[]> expected = new HashMap<>();
+    try (DirectMemoryManager memoryManager = new DirectMemoryManager("testPrimaryKeyIndex");
+        OffHeapPrimaryKeyIndex primaryKeyIndex = new OffHeapPrimaryKeyIndex(memoryManager, "test", 4, 4)) {
+      // Insert, update and remove keys, with enough keys to grow every shard multiple times
+      for (int i = 0; i < 100_000; i++) {
+        ByteArray key = (ByteArray) HashUtils.hashPrimaryKey(new PrimaryKey(new Object[]{random.nextInt(50_000)}),
+            HashFunction.MURMUR3);
+        long k0 = OffHeapPrimaryKeyIndex.getKeyPart(key.getBytes(), 0);
+        long k1 = OffHeapPrimaryKeyIndex.getKeyPart(key.getBytes(), 1);
+        OffHeapPrimaryKeyIndex.Shard shard = primaryKeyIndex.getShard(k0, k1);
+        long location = OffHeapPrimaryKeyIndex.getLocation(1 + random.nextInt(10), i);
+        synchronized (shard) {
+          int slot = shard.find(k0, k1);
+          assertEquals(slot >= 0, expected.containsKey(key));
+          if (slot >= 0 && random.nextInt(4) == 0) {
+            shard.remove(slot);
+            expected.remove(key);
+          } else if (slot >= 0) {
+            shard.set(slot, location, i);
+            expected.put(key, new long[]{location, i});
+          } else {
+            shard.put(k0, k1, location, i);
+            expected.put(key, new long[]{location, i});
+          }
+        }
+      }
+      assertEquals(primaryKeyIndex.size(), expected.size());
+      assertTrue(primaryKeyIndex.getSizeInBytes() >= expected.size() * (long) OffHeapPrimaryKeyIndex.SLOT_SIZE);
+      verifyPrimaryKeyIndex(primaryKeyIndex, expected);
+
+      // Remove the keys of some segments
+      int numRemoved = primaryKeyIndex.removeIf(
+          (location, comparisonValue) -> OffHeapPrimaryKeyIndex.getSegmentOrdinal(location) <= 5);
+      int expectedNumRemoved = expected.size();
+      expected.values().removeIf(value -> OffHeapPrimaryKeyIndex.getSegmentOrdinal(value[0]) <= 5);
+      expectedNumRemoved -= expected.size();
+      assertEquals(numRemoved, expectedNumRemoved);
+      assertEquals(primaryKeyIndex.size(), expected.size());
+      verifyPrimaryKeyIndex(primaryKeyIndex, expected);
+    }
+  }
+
+  private static void verifyPrimaryKeyIndex(OffHeapPrimaryKeyIndex primaryKeyIndex, Map<ByteArray, long[]> expected) {
+    for (Map.Entry<ByteArray, long[]> entry : expected.entrySet()) {
+      byte[] keyHash = entry.getKey().getBytes();
+      long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+      long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+      OffHeapPrimaryKeyIndex.Shard shard = primaryKeyIndex.getShard(k0, k1);
+      synchronized (shard) {
+        int slot = shard.find(k0, k1);
+        assertTrue(slot >= 0);
+        assertEquals(shard.getLocation(slot), entry.getValue()[0]);
+        assertEquals(shard.getComparisonValue(slot), entry.getValue()[1]);
+      }
+    }
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue(OffHeapPartitionUpsertMetadataManager.isSupported(getContextBuilder(HashFunction.MD5).build()));
+    assertTrue(OffHeapPartitionUpsertMetadataManager.isSupported(getContextBuilder(HashFunction.XXHASH).build()));
+    // Variable width key hashes
+    assertFalse(OffHeapPartitionUpsertMetadataManager.isSupported(getContextBuilder(HashFunction.NONE).build()));
+    assertFalse(OffHeapPartitionUpsertMetadataManager.isSupported(getContextBuilder(HashFunction.UUID).build()));
+    // Multiple comparison columns
+    assertFalse(OffHeapPartitionUpsertMetadataManager.isSupported(
+        getContextBuilder(HashFunction.MD5).setComparisonColumns(List.of("timeCol", "pk")).build()));
+    expectThrows(IllegalArgumentException.class,
+        () -> new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+            getContextBuilder(HashFunction.NONE).build()));
+  }
+
+  @Test
+  public void testAddRecord()
+      throws IOException {
+    verifyAddRecord(HashFunction.MD5);
+    verifyAddRecord(HashFunction.MURMUR3);
+    verifyAddRecord(HashFunction.XXHASH);
+    verifyAddRecord(HashFunction.XXH128);
+  }
+
+  private void verifyAddRecord(HashFunction hashFunction)
+      throws IOException {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, getContextBuilder(hashFunction).build());
+
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment1 = mockMutableSegment(1, validDocIds1);
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    assertTrue(upsertMetadataManager.addRecord(segment1, new RecordInfo(makePrimaryKey(0), 0, 100L, false)));
+    assertTrue(upsertMetadataManager.addRecord(segment1, new RecordInfo(makePrimaryKey(1), 1, 120L, false)));
+    assertTrue(upsertMetadataManager.addRecord(segment1, new RecordInfo(makePrimaryKey(2), 2, 100L, false)));
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
+
+    // Update in the same segment
+    // segment1: 0 -> {3, 110}, 1 -> {1, 120}, 2 -> {2, 100}
+    assertTrue(upsertMetadataManager.addRecord(segment1, new RecordInfo(makePrimaryKey(0), 3, 110L, false)));
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 3, 110L, hashFunction);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1, 2, 3});
+
+    // Out-of-order record
+    assertFalse(upsertMetadataManager.addRecord(segment1, new RecordInfo(makePrimaryKey(1), 4, 110L, false)));
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120L, hashFunction);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1, 2, 3});
+
+    // Update from another segment, tie on the comparison value keeps the newer record
+    // segment1: 0 -> {3, 110}, 1 -> {1, 120}
+    // segment2: 2 -> {0, 100}, 3 -> {1, 150}
+    ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment2 = mockMutableSegment(2, validDocIds2);
+    assertTrue(upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(2), 0, 100L, false)));
+    assertTrue(upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(3), 1, 150L, false)));
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 3, 110L, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120L, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 0, 100L, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 1, 150L, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1, 3});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
+
+    // Remove segment1, only its keys are removed
+    upsertMetadataManager.removeSegment(segment1, List.of(makePrimaryKey(0), makePrimaryKey(1)).iterator());
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 2);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 0, 100L, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 1, 150L, hashFunction);
+
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+  }
+
+  @Test
+  public void testRemoveExpiredPrimaryKeys()
+      throws IOException {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+            getContextBuilder(HashFunction.MURMUR3).setEnableSnapshot(true).setMetadataTTL(30).build());
+    ThreadSafeMutableRoaringBitmap validDocIds = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment = mockMutableSegment(1, validDocIds);
+    long[] comparisonValues = new long[]{100L, 120L, 130L, 150L};
+    for (int i = 0; i < comparisonValues.length; i++) {
+      upsertMetadataManager.addRecord(segment, new RecordInfo(makePrimaryKey(i), i, comparisonValues[i], false));
+    }
+
+    // Keys older than 150 - 30 are removed
+    upsertMetadataManager.doRemoveExpiredPrimaryKeys();
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+    checkRecordLocation(upsertMetadataManager, 1, segment, 1, 120L, HashFunction.MURMUR3);
+    checkRecordLocation(upsertMetadataManager, 2, segment, 2, 130L, HashFunction.MURMUR3);
+    checkRecordLocation(upsertMetadataManager, 3, segment, 3, 150L, HashFunction.MURMUR3);
+
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+  }
+
+  private static MutableSegment mockMutableSegment(int sequenceNumber, ThreadSafeMutableRoaringBitmap validDocIds) {
+    MutableSegment segment = mock(MutableSegment.class);
+    when(segment.getSegmentName()).thenReturn(
+        new LLCSegmentName(RAW_TABLE_NAME, 0, sequenceNumber, System.currentTimeMillis()).toString());
+    when(segment.getValidDocIds()).thenReturn(validDocIds);
+    return segment;
+  }
+
+  private static PrimaryKey makePrimaryKey(int value) {
+    return new PrimaryKey(new Object[]{value});
+  }
+
+  private static void checkRecordLocation(OffHeapPartitionUpsertMetadataManager upsertMetadataManager, int keyValue,
+      IndexSegment segment, int docId, long comparisonValue, HashFunction hashFunction) {
+    byte[] keyHash = ((ByteArray) HashUtils.hashPrimaryKey(makePrimaryKey(keyValue), hashFunction)).getBytes();
+    long k0 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 0);
+    long k1 = OffHeapPrimaryKeyIndex.getKeyPart(keyHash, 1);
+    OffHeapPrimaryKeyIndex.Shard shard = upsertMetadataManager._primaryKeyIndex.getShard(k0, k1);
+    synchronized (shard) {
+      int slot = shard.find(k0, k1);
+      assertTrue(slot >= 0);
+      long location = shard.getLocation(slot);
+      assertEquals(OffHeapPrimaryKeyIndex.getDocId(location), docId);
+      assertEquals(shard.getComparisonValue(slot), comparisonValue);
+      assertSame(upsertMetadataManager.getSegment(location), segment);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.spi.config.table.HashFunction;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.config.table.UpsertConfig;
@@ -108,6 +109,33 @@ public class TableUpsertMetadataManagerFactoryTest {
         instanceof ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes);
   }
 
+  @Test
+  public void testCreateForOffHeapManagerClass()
+      throws IOException {
+    UpsertConfig upsertConfig = new UpsertConfig(UpsertConfig.Mode.FULL);
+    upsertConfig.setMetadataManagerClass(OffHeapTableUpsertMetadataManager.class.getName());
+    upsertConfig.setHashFunction(HashFunction.MURMUR3);
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getTableDataDir()).thenReturn(new File(RAW_TABLE_NAME));
+    try (TableUpsertMetadataManager tableUpsertMetadataManager = TableUpsertMetadataManagerFactory.create(
+        new PinotConfiguration(), createTableConfig(upsertConfig), SCHEMA, tableDataManager, null)) {
+      assertTrue(tableUpsertMetadataManager instanceof OffHeapTableUpsertMetadataManager);
+      assertTrue(tableUpsertMetadataManager.getOrCreatePartitionManager(0)
+          instanceof OffHeapPartitionUpsertMetadataManager);
+      tableUpsertMetadataManager.stop();
+    }
+
+    // Primary keys without fixed width hash fall back to the on-heap metadata
+    upsertConfig.setHashFunction(HashFunction.NONE);
+    try (TableUpsertMetadataManager tableUpsertMetadataManager = TableUpsertMetadataManagerFactory.create(
+        new PinotConfiguration(), createTableConfig(upsertConfig), SCHEMA, tableDataManager, null)) {
+      assertTrue(tableUpsertMetadataManager instanceof OffHeapTableUpsertMetadataManager);
+      assertTrue(tableUpsertMetadataManager.getOrCreatePartitionManager(0)
+          instanceof ConcurrentMapPartitionUpsertMetadataManager);
+      tableUpsertMetadataManager.stop();
+    }
+  }
+
   @SuppressWarnings("deprecation")
   @Test
   public void testEnablePreload()
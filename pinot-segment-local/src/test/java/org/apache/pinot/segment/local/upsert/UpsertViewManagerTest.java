@@ -22,6 +22,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.MutableSegment;
 import org.apache.pinot.segment.spi.SegmentContext;
@@ -32,8 +38,10 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.testng.annotations.Test;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
@@ -113,6 +121,86 @@ public class UpsertViewManagerTest {
     assertSame(mgr.getQueryableDocIdsSnapshot(seg1), mgr.getValidDocIdsSnapshot(seg1));
   }
 
+  @Test
+  public void testUpsertViewEpochs() {
+    UpsertViewManager mgr = new UpsertViewManager(UpsertConfig.ConsistencyMode.SNAPSHOT, mock(UpsertContext.class));
+    assertEquals(mgr.getUpsertViewEpoch(), -1);
+    assertEquals(mgr.getUpsertViewLagMs(), 0);
+
+    IndexSegment seg1 = mockSegmentWithDistinctBitmaps();
+    mgr.trackSegment(seg1);
+    assertEquals(mgr.getUpsertViewEpoch(), 0);
+    assertTrue(mgr.getUpsertViewLagMs() >= 0);
+    Map<IndexSegment, MutableRoaringBitmap> queryableDocIdsMap = mgr.getSegmentQueryableDocIdsMap();
+    Map<IndexSegment, MutableRoaringBitmap> validDocIdsMap = mgr.getSegmentValidDocIdsMap();
+
+    // Refreshing a fresh enough view is a no-op
+    mgr.doBatchRefreshUpsertView(3_600_000L, false);
+    assertEquals(mgr.getUpsertViewEpoch(), 0);
+
+    // Each refresh publishes a new view with both maps, and keeps the bitmaps of the segments not updated
+    mgr.doBatchRefreshUpsertView(0, true);
+    assertEquals(mgr.getUpsertViewEpoch(), 1);
+    assertNotSame(mgr.getSegmentQueryableDocIdsMap(), queryableDocIdsMap);
+    assertNotSame(mgr.getSegmentValidDocIdsMap(), validDocIdsMap);
+    assertSame(mgr.getQueryableDocIdsSnapshot(seg1), queryableDocIdsMap.get(seg1));
+    assertSame(mgr.getValidDocIdsSnapshot(seg1), validDocIdsMap.get(seg1));
+  }
+
+  @Test
+  public void testRefreshRetiresReplacedBitmaps() {
+    UpsertViewManager mgr = new UpsertViewManager(UpsertConfig.ConsistencyMode.SNAPSHOT, mock(UpsertContext.class));
+    IndexSegment seg1 = mockSegmentWithClonedBitmap(new AtomicBoolean(), new CountDownLatch(1), new CountDownLatch(0));
+    mgr.trackSegment(seg1);
+    assertEquals(mgr.getNumRetiredBitmaps(), 0);
+
+    // Refreshing without update shares the bitmap with the previous view
+    mgr.doBatchRefreshUpsertView(0, true);
+    assertEquals(mgr.getNumRetiredBitmaps(), 0);
+
+    // The bitmap of the updated segment is replaced, and counted once even if it is in both maps. The count is only
+    // decremented once the bitmap is garbage collected, which is not deterministic.
+    MutableRoaringBitmap retiredBitmap = mgr.getValidDocIdsSnapshot(seg1);
+    mgr.getUpdatedSegmentsSinceLastRefresh().add(seg1);
+    mgr.doBatchRefreshUpsertView(0, true);
+    assertNotSame(mgr.getValidDocIdsSnapshot(seg1), retiredBitmap);
+    assertEquals(mgr.getNumRetiredBitmaps(), 1);
+  }
+
+  @Test
+  public void testRefreshDoesNotBlockUpserts()
+      throws Exception {
+    UpsertContext context = mock(UpsertContext.class);
+    when(context.getUpsertViewRefreshIntervalMs()).thenReturn(3_600_000L);
+    UpsertViewManager mgr = new UpsertViewManager(UpsertConfig.ConsistencyMode.SNAPSHOT, context);
+    AtomicBoolean blockCopy = new AtomicBoolean();
+    CountDownLatch copyStarted = new CountDownLatch(1);
+    CountDownLatch copyReleased = new CountDownLatch(1);
+    IndexSegment seg1 = mockSegmentWithClonedBitmap(blockCopy, copyStarted, copyReleased);
+    mgr.trackSegment(seg1);
+    assertEquals(mgr.getUpsertViewEpoch(), 0);
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      blockCopy.set(true);
+      Future<?> refreshFuture = executorService.submit(() -> mgr.doBatchRefreshUpsertView(0, true));
+      assertTrue(copyStarted.await(10, TimeUnit.SECONDS));
+
+      // The upsert completes while the refresh is copying the bitmaps
+      mgr.removeDocId(seg1, 0);
+      verify(seg1.getValidDocIds()).remove(0);
+
+      // The refresh notices the update, copies the bitmaps again and publishes the view with it
+      blockCopy.set(false);
+      copyReleased.countDown();
+      refreshFuture.get(10, TimeUnit.SECONDS);
+      assertEquals(mgr.getUpsertViewEpoch(), 1);
+      assertTrue(mgr.getUpdatedSegmentsSinceLastRefresh().isEmpty());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   private static final MutableRoaringBitmap VALID_RESULT = new MutableRoaringBitmap();
   private static final MutableRoaringBitmap QUERYABLE_RESULT = new MutableRoaringBitmap();
 
@@ -129,4 +217,22 @@ public class UpsertViewManagerTest {
     when(segment.getSegmentName()).thenReturn("seg1");
     return segment;
   }
+
+  /// Mocks a segment without delete column whose valid-docs bitmap is cloned on each snapshot. When `blockCopy` is
+  /// set, the snapshot signals `copyStarted` and waits for `copyReleased`.
+  private static IndexSegment mockSegmentWithClonedBitmap(AtomicBoolean blockCopy, CountDownLatch copyStarted,
+      CountDownLatch copyReleased) {
+    IndexSegment segment = mock(MutableSegment.class);
+    ThreadSafeMutableRoaringBitmap validBitmap = mock(ThreadSafeMutableRoaringBitmap.class);
+    when(validBitmap.getMutableRoaringBitmap()).thenAnswer(invocation -> {
+      if (blockCopy.get()) {
+        copyStarted.countDown();
+        copyReleased.await();
+      }
+      return new MutableRoaringBitmap();
+    });
+    when(segment.getValidDocIds()).thenReturn(validBitmap);
+    when(segment.getSegmentName()).thenReturn("seg1");
+    return segment;
+  }
 }
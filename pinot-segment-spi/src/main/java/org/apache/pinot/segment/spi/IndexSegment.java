@@ -124,6 +124,7 @@ public interface IndexSegment {
 
   /// Hints the segment to begin prefetching buffers for specified columns.
   /// Typically, this should be an async call made before operating on the segment.
+  /// It might not be followed by [#release], so it should not hold resources until the release.
   /// @param fetchContext context for this segment's fetch
   default void prefetch(FetchContext fetchContext) {
   }
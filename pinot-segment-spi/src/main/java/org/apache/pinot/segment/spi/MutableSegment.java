@@ -20,6 +20,8 @@ package org.apache.pinot.segment.spi;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
 import javax.annotation.Nullable;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.stream.StreamMessageMetadata;
@@ -35,6 +37,33 @@ public interface MutableSegment extends IndexSegment {
   boolean index(GenericRow row, @Nullable StreamMessageMetadata metadata)
       throws IOException;
 
+  /// Indexes a batch of records into the segment, in order, with optionally provided metadata of the last message of
+  /// the batch.
+  ///
+  /// This is equivalent to indexing the records one by one with [#index(GenericRow, StreamMessageMetadata)], but
+  /// allows the implementation to index the batch column by column and to make the records queryable at once. A
+  /// record failing to be indexed is passed to the error handler along with its index within the batch, and does not
+  /// prevent the other records from being indexed. No record is left partially indexed, and none of the records is
+  /// indexed if an exception is thrown.
+  ///
+  /// @param rows Records represented as [GenericRow]s
+  /// @param metadata the metadata associated with the last message of the batch
+  /// @param errorHandler handler of the exceptions thrown when indexing a record
+  /// @return Whether the segment can index more records
+  default boolean index(List<GenericRow> rows, @Nullable StreamMessageMetadata metadata,
+      ObjIntConsumer<Exception> errorHandler) {
+    boolean canTakeMore = true;
+    int numRows = rows.size();
+    for (int i = 0; i < numRows; i++) {
+      try {
+        canTakeMore = index(rows.get(i), metadata);
+      } catch (Exception e) {
+        errorHandler.accept(e, i);
+      }
+    }
+    return canTakeMore;
+  }
+
   /// Returns the number of records already indexed into the segment.
   ///
   /// @return The number of records indexed
@@ -125,6 +125,8 @@ public class SegmentGeneratorConfig implements Serializable {
   // Type of the instance (SERVER/MINION) that is trying to create the segment.
   private InstanceType _instanceType;
   private boolean _compressionStatsEnabled;
+  private int _segmentBuildParallelism;
+  private long _segmentBuildMemoryBudgetBytes;
 
   /// Constructs the SegmentGeneratorConfig with table config and schema.
   /// NOTE: The passed in table config and schema might be changed.
@@ -168,6 +170,8 @@ public class SegmentGeneratorConfig implements Serializable {
     setEnableDefaultStarTree(indexingConfig.isEnableDefaultStarTree());
     _multiColumnTextIndexConfig = indexingConfig.getMultiColumnTextIndexConfig();
     _compressionStatsEnabled = indexingConfig.isCompressionStatsEnabled();
+    _segmentBuildParallelism = indexingConfig.getSegmentBuildParallelism();
+    _segmentBuildMemoryBudgetBytes = indexingConfig.getSegmentBuildMemoryBudgetBytes();
 
     List<FieldConfig> fieldConfigs = tableConfig.getFieldConfigList();
     if (fieldConfigs != null) {
@@ -687,4 +691,23 @@ public class SegmentGeneratorConfig implements Serializable {
   public void setCompressionStatsEnabled(boolean compressionStatsEnabled) {
     _compressionStatsEnabled = compressionStatsEnabled;
   }
+
+  /// Returns the number of columns indexed concurrently by the column-major segment build.
+  public int getSegmentBuildParallelism() {
+    return _segmentBuildParallelism;
+  }
+
+  public void setSegmentBuildParallelism(int segmentBuildParallelism) {
+    _segmentBuildParallelism = segmentBuildParallelism;
+  }
+
+  /// Returns the upper bound of the estimated size of the columns indexed concurrently, in bytes (non-positive for no
+  /// bound).
+  public long getSegmentBuildMemoryBudgetBytes() {
+    return _segmentBuildMemoryBudgetBytes;
+  }
+
+  public void setSegmentBuildMemoryBudgetBytes(long segmentBuildMemoryBudgetBytes) {
+    _segmentBuildMemoryBudgetBytes = segmentBuildMemoryBudgetBytes;
+  }
 }
@@ -42,6 +42,7 @@ import org.apache.pinot.segment.spi.index.reader.OpenStructIndexReader;
 import org.apache.pinot.segment.spi.index.reader.RangeIndexReader;
 import org.apache.pinot.segment.spi.index.reader.TextIndexReader;
 import org.apache.pinot.segment.spi.index.reader.VectorIndexReader;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapIndexReader;
 import org.apache.pinot.spi.config.table.BloomFilterConfig;
 import org.apache.pinot.spi.config.table.IndexConfig;
 import org.apache.pinot.spi.config.table.JsonIndexConfig;
@@ -79,6 +80,7 @@ public class StandardIndexes {
   public static final String H3_ID = "h3_index";
   public static final String VECTOR_ID = "vector_index";
   public static final String OPEN_STRUCT_ID = "open_struct_index";
+  public static final String ZONE_MAP_ID = "zone_map_index";
 
   private StandardIndexes() {
   }
@@ -154,4 +156,9 @@ public class StandardIndexes {
     return (IndexType<OpenStructIndexConfig, OpenStructIndexReader, ColumnarOpenStructIndexCreator>)
         IndexService.getInstance().get(OPEN_STRUCT_ID);
   }
+
+  public static IndexType<ZoneMapIndexConfig, ZoneMapIndexReader, ?> zoneMap() {
+    return (IndexType<ZoneMapIndexConfig, ZoneMapIndexReader, ?>)
+        IndexService.getInstance().get(ZONE_MAP_ID);
+  }
 }
@@ -32,6 +32,15 @@ public interface MutableDictionary extends Dictionary {
   /// of dictIds for each value.
   int[] index(Object[] values);
 
+  /// Indexes a batch of single-value entries (values of the dictionary type) into the dictionary, and fills the dictIds
+  /// of the values into the given buffer. This is equivalent to indexing the values one by one, but allows the
+  /// implementation to amortize the per-value overhead (e.g. publishing the new entries once per batch).
+  default void index(Object[] values, int length, int[] dictIdBuffer) {
+    for (int i = 0; i < length; i++) {
+      dictIdBuffer[i] = index(values[i]);
+    }
+  }
+
   @Override
   default boolean isSorted() {
     return false;
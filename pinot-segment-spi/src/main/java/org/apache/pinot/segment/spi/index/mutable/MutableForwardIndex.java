@@ -246,6 +246,19 @@ public interface MutableForwardIndex extends ForwardIndexReader<ForwardIndexRead
     throw new UnsupportedOperationException();
   }
 
+  /// Writes the dictionary ids for a single-value column into `length` consecutive document ids starting from
+  /// `startDocId`. This is equivalent to writing the dictionary ids one by one, but allows the implementation to
+  /// write them in bulk.
+  ///
+  /// @param startDocId Document id of the first dictionary id
+  /// @param dictIds Dictionary ids to write
+  /// @param length Number of dictionary ids to write
+  default void setDictIds(int startDocId, int[] dictIds, int length) {
+    for (int i = 0; i < length; i++) {
+      setDictId(startDocId + i, dictIds[i]);
+    }
+  }
+
   /// Writes the dictionary ids for a multi-value column into the given document id.
   ///
   /// @param docId Document id
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.spi.index.reader;
+
+import org.apache.pinot.segment.spi.index.IndexReader;
+
+
+/// Reader of the zone map index, which keeps the min and max value of each zone of consecutive docs of a single-value
+/// numeric column. Zone `i` covers the docs from `i * getNumDocsPerZone()` (inclusive) to
+/// `min((i + 1) * getNumDocsPerZone(), numDocs)` (exclusive).
+///
+/// The values of INT and LONG columns are stored as long, and the values of FLOAT and DOUBLE columns are stored as
+/// double. For FLOAT and DOUBLE columns, the min and max of a zone that contains NaN are NaN.
+public interface ZoneMapIndexReader extends IndexReader {
+
+  /// Returns the number of docs in each zone (except for the last zone which can have less docs).
+  int getNumDocsPerZone();
+
+  /// Returns the number of zones.
+  int getNumZones();
+
+  /// Returns the min value of the given zone for INT and LONG columns.
+  long getLongMinValue(int zoneId);
+
+  /// Returns the max value of the given zone for INT and LONG columns.
+  long getLongMaxValue(int zoneId);
+
+  /// Returns the min value of the given zone for FLOAT and DOUBLE columns.
+  double getDoubleMinValue(int zoneId);
+
+  /// Returns the max value of the given zone for FLOAT and DOUBLE columns.
+  double getDoubleMaxValue(int zoneId);
+}
@@ -112,6 +112,8 @@ public abstract class SegmentDirectory implements Closeable {
 
   /// This is a hint to the segment directory, to begin prefetching buffers for given context.
   /// Typically, this should be an async call made before operating on the segment.
+  /// It is issued while the query plan is being built and might not be followed by [#release] (e.g. when the query
+  /// times out before being executed), so it should not hold resources until the release.
   /// @param fetchContext context for this segment's fetch
   public void prefetch(FetchContext fetchContext) {
   }
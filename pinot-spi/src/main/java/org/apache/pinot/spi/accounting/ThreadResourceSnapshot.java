@@ -21,6 +21,10 @@ package org.apache.pinot.spi.accounting;
 /// ThreadResourceSnapshot is a utility class that helps to track the CPU time and memory allocated.
 /// [ThreadResourceUsageProvider] provides cumulative CPU time and memory allocated for the current thread.
 /// This class uses that provider to snapshot start for a task executed by that thread.
+///
+/// The JVM might not be able to measure the current thread (e.g. virtual threads), in which case the usage is reported
+/// as 0 and [#isCpuTimeAvailable()]/[#isAllocatedBytesAvailable()] return `false`, so that the callers can tell the
+/// usage is not measured instead of treating it as no usage.
 public class ThreadResourceSnapshot {
   private long _startCpuTime;
   private long _startAllocatedBytes;
@@ -35,16 +39,28 @@ public class ThreadResourceSnapshot {
     _startAllocatedBytes = ThreadResourceUsageProvider.getCurrentThreadAllocatedBytes();
   }
 
-  /// Gets the CPU time used so far in nanoseconds.
+  /// Returns whether the CPU time of the current thread can be measured.
+  public boolean isCpuTimeAvailable() {
+    return _startCpuTime >= 0;
+  }
+
+  /// Returns whether the memory allocated by the current thread can be measured.
+  public boolean isAllocatedBytesAvailable() {
+    return _startAllocatedBytes >= 0;
+  }
+
+  /// Gets the CPU time used so far in nanoseconds, or 0 if it is not available.
   /// This is the difference between the current CPU time and the start CPU time.
   public long getCpuTimeNs() {
-    return ThreadResourceUsageProvider.getCurrentThreadCpuTime() - _startCpuTime;
+    long cpuTime = ThreadResourceUsageProvider.getCurrentThreadCpuTime();
+    return _startCpuTime >= 0 && cpuTime >= 0 ? cpuTime - _startCpuTime : 0;
   }
 
-  /// Gets the memory allocated so far in bytes.
+  /// Gets the memory allocated so far in bytes, or 0 if it is not available.
   /// This is the difference between the current allocated bytes and the start allocated bytes.
   public long getAllocatedBytes() {
-    return ThreadResourceUsageProvider.getCurrentThreadAllocatedBytes() - _startAllocatedBytes;
+    long allocatedBytes = ThreadResourceUsageProvider.getCurrentThreadAllocatedBytes();
+    return _startAllocatedBytes >= 0 && allocatedBytes >= 0 ? allocatedBytes - _startAllocatedBytes : 0;
   }
 
   @Override
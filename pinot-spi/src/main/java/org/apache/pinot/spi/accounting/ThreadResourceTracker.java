@@ -37,4 +37,16 @@ public interface ThreadResourceTracker {
   long getCpuTimeNs();
 
   long getAllocatedBytes();
+
+  /// Returns whether the CPU time of the thread can be measured. When `false`, [#getCpuTimeNs()] returns 0 although the
+  /// thread might have used CPU (e.g. virtual threads).
+  default boolean isCpuTimeAvailable() {
+    return true;
+  }
+
+  /// Returns whether the memory allocated by the thread can be measured. When `false`, [#getAllocatedBytes()] returns 0
+  /// although the thread might have allocated memory (e.g. virtual threads).
+  default boolean isAllocatedBytesAvailable() {
+    return true;
+  }
 }
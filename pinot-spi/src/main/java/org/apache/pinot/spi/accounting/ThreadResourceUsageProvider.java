@@ -174,10 +174,14 @@ public class ThreadResourceUsageProvider {
     return MX_BEAN.getTotalStartedThreadCount();
   }
 
+  /// Returns the CPU time of the current thread, 0 if the measurement is not enabled, or -1 if the JVM can not measure
+  /// the current thread (e.g. virtual threads).
   public static long getCurrentThreadCpuTime() {
     return _isThreadCpuTimeMeasurementEnabled ? MX_BEAN.getCurrentThreadCpuTime() : 0;
   }
 
+  /// Returns the bytes allocated by the current thread, 0 if the measurement is not enabled, or -1 if the JVM can not
+  /// measure the current thread (e.g. virtual threads).
   public static long getCurrentThreadAllocatedBytes() {
     if (!_isThreadMemoryMeasurementEnabled) {
       return 0;
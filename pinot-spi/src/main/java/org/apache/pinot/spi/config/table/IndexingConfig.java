@@ -108,6 +108,27 @@ public class IndexingConfig extends BaseJsonConfig {
   /// default.
   private boolean _compressionStatsEnabled;
 
+  /// Number of columns indexed concurrently by the column-major segment builder (offline builds from a column reader
+  /// factory and realtime segment commit), after the stats collection pass. Values up to 1 index the columns one after
+  /// another.
+  private int _segmentBuildParallelism;
+
+  /// Upper bound of the estimated size of the columns indexed concurrently when `segmentBuildParallelism` is larger
+  /// than 1, in bytes. A column larger than the budget is indexed alone. Non-positive values mean no bound.
+  private long _segmentBuildMemoryBudgetBytes;
+
+  /// Whether the chunks of the compressed raw forward indexes are served from the server wide decompressed chunk cache
+  /// (see `pinot.server.query.executor.decompressed.chunk.cache.max.size.bytes`), so that the chunks read by many
+  /// queries are not decompressed again for each of them. Applied when the segments are loaded. Disabled by default.
+  private boolean _decompressedChunkCacheEnabled;
+
+  /// Whether the hot columns of the immutable segments can be promoted on heap by the server (see
+  /// `pinot.server.query.executor.adaptive.on.heap.max.size.bytes`): the dictionaries and dictionary encoded forward
+  /// indexes of the most accessed columns are copied on heap within the server memory budget, and dropped when they
+  /// go cold. Complements the static `onHeapDictionaryColumns`. Applied when the segments are loaded. Disabled by
+  /// default.
+  private boolean _adaptiveOnHeapEnabled;
+
   @Nullable
   public List<String> getInvertedIndexColumns() {
     return _invertedIndexColumns;
@@ -422,6 +443,38 @@ public class IndexingConfig extends BaseJsonConfig {
     _compressionStatsEnabled = compressionStatsEnabled;
   }
 
+  public int getSegmentBuildParallelism() {
+    return _segmentBuildParallelism;
+  }
+
+  public void setSegmentBuildParallelism(int segmentBuildParallelism) {
+    _segmentBuildParallelism = segmentBuildParallelism;
+  }
+
+  public long getSegmentBuildMemoryBudgetBytes() {
+    return _segmentBuildMemoryBudgetBytes;
+  }
+
+  public void setSegmentBuildMemoryBudgetBytes(long segmentBuildMemoryBudgetBytes) {
+    _segmentBuildMemoryBudgetBytes = segmentBuildMemoryBudgetBytes;
+  }
+
+  public boolean isDecompressedChunkCacheEnabled() {
+    return _decompressedChunkCacheEnabled;
+  }
+
+  public void setDecompressedChunkCacheEnabled(boolean decompressedChunkCacheEnabled) {
+    _decompressedChunkCacheEnabled = decompressedChunkCacheEnabled;
+  }
+
+  public boolean isAdaptiveOnHeapEnabled() {
+    return _adaptiveOnHeapEnabled;
+  }
+
+  public void setAdaptiveOnHeapEnabled(boolean adaptiveOnHeapEnabled) {
+    _adaptiveOnHeapEnabled = adaptiveOnHeapEnabled;
+  }
+
   /// Returns all columns referenced in the indexing config. This is useful to construct FieldIndexConfigs in
   /// IndexLoadingConfig when schema is not provided. Only including the columns referenced by indexes supported in
   /// FieldIndexConfigs.
@@ -41,6 +41,14 @@ public class StreamIngestionConfig extends BaseJsonConfig {
   @JsonPropertyDescription("Whether to track offsets of the filtered stream messages during consumption.")
   private boolean _trackFilteredMessageOffsets;
 
+  @JsonPropertyDescription("Whether to index the rows of each fetched message batch together (column by column when "
+      + "possible) instead of one by one during consumption.")
+  private boolean _batchIndexingEnabled;
+
+  @JsonPropertyDescription("Whether to fetch, decode and transform the next message batch on a shared worker pool "
+      + "while the current message batch is being indexed during consumption.")
+  private boolean _pipelinedConsumptionEnabled;
+
   @JsonPropertyDescription("Whether pauseless consumption is enabled for the table")
   private boolean _pauselessConsumptionEnabled;
 
@@ -95,6 +103,22 @@ public class StreamIngestionConfig extends BaseJsonConfig {
     return _trackFilteredMessageOffsets;
   }
 
+  public boolean isBatchIndexingEnabled() {
+    return _batchIndexingEnabled;
+  }
+
+  public void setBatchIndexingEnabled(boolean batchIndexingEnabled) {
+    _batchIndexingEnabled = batchIndexingEnabled;
+  }
+
+  public boolean isPipelinedConsumptionEnabled() {
+    return _pipelinedConsumptionEnabled;
+  }
+
+  public void setPipelinedConsumptionEnabled(boolean pipelinedConsumptionEnabled) {
+    _pipelinedConsumptionEnabled = pipelinedConsumptionEnabled;
+  }
+
   public boolean isPauselessConsumptionEnabled() {
     return _pauselessConsumptionEnabled;
   }
@@ -0,0 +1,334 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.spi.data.readers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.Nullable;
+import org.apache.pinot.spi.utils.PinotDataType;
+
+
+/// Base [ColumnReader] for columnar file formats which are read one batch of documents at a time, e.g. a Parquet row
+/// group or an ORC stripe. Only the batch containing the requested document is decoded and kept in memory, so reading
+/// a column by ascending document id decodes each batch of the column once, without materializing any row.
+///
+/// Subclasses decode a batch into the buffers of this class in [#readBatch(int, int)]:
+/// - single-value `INT` / `LONG` / `FLOAT` / `DOUBLE` columns (i.e. [#getValueType()] is one of them) fill the
+///   matching primitive buffer, which is served without boxing by the typed accessors
+/// - other columns fill [#_values] with the same objects as the row-major record extractor of the format
+///
+/// and mark the null values in [#_nulls].
+///
+/// This class is not thread-safe.
+@SuppressWarnings("serial")
+public abstract class BaseBatchedColumnReader implements ColumnReader {
+  protected final String _columnName;
+  @Nullable
+  protected final PinotDataType _valueType;
+  // Start document id of each batch, with the total number of documents as the last element
+  private final int[] _batchStartDocIds;
+
+  protected boolean[] _nulls;
+  protected int[] _intValues;
+  protected long[] _longValues;
+  protected float[] _floatValues;
+  protected double[] _doubleValues;
+  protected Object[] _values;
+
+  private int _batchId = -1;
+  private int _batchStartDocId;
+  private int _batchEndDocId;
+
+  /// @param columnName Name of the column
+  /// @param valueType Type of the values served by the typed accessors, or `null` if the values are only served as
+  ///                  objects (see [ColumnReader#getValueType()])
+  /// @param batchNumDocs Number of documents in each batch
+  protected BaseBatchedColumnReader(String columnName, @Nullable PinotDataType valueType, long[] batchNumDocs) {
+    _columnName = columnName;
+    _valueType = valueType;
+    int numBatches = batchNumDocs.length;
+    _batchStartDocIds = new int[numBatches + 1];
+    long totalDocs = 0;
+    for (int i = 0; i < numBatches; i++) {
+      _batchStartDocIds[i] = (int) totalDocs;
+      totalDocs += batchNumDocs[i];
+    }
+    if (totalDocs > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Too many documents: " + totalDocs + " for column: " + columnName);
+    }
+    _batchStartDocIds[numBatches] = (int) totalDocs;
+  }
+
+  /// Decodes the given batch of the column into the buffers, which have been sized for at least `numDocs` documents.
+  protected abstract void readBatch(int batchId, int numDocs)
+      throws IOException;
+
+  @Override
+  public String getColumnName() {
+    return _columnName;
+  }
+
+  @Nullable
+  @Override
+  public PinotDataType getValueType() {
+    return _valueType;
+  }
+
+  @Override
+  public int getTotalDocs() {
+    return _batchStartDocIds[_batchStartDocIds.length - 1];
+  }
+
+  /// Returns the index of the document in the buffers, after decoding the batch containing it if needed.
+  private int seek(int docId)
+      throws IOException {
+    if (docId >= _batchStartDocId && docId < _batchEndDocId) {
+      return docId - _batchStartDocId;
+    }
+    if (docId < 0 || docId >= getTotalDocs()) {
+      throw new IndexOutOfBoundsException(
+          "docId " + docId + " is out of range [0, " + getTotalDocs() + ") for column " + _columnName);
+    }
+    // Sequential reads move to the next batch, otherwise binary search the batch
+    int batchId;
+    if (_batchId >= 0 && docId == _batchEndDocId) {
+      batchId = _batchId + 1;
+    } else {
+      int index = Arrays.binarySearch(_batchStartDocIds, docId);
+      batchId = index >= 0 ? index : -index - 2;
+    }
+    // Skip the empty batches
+    while (_batchStartDocIds[batchId + 1] <= docId) {
+      batchId++;
+    }
+    int numDocs = _batchStartDocIds[batchId + 1] - _batchStartDocIds[batchId];
+    ensureCapacity(numDocs);
+    // Invalidate the current batch first in case decoding the new one fails
+    _batchId = -1;
+    _batchStartDocId = 0;
+    _batchEndDocId = 0;
+    Arrays.fill(_nulls, 0, numDocs, false);
+    readBatch(batchId, numDocs);
+    _batchId = batchId;
+    _batchStartDocId = _batchStartDocIds[batchId];
+    _batchEndDocId = _batchStartDocIds[batchId + 1];
+    return docId - _batchStartDocId;
+  }
+
+  private void ensureCapacity(int numDocs) {
+    if (_nulls != null && _nulls.length >= numDocs) {
+      return;
+    }
+    _nulls = new boolean[numDocs];
+    if (_valueType == PinotDataType.INT) {
+      _intValues = new int[numDocs];
+    } else if (_valueType == PinotDataType.LONG) {
+      _longValues = new long[numDocs];
+    } else if (_valueType == PinotDataType.FLOAT) {
+      _floatValues = new float[numDocs];
+    } else if (_valueType == PinotDataType.DOUBLE) {
+      _doubleValues = new double[numDocs];
+    } else {
+      _values = new Object[numDocs];
+    }
+  }
+
+  @Override
+  public void rewind() {
+    // Keep the current batch, which is reused if the next traversal starts with it
+  }
+
+  @Override
+  public boolean isNull(int docId)
+      throws IOException {
+    return _nulls[seek(docId)];
+  }
+
+  @Nullable
+  @Override
+  public Object getValue(int docId)
+      throws IOException {
+    int index = seek(docId);
+    if (_nulls[index]) {
+      return null;
+    }
+    if (_valueType == PinotDataType.INT) {
+      return _intValues[index];
+    } else if (_valueType == PinotDataType.LONG) {
+      return _longValues[index];
+    } else if (_valueType == PinotDataType.FLOAT) {
+      return _floatValues[index];
+    } else if (_valueType == PinotDataType.DOUBLE) {
+      return _doubleValues[index];
+    } else {
+      return _values[index];
+    }
+  }
+
+  @Override
+  public int getInt(int docId)
+      throws IOException {
+    if (_valueType == PinotDataType.INT) {
+      return _intValues[seek(docId)];
+    }
+    return ((Number) getValue(docId)).intValue();
+  }
+
+  @Override
+  public long getLong(int docId)
+      throws IOException {
+    if (_valueType == PinotDataType.LONG) {
+      return _longValues[seek(docId)];
+    }
+    return ((Number) getValue(docId)).longValue();
+  }
+
+  @Override
+  public float getFloat(int docId)
+      throws IOException {
+    if (_valueType == PinotDataType.FLOAT) {
+      return _floatValues[seek(docId)];
+    }
+    return ((Number) getValue(docId)).floatValue();
+  }
+
+  @Override
+  public double getDouble(int docId)
+      throws IOException {
+    if (_valueType == PinotDataType.DOUBLE) {
+      return _doubleValues[seek(docId)];
+    }
+    return ((Number) getValue(docId)).doubleValue();
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int docId)
+      throws IOException {
+    return (BigDecimal) getValue(docId);
+  }
+
+  @Override
+  public String getString(int docId)
+      throws IOException {
+    return (String) getValue(docId);
+  }
+
+  @Override
+  public byte[] getBytes(int docId)
+      throws IOException {
+    return (byte[]) getValue(docId);
+  }
+
+  // Multi-value columns are decoded as Object[] (see [#_values])
+
+  @Override
+  public MultiValueResult<int[]> getIntMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    int[] result = new int[values.length];
+    BitSet nulls = null;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result[i] = ((Number) values[i]).intValue();
+      } else {
+        nulls = setNull(nulls, i);
+      }
+    }
+    return MultiValueResult.of(result, nulls);
+  }
+
+  @Override
+  public MultiValueResult<long[]> getLongMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    long[] result = new long[values.length];
+    BitSet nulls = null;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result[i] = ((Number) values[i]).longValue();
+      } else {
+        nulls = setNull(nulls, i);
+      }
+    }
+    return MultiValueResult.of(result, nulls);
+  }
+
+  @Override
+  public MultiValueResult<float[]> getFloatMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    float[] result = new float[values.length];
+    BitSet nulls = null;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result[i] = ((Number) values[i]).floatValue();
+      } else {
+        nulls = setNull(nulls, i);
+      }
+    }
+    return MultiValueResult.of(result, nulls);
+  }
+
+  @Override
+  public MultiValueResult<double[]> getDoubleMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    double[] result = new double[values.length];
+    BitSet nulls = null;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result[i] = ((Number) values[i]).doubleValue();
+      } else {
+        nulls = setNull(nulls, i);
+      }
+    }
+    return MultiValueResult.of(result, nulls);
+  }
+
+  private static BitSet setNull(@Nullable BitSet nulls, int index) {
+    if (nulls == null) {
+      nulls = new BitSet();
+    }
+    nulls.set(index);
+    return nulls;
+  }
+
+  @Override
+  public BigDecimal[] getBigDecimalMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    return Arrays.copyOf(values, values.length, BigDecimal[].class);
+  }
+
+  @Override
+  public String[] getStringMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    return Arrays.copyOf(values, values.length, String[].class);
+  }
+
+  @Override
+  public byte[][] getBytesMV(int docId)
+      throws IOException {
+    Object[] values = (Object[]) getValue(docId);
+    return Arrays.copyOf(values, values.length, byte[][].class);
+  }
+}
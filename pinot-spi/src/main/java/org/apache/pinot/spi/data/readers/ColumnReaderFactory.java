@@ -68,6 +68,13 @@ public interface ColumnReaderFactory extends Closeable, Serializable {
     init(targetSchema, colsToRead);
   }
 
+  /// Returns whether the column readers of this factory can be read concurrently, each reader from its own thread (e.g.
+  /// to index the columns of a segment in parallel). Readers sharing a cursor or a non thread-safe handle over the
+  /// source must not be read concurrently.
+  default boolean supportsConcurrentColumnReads() {
+    return false;
+  }
+
   /// Get the set of column names available in the source data.
   ///
   /// @return Set of available column names in the source
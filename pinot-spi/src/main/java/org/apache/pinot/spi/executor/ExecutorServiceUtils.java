@@ -37,10 +37,11 @@ import org.slf4j.LoggerFactory;
 /// In order to create a new executor, the `create` methods should be called.
 /// These methods take an executor type as an argument.
 ///
-/// Pinot includes two executor service plugins:
+/// Pinot includes three executor service plugins:
 ///
 /// - `cached`: creates a new cached thread pool
 /// - `fixed`: creates a new fixed thread pool.
+/// - `virtual`: creates a new virtual thread per task executor, optionally with a cap on the concurrent tasks.
 ///
 /// @see ServiceLoader
 public class ExecutorServiceUtils {
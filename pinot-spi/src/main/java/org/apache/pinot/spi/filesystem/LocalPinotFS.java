@@ -18,17 +18,22 @@
  */
 package org.apache.pinot.spi.filesystem;
 
+import com.google.common.base.Preconditions;
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
@@ -37,6 +42,7 @@ import java.util.TimeZone;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.pinot.spi.env.PinotConfiguration;
 
 
@@ -209,6 +215,29 @@ public class LocalPinotFS extends BasePinotFS {
     return new BufferedInputStream(new FileInputStream(toFile(uri)));
   }
 
+  @Override
+  public InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range: offset: %s, length: %s", offset, length);
+    FileChannel fileChannel = FileChannel.open(toFile(uri).toPath(), StandardOpenOption.READ);
+    try {
+      if (offset > fileChannel.size()) {
+        throw new EOFException("Offset: " + offset + " is beyond the end of file: " + uri);
+      }
+      fileChannel.position(offset);
+      return BoundedInputStream.builder().setInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel)))
+          .setMaxCount(length).get();
+    } catch (IOException | RuntimeException e) {
+      fileChannel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean supportsRangeReads() {
+    return true;
+  }
+
   private static File toFile(URI uri) {
     // NOTE: Do not use new File(uri) because scheme might not exist and it does not decode '+' to ' '
     //       Do not use uri.getPath() because it does not decode '+' to ' '
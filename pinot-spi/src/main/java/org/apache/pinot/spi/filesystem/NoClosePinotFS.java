@@ -147,4 +147,15 @@ public class NoClosePinotFS implements PinotFS {
       throws IOException {
     return _delegate.open(uri);
   }
+
+  @Override
+  public InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    return _delegate.openRange(uri, offset, length);
+  }
+
+  @Override
+  public boolean supportsRangeReads() {
+    return _delegate.supportsRangeReads();
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.spi.filesystem;
 
+import com.google.common.base.Preconditions;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -27,6 +28,8 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.pinot.spi.annotations.InterfaceAudience;
 import org.apache.pinot.spi.annotations.InterfaceStability;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -246,6 +249,35 @@ public interface PinotFS extends Closeable, Serializable {
   InputStream open(URI uri)
       throws IOException;
 
+  /// Opens a file in the underlying filesystem and returns an InputStream to read the `length` bytes starting at
+  /// `offset` (or until the end of the file if it is shorter).
+  /// The default implementation opens the whole file and skips to the offset. Implementations that can read only the
+  /// requested range from the underlying storage (e.g. with a ranged GET) should override it along with
+  /// [#supportsRangeReads()].
+  /// @param uri location of the file to open
+  /// @param offset offset of the first byte to read
+  /// @param length number of bytes to read
+  /// @return a new InputStream
+  /// @throws IOException on any IO error - missing file, not a file, offset beyond the end of the file etc
+  default InputStream openRange(URI uri, long offset, long length)
+      throws IOException {
+    Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range: offset: %s, length: %s", offset, length);
+    InputStream inputStream = open(uri);
+    try {
+      IOUtils.skipFully(inputStream, offset);
+      return BoundedInputStream.builder().setInputStream(inputStream).setMaxCount(length).get();
+    } catch (IOException | RuntimeException e) {
+      inputStream.close();
+      throw e;
+    }
+  }
+
+  /// Returns whether [#openRange(URI, long, long)] only reads the requested range from the underlying storage, in
+  /// which case a large file can be read with multiple concurrent ranged reads (e.g. to speed up segment downloads).
+  default boolean supportsRangeReads() {
+    return false;
+  }
+
   /// For certain filesystems, we may need to close the filesystem and do relevant operations to prevent leaks.
   /// Implementations must only close resources owned by this instance, not clients shared with other PinotFS
   /// instances. By default, this method does nothing.
@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.spi.stream;
 
+import org.apache.pinot.spi.data.readers.GenericRow;
+
 /// A decoder for [StreamMessage]
 public interface StreamDataDecoder {
   /// Decodes a [StreamMessage]
@@ -28,4 +30,20 @@ public interface StreamDataDecoder {
   /// @param message [StreamMessage] that contains the data payload and optionally, a key and row metadata
   /// @return [StreamDataDecoderResult] that either contains the decoded row or the exception
   StreamDataDecoderResult decode(StreamMessage message);
+
+  /// Decodes a [StreamMessage] into the given destination row. Unlike [#decode(StreamMessage)], which may reuse the
+  /// same row across calls, the decoded row stays valid after the next call, which allows decoding messages ahead of
+  /// processing them.
+  ///
+  /// @param message [StreamMessage] that contains the data payload and optionally, a key and row metadata
+  /// @param destination Newly created or cleared row to decode the message into
+  /// @return [StreamDataDecoderResult] that either contains the decoded row or the exception
+  default StreamDataDecoderResult decode(StreamMessage message, GenericRow destination) {
+    StreamDataDecoderResult result = decode(message);
+    if (result.getResult() == null) {
+      return result;
+    }
+    destination.init(result.getResult());
+    return new StreamDataDecoderResult(destination, null);
+  }
 }
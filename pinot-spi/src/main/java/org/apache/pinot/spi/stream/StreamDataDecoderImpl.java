@@ -62,12 +62,17 @@ public class StreamDataDecoderImpl implements StreamDataDecoder {
 
   @Override
   public StreamDataDecoderResult decode(StreamMessage message) {
+    _reuse.clear();
+    return decode(message, _reuse);
+  }
+
+  @Override
+  public StreamDataDecoderResult decode(StreamMessage message, GenericRow destination) {
     try {
-      _reuse.clear();
       Object value = message.getValue();
       assert value != null;
       int length = message.getLength();
-      GenericRow row = _valueDecoder.decode(value, 0, length, _reuse);
+      GenericRow row = _valueDecoder.decode(value, 0, length, destination);
       if (row != null) {
         if (message.getKey() != null) {
           row.putValue(KEY, _isKeyBytesType
@@ -69,6 +69,11 @@ public class CommonConstants {
 
   public static final String CONFIG_OF_EXECUTORS_FIXED_NUM_THREADS = "pinot.executors.fixed.default.numThreads";
   public static final String DEFAULT_EXECUTORS_FIXED_NUM_THREADS = "-1";
+  /// Default max number of tasks running concurrently on a `virtual` executor (see VirtualThreadExecutorServicePlugin),
+  /// which can be overridden per executor with `<prefix>.maxConcurrency`. Non-positive means unbounded.
+  public static final String CONFIG_OF_EXECUTORS_VIRTUAL_MAX_CONCURRENCY =
+      "pinot.executors.virtual.default.maxConcurrency";
+  public static final String DEFAULT_EXECUTORS_VIRTUAL_MAX_CONCURRENCY = "-1";
 
   public static final String CONFIG_OF_PINOT_TAR_COMPRESSION_CODEC_NAME = "pinot.tar.compression.codec.name";
   public static final String QUERY_WORKLOAD = "queryWorkload";
@@ -394,6 +399,11 @@ public class CommonConstants {
         "pinot.broker.query.regex.dict.size.threshold";
     public static final String CONFIG_OF_BROKER_ENABLE_QUERY_CANCELLATION = "pinot.broker.enable.query.cancellation";
     public static final boolean DEFAULT_BROKER_ENABLE_QUERY_CANCELLATION = true;
+    /// Size of the cache of single-stage query responses on the broker, 0 to disable the cache. Entries are keyed by
+    /// the query and checked against the segments routed for the query.
+    public static final String CONFIG_OF_BROKER_RESULT_CACHE_MAX_SIZE_BYTES =
+        "pinot.broker.result.cache.max.size.bytes";
+    public static final long DEFAULT_BROKER_RESULT_CACHE_MAX_SIZE_BYTES = 0;
     public static final String CONFIG_OF_BROKER_ENABLE_QUERY_FINGERPRINTING =
         "pinot.broker.enable.query.fingerprinting";
     public static final boolean DEFAULT_BROKER_ENABLE_QUERY_FINGERPRINTING = false;
@@ -601,6 +611,14 @@ public class CommonConstants {
     public static final String CONFIG_OF_BROKER_ENABLE_DYNAMIC_FILTERING_SEMI_JOIN =
         "pinot.broker.enable.dynamic.filtering.semijoin";
     public static final boolean DEFAULT_ENABLE_DYNAMIC_FILTERING_SEMI_JOIN = true;
+    /// Whether to push the build side join keys of eligible INNER and RIGHT hash joins down to the probe side leaf
+    /// stage as a runtime filter, using the same pipeline breaker as the dynamic filtering semi join. The filter only
+    /// applies when both sides are plain table scans (with optional project/filter) joined on a single key, because
+    /// the build side is read twice.
+    /// This value can always be overridden by [Request.QueryOptionKey#ENABLE_JOIN_RUNTIME_FILTER] query option
+    public static final String CONFIG_OF_BROKER_ENABLE_JOIN_RUNTIME_FILTER =
+        "pinot.broker.multistage.enable.join.runtime.filter";
+    public static final boolean DEFAULT_ENABLE_JOIN_RUNTIME_FILTER = false;
 
     /// Whether to use physical optimizer by default.
     /// This value can always be overridden by [Request.QueryOptionKey#USE_PHYSICAL_OPTIMIZER] query option
@@ -793,6 +811,8 @@ public class CommonConstants {
         public static final String APPLICATION_NAME = "applicationName";
         public static final String USE_SPOOLS = "useSpools";
         public static final String USE_PHYSICAL_OPTIMIZER = "usePhysicalOptimizer";
+        /// Option to customize the value of [Broker#CONFIG_OF_BROKER_ENABLE_JOIN_RUNTIME_FILTER]
+        public static final String ENABLE_JOIN_RUNTIME_FILTER = "enableJoinRuntimeFilter";
         // When true, the multi-stage planner prunes input (passthrough) columns - notably the unnested source array -
         // from the UNNEST output when they are not referenced downstream, avoiding copying them into every exploded
         // row. Defaults to false: enabling it makes the broker emit a smaller UNNEST output schema, which an
@@ -883,6 +903,35 @@ public class CommonConstants {
         // Handle JOIN Overflow
         public static final String MAX_ROWS_IN_JOIN = "maxRowsInJoin";
         public static final String JOIN_OVERFLOW_MODE = "joinOverflowMode";
+        /// Estimated heap size in bytes of the hash join build side after which both join inputs are partitioned to
+        /// local spill files and joined one partition at a time. When set, the build side is bounded by this budget
+        /// instead of [#MAX_ROWS_IN_JOIN]. Spilling is disabled when not set.
+        public static final String JOIN_SPILL_THRESHOLD_BYTES = "joinSpillThresholdBytes";
+        /// Estimated heap size in bytes of the rows buffered by a multi-stage sort after which they are sorted and
+        /// spilled to disk as a run, and the runs are k-way merged to produce the result. Spilling is disabled when not
+        /// set.
+        public static final String SORT_SPILL_THRESHOLD_BYTES = "sortSpillThresholdBytes";
+        /// Estimated heap size in bytes of the groups held by a multi-stage group-by after which the groups are
+        /// hash-partitioned to local spill files and re-aggregated one partition at a time. When set, the number of
+        /// groups is no longer capped by [#NUM_GROUPS_LIMIT]. Spilling is disabled when not set.
+        public static final String GROUP_BY_SPILL_THRESHOLD_BYTES = "groupBySpillThresholdBytes";
+
+        /// For MSE queries, when this option is set to true, intermediate stage operators that support it (filter,
+        /// transform, aggregate and hash exchange) keep data in primitive columnar blocks instead of boxed rows.
+        /// Operators that cannot work with columns convert the blocks into rows.
+        public static final String USE_COLUMNAR_BLOCKS = "useColumnarBlocks";
+
+        /// Set to false to bypass the server segment result cache (see
+        /// [Server#CONFIG_OF_QUERY_EXECUTOR_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES]) for a query, both for lookups and
+        /// for storing new results.
+        public static final String USE_SEGMENT_RESULT_CACHE = "useSegmentResultCache";
+
+        /// Set to false to bypass the broker result cache (see [Broker#CONFIG_OF_BROKER_RESULT_CACHE_MAX_SIZE_BYTES])
+        /// for a query, both for lookups and for storing the response.
+        public static final String USE_RESULT_CACHE = "useResultCache";
+        /// Maximum age of a response served from the broker result cache. Required for a query on a table with a
+        /// REALTIME part to use the cache, because the consuming segments keep changing under the same segment set.
+        public static final String MAX_STALENESS_MS = "maxStalenessMs";
 
         // Early terminate DISTINCT queries based on wall-clock execution time on server
         public static final String MAX_EXECUTION_TIME_MS_IN_DISTINCT = "maxExecutionTimeMsInDistinct";
@@ -1385,6 +1434,70 @@ public class CommonConstants {
     public static final String CONFIG_OF_QUERY_EXECUTOR_MIN_INITIAL_INDEXED_TABLE_CAPACITY =
         QUERY_EXECUTOR_CONFIG_PREFIX + "." + MIN_INITIAL_INDEXED_TABLE_CAPACITY;
     public static final int DEFAULT_QUERY_EXECUTOR_MIN_INITIAL_INDEXED_TABLE_CAPACITY = 128;
+
+    // Whether to use the branch-free/unrolled kernels for scan based filtering and numeric aggregation instead of the
+    // scalar loops
+    public static final String VECTORIZED_KERNELS_ENABLED = "vectorized.kernels.enabled";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_VECTORIZED_KERNELS_ENABLED =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + VECTORIZED_KERNELS_ENABLED;
+    public static final boolean DEFAULT_QUERY_EXECUTOR_VECTORIZED_KERNELS_ENABLED = false;
+
+    // Size of the cache of per-segment aggregation and group-by results of immutable segments, 0 to disable the cache
+    public static final String SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = "segment.result.cache.max.size.bytes";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES;
+    public static final long DEFAULT_QUERY_EXECUTOR_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = 0;
+
+    // Size of the off-heap cache of decompressed chunks of raw forward indexes shared by the queries, used by the
+    // tables with `decompressedChunkCacheEnabled` in the indexing config, 0 to disable the cache
+    public static final String DECOMPRESSED_CHUNK_CACHE_MAX_SIZE_BYTES = "decompressed.chunk.cache.max.size.bytes";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_DECOMPRESSED_CHUNK_CACHE_MAX_SIZE_BYTES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + DECOMPRESSED_CHUNK_CACHE_MAX_SIZE_BYTES;
+    public static final long DEFAULT_QUERY_EXECUTOR_DECOMPRESSED_CHUNK_CACHE_MAX_SIZE_BYTES = 0;
+    // Chunks decompressed faster than this are not admitted into the decompressed chunk cache, as decompressing them
+    // again is about as cheap as copying them from the cache
+    public static final String DECOMPRESSED_CHUNK_CACHE_MIN_DECOMPRESSION_TIME_NS =
+        "decompressed.chunk.cache.min.decompression.time.ns";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_DECOMPRESSED_CHUNK_CACHE_MIN_DECOMPRESSION_TIME_NS =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + DECOMPRESSED_CHUNK_CACHE_MIN_DECOMPRESSION_TIME_NS;
+    public static final long DEFAULT_QUERY_EXECUTOR_DECOMPRESSED_CHUNK_CACHE_MIN_DECOMPRESSION_TIME_NS = 10_000;
+
+    // Memory budget of the on-heap copies of the hot columns of immutable segments, used by the tables with
+    // `adaptiveOnHeapEnabled` in the indexing config, 0 to disable the adaptive on-heap promotion
+    public static final String ADAPTIVE_ON_HEAP_MAX_SIZE_BYTES = "adaptive.on.heap.max.size.bytes";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_MAX_SIZE_BYTES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + ADAPTIVE_ON_HEAP_MAX_SIZE_BYTES;
+    public static final long DEFAULT_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_MAX_SIZE_BYTES = 0;
+    // Interval at which the columns are re-ranked by their access frequency, promoted and demoted
+    public static final String ADAPTIVE_ON_HEAP_REFRESH_INTERVAL_MS = "adaptive.on.heap.refresh.interval.ms";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_REFRESH_INTERVAL_MS =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + ADAPTIVE_ON_HEAP_REFRESH_INTERVAL_MS;
+    public static final long DEFAULT_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_REFRESH_INTERVAL_MS = 60_000;
+    // Minimum access score (number of accesses decayed by half each refresh interval) of the columns kept on heap,
+    // a column accessed N times per interval converges to a score of 2N
+    public static final String ADAPTIVE_ON_HEAP_MIN_ACCESS_SCORE = "adaptive.on.heap.min.access.score";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_MIN_ACCESS_SCORE =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + ADAPTIVE_ON_HEAP_MIN_ACCESS_SCORE;
+    public static final long DEFAULT_QUERY_EXECUTOR_ADAPTIVE_ON_HEAP_MIN_ACCESS_SCORE = 10;
+
+    // Number of threads reading the index files of memory mapped segments ahead of the query execution, when prefetch
+    // is enabled for the queries (`pinot.server.query.executor.enable.prefetch`), 0 to disable the async prefetch
+    public static final String INDEX_PREFETCH_NUM_THREADS = "index.prefetch.num.threads";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_INDEX_PREFETCH_NUM_THREADS =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + INDEX_PREFETCH_NUM_THREADS;
+    public static final int DEFAULT_QUERY_EXECUTOR_INDEX_PREFETCH_NUM_THREADS = 4;
+    // Max number of prefetch batches queued for the prefetch threads, the batches submitted when the queue is full are
+    // dropped
+    public static final String INDEX_PREFETCH_MAX_QUEUED_BATCHES = "index.prefetch.max.queued.batches";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_INDEX_PREFETCH_MAX_QUEUED_BATCHES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + INDEX_PREFETCH_MAX_QUEUED_BATCHES;
+    public static final int DEFAULT_QUERY_EXECUTOR_INDEX_PREFETCH_MAX_QUEUED_BATCHES = 1024;
+    // Min interval between two prefetches of the same index of a segment, as the pages read by the previous prefetch
+    // are likely still in the page cache. The index is prefetched again after that in case the OS evicted its pages
+    public static final String INDEX_PREFETCH_MIN_INTERVAL_MS = "index.prefetch.min.interval.ms";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_INDEX_PREFETCH_MIN_INTERVAL_MS =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + INDEX_PREFETCH_MIN_INTERVAL_MS;
+    public static final long DEFAULT_QUERY_EXECUTOR_INDEX_PREFETCH_MIN_INTERVAL_MS = 60_000L;
     public static final String MSE = "mse";
     public static final String MSE_CONFIG_PREFIX = QUERY_EXECUTOR_CONFIG_PREFIX + "." + MSE;
     public static final String CONFIG_OF_MSE_MAX_INITIAL_RESULT_HOLDER_CAPACITY =
@@ -1438,8 +1551,9 @@ public class CommonConstants {
     ///
     /// It is recommended to use cached. In case fixed is used, it should use a large enough number of threads or
     /// parent operators may consume all threads.
-    /// In Java 21 or newer, virtual threads are a good solution. Although Apache Pinot doesn't include this option yet,
-    /// it is trivial to implement that plugin.
+    /// In Java 21 or newer, virtual threads are a good solution, which can be used with the `virtual` type. Opchains
+    /// blocked on mailbox waits then only park a virtual thread instead of pinning a platform thread, and the number
+    /// of concurrently running opchains can be capped with `<prefix>.maxConcurrency`.
     ///
     /// See QueryRunner
     public static final String MULTISTAGE_EXECUTOR = "multistage.executor";
@@ -2283,6 +2397,16 @@ public class CommonConstants {
 
   public static class Tier {
     public static final String BACKEND_PROP_DATA_DIR = "dataDir";
+
+    /// Base URI (on any [org.apache.pinot.spi.filesystem.PinotFS]) under which the index files of the segments on the
+    /// tier are kept, instead of on the server disks. Only used by the `remoteTier` segment directory loader.
+    public static final String BACKEND_PROP_REMOTE_DATA_DIR = "remoteDataDir";
+    /// Local directory (e.g. on SSD) caching the index ranges read from the remote data dir. The ranges are cached in
+    /// off-heap memory when not configured.
+    public static final String BACKEND_PROP_REMOTE_CACHE_DIR = "remoteCacheDir";
+    /// Max size of the index ranges cached locally for the tier, e.g. `10G`
+    public static final String BACKEND_PROP_REMOTE_CACHE_SIZE = "remoteCacheSize";
+    public static final String DEFAULT_REMOTE_CACHE_SIZE = "1G";
   }
 
   public static class Explain {
@@ -2563,6 +2687,28 @@ public class CommonConstants {
     public static final String KEY_OF_MAX_ROWS_IN_JOIN = "pinot.query.join.max.rows";
     public static final String KEY_OF_JOIN_OVERFLOW_MODE = "pinot.query.join.overflow.mode";
 
+    /// Default value for the `joinSpillThresholdBytes` query option. Spilling is disabled when not set.
+    public static final String KEY_OF_JOIN_SPILL_THRESHOLD_BYTES = "pinot.query.join.spill.threshold.bytes";
+
+    /// Default value for the `sortSpillThresholdBytes` query option. Spilling is disabled when not set.
+    public static final String KEY_OF_SORT_SPILL_THRESHOLD_BYTES = "pinot.query.sort.spill.threshold.bytes";
+
+    /// Default value for the `groupBySpillThresholdBytes` query option. Spilling is disabled when not set.
+    public static final String KEY_OF_GROUP_BY_SPILL_THRESHOLD_BYTES = "pinot.query.groupby.spill.threshold.bytes";
+
+    /// Local directory where intermediate stage operators write spill files. Defaults to a `pinot-mse-spill`
+    /// directory under `java.io.tmpdir`. The directory is cleaned up when the server starts.
+    public static final String KEY_OF_SPILL_DIR = "pinot.query.runner.spill.dir";
+
+    /// Number of hash partitions intermediate stage operators split their input into when spilling it to disk.
+    public static final String KEY_OF_NUM_SPILL_PARTITIONS = "pinot.query.runner.spill.num.partitions";
+    public static final int DEFAULT_NUM_SPILL_PARTITIONS = 16;
+
+    /// How many times a spilled partition that still does not fit in memory can be split again into
+    /// [#KEY_OF_NUM_SPILL_PARTITIONS] partitions. `0` disables re-partitioning.
+    public static final String KEY_OF_MAX_SPILL_RECURSION_DEPTH = "pinot.query.runner.spill.max.recursion.depth";
+    public static final int DEFAULT_MAX_SPILL_RECURSION_DEPTH = 3;
+
     /// Specifies the send stats mode used in MSE.
     ///
     /// Valid values are (in lower or upper case):
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -244,6 +245,37 @@ public abstract class AbstractRecordReaderTest {
     checkValue(recordReader, _records, _primaryKeys);
   }
 
+  @Test
+  public void testColumnReaderFactory()
+      throws Exception {
+    ColumnReaderFactory columnReaderFactory = createColumnReaderFactory(_dataFile);
+    if (columnReaderFactory == null) {
+      return;
+    }
+    List<GenericRow> rows = new ArrayList<>();
+    try (RecordReader recordReader = createRecordReader()) {
+      while (recordReader.hasNext()) {
+        rows.add(recordReader.next());
+      }
+    }
+    try (ColumnReaderFactory factory = columnReaderFactory) {
+      factory.init(_pinotSchema);
+      Map<String, ColumnReader> columnReaders = factory.getAllColumnReaders();
+      Assert.assertEquals(columnReaders.keySet(), _pinotSchema.getColumnNames());
+      for (ColumnReader columnReader : columnReaders.values()) {
+        String column = columnReader.getColumnName();
+        int numDocs = columnReader.getTotalDocs();
+        Assert.assertEquals(numDocs, rows.size());
+        // Every column produces the same values as the record reader
+        for (int docId = 0; docId < numDocs; docId++) {
+          Assert.assertEquals(columnReader.getValue(docId), rows.get(docId).getValue(column), column);
+        }
+        // Random access after a full scan
+        Assert.assertEquals(columnReader.getValue(0), rows.get(0).getValue(column), column);
+      }
+    }
+  }
+
   /// Create the record reader given a file
   ///
   /// @param file input file
@@ -259,6 +291,15 @@ public abstract class AbstractRecordReaderTest {
     return createRecordReader(_dataFile);
   }
 
+  /// Create the column reader factory given a file, or `null` if the format does not support columnar reads
+  ///
+  /// @param file input file
+  /// @return an implementation of ColumnReaderFactory of the given file
+  @Nullable
+  protected ColumnReaderFactory createColumnReaderFactory(File file) {
+    return null;
+  }
+
   /// Write records into a file
   /// @throws Exception
   protected abstract void writeRecordsToFile(List<Map<String, Object>> recordsToWrite)
@@ -20,6 +20,7 @@ package org.apache.pinot.spi.filesystem;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -331,4 +332,32 @@ public class LocalPinotFSTest {
     Assert.assertThrows(IOException.class, () -> localPinotFS.listFiles(fileUri, false));
     Assert.assertThrows(IOException.class, () -> localPinotFS.listFilesWithMetadata(fileUri, false));
   }
+
+  @Test
+  public void testOpenRange()
+      throws IOException {
+    LocalPinotFS localPinotFS = new LocalPinotFS();
+    File testFile = new File(_absoluteTmpDirPath, "testOpenRange");
+    byte[] content = new byte[1000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    FileUtils.writeByteArrayToFile(testFile, content);
+    URI fileUri = testFile.toURI();
+    Assert.assertTrue(localPinotFS.supportsRangeReads());
+
+    try (InputStream inputStream = localPinotFS.openRange(fileUri, 100, 50)) {
+      Assert.assertEquals(inputStream.readAllBytes(), Arrays.copyOfRange(content, 100, 150));
+    }
+    try (InputStream inputStream = localPinotFS.openRange(fileUri, 0, 0)) {
+      Assert.assertEquals(inputStream.read(), -1);
+    }
+    // Range beyond the end of the file is truncated
+    try (InputStream inputStream = localPinotFS.openRange(fileUri, 990, 50)) {
+      Assert.assertEquals(inputStream.readAllBytes(), Arrays.copyOfRange(content, 990, 1000));
+    }
+    Assert.assertThrows(IOException.class, () -> localPinotFS.openRange(fileUri, 1001, 10));
+    Assert.assertThrows(IOException.class,
+        () -> localPinotFS.openRange(new File(_absoluteTmpDirPath, "nonExistentFile").toURI(), 0, 10));
+  }
 }